@@ -13,6 +13,7 @@ import amodeus.amodeus.util.net.StringSocket;
 import amodeus.amodeus.video.VideoGenerator;
 import amodeus.socket.core.ScoreParameters;
 import amodeus.socket.core.SocketDispatcherHost;
+import amodeus.socket.core.SocketProtocol;
 import amodeus.socket.core.SocketScoreElement;
 import ch.ethz.idsc.tensor.RealScalar;
 import ch.ethz.idsc.tensor.Scalar;
@@ -23,6 +24,7 @@ import ch.ethz.idsc.tensor.sca.Round;
 import org.matsim.amodeus.config.AmodeusModeConfig;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 //TODO refactor and shorten @clruch
@@ -47,6 +49,7 @@ public enum SocketHost {
     public static void run(File workingDirectory) throws Exception {
         System.out.println("Using scenario directory: " + workingDirectory);
         StringSocket stringSocket = null;
+        SocketProtocol socketProtocol = SocketProtocol.TEXT;
 
         /** open String server and wait for initial command */
         try (StringServerSocket serverSocket = new StringServerSocket(PORT)) {
@@ -56,6 +59,8 @@ public enum SocketHost {
             String readLine = stringSocket.readLine();
             Tensor config = Tensors.fromString(readLine);
             System.out.println("SocketHost config: " + config);
+            /** the client may choose the protocol of the dispatching status and commands, e.g., {SanFrancisco, BINARY} */
+            socketProtocol = SocketProtocol.fromConfig(config);
             Thread.sleep(1000);
             String scenarioTag = config.Get(0).toString();
             {
@@ -116,10 +121,9 @@ public enum SocketHost {
             ConfigDispatcherChanger.change(simConfigPath, SocketDispatcherHost.class.getSimpleName());
             ConfigVehiclesChanger.change(simConfigPath, fleetSize);
             SocketServer socketServer = new SocketServer();
-            socketServer.simulate(stringSocket, numReqDes, workingDirectory);
+            socketServer.simulate(stringSocket, socketProtocol, numReqDes, workingDirectory);
 
-            /** send empty tensor "{}" to stop */
-            stringSocket.writeln(Tensors.empty());
+            stop(stringSocket, socketProtocol);
 
             /** analyze and send final score */
             Analysis analysis = Analysis.setup(socketServer.getScenarioOptions(), socketServer.getOutputDirectory(), //
@@ -146,15 +150,24 @@ public enum SocketHost {
 
         } catch (Exception exception) {
             // exception.printStackTrace();
-            shutdown(stringSocket);
+            shutdown(stringSocket, socketProtocol);
             throw exception;
         }
     }
 
-    private static void shutdown(StringSocket stringSocket) throws Exception {
-        if (Objects.nonNull(stringSocket)) {
+    /** signals the client that the simulation is finished */
+    private static void stop(StringSocket stringSocket, SocketProtocol socketProtocol) throws Exception {
+        if (socketProtocol.isBinary())
+            /** send empty frame to stop */
+            stringSocket.writeFrame(ByteBuffer.allocate(0));
+        else
             /** send empty tensor "{}" to stop */
             stringSocket.writeln(Tensors.empty());
+    }
+
+    private static void shutdown(StringSocket stringSocket, SocketProtocol socketProtocol) throws Exception {
+        if (Objects.nonNull(stringSocket)) {
+            stop(stringSocket, socketProtocol);
             /** send fictitious costs */
             stringSocket.writeln(StaticHelper.FAILURE_SCORE);
         }
@@ -2,6 +2,7 @@
 package amodeus.socket;
 
 import amodeus.amodeus.util.net.StringSocket;
+import amodeus.socket.core.SocketProtocol;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import org.matsim.api.core.v01.network.Network;
@@ -11,10 +12,16 @@ import java.util.Objects;
 
 public class SocketModule extends AbstractModule {
     private final StringSocket stringSocket;
+    private final SocketProtocol socketProtocol;
     private final int numReqTot;
 
     public SocketModule(StringSocket stringSocket, int numReqTot) {
+        this(stringSocket, SocketProtocol.TEXT, numReqTot);
+    }
+
+    public SocketModule(StringSocket stringSocket, SocketProtocol socketProtocol, int numReqTot) {
         this.stringSocket = Objects.requireNonNull(stringSocket);
+        this.socketProtocol = Objects.requireNonNull(socketProtocol);
         this.numReqTot = numReqTot;
     }
 
@@ -29,6 +36,12 @@ public class SocketModule extends AbstractModule {
         return stringSocket;
     }
 
+    @Provides
+    @Singleton
+    public SocketProtocol provideSocketProtocol() {
+        return socketProtocol;
+    }
+
     @Provides
     @Singleton
     public int provideNumReqTot() {
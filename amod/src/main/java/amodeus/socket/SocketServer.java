@@ -17,6 +17,7 @@ import amodeus.amodeus.util.math.GlobalAssert;
 import amodeus.amodeus.util.matsim.AddCoordinatesToActivities;
 import amodeus.amodeus.util.net.StringSocket;
 import amodeus.socket.core.SocketDispatcherHost;
+import amodeus.socket.core.SocketProtocol;
 import org.matsim.amodeus.AmodeusConfigurator;
 import org.matsim.amodeus.config.AmodeusConfigGroup;
 import org.matsim.amodeus.framework.AmodeusUtils;
@@ -50,7 +51,7 @@ import java.util.Objects;
      * @throws MalformedURLException
      * @throws Exception */
 
-    public void simulate(StringSocket stringSocket, int numReqTot, //
+    public void simulate(StringSocket stringSocket, SocketProtocol socketProtocol, int numReqTot, //
             File workingDirectory) throws MalformedURLException, Exception {
         Static.setup();
         /** working directory and options */
@@ -105,7 +106,7 @@ import java.util.Objects;
             exception.printStackTrace();
         }
 
-        controller.addOverridingModule(new SocketModule(stringSocket, numReqTot));
+        controller.addOverridingModule(new SocketModule(stringSocket, socketProtocol, numReqTot));
 
         /** Custom router that ensures same network speeds as taxis in original data set. */
         controller.addOverridingModule(new AbstractModule() {
@@ -5,6 +5,7 @@ import amodeus.amodeus.util.math.GlobalAssert;
 import ch.ethz.idsc.tensor.Scalar;
 import ch.ethz.idsc.tensor.Tensor;
 
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -36,4 +37,22 @@ public enum CommandConsistency {
         for (Tensor rebalance : rebalances)
             GlobalAssert.that(usdRobTaxis.add(rebalance.Get(0)));
     }
+
+    /** same checks as {@link #check(Tensor)} for the commands of {@link SocketProtocol#BINARY}
+     * 
+     * @param commands */
+    public static void check(SocketBinaryCommands commands) {
+        BitSet usedRoboTaxis = new BitSet();
+        BitSet usedPickups = new BitSet();
+        for (int index = 0; index < commands.pickups(); ++index) {
+            GlobalAssert.that(!usedRoboTaxis.get(commands.pickupTaxi(index)));
+            usedRoboTaxis.set(commands.pickupTaxi(index));
+            GlobalAssert.that(!usedPickups.get(commands.pickupRequest(index)));
+            usedPickups.set(commands.pickupRequest(index));
+        }
+        for (int index = 0; index < commands.rebalances(); ++index) {
+            GlobalAssert.that(!usedRoboTaxis.get(commands.rebalanceTaxi(index)));
+            usedRoboTaxis.set(commands.rebalanceTaxi(index));
+        }
+    }
 }
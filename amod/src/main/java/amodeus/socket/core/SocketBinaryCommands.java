@@ -0,0 +1,108 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.socket.core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/** dispatching commands of {@link SocketProtocol#BINARY}, built by the client and decoded by the host
+ * without intermediate tensors.
+ *
+ * Layout of the frame, all numbers big-endian:
+ * <pre>
+ * int    number of pickups, for every pickup
+ *        int taxi id, int request id
+ * int    number of rebalances, for every rebalance
+ *        int taxi id, double longitude, double latitude
+ * </pre> */
+public class SocketBinaryCommands {
+    /** @param byteBuffer frame
+     * @return commands decoded from frame */
+    public static SocketBinaryCommands decode(ByteBuffer byteBuffer) {
+        SocketBinaryCommands socketBinaryCommands = new SocketBinaryCommands();
+        int pickups = byteBuffer.getInt();
+        for (int index = 0; index < pickups; ++index)
+            socketBinaryCommands.addPickup(byteBuffer.getInt(), byteBuffer.getInt());
+        int rebalances = byteBuffer.getInt();
+        for (int index = 0; index < rebalances; ++index)
+            socketBinaryCommands.addRebalance(byteBuffer.getInt(), byteBuffer.getDouble(), byteBuffer.getDouble());
+        return socketBinaryCommands;
+    }
+
+    // ---
+    private int pickups = 0;
+    /** taxi id, request id */
+    private int[] pickupIds = new int[0];
+    private int rebalances = 0;
+    private int[] rebalanceTaxis = new int[0];
+    /** longitude, latitude */
+    private double[] rebalanceLocations = new double[0];
+
+    public void addPickup(int taxi, int request) {
+        if (pickupIds.length == 2 * pickups)
+            pickupIds = Arrays.copyOf(pickupIds, Math.max(32, 4 * pickups));
+        pickupIds[2 * pickups] = taxi;
+        pickupIds[2 * pickups + 1] = request;
+        ++pickups;
+    }
+
+    public void addRebalance(int taxi, double longitude, double latitude) {
+        if (rebalanceTaxis.length == rebalances) {
+            rebalanceTaxis = Arrays.copyOf(rebalanceTaxis, Math.max(16, 2 * rebalances));
+            rebalanceLocations = Arrays.copyOf(rebalanceLocations, 2 * rebalanceTaxis.length);
+        }
+        rebalanceTaxis[rebalances] = taxi;
+        rebalanceLocations[2 * rebalances] = longitude;
+        rebalanceLocations[2 * rebalances + 1] = latitude;
+        ++rebalances;
+    }
+
+    /** removes all commands to reuse the instance */
+    public void clear() {
+        pickups = 0;
+        rebalances = 0;
+    }
+
+    public int pickups() {
+        return pickups;
+    }
+
+    public int pickupTaxi(int index) {
+        return pickupIds[2 * index];
+    }
+
+    public int pickupRequest(int index) {
+        return pickupIds[2 * index + 1];
+    }
+
+    public int rebalances() {
+        return rebalances;
+    }
+
+    public int rebalanceTaxi(int index) {
+        return rebalanceTaxis[index];
+    }
+
+    public double rebalanceLongitude(int index) {
+        return rebalanceLocations[2 * index];
+    }
+
+    public double rebalanceLatitude(int index) {
+        return rebalanceLocations[2 * index + 1];
+    }
+
+    /** @return new frame of the commands */
+    public ByteBuffer encode() {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(4 + pickups * 8 + 4 + rebalances * 20);
+        byteBuffer.putInt(pickups);
+        for (int index = 0; index < 2 * pickups; ++index)
+            byteBuffer.putInt(pickupIds[index]);
+        byteBuffer.putInt(rebalances);
+        for (int index = 0; index < rebalances; ++index) {
+            byteBuffer.putInt(rebalanceTaxis[index]);
+            byteBuffer.putDouble(rebalanceLocations[2 * index]);
+            byteBuffer.putDouble(rebalanceLocations[2 * index + 1]);
+        }
+        byteBuffer.flip();
+        return byteBuffer;
+    }
+}
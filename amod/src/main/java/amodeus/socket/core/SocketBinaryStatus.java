@@ -0,0 +1,77 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.socket.core;
+
+import amodeus.amodeus.dispatcher.core.RoboTaxiStatus;
+
+import java.nio.ByteBuffer;
+
+/** dispatching status of {@link SocketProtocol#BINARY} as decoded by the client,
+ * the layout of the frame is documented in {@link SocketStatusEncoder}.
+ *
+ * If {@link #delta} is true, the taxis are only the taxis that changed since the previous status
+ * and the client keeps the state of the other taxis from the previous periods. */
+public class SocketBinaryStatus {
+    /** @param byteBuffer non-empty frame
+     * @return status decoded from frame */
+    public static SocketBinaryStatus decode(ByteBuffer byteBuffer) {
+        return new SocketBinaryStatus(byteBuffer);
+    }
+
+    // ---
+    public final long time;
+    public final boolean delta;
+    public final int[] taxiIds;
+    public final double[] taxiLongitudes;
+    public final double[] taxiLatitudes;
+    /** ordinal of {@link RoboTaxiStatus} */
+    public final byte[] taxiStatus;
+    public final boolean[] taxiDivertable;
+    public final int[] requestIds;
+    public final double[] requestSubmissionTimes;
+    public final double[] requestFromLongitudes;
+    public final double[] requestFromLatitudes;
+    public final double[] requestToLongitudes;
+    public final double[] requestToLatitudes;
+    public final double[] score;
+
+    private SocketBinaryStatus(ByteBuffer byteBuffer) {
+        time = byteBuffer.getLong();
+        delta = byteBuffer.get() != 0;
+        int taxis = byteBuffer.getInt();
+        taxiIds = new int[taxis];
+        taxiLongitudes = new double[taxis];
+        taxiLatitudes = new double[taxis];
+        taxiStatus = new byte[taxis];
+        taxiDivertable = new boolean[taxis];
+        for (int index = 0; index < taxis; ++index) {
+            taxiIds[index] = byteBuffer.getInt();
+            taxiLongitudes[index] = byteBuffer.getDouble();
+            taxiLatitudes[index] = byteBuffer.getDouble();
+            taxiStatus[index] = byteBuffer.get();
+            taxiDivertable[index] = byteBuffer.get() != 0;
+        }
+        int requests = byteBuffer.getInt();
+        requestIds = new int[requests];
+        requestSubmissionTimes = new double[requests];
+        requestFromLongitudes = new double[requests];
+        requestFromLatitudes = new double[requests];
+        requestToLongitudes = new double[requests];
+        requestToLatitudes = new double[requests];
+        for (int index = 0; index < requests; ++index) {
+            requestIds[index] = byteBuffer.getInt();
+            requestSubmissionTimes[index] = byteBuffer.getDouble();
+            requestFromLongitudes[index] = byteBuffer.getDouble();
+            requestFromLatitudes[index] = byteBuffer.getDouble();
+            requestToLongitudes[index] = byteBuffer.getDouble();
+            requestToLatitudes[index] = byteBuffer.getDouble();
+        }
+        score = new double[byteBuffer.getInt()];
+        for (int index = 0; index < score.length; ++index)
+            score[index] = byteBuffer.getDouble();
+    }
+
+    /** @return status of the taxi at index */
+    public RoboTaxiStatus getTaxiStatus(int index) {
+        return RoboTaxiStatus.values()[taxiStatus[index]];
+    }
+}
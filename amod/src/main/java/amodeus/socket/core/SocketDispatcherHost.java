@@ -8,12 +8,14 @@ import amodeus.amodeus.net.MatsimAmodeusDatabase;
 import amodeus.amodeus.util.matsim.SafeConfig;
 import amodeus.amodeus.util.net.StringSocket;
 import ch.ethz.idsc.tensor.RealScalar;
+import ch.ethz.idsc.tensor.Scalar;
 import ch.ethz.idsc.tensor.Tensor;
 import ch.ethz.idsc.tensor.Tensors;
 import org.matsim.amodeus.components.AmodeusDispatcher;
 import org.matsim.amodeus.components.AmodeusRouter;
 import org.matsim.amodeus.config.AmodeusModeConfig;
 import org.matsim.amodeus.plpc.ParallelLeastCostPathCalculator;
+import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.contrib.dvrp.passenger.PassengerRequest;
@@ -21,6 +23,7 @@ import org.matsim.contrib.dvrp.run.ModalProviders.InstanceGetter;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -38,12 +41,14 @@ public class SocketDispatcherHost extends RebalancingDispatcher {
     private final int dispatchPeriod;
     private final SocketRequestCompiler socketReqComp;
     private final SocketRoboTaxiCompiler socketRobTaxComp;
+    private final SocketProtocol socketProtocol;
+    private final SocketStatusEncoder socketStatusEncoder;
     // ---
     private SocketScoreCompiler socketScoreCompiler;
 
     protected SocketDispatcherHost(Network network, Config config, AmodeusModeConfig operatorConfig, TravelTime travelTime,
             ParallelLeastCostPathCalculator parallelLeastCostPathCalculator, EventsManager eventsManager, //
-            StringSocket clientSocket, int numReqTot, //
+            StringSocket clientSocket, SocketProtocol socketProtocol, int numReqTot, //
             MatsimAmodeusDatabase db) {
         super(config, operatorConfig, travelTime, parallelLeastCostPathCalculator, eventsManager, db);
         this.db = db;
@@ -54,6 +59,8 @@ public class SocketDispatcherHost extends RebalancingDispatcher {
         this.dispatchPeriod = safeConfig.getInteger("dispatchPeriod", 30);
         socketReqComp = new SocketRequestCompiler(db);
         socketRobTaxComp = new SocketRoboTaxiCompiler(db);
+        this.socketProtocol = Objects.requireNonNull(socketProtocol);
+        socketStatusEncoder = new SocketStatusEncoder(socketProtocol == SocketProtocol.BINARY_DELTA);
     }
 
     @Override
@@ -73,6 +80,11 @@ public class SocketDispatcherHost extends RebalancingDispatcher {
                     getPassengerRequests().forEach( //
                             avRequest -> idRequestMap.put(avRequest.getId().index(), avRequest));
 
+                    if (socketProtocol.isBinary()) {
+                        exchangeBinary(now, round_now);
+                        return;
+                    }
+
                     Tensor status = Tensors.of(RealScalar.of((long) now), //
                             socketRobTaxComp.compile(getRoboTaxis()), //
                             socketReqComp.compile(getPassengerRequests()), //
@@ -103,6 +115,36 @@ public class SocketDispatcherHost extends RebalancingDispatcher {
         }
     }
 
+    /** status and commands as binary frames, see {@link SocketStatusEncoder} and {@link SocketBinaryCommands} */
+    private void exchangeBinary(double now, long round_now) throws Exception {
+        CoordinateTransformation toWGS84 = db.referenceFrame.coords_toWGS84();
+        socketStatusEncoder.begin((long) now);
+        for (RoboTaxi roboTaxi : getRoboTaxis()) {
+            Coord coord = toWGS84.transform(roboTaxi.getDivertableLocation().getCoord());
+            socketStatusEncoder.addTaxi(roboTaxi.getId().index(), coord.getX(), coord.getY(), roboTaxi.getStatus(), roboTaxi.isDivertable());
+        }
+        for (PassengerRequest avRequest : getPassengerRequests()) {
+            Coord from = toWGS84.transform(avRequest.getFromLink().getCoord());
+            Coord to = toWGS84.transform(avRequest.getToLink().getCoord());
+            socketStatusEncoder.addRequest(avRequest.getId().index(), avRequest.getSubmissionTime(), //
+                    from.getX(), from.getY(), to.getX(), to.getY());
+        }
+        Tensor score = socketScoreCompiler.compile(round_now, getRoboTaxis(), getPassengerRequests());
+        socketStatusEncoder.setScore(score.stream().map(Scalar.class::cast).mapToDouble(scalar -> scalar.number().doubleValue()).toArray());
+        clientSocket.writeFrame(socketStatusEncoder.encode());
+
+        SocketBinaryCommands commands = SocketBinaryCommands.decode(clientSocket.readFrame());
+        CommandConsistency.check(commands);
+
+        for (int index = 0; index < commands.pickups(); ++index)
+            setRoboTaxiPickup(idRoboTaxiMap.get(commands.pickupTaxi(index)), idRequestMap.get(commands.pickupRequest(index)));
+
+        for (int index = 0; index < commands.rebalances(); ++index) {
+            Link link = fastLinkLookup.linkFromWGS84(new Coord(commands.rebalanceLongitude(index), commands.rebalanceLatitude(index)));
+            setRoboTaxiRebalance(idRoboTaxiMap.get(commands.rebalanceTaxi(index)), link);
+        }
+    }
+
     public static class Factory implements AVDispatcherFactory {
         @Override
         public AmodeusDispatcher createDispatcher(InstanceGetter inject) {
@@ -118,9 +160,10 @@ public class SocketDispatcherHost extends RebalancingDispatcher {
             // TODO: Probably worth configuring this in some other way (not binding String and int)
             int numReqTot = inject.get(int.class);
             StringSocket stringSocket = inject.get(StringSocket.class);
+            SocketProtocol socketProtocol = inject.get(SocketProtocol.class);
 
             return new SocketDispatcherHost(network, config, operatorConfig, travelTime, router, eventsManager, //
-                    stringSocket, numReqTot, db);
+                    stringSocket, socketProtocol, numReqTot, db);
         }
     }
 }
@@ -0,0 +1,28 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.socket.core;
+
+import ch.ethz.idsc.tensor.Tensor;
+
+/** protocol for the dispatching status and commands exchanged with the client during the simulation.
+ * The client chooses the protocol with the optional second entry of the initial command, e.g.,
+ * {SanFrancisco, BINARY}. The setup and the final score are exchanged as lines of text in all protocols. */
+public enum SocketProtocol {
+    /** status and commands as tensor strings, one line each */
+    TEXT, //
+    /** status and commands as binary frames, see {@link SocketStatusEncoder} and {@link SocketBinaryCommands} */
+    BINARY, //
+    /** as {@link #BINARY} but the status only contains the taxis that changed since the previous status */
+    BINARY_DELTA, //
+    ;
+
+    /** @return true if status and commands are exchanged as binary frames */
+    public boolean isBinary() {
+        return this != TEXT;
+    }
+
+    /** @param config initial command of the client, {scenario} or {scenario, protocol}
+     * @return protocol chosen by the client, {@link #TEXT} if none */
+    public static SocketProtocol fromConfig(Tensor config) {
+        return 1 < config.length() ? valueOf(config.Get(1).toString()) : TEXT;
+    }
+}
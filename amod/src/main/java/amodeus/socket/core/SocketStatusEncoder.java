@@ -0,0 +1,160 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.socket.core;
+
+import amodeus.amodeus.dispatcher.core.RoboTaxiStatus;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/** encodes the dispatching status of {@link SocketProtocol#BINARY} without intermediate tensors.
+ * The arrays and the buffer are reused in every dispatching period.
+ *
+ * Layout of the frame, all numbers big-endian:
+ * <pre>
+ * long   time
+ * byte   1 if the taxis are a delta to the previous status, otherwise 0
+ * int    number of taxis, for every taxi
+ *        int id, double longitude, double latitude, byte ordinal of {@link RoboTaxiStatus}, byte divertable
+ * int    number of requests, for every request
+ *        int id, double submission time, double from longitude, double from latitude, double to longitude, double to latitude
+ * int    number of scores, for every score
+ *        double score
+ * </pre>
+ *
+ * With deltas only the taxis are encoded whose location, status or divertability changed since
+ * the last encoded frame. Decoding is implemented by {@link SocketBinaryStatus}. */
+public class SocketStatusEncoder {
+    /** bytes of one taxi in the frame */
+    public static final int TAXI_BYTES = 4 + 2 * 8 + 2;
+    /** bytes of one request in the frame */
+    public static final int REQUEST_BYTES = 4 + 5 * 8;
+    private static final byte NOT_SENT = -1;
+    private static final double[] EMPTY = new double[0];
+
+    private final boolean deltas;
+    // ---
+    private long time;
+    private int taxis;
+    private int[] taxiIds = new int[0];
+    /** longitude, latitude */
+    private double[] taxiLocations = new double[0];
+    private byte[] taxiStatus = new byte[0];
+    private boolean[] taxiDivertable = new boolean[0];
+    private int requests;
+    private int[] requestIds = new int[0];
+    /** submission time, from longitude, from latitude, to longitude, to latitude */
+    private double[] requestValues = new double[0];
+    private double[] score = EMPTY;
+    /** state of the taxis in the last frame by id index, only used with deltas */
+    private double[] sentLocations = new double[0];
+    private byte[] sentStatus = new byte[0];
+    private boolean[] sentDivertable = new boolean[0];
+    private ByteBuffer byteBuffer = ByteBuffer.allocate(1024);
+
+    /** @param deltas true to only encode taxis that changed since the last frame */
+    public SocketStatusEncoder(boolean deltas) {
+        this.deltas = deltas;
+    }
+
+    /** starts the status of a new dispatching period
+     *
+     * @param time */
+    public void begin(long time) {
+        this.time = time;
+        taxis = 0;
+        requests = 0;
+        score = EMPTY;
+    }
+
+    /** @param id index of the taxi, non-negative
+     * @param longitude of divertable location
+     * @param latitude of divertable location
+     * @param status
+     * @param divertable */
+    public void addTaxi(int id, double longitude, double latitude, RoboTaxiStatus status, boolean divertable) {
+        byte ordinal = (byte) status.ordinal();
+        if (deltas) {
+            if (sentStatus.length <= id) {
+                int length = sentStatus.length;
+                sentStatus = Arrays.copyOf(sentStatus, Math.max(id + 1, 2 * length));
+                Arrays.fill(sentStatus, length, sentStatus.length, NOT_SENT);
+                sentLocations = Arrays.copyOf(sentLocations, 2 * sentStatus.length);
+                sentDivertable = Arrays.copyOf(sentDivertable, sentStatus.length);
+            }
+            if (sentStatus[id] == ordinal && sentDivertable[id] == divertable //
+                    && sentLocations[2 * id] == longitude && sentLocations[2 * id + 1] == latitude)
+                return;
+            sentStatus[id] = ordinal;
+            sentDivertable[id] = divertable;
+            sentLocations[2 * id] = longitude;
+            sentLocations[2 * id + 1] = latitude;
+        }
+        if (taxiIds.length == taxis) {
+            int length = Math.max(16, 2 * taxis);
+            taxiIds = Arrays.copyOf(taxiIds, length);
+            taxiLocations = Arrays.copyOf(taxiLocations, 2 * length);
+            taxiStatus = Arrays.copyOf(taxiStatus, length);
+            taxiDivertable = Arrays.copyOf(taxiDivertable, length);
+        }
+        taxiIds[taxis] = id;
+        taxiLocations[2 * taxis] = longitude;
+        taxiLocations[2 * taxis + 1] = latitude;
+        taxiStatus[taxis] = ordinal;
+        taxiDivertable[taxis] = divertable;
+        ++taxis;
+    }
+
+    public void addRequest(int id, double submissionTime, double fromLongitude, double fromLatitude, double toLongitude, double toLatitude) {
+        if (requestIds.length == requests) {
+            int length = Math.max(16, 2 * requests);
+            requestIds = Arrays.copyOf(requestIds, length);
+            requestValues = Arrays.copyOf(requestValues, 5 * length);
+        }
+        requestIds[requests] = id;
+        int offset = 5 * requests;
+        requestValues[offset] = submissionTime;
+        requestValues[offset + 1] = fromLongitude;
+        requestValues[offset + 2] = fromLatitude;
+        requestValues[offset + 3] = toLongitude;
+        requestValues[offset + 4] = toLatitude;
+        ++requests;
+    }
+
+    public void setScore(double[] score) {
+        this.score = score;
+    }
+
+    /** @return number of taxis in the current frame */
+    public int taxis() {
+        return taxis;
+    }
+
+    /** @return frame of the status added since {@link #begin(long)}, the buffer is reused by the next call */
+    public ByteBuffer encode() {
+        int length = 8 + 1 + 4 + taxis * TAXI_BYTES + 4 + requests * REQUEST_BYTES + 4 + score.length * 8;
+        if (byteBuffer.capacity() < length)
+            byteBuffer = ByteBuffer.allocate(Math.max(length, 2 * byteBuffer.capacity()));
+        byteBuffer.clear();
+        byteBuffer.putLong(time);
+        byteBuffer.put((byte) (deltas ? 1 : 0));
+        byteBuffer.putInt(taxis);
+        for (int index = 0; index < taxis; ++index) {
+            byteBuffer.putInt(taxiIds[index]);
+            byteBuffer.putDouble(taxiLocations[2 * index]);
+            byteBuffer.putDouble(taxiLocations[2 * index + 1]);
+            byteBuffer.put(taxiStatus[index]);
+            byteBuffer.put((byte) (taxiDivertable[index] ? 1 : 0));
+        }
+        byteBuffer.putInt(requests);
+        for (int index = 0; index < requests; ++index) {
+            byteBuffer.putInt(requestIds[index]);
+            for (int offset = 5 * index; offset < 5 * index + 5; ++offset)
+                byteBuffer.putDouble(requestValues[offset]);
+        }
+        byteBuffer.putInt(score.length);
+        for (double value : score)
+            byteBuffer.putDouble(value);
+        byteBuffer.flip();
+        return byteBuffer;
+    }
+}
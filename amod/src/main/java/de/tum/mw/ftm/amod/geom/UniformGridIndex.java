@@ -0,0 +1,170 @@
+package de.tum.mw.ftm.amod.geom;
+
+import amodeus.amodeus.util.math.GlobalAssert;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+
+import java.util.Arrays;
+
+/**
+ * Maps coordinates to the cells of a uniform grid, as created by
+ * {@link de.tum.mw.ftm.amod.taxi.util.AmodeusUtil#createEvenSpacedGrid}, by arithmetic instead of testing every cell.
+ *
+ * The cell of a coordinate is the first cell of the grid array which contains it, i.e. the result is identical to
+ * scanning the cells with {@link GridCell#contains(double, double)}, also for coordinates on the boundary of two cells.
+ * The cell of every link of the network given at construction is computed once.
+ */
+public class UniformGridIndex {
+    /**
+     * Returned for coordinates which are not inside any cell of the grid.
+     */
+    public static final int OUTSIDE = -1;
+    private static final int UNKNOWN = -2;
+
+    private final GridCell[] gridCells;
+    private final int numberOfColumns;
+    private final int numberOfRows;
+    /**
+     * x values of the vertical cell boundaries from west to east, taken from the cells
+     */
+    private final double[] columnBoundaries;
+    /**
+     * y values of the horizontal cell boundaries from north to south, taken from the cells
+     */
+    private final double[] rowBoundaries;
+    private final double cellWidth;
+    private final double cellHeight;
+    /**
+     * cell of each link, by link id index
+     */
+    private final int[] linkCells;
+
+    public UniformGridIndex(GridCell[] gridCells) {
+        this(gridCells, null);
+    }
+
+    /**
+     * @param gridCells row by row from north to south, every row from west to east
+     * @param network   cells of all links are computed ahead, may be null
+     */
+    public UniformGridIndex(GridCell[] gridCells, Network network) {
+        GlobalAssert.that(gridCells.length > 0);
+        this.gridCells = gridCells;
+
+        int columns = 1;
+        while (columns < gridCells.length && gridCells[columns].getMaxY() == gridCells[0].getMaxY()) {
+            columns++;
+        }
+        numberOfColumns = columns;
+        numberOfRows = gridCells.length / numberOfColumns;
+        GlobalAssert.that(numberOfRows * numberOfColumns == gridCells.length);
+
+        columnBoundaries = new double[numberOfColumns + 1];
+        for (int column = 0; column < numberOfColumns; column++) {
+            columnBoundaries[column] = gridCells[column].getMinX();
+        }
+        columnBoundaries[numberOfColumns] = gridCells[numberOfColumns - 1].getMaxX();
+        rowBoundaries = new double[numberOfRows + 1];
+        for (int row = 0; row < numberOfRows; row++) {
+            rowBoundaries[row] = gridCells[row * numberOfColumns].getMaxY();
+        }
+        rowBoundaries[numberOfRows] = gridCells[gridCells.length - 1].getMinY();
+
+        /* the arithmetic lookup is only valid if the cells form a uniform grid */
+        for (int row = 0; row < numberOfRows; row++) {
+            for (int column = 0; column < numberOfColumns; column++) {
+                GridCell gridCell = gridCells[row * numberOfColumns + column];
+                GlobalAssert.that(gridCell.getMinX() == columnBoundaries[column]);
+                GlobalAssert.that(gridCell.getMaxX() == columnBoundaries[column + 1]);
+                GlobalAssert.that(gridCell.getMaxY() == rowBoundaries[row]);
+                GlobalAssert.that(gridCell.getMinY() == rowBoundaries[row + 1]);
+            }
+        }
+        cellWidth = (columnBoundaries[numberOfColumns] - columnBoundaries[0]) / numberOfColumns;
+        cellHeight = (rowBoundaries[0] - rowBoundaries[numberOfRows]) / numberOfRows;
+
+        if (network == null) {
+            linkCells = new int[0];
+        } else {
+            int maxIndex = network.getLinks().values().stream().mapToInt(link -> link.getId().index()).max().orElse(-1);
+            linkCells = new int[maxIndex + 1];
+            Arrays.fill(linkCells, UNKNOWN);
+            for (Link link : network.getLinks().values()) {
+                linkCells[link.getId().index()] = getCellIndex(link.getCoord());
+            }
+        }
+    }
+
+    /**
+     * @return index of the first cell containing (x, y) in the grid array, {@link #OUTSIDE} if there is none
+     */
+    public int getCellIndex(double x, double y) {
+        if (x < columnBoundaries[0] || columnBoundaries[numberOfColumns] < x
+                || y < rowBoundaries[numberOfRows] || rowBoundaries[0] < y) {
+            return OUTSIDE;
+        }
+        /* the arithmetic guess is corrected against the boundaries of the cells to handle rounding and points
+         * on the boundary of two cells, which belong to the cell with the lower index */
+        int column = Math.min(Math.max((int) ((x - columnBoundaries[0]) / cellWidth), 0), numberOfColumns - 1);
+        while (column > 0 && x <= columnBoundaries[column]) {
+            column--;
+        }
+        while (columnBoundaries[column + 1] < x) {
+            column++;
+        }
+        int row = Math.min(Math.max((int) ((rowBoundaries[0] - y) / cellHeight), 0), numberOfRows - 1);
+        while (row > 0 && rowBoundaries[row] <= y) {
+            row--;
+        }
+        while (y < rowBoundaries[row + 1]) {
+            row++;
+        }
+        return row * numberOfColumns + column;
+    }
+
+    public int getCellIndex(Coord coord) {
+        return getCellIndex(coord.getX(), coord.getY());
+    }
+
+    /**
+     * @return cell of the coordinate of the link, precomputed for the links of the network
+     */
+    public int getCellIndex(Link link) {
+        int index = link.getId().index();
+        if (index < linkCells.length && linkCells[index] != UNKNOWN) {
+            return linkCells[index];
+        }
+        return getCellIndex(link.getCoord());
+    }
+
+    /**
+     * @return index of the cell with the least distance to the coordinate, the first cell containing it if it is
+     * inside of the grid
+     */
+    public int getClosestCellIndex(double x, double y) {
+        double clampedX = Math.min(Math.max(x, columnBoundaries[0]), columnBoundaries[numberOfColumns]);
+        double clampedY = Math.min(Math.max(y, rowBoundaries[numberOfRows]), rowBoundaries[0]);
+        return getCellIndex(clampedX, clampedY);
+    }
+
+    public GridCell getGridCell(int cellIndex) {
+        return gridCells[cellIndex];
+    }
+
+    public GridCell[] getGridCells() {
+        return gridCells;
+    }
+
+    public int getNumberOfCells() {
+        return gridCells.length;
+    }
+
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+}
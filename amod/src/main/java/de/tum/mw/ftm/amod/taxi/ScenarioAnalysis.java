@@ -48,6 +48,13 @@ public class ScenarioAnalysis {
         Network network = scenario.getNetwork();
         MatsimAmodeusDatabase db = MatsimAmodeusDatabase.initialize(network, referenceFrame);
 
+        /** nothing to analyse if the simulation objects were not stored, the python export
+         * of the simulation is then written by the PythonAnalysisOutputListener */
+        if (!Analysis.hasStoredSimulationObjects(new File(outputdirectory))) {
+            System.out.println("no simulation objects stored in " + outputdirectory + ", skipping the analysis");
+            return;
+        }
+
         /** perform analysis of simulation, a demo of how to add custom analysis methods
          * is provided in the package amod.demo.analysis */
         Analysis analysis = Analysis.setup(scenarioOptions, new File(outputdirectory), db);
@@ -6,28 +6,20 @@ import org.matsim.amodeus.config.FTMConfigGroup;
 import java.io.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.*;
+import java.util.Map;
 
-public class FleetStatusCSVWriter {
-    TreeMap<Double, Map<AnalysisUtils.TaxiTripType, Long>> fleetStatusMap;
+/** writes one row per {@link de.tum.mw.ftm.amod.analysis.events.fleetstatus.FleetStatusLogEvent} as the events arrive,
+ * such that the fleet status of the whole day is never kept in memory */
+public class FleetStatusCSVWriter implements Closeable {
     private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    private final FTMConfigGroup ftmConfigGroup;
     private final LocalDateTime simStartTime;
+    private final BufferedWriter writer;
 
-    public FleetStatusCSVWriter(FleetStatusLogEventListener fleetStatusLogEventListener, FTMConfigGroup ftmConfigGroup) {
-        this.fleetStatusMap = fleetStatusLogEventListener.getFleetStatusMap();
-        this.ftmConfigGroup = ftmConfigGroup;
+    public FleetStatusCSVWriter(File path, FTMConfigGroup ftmConfigGroup) throws IOException {
         this.simStartTime = ftmConfigGroup.getSimStartDateTime();
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path)));
 
-    }
-
-
-    public void writeCSV(File path) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path)));
-
-
-        String[] columns = Arrays.stream(AnalysisUtils.TaxiTripType.class.getEnumConstants()).map(Enum::name).toArray(String[]::new);
         writer.write(String.join(",", new String[] { //
                 "time",
                 "count_occupied",
@@ -36,20 +28,22 @@ public class FleetStatusCSVWriter {
                 "count_idle",
                 "count_inactive"
         }) + "\n");
+    }
 
+    public void append(double time, Map<AnalysisUtils.TaxiTripType, Long> fleetStatus) throws IOException {
+        writer.write(String.join(",", new String[] { //
+               getDateTimeStringForOptionalTime(time),
+               String.valueOf(getCountOccupied(fleetStatus)),
+               String.valueOf(getCountApproach(fleetStatus)),
+               String.valueOf(getCountRebalancing(fleetStatus)),
+               String.valueOf(getCountIdle(fleetStatus)),
+               String.valueOf(getCountInactive(fleetStatus)),
 
-        for (Map.Entry<Double, Map<AnalysisUtils.TaxiTripType, Long>> fleetStatus : fleetStatusMap.entrySet()) {
-            writer.write(String.join(",", new String[] { //
-                   getDateTimeStringForOptionalTime(fleetStatus.getKey()),
-                   String.valueOf(getCountOccupied(fleetStatus.getValue())),
-                   String.valueOf(getCountApproach(fleetStatus.getValue())),
-                   String.valueOf(getCountRebalancing(fleetStatus.getValue())),
-                   String.valueOf(getCountIdle(fleetStatus.getValue())),
-                   String.valueOf(getCountInactive(fleetStatus.getValue())),
-
-            }) + "\n");
-        }
+        }) + "\n");
+    }
 
+    @Override
+    public void close() throws IOException {
         writer.close();
     }
 
@@ -1,21 +1,29 @@
 package de.tum.mw.ftm.amod.taxi.analysis;
 
-import de.tum.mw.ftm.amod.analysis.AnalysisUtils;
 import de.tum.mw.ftm.amod.analysis.events.fleetstatus.FleetStatusLogEvent;
 import de.tum.mw.ftm.amod.analysis.events.fleetstatus.FleetStatusLogEventHandler;
 
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
+/** streams the fleet status of every time step to a {@link FleetStatusCSVWriter} */
 public class FleetStatusLogEventListener implements FleetStatusLogEventHandler {
-    private TreeMap<Double, Map<AnalysisUtils.TaxiTripType, Long>> fleetStatusMap = new TreeMap<>();
+    private FleetStatusCSVWriter fleetStatusCSVWriter;
     private Long fleetSize;
 
+    /** @param fleetStatusCSVWriter receives the fleet status of all following events */
+    public void setWriter(FleetStatusCSVWriter fleetStatusCSVWriter) {
+        this.fleetStatusCSVWriter = fleetStatusCSVWriter;
+    }
+
     @Override
     public void handleEvent(FleetStatusLogEvent event) {
-        fleetStatusMap.put(event.getTime(), event.getFleetStatusInformation());
+        if (fleetStatusCSVWriter != null)
+            try {
+                fleetStatusCSVWriter.append(event.getTime(), event.getFleetStatusInformation());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         if(this.fleetSize == null){
             this.fleetSize = event.getFleetStatusInformation().getFleetSize();
         }
@@ -30,9 +38,4 @@ public class FleetStatusLogEventListener implements FleetStatusLogEventHandler {
         return fleetSize;
     }
 
-
-
-    public TreeMap<Double, Map<AnalysisUtils.TaxiTripType, Long>> getFleetStatusMap() {
-        return fleetStatusMap;
-    }
 }
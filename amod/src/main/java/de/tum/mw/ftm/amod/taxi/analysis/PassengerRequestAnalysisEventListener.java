@@ -16,19 +16,30 @@ import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
 import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+/** collects the information of every request, if a {@link PassengerRequestInformationCSVWriter} is set, the
+ * information of a request is written when it is dropped off or cancelled and only requests in progress are kept */
 public class PassengerRequestAnalysisEventListener implements PassengerRequestAnalysisEventHandler {
     private final static Logger logger = Logger.getLogger(PassengerRequestAnalysisEventListener.class);
     Map<Id<Person>, PassengerRequestInformation> passengerRequestInformationMap = new HashMap<>();
     private AmodeusConfigGroup amodeusConfigGroup;
+    private PassengerRequestInformationCSVWriter passengerRequestInformationCSVWriter;
+    private long numberOfWrittenRequests = 0;
 
     public PassengerRequestAnalysisEventListener(AmodeusConfigGroup amodeusConfigGroup) {
         this.amodeusConfigGroup = amodeusConfigGroup;
     }
 
+    /** @param passengerRequestInformationCSVWriter receives the requests completed from now on */
+    public void setWriter(PassengerRequestInformationCSVWriter passengerRequestInformationCSVWriter) {
+        this.passengerRequestInformationCSVWriter = passengerRequestInformationCSVWriter;
+    }
+
     @Override
     public void handleEvent(PassengerRequestAnalysisEvent event) {
         PassengerRequest passengerRequest = event.getRelatedPassengerRequest();
@@ -73,12 +84,28 @@ public class PassengerRequestAnalysisEventListener implements PassengerRequestAn
                 logger.warn("Unhandled PassengerRequestEventType");
         }
         passengerRequestInformationMap.put(passengerRequest.getPassengerId(), passengerRequestInformation);
+
+        /** the information of a request is complete once it is dropped off or cancelled */
+        if (passengerRequestInformationCSVWriter != null && (event.getType() == PassengerRequestAnalysisEvent.PassengerEventType.PASSENGER_REQUEST_DROPOFF
+                || event.getType() == PassengerRequestAnalysisEvent.PassengerEventType.PASSENGER_REQUEST_CANCELLED))
+            try {
+                passengerRequestInformationCSVWriter.append(passengerRequestInformationMap.remove(passengerRequest.getPassengerId()));
+                ++numberOfWrittenRequests;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
     }
 
+    /** @return requests not yet written */
     public Collection<PassengerRequestInformation> getPassengerRequests() {
         return passengerRequestInformationMap.values();
     }
 
+    /** @return number of all requests, written or not */
+    public long getNumberOfRequests() {
+        return numberOfWrittenRequests + passengerRequestInformationMap.size();
+    }
+
     //TODO: @michaelwittmann move this to an better place
     public static Point linkToPoint(Link link){
         GeometryFactory geometryFactory = new GeometryFactory();
@@ -1,7 +1,6 @@
 package de.tum.mw.ftm.amod.taxi.analysis;
 
 import de.tum.mw.ftm.amod.analysis.events.passengerrequest.PassengerRequestInformation;
-import org.matsim.amodeus.config.AmodeusConfigGroup;
 import org.matsim.amodeus.config.FTMConfigGroup;
 import org.matsim.core.utils.misc.OptionalTime;
 
@@ -9,26 +8,20 @@ import java.io.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 
-public class PassengerRequestInformationCSVWriter {
-    private final List<PassengerRequestInformation>  passengerRequests;
+/** writes one row per request, the rows are written as soon as the information of a request is complete, see
+ * {@link PassengerRequestAnalysisEventListener}, the remaining requests are written sorted by submission time */
+public class PassengerRequestInformationCSVWriter implements Closeable {
     private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private final LocalDateTime simStartTime;
-    public PassengerRequestInformationCSVWriter(PassengerRequestAnalysisEventListener passengerRequestAnalysisEventListener, FTMConfigGroup ftmConfigGroup) {
-       this.passengerRequests = new ArrayList<>(passengerRequestAnalysisEventListener.getPassengerRequests());
-        simStartTime = ftmConfigGroup.getSimStartDateTime();
-       passengerRequests.sort(new Comparator<PassengerRequestInformation>() {
-           @Override
-           public int compare(PassengerRequestInformation o1, PassengerRequestInformation o2) {
-             return   Double.compare(o1.getSubmissionTime().orElse(0), o2.getSubmissionTime().orElse(0));
-           }
-       });
-    }
+    private final BufferedWriter writer;
 
-    public void writeCSV(File path) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path)));
+    public PassengerRequestInformationCSVWriter(File path, FTMConfigGroup ftmConfigGroup) throws IOException {
+        simStartTime = ftmConfigGroup.getSimStartDateTime();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path)));
 
         writer.write(String.join(",", new String[] { //
                 "request_id",
@@ -40,20 +33,31 @@ public class PassengerRequestInformationCSVWriter {
                 "location_stop",
                 "denied"
         }) + "\n");
+    }
 
-        for (PassengerRequestInformation passengerRequest : passengerRequests) {
-            writer.write(String.join(",", new String[] { //
-                    String.valueOf(passengerRequest.getRequestId()),
-                    getDateTimeStringForOptionalTime(passengerRequest.getSubmissionTime()),
-                    getDateTimeStringForOptionalTime(passengerRequest.getAssignTime()),
-                    getDateTimeStringForOptionalTime(passengerRequest.getPickupTime()),
-                    getDateTimeStringForOptionalTime(passengerRequest.getStartTime()),
-                    passengerRequest.getStartLocation().toText(),
-                    passengerRequest.getStopLocation().toText(),
-                    String.valueOf(passengerRequest.isCanceled())
-            }) + "\n");
-        }
+    public void append(PassengerRequestInformation passengerRequest) throws IOException {
+        writer.write(String.join(",", new String[] { //
+                String.valueOf(passengerRequest.getRequestId()),
+                getDateTimeStringForOptionalTime(passengerRequest.getSubmissionTime()),
+                getDateTimeStringForOptionalTime(passengerRequest.getAssignTime()),
+                getDateTimeStringForOptionalTime(passengerRequest.getPickupTime()),
+                getDateTimeStringForOptionalTime(passengerRequest.getStartTime()),
+                passengerRequest.getStartLocation().toText(),
+                passengerRequest.getStopLocation().toText(),
+                String.valueOf(passengerRequest.isCanceled())
+        }) + "\n");
+    }
+
+    /** writes the requests that are not complete at the end of the simulation sorted by submission time */
+    public void appendAll(Collection<PassengerRequestInformation> passengerRequests) throws IOException {
+        List<PassengerRequestInformation> sorted = new ArrayList<>(passengerRequests);
+        sorted.sort(Comparator.comparingDouble(passengerRequest -> passengerRequest.getSubmissionTime().orElse(0)));
+        for (PassengerRequestInformation passengerRequest : sorted)
+            append(passengerRequest);
+    }
 
+    @Override
+    public void close() throws IOException {
         writer.close();
     }
 
@@ -22,12 +22,16 @@ public class PythonAnalysis {
         /** first an element to gather the necessary data is defined, it is an implementation of the
          * interface AnalysisElement */
         StorageUtils storageUtils = new StorageUtils(outputDirectory);
-        StorageSupplier storageSupplier = new StorageSupplier(storageUtils.getFirstAvailableIteration());
-        Set<Integer> vehicleIndices = storageSupplier.getSimulationObject(1).vehicles.stream().map(vc -> vc.vehicleIndex).collect(Collectors.toSet());
+        Set<Integer> vehicleIndices;
+        int size;
+        try (StorageSupplier storageSupplier = new StorageSupplier(storageUtils.getFirstAvailableIteration())) {
+            vehicleIndices = storageSupplier.getSimulationObject(1).vehicles.stream().map(vc -> vc.vehicleIndex).collect(Collectors.toSet());
+            size = storageSupplier.size();
+        }
 
         Config config = AmodeusUtil.loadMatSimConfig();
 
-        SimulationObjectRecorder simulationObjectRecorder = new SimulationObjectRecorder(vehicleIndices, amodeusDatabase, config, storageSupplier.size());
+        SimulationObjectRecorder simulationObjectRecorder = new SimulationObjectRecorder(vehicleIndices, amodeusDatabase, config, size);
 
         /** next an element to export the processed data to an image or other element is defined, it
          * is an implementation of the interface AnalysisExport */
@@ -5,7 +5,13 @@ import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
 
+import amodeus.amodeus.analysis.LiveAnalysis;
+import amodeus.amodeus.analysis.element.RequestRobotaxiInformationElement;
+import amodeus.amodeus.analysis.element.StatusDistributionElement;
+import amodeus.amodeus.analysis.report.TotalValueAppender;
 import amodeus.amodeus.util.math.GlobalAssert;
 
 import org.matsim.amodeus.config.AmodeusConfigGroup;
@@ -40,6 +46,14 @@ public class PythonAnalysisOutputListener implements IterationStartsListener, It
     private final LocalDateTime simStartDateTime;
     private final LocalDateTime simEndtDateTime;
     private final File outputDir;
+    /** written while the simulation is running */
+    private FleetStatusCSVWriter fleetStatusCSVWriter;
+    private PassengerRequestInformationCSVWriter passengerRequestInformationCSVWriter;
+    /** registers the simulation objects while the simulation is running, also if the dispatcher records
+     * nothing with <param name="storageFormat" value="NONE" /> */
+    private LiveAnalysis liveAnalysis;
+    private StatusDistributionElement statusDistributionElement;
+    private RequestRobotaxiInformationElement requestRobotaxiInformationElement;
 
     @Inject
     public PythonAnalysisOutputListener(ControlerConfigGroup controllerConfig,
@@ -70,16 +84,32 @@ public class PythonAnalysisOutputListener implements IterationStartsListener, It
         simulationRunStarted = ZonedDateTime.now();
 
         createPythonExportDir(outputDir);
+        /** the fleet status and the completed requests are streamed to disk during the simulation */
+        try {
+            closeWriters();
+            fleetStatusCSVWriter = new FleetStatusCSVWriter(generateFilePath("fleetStatus"), ftmConfigGroup);
+            passengerRequestInformationCSVWriter = new PassengerRequestInformationCSVWriter(generateFilePath("requests"), ftmConfigGroup);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        fleetStatusLogEventListener.setWriter(fleetStatusCSVWriter);
+        passengerRequestEventListener.setWriter(passengerRequestInformationCSVWriter);
         event.getServices().getEvents().addHandler(passengerRequestEventListener);
         event.getServices().getEvents().addHandler(finalRoboTaxiSchedulesEventListener);
         event.getServices().getEvents().addHandler(fleetStatusLogEventListener);
 
+        if (liveAnalysis != null)
+            liveAnalysis.close();
+        statusDistributionElement = new StatusDistributionElement();
+        requestRobotaxiInformationElement = new RequestRobotaxiInformationElement();
+        liveAnalysis = LiveAnalysis.subscribe(statusDistributionElement, requestRobotaxiInformationElement);
     }
 
     @Override
     public void notifyIterationEnds(IterationEndsEvent event) {
         simulationRunFinished = ZonedDateTime.now();
-
+        /** the simulation objects were passed on by the recording pipelines, which are closed after the mobsim */
+        liveAnalysis.close();
     }
 
     @Override
@@ -92,18 +122,20 @@ public class PythonAnalysisOutputListener implements IterationStartsListener, It
 
         FinalRoboTaxiScheduleCSVWriter finalRoboTaxiScheduleCSVWriter = new FinalRoboTaxiScheduleCSVWriter(finalRoboTaxiSchedulesEventListener);
 
-        FleetStatusCSVWriter fleetStatusCSVWriter = new FleetStatusCSVWriter(fleetStatusLogEventListener, ftmConfigGroup);
-
-        PassengerRequestInformationCSVWriter passengerRequestInformationCSVWriter = new PassengerRequestInformationCSVWriter(passengerRequestEventListener, ftmConfigGroup);
-
         // Write Outputs:
 
         try {
             finalRoboTaxiScheduleCSVWriter.wirteTripsCSV(generateFilePath("trips"));
             finalRoboTaxiScheduleCSVWriter.writeDistanceByStatus(generateFilePath("distanceGroupedByStatus"));
-            fleetStatusCSVWriter.writeCSV(generateFilePath("fleetStatus"));
-            passengerRequestInformationCSVWriter.writeCSV(generateFilePath("requests"));
+            passengerRequestInformationCSVWriter.appendAll(passengerRequestEventListener.getPassengerRequests());
+            closeWriters();
             writeSimulataionMetadataCSV(generateFilePath("simulationMetadata"));
+            if (liveAnalysis != null) {
+                liveAnalysis.close();
+                if (0 < liveAnalysis.getRegistered()) {
+                    writeLiveAnalysisCSV(generateFilePath("liveAnalysis"));
+                }
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -131,13 +163,34 @@ public class PythonAnalysisOutputListener implements IterationStartsListener, It
                 dispatcher,
                 String.valueOf(ftmConfigGroup.getDispatchingPeriodSeconds()),
                 String.valueOf(ftmConfigGroup.getRebalancingPeriodSeconds()),
-                String.valueOf(passengerRequestEventListener.getPassengerRequests().size()),
+                String.valueOf(passengerRequestEventListener.getNumberOfRequests()),
                 String.valueOf(fleetStatusLogEventListener.getFleetSize())
 
         }) + "\n");
         writer.close();
     }
 
+    /**
+     * Writes the total values of the live analysis elements, one column per identifier.
+     */
+    private void writeLiveAnalysisCSV(File path) throws IOException {
+        Map<String, String> totalValues = new TreeMap<>();
+        for (TotalValueAppender totalValueAppender : new TotalValueAppender[] { statusDistributionElement, requestRobotaxiInformationElement }) {
+            totalValueAppender.getTotalValues().forEach((identifier, value) -> totalValues.put(identifier.getIdentifier(), value));
+        }
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path)))) {
+            writer.write(String.join(",", totalValues.keySet()) + "\n");
+            writer.write(String.join(",", totalValues.values()) + "\n");
+        }
+    }
+
+    private void closeWriters() throws IOException {
+        if (fleetStatusCSVWriter != null)
+            fleetStatusCSVWriter.close();
+        if (passengerRequestInformationCSVWriter != null)
+            passengerRequestInformationCSVWriter.close();
+    }
+
     private File generateFilePath(String fileBaseName) throws IOException {
         GlobalAssert.that(outputDir.isDirectory());
 
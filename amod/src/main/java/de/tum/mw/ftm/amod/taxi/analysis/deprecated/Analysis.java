@@ -3,6 +3,7 @@ package de.tum.mw.ftm.amod.taxi.analysis.deprecated;
 /* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
 
 import java.io.File;
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
@@ -57,6 +58,14 @@ public class Analysis {
      * @param db:
      *            relation between AMoDeus and MATSim objects
      * @throws Exception */
+    /** @return true if simulation objects were recorded in outputDirectory, i.e., the analysis can be set up, false if the
+     *         dispatcher recorded nothing, e.g., with storageFormat NONE */
+    public static boolean hasStoredSimulationObjects(File outputDirectory) throws IOException {
+        try (StorageSupplier storageSupplier = new StorageSupplier(new StorageUtils(outputDirectory).getFirstAvailableIteration())) {
+            return 2 <= storageSupplier.size();
+        }
+    }
+
     public static Analysis setup(ScenarioOptions scenarioOptions, File outputDirectory, MatsimAmodeusDatabase db) throws Exception {
         return new Analysis(scenarioOptions, outputDirectory, db);
     }
@@ -130,6 +139,9 @@ public class Analysis {
         storageSupplier = new StorageSupplier(storageUtils.getFirstAvailableIteration());
         size = storageSupplier.size();
         System.out.println("Found files: " + size);
+        if (size < 2)
+            throw new IllegalStateException("no simulation objects stored in " + outputDirectory.getAbsolutePath() //
+                    + ", the dispatcher records none with storageFormat NONE");
         Set<Integer> vehicleIndices = storageSupplier.getSimulationObject(1).vehicles.stream().map(vc -> vc.vehicleIndex).collect(Collectors.toSet());
 
         analysisSummary = new AnalysisSummary(vehicleIndices, db, scenarioOptions);
@@ -223,11 +235,15 @@ public class Analysis {
         /** iterate simulation objects */
         {
             Timing timing = Timing.started();
-            for (int index = 0; index < size; ++index) {
-                SimulationObject simulationObject = storageSupplier.getSimulationObject(index);
-                analysisElements.forEach(analysisElement -> analysisElement.register(simulationObject));
-                if (simulationObject.now % 10_000 == 0)
-                    System.out.println(String.format("%6.2f now=%d", timing.seconds(), simulationObject.now));
+            try {
+                for (int index = 0; index < size; ++index) {
+                    SimulationObject simulationObject = storageSupplier.getSimulationObject(index);
+                    analysisElements.forEach(analysisElement -> analysisElement.register(simulationObject));
+                    if (simulationObject.now % 10_000 == 0)
+                        System.out.println(String.format("%6.2f now=%d", timing.seconds(), simulationObject.now));
+                }
+            } finally {
+                storageSupplier.close();
             }
             System.out.println(String.format("%6.2f register all", timing.seconds()));
         }
@@ -8,10 +8,13 @@ import amodeus.amodeus.options.ScenarioOptionsBase;
 import amodeus.amodeus.util.io.MultiFileTools;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import de.tum.mw.ftm.amod.geom.GridCell;
 import de.tum.mw.ftm.amod.taxi.analysis.PythonAnalysisOutputListener;
 import de.tum.mw.ftm.amod.taxi.preprocessing.demandprediction.UniformGridWithBorderPredictions;
 import de.tum.mw.ftm.amod.taxi.preprocessing.fleetsize.DynamicFleetSizeXMLReader;
 import de.tum.mw.ftm.amod.taxi.preprocessing.grid.GridInformationXMLReader;
+import de.tum.mw.ftm.amod.taxi.preprocessing.grid.GridTravelMatrix;
+import de.tum.mw.ftm.amod.taxi.preprocessing.grid.GridTravelMatrixStore;
 import de.tum.mw.ftm.amod.taxi.preprocessing.grid.TargetProbabilityXMLReader;
 import de.tum.mw.ftm.amod.taxi.preprocessing.ranks.TaxiRanks;
 import de.tum.mw.ftm.amod.taxi.preprocessing.ranks.TaxiRanksXMLReader;
@@ -39,6 +42,7 @@ import java.util.Map;
 public class SimulationModule extends AbstractModule {
     private final Network network;
     private final Logger logger = Logger.getLogger("SimulationModule");
+    private GridTravelMatrix gridTravelMatrix = null;
     public SimulationModule(Network network) {
         this.network = network;
     }
@@ -103,13 +107,8 @@ public class SimulationModule extends AbstractModule {
     @Provides
     @Singleton
     @Named("freeSpeedTravelTimes")
-    public double[][] provideFreespeedTravelTime(Config config) {
-        FTMConfigGroup ftmConfigGroup = (FTMConfigGroup) config.getModules().get("ftm_simulation");
-
-        GridInformationXMLReader gridInformationXMLReader = new GridInformationXMLReader();
-        gridInformationXMLReader.readFile(ftmConfigGroup.getGridInformationFile());
-
-        return gridInformationXMLReader.getFreespeedTravelTimes();
+    public double[][] provideFreespeedTravelTime(Config config, UniformGridWithBorderPredictions predictions) {
+        return loadGridTravelMatrix(config, predictions).getFreeSpeedTravelTimes();
     }
 
     @Provides
@@ -144,20 +143,35 @@ public class SimulationModule extends AbstractModule {
         catch (Exception e){
             logger.warn("Could not load link speed data from file, using FreeSpeedTravelTimes as Backup");
             logger.error(e);
-            return provideFreespeedTravelTime(config);
+            return freeSpeedTravelTimes;
         }
     }
 
     @Provides
     @Singleton
     @Named("cellDistances")
-    public double[][] provideCellDistances(Config config) {
-        FTMConfigGroup ftmConfigGroup = (FTMConfigGroup) config.getModules().get("ftm_simulation");
-
-        GridInformationXMLReader gridInformationXMLReader = new GridInformationXMLReader();
-        gridInformationXMLReader.readFile(ftmConfigGroup.getGridInformationFile());
+    public double[][] provideCellDistances(Config config, UniformGridWithBorderPredictions predictions) {
+        return loadGridTravelMatrix(config, predictions).getDistances();
+    }
 
-        return gridInformationXMLReader.getDistances();
+    /**
+     * Reads the grid information from the binary store if it matches the grid and the network, else from the XML
+     * file. The result is kept, such that the file is read once for both matrices. The grid is taken from the
+     * injected predictions, such that the rebalancing demand file is parsed only once, also for the dispatcher.
+     */
+    private synchronized GridTravelMatrix loadGridTravelMatrix(Config config, UniformGridWithBorderPredictions predictions) {
+        if (gridTravelMatrix == null) {
+            FTMConfigGroup ftmConfigGroup = (FTMConfigGroup) config.getModules().get("ftm_simulation");
+            String gridInformationFile = ftmConfigGroup.getGridInformationFile();
+            GridCell[] gridCells = predictions.getGridCells();
+            gridTravelMatrix = GridTravelMatrixStore.read(GridTravelMatrixStore.storeFileOf(gridInformationFile),
+                    GridTravelMatrixStore.gridHash(gridCells), GridTravelMatrixStore.networkChecksum(network)).orElseGet(() -> {
+                GridInformationXMLReader gridInformationXMLReader = new GridInformationXMLReader();
+                gridInformationXMLReader.readFile(gridInformationFile);
+                return new GridTravelMatrix(gridInformationXMLReader.getDistances(), gridInformationXMLReader.getFreespeedTravelTimes());
+            });
+        }
+        return gridTravelMatrix;
     }
 
     @Provides
@@ -23,6 +23,11 @@ public class FTMBipartiteMatcher implements TaxiRequestMatcher {
      * <param name="matchingAlgorithm" value="ILP" />
      * <param name="matchingWeight" value="[1.0,1.0,1.0]" />
      *
+     * -3: like the Hungarian method, but only the closest candidates of every robotaxi and request are considered
+     * <dispatcher strategy="GlobalBipartiteMatchingDispatcher">
+     * <param name="matchingAlgorithm" value="SPARSE" />
+     * <param name="matchingCandidates" value="10" />
+     *
      * The values are retrieved via @param safeConfig, other parameters necessary for instantiation are
      * the network @param network, and the distance function @param distanceFunction */
     public FTMBipartiteMatcher(GlobalBipartiteCost cost, SafeConfig safeConfig) {
@@ -32,6 +37,10 @@ public class FTMBipartiteMatcher implements TaxiRequestMatcher {
             case "HUNGARIAN":
                 globalBipartiteMatcher = new GlobalBipartiteMatching(cost);
                 break;
+            case "SPARSE":
+                globalBipartiteMatcher = new SparseBipartiteMatching(cost,
+                        safeConfig.getInteger("matchingCandidates", SparseBipartiteMatching.DEFAULT_CANDIDATES));
+                break;
             case "ILP":
                 globalBipartiteMatcher = new GlobalBipartiteMatchingILP(cost, safeConfig);
                 break;
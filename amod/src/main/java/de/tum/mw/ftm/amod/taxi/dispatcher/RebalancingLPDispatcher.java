@@ -13,15 +13,15 @@ import amodeus.amodeus.routing.DistanceFunction;
 import amodeus.amodeus.util.math.GlobalAssert;
 import amodeus.amodeus.util.matsim.SafeConfig;
 import de.tum.mw.ftm.amod.geom.GridCell;
+import de.tum.mw.ftm.amod.geom.UniformGridIndex;
+import de.tum.mw.ftm.amod.taxi.lp.RebalancingModelException;
 import de.tum.mw.ftm.amod.taxi.lp.RebalancingSolver;
 import de.tum.mw.ftm.amod.taxi.preprocessing.demandprediction.UniformGridWithBorderPredictions;
 import de.tum.mw.ftm.amod.taxi.preprocessing.ranks.TaxiRank;
 import de.tum.mw.ftm.amod.taxi.preprocessing.ranks.TaxiRanks;
 import de.tum.mw.ftm.amod.taxi.util.AmodeusUtil;
 import de.tum.mw.ftm.amod.taxi.util.MathUtils;
-import gurobi.GRBException;
 import org.apache.commons.lang.NotImplementedException;
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.log4j.Logger;
 import org.locationtech.jts.algorithm.Centroid;
 import org.locationtech.jts.geom.Coordinate;
@@ -48,6 +48,7 @@ public class RebalancingLPDispatcher extends DynamicFleetSizeDispatcher {
     private final int rebalancingPeriodSeconds;
     private final int dispatchPeriod;
     private final GridCell[] gridCells;
+    private final UniformGridIndex gridIndex;
     private final int numberOfCells;
     private final RebalancingSolver rebalancingSolver;
     private final double[][] freespeedTravelTimes;
@@ -88,6 +89,7 @@ public class RebalancingLPDispatcher extends DynamicFleetSizeDispatcher {
         int numberOfColumns = predictions.getNumberOfColumns();
         int numberOfRows = predictions.getNumberOfRows();
         this.gridCells = predictions.getGridCells();
+        this.gridIndex = new UniformGridIndex(gridCells, network);
         this.numberOfCells = gridCells.length;
         this.borderPolygons = predictions.getBorderPolygons();
         this.predictions = predictions;
@@ -103,6 +105,10 @@ public class RebalancingLPDispatcher extends DynamicFleetSizeDispatcher {
         double lambda = ftmConfigGroup.getLambda();
 
         logger.info(String.format("Using alpha=%f, and lambda=%f", alpha, lambda));
+        if (ftmConfigGroup.getRebalancingRadiusSeconds() > 0) {
+            logger.info(String.format("Rebalancing only between cells within %d s", ftmConfigGroup.getRebalancingRadiusSeconds()));
+        }
+        logger.info(String.format("Solving the rebalancing LP with %s", ftmConfigGroup.getRebalancingSolver()));
 
         GlobalAssert.that(this.rebalancingPeriodSeconds == this.predictions.getPredictionHorizon());
 
@@ -111,10 +117,13 @@ public class RebalancingLPDispatcher extends DynamicFleetSizeDispatcher {
                 rebalancingSteps,
                 cellDistances,
                 alpha,
-                lambda);
+                lambda,
+                freespeedTravelTimes,
+                ftmConfigGroup.getRebalancingRadiusSeconds(),
+                ftmConfigGroup.getRebalancingSolver());
         try {
             rebalancingSolver.initialize();
-        } catch (GRBException e) {
+        } catch (RebalancingModelException e) {
             e.printStackTrace();
             throw new RuntimeException();
         }
@@ -156,8 +165,9 @@ public class RebalancingLPDispatcher extends DynamicFleetSizeDispatcher {
 
     @Override
     protected String getInfoLine() {
-        int idleTaxis = getRoboTaxiSubset(RoboTaxiStatus.STAY).size();
-        int insideTaxis = Arrays.stream(AmodeusUtil.getNumberOfTaxisInsideCells(getRoboTaxiSubset(RoboTaxiStatus.STAY), gridCells)).sum();
+        List<RoboTaxi> stayingTaxis = getRoboTaxiSubset(RoboTaxiStatus.STAY);
+        int idleTaxis = stayingTaxis.size();
+        int insideTaxis = Arrays.stream(AmodeusUtil.getNumberOfTaxisInsideCells(stayingTaxis, gridIndex)).sum();
         return String.format("%s Taxis: OffService=%d, Idle(Outside)=%d, Idle(Inside)=%d, Rebalancing=%d", //
                 super.getInfoLine(), //
                 getRoboTaxiSubset(RoboTaxiStatus.OFFSERVICE).size(),
@@ -258,8 +268,8 @@ public class RebalancingLPDispatcher extends DynamicFleetSizeDispatcher {
                     taxisToRebalance.size()));
 
             double[] predictedDemand = predictions.getDemandPredictionsForThisTimeStepForAllCells(getTimeNow());
-            int[] numberStayingTaxisPerCell = AmodeusUtil.getNumberOfTaxisInsideCells(getStayingTaxis(), gridCells);
-            int[] numberOfArrivingTaxisPerCell = AmodeusUtil.getNumberOfFutureTaxisArrivingInGridCell(getActiveRoboTaxis(), gridCells, (long) getTimeNow(), (long) getTimeNow() + rebalancingPeriodSeconds);
+            int[] numberStayingTaxisPerCell = AmodeusUtil.getNumberOfTaxisInsideCells(getStayingTaxis(), gridIndex);
+            int[] numberOfArrivingTaxisPerCell = AmodeusUtil.getNumberOfFutureTaxisArrivingInGridCell(getActiveRoboTaxis(), gridIndex, (long) getTimeNow(), (long) getTimeNow() + rebalancingPeriodSeconds);
             int[] numberOfTaxisPerCell = MathUtils.ebeAdd(numberStayingTaxisPerCell, numberOfArrivingTaxisPerCell);
 
             for(RoboTaxi taxi : taxisToRebalance){
@@ -354,7 +364,7 @@ public class RebalancingLPDispatcher extends DynamicFleetSizeDispatcher {
         // Get Rebalancing for current timestep
         int[][] currentRebalancing = calculatedRebalancing[rebalancingTimestepResidual];
         // Get Taxis per cell
-        List<List<RoboTaxi>> taxisPerCell = AmodeusUtil.getTaxisInsideCells(activeUnassignedTaxis, gridCells);
+        List<List<RoboTaxi>> taxisPerCell = AmodeusUtil.getTaxisInsideCells(activeUnassignedTaxis, gridIndex);
         for (int startCellIndex = 0; startCellIndex < gridCells.length; startCellIndex++) {
             List<RoboTaxi> availableTaxis = taxisPerCell.get(startCellIndex);
             for (int endCellIndex = 0; endCellIndex < gridCells.length; endCellIndex++) {
@@ -382,8 +392,8 @@ public class RebalancingLPDispatcher extends DynamicFleetSizeDispatcher {
 
         // STEP 2: Border Rebalancing
         // Recalculate Taxis in cells after sending away rebalancing taxis
-        List<List<RoboTaxi>> remainingTaxisInCells = AmodeusUtil.getTaxisInsideCells(activeUnassignedTaxis, gridCells);
-        int[] gridSupply = AmodeusUtil.getNumberOfTaxisInsideCells(activeUnassignedTaxis, gridCells);
+        List<List<RoboTaxi>> remainingTaxisInCells = AmodeusUtil.getTaxisInsideCells(activeUnassignedTaxis, gridIndex);
+        int[] gridSupply = AmodeusUtil.getNumberOfTaxisInsideCells(activeUnassignedTaxis, gridIndex);
         int[] gridDemand = Arrays.stream(predictions.getDemandPredictionsForThisTimeStepForAllCells(getTimeNow())).mapToInt(value -> (int)value).toArray();
         int[] gridSupplyMinusDemand = MathUtils.ebeSub(gridSupply, gridDemand);
 
@@ -512,8 +522,7 @@ public class RebalancingLPDispatcher extends DynamicFleetSizeDispatcher {
      */
     private void updateLPSolver(List<RoboTaxi> activeTaxis) {
         // Get initial Taxi Placement
-        List<List<RoboTaxi>> taxisPerCell = AmodeusUtil.getTaxisInsideCells(activeTaxis, gridCells);
-        int[] numberOfTaxisPerCell = ArrayUtils.toPrimitive(taxisPerCell.stream().map(List::size).toArray(Integer[]::new));
+        int[] numberOfTaxisPerCell = AmodeusUtil.getNumberOfTaxisInsideCells(activeTaxis, gridIndex);
         GlobalAssert.that(numberOfTaxisPerCell.length == numberOfCells);
 
         // Get subset of predicted demand
@@ -525,7 +534,7 @@ public class RebalancingLPDispatcher extends DynamicFleetSizeDispatcher {
         List<RoboTaxi> occupiedTaxis = getRoboTaxiSubset(RoboTaxiStatus.DRIVEWITHCUSTOMER);
         int[][] occupiedTaxisBecomingUnoccupied = new int[timestepsPerRebalancing][gridCells.length];
         for (int i = 0; i < timestepsPerRebalancing; i++) {
-            occupiedTaxisBecomingUnoccupied[i] = AmodeusUtil.getNumberOfFutureTaxisArrivingInGridCell(occupiedTaxis, gridCells,
+            occupiedTaxisBecomingUnoccupied[i] = AmodeusUtil.getNumberOfFutureTaxisArrivingInGridCell(occupiedTaxis, gridIndex,
                     (rebalancingStep + i) * rebalancingPeriodSeconds, (rebalancingStep + i + 1) * rebalancingPeriodSeconds);
         }
 
@@ -534,8 +543,8 @@ public class RebalancingLPDispatcher extends DynamicFleetSizeDispatcher {
         try {
             rebalancingSolver.updateModel(demand, numberOfTaxisPerCell, occupiedTaxisBecomingUnoccupied, targetProbabilities, freespeedTravelTimes);
             calculatedRebalancing = rebalancingSolver.calculateRebalancing();
-        } catch (GRBException e) {
-            logger.error("Gurobi could not solve LP Problem");
+        } catch (RebalancingModelException e) {
+            logger.error("Solver could not solve LP Problem");
             e.printStackTrace();
             for (int[][] outerInts : calculatedRebalancing) {
                 for (int[] ints : outerInts) {
@@ -544,9 +553,9 @@ public class RebalancingLPDispatcher extends DynamicFleetSizeDispatcher {
             }
             try {
                 rebalancingSolver.initialize();
-            } catch (GRBException grbException) {
-                grbException.printStackTrace();
-                throw new RuntimeException("Could not reinitialize Gurobi Model, which is a fatal error and should never happen.");
+            } catch (RebalancingModelException modelException) {
+                modelException.printStackTrace();
+                throw new RuntimeException("Could not reinitialize LP Model, which is a fatal error and should never happen.");
             }
         }
     }
@@ -0,0 +1,469 @@
+package de.tum.mw.ftm.amod.taxi.lp;
+
+import org.apache.log4j.Logger;
+import org.gnu.glpk.GLPK;
+import org.gnu.glpk.GLPKConstants;
+import org.gnu.glpk.SWIGTYPE_p_double;
+import org.gnu.glpk.SWIGTYPE_p_int;
+import org.gnu.glpk.glp_iocp;
+import org.gnu.glpk.glp_prob;
+import org.gnu.glpk.glp_smcp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * GLPK model of the rebalancing LP, which does not require a license. The general max and min constraints of
+ * {@link RebalancingGRBModel} are linearized: with x = supply - demand and z = max(x, 0), the remaining terms are
+ * min(x, 0) = x - z, max(-x, 0) = z - x and min(supply, demand) = supply - z. The maximum z is modelled by a binary
+ * variable b and a big M, which bounds the number of taxis and the demand in the model:
+ * x <= z, z <= x + M * (1 - b), z <= M * b.
+ * The upper bound of 1000 of min(supply, demand) in the Gurobi model is not modelled.
+ * <p>
+ * Like the Gurobi model, the model is built once and updated in place. The columns are kept, such that the simplex
+ * basis of the previous period is the starting point of the next optimization.
+ */
+public class RebalancingGLPKModel implements RebalancingModel {
+    private final static Logger logger = Logger.getLogger(RebalancingGLPKModel.class);
+    private final static int TIME_LIMIT_MILLIS = 20 * 60 * 1000;
+    private final static double MIP_GAP = 1e-2;
+
+    private final glp_prob lp;
+
+    // columns [time][cell_origin][cell_destination], 0 if rebalancing between the cells is not part of the model
+    private int[][][] rebalancingCols;
+
+    // columns [time][cell]
+    private int[][] freeTaxisCols;
+    private int[][] supplyCols;
+    private int[][] demandCols;
+    private int[][] maxSupplyMinusDemandAndZeroCols;
+    private int[][] binaryCols;
+
+    // rows [time][cell]
+    private int[][] demandRows;
+    private int[][] upperMaxRows;
+    private int[][] binaryMaxRows;
+    // rows [time - 1][cell] of the free taxis of time 1, 2, ..., right hand side is the number of occupied taxis
+    // becoming unoccupied
+    private int[][] flowRows;
+    private double[][] flowTravelTimes;
+    private double[][] flowProbabilityMatrix;
+    private int flowRebalancingPeriodSeconds;
+    private double bigM = 0;
+
+    private boolean solved = false;
+    private double solveSeconds = 0;
+
+    public RebalancingGLPKModel() {
+        this.lp = GLPK.glp_create_prob();
+        GLPK.glp_set_prob_name(lp, "Rebalancing");
+    }
+
+    @Override
+    public void createModelVariables(int numberOfCells, int rebalancingSteps, boolean[][] allowedRebalancing) {
+        int numberOfRebalancingCols = 0;
+        for (int startCell = 0; startCell < numberOfCells; startCell++) {
+            for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                if (Objects.isNull(allowedRebalancing) || allowedRebalancing[startCell][endCell]) {
+                    numberOfRebalancingCols++;
+                }
+            }
+        }
+        int firstCol = GLPK.glp_add_cols(lp, rebalancingSteps * (5 * numberOfCells + numberOfRebalancingCols));
+
+        rebalancingCols = new int[rebalancingSteps][numberOfCells][numberOfCells];
+        freeTaxisCols = new int[rebalancingSteps][numberOfCells];
+        supplyCols = new int[rebalancingSteps][numberOfCells];
+        demandCols = new int[rebalancingSteps][numberOfCells];
+        maxSupplyMinusDemandAndZeroCols = new int[rebalancingSteps][numberOfCells];
+        binaryCols = new int[rebalancingSteps][numberOfCells];
+
+        int col = firstCol;
+        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+            for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                freeTaxisCols[timestep][startCell] = setColumn(col++, GLPKConstants.GLP_FR,
+                        String.format("free_%d_%d", timestep, startCell));
+                supplyCols[timestep][startCell] = setColumn(col++, GLPKConstants.GLP_FR,
+                        String.format("supply_%d_%d", timestep, startCell));
+                demandCols[timestep][startCell] = setColumn(col++, GLPKConstants.GLP_FR,
+                        String.format("demand_%d_%d", timestep, startCell));
+                maxSupplyMinusDemandAndZeroCols[timestep][startCell] = setColumn(col++, GLPKConstants.GLP_LO,
+                        String.format("max_supply-demand_and_0_%d_%d", timestep, startCell));
+                binaryCols[timestep][startCell] = col;
+                GLPK.glp_set_col_name(lp, col, String.format("supply_exceeds_demand_%d_%d", timestep, startCell));
+                GLPK.glp_set_col_kind(lp, col++, GLPKConstants.GLP_BV);
+
+                for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                    if (Objects.nonNull(allowedRebalancing) && !allowedRebalancing[startCell][endCell]) {
+                        continue;
+                    }
+                    rebalancingCols[timestep][startCell][endCell] = setColumn(col++, GLPKConstants.GLP_LO,
+                            String.format("rebalancing_%d_%d_%d", timestep, startCell, endCell));
+                }
+            }
+        }
+    }
+
+    /**
+     * Objective of {@link RebalancingGRBModel#addObjectiveFunction}, min(supply - demand, 0) is expressed as
+     * supply - demand - max(supply - demand, 0).
+     */
+    @Override
+    public void addObjectiveFunction(int numberOfCells, int rebalancingSteps, double lambda, double alpha,
+                                     double[][] distanceMatrix) {
+        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+            double gamma = 1 - timestep * 0.9;
+            for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                GLPK.glp_set_obj_coef(lp, supplyCols[timestep][startCell], gamma * lambda);
+                GLPK.glp_set_obj_coef(lp, demandCols[timestep][startCell], -gamma * lambda);
+                GLPK.glp_set_obj_coef(lp, maxSupplyMinusDemandAndZeroCols[timestep][startCell], -gamma * lambda);
+                for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                    if (startCell != endCell && rebalancingCols[timestep][startCell][endCell] > 0) {
+                        GLPK.glp_set_obj_coef(lp, rebalancingCols[timestep][startCell][endCell],
+                                -gamma * alpha * distanceMatrix[startCell][endCell]);
+                    }
+                }
+            }
+        }
+        GLPK.glp_set_obj_dir(lp, GLPKConstants.GLP_MAX);
+    }
+
+    /**
+     * Adds all rows of the model. The rows of the demand and the free taxis get their right hand side, the rows of the
+     * free taxis and the big M rows get their coefficients in {@link #updateModel}.
+     */
+    @Override
+    public void addConstraints(int numberOfCells, int rebalancingSteps) {
+        // There cannot be more rebalancing than free taxis are available in a cell.
+        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+            for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                Row row = new Row();
+                row.addRebalancingTerms(1.0, rebalancingCols[timestep][startCell]);
+                row.add(-1.0, freeTaxisCols[timestep][startCell]);
+                addRow(row, GLPKConstants.GLP_UP, 0, String.format("2_%d_%d", timestep, startCell));
+            }
+        }
+
+        // Supply = free taxis - rebalanced taxis
+        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+            for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                Row row = new Row();
+                row.add(1.0, supplyCols[timestep][startCell]);
+                row.add(-1.0, freeTaxisCols[timestep][startCell]);
+                row.addRebalancingTerms(1.0, rebalancingCols[timestep][startCell]);
+                addRow(row, GLPKConstants.GLP_FX, 0, String.format("4_%d_%d", timestep, startCell));
+            }
+        }
+
+        // max(supply - demand, 0) >= supply - demand, the upper bounds are added with the big M
+        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+            for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                Row row = new Row();
+                row.add(1.0, maxSupplyMinusDemandAndZeroCols[timestep][startCell]);
+                row.add(-1.0, supplyCols[timestep][startCell]);
+                row.add(1.0, demandCols[timestep][startCell]);
+                addRow(row, GLPKConstants.GLP_LO, 0,
+                        String.format("max_supply-demand_lower_%d_%d", timestep, startCell));
+            }
+        }
+
+        // Demand is predicted demand + unfulfilled demand from last timestep
+        demandRows = new int[rebalancingSteps][numberOfCells];
+        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+            for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+                Row row = new Row();
+                row.add(1.0, demandCols[timestep][cellIndex]);
+                if (timestep > 0) {
+                    // max(demand - supply, 0) = max(supply - demand, 0) - supply + demand
+                    row.add(-1.0, maxSupplyMinusDemandAndZeroCols[timestep - 1][cellIndex]);
+                    row.add(1.0, supplyCols[timestep - 1][cellIndex]);
+                    row.add(-1.0, demandCols[timestep - 1][cellIndex]);
+                }
+                demandRows[timestep][cellIndex] = addRow(row, GLPKConstants.GLP_FX, 0,
+                        String.format("demand_%d_%d", timestep, cellIndex));
+            }
+        }
+
+        upperMaxRows = addEmptyRows(rebalancingSteps, numberOfCells, "max_supply-demand_upper");
+        binaryMaxRows = addEmptyRows(rebalancingSteps, numberOfCells, "max_supply-demand_binary");
+        flowRows = addEmptyRows(rebalancingSteps - 1, numberOfCells, "6");
+    }
+
+    @Override
+    public void updateModel(int numberOfCells, int rebalancingSteps, ArrayList<double[]> predictedDemand,
+                            int[] initialTaxiPlacement, int[][] occupiedTaxisBecomingUnoccupied,
+                            double[][] probabilityMatrix, int rebalancingPeriodSeconds, double[][] travelTimes) {
+        if (rebalancingPeriodSeconds != flowRebalancingPeriodSeconds
+                || !Arrays.deepEquals(travelTimes, flowTravelTimes)
+                || !Arrays.deepEquals(probabilityMatrix, flowProbabilityMatrix)) {
+            updateFlowConstraints(numberOfCells, rebalancingSteps, probabilityMatrix, rebalancingPeriodSeconds,
+                    travelTimes);
+        }
+
+        // M exceeds every supply and demand of the model
+        double requiredBigM = 1 + Arrays.stream(initialTaxiPlacement).sum()
+                + Arrays.stream(occupiedTaxisBecomingUnoccupied).flatMapToInt(Arrays::stream).sum();
+        for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+            for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+                requiredBigM += Math.abs(predictedDemand.get(cellIndex)[timestep]);
+            }
+        }
+        if (requiredBigM > bigM) {
+            updateBigM(numberOfCells, rebalancingSteps, 2 * requiredBigM);
+        }
+
+        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+            for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+                double demand = predictedDemand.get(cellIndex)[timestep];
+                GLPK.glp_set_row_bnds(lp, demandRows[timestep][cellIndex], GLPKConstants.GLP_FX, demand, demand);
+            }
+        }
+
+        for (int timestep = 0; timestep < rebalancingSteps - 1; timestep++) {
+            for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+                double occupied = occupiedTaxisBecomingUnoccupied[timestep][cellIndex];
+                GLPK.glp_set_row_bnds(lp, flowRows[timestep][cellIndex], GLPKConstants.GLP_FX, occupied, occupied);
+            }
+        }
+
+        // Free taxis are equal to initial taxi placement for first timestep
+        for (int startCell = 0; startCell < numberOfCells; startCell++) {
+            GLPK.glp_set_col_bnds(lp, freeTaxisCols[0][startCell], GLPKConstants.GLP_FX,
+                    initialTaxiPlacement[startCell], initialTaxiPlacement[startCell]);
+        }
+    }
+
+    /**
+     * Same restrictions as {@link RebalancingGRBModel}, the taxis becoming unoccupied are the right hand side of the
+     * rows of the free taxis.
+     */
+    private void updateFlowConstraints(int numberOfCells, int rebalancingSteps, double[][] probabilityMatrix,
+                                       int rebalancingPeriodSeconds, double[][] travelTimes) {
+        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+            for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                    int rebalancingCol = rebalancingCols[timestep][startCell][endCell];
+                    if (rebalancingCol > 0) {
+                        boolean fixedToZero = startCell == endCell
+                                || travelTimes[startCell][endCell] > rebalancingPeriodSeconds
+                                || timestep == rebalancingSteps - 1;
+                        GLPK.glp_set_col_bnds(lp, rebalancingCol,
+                                fixedToZero ? GLPKConstants.GLP_FX : GLPKConstants.GLP_LO, 0, 0);
+                    }
+                }
+            }
+        }
+
+        for (int timestep = 1; timestep < rebalancingSteps; timestep++) {
+            for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                Row row = new Row();
+                row.add(1.0, freeTaxisCols[timestep][startCell]);
+                row.add(-1.0, maxSupplyMinusDemandAndZeroCols[timestep - 1][startCell]);
+
+                for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                    row.add(-1.0, rebalancingCols[timestep - 1][endCell][startCell]);
+
+                    if (travelTimes[endCell][startCell] < timestep * ((double) rebalancingPeriodSeconds / rebalancingSteps)
+                            && travelTimes[endCell][startCell] > (timestep - 1) * ((double) rebalancingPeriodSeconds / rebalancingSteps)) {
+                        // min(supply, demand) = supply - max(supply - demand, 0)
+                        double probability = probabilityMatrix[endCell][startCell];
+                        row.add(-probability, supplyCols[timestep - 1][endCell]);
+                        row.add(probability, maxSupplyMinusDemandAndZeroCols[timestep - 1][endCell]);
+                    }
+                }
+                setRow(flowRows[timestep - 1][startCell], row);
+            }
+        }
+
+        flowTravelTimes = copy(travelTimes);
+        flowProbabilityMatrix = copy(probabilityMatrix);
+        flowRebalancingPeriodSeconds = rebalancingPeriodSeconds;
+        logger.info("Rebuilt travel time dependent constraints of the rebalancing model.");
+    }
+
+    /** z <= x + M * (1 - b) and z <= M * b for z = max(x, 0) */
+    private void updateBigM(int numberOfCells, int rebalancingSteps, double bigM) {
+        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+            for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+                Row upperRow = new Row();
+                upperRow.add(1.0, maxSupplyMinusDemandAndZeroCols[timestep][cellIndex]);
+                upperRow.add(-1.0, supplyCols[timestep][cellIndex]);
+                upperRow.add(1.0, demandCols[timestep][cellIndex]);
+                upperRow.add(bigM, binaryCols[timestep][cellIndex]);
+                setRow(upperMaxRows[timestep][cellIndex], upperRow);
+                GLPK.glp_set_row_bnds(lp, upperMaxRows[timestep][cellIndex], GLPKConstants.GLP_UP, 0, bigM);
+
+                Row binaryRow = new Row();
+                binaryRow.add(1.0, maxSupplyMinusDemandAndZeroCols[timestep][cellIndex]);
+                binaryRow.add(-bigM, binaryCols[timestep][cellIndex]);
+                setRow(binaryMaxRows[timestep][cellIndex], binaryRow);
+                GLPK.glp_set_row_bnds(lp, binaryMaxRows[timestep][cellIndex], GLPKConstants.GLP_UP, 0, 0);
+            }
+        }
+        this.bigM = bigM;
+    }
+
+    /**
+     * Solves the LP relaxation with the simplex method starting from the basis of the last optimization and the MIP
+     * by branch and bound. GLPK does not relax infeasible models, the rebalancing is empty in this case.
+     */
+    @Override
+    public boolean optimizeModel() {
+        logger.info("Optimizing glpk model.");
+        long start = System.nanoTime();
+        solved = false;
+
+        glp_smcp simplexParm = new glp_smcp();
+        GLPK.glp_init_smcp(simplexParm);
+        simplexParm.setMsg_lev(GLPKConstants.GLP_MSG_ERR);
+        int ret = GLPK.glp_simplex(lp, simplexParm);
+        if (ret != 0) {
+            // the previous basis is invalid, e.g. singular after the update
+            GLPK.glp_std_basis(lp);
+            ret = GLPK.glp_simplex(lp, simplexParm);
+        }
+        if (ret != 0 || GLPK.glp_get_status(lp) != GLPKConstants.GLP_OPT) {
+            logger.error(String.format("Failed to solve the relaxation of the glpk model, return code %d, status %d.",
+                    ret, GLPK.glp_get_status(lp)));
+            solveSeconds = (System.nanoTime() - start) * 1e-9;
+            return false;
+        }
+
+        glp_iocp mipParm = new glp_iocp();
+        GLPK.glp_init_iocp(mipParm);
+        mipParm.setMsg_lev(GLPKConstants.GLP_MSG_ERR);
+        mipParm.setMip_gap(MIP_GAP);
+        mipParm.setTm_lim(TIME_LIMIT_MILLIS);
+        ret = GLPK.glp_intopt(lp, mipParm);
+        int status = GLPK.glp_mip_status(lp);
+        solveSeconds = (System.nanoTime() - start) * 1e-9;
+        if (status != GLPKConstants.GLP_OPT && status != GLPKConstants.GLP_FEAS) {
+            logger.error(String.format("Failed to solve the glpk model, return code %d, status %d.", ret, status));
+            return false;
+        }
+        solved = true;
+        return true;
+    }
+
+    @Override
+    public int[][][] getRebalancingAmount(int numberOfCells, int rebalancingSteps) {
+        int[][][] rebalancingAmount = new int[rebalancingSteps][numberOfCells][numberOfCells];
+        if (!solved) {
+            return rebalancingAmount;
+        }
+        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+            for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                    if (rebalancingCols[timestep][startCell][endCell] > 0) {
+                        rebalancingAmount[timestep][startCell][endCell] = (int) Math.round(
+                                GLPK.glp_mip_col_val(lp, rebalancingCols[timestep][startCell][endCell]));
+                    }
+                }
+            }
+        }
+        return rebalancingAmount;
+    }
+
+    @Override
+    public double getObjectiveValue() {
+        return solved ? GLPK.glp_mip_obj_val(lp) : Double.NaN;
+    }
+
+    @Override
+    public double getSolveSeconds() {
+        return solveSeconds;
+    }
+
+    @Override
+    public int getNumberOfVariables() {
+        return GLPK.glp_get_num_cols(lp);
+    }
+
+    @Override
+    public int getNumberOfConstraints() {
+        return GLPK.glp_get_num_rows(lp);
+    }
+
+    @Override
+    public int getNumberOfNonZeros() {
+        return GLPK.glp_get_num_nz(lp);
+    }
+
+    @Override
+    public void dispose() {
+        GLPK.glp_delete_prob(lp);
+    }
+
+    private int setColumn(int col, int boundType, String name) {
+        GLPK.glp_set_col_name(lp, col, name);
+        GLPK.glp_set_col_kind(lp, col, GLPKConstants.GLP_CV);
+        GLPK.glp_set_col_bnds(lp, col, boundType, 0, 0);
+        return col;
+    }
+
+    private int addRow(Row row, int boundType, double bound, String name) {
+        int index = GLPK.glp_add_rows(lp, 1);
+        GLPK.glp_set_row_name(lp, index, name);
+        GLPK.glp_set_row_bnds(lp, index, boundType, bound, bound);
+        setRow(index, row);
+        return index;
+    }
+
+    /** @return indices [time][cell] of rows without coefficients, which are free until they are set */
+    private int[][] addEmptyRows(int rebalancingSteps, int numberOfCells, String name) {
+        int[][] rows = new int[rebalancingSteps][numberOfCells];
+        if (rebalancingSteps * numberOfCells == 0) {
+            return rows;
+        }
+        int index = GLPK.glp_add_rows(lp, rebalancingSteps * numberOfCells);
+        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+            for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+                GLPK.glp_set_row_name(lp, index, String.format("%s_%d_%d", name, timestep, cellIndex));
+                rows[timestep][cellIndex] = index++;
+            }
+        }
+        return rows;
+    }
+
+    /** replaces the coefficients of the row */
+    private void setRow(int index, Row row) {
+        int length = row.terms.size();
+        SWIGTYPE_p_int ind = GLPK.new_intArray(length + 1);
+        SWIGTYPE_p_double val = GLPK.new_doubleArray(length + 1);
+        int i = 1;
+        for (Map.Entry<Integer, Double> term : row.terms.entrySet()) {
+            GLPK.intArray_setitem(ind, i, term.getKey());
+            GLPK.doubleArray_setitem(val, i, term.getValue());
+            i++;
+        }
+        GLPK.glp_set_mat_row(lp, index, length, ind, val);
+        GLPK.delete_intArray(ind);
+        GLPK.delete_doubleArray(val);
+    }
+
+    private static double[][] copy(double[][] matrix) {
+        return Arrays.stream(matrix).map(double[]::clone).toArray(double[][]::new);
+    }
+
+    /** coefficients of a row by column, GLPK does not accept duplicate columns in a row */
+    private static class Row {
+        private final Map<Integer, Double> terms = new LinkedHashMap<>();
+
+        /** adds the term if the column is part of the model, i.e., col is positive */
+        void add(double coefficient, int col) {
+            if (col > 0 && coefficient != 0) {
+                terms.merge(col, coefficient, Double::sum);
+            }
+        }
+
+        void addRebalancingTerms(double coefficient, int[] rebalancingCols) {
+            for (int col : rebalancingCols) {
+                add(coefficient, col);
+            }
+        }
+    }
+}
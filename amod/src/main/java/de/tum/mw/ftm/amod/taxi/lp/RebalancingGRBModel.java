@@ -6,14 +6,23 @@ import org.apache.log4j.Logger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-
-public class RebalancingGRBModel {
+import java.util.Objects;
+
+/**
+ * Gurobi model of the rebalancing LP. The model is built once and updated in place for every rebalancing period:
+ * the inputs change the right hand sides of constraints and the bounds of variables, only the constraints which
+ * depend on the travel times and target probabilities are rebuilt if these change.
+ * <p>
+ * The optimization is not started from the solution of the previous period: the model is solved every
+ * rebalancingSteps - 1 periods, see RebalancingLPDispatcher, such that consecutive horizons only share the last
+ * timestep of the previous one, in which no rebalancing is allowed and whose free taxis are fixed by the new input.
+ */
+public class RebalancingGRBModel implements RebalancingModel {
     private final static Logger logger = Logger.getLogger(RebalancingGRBModel.class);
 
     private final GRBModel grbModel;
-    private final List<GRBConstr> constrainedToBeRemovedOnUpdate;
 
-    // GRBVar[time][cell_origin][cell_destination]
+    // GRBVar[time][cell_origin][cell_destination], null if rebalancing between the cells is not part of the model
     private GRBVar[][][] rebalancingVars;
 
     // GRBVar[time][cell]
@@ -28,9 +37,20 @@ public class RebalancingGRBModel {
     private GRBVar[][] occupiedTaxisBecomingUnoccupied;
     private GRBVar[][] minSupplyDemandVars;
 
-    public RebalancingGRBModel() throws GRBException {
-        this.grbModel = new GRBModel(GurobiEnvSingleton.getInstance().getGrbEnv());
-        this.constrainedToBeRemovedOnUpdate = new ArrayList<>();
+    // GRBConstr[time][cell], right hand side is the predicted demand
+    private GRBConstr[][] demandConstrs;
+    // constraints which depend on the travel times and target probabilities
+    private final List<GRBConstr> flowConstrs = new ArrayList<>();
+    private double[][] flowTravelTimes;
+    private double[][] flowProbabilityMatrix;
+    private int flowRebalancingPeriodSeconds;
+
+    public RebalancingGRBModel() throws RebalancingModelException {
+        try {
+            this.grbModel = new GRBModel(GurobiEnvSingleton.getInstance().getGrbEnv());
+        } catch (GRBException e) {
+            throw new RebalancingModelException("Gurobi error " + e.getErrorCode(), e);
+        }
     }
 
     /**
@@ -38,67 +58,87 @@ public class RebalancingGRBModel {
      * @param numberOfCells: Absolute number of grid cells.
      * @param rebalancingSteps: Number of rebalancing steps which the model should calculate/output.
      */
-    public void createModelVariables(int numberOfCells, int rebalancingSteps) throws GRBException {
-        rebalancingVars = new GRBVar[rebalancingSteps][numberOfCells][numberOfCells];
-        supplyVars = new GRBVar[rebalancingSteps][numberOfCells];
-        demandVars = new GRBVar[rebalancingSteps][numberOfCells];
-        supplyMinusDemandVars = new GRBVar[rebalancingSteps][numberOfCells];
-        demandMinusSupplyVars = new GRBVar[rebalancingSteps][numberOfCells];
-        minSupplyMinusDemandAndZero = new GRBVar[rebalancingSteps][numberOfCells];
-        maxSupplyMinusDemandAndZero = new GRBVar[rebalancingSteps][numberOfCells];
-        maxDemandMinusSupplyAndZero = new GRBVar[rebalancingSteps][numberOfCells];
-        freeTaxis = new GRBVar[rebalancingSteps][numberOfCells];
-        occupiedTaxisBecomingUnoccupied = new GRBVar[rebalancingSteps - 1][numberOfCells];
-        minSupplyDemandVars = new GRBVar[rebalancingSteps][numberOfCells];
+    public void createModelVariables(int numberOfCells, int rebalancingSteps) throws RebalancingModelException {
+        createModelVariables(numberOfCells, rebalancingSteps, null);
+    }
 
+    /**
+     * Initializes all model variables which are needed by Gurobi.
+     * @param numberOfCells: Absolute number of grid cells.
+     * @param rebalancingSteps: Number of rebalancing steps which the model should calculate/output.
+     * @param allowedRebalancing: Index: [startCell][endCell], rebalancing variables are only created for the pairs
+     *                            of cells which are true, or for all pairs if null.
+     */
+    @Override
+    public void createModelVariables(int numberOfCells, int rebalancingSteps, boolean[][] allowedRebalancing)
+            throws RebalancingModelException {
+        try {
+            rebalancingVars = new GRBVar[rebalancingSteps][numberOfCells][numberOfCells];
+            supplyVars = new GRBVar[rebalancingSteps][numberOfCells];
+            demandVars = new GRBVar[rebalancingSteps][numberOfCells];
+            supplyMinusDemandVars = new GRBVar[rebalancingSteps][numberOfCells];
+            demandMinusSupplyVars = new GRBVar[rebalancingSteps][numberOfCells];
+            minSupplyMinusDemandAndZero = new GRBVar[rebalancingSteps][numberOfCells];
+            maxSupplyMinusDemandAndZero = new GRBVar[rebalancingSteps][numberOfCells];
+            maxDemandMinusSupplyAndZero = new GRBVar[rebalancingSteps][numberOfCells];
+            freeTaxis = new GRBVar[rebalancingSteps][numberOfCells];
+            occupiedTaxisBecomingUnoccupied = new GRBVar[rebalancingSteps - 1][numberOfCells];
+            minSupplyDemandVars = new GRBVar[rebalancingSteps][numberOfCells];
+
+
+            for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+                for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                    // Variable for the supply in different cells
+                    supplyVars[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
+                            String.format("supply_%d_%d", timestep, startCell));
+                    // Variable for the demand in different cells
+                    demandVars[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
+                            String.format("demand_%d_%d", timestep, startCell));
+                    // helper variable for calculating supply - demand
+                    supplyMinusDemandVars[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
+                            String.format("supply-demand_%d_%d", timestep, startCell));
+                    // helper variable for calculating demand - supply
+                    demandMinusSupplyVars[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
+                            String.format("demand-supply_%d_%d", timestep, startCell));
+                    // helper variable for calculating min(supply - demand, 0)
+                    minSupplyMinusDemandAndZero[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
+                            String.format("min_supply-demand_and_0_%d_%d", timestep, startCell));
+                    // helper variable for calculating max(supply - demand, 0)
+                    maxSupplyMinusDemandAndZero[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
+                            String.format("max_supply-demand_and_0_%d_%d", timestep, startCell));
+                    // helper variable for calculating max(demand - supply, 0)
+                    maxDemandMinusSupplyAndZero[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
+                            String.format("max_demand-supply_and_0_%d_%d", timestep, startCell));
+                    // variable for free taxis in different cells
+                    freeTaxis[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
+                            String.format("free_%d_%d", timestep, startCell));
+                    // helper variable for calculating min(supply, demand)
+                    minSupplyDemandVars[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
+                            String.format("min_supply_demand_%d_%d", timestep, startCell));
+
+                    // Add variable for describing how many occupied taxis are becoming unoccupied
+                    if (timestep < rebalancingSteps - 1) {
+                        occupiedTaxisBecomingUnoccupied[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY,
+                                Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
+                                String.format("occupiedBecomingUnoccupied_%d_%d", timestep, startCell));
+                    }
 
-        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
-            for (int startCell = 0; startCell < numberOfCells; startCell++) {
-                // Variable for the supply in different cells
-                supplyVars[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
-                        String.format("supply_%d_%d", timestep, startCell));
-                // Variable for the demand in different cells
-                demandVars[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
-                        String.format("demand_%d_%d", timestep, startCell));
-                // helper variable for calculating supply - demand
-                supplyMinusDemandVars[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
-                        String.format("supply-demand_%d_%d", timestep, startCell));
-                // helper variable for calculating demand - supply
-                demandMinusSupplyVars[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
-                        String.format("demand-supply_%d_%d", timestep, startCell));
-                // helper variable for calculating min(supply - demand, 0)
-                minSupplyMinusDemandAndZero[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
-                        String.format("min_supply-demand_and_0_%d_%d", timestep, startCell));
-                // helper variable for calculating max(supply - demand, 0)
-                maxSupplyMinusDemandAndZero[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
-                        String.format("max_supply-demand_and_0_%d_%d", timestep, startCell));
-                // helper variable for calculating max(demand - supply, 0)
-                maxDemandMinusSupplyAndZero[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
-                        String.format("max_demand-supply_and_0_%d_%d", timestep, startCell));
-                // variable for free taxis in different cells
-                freeTaxis[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
-                        String.format("free_%d_%d", timestep, startCell));
-                // helper variable for calculating min(supply, demand)
-                minSupplyDemandVars[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
-                        String.format("min_supply_demand_%d_%d", timestep, startCell));
-
-                // Add variable for describing how many occupied taxis are becoming unoccupied
-                if (timestep < rebalancingSteps - 1) {
-                    occupiedTaxisBecomingUnoccupied[timestep][startCell] = grbModel.addVar(Double.NEGATIVE_INFINITY,
-                            Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
-                            String.format("occupiedBecomingUnoccupied_%d_%d", timestep, startCell));
+                    // variable for the rebalancing itself
+                    for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                        if (Objects.nonNull(allowedRebalancing) && !allowedRebalancing[startCell][endCell]) {
+                            continue;
+                        }
+                        rebalancingVars[timestep][startCell][endCell] =
+                                grbModel.addVar(0, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
+                                        String.format("rebalancing_%d_%d_%d", timestep, startCell, endCell));
+                    }
                 }
 
-                // variable for the rebalancing itself
-                for (int endCell = 0; endCell < numberOfCells; endCell++) {
-                    rebalancingVars[timestep][startCell][endCell] =
-                            grbModel.addVar(0, Double.POSITIVE_INFINITY, 0.0, GRB.CONTINUOUS,
-                                    String.format("rebalancing_%d_%d_%d", timestep, startCell, endCell));
-                }
             }
 
+        } catch (GRBException e) {
+            throw new RebalancingModelException("Gurobi error " + e.getErrorCode(), e);
         }
-
     }
 
     /**
@@ -109,24 +149,29 @@ public class RebalancingGRBModel {
      * @param alpha: distance cost factor
      * @param distanceMatrix: distances between the cells
      */
+    @Override
     public void addObjectiveFunction(int numberOfCells, int rebalancingSteps, double lambda,
-                                     double alpha, double[][] distanceMatrix) throws GRBException {
-        GRBLinExpr expr = new GRBLinExpr();
-
-        // Target function from Wittmann 2020 eq 1;
-        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
-            double gamma = 1 - timestep * 0.9;
-            for (int startCell = 0; startCell < numberOfCells; startCell++) {
-                expr.addTerm(gamma * lambda, minSupplyMinusDemandAndZero[timestep][startCell]);
-                for (int endCell = 0; endCell < numberOfCells; endCell++) {
-                    if (startCell != endCell) {
-                        expr.addTerm(-gamma * alpha * distanceMatrix[startCell][endCell],
-                                rebalancingVars[timestep][startCell][endCell]);
+                                     double alpha, double[][] distanceMatrix) throws RebalancingModelException {
+        try {
+            GRBLinExpr expr = new GRBLinExpr();
+
+            // Target function from Wittmann 2020 eq 1;
+            for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+                double gamma = 1 - timestep * 0.9;
+                for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                    expr.addTerm(gamma * lambda, minSupplyMinusDemandAndZero[timestep][startCell]);
+                    for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                        if (startCell != endCell && Objects.nonNull(rebalancingVars[timestep][startCell][endCell])) {
+                            expr.addTerm(-gamma * alpha * distanceMatrix[startCell][endCell],
+                                    rebalancingVars[timestep][startCell][endCell]);
+                        }
                     }
                 }
             }
+            grbModel.setObjective(expr, GRB.MAXIMIZE);
+        } catch (GRBException e) {
+            throw new RebalancingModelException("Gurobi error " + e.getErrorCode(), e);
         }
-        grbModel.setObjective(expr, GRB.MAXIMIZE);
     }
 
     /**
@@ -134,97 +179,98 @@ public class RebalancingGRBModel {
      * @param numberOfCells: absolute number of cells
      * @param rebalancingSteps: number of rebalancing steps of the model
      */
-    public void addConstraints(int numberOfCells, int rebalancingSteps) throws GRBException {
-        GRBLinExpr leftHandExpr;
-        GRBLinExpr rightHandExpr;
-
-        // There cannot be more rebalancing than free taxis are available in a cell.
-        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
-            for (int startCell = 0; startCell < numberOfCells; startCell++) {
-                leftHandExpr = new GRBLinExpr();
-                rightHandExpr = new GRBLinExpr();
-                double[] coeffArray = new double[numberOfCells];
-                Arrays.fill(coeffArray, 1.0);
-                leftHandExpr.addTerms(coeffArray, rebalancingVars[timestep][startCell]);
-
-                rightHandExpr.addTerm(1.0, freeTaxis[timestep][startCell]);
-                grbModel.addConstr(leftHandExpr, GRB.LESS_EQUAL, rightHandExpr,
-                        String.format("2_%d_%d", timestep, startCell));
+    @Override
+    public void addConstraints(int numberOfCells, int rebalancingSteps) throws RebalancingModelException {
+        try {
+            GRBLinExpr leftHandExpr;
+            GRBLinExpr rightHandExpr;
+
+            // There cannot be more rebalancing than free taxis are available in a cell.
+            for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+                for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                    leftHandExpr = new GRBLinExpr();
+                    rightHandExpr = new GRBLinExpr();
+                    addRebalancingTerms(leftHandExpr, 1.0, rebalancingVars[timestep][startCell]);
+
+                    rightHandExpr.addTerm(1.0, freeTaxis[timestep][startCell]);
+                    grbModel.addConstr(leftHandExpr, GRB.LESS_EQUAL, rightHandExpr,
+                            String.format("2_%d_%d", timestep, startCell));
+                }
             }
-        }
 
-        // Supply = free taxis - rebalanced taxis
-        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
-            for (int startCell = 0; startCell < numberOfCells; startCell++) {
-                leftHandExpr = new GRBLinExpr();
-                leftHandExpr.addTerm(1, supplyVars[timestep][startCell]);
+            // Supply = free taxis - rebalanced taxis
+            for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+                for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                    leftHandExpr = new GRBLinExpr();
+                    leftHandExpr.addTerm(1, supplyVars[timestep][startCell]);
 
-                rightHandExpr = new GRBLinExpr();
-                rightHandExpr.addTerm(1.0, freeTaxis[timestep][startCell]);
-                double[] coeffArray = new double[numberOfCells];
-                Arrays.fill(coeffArray, -1.0);
-                rightHandExpr.addTerms(coeffArray, rebalancingVars[timestep][startCell]);
+                    rightHandExpr = new GRBLinExpr();
+                    rightHandExpr.addTerm(1.0, freeTaxis[timestep][startCell]);
+                    addRebalancingTerms(rightHandExpr, -1.0, rebalancingVars[timestep][startCell]);
 
 
-                grbModel.addConstr(leftHandExpr, GRB.EQUAL, rightHandExpr,
-                        String.format("4_%d_%d", timestep, startCell));
+                    grbModel.addConstr(leftHandExpr, GRB.EQUAL, rightHandExpr,
+                            String.format("4_%d_%d", timestep, startCell));
+                }
             }
-        }
 
-        // Helper variable initialization
-        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
-            for (int startCell = 0; startCell < numberOfCells; startCell++) {
-                leftHandExpr = new GRBLinExpr();
-                leftHandExpr.addTerm(1, supplyMinusDemandVars[timestep][startCell]);
+            // Helper variable initialization
+            for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+                for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                    leftHandExpr = new GRBLinExpr();
+                    leftHandExpr.addTerm(1, supplyMinusDemandVars[timestep][startCell]);
 
-                rightHandExpr = new GRBLinExpr();
-                rightHandExpr.addTerm(1.0, supplyVars[timestep][startCell]);
-                rightHandExpr.addTerm(-1.0, demandVars[timestep][startCell]);
+                    rightHandExpr = new GRBLinExpr();
+                    rightHandExpr.addTerm(1.0, supplyVars[timestep][startCell]);
+                    rightHandExpr.addTerm(-1.0, demandVars[timestep][startCell]);
 
-                grbModel.addConstr(leftHandExpr, GRB.EQUAL, rightHandExpr,
-                        String.format("supply-demand-constraint_%d_%d", timestep, startCell));
+                    grbModel.addConstr(leftHandExpr, GRB.EQUAL, rightHandExpr,
+                            String.format("supply-demand-constraint_%d_%d", timestep, startCell));
+                }
             }
-        }
 
-        // Helper variable initialization
-        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
-            for (int startCell = 0; startCell < numberOfCells; startCell++) {
-                leftHandExpr = new GRBLinExpr();
-                leftHandExpr.addTerm(1, demandMinusSupplyVars[timestep][startCell]);
+            // Helper variable initialization
+            for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+                for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                    leftHandExpr = new GRBLinExpr();
+                    leftHandExpr.addTerm(1, demandMinusSupplyVars[timestep][startCell]);
 
-                rightHandExpr = new GRBLinExpr();
-                rightHandExpr.addTerm(-1.0, supplyVars[timestep][startCell]);
-                rightHandExpr.addTerm(1.0, demandVars[timestep][startCell]);
+                    rightHandExpr = new GRBLinExpr();
+                    rightHandExpr.addTerm(-1.0, supplyVars[timestep][startCell]);
+                    rightHandExpr.addTerm(1.0, demandVars[timestep][startCell]);
 
-                grbModel.addConstr(leftHandExpr, GRB.EQUAL, rightHandExpr,
-                        String.format("demand-supply_constraint_%d_%d", timestep, startCell));
+                    grbModel.addConstr(leftHandExpr, GRB.EQUAL, rightHandExpr,
+                            String.format("demand-supply_constraint_%d_%d", timestep, startCell));
+                }
             }
-        }
 
-        // Helper variable initialization
-        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
-            for (int startCell = 0; startCell < numberOfCells; startCell++) {
-                grbModel.addGenConstrMax(maxSupplyMinusDemandAndZero[timestep][startCell],
-                        new GRBVar[]{supplyMinusDemandVars[timestep][startCell]}, 0,
-                        String.format("max_supply-demand_constraint_%d_%d", timestep, startCell));
+            // Helper variable initialization
+            for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+                for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                    grbModel.addGenConstrMax(maxSupplyMinusDemandAndZero[timestep][startCell],
+                            new GRBVar[]{supplyMinusDemandVars[timestep][startCell]}, 0,
+                            String.format("max_supply-demand_constraint_%d_%d", timestep, startCell));
 
-                grbModel.addGenConstrMin(minSupplyMinusDemandAndZero[timestep][startCell],
-                        new GRBVar[]{supplyMinusDemandVars[timestep][startCell]}, 0,
-                        String.format("min_supply-demand_constraint_%d_%d", timestep, startCell));
+                    grbModel.addGenConstrMin(minSupplyMinusDemandAndZero[timestep][startCell],
+                            new GRBVar[]{supplyMinusDemandVars[timestep][startCell]}, 0,
+                            String.format("min_supply-demand_constraint_%d_%d", timestep, startCell));
 
-                grbModel.addGenConstrMax(maxDemandMinusSupplyAndZero[timestep][startCell],
-                        new GRBVar[]{demandMinusSupplyVars[timestep][startCell]}, 0,
-                        String.format("max_demand-supply_constraint_%d_%d", timestep, startCell));
+                    grbModel.addGenConstrMax(maxDemandMinusSupplyAndZero[timestep][startCell],
+                            new GRBVar[]{demandMinusSupplyVars[timestep][startCell]}, 0,
+                            String.format("max_demand-supply_constraint_%d_%d", timestep, startCell));
 
-                grbModel.addGenConstrMin(minSupplyDemandVars[timestep][startCell],
-                        new GRBVar[]{supplyVars[timestep][startCell], demandVars[timestep][startCell]},
-                        1000, String.format("min_demand_supply_constraint_%d_%d", timestep, startCell));
+                    grbModel.addGenConstrMin(minSupplyDemandVars[timestep][startCell],
+                            new GRBVar[]{supplyVars[timestep][startCell], demandVars[timestep][startCell]},
+                            1000, String.format("min_demand_supply_constraint_%d_%d", timestep, startCell));
+                }
             }
+        } catch (GRBException e) {
+            throw new RebalancingModelException("Gurobi error " + e.getErrorCode(), e);
         }
     }
 
     /**
-     * Updates the dynamic constraints of the Gurobi model.
+     * Updates the dynamic constraints of the Gurobi model in place.
      * @param numberOfCells: absolute number of cells
      * @param rebalancingSteps: number of rebalancing steps of the model
      * @param predictedDemand: predicted demand for the next rebalancing steps.
@@ -235,82 +281,97 @@ public class RebalancingGRBModel {
      *                           started in a specific one. Index: [startCell][endCell]
      * @param travelTimes: travel durations between different cells. Index: [startCell][endCell]
      */
+    @Override
     public void updateModel(int numberOfCells, int rebalancingSteps,
                             ArrayList<double[]> predictedDemand, int[] initialTaxiPlacement,
                             int[][] occupiedTaxisBecomingUnoccupied,
                             double[][] probabilityMatrix, int rebalancingPeriodSeconds,
-                            double[][] travelTimes) throws GRBException {
-
-        for (GRBConstr constr : constrainedToBeRemovedOnUpdate) {
-            grbModel.remove(constr);
-        }
-
-        // Remove constraints from last time step
-        constrainedToBeRemovedOnUpdate.clear();
-        grbModel.reset();
-
-        GRBLinExpr leftHandExpr;
+                            double[][] travelTimes) throws RebalancingModelException {
+        try {
+            if (rebalancingPeriodSeconds != flowRebalancingPeriodSeconds
+                    || !Arrays.deepEquals(travelTimes, flowTravelTimes)
+                    || !Arrays.deepEquals(probabilityMatrix, flowProbabilityMatrix)) {
+                updateFlowConstraints(numberOfCells, rebalancingSteps, probabilityMatrix, rebalancingPeriodSeconds,
+                        travelTimes);
+            }
 
-        // rebalancing is 0 if start and end cell are the same, the end cell can't be reached in time or it is the last
-        // rebalancing timestep
-        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
-            for (int startCell = 0; startCell < numberOfCells; startCell++) {
-                for (int endCell = 0; endCell < numberOfCells; endCell++) {
-                    if (startCell == endCell
-                            || travelTimes[startCell][endCell] > rebalancingPeriodSeconds
-                            || timestep == rebalancingSteps - 1) {
-                        leftHandExpr = new GRBLinExpr();
-                        leftHandExpr.addTerm(1.0, rebalancingVars[timestep][startCell][endCell]);
-                        constrainedToBeRemovedOnUpdate.add(
-                                grbModel.addConstr(leftHandExpr, GRB.EQUAL, 0.0,
-                                        String.format("3_%d_%d_%d", timestep, startCell, endCell)));
+            // Demand is predicted demand + unfulfilled demand from last timestep
+            if (Objects.isNull(demandConstrs)) {
+                demandConstrs = new GRBConstr[rebalancingSteps][numberOfCells];
+                for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+                    for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+                        GRBLinExpr leftHandExpr = new GRBLinExpr();
+                        leftHandExpr.addTerm(1.0, demandVars[timestep][cellIndex]);
+                        if (timestep > 0) {
+                            leftHandExpr.addTerm(-1.0, maxDemandMinusSupplyAndZero[timestep - 1][cellIndex]);
+                        }
+                        demandConstrs[timestep][cellIndex] = grbModel.addConstr(leftHandExpr, GRB.EQUAL,
+                                predictedDemand.get(cellIndex)[timestep], String.format("demand_%d_%d", timestep, cellIndex));
+                    }
+                }
+            } else {
+                for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+                    for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+                        demandConstrs[timestep][cellIndex].set(GRB.DoubleAttr.RHS, predictedDemand.get(cellIndex)[timestep]);
                     }
                 }
             }
-        }
-
-        // Demand is predicted demand + unfulfilled demand from last timestep
-        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
-            for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
-                leftHandExpr = new GRBLinExpr();
-                leftHandExpr.addTerm(1.0, demandVars[timestep][cellIndex]);
-                leftHandExpr.addConstant(-predictedDemand.get(cellIndex)[timestep]);
 
-                if (timestep > 0) {
-                    leftHandExpr.addTerm(-1.0, maxDemandMinusSupplyAndZero[timestep - 1][cellIndex]);
+            // Set occupiedTaxisBecomingUnoccupied variable based on input
+            for (int timestep = 0; timestep < rebalancingSteps - 1; timestep++) {
+                for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+                    fix(this.occupiedTaxisBecomingUnoccupied[timestep][cellIndex],
+                            occupiedTaxisBecomingUnoccupied[timestep][cellIndex]);
                 }
+            }
 
-                constrainedToBeRemovedOnUpdate.add(
-                        grbModel.addConstr(leftHandExpr, GRB.EQUAL, 0.0,
-                                String.format("demand_%d_%d", timestep, cellIndex)));
+            // Free taxis are equal to initial taxi placement for first timestep
+            for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                fix(freeTaxis[0][startCell], initialTaxiPlacement[startCell]);
             }
+        } catch (GRBException e) {
+            throw new RebalancingModelException("Gurobi error " + e.getErrorCode(), e);
         }
+    }
 
-        // Set occupiedTaxisBecomingUnoccupied variable based on input
-        for (int timestep = 0; timestep < rebalancingSteps - 1; timestep++) {
-            for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
-                leftHandExpr = new GRBLinExpr();
-                leftHandExpr.addTerm(1.0, this.occupiedTaxisBecomingUnoccupied[timestep][cellIndex]);
-
-                leftHandExpr.addConstant(-occupiedTaxisBecomingUnoccupied[timestep][cellIndex]);
+    /**
+     * Rebalancing is 0 if start and end cell are the same, the end cell can't be reached in time or it is the last
+     * rebalancing timestep, which is modelled by the upper bounds of the rebalancing variables. The free taxis of a
+     * timestep depend on the rebalancing and on the taxis arriving from other cells in the previous timestep.
+     */
+    private void updateFlowConstraints(int numberOfCells, int rebalancingSteps, double[][] probabilityMatrix,
+                                       int rebalancingPeriodSeconds, double[][] travelTimes) throws GRBException {
+        for (GRBConstr constr : flowConstrs) {
+            grbModel.remove(constr);
+        }
+        flowConstrs.clear();
 
-                constrainedToBeRemovedOnUpdate.add(
-                        grbModel.addConstr(leftHandExpr, GRB.EQUAL, 0.0,
-                                String.format("taxis_becoming_unoccupied_%d_%d", timestep, cellIndex)));
+        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+            for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                    GRBVar rebalancingVar = rebalancingVars[timestep][startCell][endCell];
+                    if (Objects.nonNull(rebalancingVar)) {
+                        boolean fixedToZero = startCell == endCell
+                                || travelTimes[startCell][endCell] > rebalancingPeriodSeconds
+                                || timestep == rebalancingSteps - 1;
+                        rebalancingVar.set(GRB.DoubleAttr.UB, fixedToZero ? 0.0 : GRB.INFINITY);
+                    }
+                }
             }
         }
 
-
         for (int timestep = 1; timestep < rebalancingSteps; timestep++) {
             for (int startCell = 0; startCell < numberOfCells; startCell++) {
-                leftHandExpr = new GRBLinExpr();
+                GRBLinExpr leftHandExpr = new GRBLinExpr();
                 leftHandExpr.addTerm(1, freeTaxis[timestep][startCell]);
 
                 GRBLinExpr rightHandExpr = new GRBLinExpr();
                 rightHandExpr.addTerm(1.0, maxSupplyMinusDemandAndZero[timestep - 1][startCell]);
 
                 for (int endCell = 0; endCell < numberOfCells; endCell++) {
-                    rightHandExpr.addTerm(1.0, rebalancingVars[timestep - 1][endCell][startCell]);
+                    if (Objects.nonNull(rebalancingVars[timestep - 1][endCell][startCell])) {
+                        rightHandExpr.addTerm(1.0, rebalancingVars[timestep - 1][endCell][startCell]);
+                    }
 
                     if (travelTimes[endCell][startCell] < timestep * ((double) rebalancingPeriodSeconds / rebalancingSteps)
                             && travelTimes[endCell][startCell] > (timestep - 1) * ((double) rebalancingPeriodSeconds / rebalancingSteps)) {
@@ -321,23 +382,15 @@ public class RebalancingGRBModel {
 
                 rightHandExpr.addTerm(1.0, this.occupiedTaxisBecomingUnoccupied[timestep - 1][startCell]);
 
-                constrainedToBeRemovedOnUpdate.add(
-                        grbModel.addConstr(leftHandExpr, GRB.EQUAL, rightHandExpr,
-                                String.format("6_%d_%d", timestep, startCell)));
+                flowConstrs.add(grbModel.addConstr(leftHandExpr, GRB.EQUAL, rightHandExpr,
+                        String.format("6_%d_%d", timestep, startCell)));
             }
         }
 
-        // Free taxis are equal to initial taxi placement for first timestep
-        for (int startCell = 0; startCell < numberOfCells; startCell++) {
-            leftHandExpr = new GRBLinExpr();
-            leftHandExpr.addTerm(1.0, freeTaxis[0][startCell]);
-            leftHandExpr.addConstant(-initialTaxiPlacement[startCell]);
-
-            constrainedToBeRemovedOnUpdate.add(
-                    grbModel.addConstr(leftHandExpr, GRB.EQUAL, 0.0,
-                            String.format("5_%d", startCell)));
-        }
-
+        flowTravelTimes = copy(travelTimes);
+        flowProbabilityMatrix = copy(probabilityMatrix);
+        flowRebalancingPeriodSeconds = rebalancingPeriodSeconds;
+        logger.info("Rebuilt travel time dependent constraints of the rebalancing model.");
     }
 
     /**
@@ -345,39 +398,157 @@ public class RebalancingGRBModel {
      * @return Returns true if the model was optimized successfully. If false is returned, the model needs to be
      * recreated as additional constraints needed to be added for feasibility.
      */
-    public boolean optimizeModel() throws GRBException {
-        logger.info("Optimizing gurobi model.");
-        grbModel.optimize();
-        int statusCode = grbModel.get(GRB.IntAttr.Status);
-        if (statusCode == GRB.INFEASIBLE) {
-            logger.warn("Gurobi model is infeasible. Try to relax feasibility.");
-            double returnCode = grbModel.feasRelax(GRB.FEASRELAX_LINEAR, false, false, true);
-            if (returnCode >= 0) {
-                logger.info("Succeeded to relax feasibility. Will solve relaxed model.");
-                grbModel.optimize();
-            } else {
-                logger.error("Failed to relax feasibility of gurobi model.");
+    @Override
+    public boolean optimizeModel() throws RebalancingModelException {
+        try {
+            logger.info("Optimizing gurobi model.");
+            grbModel.optimize();
+            int statusCode = grbModel.get(GRB.IntAttr.Status);
+            if (statusCode == GRB.INFEASIBLE) {
+                logger.warn("Gurobi model is infeasible. Try to relax feasibility.");
+                double returnCode = relaxFeasibility();
+                if (returnCode >= 0) {
+                    logger.info("Succeeded to relax feasibility. Will solve relaxed model.");
+                    grbModel.optimize();
+                } else {
+                    logger.error("Failed to relax feasibility of gurobi model.");
+                }
+                return false;
             }
-            return false;
+            return true;
+        } catch (GRBException e) {
+            throw new RebalancingModelException("Gurobi error " + e.getErrorCode(), e);
+        }
+    }
+
+    /**
+     * Relaxes all linear constraints as well as the bounds which fix the inputs and forbid rebalancing, i.e., the
+     * same restrictions that are relaxed if they are modelled as constraints.
+     */
+    private double relaxFeasibility() throws GRBException {
+        List<GRBVar> vars = new ArrayList<>();
+        List<Double> lowerBoundPenalties = new ArrayList<>();
+        for (GRBVar[][] timestepVars : rebalancingVars) {
+            for (GRBVar[] startCellVars : timestepVars) {
+                for (GRBVar rebalancingVar : startCellVars) {
+                    if (Objects.nonNull(rebalancingVar)) {
+                        vars.add(rebalancingVar);
+                        lowerBoundPenalties.add(GRB.INFINITY);
+                    }
+                }
+            }
+        }
+        for (GRBVar[] timestepVars : occupiedTaxisBecomingUnoccupied) {
+            for (GRBVar var : timestepVars) {
+                vars.add(var);
+                lowerBoundPenalties.add(1.0);
+            }
+        }
+        for (GRBVar var : freeTaxis[0]) {
+            vars.add(var);
+            lowerBoundPenalties.add(1.0);
+        }
+        double[] upperBoundPenalties = new double[vars.size()];
+        Arrays.fill(upperBoundPenalties, 1.0);
+        GRBConstr[] constrs = grbModel.getConstrs();
+        double[] rhsPenalties = new double[constrs.length];
+        Arrays.fill(rhsPenalties, 1.0);
+        return grbModel.feasRelax(GRB.FEASRELAX_LINEAR, false, vars.toArray(new GRBVar[0]),
+                lowerBoundPenalties.stream().mapToDouble(Double::doubleValue).toArray(), upperBoundPenalties,
+                constrs, rhsPenalties);
+    }
+
+    @Override
+    public double getObjectiveValue() throws RebalancingModelException {
+        try {
+            return grbModel.get(GRB.DoubleAttr.ObjVal);
+        } catch (GRBException e) {
+            throw new RebalancingModelException("Gurobi error " + e.getErrorCode(), e);
+        }
+    }
+
+    /** @return runtime of the last optimization in seconds */
+    @Override
+    public double getSolveSeconds() throws RebalancingModelException {
+        try {
+            return grbModel.get(GRB.DoubleAttr.Runtime);
+        } catch (GRBException e) {
+            throw new RebalancingModelException("Gurobi error " + e.getErrorCode(), e);
+        }
+    }
+
+    @Override
+    public int getNumberOfVariables() throws RebalancingModelException {
+        try {
+            return grbModel.get(GRB.IntAttr.NumVars);
+        } catch (GRBException e) {
+            throw new RebalancingModelException("Gurobi error " + e.getErrorCode(), e);
+        }
+    }
+
+    /** @return number of linear and general constraints */
+    @Override
+    public int getNumberOfConstraints() throws RebalancingModelException {
+        try {
+            return grbModel.get(GRB.IntAttr.NumConstrs) + grbModel.get(GRB.IntAttr.NumGenConstrs);
+        } catch (GRBException e) {
+            throw new RebalancingModelException("Gurobi error " + e.getErrorCode(), e);
+        }
+    }
+
+    @Override
+    public int getNumberOfNonZeros() throws RebalancingModelException {
+        try {
+            return grbModel.get(GRB.IntAttr.NumNZs);
+        } catch (GRBException e) {
+            throw new RebalancingModelException("Gurobi error " + e.getErrorCode(), e);
         }
-        return true;
     }
 
     /**
      * Returns the solution of the linear problem
      * @return Returns a integer array [time][startCell][endCell] with the number of vehicles to rebalance.
      */
-    public int[][][] getRebalancingAmount(int numberOfCells, int rebalancingSteps) throws GRBException {
-        int[][][] rebalancingAmount = new int[rebalancingSteps][numberOfCells][numberOfCells];
-        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
-            for (int startCell = 0; startCell < numberOfCells; startCell++) {
-                for (int endCell = 0; endCell < numberOfCells; endCell++) {
-                    rebalancingAmount[timestep][startCell][endCell] =
-                            (int) Math.round(rebalancingVars[timestep][startCell][endCell].get(GRB.DoubleAttr.X));
+    @Override
+    public int[][][] getRebalancingAmount(int numberOfCells, int rebalancingSteps) throws RebalancingModelException {
+        try {
+            int[][][] rebalancingAmount = new int[rebalancingSteps][numberOfCells][numberOfCells];
+            for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+                for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                    for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                        if (Objects.nonNull(rebalancingVars[timestep][startCell][endCell])) {
+                            rebalancingAmount[timestep][startCell][endCell] =
+                                    (int) Math.round(rebalancingVars[timestep][startCell][endCell].get(GRB.DoubleAttr.X));
+                        }
+                    }
                 }
             }
+
+            return rebalancingAmount;
+        } catch (GRBException e) {
+            throw new RebalancingModelException("Gurobi error " + e.getErrorCode(), e);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        grbModel.dispose();
+    }
+
+    private static void addRebalancingTerms(GRBLinExpr expr, double coefficient, GRBVar[] rebalancingVars) {
+        for (GRBVar rebalancingVar : rebalancingVars) {
+            if (Objects.nonNull(rebalancingVar)) {
+                expr.addTerm(coefficient, rebalancingVar);
+            }
         }
+    }
+
+    private static void fix(GRBVar var, double value) throws GRBException {
+        var.set(GRB.DoubleAttr.LB, value);
+        var.set(GRB.DoubleAttr.UB, value);
+    }
 
-        return rebalancingAmount;
+    private static double[][] copy(double[][] matrix) {
+        return Arrays.stream(matrix).map(double[]::clone).toArray(double[][]::new);
     }
 }
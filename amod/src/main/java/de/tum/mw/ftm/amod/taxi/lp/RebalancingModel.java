@@ -0,0 +1,83 @@
+package de.tum.mw.ftm.amod.taxi.lp;
+
+import java.util.ArrayList;
+
+/**
+ * Rebalancing model from Wittmann 2020 independent of the solver. The model is built once by
+ * {@link #createModelVariables}, {@link #addObjectiveFunction} and {@link #addConstraints} and updated in place by
+ * {@link #updateModel} for every rebalancing period.
+ */
+public interface RebalancingModel {
+    /**
+     * Initializes all model variables.
+     * @param numberOfCells: Absolute number of grid cells.
+     * @param rebalancingSteps: Number of rebalancing steps which the model should calculate/output.
+     * @param allowedRebalancing: Index: [startCell][endCell], rebalancing variables are only created for the pairs
+     *                            of cells which are true, or for all pairs if null.
+     */
+    void createModelVariables(int numberOfCells, int rebalancingSteps, boolean[][] allowedRebalancing)
+            throws RebalancingModelException;
+
+    /**
+     * Creates the target function which should be maximized by the model
+     * @param numberOfCells: absolute number of cells
+     * @param rebalancingSteps: number of rebalancing steps of the model
+     * @param lambda: weighting factor
+     * @param alpha: distance cost factor
+     * @param distanceMatrix: distances between the cells
+     */
+    void addObjectiveFunction(int numberOfCells, int rebalancingSteps, double lambda, double alpha,
+                              double[][] distanceMatrix) throws RebalancingModelException;
+
+    /**
+     * Adds constraints which are always valid and are not needed to be updated every time.
+     * @param numberOfCells: absolute number of cells
+     * @param rebalancingSteps: number of rebalancing steps of the model
+     */
+    void addConstraints(int numberOfCells, int rebalancingSteps) throws RebalancingModelException;
+
+    /**
+     * Updates the dynamic constraints of the model in place.
+     * @param numberOfCells: absolute number of cells
+     * @param rebalancingSteps: number of rebalancing steps of the model
+     * @param predictedDemand: predicted demand for the next rebalancing steps.
+     * @param initialTaxiPlacement: current placement of the available taxis. Index is the current cell index.
+     * @param occupiedTaxisBecomingUnoccupied: Number of occupied taxis becoming unoccupied during the next
+     *                                         rebalancing steps. Index: [rebalancingStep][cellIndex]
+     * @param probabilityMatrix: array which contains the probability that trips end in a specific cell when they've
+     *                           started in a specific one. Index: [startCell][endCell]
+     * @param travelTimes: travel durations between different cells. Index: [startCell][endCell]
+     */
+    void updateModel(int numberOfCells, int rebalancingSteps, ArrayList<double[]> predictedDemand,
+                     int[] initialTaxiPlacement, int[][] occupiedTaxisBecomingUnoccupied,
+                     double[][] probabilityMatrix, int rebalancingPeriodSeconds, double[][] travelTimes)
+            throws RebalancingModelException;
+
+    /**
+     * Optimizes the model.
+     * @return Returns true if the model was optimized successfully. If false is returned, the model needs to be
+     * recreated.
+     */
+    boolean optimizeModel() throws RebalancingModelException;
+
+    /**
+     * Returns the solution of the linear problem
+     * @return Returns a integer array [time][startCell][endCell] with the number of vehicles to rebalance.
+     */
+    int[][][] getRebalancingAmount(int numberOfCells, int rebalancingSteps) throws RebalancingModelException;
+
+    /** @return objective value of the last optimization */
+    double getObjectiveValue() throws RebalancingModelException;
+
+    /** @return runtime of the last optimization in seconds */
+    double getSolveSeconds() throws RebalancingModelException;
+
+    int getNumberOfVariables() throws RebalancingModelException;
+
+    int getNumberOfConstraints() throws RebalancingModelException;
+
+    int getNumberOfNonZeros() throws RebalancingModelException;
+
+    /** releases the resources of the solver, the model must not be used afterwards */
+    void dispose();
+}
@@ -0,0 +1,15 @@
+package de.tum.mw.ftm.amod.taxi.lp;
+
+/**
+ * Signals a failure of the solver backend of a {@link RebalancingModel}, e.g., a missing license or an error
+ * of the native library. Infeasibility is not an error, see {@link RebalancingModel#optimizeModel()}.
+ */
+public class RebalancingModelException extends Exception {
+    public RebalancingModelException(String message) {
+        super(message);
+    }
+
+    public RebalancingModelException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
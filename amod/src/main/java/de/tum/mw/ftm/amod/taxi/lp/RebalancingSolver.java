@@ -1,7 +1,7 @@
 package de.tum.mw.ftm.amod.taxi.lp;
 
 import amodeus.amodeus.util.math.GlobalAssert;
-import gurobi.GRBException;
+import org.matsim.amodeus.config.FTMConfigGroup.RebalancingSolverType;
 import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
@@ -9,19 +9,31 @@ import java.util.Arrays;
 import java.util.List;
 
 /**
- * Utility class which helps interacting with the underlying Gurobi LP model.
+ * Utility class which helps interacting with the underlying LP model, which is solved by Gurobi or GLPK. The model is
+ * created once and updated in place for every rebalancing period, which saves rebuilding the variables and the
+ * constraints that do not depend on the inputs. The solution of the previous period is not used as a start, since
+ * consecutive horizons only share one timestep, see {@link RebalancingGRBModel}.
  */
 public class RebalancingSolver {
     private final int rebalancingSeconds;
     private final int numberOfCells;
     private final int rebalancingSteps;
     private final double[][] distanceMatrix;
-    private RebalancingGRBModel rebalancingGRBModel;
+    private RebalancingModel rebalancingModel;
     private boolean updatedSinceLastOptimization;
     private final double alpha;
     private final double lambda;
+    // Index: [startCell][endCell], null if the model contains rebalancing variables for all pairs of cells
+    private final boolean[][] allowedRebalancing;
+    private final RebalancingSolverType solverType;
     private final Logger logger = Logger.getLogger(RebalancingSolver.class);
 
+    // metrics
+    private int numberOfSolves = 0;
+    private double totalUpdateSeconds = 0;
+    private double totalSolveSeconds = 0;
+    private double lastUpdateSeconds = 0;
+
     public RebalancingSolver(int rebalancingSeconds,
                              int numberOfRows,
                              int numberOfColumns,
@@ -30,6 +42,43 @@ public class RebalancingSolver {
                              double alpha,
                              double lambda)
     {
+        this(rebalancingSeconds, numberOfRows, numberOfColumns, rebalancingSteps, distanceMatrix, alpha, lambda,
+                null, 0);
+    }
+
+    public RebalancingSolver(int rebalancingSeconds,
+                             int numberOfRows,
+                             int numberOfColumns,
+                             int rebalancingSteps,
+                             double[][] distanceMatrix,
+                             double alpha,
+                             double lambda,
+                             double[][] travelTimes,
+                             int rebalancingRadiusSeconds)
+    {
+        this(rebalancingSeconds, numberOfRows, numberOfColumns, rebalancingSteps, distanceMatrix, alpha, lambda,
+                travelTimes, rebalancingRadiusSeconds, RebalancingSolverType.GUROBI);
+    }
+
+    /**
+     * @param travelTimes: travel durations between different cells. Index: [startCell][endCell]
+     * @param rebalancingRadiusSeconds: if positive, the model only contains rebalancing variables for pairs of
+     *                                  different cells within this travel time, which reduces the size of the model
+     *                                  for large grids. If 0, the model contains variables for all pairs of cells.
+     * @param solverType: solver of the LP model
+     */
+    public RebalancingSolver(int rebalancingSeconds,
+                             int numberOfRows,
+                             int numberOfColumns,
+                             int rebalancingSteps,
+                             double[][] distanceMatrix,
+                             double alpha,
+                             double lambda,
+                             double[][] travelTimes,
+                             int rebalancingRadiusSeconds,
+                             RebalancingSolverType solverType)
+    {
+        this.solverType = solverType;
         this.rebalancingSeconds = rebalancingSeconds;
         this.numberOfCells = numberOfRows * numberOfColumns;
         this.rebalancingSteps = rebalancingSteps;
@@ -39,21 +88,36 @@ public class RebalancingSolver {
         this.alpha = alpha * Math.pow(10.0, -3.0);;
         // Discount, EUR per unserved Request
         this.lambda = lambda;
+        if (rebalancingRadiusSeconds > 0) {
+            GlobalAssert.that(travelTimes != null && travelTimes.length == numberOfCells);
+            this.allowedRebalancing = new boolean[numberOfCells][numberOfCells];
+            for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                    allowedRebalancing[startCell][endCell] = startCell != endCell
+                            && travelTimes[startCell][endCell] <= rebalancingRadiusSeconds;
+                }
+            }
+        } else {
+            this.allowedRebalancing = null;
+        }
     }
 
-    public void initialize() throws GRBException {
+    public void initialize() throws RebalancingModelException {
         GlobalAssert.that(distanceMatrix.length == numberOfCells);
         for (double[] matrix : distanceMatrix) {
             GlobalAssert.that(matrix.length == numberOfCells);
         }
 
-        rebalancingGRBModel = new RebalancingGRBModel();
+        if (rebalancingModel != null) {
+            rebalancingModel.dispose();
+        }
+        rebalancingModel = createModel(solverType);
 
-        rebalancingGRBModel.createModelVariables(numberOfCells, rebalancingSteps);
+        rebalancingModel.createModelVariables(numberOfCells, rebalancingSteps, allowedRebalancing);
 
-        rebalancingGRBModel.addObjectiveFunction(numberOfCells, rebalancingSteps,
+        rebalancingModel.addObjectiveFunction(numberOfCells, rebalancingSteps,
                 1, alpha, distanceMatrix);
-        rebalancingGRBModel.addConstraints(numberOfCells, rebalancingSteps);
+        rebalancingModel.addConstraints(numberOfCells, rebalancingSteps);
     }
 
     /**
@@ -68,30 +132,38 @@ public class RebalancingSolver {
      */
     public void updateModel(ArrayList<double[]> predictedDemand, int[] initialTaxiPlacement,
                             int[][] occupiedTaxisBecomingUnoccupied, double[][] probabilityMatrix,
-                            double[][] travelTimes) throws GRBException {
-        GlobalAssert.that(rebalancingGRBModel != null);
+                            double[][] travelTimes) throws RebalancingModelException {
+        GlobalAssert.that(rebalancingModel != null);
         logger.info(String.format("Updating Model:\n" +
                 "InitialTaxiPlacement: %s \n" +
                 "Sum of available Taxis: %s", Arrays.toString(initialTaxiPlacement), Arrays.stream(initialTaxiPlacement).sum()));
-        rebalancingGRBModel.updateModel(numberOfCells, rebalancingSteps, predictedDemand,
+        long start = System.nanoTime();
+        rebalancingModel.updateModel(numberOfCells, rebalancingSteps, predictedDemand,
                 initialTaxiPlacement, occupiedTaxisBecomingUnoccupied, probabilityMatrix,
                 rebalancingSeconds, travelTimes);
+        lastUpdateSeconds = (System.nanoTime() - start) * 1e-9;
 
         updatedSinceLastOptimization = true;
     }
 
+    /** @return objective value of the last optimization */
+    public double getObjectiveValue() throws RebalancingModelException {
+        return rebalancingModel.getObjectiveValue();
+    }
+
     /**
      * Solves the LP problem and resets the updatedSinceLastOptimization flag.
      * @return Returns a integer array [time][startCell][endCell] with the number of vehicles to rebalance.
      */
-    public int[][][] calculateRebalancing() throws GRBException {
+    public int[][][] calculateRebalancing() throws RebalancingModelException {
         GlobalAssert.that(updatedSinceLastOptimization);
-        GlobalAssert.that(rebalancingGRBModel != null);
+        GlobalAssert.that(rebalancingModel != null);
 
-        boolean optimizationSuccessful = rebalancingGRBModel.optimizeModel();
-        int[][][] rebalancingAmount = rebalancingGRBModel.getRebalancingAmount(numberOfCells, rebalancingSteps);
+        boolean optimizationSuccessful = rebalancingModel.optimizeModel();
+        int[][][] rebalancingAmount = rebalancingModel.getRebalancingAmount(numberOfCells, rebalancingSteps);
+        logMetrics();
 
-        // Additional constraints were added for feasibility --> Need to recreate Gurobi model
+        // Additional constraints were added for feasibility --> Need to recreate model
         if (!optimizationSuccessful) {
             this.initialize();
         }
@@ -101,4 +173,35 @@ public class RebalancingSolver {
         return rebalancingAmount;
     }
 
+    private static RebalancingModel createModel(RebalancingSolverType solverType) throws RebalancingModelException {
+        switch (solverType) {
+            case GUROBI:
+                return new RebalancingGRBModel();
+            case GLPK:
+                return new RebalancingGLPKModel();
+            default:
+                throw new IllegalArgumentException("Unknown rebalancing solver " + solverType);
+        }
+    }
+
+    private void logMetrics() throws RebalancingModelException {
+        double solveSeconds = rebalancingModel.getSolveSeconds();
+        numberOfSolves++;
+        totalUpdateSeconds += lastUpdateSeconds;
+        totalSolveSeconds += solveSeconds;
+        logger.info(String.format("Rebalancing LP %d (%s): update %.3fs, solve %.3fs (mean update %.3fs, mean solve %.3fs), "
+                        + "variables: %d, constraints: %d, non-zeros: %d",
+                numberOfSolves, solverType, lastUpdateSeconds, solveSeconds, totalUpdateSeconds / numberOfSolves,
+                totalSolveSeconds / numberOfSolves, rebalancingModel.getNumberOfVariables(),
+                rebalancingModel.getNumberOfConstraints(), rebalancingModel.getNumberOfNonZeros()));
+    }
+
+    public int getNumberOfSolves() {
+        return numberOfSolves;
+    }
+
+    /** @return mean runtime of the solver in seconds over all optimizations */
+    public double getMeanSolveSeconds() {
+        return numberOfSolves == 0 ? 0 : totalSolveSeconds / numberOfSolves;
+    }
 }
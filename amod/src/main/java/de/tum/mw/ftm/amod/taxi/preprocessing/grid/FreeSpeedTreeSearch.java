@@ -0,0 +1,173 @@
+package de.tum.mw.ftm.amod.taxi.preprocessing.grid;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One-to-all least free speed travel time search on a {@link Network}. The network is copied once into
+ * primitive adjacency arrays, which are shared read-only by all {@link Search}es. A {@link Search} holds the
+ * mutable state of a single thread and is reused for all origins searched by that thread.
+ */
+class FreeSpeedTreeSearch {
+    private final Map<Id<Node>, Integer> nodeIndices = new HashMap<>();
+    /** outgoing links of node i are stored at offsets[i] until offsets[i + 1] - 1 */
+    private final int[] offsets;
+    private final int[] toNodes;
+    private final double[] travelTimes;
+    private final double[] lengths;
+
+    FreeSpeedTreeSearch(Network network) {
+        for (Node node : network.getNodes().values()) {
+            nodeIndices.put(node.getId(), nodeIndices.size());
+        }
+        int numberOfNodes = nodeIndices.size();
+        int numberOfLinks = network.getLinks().size();
+        offsets = new int[numberOfNodes + 1];
+        toNodes = new int[numberOfLinks];
+        travelTimes = new double[numberOfLinks];
+        lengths = new double[numberOfLinks];
+        for (Link link : network.getLinks().values()) {
+            offsets[getIndex(link.getFromNode()) + 1]++;
+        }
+        for (int i = 0; i < numberOfNodes; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] next = Arrays.copyOf(offsets, numberOfNodes);
+        for (Link link : network.getLinks().values()) {
+            int position = next[getIndex(link.getFromNode())]++;
+            toNodes[position] = getIndex(link.getToNode());
+            travelTimes[position] = link.getLength() / link.getFreespeed(0.0);
+            lengths[position] = link.getLength();
+        }
+    }
+
+    int getIndex(Node node) {
+        return nodeIndices.get(node.getId());
+    }
+
+    int getNumberOfNodes() {
+        return nodeIndices.size();
+    }
+
+    Search newSearch() {
+        return new Search();
+    }
+
+    /**
+     * Dijkstra with a lazy binary heap, the arrays are reset in constant time by a stamp per search.
+     */
+    class Search {
+        private final double[] time = new double[getNumberOfNodes()];
+        private final double[] distance = new double[getNumberOfNodes()];
+        private final int[] reached = new int[getNumberOfNodes()];
+        private final int[] settled = new int[getNumberOfNodes()];
+        private final int[] target = new int[getNumberOfNodes()];
+        private int stamp = 0;
+        private int[] heapNodes = new int[64];
+        private double[] heapKeys = new double[64];
+        private int heapSize = 0;
+
+        /**
+         * Searches from origin until all targets are settled.
+         *
+         * @param origin  node index
+         * @param targets node indices, may contain duplicates
+         */
+        void run(int origin, int[] targets) {
+            ++stamp;
+            heapSize = 0;
+            int open = 0;
+            for (int node : targets) {
+                if (target[node] != stamp) {
+                    target[node] = stamp;
+                    open++;
+                }
+            }
+            reach(origin, 0.0, 0.0);
+            while (0 < heapSize && 0 < open) {
+                int node = heapNodes[0];
+                double key = heapKeys[0];
+                pop();
+                if (settled[node] == stamp || time[node] < key) {
+                    continue;
+                }
+                settled[node] = stamp;
+                if (target[node] == stamp) {
+                    open--;
+                }
+                for (int position = offsets[node]; position < offsets[node + 1]; position++) {
+                    int toNode = toNodes[position];
+                    double toTime = time[node] + travelTimes[position];
+                    if (settled[toNode] != stamp && (reached[toNode] != stamp || toTime < time[toNode])) {
+                        reach(toNode, toTime, distance[node] + lengths[position]);
+                    }
+                }
+            }
+        }
+
+        /** @return free speed travel time to the node, infinity if it was not reached */
+        double getTime(int node) {
+            return settled[node] == stamp ? time[node] : Double.POSITIVE_INFINITY;
+        }
+
+        /** @return length of the path with least travel time to the node, infinity if it was not reached */
+        double getDistance(int node) {
+            return settled[node] == stamp ? distance[node] : Double.POSITIVE_INFINITY;
+        }
+
+        private void reach(int node, double nodeTime, double nodeDistance) {
+            reached[node] = stamp;
+            time[node] = nodeTime;
+            distance[node] = nodeDistance;
+            push(node, nodeTime);
+        }
+
+        private void push(int node, double key) {
+            if (heapSize == heapNodes.length) {
+                heapNodes = Arrays.copyOf(heapNodes, 2 * heapSize);
+                heapKeys = Arrays.copyOf(heapKeys, 2 * heapSize);
+            }
+            int child = heapSize++;
+            while (0 < child) {
+                int parent = (child - 1) / 2;
+                if (heapKeys[parent] <= key) {
+                    break;
+                }
+                heapNodes[child] = heapNodes[parent];
+                heapKeys[child] = heapKeys[parent];
+                child = parent;
+            }
+            heapNodes[child] = node;
+            heapKeys[child] = key;
+        }
+
+        private void pop() {
+            int node = heapNodes[--heapSize];
+            double key = heapKeys[heapSize];
+            int parent = 0;
+            while (true) {
+                int child = 2 * parent + 1;
+                if (heapSize <= child) {
+                    break;
+                }
+                if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                    child++;
+                }
+                if (key <= heapKeys[child]) {
+                    break;
+                }
+                heapNodes[parent] = heapNodes[child];
+                heapKeys[parent] = heapKeys[child];
+                parent = child;
+            }
+            heapNodes[parent] = node;
+            heapKeys[parent] = key;
+        }
+    }
+}
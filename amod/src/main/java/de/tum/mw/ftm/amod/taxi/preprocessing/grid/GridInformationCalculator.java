@@ -5,31 +5,24 @@ import com.google.common.base.Stopwatch;
 import de.tum.mw.ftm.amod.geom.GridCell;
 import de.tum.mw.ftm.amod.taxi.util.AmodeusUtil;
 import org.apache.log4j.Logger;
-import org.matsim.amodeus.config.FTMConfigGroup;
-import org.matsim.amodeus.plpc.DefaultParallelLeastCostPathCalculator;
-import org.matsim.amodeus.plpc.ParallelLeastCostPathCalculator;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
-import org.matsim.contrib.dvrp.path.VrpPathWithTravelData;
 import org.matsim.contrib.dvrp.path.VrpPaths;
 import org.matsim.core.network.NetworkUtils;
-import org.matsim.core.router.DijkstraFactory;
-import org.matsim.core.router.FastAStarLandmarksFactory;
-import org.matsim.core.router.costcalculators.OnlyTimeDependentTravelDisutility;
-import org.matsim.core.router.util.LeastCostPathCalculator;
-import org.matsim.core.router.util.TravelTime;
-import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
-import static de.tum.mw.ftm.amod.taxi.util.MatsimNetworkUtil.vrpPathIsConsistent;
-
 public class GridInformationCalculator {
     private final static Logger logger = Logger.getLogger(GridInformationCalculator.class);
     private GridCell[] gridCells;
@@ -70,62 +63,100 @@ public class GridInformationCalculator {
 
     }
 
+    /**
+     * Snaps every cell center once to its nearest link and runs one tree search per origin cell in parallel. As
+     * before, the matrices are symmetric: the value of the pair (i, j) with i < j is computed from cell i, which
+     * allows each search to stop once all cells j > i are settled.
+     * <p>
+     * The values are consistent with {@link VrpPaths#createPath} and {@link VrpPaths#calcDistance}: the path
+     * starts at the end of the start link and includes the end link.
+     */
     public void calculateGridInformation() throws IOException, ExecutionException, InterruptedException {
-        TravelTime travelTime = new FreeSpeedTravelTime();
-
-        ParallelLeastCostPathCalculator plcpc = DefaultParallelLeastCostPathCalculator.create(Runtime.getRuntime().availableProcessors(),
-                new FastAStarLandmarksFactory(2), network, new OnlyTimeDependentTravelDisutility(travelTime), travelTime);
-
-
-
-
-        int counter = 0;
         Stopwatch stopwatch = Stopwatch.createStarted();
-
-        LinkedList<Future<LeastCostPathCalculator.Path>> futurePaths = new LinkedList<>();
+        Link[] links = new Link[numberOfCells];
         for (int i = 0; i < numberOfCells; i++) {
-            for (int j = i + 1; j < numberOfCells; j++) {
-                Coord startCoord = new Coord(gridCells[i].getCenterX(), gridCells[i].getCenterY());
-                Coord endCoord = new Coord(gridCells[j].getCenterX(), gridCells[j].getCenterY());
-
-                Link startLink = NetworkUtils.getNearestLink(network, startCoord);
-                Link endLink = NetworkUtils.getNearestLink(network, endCoord);
-
-                futurePaths.addLast(plcpc.calcLeastCostPath(startLink.getToNode(), endLink.getFromNode(), 0.0, null, null));
-            }
+            links[i] = NetworkUtils.getNearestLink(network, new Coord(gridCells[i].getCenterX(), gridCells[i].getCenterY()));
         }
-
+        FreeSpeedTreeSearch freeSpeedTreeSearch = new FreeSpeedTreeSearch(network);
+        int[] origins = new int[numberOfCells];
+        int[] destinations = new int[numberOfCells];
         for (int i = 0; i < numberOfCells; i++) {
-            for (int j = i + 1; j < numberOfCells; j++) {
-                Coord startCoord = new Coord(gridCells[i].getCenterX(), gridCells[i].getCenterY());
-                Coord endCoord = new Coord(gridCells[j].getCenterX(), gridCells[j].getCenterY());
+            origins[i] = freeSpeedTreeSearch.getIndex(links[i].getToNode());
+            destinations[i] = freeSpeedTreeSearch.getIndex(links[i].getFromNode());
+        }
+        logger.info(String.format("Snapped %d cells to the network in %d ms", numberOfCells, stopwatch.elapsed(TimeUnit.MILLISECONDS)));
 
-                Link startLink = NetworkUtils.getNearestLink(network, startCoord);
-                Link endLink = NetworkUtils.getNearestLink(network, endCoord);
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+        ThreadLocal<FreeSpeedTreeSearch.Search> searches = ThreadLocal.withInitial(freeSpeedTreeSearch::newSearch);
+        List<Future<?>> futures = new ArrayList<>(numberOfCells);
+        for (int i = 0; i < numberOfCells; i++) {
+            final int startCell = i;
+            futures.add(executorService.submit(() -> calculateRow(startCell, links, origins, destinations, searches.get())));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        stopwatch.stop();
 
-                Future<LeastCostPathCalculator.Path> futurePath = futurePaths.removeFirst();
-                LeastCostPathCalculator.Path path = futurePath.get();
-                VrpPathWithTravelData vrpPathWithTravelData = VrpPaths.createPath(startLink, endLink, 0.0, path, travelTime);
-                GlobalAssert.that(vrpPathIsConsistent(vrpPathWithTravelData));
+        informationCalculated = true;
 
-                double distance = VrpPaths.calcDistance(vrpPathWithTravelData);
-                double freespeedTravelTime = vrpPathWithTravelData.getTravelTime();
+        int counter = numberOfCells * (numberOfCells - 1) / 2;
+        logger.info(String.format("Processed %d distances with %d threads in %d seconds", counter, numberOfThreads, stopwatch.elapsed(TimeUnit.SECONDS)));
+    }
 
-                distancesBetweenCells[i][j] = distance;
-                distancesBetweenCells[j][i] = distance;
+    private void calculateRow(int startCell, Link[] links, int[] origins, int[] destinations, FreeSpeedTreeSearch.Search search) {
+        Link startLink = links[startCell];
+        search.run(origins[startCell], Arrays.copyOfRange(destinations, startCell + 1, numberOfCells));
+        for (int endCell = startCell + 1; endCell < numberOfCells; endCell++) {
+            Link endLink = links[endCell];
+            double distance = 0.0;
+            double freespeedTravelTime = 0.0;
+            if (startLink != endLink) {
+                double treeTime = search.getTime(destinations[endCell]);
+                GlobalAssert.that(Double.isFinite(treeTime));
+                distance = search.getDistance(destinations[endCell]) + endLink.getLength();
+                freespeedTravelTime = VrpPaths.FIRST_LINK_TT + treeTime + endLink.getLength() / endLink.getFreespeed(0.0);
+            }
+            // each task writes disjoint entries of the matrices, visibility is guaranteed by Future.get
+            distancesBetweenCells[startCell][endCell] = distance;
+            distancesBetweenCells[endCell][startCell] = distance;
 
-                freeSpeedTravelTimes[i][j] = freespeedTravelTime;
-                freeSpeedTravelTimes[j][i] = freespeedTravelTime;
+            freeSpeedTravelTimes[startCell][endCell] = freespeedTravelTime;
+            freeSpeedTravelTimes[endCell][startCell] = freespeedTravelTime;
+        }
+    }
 
-                counter++;
+    /**
+     * Loads the grid information from storeFile if it was computed for the same grid and network before, else
+     * calculates and stores it.
+     *
+     * @return true if the grid information was loaded from the storeFile
+     */
+    public boolean loadOrCalculateGridInformation(File storeFile) throws IOException, ExecutionException, InterruptedException {
+        long gridHash = GridTravelMatrixStore.gridHash(gridCells);
+        long networkChecksum = GridTravelMatrixStore.networkChecksum(network);
+        Optional<GridTravelMatrix> stored = GridTravelMatrixStore.read(storeFile, gridHash, networkChecksum);
+        if (stored.isPresent() && stored.get().getNumberOfCells() == numberOfCells) {
+            for (int i = 0; i < numberOfCells; i++) {
+                System.arraycopy(stored.get().getDistances()[i], 0, distancesBetweenCells[i], 0, numberOfCells);
+                System.arraycopy(stored.get().getFreeSpeedTravelTimes()[i], 0, freeSpeedTravelTimes[i], 0, numberOfCells);
             }
+            informationCalculated = true;
+            logger.info("Reusing grid information from " + storeFile);
+            return true;
         }
-        plcpc.close();
-        stopwatch.stop();
-
-        informationCalculated = true;
+        calculateGridInformation();
+        GridTravelMatrixStore.write(storeFile, gridHash, networkChecksum, getGridTravelMatrix());
+        return false;
+    }
 
-        logger.info(String.format("Processed %d distances in %d seconds", counter, stopwatch.elapsed(TimeUnit.SECONDS)));
+    public GridTravelMatrix getGridTravelMatrix() {
+        return new GridTravelMatrix(getDistancesBetweenCells(), getFreeSpeedTravelTimes());
     }
 
     public double[][] getDistancesBetweenCells() {
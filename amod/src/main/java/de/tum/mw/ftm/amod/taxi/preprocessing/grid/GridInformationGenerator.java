@@ -33,9 +33,13 @@ public class GridInformationGenerator {
                 predictions.getNumberOfColumns(),
                 network);
 
-        gridInformationCalculator.calculateGridInformation();
+        String gridInformationFile = ftmConfigGroup.getGridInformationFile();
+        boolean reused = gridInformationCalculator.loadOrCalculateGridInformation(GridTravelMatrixStore.storeFileOf(gridInformationFile));
+        if (reused && new File(gridInformationFile).isFile()) {
+            return;
+        }
 
         GridInformationXMLWriter gridInformationXMLWriter = new GridInformationXMLWriter(gridInformationCalculator);
-        gridInformationXMLWriter.write(ftmConfigGroup.getGridInformationFile());
+        gridInformationXMLWriter.write(gridInformationFile);
     }
 }
@@ -0,0 +1,29 @@
+package de.tum.mw.ftm.amod.taxi.preprocessing.grid;
+
+import amodeus.amodeus.util.math.GlobalAssert;
+
+/**
+ * Distances and free speed travel times between the centers of all pairs of grid cells.
+ */
+public class GridTravelMatrix {
+    private final double[][] distances;
+    private final double[][] freeSpeedTravelTimes;
+
+    public GridTravelMatrix(double[][] distances, double[][] freeSpeedTravelTimes) {
+        GlobalAssert.that(distances.length == freeSpeedTravelTimes.length);
+        this.distances = distances;
+        this.freeSpeedTravelTimes = freeSpeedTravelTimes;
+    }
+
+    public int getNumberOfCells() {
+        return distances.length;
+    }
+
+    public double[][] getDistances() {
+        return distances;
+    }
+
+    public double[][] getFreeSpeedTravelTimes() {
+        return freeSpeedTravelTimes;
+    }
+}
@@ -0,0 +1,148 @@
+package de.tum.mw.ftm.amod.taxi.preprocessing.grid;
+
+import de.tum.mw.ftm.amod.geom.GridCell;
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Binary, memory-mappable store of a {@link GridTravelMatrix}. The file is keyed by a hash of the grid cells and a
+ * checksum of the network, a stored matrix is only returned if both match, i.e. the matrix is recomputed if the
+ * grid or the network has changed.
+ * <p>
+ * Layout (big endian): magic, version, grid hash, network checksum, number of cells n, n * n distances and n * n
+ * free speed travel times in row-major order.
+ */
+public class GridTravelMatrixStore {
+    private final static Logger logger = Logger.getLogger(GridTravelMatrixStore.class);
+    private static final int MAGIC = 0x47544D31; // "GTM1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4;
+    private static final String EXTENSION = ".bin";
+
+    /**
+     * @param gridInformationFile XML file of the grid information
+     * @return binary store next to the gridInformationFile
+     */
+    public static File storeFileOf(String gridInformationFile) {
+        return new File(gridInformationFile + EXTENSION);
+    }
+
+    public static long gridHash(GridCell[] gridCells) {
+        long hash = mix(gridCells.length);
+        for (GridCell gridCell : gridCells) {
+            hash = mix(hash ^ Double.doubleToLongBits(gridCell.getCenterX()));
+            hash = mix(hash ^ Double.doubleToLongBits(gridCell.getCenterY()));
+        }
+        return hash;
+    }
+
+    /**
+     * The checksum does not depend on the iteration order of the links.
+     *
+     * @return checksum of the topology, coordinates, lengths and free speeds of the network
+     */
+    public static long networkChecksum(Network network) {
+        long checksum = mix(network.getNodes().size()) ^ mix(network.getLinks().size() + 1L);
+        for (Link link : network.getLinks().values()) {
+            long hash = mix(link.getId().toString().hashCode());
+            hash = mix(hash ^ link.getFromNode().getId().toString().hashCode());
+            hash = mix(hash ^ link.getToNode().getId().toString().hashCode());
+            hash = mix(hash ^ Double.doubleToLongBits(link.getFromNode().getCoord().getX()));
+            hash = mix(hash ^ Double.doubleToLongBits(link.getFromNode().getCoord().getY()));
+            hash = mix(hash ^ Double.doubleToLongBits(link.getLength()));
+            hash = mix(hash ^ Double.doubleToLongBits(link.getFreespeed(0.0)));
+            checksum += hash;
+        }
+        return checksum;
+    }
+
+    /**
+     * Writes to a temporary file first, such that readers never see a partial store.
+     */
+    public static void write(File file, long gridHash, long networkChecksum, GridTravelMatrix gridTravelMatrix) throws IOException {
+        int numberOfCells = gridTravelMatrix.getNumberOfCells();
+        File temporary = new File(file.getPath() + ".tmp");
+        try (FileChannel fileChannel = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE, //
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = HEADER_BYTES + 2L * numberOfCells * numberOfCells * Double.BYTES;
+            MappedByteBuffer mappedByteBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            mappedByteBuffer.order(ByteOrder.BIG_ENDIAN);
+            mappedByteBuffer.putInt(MAGIC).putInt(VERSION).putLong(gridHash).putLong(networkChecksum).putInt(numberOfCells);
+            DoubleBuffer doubleBuffer = mappedByteBuffer.asDoubleBuffer();
+            for (double[] row : gridTravelMatrix.getDistances()) {
+                doubleBuffer.put(row);
+            }
+            for (double[] row : gridTravelMatrix.getFreeSpeedTravelTimes()) {
+                doubleBuffer.put(row);
+            }
+            mappedByteBuffer.force();
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        logger.info(String.format("Stored %dx%d grid travel matrix in %s", numberOfCells, numberOfCells, file));
+    }
+
+    /**
+     * @return matrix in the file, or empty if the file does not exist, is corrupt or belongs to another grid or
+     * network
+     */
+    public static Optional<GridTravelMatrix> read(File file, long gridHash, long networkChecksum) {
+        if (!file.isFile()) {
+            return Optional.empty();
+        }
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (fileChannel.size() < HEADER_BYTES) {
+                return Optional.empty();
+            }
+            MappedByteBuffer mappedByteBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+            mappedByteBuffer.order(ByteOrder.BIG_ENDIAN);
+            if (mappedByteBuffer.getInt() != MAGIC || mappedByteBuffer.getInt() != VERSION) {
+                logger.warn("Ignoring grid travel matrix of unknown format in " + file);
+                return Optional.empty();
+            }
+            if (mappedByteBuffer.getLong() != gridHash || mappedByteBuffer.getLong() != networkChecksum) {
+                logger.info("Grid travel matrix in " + file + " belongs to another grid or network");
+                return Optional.empty();
+            }
+            int numberOfCells = mappedByteBuffer.getInt();
+            if (fileChannel.size() != HEADER_BYTES + 2L * numberOfCells * numberOfCells * Double.BYTES) {
+                logger.warn("Ignoring truncated grid travel matrix in " + file);
+                return Optional.empty();
+            }
+            DoubleBuffer doubleBuffer = mappedByteBuffer.asDoubleBuffer();
+            double[][] distances = readMatrix(doubleBuffer, numberOfCells);
+            double[][] freeSpeedTravelTimes = readMatrix(doubleBuffer, numberOfCells);
+            return Optional.of(new GridTravelMatrix(distances, freeSpeedTravelTimes));
+        } catch (IOException e) {
+            logger.warn("Could not read grid travel matrix from " + file);
+            logger.error(e);
+            return Optional.empty();
+        }
+    }
+
+    private static double[][] readMatrix(DoubleBuffer doubleBuffer, int numberOfCells) {
+        double[][] matrix = new double[numberOfCells][numberOfCells];
+        for (double[] row : matrix) {
+            doubleBuffer.get(row);
+        }
+        return matrix;
+    }
+
+    /** finalizer of splitmix64 */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -2,6 +2,7 @@ package de.tum.mw.ftm.amod.taxi.preprocessing.grid;
 
 import amodeus.amod.ext.UserReferenceFrames;
 import de.tum.mw.ftm.amod.geom.GridCell;
+import de.tum.mw.ftm.amod.geom.UniformGridIndex;
 import de.tum.mw.ftm.amod.taxi.preprocessing.demand.CSVTaxiRide;
 import de.tum.mw.ftm.amod.taxi.preprocessing.demand.TaxiRide;
 import de.tum.mw.ftm.amod.taxi.util.AmodeusUtil;
@@ -23,11 +24,13 @@ public class TargetProbabilityCalculator {
     private final static Logger logger = Logger.getLogger(TargetProbabilityCalculator.class);
 
     private final GridCell[] gridCells;
+    private final UniformGridIndex gridIndex;
     private final FTMConfigGroup ftmConfigGroup;
     private final CoordinateTransformation coordinateTransformation;
 
     public TargetProbabilityCalculator(GridCell[] gridCells, FTMConfigGroup ftmConfigGroup) {
         this.gridCells = gridCells;
+        this.gridIndex = new UniformGridIndex(gridCells);
         this.ftmConfigGroup = ftmConfigGroup;
         this.coordinateTransformation = UserReferenceFrames.MUNICH.coords_fromWGS84();
     }
@@ -59,7 +62,7 @@ public class TargetProbabilityCalculator {
                     .collect(Collectors.toList());
 
 
-            int[] numberOfTripsEndingInCells = AmodeusUtil.getCoordsPerCell(destinationCoords, gridCells);
+            int[] numberOfTripsEndingInCells = AmodeusUtil.getCoordsPerCell(destinationCoords, gridIndex);
             long sumOfTrips = IntStream.of(numberOfTripsEndingInCells).sum();
             double[] probabilityForCurrentCell = new double[gridCells.length];
             for (int endCellIndex = 0; endCellIndex < gridCells.length; endCellIndex++) {
@@ -103,7 +103,7 @@ public class MunichLinkSpeedsGeneratorParallel {
         System.out.println("Number of trips: " + filtered_trips.size());
         new FindCongestionIterativeParallel(network, db, processingDir, lsData, filtered_trips, maxIter, //
                 tolerance, epsilon1Start, epsilon1Target,
-                RANDOM, dt, Cost::max, filtered_trips.size());
+                RANDOM, dt, Cost.MAX, filtered_trips.size());
     }
 
 }
@@ -8,6 +8,7 @@ import amodeus.amodeus.util.io.MultiFileTools;
 import amodeus.amodeus.util.math.GlobalAssert;
 import com.google.common.annotations.VisibleForTesting;
 import de.tum.mw.ftm.amod.geom.GridCell;
+import de.tum.mw.ftm.amod.geom.UniformGridIndex;
 import de.tum.mw.ftm.amod.taxi.preprocessing.ranks.TaxiRank;
 import org.apache.commons.lang3.ArrayUtils;
 import org.locationtech.jts.geom.*;
@@ -137,6 +138,66 @@ public class AmodeusUtil {
         return taxisWithCellAsTarget ;
     }
 
+    /**
+     * Same result as {@link #getCoordsPerCell(List, GridCell[])} with the cells of the grid index, each coordinate
+     * is mapped to its cell by arithmetic.
+     */
+    public static int[] getCoordsPerCell(List<Coord> coords, UniformGridIndex gridIndex) {
+        int[] coordsPerCell = new int[gridIndex.getNumberOfCells()];
+        for (Coord coord : coords) {
+            int cellIndex = gridIndex.getCellIndex(coord);
+            if (cellIndex != UniformGridIndex.OUTSIDE) {
+                coordsPerCell[cellIndex] += 1;
+            }
+        }
+        return coordsPerCell;
+    }
+
+    public static int[] getNumberOfTaxisInsideCells(Collection<RoboTaxi> taxis, UniformGridIndex gridIndex) {
+        int[] taxisPerCell = new int[gridIndex.getNumberOfCells()];
+        for (RoboTaxi taxi : taxis) {
+            int cellIndex = gridIndex.getCellIndex(taxi.getDivertableLocation());
+            if (cellIndex != UniformGridIndex.OUTSIDE) {
+                taxisPerCell[cellIndex] += 1;
+            }
+        }
+        return taxisPerCell;
+    }
+
+    /**
+     * Same result as {@link #getTaxisInsideCells(Collection, GridCell[])} with the cells of the grid index, the
+     * divertable location of each taxi is mapped to its cell with the precomputed cell of the link.
+     */
+    public static List<List<RoboTaxi>> getTaxisInsideCells(Collection<RoboTaxi> taxis, UniformGridIndex gridIndex) {
+        List<List<RoboTaxi>> taxisInsideCells = emptyListPerCell(gridIndex);
+        for (RoboTaxi taxi : taxis) {
+            int cellIndex = gridIndex.getCellIndex(taxi.getDivertableLocation());
+            if (cellIndex != UniformGridIndex.OUTSIDE) {
+                taxisInsideCells.get(cellIndex).add(taxi);
+            }
+        }
+        return taxisInsideCells;
+    }
+
+    public static List<List<RoboTaxi>> getTaxisByTargetCells(Collection<RoboTaxi> taxis, UniformGridIndex gridIndex) {
+        List<List<RoboTaxi>> taxisWithCellAsTarget = emptyListPerCell(gridIndex);
+        for (RoboTaxi taxi : taxis) {
+            int cellIndex = gridIndex.getCellIndex(taxi.getCurrentDriveDestination());
+            if (cellIndex != UniformGridIndex.OUTSIDE) {
+                taxisWithCellAsTarget.get(cellIndex).add(taxi);
+            }
+        }
+        return taxisWithCellAsTarget;
+    }
+
+    private static List<List<RoboTaxi>> emptyListPerCell(UniformGridIndex gridIndex) {
+        List<List<RoboTaxi>> listPerCell = new ArrayList<>(gridIndex.getNumberOfCells());
+        for (int i = 0; i < gridIndex.getNumberOfCells(); i++) {
+            listPerCell.add(new ArrayList<>());
+        }
+        return listPerCell;
+    }
+
     public static GridCell[] createEvenSpacedGrid(double minX, double maxX, double minY, double maxY,
                                                   int numberOfColumns, int numberOfRows) {
         GlobalAssert.that(maxX > minX);
@@ -168,6 +229,22 @@ public class AmodeusUtil {
 
         return getCoordsPerCell(destinationCoordsOfTaxisArrivingBetweenLimits, cells);
     }
+    public static int[] getNumberOfFutureTaxisArrivingInGridCell(Collection<RoboTaxi> taxis, UniformGridIndex gridIndex,
+                                                                 long lowerTimeLimit, long upperTimeLimit) {
+        int[] taxisPerCell = new int[gridIndex.getNumberOfCells()];
+        for (RoboTaxi roboTaxi : taxis) {
+            Task currentTask = roboTaxi.getSchedule().getCurrentTask();
+            if (currentTask.getEndTime() >= lowerTimeLimit && currentTask.getEndTime() < upperTimeLimit
+                    && !(currentTask instanceof AmodeusPickupTask)) {
+                int cellIndex = gridIndex.getCellIndex(roboTaxi.getCurrentDriveDestination());
+                if (cellIndex != UniformGridIndex.OUTSIDE) {
+                    taxisPerCell[cellIndex] += 1;
+                }
+            }
+        }
+        return taxisPerCell;
+    }
+
     public static long getNumberOfFutureTaxisArrivingInPolygon(Collection<RoboTaxi> taxis, Polygon polygon,
                                                                  long lowerTimeLimit, long upperTimeLimit) {
         List<Coord> destinationCoordsOfTaxisArrivingBetweenLimits = taxis.stream().filter(roboTaxi -> roboTaxi.getSchedule().getCurrentTask().getEndTime() >= lowerTimeLimit
@@ -288,6 +365,13 @@ public class AmodeusUtil {
         return closestCell;
     }
 
+    /**
+     * Same result as {@link #getClosestGridCell(GridCell[], Coord)} with the cells of the grid index.
+     */
+    public static GridCell getClosestGridCell(UniformGridIndex gridIndex, Coord location) {
+        return gridIndex.getGridCell(gridIndex.getClosestCellIndex(location.getX(), location.getY()));
+    }
+
     public static Map.Entry<BorderOrientation, Map.Entry<Polygon, Coordinate>> getClosestBorderPolygon(Map<BorderOrientation, Polygon> polygons, Coord location) {
         double minDistance = Double.POSITIVE_INFINITY;
         Map.Entry<BorderOrientation, Map.Entry<Polygon, Coordinate>> closestPolygonPair = null;
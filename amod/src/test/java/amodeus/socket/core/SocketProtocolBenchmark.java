@@ -0,0 +1,141 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.socket.core;
+
+import amodeus.amodeus.dispatcher.core.RoboTaxiStatus;
+import amodeus.amodeus.util.net.StringSocket;
+import ch.ethz.idsc.tensor.RealScalar;
+import ch.ethz.idsc.tensor.Tensor;
+import ch.ethz.idsc.tensor.Tensors;
+import ch.ethz.idsc.tensor.io.StringScalar;
+import ch.ethz.idsc.tensor.qty.Boole;
+
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/** round-trip of status and commands between a host and a loopback client for every {@link SocketProtocol}
+ * with the fleet size of the Munich scenario, i.e., 3000 taxis and 300 open requests per dispatching period.
+ * 30% of the taxis move between periods. The host side mimics {@link SocketDispatcherHost}, the client
+ * answers with a pickup for every request and a rebalance for every tenth request.
+ * The first periods serve as warm up of the JVM. Arguments: [taxis [requests]] with requests less than taxis / 2 */
+/* package */ enum SocketProtocolBenchmark {
+    ;
+    private static final int PERIODS = 300;
+    private static final int WARMUP = 100;
+    private static final double MOVING = 0.3;
+    private static final double[] SCORE = { 1, 2, 3 };
+
+    public static void main(String[] args) throws Exception {
+        int taxis = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        for (SocketProtocol socketProtocol : SocketProtocol.values())
+            System.out.println(String.format("%-12s %7.3f[ms/period]", socketProtocol, run(socketProtocol, taxis, requests)));
+    }
+
+    /** @return mean duration of a dispatching period at the host in milliseconds */
+    private static double run(SocketProtocol socketProtocol, int taxis, int requests) throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            Thread thread = new Thread(() -> {
+                try {
+                    client(serverSocket.getLocalPort(), socketProtocol, taxis);
+                } catch (Exception exception) {
+                    exception.printStackTrace();
+                }
+            });
+            thread.start();
+            long nanos = 0;
+            try (StringSocket stringSocket = new StringSocket(serverSocket.accept())) {
+                Random random = new Random(1);
+                double[] longitudes = random.doubles(taxis, 11.4, 11.8).toArray();
+                double[] latitudes = random.doubles(taxis, 48.0, 48.3).toArray();
+                RoboTaxiStatus[] status = IntStream.range(0, taxis).mapToObj(taxi -> RoboTaxiStatus.STAY).toArray(RoboTaxiStatus[]::new);
+                SocketStatusEncoder socketStatusEncoder = new SocketStatusEncoder(socketProtocol == SocketProtocol.BINARY_DELTA);
+                for (int period = 0; period < PERIODS; ++period) {
+                    for (int taxi = 0; taxi < taxis; ++taxi)
+                        if (random.nextDouble() < MOVING) {
+                            longitudes[taxi] += 0.001 * random.nextGaussian();
+                            latitudes[taxi] += 0.001 * random.nextGaussian();
+                            status[taxi] = RoboTaxiStatus.values()[random.nextInt(RoboTaxiStatus.values().length)];
+                        }
+                    double[][] openRequests = new double[requests][];
+                    for (int request = 0; request < requests; ++request)
+                        openRequests[request] = new double[] { period * 30, 11.4 + 0.4 * random.nextDouble(), 48.0 + 0.3 * random.nextDouble(), //
+                                11.4 + 0.4 * random.nextDouble(), 48.0 + 0.3 * random.nextDouble() };
+                    final int offset = period * requests;
+
+                    long tic = System.nanoTime();
+                    if (socketProtocol.isBinary()) {
+                        socketStatusEncoder.begin(period * 30);
+                        for (int taxi = 0; taxi < taxis; ++taxi)
+                            socketStatusEncoder.addTaxi(taxi, longitudes[taxi], latitudes[taxi], status[taxi], true);
+                        for (int request = 0; request < requests; ++request) {
+                            double[] values = openRequests[request];
+                            socketStatusEncoder.addRequest(offset + request, values[0], values[1], values[2], values[3], values[4]);
+                        }
+                        socketStatusEncoder.setScore(SCORE);
+                        stringSocket.writeFrame(socketStatusEncoder.encode());
+                        SocketBinaryCommands commands = SocketBinaryCommands.decode(stringSocket.readFrame());
+                        CommandConsistency.check(commands);
+                    } else {
+                        Tensor tensor = Tensors.of(RealScalar.of(period * 30), //
+                                Tensor.of(IntStream.range(0, taxis).mapToObj(taxi -> Tensors.of(RealScalar.of(taxi), //
+                                        Tensors.vector(longitudes[taxi], latitudes[taxi]), StringScalar.of(status[taxi].name()), Boole.of(true)))), //
+                                Tensor.of(IntStream.range(0, requests).mapToObj(request -> Tensors.of(RealScalar.of(offset + request), //
+                                        RealScalar.of(openRequests[request][0]), //
+                                        Tensors.vector(openRequests[request][1], openRequests[request][2]), //
+                                        Tensors.vector(openRequests[request][3], openRequests[request][4])))), //
+                                Tensors.vectorDouble(SCORE));
+                        stringSocket.writeln(tensor);
+                        Tensor commands = Tensors.fromString(stringSocket.readLine());
+                        CommandConsistency.check(commands);
+                    }
+                    if (WARMUP <= period)
+                        nanos += System.nanoTime() - tic;
+                }
+                if (socketProtocol.isBinary())
+                    stringSocket.writeFrame(ByteBuffer.allocate(0));
+                else
+                    stringSocket.writeln(Tensors.empty());
+            }
+            thread.join();
+            return nanos * 1e-6 / (PERIODS - WARMUP);
+        }
+    }
+
+    private static void client(int port, SocketProtocol socketProtocol, int taxis) throws Exception {
+        try (StringSocket stringSocket = new StringSocket(new Socket("localhost", port))) {
+            if (socketProtocol.isBinary()) {
+                SocketBinaryCommands commands = new SocketBinaryCommands();
+                while (true) {
+                    ByteBuffer frame = stringSocket.readFrame();
+                    if (!frame.hasRemaining()) // host signals that the simulation is finished
+                        break;
+                    SocketBinaryStatus status = SocketBinaryStatus.decode(frame);
+                    commands.clear();
+                    for (int request = 0; request < status.requestIds.length; ++request) {
+                        commands.addPickup(request, status.requestIds[request]);
+                        if (request % 10 == 0)
+                            commands.addRebalance(taxis - 1 - request, status.requestToLongitudes[request], status.requestToLatitudes[request]);
+                    }
+                    stringSocket.writeFrame(commands.encode());
+                }
+            } else
+                while (true) {
+                    Tensor status = Tensors.fromString(stringSocket.readLine());
+                    if (Tensors.isEmpty(status)) // host signals that the simulation is finished
+                        break;
+                    Tensor requests = status.get(2);
+                    Tensor pickups = Tensors.empty();
+                    Tensor rebalances = Tensors.empty();
+                    for (int request = 0; request < requests.length(); ++request) {
+                        pickups.append(Tensors.of(RealScalar.of(request), requests.get(request).Get(0)));
+                        if (request % 10 == 0)
+                            rebalances.append(Tensors.of(RealScalar.of(taxis - 1 - request), requests.get(request).get(3)));
+                    }
+                    stringSocket.writeln(Tensors.of(pickups, rebalances));
+                }
+        }
+    }
+}
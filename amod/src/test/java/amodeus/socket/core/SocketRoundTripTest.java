@@ -0,0 +1,198 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.socket.core;
+
+import amodeus.amodeus.dispatcher.core.RoboTaxiStatus;
+import amodeus.amodeus.util.net.StringSocket;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.*;
+
+/** round trips of lines and frames over a loopback connection and of the binary status and commands */
+public class SocketRoundTripTest {
+    @Test
+    public void testLinesAndFrames() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             StringSocket client = new StringSocket(new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort()));
+             StringSocket host = new StringSocket(serverSocket.accept())) {
+            client.writeln("{\"config\"}");
+            client.writeFrame(ByteBuffer.wrap(new byte[] { '\r', '\n', 0, -1 }));
+            client.writeFrame(ByteBuffer.allocate(0));
+            client.writeln("");
+            client.writeln("last");
+            assertEquals("{\"config\"}", host.readLine());
+            assertArrayEquals(new byte[] { '\r', '\n', 0, -1 }, host.readFrame().array());
+            assertEquals(0, host.readFrame().remaining());
+            assertEquals("", host.readLine());
+            assertEquals("last", host.readLine());
+
+            ByteBuffer byteBuffer = ByteBuffer.allocate(6);
+            byteBuffer.put((byte) 7).putInt(42).put((byte) 8);
+            byteBuffer.position(1).limit(5);
+            host.writeFrame(byteBuffer);
+            host.writeln("reply");
+            assertEquals(42, client.readFrame().getInt());
+            assertEquals(1, byteBuffer.position());
+            assertEquals("reply", client.readLine());
+        }
+    }
+
+    /** '\n', '\r' and "\r\n" terminate a line, also if a frame follows the line */
+    @Test
+    public void testLineTerminators() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+             StringSocket host = new StringSocket(serverSocket.accept())) {
+            DataOutputStream output = new DataOutputStream(client.getOutputStream());
+            output.write("unix\nmac\rwindows\r\n\r\rcr\r".getBytes(Charset.defaultCharset()));
+            output.writeInt(1);
+            output.write(5);
+            output.write("crlf\r\n".getBytes(Charset.defaultCharset()));
+            output.writeInt(0);
+            output.write("end".getBytes(Charset.defaultCharset()));
+            output.flush();
+            client.shutdownOutput();
+            assertEquals("unix", host.readLine());
+            assertEquals("mac", host.readLine());
+            assertEquals("windows", host.readLine());
+            assertEquals("", host.readLine());
+            assertEquals("", host.readLine());
+            assertEquals("cr", host.readLine());
+            assertEquals(5, host.readFrame().get());
+            assertEquals("crlf", host.readLine());
+            assertEquals(0, host.readFrame().remaining());
+            assertEquals("end", host.readLine());
+            assertNull(host.readLine());
+        }
+    }
+
+    @Test
+    public void testInvalidFrameLength() throws Exception {
+        for (int length : new int[] { -1, Integer.MIN_VALUE, StringSocket.MAX_FRAME_LENGTH + 1 })
+            try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                 Socket client = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+                 StringSocket host = new StringSocket(serverSocket.accept())) {
+                DataOutputStream output = new DataOutputStream(client.getOutputStream());
+                output.writeInt(length);
+                output.flush();
+                try {
+                    host.readFrame();
+                    fail();
+                } catch (IOException ioException) {
+                    assertTrue(ioException.getMessage().contains(Integer.toString(length)));
+                }
+            }
+    }
+
+    @Test
+    public void testStatus() {
+        SocketStatusEncoder socketStatusEncoder = new SocketStatusEncoder(false);
+        socketStatusEncoder.begin(30);
+        socketStatusEncoder.addTaxi(0, 11.5, 48.1, RoboTaxiStatus.STAY, true);
+        socketStatusEncoder.addTaxi(3, 11.6, 48.2, RoboTaxiStatus.DRIVEWITHCUSTOMER, false);
+        socketStatusEncoder.addRequest(7, 12.5, 11.55, 48.15, 11.65, 48.25);
+        socketStatusEncoder.setScore(new double[] { 1, 2.5, -3 });
+        SocketBinaryStatus socketBinaryStatus = SocketBinaryStatus.decode(socketStatusEncoder.encode());
+        assertEquals(30, socketBinaryStatus.time);
+        assertFalse(socketBinaryStatus.delta);
+        assertArrayEquals(new int[] { 0, 3 }, socketBinaryStatus.taxiIds);
+        assertArrayEquals(new double[] { 11.5, 11.6 }, socketBinaryStatus.taxiLongitudes, 0.0);
+        assertArrayEquals(new double[] { 48.1, 48.2 }, socketBinaryStatus.taxiLatitudes, 0.0);
+        assertEquals(RoboTaxiStatus.STAY, socketBinaryStatus.getTaxiStatus(0));
+        assertEquals(RoboTaxiStatus.DRIVEWITHCUSTOMER, socketBinaryStatus.getTaxiStatus(1));
+        assertTrue(socketBinaryStatus.taxiDivertable[0]);
+        assertFalse(socketBinaryStatus.taxiDivertable[1]);
+        assertArrayEquals(new int[] { 7 }, socketBinaryStatus.requestIds);
+        assertArrayEquals(new double[] { 12.5 }, socketBinaryStatus.requestSubmissionTimes, 0.0);
+        assertArrayEquals(new double[] { 11.55 }, socketBinaryStatus.requestFromLongitudes, 0.0);
+        assertArrayEquals(new double[] { 48.15 }, socketBinaryStatus.requestFromLatitudes, 0.0);
+        assertArrayEquals(new double[] { 11.65 }, socketBinaryStatus.requestToLongitudes, 0.0);
+        assertArrayEquals(new double[] { 48.25 }, socketBinaryStatus.requestToLatitudes, 0.0);
+        assertArrayEquals(new double[] { 1, 2.5, -3 }, socketBinaryStatus.score, 0.0);
+
+        /** without deltas every taxi is encoded again */
+        socketStatusEncoder.begin(60);
+        socketStatusEncoder.addTaxi(0, 11.5, 48.1, RoboTaxiStatus.STAY, true);
+        socketBinaryStatus = SocketBinaryStatus.decode(socketStatusEncoder.encode());
+        assertEquals(60, socketBinaryStatus.time);
+        assertArrayEquals(new int[] { 0 }, socketBinaryStatus.taxiIds);
+        assertEquals(0, socketBinaryStatus.requestIds.length);
+        assertEquals(0, socketBinaryStatus.score.length);
+    }
+
+    /** only taxis with a changed location, status or divertability are encoded with deltas */
+    @Test
+    public void testStatusDelta() {
+        SocketStatusEncoder socketStatusEncoder = new SocketStatusEncoder(true);
+        socketStatusEncoder.begin(30);
+        for (int id = 0; id < 40; ++id)
+            socketStatusEncoder.addTaxi(id, 11 + id * 0.01, 48, RoboTaxiStatus.STAY, true);
+        SocketBinaryStatus socketBinaryStatus = SocketBinaryStatus.decode(socketStatusEncoder.encode());
+        assertTrue(socketBinaryStatus.delta);
+        assertEquals(40, socketBinaryStatus.taxiIds.length);
+
+        socketStatusEncoder.begin(60);
+        for (int id = 0; id < 40; ++id)
+            if (id == 5)
+                socketStatusEncoder.addTaxi(id, 11 + id * 0.01, 48.01, RoboTaxiStatus.STAY, true);
+            else if (id == 17)
+                socketStatusEncoder.addTaxi(id, 11 + id * 0.01, 48, RoboTaxiStatus.DRIVETOCUSTOMER, true);
+            else if (id == 23)
+                socketStatusEncoder.addTaxi(id, 11 + id * 0.01, 48, RoboTaxiStatus.STAY, false);
+            else
+                socketStatusEncoder.addTaxi(id, 11 + id * 0.01, 48, RoboTaxiStatus.STAY, true);
+        /** a taxi that was not sent before */
+        socketStatusEncoder.addTaxi(100, 11.2, 48.2, RoboTaxiStatus.OFFSERVICE, false);
+        assertEquals(4, socketStatusEncoder.taxis());
+        socketBinaryStatus = SocketBinaryStatus.decode(socketStatusEncoder.encode());
+        assertTrue(socketBinaryStatus.delta);
+        assertEquals(60, socketBinaryStatus.time);
+        assertArrayEquals(new int[] { 5, 17, 23, 100 }, socketBinaryStatus.taxiIds);
+        assertEquals(48.01, socketBinaryStatus.taxiLatitudes[0], 0.0);
+        assertEquals(RoboTaxiStatus.DRIVETOCUSTOMER, socketBinaryStatus.getTaxiStatus(1));
+        assertFalse(socketBinaryStatus.taxiDivertable[2]);
+        assertEquals(RoboTaxiStatus.OFFSERVICE, socketBinaryStatus.getTaxiStatus(3));
+        assertEquals(11.2, socketBinaryStatus.taxiLongitudes[3], 0.0);
+
+        /** an unchanged period encodes no taxi */
+        socketStatusEncoder.begin(90);
+        socketStatusEncoder.addTaxi(5, 11.05, 48.01, RoboTaxiStatus.STAY, true);
+        socketStatusEncoder.addTaxi(100, 11.2, 48.2, RoboTaxiStatus.OFFSERVICE, false);
+        socketBinaryStatus = SocketBinaryStatus.decode(socketStatusEncoder.encode());
+        assertEquals(0, socketBinaryStatus.taxiIds.length);
+    }
+
+    @Test
+    public void testCommands() {
+        SocketBinaryCommands socketBinaryCommands = new SocketBinaryCommands();
+        for (int index = 0; index < 40; ++index)
+            socketBinaryCommands.addPickup(index, 1000 + index);
+        socketBinaryCommands.addRebalance(3, 11.5, 48.1);
+        socketBinaryCommands.addRebalance(9, -0.5, Double.MAX_VALUE);
+        SocketBinaryCommands decoded = SocketBinaryCommands.decode(socketBinaryCommands.encode());
+        assertEquals(40, decoded.pickups());
+        for (int index = 0; index < 40; ++index) {
+            assertEquals(index, decoded.pickupTaxi(index));
+            assertEquals(1000 + index, decoded.pickupRequest(index));
+        }
+        assertEquals(2, decoded.rebalances());
+        assertEquals(3, decoded.rebalanceTaxi(0));
+        assertEquals(11.5, decoded.rebalanceLongitude(0), 0.0);
+        assertEquals(48.1, decoded.rebalanceLatitude(0), 0.0);
+        assertEquals(9, decoded.rebalanceTaxi(1));
+        assertEquals(-0.5, decoded.rebalanceLongitude(1), 0.0);
+        assertEquals(Double.MAX_VALUE, decoded.rebalanceLatitude(1), 0.0);
+
+        socketBinaryCommands.clear();
+        decoded = SocketBinaryCommands.decode(socketBinaryCommands.encode());
+        assertEquals(0, decoded.pickups());
+        assertEquals(0, decoded.rebalances());
+    }
+}
@@ -0,0 +1,382 @@
+package de.tum.mw.ftm.amod.taxi.lp;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.matsim.amodeus.config.FTMConfigGroup.RebalancingSolverType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Cases of the rebalancing LP, which are run for every {@link RebalancingSolverType} by the subclasses.
+ */
+public abstract class AbstractRebalancingTest {
+    private int numberOfCells;
+    private int rebalancingSteps;
+    private RebalancingSolver rebalancingSolver;
+    private Random random;
+    private int[][][] expectedRebalancing;
+    private ArrayList<double[]> zeroDemand;
+    private int[] initialTaxiPlacement;
+    private int[][] occupiedTaxisBecomingUnoccupied;
+    private double[][] probabilityMatrix;
+    private double[][] distanceMatrix;
+    private double[][] travelTimes;
+
+    /** @return solver of the LP model under test */
+    protected abstract RebalancingSolverType getSolverType();
+
+    @Before
+    public void setUp() throws RebalancingModelException {
+        int rebalancingSeconds = 45 * 60;
+        int numberOfRows = 2;
+        int numberOfColumns = 2;
+        numberOfCells = numberOfRows * numberOfColumns;
+        rebalancingSteps = 3;
+        distanceMatrix = new double[numberOfCells][numberOfCells];
+        probabilityMatrix = new double[numberOfCells][numberOfCells];
+        travelTimes = new double[numberOfCells][numberOfCells];
+
+        for (double[] matrix : distanceMatrix) {
+            Arrays.fill(matrix, 1000);
+        }
+
+        for (double[] matrix : travelTimes) {
+            Arrays.fill(matrix, 100);
+        }
+
+        rebalancingSolver = new RebalancingSolver(rebalancingSeconds,
+                numberOfRows,
+                numberOfColumns,
+                rebalancingSteps,
+                distanceMatrix,
+                0.1855,
+                12.26,
+                null,
+                0,
+                getSolverType());
+        rebalancingSolver.initialize();
+        random = new Random(42);
+
+        expectedRebalancing = new int[rebalancingSteps][numberOfCells][numberOfCells];
+
+
+        initialTaxiPlacement = new int[numberOfCells];
+        occupiedTaxisBecomingUnoccupied = new int[rebalancingSteps - 1][numberOfCells];
+        resetArrays();
+    }
+
+    private void resetArrays() {
+        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+            for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+                Arrays.fill(expectedRebalancing[timestep][cellIndex], 0);
+            }
+
+            if (timestep < rebalancingSteps - 1) {
+                Arrays.fill(occupiedTaxisBecomingUnoccupied[timestep], 0);
+            }
+        }
+
+        Arrays.fill(initialTaxiPlacement, 0);
+
+        for (int i = 0; i < distanceMatrix.length; i++) {
+            Arrays.fill(probabilityMatrix[i], 0);
+            probabilityMatrix[i][i] = 1;
+        }
+
+        zeroDemand = new ArrayList<>();
+        for (int i = 0; i < numberOfCells; i++) {
+            zeroDemand.add(new double[rebalancingSteps]);
+        }
+    }
+
+    @Test
+    public void noDemandAndThereforeNoRebalancing() throws RebalancingModelException {
+        for (int i = 0; i < initialTaxiPlacement.length; i++) {
+            initialTaxiPlacement[i] = random.nextInt(10);
+        }
+
+        for (int i = 0; i < rebalancingSteps - 1; i++) {
+            for (int j = 0; j < numberOfCells; j++) {
+                occupiedTaxisBecomingUnoccupied[i][j] = random.nextInt(10);
+            }
+        }
+
+        rebalancingSolver.updateModel(zeroDemand, initialTaxiPlacement, occupiedTaxisBecomingUnoccupied,
+                probabilityMatrix, travelTimes);
+
+        int[][][] rebalancing = rebalancingSolver.calculateRebalancing();
+        assertArrayEquals(expectedRebalancing, rebalancing);
+    }
+
+    @Test
+    public void supplyInDifferentCellAndThereforeOneTaxiRebalancing() throws RebalancingModelException {
+        ArrayList<double[]> predictedDemand = zeroDemand;
+        predictedDemand.get(0)[0] = 1;
+
+        initialTaxiPlacement[1] = 1;
+
+        expectedRebalancing[0][1][0] = 1;
+
+        rebalancingSolver.updateModel(predictedDemand, initialTaxiPlacement, occupiedTaxisBecomingUnoccupied,
+                probabilityMatrix, travelTimes);
+
+        int[][][] rebalancing = rebalancingSolver.calculateRebalancing();
+
+        assertArrayEquals(expectedRebalancing, rebalancing);
+    }
+
+    @Test
+    public void undersupplyAndThereforeNoRebalancing() throws RebalancingModelException {
+        ArrayList<double[]> predictedDemand = zeroDemand;
+
+        for (int i = 0; i < numberOfCells; i++) {
+            Arrays.fill(predictedDemand.get(i), 2);
+        }
+
+
+        Arrays.fill(initialTaxiPlacement, 1);
+
+        rebalancingSolver.updateModel(predictedDemand, initialTaxiPlacement, occupiedTaxisBecomingUnoccupied,
+                probabilityMatrix, travelTimes);
+
+        int[][][] rebalancing = rebalancingSolver.calculateRebalancing();
+
+        assertArrayEquals(expectedRebalancing, rebalancing);
+    }
+
+    @Test
+    public void oversupplyAndThereforeNoRebalancing() throws RebalancingModelException {
+        ArrayList<double[]> predictedDemand = zeroDemand;
+
+        for (int i = 0; i < numberOfCells; i++) {
+            Arrays.fill(predictedDemand.get(i), 1);
+        }
+
+
+        Arrays.fill(initialTaxiPlacement, 2);
+
+        rebalancingSolver.updateModel(predictedDemand, initialTaxiPlacement, occupiedTaxisBecomingUnoccupied,
+                probabilityMatrix, travelTimes);
+
+        int[][][] rebalancing = rebalancingSolver.calculateRebalancing();
+
+        assertArrayEquals(expectedRebalancing, rebalancing);
+    }
+
+    @Test
+    public void oversupplyInOneCellRebalancingToOtherCells() throws RebalancingModelException {
+        ArrayList<double[]> predictedDemand = zeroDemand;
+
+        for (int i = 0; i < numberOfCells; i++) {
+            predictedDemand.get(i)[0] = 1;
+        }
+
+
+        initialTaxiPlacement[0] = 20;
+
+        rebalancingSolver.updateModel(predictedDemand, initialTaxiPlacement, occupiedTaxisBecomingUnoccupied,
+                probabilityMatrix, travelTimes);
+
+        expectedRebalancing[0][0][1] = 1;
+        expectedRebalancing[0][0][2] = 1;
+        expectedRebalancing[0][0][3] = 1;
+
+        int[][][] rebalancing = rebalancingSolver.calculateRebalancing();
+
+        assertArrayEquals(expectedRebalancing, rebalancing);
+    }
+
+    @Test
+    public void taxiBecomingUnoccupiedAndThereforeNoRebalancing() throws RebalancingModelException {
+        ArrayList<double[]> predictedDemand = zeroDemand;
+
+        predictedDemand.get(0)[0] = 1;
+
+
+        initialTaxiPlacement[1] = 1;
+
+        occupiedTaxisBecomingUnoccupied[0][0] = 1;
+
+        rebalancingSolver.updateModel(predictedDemand, initialTaxiPlacement, occupiedTaxisBecomingUnoccupied,
+                probabilityMatrix, travelTimes);
+
+        int[][][] rebalancing = rebalancingSolver.calculateRebalancing();
+
+        assertArrayEquals(expectedRebalancing, rebalancing);
+    }
+
+    @Test
+    public void rebalancingDistanceTooLargeAndThereforeNoRebalancing() throws RebalancingModelException {
+        int numberOfRows = 2;
+        int numberOfColumns = 2;
+        double[][] distanceMatrix = new double[numberOfCells][numberOfCells];
+        double[][] probabilityMatrix = new double[numberOfCells][numberOfCells];
+        for (int i = 0; i < distanceMatrix.length; i++) {
+            Arrays.fill(distanceMatrix[i], 10000);
+            Arrays.fill(probabilityMatrix[i], 1.0 / (numberOfColumns * numberOfRows));
+        }
+
+        RebalancingSolver rebalancingSolver = new RebalancingSolver(60,
+                numberOfRows,
+                numberOfColumns,
+                rebalancingSteps,
+                distanceMatrix,
+                0.1855,
+                12.26,
+                null,
+                0,
+                getSolverType());
+        rebalancingSolver.initialize();
+
+        ArrayList<double[]> predictedDemand = zeroDemand;
+
+        predictedDemand.get(0)[0] = 1;
+
+        initialTaxiPlacement[1] = 1;
+
+        rebalancingSolver.updateModel(predictedDemand, initialTaxiPlacement, occupiedTaxisBecomingUnoccupied,
+                probabilityMatrix, travelTimes);
+
+        int[][][] rebalancing = rebalancingSolver.calculateRebalancing();
+
+        assertArrayEquals(expectedRebalancing, rebalancing);
+    }
+
+    @Test
+    public void tripFromPreviousTimestepFulfillsDemand() throws RebalancingModelException {
+        for (int i = 0; i < distanceMatrix.length; i++) {
+            Arrays.fill(probabilityMatrix[i], 0);
+        }
+
+        probabilityMatrix[1][0] = 1;
+
+        rebalancingSolver.initialize();
+
+        ArrayList<double[]> predictedDemand = zeroDemand;
+
+        predictedDemand.get(0)[0] = 1;
+        predictedDemand.get(1)[0] = 1;
+
+        initialTaxiPlacement[1] = 1;
+        initialTaxiPlacement[2] = 1;
+
+        rebalancingSolver.updateModel(predictedDemand, initialTaxiPlacement, occupiedTaxisBecomingUnoccupied,
+                probabilityMatrix, travelTimes);
+
+        int[][][] rebalancing = rebalancingSolver.calculateRebalancing();
+
+        assertArrayEquals(expectedRebalancing, rebalancing);
+    }
+
+    @Test
+    public void updatedModelEqualsNewModel() throws RebalancingModelException {
+        modelUpdatedInPlaceEqualsNewModel(0);
+    }
+
+    @Test
+    public void updatedModelWithRebalancingRadiusEqualsNewModel() throws RebalancingModelException {
+        modelUpdatedInPlaceEqualsNewModel(500);
+    }
+
+    /**
+     * Solves two consecutive periods with one model, i.e., the second period changes the right hand sides, the fixed
+     * bounds and the travel time dependent constraints in place, and compares the second optimum with the optimum of a
+     * new model of the second period.
+     */
+    private void modelUpdatedInPlaceEqualsNewModel(int rebalancingRadiusSeconds) throws RebalancingModelException {
+        Random random = new Random(7);
+        double[][] firstTravelTimes = randomTravelTimes(random);
+        double[][] secondTravelTimes = randomTravelTimes(random);
+        double[][] firstProbabilities = randomProbabilities(random);
+        double[][] secondProbabilities = randomProbabilities(random);
+
+        RebalancingSolver updatedSolver = createSolver(firstTravelTimes, rebalancingRadiusSeconds);
+        updatedSolver.initialize();
+        updatedSolver.updateModel(randomDemand(random), randomPlacement(random), randomUnoccupied(random),
+                firstProbabilities, firstTravelTimes);
+        updatedSolver.calculateRebalancing();
+
+        ArrayList<double[]> demand = randomDemand(random);
+        int[] placement = randomPlacement(random);
+        int[][] unoccupied = randomUnoccupied(random);
+        updatedSolver.updateModel(demand, placement, unoccupied, secondProbabilities, secondTravelTimes);
+        int[][][] updatedRebalancing = updatedSolver.calculateRebalancing();
+
+        RebalancingSolver newSolver = createSolver(firstTravelTimes, rebalancingRadiusSeconds);
+        newSolver.initialize();
+        newSolver.updateModel(demand, placement, unoccupied, secondProbabilities, secondTravelTimes);
+        int[][][] newRebalancing = newSolver.calculateRebalancing();
+
+        // both solvers stop at a relative MIP gap of 1e-2
+        double objectiveValue = newSolver.getObjectiveValue();
+        assertEquals(objectiveValue, updatedSolver.getObjectiveValue(), 1e-2 * Math.max(1, Math.abs(objectiveValue)));
+        for (int timestep = 0; timestep < rebalancingSteps; timestep++) {
+            for (int startCell = 0; startCell < numberOfCells; startCell++) {
+                for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                    boolean forbidden = startCell == endCell || timestep == rebalancingSteps - 1
+                            || secondTravelTimes[startCell][endCell] > 45 * 60
+                            || (rebalancingRadiusSeconds > 0 && firstTravelTimes[startCell][endCell] > rebalancingRadiusSeconds);
+                    if (forbidden) {
+                        assertEquals(0, updatedRebalancing[timestep][startCell][endCell]);
+                        assertEquals(0, newRebalancing[timestep][startCell][endCell]);
+                    }
+                }
+            }
+        }
+    }
+
+    private RebalancingSolver createSolver(double[][] travelTimes, int rebalancingRadiusSeconds) {
+        return new RebalancingSolver(45 * 60, 2, 2, rebalancingSteps, distanceMatrix, 0.1855, 12.26,
+                travelTimes, rebalancingRadiusSeconds, getSolverType());
+    }
+
+    private double[][] randomTravelTimes(Random random) {
+        double[][] travelTimes = new double[numberOfCells][numberOfCells];
+        for (int startCell = 0; startCell < numberOfCells; startCell++) {
+            for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                travelTimes[startCell][endCell] = startCell == endCell ? 0 : 100 + random.nextInt(3000);
+            }
+        }
+        return travelTimes;
+    }
+
+    private double[][] randomProbabilities(Random random) {
+        double[][] probabilities = new double[numberOfCells][numberOfCells];
+        for (double[] row : probabilities) {
+            double sum = 0;
+            for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                row[endCell] = random.nextDouble();
+                sum += row[endCell];
+            }
+            for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                row[endCell] /= sum;
+            }
+        }
+        return probabilities;
+    }
+
+    private ArrayList<double[]> randomDemand(Random random) {
+        ArrayList<double[]> demand = new ArrayList<>();
+        for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+            demand.add(random.doubles(rebalancingSteps, 0, 10).toArray());
+        }
+        return demand;
+    }
+
+    private int[] randomPlacement(Random random) {
+        return random.ints(numberOfCells, 0, 10).toArray();
+    }
+
+    private int[][] randomUnoccupied(Random random) {
+        int[][] unoccupied = new int[rebalancingSteps - 1][];
+        for (int timestep = 0; timestep < rebalancingSteps - 1; timestep++) {
+            unoccupied[timestep] = random.ints(numberOfCells, 0, 5).toArray();
+        }
+        return unoccupied;
+    }
+}
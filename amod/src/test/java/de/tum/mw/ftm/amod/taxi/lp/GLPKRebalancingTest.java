@@ -0,0 +1,11 @@
+package de.tum.mw.ftm.amod.taxi.lp;
+
+import org.matsim.amodeus.config.FTMConfigGroup.RebalancingSolverType;
+
+/** cases of {@link AbstractRebalancingTest} with the GLPK model, which runs without license */
+public class GLPKRebalancingTest extends AbstractRebalancingTest {
+    @Override
+    protected RebalancingSolverType getSolverType() {
+        return RebalancingSolverType.GLPK;
+    }
+}
@@ -0,0 +1,83 @@
+package de.tum.mw.ftm.amod.taxi.lp;
+
+import org.matsim.amodeus.config.FTMConfigGroup.RebalancingSolverType;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Compares solve time and objective of the Gurobi and the GLPK model on a synthetic square grid with random demand
+ * and supply in the order of magnitude of the Munich scenario. Every solver solves the same sequence of periods, the
+ * models are updated in place as in the simulation. The Gurobi run requires a license and is skipped without.
+ * Arguments: [numberOfRows numberOfColumns [periods]]
+ */
+class RebalancingSolverBenchmark {
+    private static final int REBALANCING_SECONDS = 20 * 60;
+    private static final int REBALANCING_STEPS = 3;
+    private static final double CELL_SIZE_METERS = 1000;
+    private static final double SPEED_METERS_PER_SECOND = 8.3;
+    private static final int TAXIS = 1500;
+
+    public static void main(String[] args) throws RebalancingModelException {
+        int numberOfRows = args.length > 1 ? Integer.parseInt(args[0]) : 10;
+        int numberOfColumns = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int periods = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int numberOfCells = numberOfRows * numberOfColumns;
+
+        double[][] distanceMatrix = new double[numberOfCells][numberOfCells];
+        double[][] travelTimes = new double[numberOfCells][numberOfCells];
+        double[][] probabilityMatrix = new double[numberOfCells][numberOfCells];
+        for (int startCell = 0; startCell < numberOfCells; startCell++) {
+            for (int endCell = 0; endCell < numberOfCells; endCell++) {
+                double distance = CELL_SIZE_METERS * Math.hypot(startCell / numberOfColumns - endCell / numberOfColumns,
+                        startCell % numberOfColumns - endCell % numberOfColumns);
+                distanceMatrix[startCell][endCell] = distance;
+                travelTimes[startCell][endCell] = distance / SPEED_METERS_PER_SECOND;
+                probabilityMatrix[startCell][endCell] = 1.0 / numberOfCells;
+            }
+        }
+
+        for (RebalancingSolverType solverType : RebalancingSolverType.values()) {
+            RebalancingSolver rebalancingSolver = new RebalancingSolver(REBALANCING_SECONDS, numberOfRows,
+                    numberOfColumns, REBALANCING_STEPS, distanceMatrix, 0.1855, 12.26, travelTimes, 0, solverType);
+            try {
+                rebalancingSolver.initialize();
+            } catch (RebalancingModelException | UnsatisfiedLinkError | NoClassDefFoundError e) {
+                System.out.println(String.format("%s: not available (%s)", solverType, e.getMessage()));
+                continue;
+            }
+            // same inputs for every solver
+            Random random = new Random(1);
+            double objectiveSum = 0;
+            long tic = System.nanoTime();
+            for (int period = 0; period < periods; period++) {
+                ArrayList<double[]> predictedDemand = new ArrayList<>();
+                for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+                    double[] demand = new double[REBALANCING_STEPS];
+                    for (int timestep = 0; timestep < REBALANCING_STEPS; timestep++) {
+                        demand[timestep] = random.nextInt(2 * TAXIS / numberOfCells + 1);
+                    }
+                    predictedDemand.add(demand);
+                }
+                int[] initialTaxiPlacement = new int[numberOfCells];
+                for (int taxi = 0; taxi < TAXIS / 2; taxi++) {
+                    initialTaxiPlacement[random.nextInt(numberOfCells)]++;
+                }
+                int[][] occupiedTaxisBecomingUnoccupied = new int[REBALANCING_STEPS - 1][numberOfCells];
+                for (int taxi = 0; taxi < TAXIS / 2; taxi++) {
+                    occupiedTaxisBecomingUnoccupied[random.nextInt(REBALANCING_STEPS - 1)][random.nextInt(numberOfCells)]++;
+                }
+
+                rebalancingSolver.updateModel(predictedDemand, initialTaxiPlacement, occupiedTaxisBecomingUnoccupied,
+                        probabilityMatrix, travelTimes);
+                rebalancingSolver.calculateRebalancing();
+                double objective = rebalancingSolver.getObjectiveValue();
+                objectiveSum += objective;
+                System.out.println(String.format("%s period %d: objective %.2f", solverType, period, objective));
+            }
+            System.out.println(String.format("%s: %d periods of %d cells, mean solve %.3f[s], total %.3f[s], " +
+                            "mean objective %.2f", solverType, periods, numberOfCells,
+                    rebalancingSolver.getMeanSolveSeconds(), (System.nanoTime() - tic) * 1e-9, objectiveSum / periods));
+        }
+    }
+}
@@ -6,19 +6,35 @@ import de.tum.mw.ftm.amod.taxi.preprocessing.demandprediction.GridDemandPredicti
 import de.tum.mw.ftm.amod.taxi.preprocessing.demandprediction.UniformGridWithBorderPredictions;
 import de.tum.mw.ftm.amod.taxi.preprocessing.grid.ExecutionOrderException;
 import de.tum.mw.ftm.amod.taxi.preprocessing.grid.GridInformationCalculator;
+import de.tum.mw.ftm.amod.taxi.preprocessing.grid.GridTravelMatrixStore;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.matsim.amodeus.config.FTMConfigGroup;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.dvrp.path.VrpPathWithTravelData;
+import org.matsim.contrib.dvrp.path.VrpPaths;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.config.groups.NetworkConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.DijkstraFactory;
+import org.matsim.core.router.costcalculators.OnlyTimeDependentTravelDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class GridInformationCalculatorTest {
@@ -27,6 +43,9 @@ public class GridInformationCalculatorTest {
     private static FTMConfigGroup ftmConfigGroup;
     private static GridDemandPrediction gridDemandPrediction;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @BeforeClass
     public static void setupOnce() {
         allowedDoubleDeviation = 0.001;
@@ -91,6 +110,53 @@ public class GridInformationCalculatorTest {
         checkPositivity(freeSpeedTravelTimes);
     }
 
+    @Test
+    public void calculateGridInformationShouldMatchLeastCostPaths() throws InterruptedException, ExecutionException, IOException {
+        GridInformationCalculator gridInformationCalculator = new GridInformationCalculator(gridDemandPrediction.getGridCells(),
+                gridDemandPrediction.getNumberOfRows(), gridDemandPrediction.getNumberOfColumns(), network);
+        gridInformationCalculator.calculateGridInformation();
+        double[][] freeSpeedTravelTimes = gridInformationCalculator.getFreeSpeedTravelTimes();
+
+        TravelTime travelTime = new FreeSpeedTravelTime();
+        LeastCostPathCalculator leastCostPathCalculator = new DijkstraFactory().createPathCalculator(network,
+                new OnlyTimeDependentTravelDisutility(travelTime), travelTime);
+        GridCell[] gridCells = gridDemandPrediction.getGridCells();
+        Random random = new Random(1);
+        for (int sample = 0; sample < 20; sample++) {
+            int i = random.nextInt(gridCells.length);
+            int j = random.nextInt(gridCells.length);
+            if (i >= j) {
+                continue;
+            }
+            Link startLink = NetworkUtils.getNearestLink(network, new Coord(gridCells[i].getCenterX(), gridCells[i].getCenterY()));
+            Link endLink = NetworkUtils.getNearestLink(network, new Coord(gridCells[j].getCenterX(), gridCells[j].getCenterY()));
+            LeastCostPathCalculator.Path path = leastCostPathCalculator.calcLeastCostPath(startLink.getToNode(), endLink.getFromNode(), 0.0, null, null);
+            VrpPathWithTravelData vrpPathWithTravelData = VrpPaths.createPath(startLink, endLink, 0.0, path, travelTime);
+            assertEquals(vrpPathWithTravelData.getTravelTime(), freeSpeedTravelTimes[i][j], 1.0);
+        }
+    }
+
+    @Test
+    public void loadOrCalculateGridInformationShouldReuseStore() throws InterruptedException, ExecutionException, IOException {
+        File storeFile = folder.newFile("grid_info.xml.bin");
+        storeFile.delete();
+        GridInformationCalculator calculated = new GridInformationCalculator(gridDemandPrediction.getGridCells(),
+                gridDemandPrediction.getNumberOfRows(), gridDemandPrediction.getNumberOfColumns(), network);
+        assertFalse(calculated.loadOrCalculateGridInformation(storeFile));
+        assertTrue(storeFile.isFile());
+
+        GridInformationCalculator loaded = new GridInformationCalculator(gridDemandPrediction.getGridCells(),
+                gridDemandPrediction.getNumberOfRows(), gridDemandPrediction.getNumberOfColumns(), network);
+        assertTrue(loaded.loadOrCalculateGridInformation(storeFile));
+        assertTrue(Arrays.deepEquals(calculated.getDistancesBetweenCells(), loaded.getDistancesBetweenCells()));
+        assertTrue(Arrays.deepEquals(calculated.getFreeSpeedTravelTimes(), loaded.getFreeSpeedTravelTimes()));
+
+        long gridHash = GridTravelMatrixStore.gridHash(gridDemandPrediction.getGridCells());
+        long networkChecksum = GridTravelMatrixStore.networkChecksum(network);
+        assertTrue(GridTravelMatrixStore.read(storeFile, gridHash, networkChecksum).isPresent());
+        assertFalse(GridTravelMatrixStore.read(storeFile, gridHash + 1, networkChecksum).isPresent());
+        assertFalse(GridTravelMatrixStore.read(storeFile, gridHash, networkChecksum + 1).isPresent());
+    }
 
     private static void checkSymmetry(double[][] matrix) {
         for (int i = 0; i < matrix.length; i++) {
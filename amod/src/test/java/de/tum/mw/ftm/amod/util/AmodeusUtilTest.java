@@ -2,6 +2,7 @@ package de.tum.mw.ftm.amod.util;
 
 import amodeus.amodeus.dispatcher.core.RoboTaxi;
 import de.tum.mw.ftm.amod.geom.GridCell;
+import de.tum.mw.ftm.amod.geom.UniformGridIndex;
 import de.tum.mw.ftm.amod.taxi.util.AmodeusUtil;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -10,6 +11,7 @@ import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Polygon;
 import org.matsim.api.core.v01.BasicLocation;
 import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
 
 import java.util.ArrayList;
@@ -398,4 +400,68 @@ public class AmodeusUtilTest {
                 minX, maxX, minY, maxY, mockedTaxis).size();
         assertEquals(numberOfTaxisInPolygon, actual);
     }
+
+    @Test
+    public void gridIndexMatchesCellScan() {
+        int numberOfColumns = 27;
+        int numberOfRows = 22;
+        GridCell[] grid = AmodeusUtil.createEvenSpacedGrid(minX, maxX, minY, maxY, numberOfColumns, numberOfRows);
+        UniformGridIndex gridIndex = new UniformGridIndex(grid);
+        assertEquals(numberOfColumns, gridIndex.getNumberOfColumns());
+        assertEquals(numberOfRows, gridIndex.getNumberOfRows());
+
+        List<Coord> coords = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            coords.add(new Coord(minX - 1000 + random.nextDouble() * (maxX - minX + 2000),
+                    minY - 1000 + random.nextDouble() * (maxY - minY + 2000)));
+        }
+        // corners of all cells lie on the boundary of up to four cells
+        for (GridCell cell : grid) {
+            coords.add(new Coord(cell.getMinX(), cell.getMinY()));
+            coords.add(new Coord(cell.getMaxX(), cell.getMaxY()));
+            coords.add(new Coord(cell.getMinX(), cell.getCenterY()));
+            coords.add(new Coord(cell.getCenterX(), cell.getMaxY()));
+        }
+
+        for (Coord coord : coords) {
+            int expected = UniformGridIndex.OUTSIDE;
+            for (int i = 0; i < grid.length; i++) {
+                if (grid[i].contains(coord.getX(), coord.getY())) {
+                    expected = i;
+                    break;
+                }
+            }
+            assertEquals(expected, gridIndex.getCellIndex(coord));
+            assertEquals(AmodeusUtil.getClosestGridCell(grid, coord), AmodeusUtil.getClosestGridCell(gridIndex, coord));
+        }
+        assertArrayEquals(AmodeusUtil.getCoordsPerCell(coords, grid), AmodeusUtil.getCoordsPerCell(coords, gridIndex));
+    }
+
+    @Test
+    public void taxisInsideCellsWithGridIndex() {
+        int numberOfTaxis = 2000;
+        GridCell[] grid = AmodeusUtil.createEvenSpacedGrid(minX, maxX, minY, maxY, 27, 22);
+        UniformGridIndex gridIndex = new UniformGridIndex(grid);
+
+        List<RoboTaxi> mockedTaxis = new ArrayList<>();
+        for (int i = 0; i < numberOfTaxis; i++) {
+            double x = minX - 1000 + random.nextDouble() * (maxX - minX + 2000);
+            double y = minY - 1000 + random.nextDouble() * (maxY - minY + 2000);
+
+            RoboTaxi mockedTaxi = mock(RoboTaxi.class);
+            Link mockedLink = mock(Link.class);
+            when(mockedLink.getId()).thenReturn(Id.createLinkId("taxiLink" + i));
+            when(mockedLink.getCoord()).thenReturn(new Coord(x, y));
+            when(mockedTaxi.getDivertableLocation()).thenReturn(mockedLink);
+
+            mockedTaxis.add(mockedTaxi);
+        }
+
+        int[] expected = AmodeusUtil.getNumberOfTaxisInsideCells(mockedTaxis, grid);
+        int[] actual = AmodeusUtil.getNumberOfTaxisInsideCells(mockedTaxis, gridIndex);
+        assertArrayEquals(expected, actual);
+        int insideTaxis = Arrays.stream(actual).sum();
+        assertTrue(0 < insideTaxis);
+        assertTrue(insideTaxis < numberOfTaxis);
+    }
 }
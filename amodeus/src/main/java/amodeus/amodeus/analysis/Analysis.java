@@ -243,14 +243,14 @@ public class Analysis {
     }
 
     public void run() throws Exception {
-        /** iterate simulation objects */
+        /** iterate simulation objects, decoded ahead and registered concurrently by independent elements */
         {
             Timing timing = Timing.started();
-            for (int index = 0; index < size; ++index) {
-                SimulationObject simulationObject = storageSupplier.getSimulationObject(index);
-                analysisElements.forEach(analysisElement -> analysisElement.register(simulationObject));
-                if (simulationObject.now % 10_000 == 0)
-                    System.out.println(String.format("%6.2f now=%d", timing.seconds(), simulationObject.now));
+            int decodeThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            try {
+                new AnalysisEngine(storageSupplier, analysisElements, decodeThreads, 4 * decodeThreads).run();
+            } finally {
+                storageSupplier.close();
             }
             System.out.println(String.format("%6.2f register all", timing.seconds()));
         }
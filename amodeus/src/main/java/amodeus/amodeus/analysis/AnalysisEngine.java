@@ -0,0 +1,156 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+import amodeus.amodeus.analysis.element.AnalysisElement;
+import amodeus.amodeus.net.SimulationObject;
+import amodeus.amodeus.net.StorageSupplier;
+import amodeus.amodeus.util.math.GlobalAssert;
+
+/** Single pass over the {@link SimulationObject}s of a {@link StorageSupplier}. The objects are decoded ahead of time
+ * by a pool of threads. Every decoded object is passed to the {@link AnalysisElement}s, the independent elements
+ * ({@link AnalysisElement#isIndependent()}) register it concurrently, each on its own thread, all other elements
+ * one after another on a common thread before the independent elements. Each element registers the objects in the
+ * order of time. At most prefetch objects are decoded ahead and at most prefetch objects are being registered.
+ *
+ * The time to decode the objects and the time every element spends in register are reported. */
+/* package */ class AnalysisEngine {
+    private final StorageSupplier storageSupplier;
+    private final List<AnalysisElement> analysisElements;
+    private final int decodeThreads;
+    private final int prefetch;
+
+    /** @param decodeThreads number of threads that decode the {@link SimulationObject}s
+     * @param prefetch maximum number of {@link SimulationObject}s decoded ahead and being registered */
+    public AnalysisEngine(StorageSupplier storageSupplier, List<AnalysisElement> analysisElements, int decodeThreads, int prefetch) {
+        GlobalAssert.that(0 < decodeThreads);
+        GlobalAssert.that(0 < prefetch);
+        this.storageSupplier = storageSupplier;
+        this.analysisElements = analysisElements;
+        this.decodeThreads = decodeThreads;
+        this.prefetch = prefetch;
+    }
+
+    /** elements registered one after another by a single thread */
+    private static class Lane {
+        private final List<AnalysisElement> elements = new ArrayList<>();
+        private final long[] nanos;
+        private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        /** registration of the previous object */
+        private CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
+
+        private Lane(List<AnalysisElement> elements) {
+            this.elements.addAll(elements);
+            nanos = new long[elements.size()];
+        }
+
+        /** @param before has to be completed before the object is registered */
+        private CompletableFuture<Void> register(SimulationObject simulationObject, CompletableFuture<Void> before) {
+            last = CompletableFuture.allOf(last, before).thenRunAsync(() -> {
+                for (int index = 0; index < elements.size(); ++index) {
+                    long tic = System.nanoTime();
+                    elements.get(index).register(simulationObject);
+                    nanos[index] += System.nanoTime() - tic;
+                }
+            }, executorService);
+            return last;
+        }
+    }
+
+    public void run() throws Exception {
+        long tic = System.nanoTime();
+        List<AnalysisElement> dependent = new ArrayList<>();
+        List<Lane> lanes = new ArrayList<>();
+        for (AnalysisElement analysisElement : analysisElements)
+            if (analysisElement.isIndependent())
+                lanes.add(new Lane(List.of(analysisElement)));
+            else
+                dependent.add(analysisElement);
+        Lane dependentLane = new Lane(dependent);
+
+        ExecutorService decodeService = Executors.newFixedThreadPool(decodeThreads);
+        LongAdder decodeNanos = new LongAdder();
+        long waitNanos = 0;
+        int size = storageSupplier.size();
+        try {
+            List<CompletableFuture<SimulationObject>> decoded = new ArrayList<>(size);
+            for (int index = 0; index < size; ++index)
+                decoded.add(index < prefetch ? decode(index, decodeService, decodeNanos) : null);
+
+            /** registration of all elements of the objects in flight */
+            Deque<CompletableFuture<Void>> inFlight = new ArrayDeque<>();
+            for (int index = 0; index < size; ++index) {
+                long waitTic = System.nanoTime();
+                SimulationObject simulationObject = join(decoded.get(index));
+                waitNanos += System.nanoTime() - waitTic;
+                decoded.set(index, null);
+
+                CompletableFuture<Void> before = dependent.isEmpty() //
+                        ? CompletableFuture.completedFuture(null)
+                        : dependentLane.register(simulationObject, CompletableFuture.completedFuture(null));
+                List<CompletableFuture<Void>> registered = new ArrayList<>();
+                registered.add(before);
+                for (Lane lane : lanes)
+                    registered.add(lane.register(simulationObject, before));
+                inFlight.add(CompletableFuture.allOf(registered.toArray(new CompletableFuture[registered.size()])));
+
+                if (simulationObject.now % 10_000 == 0)
+                    System.out.println(String.format("%6.2f now=%d", (System.nanoTime() - tic) * 1e-9, simulationObject.now));
+
+                /** bound the number of objects in memory, then decode the next one */
+                while (prefetch <= inFlight.size())
+                    join(inFlight.poll());
+                if (index + prefetch < size)
+                    decoded.set(index + prefetch, decode(index + prefetch, decodeService, decodeNanos));
+            }
+            while (!inFlight.isEmpty())
+                join(inFlight.poll());
+        } finally {
+            decodeService.shutdownNow();
+            dependentLane.executorService.shutdownNow();
+            lanes.forEach(lane -> lane.executorService.shutdownNow());
+        }
+
+        System.out.println(String.format("%6.2f decode %d objects on %d threads, waited %.2f[s] for decoding", //
+                decodeNanos.sum() * 1e-9, size, decodeThreads, waitNanos * 1e-9));
+        lanes.add(0, dependentLane);
+        for (Lane lane : lanes)
+            for (int index = 0; index < lane.elements.size(); ++index)
+                System.out.println(String.format("%6.2f register %s%s", lane.nanos[index] * 1e-9, //
+                        lane.elements.get(index).getClass().getSimpleName(), lane == dependentLane ? "" : " (independent)"));
+    }
+
+    private CompletableFuture<SimulationObject> decode(int index, ExecutorService decodeService, LongAdder decodeNanos) {
+        return CompletableFuture.supplyAsync(() -> {
+            long tic = System.nanoTime();
+            try {
+                return storageSupplier.getSimulationObject(index);
+            } catch (Exception exception) {
+                throw new CompletionException(exception);
+            } finally {
+                decodeNanos.add(System.nanoTime() - tic);
+            }
+        }, decodeService);
+    }
+
+    /** @return result of the completableFuture, rethrows the cause of a failure */
+    private static <T> T join(CompletableFuture<T> completableFuture) throws Exception {
+        try {
+            return completableFuture.join();
+        } catch (CompletionException completionException) {
+            Throwable cause = completionException.getCause();
+            if (cause instanceof Exception)
+                throw (Exception) cause;
+            throw completionException;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.analysis;
+
+import java.util.Arrays;
+import java.util.List;
+
+import amodeus.amodeus.analysis.element.AnalysisElement;
+import amodeus.amodeus.net.SimulationDistributionPipeline;
+import amodeus.amodeus.net.SimulationObject;
+import amodeus.amodeus.net.SimulationSubscribers;
+import amodeus.amodeus.net.StorageFormat;
+import amodeus.amodeus.util.net.ObjectHandler;
+
+/** registers the {@link SimulationObject}s at {@link AnalysisElement}s while the simulation is running instead of
+ * reading the recording after the simulation. Together with the {@link StorageFormat#NONE}, selected in the av.xml
+ * file with <param name="storageFormat" value="NONE" />, no {@link SimulationObject} is written to disk.
+ *
+ * Usage:
+ * LiveAnalysis liveAnalysis = LiveAnalysis.subscribe(analysisElement1, analysisElement2);
+ * ... simulation ...
+ * liveAnalysis.close(); // after the {@link SimulationDistributionPipeline}s are closed */
+public class LiveAnalysis implements ObjectHandler, AutoCloseable {
+
+    /** @return live analysis that receives all {@link SimulationObject}s recorded from now on */
+    public static LiveAnalysis subscribe(AnalysisElement... analysisElements) {
+        LiveAnalysis liveAnalysis = new LiveAnalysis(Arrays.asList(analysisElements));
+        SimulationSubscribers.INSTANCE.add(liveAnalysis);
+        return liveAnalysis;
+    }
+
+    // ---
+    private final List<AnalysisElement> analysisElements;
+    private volatile long registered = 0;
+
+    private LiveAnalysis(List<AnalysisElement> analysisElements) {
+        this.analysisElements = analysisElements;
+    }
+
+    @Override // from ObjectHandler
+    public void handle(Object object) {
+        SimulationObject simulationObject = (SimulationObject) object;
+        analysisElements.forEach(analysisElement -> analysisElement.register(simulationObject));
+        ++registered;
+    }
+
+    /** @return number of {@link SimulationObject}s registered so far */
+    public long getRegistered() {
+        return registered;
+    }
+
+    /** stops receiving {@link SimulationObject}s and consolidates all elements if at least one {@link SimulationObject}
+     * was registered, calls after the first have no effect */
+    @Override // from AutoCloseable
+    public void close() {
+        if (SimulationSubscribers.INSTANCE.remove(this) && 0 < registered)
+            analysisElements.forEach(AnalysisElement::consolidate);
+    }
+}
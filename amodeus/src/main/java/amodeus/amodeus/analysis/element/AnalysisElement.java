@@ -10,6 +10,13 @@ public interface AnalysisElement {
      * @param simulationObject */
     void register(SimulationObject simulationObject);
 
+    /** @return true if {@link #register(SimulationObject)} only reads the simulation object and modifies only the state
+     *         of this element, such elements are registered concurrently with other elements by the analysis, the others
+     *         one after another in the order in which they were added and before the independent elements */
+    default boolean isIndependent() {
+        return false;
+    }
+
     /** Finishes the analysis after the simulation
      * Output of the results of this Listener */
     default void consolidate() {
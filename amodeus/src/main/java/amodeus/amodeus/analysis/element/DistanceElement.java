@@ -1,7 +1,6 @@
 /* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
 package amodeus.amodeus.analysis.element;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -35,8 +34,8 @@ public class DistanceElement implements AnalysisElement, TotalValueAppender {
     // ---
 
     private final Map<Integer, VehicleTraceAnalyzer> traceAnalyzers;
-    private final List<Long> times = new ArrayList<>();
-    public final Tensor time = Tensors.empty(); // vector for instance {10, 20, ...}
+    private final LongSeries times = new LongSeries();
+    public final Tensor time = Tensors.empty(); // vector for instance {10, 20, ...}, filled in consolidate
 
     /** fields assigned in consolidate */
     public Tensor totalDistancesPerVehicle = RealScalar.of(-1); // initialized to avoid errors in later steps
@@ -62,15 +61,20 @@ public class DistanceElement implements AnalysisElement, TotalValueAppender {
     @Override
     public void register(SimulationObject simulationObject) {
         /** Get the TimeStep */
-        time.append(RealScalar.of(simulationObject.now));
-        times.add(simulationObject.now);
+        times.append(simulationObject.now);
 
         /** register Simulation Object for distance analysis */
         simulationObject.vehicles.parallelStream().forEach(vc -> traceAnalyzers.get(vc.vehicleIndex).register(vc, simulationObject.now));
     }
 
+    @Override // from AnalysisElement
+    public boolean isIndependent() {
+        return true;
+    }
+
     @Override // from AnalysisElement
     public void consolidate() {
+        times.toTensor().stream().forEach(time::append);
         final Collection<VehicleTraceAnalyzer> allVehicleTraceAnalyzers = traceAnalyzers.values();
 
         /** preparing steps */
@@ -90,7 +94,7 @@ public class DistanceElement implements AnalysisElement, TotalValueAppender {
         // distance per time of day
         distancesOverDay = allVehicleTraceAnalyzers.stream().map(tA -> //
                 // since times are also recorded by VehicleTraceAnalyzers no interpolation is needed
-                Tensor.of(times.stream().map(tA::stepDistance))).reduce(Tensor::add).orElseThrow();
+                Tensor.of(times.stream().mapToObj(tA::stepDistance))).reduce(Tensor::add).orElseThrow();
         distanceRatioOverDay = Tensor.of(distancesOverDay.stream().map(dist -> //
                 Scalars.nonZero(dist.Get(0)) ? dist.Get(1).divide(dist.Get(0)) : RealScalar.ONE));
 
@@ -0,0 +1,49 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.analysis.element;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+import ch.ethz.idsc.tensor.RealScalar;
+import ch.ethz.idsc.tensor.Tensor;
+
+/** primitive accumulator of a series of integer values, e.g., one value per time step, to be used by
+ * {@link AnalysisElement}s in {@link AnalysisElement#register} instead of appending to a {@link Tensor}.
+ * The {@link Tensor} is created once in {@link AnalysisElement#consolidate()} with {@link #toTensor()}. */
+public final class LongSeries {
+    private long[] values;
+    private int size = 0;
+
+    public LongSeries() {
+        this(1024);
+    }
+
+    public LongSeries(int initialCapacity) {
+        values = new long[Math.max(1, initialCapacity)];
+    }
+
+    public void append(long value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, 2 * values.length);
+        values[size++] = value;
+    }
+
+    public long get(int index) {
+        if (size <= index)
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public LongStream stream() {
+        return Arrays.stream(values, 0, size);
+    }
+
+    /** @return vector of exact integer scalars, identical to appending RealScalar.of(value) for every value */
+    public Tensor toTensor() {
+        return Tensor.of(stream().mapToObj(RealScalar::of));
+    }
+}
@@ -71,6 +71,11 @@ public class NumberPassengersAnalysis implements AnalysisElement, TotalValueAppe
         }
     }
 
+    @Override
+    public boolean isIndependent() {
+        return true;
+    }
+
     @Override
     public void consolidate() {
         /** calculate standard dropoff time. */
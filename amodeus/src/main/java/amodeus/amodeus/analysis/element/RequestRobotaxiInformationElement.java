@@ -21,6 +21,11 @@ public class RequestRobotaxiInformationElement implements AnalysisElement, Total
         simulationObject.vehicles.forEach(v -> vehicleIndices.add(v.vehicleIndex));
     }
 
+    @Override
+    public boolean isIndependent() {
+        return true;
+    }
+
     public int vehicleSize() {
         return vehicleIndices.size();
     }
@@ -41,6 +41,11 @@ public class StatusDistributionElement implements AnalysisElement, TotalValueApp
         occupancyTensor.append(Tensors.vector(simulationObject.now, occupancyRatio.number().doubleValue()));
     }
 
+    @Override // from AnalysisElement
+    public boolean isIndependent() {
+        return true;
+    }
+
     @Override // from AnalysisElement
     public void consolidate() {
         avgOccupancy = (Scalar) Mean.of(Transpose.of(occupancyTensor).get(1));
@@ -15,7 +15,6 @@ import amodeus.amodeus.net.SimulationObject;
 import amodeus.amodeus.util.math.MeanOrZero;
 import amodeus.amodeus.util.math.QuantileOrZero;
 import amodeus.amodeus.util.math.SI;
-import ch.ethz.idsc.tensor.RationalScalar;
 import ch.ethz.idsc.tensor.RealScalar;
 import ch.ethz.idsc.tensor.Scalar;
 import ch.ethz.idsc.tensor.Tensor;
@@ -44,7 +43,9 @@ public class TravelTimeAnalysis implements AnalysisElement, TotalValueAppender {
     private Scalar maxDrveTime;
     private Scalar maxTravelTime;
 
-    /** time series during day */
+    /** time series during day, time and waitingCustomers are filled in consolidate */
+    private final LongSeries timeSeries = new LongSeries();
+    private final LongSeries waitingCustomersSeries = new LongSeries();
     public final Tensor time = Tensors.empty();
     public final Tensor waitTimePlotValues = Tensors.empty();
     public final Tensor waitingCustomers = Tensors.empty();
@@ -62,22 +63,29 @@ public class TravelTimeAnalysis implements AnalysisElement, TotalValueAppender {
         }
         /** analyze the distribution of wait times at every time instant
          * and the number of waiting customers */
-        time.append(RealScalar.of(simulationObject.now));
+        timeSeries.append(simulationObject.now);
         Tensor submission = Tensor.of(simulationObject.requests.stream()//
                 .filter(rc -> RStatusHelper.unserviced(rc.requestStatus))//
                 .map(rc -> RealScalar.of(simulationObject.now - rc.submissionTime)));
         waitTimePlotValues.append(Join.of(Quantiles.SET.map(QuantileOrZero.of(submission)), //
                 Tensors.vector(MeanOrZero.of(submission).number().doubleValue())));
-        waitingCustomers.append(RationalScalar.of(simulationObject.requests.stream()//
-                .filter(rc -> RStatusHelper.unserviced(rc.requestStatus)).count(), 1));//
+        waitingCustomersSeries.append(submission.length());
 
         /** maximum time */
         tLast = Quantity.of(simulationObject.now, SI.SECOND);
 
     }
 
+    @Override
+    public boolean isIndependent() {
+        return true;
+    }
+
     @Override
     public void consolidate() {
+        timeSeries.toTensor().stream().forEach(time::append);
+        waitingCustomersSeries.toTensor().stream().forEach(waitingCustomers::append);
+
         /** calculate standard dropoff time. */
         travelHistories.values().forEach(th -> th.fillNotFinishedData(tLast));
 
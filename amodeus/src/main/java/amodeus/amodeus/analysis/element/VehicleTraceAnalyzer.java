@@ -48,27 +48,34 @@ import org.matsim.api.core.v01.network.Link;
         vehicleRebalancedist = Quantity.of(0, unit);
     }
 
+    /** the {@link VehicleContainer} is not modified such that it can be read concurrently by other elements */
     public void register(VehicleContainer vc, long now) {
-        if (vc.linkTrace.length > 1) {
+        int[] linkTrace = vc.linkTrace;
+        RoboTaxiStatus[] statii = vc.statii;
+        if (linkTrace.length > 1) {
             List<Integer> indicesToBeRemoved = new ArrayList<>();
-            for (int i = 0; i < vc.linkTrace.length - 1; i++) {
-                if (vc.linkTrace[i] == vc.linkTrace[i+1]) {
+            for (int i = 0; i < linkTrace.length - 1; i++) {
+                if (linkTrace[i] == linkTrace[i+1]) {
                     indicesToBeRemoved.add(i+1);
                 }
             }
-            vc.linkTrace = ArrayUtils.removeAll(vc.linkTrace, ArrayUtils.toPrimitive(indicesToBeRemoved.toArray(new Integer[0])));
-            vc.statii = ArrayUtils.removeAll(vc.statii, ArrayUtils.toPrimitive(indicesToBeRemoved.toArray(new Integer[0])));
+            if (!indicesToBeRemoved.isEmpty()) {
+                int[] indices = ArrayUtils.toPrimitive(indicesToBeRemoved.toArray(new Integer[0]));
+                linkTrace = ArrayUtils.removeAll(linkTrace, indices);
+                statii = ArrayUtils.removeAll(statii, indices);
+            }
         }
         times.add(now);
-        Optional<Link> lastLink = history.values().stream().flatMap(Collection::stream).reduce((v1, v2) -> v2).map(pair -> pair.link);
-        for (int i = 0; i < vc.linkTrace.length; i++) {
-            Link link = db.getOsmLink(vc.linkTrace[i]).link;
+        /** last recorded link, the lists in the history are never empty */
+        Optional<Link> lastLink = Optional.ofNullable(history.lastEntry()).map(entry -> entry.getValue().get(entry.getValue().size() - 1).link);
+        for (int i = 0; i < linkTrace.length; i++) {
+            Link link = db.getOsmLink(linkTrace[i]).link;
             if (i > 0 || !lastLink.map(link::equals).orElse(false)) {
-                RoboTaxiStatus roboTaxiStatus = vc.statii[i];
+                RoboTaxiStatus roboTaxiStatus = statii[i];
                 if (roboTaxiStatus != RoboTaxiStatus.STAY) {
                     history.computeIfAbsent(now, l -> new ArrayList<>()).add(new LinkStatusPair(link, roboTaxiStatus));
-                } else if (vc.linkTrace.length > i + 1 && link.getId().index() != vc.linkTrace[i + 1]) { // investigate why this status is assigned anyway
-                    roboTaxiStatus = vc.statii[i + 1];
+                } else if (linkTrace.length > i + 1 && link.getId().index() != linkTrace[i + 1]) { // investigate why this status is assigned anyway
+                    roboTaxiStatus = statii[i + 1];
                     if (roboTaxiStatus != RoboTaxiStatus.STAY)
                         history.computeIfAbsent(now, l -> new ArrayList<>()).add(new LinkStatusPair(link, roboTaxiStatus));
                 }
@@ -10,6 +10,7 @@ import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -26,8 +27,10 @@ import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 import org.matsim.core.router.util.TravelTime;
 
+import amodeus.amodeus.net.BackPressurePolicy;
 import amodeus.amodeus.net.MatsimAmodeusDatabase;
 import amodeus.amodeus.net.SimulationDistribution;
+import amodeus.amodeus.net.SimulationDistributionPipeline;
 import amodeus.amodeus.net.SimulationObject;
 import amodeus.amodeus.net.SimulationObjectCompiler;
 import amodeus.amodeus.net.SimulationObjects;
@@ -49,6 +52,8 @@ import amodeus.amodeus.util.matsim.SafeConfig;
     protected final double dropoffDurationPerStop;
     int total_matchedRequests = 0;
     private final String dispatcherMode;
+    /** null if {@link SimulationObject}s are distributed on the simulation thread */
+    private final SimulationDistributionPipeline simulationDistributionPipeline;
 
     private Map<RoboTaxi, List<LinkStatusPair>> tempLocationTrace = new HashMap<>();
 
@@ -64,6 +69,12 @@ import amodeus.amodeus.util.matsim.SafeConfig;
         SafeConfig safeConfig = SafeConfig.wrap(operatorConfig.getDispatcherConfig());
         publishPeriod = operatorConfig.getDispatcherConfig().getPublishPeriod();
         dispatcherMode = operatorConfig.getMode();
+        int distributionQueueSize = safeConfig.getInteger("distributionQueueSize", 0);
+        simulationDistributionPipeline = 0 < distributionQueueSize //
+                ? new SimulationDistributionPipeline(getStorageUtils(), distributionQueueSize, //
+                        safeConfig.getInteger("distributionBatchSize", 1), //
+                        BackPressurePolicy.valueOf(safeConfig.getString("viewerBackPressure", BackPressurePolicy.DROP_OLDEST.name())))
+                : null;
     }
 
     /** @return {@Collection} of all {@PassengerRequests} which are currently open.
@@ -150,7 +161,10 @@ import amodeus.amodeus.util.matsim.SafeConfig;
              * {@link SimulationObject}s */
             SimulationObject simulationObject = simulationObjectCompiler.compile();
             if (SimulationObjects.hasVehicles(simulationObject))
-                SimulationDistribution.of(simulationObject, storageUtils);
+                if (Objects.isNull(simulationDistributionPipeline))
+                    SimulationDistribution.of(simulationObject, storageUtils);
+                else
+                    simulationDistributionPipeline.submit(simulationObject);
 
             /** the temporary location traces are flushed at this point as they have
              * been communicated, saved. */
@@ -158,6 +172,14 @@ import amodeus.amodeus.util.matsim.SafeConfig;
         }
     }
 
+    /** the queued {@link SimulationObject}s are stored before the columnar writer is closed */
+    @Override
+    public void close() {
+        if (Objects.nonNull(simulationDistributionPipeline))
+            simulationDistributionPipeline.close();
+        super.close();
+    }
+
     /* package */ abstract void insertRequestInfo(SimulationObjectCompiler simulationObjectCompiler);
 
     @Override
@@ -3,26 +3,30 @@ package amodeus.amodeus.dispatcher.core;
 
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.matsim.contrib.dvrp.passenger.PassengerRequest;
 
 import amodeus.amodeus.util.math.GlobalAssert;
 
+/** the register maps every {@link RoboTaxi} to its assigned {@link PassengerRequest}s, the
+ * inverse association is maintained alongside such that the lookup of the {@link RoboTaxi}
+ * of a {@link PassengerRequest} is in constant time instead of a scan of all entries */
 /*package */ class RequestRegister {
 
     private final Map<RoboTaxi, Map<String, PassengerRequest>> register = new HashMap<>();
+    private final Map<PassengerRequest, RoboTaxi> inverse = new HashMap<>();
 
     /** Adding and removing */
     /* package */ void add(RoboTaxi roboTaxi, PassengerRequest avRequest) {
         register.computeIfAbsent(roboTaxi, roboTaxi1 -> new HashMap<>()) //
                 /* register.get(roboTaxi) */ .put(avRequest.getId().toString(), avRequest);
+        RoboTaxi former = inverse.put(avRequest, roboTaxi);
+        GlobalAssert.that(Objects.isNull(former) || former == roboTaxi); // every request can only be assigned to one vehicle
     }
 
     /* package */ void remove(RoboTaxi roboTaxi, PassengerRequest avRequest) {
@@ -31,11 +35,12 @@ import amodeus.amodeus.util.math.GlobalAssert;
         Objects.requireNonNull(register.get(roboTaxi).remove(avRequest.getId().toString()));
         if (register.get(roboTaxi).isEmpty())
             Objects.requireNonNull(register.remove(roboTaxi));
+        Objects.requireNonNull(inverse.remove(avRequest));
     }
 
     /* package */ void remove(RoboTaxi roboTaxi) {
         GlobalAssert.that(register.containsKey(roboTaxi));
-        Objects.requireNonNull(register.remove(roboTaxi));
+        Objects.requireNonNull(register.remove(roboTaxi)).values().forEach(inverse::remove);
     }
 
     /** contains functions */
@@ -44,46 +49,65 @@ import amodeus.amodeus.util.math.GlobalAssert;
     }
 
     /* package */ boolean contains(PassengerRequest avRequest) {
-        return getAssignedAvRequests().contains(avRequest);
+        return inverse.containsKey(avRequest);
     }
 
     /* package */ boolean contains(RoboTaxi roboTaxi, PassengerRequest avRequest) {
-        return contains(roboTaxi) && contains(avRequest);
+        return inverse.get(avRequest) == roboTaxi;
     }
 
     /** Get Functions */
 
     /* package */ Set<PassengerRequest> getAssignedAvRequests() {
-        Set<PassengerRequest> avRequests = new HashSet<>();
-        for (Map<String, PassengerRequest> avRequestsMap : register.values())
-            avRequests.addAll(avRequestsMap.values());
-
-        return avRequests;
+        return Collections.unmodifiableSet(inverse.keySet());
     }
 
     /* package */ Optional<RoboTaxi> getAssignedRoboTaxi(PassengerRequest avRequest) {
-        for (Entry<RoboTaxi, Map<String, PassengerRequest>> requestRegisterEntry : register.entrySet())
-            if (requestRegisterEntry.getValue().containsKey(avRequest.getId().toString()))
-                return Optional.of(requestRegisterEntry.getKey());
-
-        throw new RuntimeException("no can do");
+        RoboTaxi roboTaxi = inverse.get(avRequest);
+        if (Objects.isNull(roboTaxi))
+            throw new RuntimeException("no can do");
+        return Optional.of(roboTaxi);
     }
 
+    /** @return association of the assigned requests which are pending to their {@link RoboTaxi},
+     *         the smaller of both sets is iterated */
     /* package */ Map<PassengerRequest, RoboTaxi> getPickupRegister(Set<PassengerRequest> pendingRequests) {
         Map<PassengerRequest, RoboTaxi> pickupRegister = new HashMap<>();
-        for (Entry<RoboTaxi, Map<String, PassengerRequest>> requestRegisterEntry : register.entrySet())
-            for (PassengerRequest avRequest : requestRegisterEntry.getValue().values())
-                if (pendingRequests.contains(avRequest)) {
-                    GlobalAssert.that(!pickupRegister.containsKey(avRequest)); // In that case some of the logic failed. every request can only be assigned to
-                                                                               // one vehicle
-                    pickupRegister.put(avRequest, requestRegisterEntry.getKey());
-                }
-
+        if (pendingRequests.size() < inverse.size()) {
+            for (PassengerRequest avRequest : pendingRequests) {
+                RoboTaxi roboTaxi = inverse.get(avRequest);
+                if (Objects.nonNull(roboTaxi))
+                    pickupRegister.put(avRequest, roboTaxi);
+            }
+        } else
+            for (Entry<PassengerRequest, RoboTaxi> entry : inverse.entrySet())
+                if (pendingRequests.contains(entry.getKey()))
+                    pickupRegister.put(entry.getKey(), entry.getValue());
         return pickupRegister;
     }
 
     /* package */ Set<PassengerRequest> getAssignedPendingRequests(Set<PassengerRequest> pendingRequests) {
-        return getAssignedAvRequests().stream().filter(pendingRequests::contains).collect(Collectors.toSet());
+        return getPickupRegister(pendingRequests).keySet();
+    }
+
+    /** @return unmodifiable view of the association of every assigned request to its {@link RoboTaxi} */
+    /* package */ Map<PassengerRequest, RoboTaxi> getInverse() {
+        return Collections.unmodifiableMap(inverse);
+    }
+
+    /** linear in the number of assigned requests, intended for consistency checks
+     *
+     * @return true if the inverse association equals the register and every request
+     *         is assigned to exactly one {@link RoboTaxi} */
+    /* package */ boolean isConsistent() {
+        int count = 0;
+        for (Entry<RoboTaxi, Map<String, PassengerRequest>> requestRegisterEntry : register.entrySet())
+            for (PassengerRequest avRequest : requestRegisterEntry.getValue().values()) {
+                if (inverse.get(avRequest) != requestRegisterEntry.getKey())
+                    return false;
+                ++count;
+            }
+        return count == inverse.size();
     }
 
     /* package */ Map<String, PassengerRequest> get(RoboTaxi roboTaxi) {
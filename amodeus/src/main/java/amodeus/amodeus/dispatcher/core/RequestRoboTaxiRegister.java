@@ -0,0 +1,100 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.core;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+
+import amodeus.amodeus.util.math.GlobalAssert;
+
+/** one-to-one association of {@link PassengerRequest}s and {@link RoboTaxi}s with
+ * constant time lookup in both directions, used for the pickup and the drive register
+ * of {@link UniversalDispatcher}. a {@link RoboTaxi} is associated to at most one
+ * {@link PassengerRequest} and vice versa, i.e., the uniqueness of the values that
+ * previously was asserted by scanning all entries holds by construction. */
+/* package */ class RequestRoboTaxiRegister {
+    private final Map<PassengerRequest, RoboTaxi> byRequest = new HashMap<>();
+    private final Map<RoboTaxi, PassengerRequest> byRoboTaxi = new HashMap<>();
+
+    /** associates avRequest and roboTaxi, a previous association of avRequest to another
+     * {@link RoboTaxi} is removed. roboTaxi must not be associated to a {@link PassengerRequest},
+     * a previous association has to be removed explicitly with {@link #remove(RoboTaxi)}
+     *
+     * @param avRequest
+     * @param roboTaxi
+     * @return {@link RoboTaxi} previously associated to avRequest, or null */
+    /* package */ RoboTaxi put(PassengerRequest avRequest, RoboTaxi roboTaxi) {
+        Objects.requireNonNull(avRequest);
+        Objects.requireNonNull(roboTaxi);
+        GlobalAssert.that(!byRoboTaxi.containsKey(roboTaxi));
+        RoboTaxi formerRoboTaxi = byRequest.put(avRequest, roboTaxi);
+        if (Objects.nonNull(formerRoboTaxi))
+            byRoboTaxi.remove(formerRoboTaxi);
+        byRoboTaxi.put(roboTaxi, avRequest);
+        return formerRoboTaxi;
+    }
+
+    /** @param avRequest
+     * @return {@link RoboTaxi} that was associated to avRequest, or null */
+    /* package */ RoboTaxi remove(PassengerRequest avRequest) {
+        RoboTaxi roboTaxi = byRequest.remove(avRequest);
+        if (Objects.nonNull(roboTaxi))
+            byRoboTaxi.remove(roboTaxi);
+        return roboTaxi;
+    }
+
+    /** @param roboTaxi
+     * @return {@link PassengerRequest} that was associated to roboTaxi, or null */
+    /* package */ PassengerRequest remove(RoboTaxi roboTaxi) {
+        PassengerRequest avRequest = byRoboTaxi.remove(roboTaxi);
+        if (Objects.nonNull(avRequest))
+            byRequest.remove(avRequest);
+        return avRequest;
+    }
+
+    /* package */ RoboTaxi get(PassengerRequest avRequest) {
+        return byRequest.get(avRequest);
+    }
+
+    /* package */ PassengerRequest get(RoboTaxi roboTaxi) {
+        return byRoboTaxi.get(roboTaxi);
+    }
+
+    /* package */ boolean contains(PassengerRequest avRequest) {
+        return byRequest.containsKey(avRequest);
+    }
+
+    /* package */ boolean contains(RoboTaxi roboTaxi) {
+        return byRoboTaxi.containsKey(roboTaxi);
+    }
+
+    /* package */ int size() {
+        return byRequest.size();
+    }
+
+    /* package */ Set<PassengerRequest> getRequests() {
+        return Collections.unmodifiableSet(byRequest.keySet());
+    }
+
+    /** @return unmodifiable view of the association from {@link PassengerRequest}s to {@link RoboTaxi}s */
+    /* package */ Map<PassengerRequest, RoboTaxi> getMap() {
+        return Collections.unmodifiableMap(byRequest);
+    }
+
+    /** @return unmodifiable view of the association from {@link RoboTaxi}s to {@link PassengerRequest}s */
+    /* package */ Map<RoboTaxi, PassengerRequest> getInverseMap() {
+        return Collections.unmodifiableMap(byRoboTaxi);
+    }
+
+    /** linear in the number of associations, intended for consistency checks
+     *
+     * @return true if both directions contain exactly the same associations */
+    /* package */ boolean isConsistent() {
+        return byRequest.size() == byRoboTaxi.size() //
+                && byRequest.entrySet().stream().allMatch(entry -> entry.getKey() == byRoboTaxi.get(entry.getValue()));
+    }
+}
@@ -2,6 +2,8 @@
 package amodeus.amodeus.dispatcher.core;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -19,6 +21,7 @@ import org.matsim.contrib.dvrp.schedule.Schedule;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 
+import amodeus.amodeus.net.StorageFormat;
 import amodeus.amodeus.net.StorageUtils;
 import amodeus.amodeus.util.matsim.SafeConfig;
 import org.matsim.core.utils.misc.OptionalTime;
@@ -28,8 +31,10 @@ import org.matsim.core.utils.misc.OptionalTime;
  * <p>
  * manages assignments of {@link DirectiveInterface} to {@link RoboTaxi}s. path computations
  * attached to assignments are computed in parallel
- * {@link ParallelLeastCostPathCalculator}. */
-/* package */ abstract class RoboTaxiMaintainer implements AmodeusDispatcher {
+ * {@link ParallelLeastCostPathCalculator}.
+ * <p>
+ * the dispatcher owns its {@link StorageUtils} and closes it when the mobsim ends. */
+/* package */ abstract class RoboTaxiMaintainer implements AmodeusDispatcher, AutoCloseable {
     protected final EventsManager eventsManager;
     private final List<RoboTaxi> roboTaxis = new ArrayList<>();
     private Double private_now = null;
@@ -42,7 +47,8 @@ import org.matsim.core.utils.misc.OptionalTime;
         this.eventsManager = eventsManager;
         this.infoLine = new InfoLine(safeConfig.getInteger("infoLinePeriod", 10));
         String outputdirectory = config.controler().getOutputDirectory();
-        this.storageUtils = new StorageUtils(new File(outputdirectory));
+        StorageFormat storageFormat = StorageFormat.valueOf(safeConfig.getString("storageFormat", StorageFormat.SIMOBJ.name()));
+        this.storageUtils = new StorageUtils(new File(outputdirectory), storageFormat);
         FTMConfigGroup ftmConfigGroup = (FTMConfigGroup) config.getModules().get("ftm_simulation");
         if (ftmConfigGroup != null) {
             this.optionalFTMSimEndTime = OptionalTime.defined(
@@ -176,8 +182,22 @@ import org.matsim.core.utils.misc.OptionalTime;
 
     /* package */ abstract void consistencySubCheck();
 
+    /* package */ final StorageUtils getStorageUtils() {
+        return storageUtils;
+    }
+
     /* package */ abstract void notifySimulationSubscribers(long round_now, StorageUtils storageUtils);
 
+    /** closes the columnar writer of the {@link StorageUtils} such that the recording of the iteration is complete */
+    @Override
+    public void close() {
+        try {
+            storageUtils.close();
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
+
     /* package */ abstract void redispatchInternal(double now);
 
     /* package */ abstract void executeRedirects();
@@ -13,6 +13,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.apache.log4j.Logger;
 import org.matsim.amodeus.components.AmodeusDispatcher;
 import org.matsim.amodeus.components.AmodeusGenerator;
 import org.matsim.amodeus.config.AmodeusModeConfig;
@@ -67,6 +68,8 @@ public abstract class SharedUniversalDispatcher extends BasicUniversalDispatcher
     private final OnboardPassengerCheck onboardPassengerCheck = //
             new OnboardPassengerCheck(total_matchedRequests, total_dropedOffRequests);
 
+    private final static Logger logger = Logger.getLogger(SharedUniversalDispatcher.class);
+
     /* package */ static final double SIMTIMESTEP = 1.0;// This is used in the Shared Universal Dispatcher to see if a task will end in the next timestep.
     private Double lastTime = null;
 
@@ -96,7 +99,9 @@ public abstract class SharedUniversalDispatcher extends BasicUniversalDispatcher
     /** @return {@link RoboTaxi} curently scheduled to pickup @param request or null if no {@link RoboTaxi}
      *         is scheduled to pickup the {@link PassengerRequest} */
     protected final RoboTaxi getCurrentPickupTaxi(PassengerRequest request) {
-        return requestRegister.getPickupRegister(pendingRequests).get(request);
+        return pendingRequests.contains(request) //
+                ? requestRegister.getInverse().get(request)
+                : null;
     }
 
     /** @return divertablesRoboTaxis which currently not on a pickup drive */
@@ -296,13 +301,10 @@ public abstract class SharedUniversalDispatcher extends BasicUniversalDispatcher
     }
 
     /** Consistency checks to be called by
-     * {@link RoboTaxiMaintainer#consistencyCheck} in each iteration. */
+     * {@link RoboTaxiMaintainer#consistencyCheck} in each iteration. The checks of the
+     * registers and menus are only executed if the debug level is enabled for the logger. */
     @Override
     protected final void consistencySubCheck() {
-
-        // TODO @clruch disable or reduce computational complexity of entire subcheck once API tested for
-        // a longer amount of time.
-
         for (RoboTaxi roboTaxi : getRoboTaxis()) {
             Schedule schedule = roboTaxi.getSchedule();
             Task task = schedule.getCurrentTask();
@@ -322,6 +324,9 @@ public abstract class SharedUniversalDispatcher extends BasicUniversalDispatcher
                 GlobalAssert.that(SharedCourseAccess.getStarter(roboTaxi).get().getMealType().equals(SharedMealType.REDIRECT));
         }
 
+        if (!logger.isDebugEnabled())
+            return;
+
         for (PassengerRequest avRequest : requestRegister.getAssignedAvRequests()) {
             GlobalAssert.that(reqStatuses.containsKey(avRequest));
             if (reqStatuses.get(avRequest).equals(RequestStatus.DRIVING))
@@ -330,13 +335,8 @@ public abstract class SharedUniversalDispatcher extends BasicUniversalDispatcher
         }
 
         /** check that each Request only appears once in the Request Register */
-        Set<PassengerRequest> uniqueAvRequests = new HashSet<>();
-        for (Map<String, PassengerRequest> map : requestRegister.getRegister().values())
-            for (PassengerRequest avRequest : map.values()) {
-                if (uniqueAvRequests.contains(avRequest))
-                    throw new RuntimeException("This AV Request Occured Twice in the request Register " + avRequest.getId().toString());
-                uniqueAvRequests.add(avRequest);
-            }
+        if (!requestRegister.isConsistent())
+            throw new RuntimeException("An AV Request Occured Twice in the request Register");
 
         /** there cannot be more pickup than open requests */
         GlobalAssert.that(requestRegister.getAssignedPendingRequests(pendingRequests).size() <= pendingRequests.size());
@@ -390,8 +390,7 @@ public abstract class SharedUniversalDispatcher extends BasicUniversalDispatcher
         simulationObjectCompiler.insertRequests(periodSubmittdRequests, RequestStatus.REQUESTED);
 
         /** insert information of association of {@link RoboTaxi}s and {@link PassengerRequest}s */
-        Map<PassengerRequest, RoboTaxi> flatMap = new HashMap<>();
-        requestRegister.getRegister().forEach((rt, map) -> map.values().forEach(avr -> flatMap.put(avr, rt)));
+        Map<PassengerRequest, RoboTaxi> flatMap = new HashMap<>(requestRegister.getInverse());
         // adds the robotaxi for dropped off requests (not in requestregister anymore)
         periodFulfilledRequests.forEach(flatMap::put);
 
@@ -42,8 +42,8 @@ import amodeus.amodeus.util.math.GlobalAssert;
  * {@link PassengerRequest}s alternative implementation of {@link AmodeusDispatcher};
  * supersedes {@link BasicUniversalDispatcher}. */
 public abstract class UniversalDispatcher extends BasicUniversalDispatcher {
-    private final Map<PassengerRequest, RoboTaxi> pickupRegister = new HashMap<>();
-    private final Map<PassengerRequest, RoboTaxi> rqstDrvRegister = new HashMap<>();
+    private final RequestRoboTaxiRegister pickupRegister = new RequestRoboTaxiRegister();
+    private final RequestRoboTaxiRegister rqstDrvRegister = new RequestRoboTaxiRegister();
     private final Map<PassengerRequest, RoboTaxi> periodFulfilledRequests = new HashMap<>();
     private final Set<PassengerRequest> periodAssignedRequests = new HashSet<>();
     private final Set<PassengerRequest> periodPickedUpRequests = new HashSet<>();
@@ -62,7 +62,7 @@ public abstract class UniversalDispatcher extends BasicUniversalDispatcher {
     /** @return {@link PassengerRequest}s currently not assigned to a vehicle */
     protected synchronized final List<PassengerRequest> getUnassignedPassengerRequests() {
         return pendingRequests.stream() //
-                .filter(r -> !pickupRegister.containsKey(r)) //
+                .filter(r -> !pickupRegister.contains(r)) //
                 .collect(Collectors.toList());
     }
 
@@ -74,9 +74,8 @@ public abstract class UniversalDispatcher extends BasicUniversalDispatcher {
     /** @return divertable {@link RoboTaxi}s which currently not on a pickup drive */
     protected final Collection<RoboTaxi> getDivertableUnassignedRoboTaxis() {
         Collection<RoboTaxi> divertableUnassignedRoboTaxis = getDivertableRoboTaxis().stream() //
-                .filter(rt -> !pickupRegister.containsValue(rt)) //
+                .filter(rt -> !pickupRegister.contains(rt)) //
                 .collect(Collectors.toList());
-        GlobalAssert.that(divertableUnassignedRoboTaxis.stream().noneMatch(pickupRegister::containsValue));
         GlobalAssert.that(divertableUnassignedRoboTaxis.stream().allMatch(RoboTaxi::isWithoutCustomer));
         return divertableUnassignedRoboTaxis;
     }
@@ -91,8 +90,7 @@ public abstract class UniversalDispatcher extends BasicUniversalDispatcher {
     /** @return immutable and inverted copy of pickupRegister, displays which
      *         vehicles are currently scheduled to pickup which request */
     protected final Map<RoboTaxi, PassengerRequest> getPickupRoboTaxis() {
-        Map<RoboTaxi, PassengerRequest> pickupPairs = pickupRegister.entrySet().stream() //
-                .collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey));
+        Map<RoboTaxi, PassengerRequest> pickupPairs = new HashMap<>(pickupRegister.getInverseMap());
 
         GlobalAssert.that(pickupPairs.keySet().stream().allMatch(rt -> rt.getStatus().equals(RoboTaxiStatus.DRIVETOCUSTOMER)));
         return pickupPairs;
@@ -111,18 +109,12 @@ public abstract class UniversalDispatcher extends BasicUniversalDispatcher {
 
         /** for some dispatchers, reassignment is permanently invoked again, the
          * {@link RoboTaxi} should appear under only at the time step of assignment */
-        if (!pickupRegister.containsKey(avRequest))
+        if (!pickupRegister.contains(avRequest))
             periodAssignedRequests.add(avRequest);
 
         // 1) enter information into pickup table
-        if (pickupRegister.containsValue(roboTaxi)) {
-            PassengerRequest toRemove = pickupRegister.entrySet().stream()//
-                    .filter(e -> e.getValue().equals(roboTaxi)).findAny().get().getKey();
-            pickupRegister.remove(toRemove); // remove PassengerRequest/RoboTaxi pair served before by roboTaxi
-            pickupRegister.remove(avRequest); // remove PassengerRequest/RoboTaxi pair corresponding to avRequest
-        }
-        pickupRegister.put(avRequest, roboTaxi); // add new pair
-        GlobalAssert.that(pickupRegister.size() == pickupRegister.values().stream().distinct().count());
+        pickupRegister.remove(roboTaxi); // remove PassengerRequest/RoboTaxi pair served before by roboTaxi
+        pickupRegister.put(avRequest, roboTaxi); // add new pair, replaces the pair corresponding to avRequest
 
         // 2) set vehicle diversion
         setRoboTaxiDiversion(roboTaxi, avRequest.getFromLink(), RoboTaxiStatus.DRIVETOCUSTOMER);
@@ -281,7 +273,7 @@ public abstract class UniversalDispatcher extends BasicUniversalDispatcher {
     }
 
     protected final boolean isInPickupRegister(RoboTaxi robotaxi) {
-        return pickupRegister.containsValue(robotaxi);
+        return pickupRegister.contains(robotaxi);
     }
 
     /* package */ final boolean removeFromPickupRegisters(PassengerRequest avRequest) {
@@ -301,7 +293,7 @@ public abstract class UniversalDispatcher extends BasicUniversalDispatcher {
      * an {@link PassengerRequest} */
     @Override
     final void executePickups() {
-        Map<PassengerRequest, RoboTaxi> pickupRegisterCopy = new HashMap<>(pickupRegister);
+        Map<PassengerRequest, RoboTaxi> pickupRegisterCopy = new HashMap<>(pickupRegister.getMap());
         for (Entry<PassengerRequest, RoboTaxi> entry : pickupRegisterCopy.entrySet()) {
             PassengerRequest avRequest = entry.getKey();
             GlobalAssert.that(pendingRequests.contains(avRequest));
@@ -317,7 +309,7 @@ public abstract class UniversalDispatcher extends BasicUniversalDispatcher {
      * {@link PassengerRequest} */
     @Override
     protected void executeDropoffs() {
-        Map<PassengerRequest, RoboTaxi> requestRegisterCopy = new HashMap<>(rqstDrvRegister);
+        Map<PassengerRequest, RoboTaxi> requestRegisterCopy = new HashMap<>(rqstDrvRegister.getMap());
         for (Entry<PassengerRequest, RoboTaxi> entry : requestRegisterCopy.entrySet())
             if (Objects.nonNull(entry.getValue())) {
                 PassengerRequest avRequest = entry.getKey();
@@ -355,7 +347,7 @@ public abstract class UniversalDispatcher extends BasicUniversalDispatcher {
          * already */
         getRoboTaxis().stream()//
                 .filter(rt -> rt.getStatus().equals(RoboTaxiStatus.DRIVETOCUSTOMER)) //
-                .filter(rt -> !pickupRegister.containsValue(rt)) //
+                .filter(rt -> !pickupRegister.contains(rt)) //
                 .filter(RoboTaxi::isWithoutCustomer) //
                 .filter(RoboTaxi::isWithoutDirective) //
                 .forEach(rt -> setRoboTaxiDiversion(rt, rt.getDivertableLocation(), RoboTaxiStatus.REBALANCEDRIVE));
@@ -363,16 +355,20 @@ public abstract class UniversalDispatcher extends BasicUniversalDispatcher {
     }
 
     /** Consistency checks to be called by {@link RoboTaxiMaintainer}
-     * in each iteration. */
+     * in each iteration. The checks that are linear in the number of requests
+     * are only executed if the debug level is enabled for the logger. */
     @Override
     protected final void consistencySubCheck() {
         GlobalAssert.that(pickupRegister.size() <= pendingRequests.size());
+        if (!logger.isDebugEnabled())
+            return;
 
         /** containment check pickupRegister and pendingRequests */
-        pickupRegister.keySet().forEach(r -> GlobalAssert.that(pendingRequests.contains(r)));
+        pickupRegister.getRequests().forEach(r -> GlobalAssert.that(pendingRequests.contains(r)));
 
         /** ensure no robotaxi is scheduled to pickup two requests */
-        GlobalAssert.that(pickupRegister.size() == pickupRegister.values().stream().distinct().count());
+        GlobalAssert.that(pickupRegister.isConsistent());
+        GlobalAssert.that(rqstDrvRegister.isConsistent());
     }
 
     @Override
@@ -381,8 +377,8 @@ public abstract class UniversalDispatcher extends BasicUniversalDispatcher {
          * moment it appears until it is picked up, this period may contain several not
          * connected pickup periods (cancelled pickup attempts) */
         simulationObjectCompiler.insertRequests(pendingRequests, RequestStatus.REQUESTED);
-        simulationObjectCompiler.insertRequests(pickupRegister.keySet(), RequestStatus.PICKUPDRIVE);
-        simulationObjectCompiler.insertRequests(rqstDrvRegister.keySet(), RequestStatus.DRIVING);
+        simulationObjectCompiler.insertRequests(pickupRegister.getRequests(), RequestStatus.PICKUPDRIVE);
+        simulationObjectCompiler.insertRequests(rqstDrvRegister.getRequests(), RequestStatus.DRIVING);
         simulationObjectCompiler.insertRequests(canceledRequests, RequestStatus.CANCELLED);
         /** the request is only contained in these three maps durnig 1 time step, which
          * is why they must be inserted after the first three which (potentially) are
@@ -392,8 +388,8 @@ public abstract class UniversalDispatcher extends BasicUniversalDispatcher {
         simulationObjectCompiler.insertRequests(periodFulfilledRequests.keySet(), RequestStatus.DROPOFF);
 
         /** insert information of association of {@link RoboTaxi}s and {@link PassengerRequest}s */
-        simulationObjectCompiler.addRequestRoboTaxiAssoc(pickupRegister);
-        simulationObjectCompiler.addRequestRoboTaxiAssoc(rqstDrvRegister);
+        simulationObjectCompiler.addRequestRoboTaxiAssoc(pickupRegister.getMap());
+        simulationObjectCompiler.addRequestRoboTaxiAssoc(rqstDrvRegister.getMap());
         simulationObjectCompiler.addRequestRoboTaxiAssoc(periodFulfilledRequests);
 
         periodFulfilledRequests.clear();
@@ -6,11 +6,20 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntToDoubleFunction;
 import java.util.stream.Collectors;
 import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
 
+import org.matsim.api.core.v01.network.Network;
 import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import org.matsim.core.router.util.TravelDisutility;
+
+import amodeus.amodeus.routing.EasyMinTimePathCalculator;
+import amodeus.amodeus.util.math.GlobalAssert;
 
 /* package */ class AdvanceTVRVGenerator {
     private final Set<Set<PassengerRequest>> rvEdges = new HashSet<>();
@@ -18,9 +27,28 @@ import org.matsim.contrib.dvrp.passenger.PassengerRequest;
     private final double dropoffDurationPerStop;
     private final Map<Set<PassengerRequest>, Double> rvEdgesValidityMap = new HashMap<>();
 
-    public AdvanceTVRVGenerator(double pickupDurationPerStop, double dropoffDurationPerStop) {
+    private final TravelTimeLowerBound travelTimeLowerBound;
+    /** null if the edges are computed in the calling thread */
+    private final ForkJoinPool forkJoinPool;
+
+    /** @param network to bound the travel times from below, pairs of requests that cannot be picked up in time are skipped
+     * @param travelDisutility travel time as disutility with which the {@link TravelTimeComputation} routes
+     * @param parallelism number of threads that compute the validity of the edges */
+    public AdvanceTVRVGenerator(double pickupDurationPerStop, double dropoffDurationPerStop, Network network, TravelDisutility travelDisutility, int parallelism) {
+        this(pickupDurationPerStop, dropoffDurationPerStop, new TravelTimeLowerBound(network, travelDisutility), parallelism);
+    }
+
+    /** @param travelTimeLowerBound {@link TravelTimeLowerBound#NONE} to check the validity of all pairs of requests */
+    /* package */ AdvanceTVRVGenerator(double pickupDurationPerStop, double dropoffDurationPerStop, TravelTimeLowerBound travelTimeLowerBound, int parallelism) {
+        GlobalAssert.that(0 < parallelism);
         this.pickupDurationPerStop = pickupDurationPerStop;
         this.dropoffDurationPerStop = dropoffDurationPerStop;
+        this.travelTimeLowerBound = Objects.requireNonNull(travelTimeLowerBound);
+        forkJoinPool = parallelism == 1 ? null : new ForkJoinPool(parallelism);
+    }
+
+    public AdvanceTVRVGenerator(double pickupDurationPerStop, double dropoffDurationPerStop, Network network) {
+        this(pickupDurationPerStop, dropoffDurationPerStop, network, EasyMinTimePathCalculator.TRAVEL_DISUTILITY, Runtime.getRuntime().availableProcessors());
     }
 
     public Set<Set<PassengerRequest>> generateRVGraph(Set<PassengerRequest> newAddedRequests, Set<PassengerRequest> removedRequests, //
@@ -39,37 +67,51 @@ import org.matsim.contrib.dvrp.passenger.PassengerRequest;
             edgesToRemove.forEach(rvEdgesValidityMap::remove);
         }
 
-        // 2. add new edges between one remained request and one new added request
+        // 2. candidate edges between one remained request and one new added request
+        List<PassengerRequest[]> candidateEdges = new ArrayList<>();
         if (!rvEdges.isEmpty())
             for (PassengerRequest avRequest : remainedRequests)
-                for (PassengerRequest avRequest2 : newAddedRequests) {
-                    double edgeSlackTime = getEdgeValidUntil(avRequest, avRequest2, now, requestKeyInfoMap, ttc);
-                    if (edgeSlackTime > 0) {
-                        Set<PassengerRequest> possibleEdge = new HashSet<>();
-                        possibleEdge.add(avRequest);
-                        possibleEdge.add(avRequest2);
-                        rvEdges.add(possibleEdge);
-                        rvEdgesValidityMap.put(possibleEdge, edgeSlackTime + now);
-                    }
-                }
+                for (PassengerRequest avRequest2 : newAddedRequests)
+                    if (mayBeFeasible(avRequest, avRequest2, now, requestKeyInfoMap))
+                        candidateEdges.add(new PassengerRequest[] { avRequest, avRequest2 });
 
-        // 3. add new rvEdges (between new added requests)
+        // 3. candidate edges between new added requests
         List<PassengerRequest> newAddedRequestList = new ArrayList<>(newAddedRequests);
         for (int i = 0; i < newAddedRequestList.size(); i++)
-            for (int j = i + 1; j < newAddedRequestList.size(); j++) {
-                double edgeSlackTime = getEdgeValidUntil(newAddedRequestList.get(i), newAddedRequestList.get(j), now, requestKeyInfoMap, ttc);
-                if (edgeSlackTime > 0) {
-                    Set<PassengerRequest> newEdge = new HashSet<>();
-                    newEdge.add(newAddedRequestList.get(i));
-                    newEdge.add(newAddedRequestList.get(j));
-                    rvEdges.add(newEdge);
-                    rvEdgesValidityMap.put(newEdge, edgeSlackTime + now);
-                }
+            for (int j = i + 1; j < newAddedRequestList.size(); j++)
+                if (mayBeFeasible(newAddedRequestList.get(i), newAddedRequestList.get(j), now, requestKeyInfoMap))
+                    candidateEdges.add(new PassengerRequest[] { newAddedRequestList.get(i), newAddedRequestList.get(j) });
+
+        // 4. the validity of the candidate edges is computed in parallel, the edges are added in the order of the candidates
+        IntToDoubleFunction edgeSlackTimeOf = index -> getEdgeValidUntil(candidateEdges.get(index)[0], candidateEdges.get(index)[1], //
+                now, requestKeyInfoMap, ttc);
+        double[] edgeSlackTimes = Objects.isNull(forkJoinPool) //
+                ? IntStream.range(0, candidateEdges.size()).mapToDouble(edgeSlackTimeOf).toArray()
+                : forkJoinPool.submit(() -> IntStream.range(0, candidateEdges.size()).parallel().mapToDouble(edgeSlackTimeOf).toArray()).join();
+        for (int index = 0; index < candidateEdges.size(); ++index)
+            if (edgeSlackTimes[index] > 0) {
+                Set<PassengerRequest> newEdge = new HashSet<>();
+                newEdge.add(candidateEdges.get(index)[0]);
+                newEdge.add(candidateEdges.get(index)[1]);
+                rvEdges.add(newEdge);
+                rvEdgesValidityMap.put(newEdge, edgeSlackTimes[index] + now);
             }
 
         return rvEdges; // rvEdges will still be here, and will be used next time the function is called
     }
 
+    /** @return false if the lower bound of the travel time between the pickup locations shows that neither request can be
+     *         picked up before the other, i.e., {@link #getEdgeValidUntil} is 0 */
+    private boolean mayBeFeasible(PassengerRequest request1, PassengerRequest request2, double now, //
+            Map<PassengerRequest, RequestKeyInfo> requestKeyInfoMap) {
+        // r1 first
+        if (now + travelTimeLowerBound.of(request1.getFromLink(), request2.getFromLink()) <= requestKeyInfoMap.get(request2).getDeadlinePickUp())
+            return true;
+        // r2 first
+        return now + travelTimeLowerBound.of(request2.getFromLink(), request1.getFromLink()) + pickupDurationPerStop //
+                <= requestKeyInfoMap.get(request1).getDeadlinePickUp();
+    }
+
     private double getEdgeValidUntil(PassengerRequest request1, PassengerRequest request2, double now, //
             Map<PassengerRequest, RequestKeyInfo> requestKeyInfoMap, TravelTimeComputation ttc) {
         double edgeSlackTime = 0.0;
@@ -85,7 +127,7 @@ import org.matsim.contrib.dvrp.passenger.PassengerRequest;
         if (now + t1 <= value) {
             double s1 = value - t1 - now - pickupDurationPerStop;
 
-            ttc.storeInCache(request1.getFromLink(), request2.getFromLink(), t1);
+            ttc.storeInCache(request1.getFromLink(), request2.getFromLink(), now, t1);
 
             // case 1
             double t2 = ttc.of(request2.getFromLink(), request2.getToLink(), now, true);
@@ -95,7 +137,7 @@ import org.matsim.contrib.dvrp.passenger.PassengerRequest;
                 double t3 = ttc.of(request2.getToLink(), request1.getToLink(), now, false);
                 if (now + t1 + t2 + t3 + 2 * pickupDurationPerStop + dropoffDurationPerStop <= requestKeyInfoMap.get(request1).getDeadlineDropOff()) {
                     double s3 = requestKeyInfoMap.get(request1).getDeadlineDropOff() - t1 - t2 - t3 - now - 2 * pickupDurationPerStop - dropoffDurationPerStop;
-                    ttc.storeInCache(request2.getToLink(), request1.getToLink(), t3);
+                    ttc.storeInCache(request2.getToLink(), request1.getToLink(), now, t3);
                     ss1 = getMinValue(s1, s2, s3);
                 }
             }
@@ -104,11 +146,11 @@ import org.matsim.contrib.dvrp.passenger.PassengerRequest;
             double t4 = ttc.of(request2.getFromLink(), request1.getToLink(), now, false);
             if (now + t1 + t4 + 2 * pickupDurationPerStop <= requestKeyInfoMap.get(request1).getDeadlineDropOff()) {
                 double s4 = requestKeyInfoMap.get(request1).getDeadlineDropOff() - t1 - t4 - now - 2 * pickupDurationPerStop;
-                ttc.storeInCache(request2.getFromLink(), request1.getToLink(), t4);
+                ttc.storeInCache(request2.getFromLink(), request1.getToLink(), now, t4);
                 double t5 = ttc.of(request1.getToLink(), request2.getToLink(), now, false);
                 if (now + t1 + t4 + t5 + 2 * pickupDurationPerStop + dropoffDurationPerStop <= requestKeyInfoMap.get(request2).getDeadlineDropOff()) {
                     double s5 = requestKeyInfoMap.get(request2).getDeadlineDropOff() - now - t1 - t4 - t5 - 2 * pickupDurationPerStop - dropoffDurationPerStop;
-                    ttc.storeInCache(request1.getToLink(), request2.getToLink(), t5);
+                    ttc.storeInCache(request1.getToLink(), request2.getToLink(), now, t5);
                     ss2 = getMinValue(s1, s4, s5);
                 }
             }
@@ -117,7 +159,7 @@ import org.matsim.contrib.dvrp.passenger.PassengerRequest;
         double t6 = ttc.of(request2.getFromLink(), request1.getFromLink(), now, false);
         if (now + t6 + pickupDurationPerStop <= requestKeyInfoMap.get(request1).getDeadlinePickUp()) {
             double s6 = requestKeyInfoMap.get(request1).getDeadlinePickUp() - now - t6 - pickupDurationPerStop;
-            ttc.storeInCache(request2.getFromLink(), request1.getFromLink(), t6);
+            ttc.storeInCache(request2.getFromLink(), request1.getFromLink(), now, t6);
             // case 3
             double t7 = ttc.of(request1.getFromLink(), request1.getToLink(), now, true);
             if (now + t6 + t7 + 2 * pickupDurationPerStop <= requestKeyInfoMap.get(request1).getDeadlineDropOff()) {
@@ -125,7 +167,7 @@ import org.matsim.contrib.dvrp.passenger.PassengerRequest;
                 double t5 = ttc.of(request1.getToLink(), request2.getToLink(), now, false);
                 if (now + t6 + t7 + t5 + 2 * pickupDurationPerStop + dropoffDurationPerStop <= requestKeyInfoMap.get(request2).getDeadlineDropOff()) {
                     double s8 = requestKeyInfoMap.get(request2).getDeadlineDropOff() - now - t6 - t7 - t5 - 2 * pickupDurationPerStop - dropoffDurationPerStop;
-                    ttc.storeInCache(request1.getToLink(), request2.getToLink(), t5);
+                    ttc.storeInCache(request1.getToLink(), request2.getToLink(), now, t5);
                     ss3 = getMinValue(s6, s7, s8);
                 }
             }
@@ -134,11 +176,11 @@ import org.matsim.contrib.dvrp.passenger.PassengerRequest;
             double t8 = ttc.of(request1.getFromLink(), request2.getToLink(), now, false);
             if (now + t6 + t8 + 2 * pickupDurationPerStop <= requestKeyInfoMap.get(request2).getDeadlineDropOff()) {
                 double s9 = requestKeyInfoMap.get(request2).getDeadlineDropOff() - now - t6 - t8 - 2 * pickupDurationPerStop;
-                ttc.storeInCache(request1.getFromLink(), request2.getToLink(), t8);
+                ttc.storeInCache(request1.getFromLink(), request2.getToLink(), now, t8);
                 double t3 = ttc.of(request2.getToLink(), request1.getToLink(), now, false);
                 if (now + t6 + t8 + t3 + 2 * pickupDurationPerStop + dropoffDurationPerStop <= requestKeyInfoMap.get(request1).getDeadlineDropOff()) {
                     double s10 = requestKeyInfoMap.get(request1).getDeadlineDropOff() - now - t6 - t8 - t3 - 2 * pickupDurationPerStop - dropoffDurationPerStop;
-                    ttc.storeInCache(request2.getToLink(), request1.getToLink(), t3);
+                    ttc.storeInCache(request2.getToLink(), request1.getToLink(), now, t3);
                     ss4 = getMinValue(s6, s9, s10);
                 }
             }
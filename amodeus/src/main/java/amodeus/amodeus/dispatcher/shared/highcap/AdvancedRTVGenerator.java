@@ -6,12 +6,18 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.contrib.dvrp.passenger.PassengerRequest;
 
 import amodeus.amodeus.dispatcher.core.RoboTaxi;
+import amodeus.amodeus.util.math.GlobalAssert;
 
 /* package */ class AdvancedRTVGenerator {
     private static final double MAX_RANGE = 999999.8;
@@ -21,141 +27,204 @@ import amodeus.amodeus.dispatcher.core.RoboTaxi;
     private final double pickupDurationPerStop;
     private final double dropoffDurationPerStop;
 
-    public AdvancedRTVGenerator(int capacityOfTaxi, double pickupDurationPerStop, double dropoffDurationPerStop) {
+    /** null if the RTV edges are generated in the calling thread */
+    private final ForkJoinPool forkJoinPool;
+    private final RouteGeneration routeGeneration;
+    private final BranchAndBoundRouteGenerator branchAndBoundRouteGenerator;
+    /** null if the route generations are not compared */
+    private final RouteGenerationMetrics routeGenerationMetrics;
+
+    /** @param parallelism number of threads that generate the RTV edges of different {@link RoboTaxi}s
+     * @param routeGeneration
+     * @param timeBudget in seconds per {@link RoboTaxi} and dispatch period for {@link RouteGeneration#BRANCH_AND_BOUND}
+     * @param routeGenerationMetrics if not null, the routes of both route generations are computed and compared */
+    public AdvancedRTVGenerator(int capacityOfTaxi, double pickupDurationPerStop, double dropoffDurationPerStop, int parallelism, //
+            RouteGeneration routeGeneration, double timeBudget, RouteGenerationMetrics routeGenerationMetrics) {
+        GlobalAssert.that(0 < parallelism);
         this.capacityOfTaxi = capacityOfTaxi;
         this.pickupDurationPerStop = pickupDurationPerStop;
         this.dropoffDurationPerStop = dropoffDurationPerStop;
+        forkJoinPool = parallelism == 1 ? null : new ForkJoinPool(parallelism);
+        this.routeGeneration = Objects.requireNonNull(routeGeneration);
+        branchAndBoundRouteGenerator = new BranchAndBoundRouteGenerator(capacityOfTaxi, pickupDurationPerStop, dropoffDurationPerStop, timeBudget);
+        this.routeGenerationMetrics = routeGenerationMetrics;
+    }
+
+    /** @param parallelism number of threads that generate the RTV edges of different {@link RoboTaxi}s */
+    public AdvancedRTVGenerator(int capacityOfTaxi, double pickupDurationPerStop, double dropoffDurationPerStop, int parallelism) {
+        this(capacityOfTaxi, pickupDurationPerStop, dropoffDurationPerStop, parallelism, RouteGeneration.GREEDY, Double.POSITIVE_INFINITY, null);
     }
 
+    public AdvancedRTVGenerator(int capacityOfTaxi, double pickupDurationPerStop, double dropoffDurationPerStop) {
+        this(capacityOfTaxi, pickupDurationPerStop, dropoffDurationPerStop, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** the RTV edges of every {@link RoboTaxi} are generated in parallel, the result is identical to the generation one
+     * {@link RoboTaxi} after another as the travel times of {@link TravelTimeComputation} do not depend on its cache.
+     * 
+     * @return RTV edges in the order of roboTaxis */
     public List<TripWithVehicle> generateRTV(List<RoboTaxi> roboTaxis, Set<PassengerRequest> newAddedRequests, Set<PassengerRequest> removedRequests, //
             double now, Map<PassengerRequest, RequestKeyInfo> requestKeyInfoMap, Set<Set<PassengerRequest>> rvEdges, //
             TravelTimeComputation ttc, List<TripWithVehicle> lastAssignment, double trafficAllowance) {
-        List<TripWithVehicle> grossListOfRTVEdges = new ArrayList<>();
-        for (RoboTaxi roboTaxi : roboTaxis) {
-            // construct collection of single request to check
-            Set<PassengerRequest> candidateRequests = new HashSet<>();
-            // first get feasible request from last step
+        /** the map is only modified structurally here, during the parallel generation every task accesses the set of its own roboTaxi */
+        for (RoboTaxi roboTaxi : roboTaxis)
             if (!feasibleOpenRequestFromLastStepMap.containsKey(roboTaxi)) {
                 feasibleOpenRequestFromLastStepMap.put(roboTaxi, new HashSet<>());
                 System.out.println("RTV Supplementary map generated for a robotaxi");
             }
+        Map<RoboTaxi, TripWithVehicle> lastTripOfTaxi = new HashMap<>();
+        for (TripWithVehicle tripWithVehicle : lastAssignment)
+            lastTripOfTaxi.putIfAbsent(tripWithVehicle.getRoboTaxi(), tripWithVehicle);
+
+        IntFunction<List<TripWithVehicle>> rtvOfTaxi = index -> {
+            RoboTaxi roboTaxi = roboTaxis.get(index);
+            return generateRTV(roboTaxi, newAddedRequests, removedRequests, now, //
+                    keyInfoOfTaxi(requestKeyInfoMap, lastTripOfTaxi.get(roboTaxi), trafficAllowance), rvEdges, ttc);
+        };
+        List<List<TripWithVehicle>> listsOfRTVEdges = Objects.isNull(forkJoinPool) //
+                ? IntStream.range(0, roboTaxis.size()).mapToObj(rtvOfTaxi).collect(Collectors.toList())
+                : forkJoinPool.submit(() -> IntStream.range(0, roboTaxis.size()).parallel().mapToObj(rtvOfTaxi).collect(Collectors.toList())).join();
+        List<TripWithVehicle> grossListOfRTVEdges = new ArrayList<>();
+        listsOfRTVEdges.forEach(grossListOfRTVEdges::addAll);
+        return grossListOfRTVEdges;
+    }
 
-            candidateRequests.addAll(feasibleOpenRequestFromLastStepMap.get(roboTaxi));
-            // then we add newly added requests and remove request that has been removed from validOpenRequestList
-            candidateRequests.addAll(newAddedRequests);
-            candidateRequests.removeAll(removedRequests);
-            feasibleOpenRequestFromLastStepMap.get(roboTaxi).clear(); // we will write in the new feasible request
-
-            Link taxiCurrentLink = roboTaxi.getDivertableLocation();// get roboTaxi current location
-
-            // change the maxWaitTime of assigned request of this roboTaxi to the original value (there is uncertainty on the road)
-            // IMPORTANT!!! deadlines need to be changed back to the old value after we finish dealing with this roboTaxi
-            for (TripWithVehicle tripWithVehicle : lastAssignment)
-                if (tripWithVehicle.getRoboTaxi() == roboTaxi) {
-                    for (PassengerRequest avRequest : tripWithVehicle.getTrip())
-                        if (requestKeyInfoMap.containsKey(avRequest))
-                            requestKeyInfoMap.get(avRequest).addTrafficAllowance(trafficAllowance);
-                    break;
-                }
+    /** change the maxWaitTime of assigned request of the roboTaxi to the original value (there is uncertainty on the road)
+     * 
+     * @return requestKeyInfoMap if the roboTaxi was not assigned in the last step, otherwise a copy in which the requests
+     *         assigned to the roboTaxi have the traffic allowance, requestKeyInfoMap is not modified as other roboTaxis are
+     *         processed at the same time */
+    private static Map<PassengerRequest, RequestKeyInfo> keyInfoOfTaxi(Map<PassengerRequest, RequestKeyInfo> requestKeyInfoMap, //
+            TripWithVehicle lastTrip, double trafficAllowance) {
+        if (Objects.isNull(lastTrip) || lastTrip.getTrip().stream().noneMatch(requestKeyInfoMap::containsKey))
+            return requestKeyInfoMap;
+        Map<PassengerRequest, RequestKeyInfo> keyInfoOfTaxi = new HashMap<>(requestKeyInfoMap);
+        for (PassengerRequest avRequest : lastTrip.getTrip())
+            if (requestKeyInfoMap.containsKey(avRequest))
+                keyInfoOfTaxi.put(avRequest, requestKeyInfoMap.get(avRequest).withTrafficAllowance(trafficAllowance));
+        return keyInfoOfTaxi;
+    }
 
-            // size 1 trips:
-            List<Set<PassengerRequest>> listOfsize1Trip = new ArrayList<>(); // this is useful for generating possible combination for size 2 trip
-            for (PassengerRequest avRequest : candidateRequests) {
-                double timeFromTaxiToRequest = ttc.of(taxiCurrentLink, //
-                        avRequest.getFromLink(), now, false); // do not store this travel time in Cache.
-                double arrivalTime = now + timeFromTaxiToRequest;
-                double deadlineForPickUp = requestKeyInfoMap.get(avRequest).getDeadlinePickUp(); // see note about modifiedSubmission Time above
-                if (arrivalTime < deadlineForPickUp) { // the request is not too far, we can proceed to route generation/validation
-                    Set<PassengerRequest> additionalRequest = new HashSet<>();
-                    additionalRequest.add(avRequest);
-                    List<StopInRoute> route = RouteGenerator.of(roboTaxi, additionalRequest, now, //
-                            requestKeyInfoMap, capacityOfTaxi, ttc, pickupDurationPerStop, dropoffDurationPerStop);
-                    double totalDelayForThisTrip = TotalDelayCalculator.of(route, requestKeyInfoMap, ttc);
+    private List<TripWithVehicle> generateRTV(RoboTaxi roboTaxi, Set<PassengerRequest> newAddedRequests, Set<PassengerRequest> removedRequests, //
+            double now, Map<PassengerRequest, RequestKeyInfo> keyInfoOfTaxi, Set<Set<PassengerRequest>> rvEdges, TravelTimeComputation ttc) {
+        List<TripWithVehicle> listOfRTVEdges = new ArrayList<>();
+        /** routes of the trips of this roboTaxi are memoized across the trip sizes */
+        BranchAndBoundRouteGenerator.VehicleRoutes vehicleRoutes = routeGeneration == RouteGeneration.BRANCH_AND_BOUND || Objects.nonNull(routeGenerationMetrics) //
+                ? branchAndBoundRouteGenerator.forVehicle(roboTaxi, now, keyInfoOfTaxi, ttc)
+                : null;
+        // construct collection of single request to check
+        Set<PassengerRequest> candidateRequests = new HashSet<>();
+        // first get feasible request from last step
+        Set<PassengerRequest> feasibleOpenRequests = feasibleOpenRequestFromLastStepMap.get(roboTaxi);
+        candidateRequests.addAll(feasibleOpenRequests);
+        // then we add newly added requests and remove request that has been removed from validOpenRequestList
+        candidateRequests.addAll(newAddedRequests);
+        candidateRequests.removeAll(removedRequests);
+        feasibleOpenRequests.clear(); // we will write in the new feasible request
+
+        Link taxiCurrentLink = roboTaxi.getDivertableLocation();// get roboTaxi current location
+
+        // size 1 trips:
+        List<Set<PassengerRequest>> listOfsize1Trip = new ArrayList<>(); // this is useful for generating possible combination for size 2 trip
+        List<PassengerRequest> candidateRequestList = new ArrayList<>(candidateRequests);
+        double[] timesFromTaxiToRequests = ttc.of(taxiCurrentLink, //
+                candidateRequestList.stream().map(PassengerRequest::getFromLink).collect(Collectors.toList()), now, false); // do not store these travel times in Cache.
+        for (int index = 0; index < candidateRequestList.size(); ++index) {
+            PassengerRequest avRequest = candidateRequestList.get(index);
+            double arrivalTime = now + timesFromTaxiToRequests[index];
+            double deadlineForPickUp = keyInfoOfTaxi.get(avRequest).getDeadlinePickUp(); // see note about modifiedSubmission Time above
+            if (arrivalTime < deadlineForPickUp) { // the request is not too far, we can proceed to route generation/validation
+                Set<PassengerRequest> additionalRequest = new HashSet<>();
+                additionalRequest.add(avRequest);
+                List<StopInRoute> route = routeOf(roboTaxi, additionalRequest, now, keyInfoOfTaxi, ttc, vehicleRoutes);
+                double totalDelayForThisTrip = TotalDelayCalculator.of(route, keyInfoOfTaxi, ttc);
+
+                if (isTripValid(totalDelayForThisTrip)) {
+                    // if the route is valid, put this trip into the requestDelayMap
+                    // (thisTrip=additionalRequest in size 1 case)
+                    // requestDelayMap.put(additionalRequest, totalDelayForThisTrip);
+                    TripWithVehicle thisTripWithVehicle = new TripWithVehicle(roboTaxi, totalDelayForThisTrip, additionalRequest, route);
+                    if (thisTripWithVehicle.getRoute().isEmpty() && totalDelayForThisTrip != 0)
+                        System.err.println("something is wrong");
+                    listOfRTVEdges.add(thisTripWithVehicle);
+                    listOfsize1Trip.add(additionalRequest); // this is useful for generating possible combination for size 2 trip
+                    feasibleOpenRequests.add(avRequest);
+                }
+            }
+        }
 
+        // size 2 trips:
+        List<Set<PassengerRequest>> listOfSize2Trips = new ArrayList<>();
+        for (int i = 0; i < listOfsize1Trip.size(); i++)
+            for (int j = i + 1; j < listOfsize1Trip.size(); j++) {
+                Set<PassengerRequest> thisTrip = new HashSet<>();
+                thisTrip.add(listOfsize1Trip.get(i).iterator().next());
+                thisTrip.add(listOfsize1Trip.get(j).iterator().next());
+                // check if this trip is in RV graph
+                if (rvEdges.contains(thisTrip)) {
+                    List<StopInRoute> route = routeOf(roboTaxi, thisTrip, now, keyInfoOfTaxi, ttc, vehicleRoutes);
+                    double totalDelayForThisTrip = TotalDelayCalculator.of(route, keyInfoOfTaxi, ttc);
                     if (isTripValid(totalDelayForThisTrip)) {
-                        // if the route is valid, put this trip into the requestDelayMap
-                        // (thisTrip=additionalRequest in size 1 case)
-                        // requestDelayMap.put(additionalRequest, totalDelayForThisTrip);
-                        TripWithVehicle thisTripWithVehicle = new TripWithVehicle(roboTaxi, totalDelayForThisTrip, additionalRequest, route);
-                        if (thisTripWithVehicle.getRoute().isEmpty() && totalDelayForThisTrip != 0)
-                            System.err.println("something is wrong");
-                        grossListOfRTVEdges.add(thisTripWithVehicle);
-                        listOfsize1Trip.add(additionalRequest); // this is useful for generating possible combination for size 2 trip
-                        feasibleOpenRequestFromLastStepMap.get(roboTaxi).add(avRequest);
+                        TripWithVehicle thisTripWithVehicle = new TripWithVehicle(roboTaxi, totalDelayForThisTrip, thisTrip, route);
+                        listOfRTVEdges.add(thisTripWithVehicle);
+                        listOfSize2Trips.add(thisTrip);
                     }
                 }
             }
 
-            // size 2 trips:
-            List<Set<PassengerRequest>> listOfSize2Trips = new ArrayList<>();
-            for (int i = 0; i < listOfsize1Trip.size(); i++)
-                for (int j = i + 1; j < listOfsize1Trip.size(); j++) {
+        // size 3 to maximum trip length
+        List<Set<PassengerRequest>> listOfTripsFromLastLoop = listOfSize2Trips;
+        List<Set<PassengerRequest>> listOfTripsFromThisLoop = new ArrayList<>();
+        int k = 3;
+        while (k <= capacityOfTaxi && !listOfTripsFromLastLoop.isEmpty()) {
+            // generate all combination of trips with size k
+            listOfTripsFromThisLoop.clear();
+            for (int i = 0; i < listOfTripsFromLastLoop.size(); i++) {
+                for (int j = i + 1; j < listOfTripsFromLastLoop.size(); j++) {
                     Set<PassengerRequest> thisTrip = new HashSet<>();
-                    thisTrip.add(listOfsize1Trip.get(i).iterator().next());
-                    thisTrip.add(listOfsize1Trip.get(j).iterator().next());
-                    // check if this trip is in RV graph
-                    if (rvEdges.contains(thisTrip)) {
-                        List<StopInRoute> route = RouteGenerator.of(roboTaxi, thisTrip, now, //
-                                requestKeyInfoMap, capacityOfTaxi, ttc, pickupDurationPerStop, dropoffDurationPerStop);
-                        double totalDelayForThisTrip = TotalDelayCalculator.of(route, requestKeyInfoMap, ttc);
-                        if (isTripValid(totalDelayForThisTrip)) {
-                            TripWithVehicle thisTripWithVehicle = new TripWithVehicle(roboTaxi, totalDelayForThisTrip, thisTrip, route);
-                            grossListOfRTVEdges.add(thisTripWithVehicle);
-                            listOfSize2Trips.add(thisTrip);
-                        }
-                    }
-                }
-
-            // size 3 to maximum trip length
-            List<Set<PassengerRequest>> listOfTripsFromLastLoop = listOfSize2Trips;
-            List<Set<PassengerRequest>> listOfTripsFromThisLoop = new ArrayList<>();
-            int k = 3;
-            while (k <= capacityOfTaxi && !listOfTripsFromLastLoop.isEmpty()) {
-                // generate all combination of trips with size k
-                listOfTripsFromThisLoop.clear();
-                for (int i = 0; i < listOfTripsFromLastLoop.size(); i++) {
-                    for (int j = i + 1; j < listOfTripsFromLastLoop.size(); j++) {
-                        Set<PassengerRequest> thisTrip = new HashSet<>();
-                        thisTrip.addAll(listOfTripsFromLastLoop.get(i));
-                        thisTrip.addAll(listOfTripsFromLastLoop.get(j));
-
-                        // check if this trip is size k
-                        if (thisTrip.size() == k) {
-                            // check if all thisTrip's sub-trip is in the set of trips of size k-1
-                            if (EverySubtripIsValid.of(listOfTripsFromLastLoop, thisTrip)) {
-                                // if yes, then generate route and validate the route
-                                List<StopInRoute> route = RouteGenerator.of(roboTaxi, thisTrip, now, //
-                                        requestKeyInfoMap, capacityOfTaxi, //
-                                        ttc, pickupDurationPerStop, dropoffDurationPerStop);
-                                double totalDelayForThisTrip = //
-                                        TotalDelayCalculator.of(route, requestKeyInfoMap, ttc);
-                                if (isTripValid(totalDelayForThisTrip)) {
-                                    TripWithVehicle thisTripWithVehicle = new TripWithVehicle(roboTaxi, totalDelayForThisTrip, thisTrip, route);
-                                    grossListOfRTVEdges.add(thisTripWithVehicle);
-                                    listOfTripsFromThisLoop.add(thisTrip);
-                                }
+                    thisTrip.addAll(listOfTripsFromLastLoop.get(i));
+                    thisTrip.addAll(listOfTripsFromLastLoop.get(j));
+
+                    // check if this trip is size k
+                    if (thisTrip.size() == k) {
+                        // check if all thisTrip's sub-trip is in the set of trips of size k-1
+                        if (EverySubtripIsValid.of(listOfTripsFromLastLoop, thisTrip)) {
+                            // if yes, then generate route and validate the route
+                            List<StopInRoute> route = routeOf(roboTaxi, thisTrip, now, keyInfoOfTaxi, ttc, vehicleRoutes);
+                            double totalDelayForThisTrip = //
+                                    TotalDelayCalculator.of(route, keyInfoOfTaxi, ttc);
+                            if (isTripValid(totalDelayForThisTrip)) {
+                                TripWithVehicle thisTripWithVehicle = new TripWithVehicle(roboTaxi, totalDelayForThisTrip, thisTrip, route);
+                                listOfRTVEdges.add(thisTripWithVehicle);
+                                listOfTripsFromThisLoop.add(thisTrip);
                             }
                         }
                     }
                 }
-                k++;
-                listOfTripsFromLastLoop = listOfTripsFromThisLoop;
             }
-
-            // remove some data from cache to release some memory
-            if (!roboTaxi.isInStayTask())
-                ttc.removeEntry(taxiCurrentLink); // if the taxi is moving (not staying), then this entry will not be useful anymore
-
-            // remove traffic allowance we added before, so that next taxi will get the original value
-            for (TripWithVehicle tripWithVehicle : lastAssignment)
-                if (tripWithVehicle.getRoboTaxi() == roboTaxi) {
-                    for (PassengerRequest avRequest : tripWithVehicle.getTrip())
-                        if (requestKeyInfoMap.keySet().contains(avRequest))
-                            requestKeyInfoMap.get(avRequest).removeTrafficAllowance(trafficAllowance);
-                    break;
-                }
+            k++;
+            listOfTripsFromLastLoop = listOfTripsFromThisLoop;
         }
-        return grossListOfRTVEdges;
+
+        if (Objects.nonNull(routeGenerationMetrics) && vehicleRoutes.isBudgetExceeded())
+            routeGenerationMetrics.addBudgetExceeded();
+        return listOfRTVEdges;
+    }
+
+    /** @return route of the configured route generation, null if the trip is infeasible */
+    private List<StopInRoute> routeOf(RoboTaxi roboTaxi, Set<PassengerRequest> trip, double now, Map<PassengerRequest, RequestKeyInfo> keyInfoOfTaxi, //
+            TravelTimeComputation ttc, BranchAndBoundRouteGenerator.VehicleRoutes vehicleRoutes) {
+        if (Objects.isNull(routeGenerationMetrics))
+            return routeGeneration == RouteGeneration.GREEDY //
+                    ? RouteGenerator.of(roboTaxi, trip, now, keyInfoOfTaxi, capacityOfTaxi, ttc, pickupDurationPerStop, dropoffDurationPerStop)
+                    : vehicleRoutes.of(trip);
+        long tic = System.nanoTime();
+        List<StopInRoute> greedyRoute = RouteGenerator.of(roboTaxi, trip, now, keyInfoOfTaxi, capacityOfTaxi, ttc, pickupDurationPerStop, dropoffDurationPerStop);
+        long greedyNanos = System.nanoTime() - tic;
+        tic = System.nanoTime();
+        List<StopInRoute> branchAndBoundRoute = vehicleRoutes.of(trip);
+        routeGenerationMetrics.add(now, keyInfoOfTaxi, ttc, greedyRoute, greedyNanos, branchAndBoundRoute, System.nanoTime() - tic);
+        return routeGeneration == RouteGeneration.GREEDY ? greedyRoute : branchAndBoundRoute;
     }
 
     static boolean isTripValid(double totalDelayForThisTrip) {
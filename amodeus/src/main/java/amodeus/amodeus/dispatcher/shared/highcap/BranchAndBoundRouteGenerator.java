@@ -0,0 +1,297 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.highcap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+
+import amodeus.amodeus.dispatcher.core.RoboTaxi;
+import amodeus.amodeus.dispatcher.shared.OnMenuRequests;
+import amodeus.amodeus.dispatcher.shared.SharedMealType;
+import amodeus.amodeus.util.math.GlobalAssert;
+
+/** Alternative to {@link RouteGenerator}: the route of a trip is the feasible ordering of the stops with the minimal total
+ * delay, i.e., the minimal sum of the drop off times, found with a depth first branch and bound. Arrival times, deadlines,
+ * service durations and the capacity are evaluated exactly as in {@link RouteGenerator}, hence a trip with a feasible
+ * greedy route has a route here with at most the same total delay.
+ *
+ * A branch is pruned if
+ * - the capacity would be exceeded or a stop is reached after its deadline,
+ * - some remaining stop cannot be reached before its deadline even if it is the next stop,
+ * - a lower bound of the total delay is not smaller than the one of the best route found so far.
+ *
+ * The bounds use only the travel times to the possible next stops and do not require the triangle inequality, which does
+ * not hold for the travel times between links. The routes of the trips of one {@link RoboTaxi} are memoized in
+ * {@link VehicleRoutes}: the best insertion of a request into the route of a sub-trip is the initial solution of the search,
+ * which makes the pruning effective from the start. */
+/* package */ class BranchAndBoundRouteGenerator {
+    /** the time budget is checked every 64 search nodes */
+    private static final int BUDGET_CHECK_MASK = 63;
+    // ---
+    private final int capacityOfTaxi;
+    private final double pickupDurationPerStop;
+    private final double dropoffDurationPerStop;
+    private final long timeBudgetNanos;
+
+    /** @param timeBudget in seconds that the search may take for all trips of one {@link RoboTaxi} in one dispatch period,
+     *            {@link Double#POSITIVE_INFINITY} for exact routes. If the budget is exhausted, the best route found so far
+     *            is returned, if there is none the greedy route of {@link RouteGenerator}. */
+    public BranchAndBoundRouteGenerator(int capacityOfTaxi, double pickupDurationPerStop, double dropoffDurationPerStop, double timeBudget) {
+        GlobalAssert.that(0 < timeBudget);
+        this.capacityOfTaxi = capacityOfTaxi;
+        this.pickupDurationPerStop = pickupDurationPerStop;
+        this.dropoffDurationPerStop = dropoffDurationPerStop;
+        timeBudgetNanos = Double.isInfinite(timeBudget) ? Long.MAX_VALUE : (long) (timeBudget * 1e9);
+    }
+
+    /** @return memo of the routes of roboTaxi at time now, must be used by one thread only */
+    public VehicleRoutes forVehicle(RoboTaxi roboTaxi, double now, Map<PassengerRequest, RequestKeyInfo> requestKeyInfoMap, TravelTimeComputation ttc) {
+        return new VehicleRoutes(roboTaxi, now, requestKeyInfoMap, ttc);
+    }
+
+    /* package */ class VehicleRoutes {
+        private final RoboTaxi roboTaxi;
+        private final double now;
+        private final Map<PassengerRequest, RequestKeyInfo> requestKeyInfoMap;
+        private final TravelTimeComputation ttc;
+        private final List<PassengerRequest> onBoardRequests;
+        private final int onBoardPassengers;
+        /** route with minimal total delay by trip, the value is null if the trip is infeasible */
+        private final Map<Set<PassengerRequest>, List<StopInRoute>> routes = new HashMap<>();
+        private final long start = System.nanoTime();
+        private boolean budgetExceeded = false;
+
+        private VehicleRoutes(RoboTaxi roboTaxi, double now, Map<PassengerRequest, RequestKeyInfo> requestKeyInfoMap, TravelTimeComputation ttc) {
+            this.roboTaxi = roboTaxi;
+            this.now = now;
+            this.requestKeyInfoMap = requestKeyInfoMap;
+            this.ttc = ttc;
+            onBoardRequests = new ArrayList<>(OnMenuRequests.getOnBoardRequests(roboTaxi.getUnmodifiableViewOfCourses()));
+            onBoardRequests.sort(Comparator.comparing(PassengerRequest::getId));
+            onBoardPassengers = (int) roboTaxi.getOnBoardPassengers();
+        }
+
+        /** @return route of the requests on board and the additional requests with the minimal total delay,
+         *         or null if there is no feasible route */
+        public List<StopInRoute> of(Set<PassengerRequest> additionalRequests) {
+            Set<PassengerRequest> trip = new HashSet<>(additionalRequests);
+            if (routes.containsKey(trip))
+                return routes.get(trip);
+            List<StopInRoute> route = new Search(trip).route();
+            routes.put(trip, route);
+            return route;
+        }
+
+        /** @return true if the time budget was exhausted, the routes found afterwards may not be optimal */
+        public boolean isBudgetExceeded() {
+            return budgetExceeded;
+        }
+
+        private class Search {
+            private final Set<PassengerRequest> trip;
+            private final List<PassengerRequest> additional;
+            /** the stops of the requests on board come first, then pickup and drop off of every additional request */
+            private final int numberOfStops;
+            private final Link[] links;
+            private final double[] deadlines;
+            private final boolean[] isPickup;
+            private final PassengerRequest[] requests;
+            /** index of the pickup that precedes a drop off, -1 for requests on board and for pickups */
+            private final int[] pickupOf;
+            private final Map<PassengerRequest, Integer> pickupIndex = new HashMap<>();
+            private final Map<PassengerRequest, Integer> dropoffIndex = new HashMap<>();
+            // ---
+            private final boolean[] visited;
+            private final int[] order;
+            private final double[] arrivals;
+            private int[] bestOrder = null;
+            private double[] bestArrivals = null;
+            private double bestCost = Double.POSITIVE_INFINITY;
+            private int nodes = 0;
+
+            Search(Set<PassengerRequest> trip) {
+                this.trip = trip;
+                additional = new ArrayList<>(trip);
+                additional.sort(Comparator.comparing(PassengerRequest::getId));
+                numberOfStops = onBoardRequests.size() + 2 * additional.size();
+                links = new Link[numberOfStops];
+                deadlines = new double[numberOfStops];
+                isPickup = new boolean[numberOfStops];
+                requests = new PassengerRequest[numberOfStops];
+                pickupOf = new int[numberOfStops];
+                int index = 0;
+                for (PassengerRequest avRequest : onBoardRequests)
+                    dropoffIndex.put(avRequest, setDropoff(index++, avRequest, -1));
+                for (PassengerRequest avRequest : additional) {
+                    RequestKeyInfo requestKeyInfo = requestKeyInfoMap.get(avRequest);
+                    links[index] = avRequest.getFromLink();
+                    deadlines[index] = requestKeyInfo.getDeadlinePickUp();
+                    isPickup[index] = true;
+                    requests[index] = avRequest;
+                    pickupOf[index] = -1;
+                    pickupIndex.put(avRequest, index);
+                    dropoffIndex.put(avRequest, setDropoff(index + 1, avRequest, index));
+                    index += 2;
+                }
+                visited = new boolean[numberOfStops];
+                order = new int[numberOfStops];
+                arrivals = new double[numberOfStops];
+            }
+
+            private int setDropoff(int index, PassengerRequest avRequest, int pickup) {
+                links[index] = avRequest.getToLink();
+                deadlines[index] = requestKeyInfoMap.get(avRequest).getDeadlineDropOff();
+                requests[index] = avRequest;
+                pickupOf[index] = pickup;
+                return index;
+            }
+
+            List<StopInRoute> route() {
+                if (!budgetExceeded)
+                    insertIntoSubtrips();
+                if (!budgetExceeded)
+                    branch(0, roboTaxi.getDivertableLocation(), now, onBoardPassengers, 0);
+                if (Objects.isNull(bestOrder))
+                    /** there is no feasible route if the search was completed, otherwise the greedy route is the fallback */
+                    return budgetExceeded //
+                            ? RouteGenerator.of(roboTaxi, trip, now, requestKeyInfoMap, capacityOfTaxi, ttc, pickupDurationPerStop, dropoffDurationPerStop)
+                            : null;
+                List<StopInRoute> route = new ArrayList<>(numberOfStops);
+                for (int depth = 0; depth < numberOfStops; ++depth) {
+                    int stop = bestOrder[depth];
+                    route.add(new StopInRoute(bestArrivals[depth], links[stop], //
+                            isPickup[stop] ? SharedMealType.PICKUP : SharedMealType.DROPOFF, requests[stop]));
+                }
+                return route;
+            }
+
+            /** initial solution: the best insertion of one request into the memoized route of the trip without it */
+            private void insertIntoSubtrips() {
+                if (additional.size() < 2)
+                    return;
+                for (PassengerRequest avRequest : additional) {
+                    Set<PassengerRequest> subtrip = new HashSet<>(trip);
+                    subtrip.remove(avRequest);
+                    List<StopInRoute> subroute = routes.get(subtrip);
+                    if (Objects.isNull(subroute))
+                        continue;
+                    int[] base = subroute.stream().mapToInt(stopInRoute -> stopInRoute.getStopType() == SharedMealType.PICKUP //
+                            ? pickupIndex.get(stopInRoute.getavRequest())
+                            : dropoffIndex.get(stopInRoute.getavRequest())).toArray();
+                    int[] candidate = new int[numberOfStops];
+                    for (int pickupPosition = 0; pickupPosition <= base.length; ++pickupPosition)
+                        for (int dropoffPosition = pickupPosition + 1; dropoffPosition <= base.length + 1; ++dropoffPosition) {
+                            for (int position = 0, baseIndex = 0; position < numberOfStops; ++position)
+                                candidate[position] = position == pickupPosition //
+                                        ? pickupIndex.get(avRequest)
+                                        : position == dropoffPosition //
+                                                ? dropoffIndex.get(avRequest)
+                                                : base[baseIndex++];
+                            evaluate(candidate);
+                        }
+                }
+            }
+
+            /** replaces the best route if the complete ordering is feasible and has a smaller total delay */
+            private void evaluate(int[] candidate) {
+                Link currentLink = roboTaxi.getDivertableLocation();
+                double time = now;
+                int onBoard = onBoardPassengers;
+                double cost = 0;
+                for (int depth = 0; depth < numberOfStops; ++depth) {
+                    int stop = candidate[depth];
+                    double arrival = time + ttc.of(currentLink, links[stop], time, true);
+                    if (deadlines[stop] < arrival || (isPickup[stop] && capacityOfTaxi <= onBoard))
+                        return;
+                    arrivals[depth] = arrival;
+                    onBoard += isPickup[stop] ? 1 : -1;
+                    time = arrival + serviceDuration(stop);
+                    cost += isPickup[stop] ? 0 : arrival;
+                    currentLink = links[stop];
+                }
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestOrder = candidate.clone();
+                    bestArrivals = arrivals.clone();
+                }
+            }
+
+            private void branch(int depth, Link currentLink, double time, int onBoard, double cost) {
+                if (depth == numberOfStops) {
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestOrder = order.clone();
+                        bestArrivals = arrivals.clone();
+                    }
+                    return;
+                }
+                if ((++nodes & BUDGET_CHECK_MASK) == 0 && timeBudgetNanos < System.nanoTime() - start)
+                    budgetExceeded = true;
+                if (budgetExceeded)
+                    return;
+
+                /** the possible next stops respect capacity and the pickup before drop off */
+                int[] candidates = new int[numberOfStops - depth];
+                int numberOfCandidates = 0;
+                int remainingDropoffs = 0;
+                for (int stop = 0; stop < numberOfStops; ++stop)
+                    if (!visited[stop]) {
+                        if (!isPickup[stop])
+                            ++remainingDropoffs;
+                        if (isPickup[stop] ? onBoard < capacityOfTaxi : pickupOf[stop] < 0 || visited[pickupOf[stop]])
+                            candidates[numberOfCandidates++] = stop;
+                    }
+                if (numberOfCandidates == 0)
+                    return;
+                List<Link> candidateLinks = new ArrayList<>(numberOfCandidates);
+                for (int index = 0; index < numberOfCandidates; ++index)
+                    candidateLinks.add(links[candidates[index]]);
+                double[] travelTimes = ttc.of(currentLink, candidateLinks, time, true);
+
+                /** every remaining stop is reached at the earliest when the closest possible next stop is reached */
+                double earliest = Double.POSITIVE_INFINITY;
+                for (double travelTime : travelTimes)
+                    earliest = Math.min(earliest, time + travelTime);
+                for (int stop = 0; stop < numberOfStops; ++stop)
+                    if (!visited[stop] && deadlines[stop] < earliest)
+                        return;
+                /** the i-th remaining drop off is reached at the earliest after i further stops */
+                double minServiceDuration = Math.min(pickupDurationPerStop, dropoffDurationPerStop);
+                double lowerBound = cost + remainingDropoffs * earliest + minServiceDuration * remainingDropoffs * (remainingDropoffs - 1) / 2;
+                if (bestCost <= lowerBound)
+                    return;
+
+                /** closest stops first such that good routes are found early, ties in the order of the stops */
+                Integer[] ranking = new Integer[numberOfCandidates];
+                for (int index = 0; index < numberOfCandidates; ++index)
+                    ranking[index] = index;
+                Arrays.sort(ranking, Comparator.comparingDouble((Integer index) -> travelTimes[index]).thenComparingInt(index -> index));
+                for (int index : ranking) {
+                    int stop = candidates[index];
+                    double arrival = time + travelTimes[index];
+                    if (deadlines[stop] < arrival)
+                        continue;
+                    visited[stop] = true;
+                    order[depth] = stop;
+                    arrivals[depth] = arrival;
+                    branch(depth + 1, links[stop], arrival + serviceDuration(stop), //
+                            onBoard + (isPickup[stop] ? 1 : -1), cost + (isPickup[stop] ? 0 : arrival));
+                    visited[stop] = false;
+                }
+            }
+
+            private double serviceDuration(int stop) {
+                return isPickup[stop] ? pickupDurationPerStop : dropoffDurationPerStop;
+            }
+        }
+    }
+}
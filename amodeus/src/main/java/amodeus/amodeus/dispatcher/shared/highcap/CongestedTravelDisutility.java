@@ -0,0 +1,48 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.highcap;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+import amodeus.amodeus.util.math.GlobalAssert;
+
+/** travel time of a time dependent {@link TravelTime} as disutility, such that the fastest path with the congested travel
+ * times is found. Link speeds may exceed the free speed, therefore the minimum disutility of a link is not its free flow
+ * travel time but its smallest travel time at the start of all validity periods until the end time. The travel times
+ * are assumed to be constant within a validity period, as assumed by the cache of {@link TravelTimeComputation}. */
+/* package */ class CongestedTravelDisutility implements TravelDisutility {
+    private final TravelTime travelTime;
+    /** by index of link id */
+    private final double[] minimumTravelTimes;
+
+    /** @param network
+     * @param travelTime
+     * @param validityPeriod duration in seconds of the periods for which a travel time is valid, positive
+     * @param endTime of the simulation in seconds */
+    public CongestedTravelDisutility(Network network, TravelTime travelTime, double validityPeriod, double endTime) {
+        GlobalAssert.that(0 < validityPeriod);
+        this.travelTime = travelTime;
+        minimumTravelTimes = new double[Id.getNumberOfIds(Link.class)];
+        for (Link link : network.getLinks().values()) {
+            double minimum = Double.POSITIVE_INFINITY;
+            for (double time = 0; time <= endTime; time += validityPeriod)
+                minimum = Math.min(minimum, travelTime.getLinkTravelTime(link, time, null, null));
+            minimumTravelTimes[link.getId().index()] = minimum;
+        }
+    }
+
+    @Override
+    public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+        return travelTime.getLinkTravelTime(link, time, person, vehicle);
+    }
+
+    @Override
+    public double getLinkMinimumTravelDisutility(Link link) {
+        return minimumTravelTimes[link.getId().index()];
+    }
+}
@@ -0,0 +1,175 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.highcap;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+import amodeus.amodeus.util.math.GlobalAssert;
+
+/** travel times from one link to many links with a single Dijkstra search that stops as soon as all targets are settled.
+ * The travel times are those of the least cost paths from the from-node of the origin to the to-nodes of the targets,
+ * like {@link TravelTimeComputation#of(Link, Link, double, boolean)}. The network is stored in arrays that are shared,
+ * the state of the search is kept per {@link Search}, which must not be shared between threads. */
+/* package */ class OneToManyTravelTimes {
+    private final TravelDisutility travelDisutility;
+    private final TravelTime travelTime;
+    /** node index by {@link Node} id index */
+    private final int[] nodeIndexOfId;
+    /** outgoing links of node i are firstLink[i], ..., firstLink[i + 1] - 1 */
+    private final int[] firstLink;
+    private final int[] toNode;
+    private final Link[] links;
+
+    public OneToManyTravelTimes(Network network, TravelDisutility travelDisutility, TravelTime travelTime) {
+        this.travelDisutility = travelDisutility;
+        this.travelTime = travelTime;
+        Node[] nodes = network.getNodes().values().toArray(new Node[0]);
+        nodeIndexOfId = new int[Arrays.stream(nodes).mapToInt(node -> node.getId().index()).max().orElse(-1) + 1];
+        Arrays.fill(nodeIndexOfId, -1);
+        for (int index = 0; index < nodes.length; ++index)
+            nodeIndexOfId[nodes[index].getId().index()] = index;
+        firstLink = new int[nodes.length + 1];
+        toNode = new int[network.getLinks().size()];
+        links = new Link[network.getLinks().size()];
+        int count = 0;
+        for (int index = 0; index < nodes.length; ++index) {
+            firstLink[index] = count;
+            for (Link link : nodes[index].getOutLinks().values()) {
+                toNode[count] = indexOf(link.getToNode());
+                links[count++] = link;
+            }
+        }
+        firstLink[nodes.length] = count;
+        GlobalAssert.that(count == links.length);
+    }
+
+    private int indexOf(Node node) {
+        int id = node.getId().index();
+        GlobalAssert.that(id < nodeIndexOfId.length && 0 <= nodeIndexOfId[id]);
+        return nodeIndexOfId[id];
+    }
+
+    /** @return new search state for one thread */
+    public Search newSearch() {
+        return new Search();
+    }
+
+    /* package */ class Search {
+        private final double[] cost = new double[firstLink.length - 1];
+        /** absolute arrival time as in the path calculators of MATSim */
+        private final double[] arrival = new double[cost.length];
+        /** nodes with reached[node] == stamp have been reached in the current search */
+        private final int[] reached = new int[cost.length];
+        private final int[] settled = new int[cost.length];
+        private final int[] target = new int[cost.length];
+        private int stamp = 0;
+        private int[] heapNodes = new int[64];
+        private double[] heapCosts = new double[64];
+        private int heapSize = 0;
+
+        /** @return travel times from the from-node of fromLink to the to-nodes of toLinks departing at time now,
+         *         {@link Double#POSITIVE_INFINITY} if a node is not reachable */
+        public double[] of(Link fromLink, List<Link> toLinks, double now) {
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(reached, 0);
+                Arrays.fill(settled, 0);
+                Arrays.fill(target, 0);
+                stamp = 1;
+            }
+            int remaining = 0;
+            int[] targets = new int[toLinks.size()];
+            for (int index = 0; index < targets.length; ++index) {
+                targets[index] = indexOf(toLinks.get(index).getToNode());
+                if (target[targets[index]] != stamp) {
+                    target[targets[index]] = stamp;
+                    ++remaining;
+                }
+            }
+
+            int origin = indexOf(fromLink.getFromNode());
+            reach(origin, 0, now);
+            heapSize = 0;
+            push(origin, 0);
+            while (0 < remaining && 0 < heapSize) {
+                int node = heapNodes[0];
+                double nodeCost = heapCosts[0];
+                pop();
+                /** entries with a cost larger than the current cost of the node are outdated */
+                if (settled[node] == stamp || cost[node] < nodeCost)
+                    continue;
+                settled[node] = stamp;
+                if (target[node] == stamp)
+                    --remaining;
+                for (int index = firstLink[node]; index < firstLink[node + 1]; ++index) {
+                    int next = toNode[index];
+                    if (settled[next] == stamp)
+                        continue;
+                    Link link = links[index];
+                    double nextCost = cost[node] + travelDisutility.getLinkTravelDisutility(link, arrival[node], null, null);
+                    if (reached[next] != stamp || nextCost < cost[next]) {
+                        reach(next, nextCost, arrival[node] + travelTime.getLinkTravelTime(link, arrival[node], null, null));
+                        push(next, nextCost);
+                    }
+                }
+            }
+
+            double[] travelTimes = new double[targets.length];
+            for (int index = 0; index < targets.length; ++index)
+                travelTimes[index] = settled[targets[index]] == stamp //
+                        ? arrival[targets[index]] - now
+                        : Double.POSITIVE_INFINITY;
+            return travelTimes;
+        }
+
+        private void reach(int node, double nodeCost, double nodeArrival) {
+            reached[node] = stamp;
+            cost[node] = nodeCost;
+            arrival[node] = nodeArrival;
+        }
+
+        /** binary min-heap, a node is pushed again when its cost decreases */
+        private void push(int node, double nodeCost) {
+            if (heapSize == heapNodes.length) {
+                heapNodes = Arrays.copyOf(heapNodes, 2 * heapSize);
+                heapCosts = Arrays.copyOf(heapCosts, 2 * heapSize);
+            }
+            int index = heapSize++;
+            while (0 < index) {
+                int parent = (index - 1) / 2;
+                if (heapCosts[parent] <= nodeCost)
+                    break;
+                heapNodes[index] = heapNodes[parent];
+                heapCosts[index] = heapCosts[parent];
+                index = parent;
+            }
+            heapNodes[index] = node;
+            heapCosts[index] = nodeCost;
+        }
+
+        private void pop() {
+            int node = heapNodes[--heapSize];
+            double nodeCost = heapCosts[heapSize];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (heapSize <= child)
+                    break;
+                if (child + 1 < heapSize && heapCosts[child + 1] < heapCosts[child])
+                    ++child;
+                if (nodeCost <= heapCosts[child])
+                    break;
+                heapNodes[index] = heapNodes[child];
+                heapCosts[index] = heapCosts[child];
+                index = child;
+            }
+            heapNodes[index] = node;
+            heapCosts[index] = nodeCost;
+        }
+    }
+}
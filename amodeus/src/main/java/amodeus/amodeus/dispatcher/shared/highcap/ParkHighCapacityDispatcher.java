@@ -12,6 +12,7 @@ import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.apache.log4j.Logger;
 import org.matsim.amodeus.components.AmodeusDispatcher;
 import org.matsim.amodeus.components.AmodeusRouter;
 import org.matsim.amodeus.config.AmodeusModeConfig;
@@ -22,7 +23,7 @@ import org.matsim.contrib.dvrp.run.ModalProviders.InstanceGetter;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 import org.matsim.core.router.FastAStarLandmarksFactory;
-import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
 import amodeus.amodeus.dispatcher.core.DispatcherConfigWrapper;
@@ -36,6 +37,7 @@ import amodeus.amodeus.net.MatsimAmodeusDatabase;
 import amodeus.amodeus.parking.capacities.ParkingCapacity;
 import amodeus.amodeus.parking.strategies.ParkingStrategy;
 import amodeus.amodeus.routing.EasyMinTimePathCalculator;
+import amodeus.amodeus.util.math.GlobalAssert;
 
 /** High-Capacity Algorithm from Alonso-Mora, Javier, et al. "On-demand high-capacity ride-sharing via dynamic trip-vehicle assignment."
  * Proceedings of the National Academy of Sciences 114.3 (2017): 462-467.
@@ -46,6 +48,7 @@ import amodeus.amodeus.routing.EasyMinTimePathCalculator;
 /* package */ class ParkHighCapacityDispatcher extends SharedRebalancingDispatcher {
     /** parameters */
 
+    private static final Logger LOGGER = Logger.getLogger(ParkHighCapacityDispatcher.class);
     private static final double MAX_DELAY = 600.0;
     private static final double maxWaitTime = 300.0;
     private static final double costOfIgnoredReuqestNormal = 7200;
@@ -64,13 +67,18 @@ import amodeus.amodeus.routing.EasyMinTimePathCalculator;
     private final int sizeLimit = 1000; // limit the size of valid open request
     /** RTV generator */
     private final AdvancedRTVGenerator rtvGG;
+    /** comparison of the route generations, null if disabled */
+    private final RouteGenerationMetrics routeGenerationMetrics;
+    /** seconds between two log entries of the route generation metrics */
+    private final int routeMetricsPeriod;
+    private double nextRouteMetricsLog;
     private final double trafficTimeAllowance = 60;
     /** Path calculator */
     private final TravelTimeComputation ttc;
     /** RV generator */
     private final AdvanceTVRVGenerator rvGenerator;
-    /** Cache */
-    private final int sizeLimitOfCache = 200000;
+    /** Cache (number of link pairs) */
+    private final int sizeLimitOfCache = 2000000;
     /** Loop Prevention */
     private final CheckingUpdateMenuOrNot checkingUpdateMenuOrNot;
 
@@ -107,11 +115,27 @@ import amodeus.amodeus.routing.EasyMinTimePathCalculator;
         links = new ArrayList<>(network.getLinks().values());
         Collections.shuffle(links, randGen);
 
-        FastAStarLandmarksFactory factory = new FastAStarLandmarksFactory(Runtime.getRuntime().availableProcessors());
-        LeastCostPathCalculator lcpc = EasyMinTimePathCalculator.prepPathCalculator(network, factory);
-        ttc = new TravelTimeComputation(lcpc, sizeLimitOfCache);
-        rtvGG = new AdvancedRTVGenerator(capacityOfTaxi, pickupDurationPerStop, dropoffDurationPerStop);
-        rvGenerator = new AdvanceTVRVGenerator(pickupDurationPerStop, dropoffDurationPerStop);
+        /** the RV and RTV graphs are generated in parallel, every thread routes with its own path calculator */
+        int numberOfThreads = dispatcherConfig.getCustomDataInteger(Runtime.getRuntime().availableProcessors(), "numberOfThreads");
+        FastAStarLandmarksFactory factory = new FastAStarLandmarksFactory(numberOfThreads);
+        /** by default the time independent free flow travel times are used and never expire, with a positive
+         * travelTimeValidityPeriod in seconds the fastest paths with the travel times of the simulation are cached per period */
+        int validityPeriod = dispatcherConfig.getCustomDataInteger(0, "travelTimeValidityPeriod");
+        TravelDisutility travelDisutility = 0 < validityPeriod //
+                ? new CongestedTravelDisutility(network, travelTime, validityPeriod, config.qsim().getEndTime().orElse(30 * 3600))
+                : EasyMinTimePathCalculator.TRAVEL_DISUTILITY;
+        ttc = new TravelTimeComputation(network, factory, travelDisutility, 0 < validityPeriod ? travelTime : EasyMinTimePathCalculator.TRAVEL_TIME, //
+                sizeLimitOfCache, 0 < validityPeriod ? validityPeriod : Double.POSITIVE_INFINITY);
+        /** the routes of the trips are either greedy or optimal with an optional time budget in milliseconds per taxi (0 for none) */
+        RouteGeneration routeGeneration = RouteGeneration.valueOf(dispatcherConfig.getString("routeGeneration", RouteGeneration.GREEDY.name()));
+        int routeTimeBudget = dispatcherConfig.getCustomDataInteger(0, "routeTimeBudget");
+        routeGenerationMetrics = Boolean.parseBoolean(dispatcherConfig.getString("routeMetrics", "false")) ? new RouteGenerationMetrics() : null;
+        routeMetricsPeriod = dispatcherConfig.getCustomDataInteger(3600, "routeMetricsPeriod");
+        GlobalAssert.that(0 < routeMetricsPeriod);
+        nextRouteMetricsLog = routeMetricsPeriod;
+        rtvGG = new AdvancedRTVGenerator(capacityOfTaxi, pickupDurationPerStop, dropoffDurationPerStop, numberOfThreads, //
+                routeGeneration, routeTimeBudget == 0 ? Double.POSITIVE_INFINITY : routeTimeBudget * 0.001, routeGenerationMetrics);
+        rvGenerator = new AdvanceTVRVGenerator(pickupDurationPerStop, dropoffDurationPerStop, network, travelDisutility, numberOfThreads);
         checkingUpdateMenuOrNot = new CheckingUpdateMenuOrNot();
 
         /** PARKING EXTENSION */
@@ -150,9 +174,6 @@ import amodeus.amodeus.routing.EasyMinTimePathCalculator;
             Set<PassengerRequest> removedRequests = RequestTracker.getRemovedRequests(requestPool, lastRequestPool); // write down removed request
             Set<PassengerRequest> remainedRequests = RequestTracker.getRemainedRequests(requestPool, lastRequestPool); // write down remained request
 
-            // remove the data from cache to release memory
-            removedRequests.stream().filter(avRequest -> !overduedRequests.contains(avRequest)).map(PassengerRequest::getFromLink).forEach(ttc::removeEntry);
-
             // RV diagram construction
             Set<Set<PassengerRequest>> rvEdges = rvGenerator.generateRVGraph(newAddedValidRequests, removedRequests, remainedRequests, //
                     now, ttc, requestKeyInfoMap);
@@ -161,6 +182,11 @@ import amodeus.amodeus.routing.EasyMinTimePathCalculator;
             List<TripWithVehicle> grossListOfRTVEdges = rtvGG.generateRTV(getRoboTaxis(), newAddedValidRequests, //
                     removedRequests, now, requestKeyInfoMap, //
                     rvEdges, ttc, lastAssignment, trafficTimeAllowance);
+            if (Objects.nonNull(routeGenerationMetrics) && nextRouteMetricsLog <= now) {
+                LOGGER.info(routeGenerationMetrics);
+                routeGenerationMetrics.reset();
+                nextRouteMetricsLog = (Math.floor(now / routeMetricsPeriod) + 1) * routeMetricsPeriod;
+            }
 
             // ILP
             // start
@@ -3,6 +3,7 @@ package amodeus.amodeus.dispatcher.shared.highcap;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.contrib.dvrp.passenger.PassengerRequest;
@@ -18,14 +19,15 @@ import amodeus.amodeus.dispatcher.core.RoboTaxi;
             List<PassengerRequest> listOfUnassignedRequest, List<RoboTaxi> idlingRoboTaxis, //
             double now, TravelTimeComputation ttc) {
         List<RebalanceTripWithVehicle> listOfAllRebalanceTripWithVehicle = new ArrayList<>();
-        for (RoboTaxi idlingRoboTaxi : idlingRoboTaxis)
-            for (PassengerRequest unassignedRequest : listOfUnassignedRequest) {
-                Link taxiLink = idlingRoboTaxi.getDivertableLocation();
-                Link requestLink = unassignedRequest.getFromLink();
-                double timeToTravel = ttc.of(taxiLink, requestLink, now, false); // do not store this, since rebalance does not take much time
-                RebalanceTripWithVehicle thisRebalanceTrip = new RebalanceTripWithVehicle(idlingRoboTaxi, timeToTravel, unassignedRequest);
+        List<Link> requestLinks = listOfUnassignedRequest.stream().map(PassengerRequest::getFromLink).collect(Collectors.toList());
+        for (RoboTaxi idlingRoboTaxi : idlingRoboTaxis) {
+            Link taxiLink = idlingRoboTaxi.getDivertableLocation();
+            double[] timesToTravel = ttc.of(taxiLink, requestLinks, now, false); // do not store this, since rebalance does not take much time
+            for (int index = 0; index < listOfUnassignedRequest.size(); ++index) {
+                RebalanceTripWithVehicle thisRebalanceTrip = new RebalanceTripWithVehicle(idlingRoboTaxi, timesToTravel[index], listOfUnassignedRequest.get(index));
                 listOfAllRebalanceTripWithVehicle.add(thisRebalanceTrip);
             }
+        }
 
         return listOfAllRebalanceTripWithVehicle;
     }
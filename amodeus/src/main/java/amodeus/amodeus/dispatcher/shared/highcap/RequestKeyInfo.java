@@ -22,6 +22,13 @@ public class RequestKeyInfo {
         allowanceGiven = false;
     }
 
+    private RequestKeyInfo(RequestKeyInfo requestKeyInfo) {
+        deadlinePickUp = requestKeyInfo.deadlinePickUp;
+        modifiableSubmissionTime = requestKeyInfo.modifiableSubmissionTime;
+        deadlineDropOff = requestKeyInfo.deadlineDropOff;
+        allowanceGiven = requestKeyInfo.allowanceGiven;
+    }
+
     public double getDeadlinePickUp() {
         return deadlinePickUp;
     }
@@ -56,6 +63,14 @@ public class RequestKeyInfo {
         allowanceGiven = true;
     }
 
+    /** @return copy with traffic allowance, the deadlines of this instance are not changed such that
+     *         the copy can be used while other threads read this instance */
+    /* package */ RequestKeyInfo withTrafficAllowance(double trafficAllowance) {
+        RequestKeyInfo requestKeyInfo = new RequestKeyInfo(this);
+        requestKeyInfo.addTrafficAllowance(trafficAllowance);
+        return requestKeyInfo;
+    }
+
     public void removeTrafficAllowance(double trafficAllowance) { // this function is needed when we finish dealing with one roboTaxi, we need to change back
                                                                   // the deadlines
         if (allowanceGiven) {
@@ -0,0 +1,12 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.highcap;
+
+/** route generation of the RTV graph, set in the av.xml file with
+ * <param name="routeGeneration" value="BRANCH_AND_BOUND" /> */
+/* package */ enum RouteGeneration {
+    /** {@link RouteGenerator}: the next stop is the closest one in Euclidean distance, fast but a feasible
+     * trip may be rejected */
+    GREEDY,
+    /** {@link BranchAndBoundRouteGenerator}: the route with the minimal total delay over all orderings of the stops */
+    BRANCH_AND_BOUND;
+}
@@ -0,0 +1,104 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.highcap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+
+/** comparison of the routes of {@link RouteGenerator} and {@link BranchAndBoundRouteGenerator} for the same trips, the
+ * duration and total delay are summed over the trips for which both routes are feasible. The metrics are collected by
+ * several threads, logged by the dispatcher every routeMetricsPeriod seconds (default 3600) and reset afterwards,
+ * enabled in the av.xml file with
+ * <param name="routeMetrics" value="true" /> */
+/* package */ class RouteGenerationMetrics {
+    private final LongAdder trips = new LongAdder();
+    private final LongAdder greedyFeasible = new LongAdder();
+    private final LongAdder branchAndBoundFeasible = new LongAdder();
+    private final LongAdder bothFeasible = new LongAdder();
+    private final LongAdder greedyNanos = new LongAdder();
+    private final LongAdder branchAndBoundNanos = new LongAdder();
+    private final LongAdder budgetExceeded = new LongAdder();
+    private final DoubleAdder greedyDuration = new DoubleAdder();
+    private final DoubleAdder branchAndBoundDuration = new DoubleAdder();
+    private final DoubleAdder greedyDelay = new DoubleAdder();
+    private final DoubleAdder branchAndBoundDelay = new DoubleAdder();
+
+    /** @param greedyRoute null if infeasible
+     * @param branchAndBoundRoute null if infeasible */
+    public void add(double now, Map<PassengerRequest, RequestKeyInfo> requestKeyInfoMap, TravelTimeComputation ttc, //
+            List<StopInRoute> greedyRoute, long greedyNanos, List<StopInRoute> branchAndBoundRoute, long branchAndBoundNanos) {
+        trips.increment();
+        this.greedyNanos.add(greedyNanos);
+        this.branchAndBoundNanos.add(branchAndBoundNanos);
+        if (Objects.nonNull(greedyRoute))
+            greedyFeasible.increment();
+        if (Objects.nonNull(branchAndBoundRoute))
+            branchAndBoundFeasible.increment();
+        if (Objects.nonNull(greedyRoute) && Objects.nonNull(branchAndBoundRoute)) {
+            bothFeasible.increment();
+            greedyDuration.add(durationOf(greedyRoute, now));
+            branchAndBoundDuration.add(durationOf(branchAndBoundRoute, now));
+            greedyDelay.add(TotalDelayCalculator.of(greedyRoute, requestKeyInfoMap, ttc));
+            branchAndBoundDelay.add(TotalDelayCalculator.of(branchAndBoundRoute, requestKeyInfoMap, ttc));
+        }
+    }
+
+    /** counts a roboTaxi for which the time budget of the branch and bound was exhausted */
+    public void addBudgetExceeded() {
+        budgetExceeded.increment();
+    }
+
+    /** @return time from now until the last stop is reached */
+    private static double durationOf(List<StopInRoute> route, double now) {
+        return route.isEmpty() ? 0 : route.get(route.size() - 1).getTime() - now;
+    }
+
+    public long getTrips() {
+        return trips.sum();
+    }
+
+    public long getGreedyFeasible() {
+        return greedyFeasible.sum();
+    }
+
+    public long getBranchAndBoundFeasible() {
+        return branchAndBoundFeasible.sum();
+    }
+
+    /** @return ratio of the summed durations of the routes found by branch and bound and by the greedy generator */
+    public double getDurationRatio() {
+        return branchAndBoundDuration.sum() / greedyDuration.sum();
+    }
+
+    /** @return ratio of the summed total delays of the routes found by branch and bound and by the greedy generator */
+    public double getDelayRatio() {
+        return branchAndBoundDelay.sum() / greedyDelay.sum();
+    }
+
+    /** @return ratio of the generation times of branch and bound and the greedy generator */
+    public double getTimeRatio() {
+        return branchAndBoundNanos.sum() / (double) greedyNanos.sum();
+    }
+
+    public void reset() {
+        for (LongAdder longAdder : new LongAdder[] { trips, greedyFeasible, branchAndBoundFeasible, bothFeasible, greedyNanos, branchAndBoundNanos, budgetExceeded })
+            longAdder.reset();
+        for (DoubleAdder doubleAdder : new DoubleAdder[] { greedyDuration, branchAndBoundDuration, greedyDelay, branchAndBoundDelay })
+            doubleAdder.reset();
+    }
+
+    @Override
+    public String toString() {
+        long both = Math.max(1, bothFeasible.sum());
+        return String.format("routes of %d trips, feasible: greedy %d, branch and bound %d; " //
+                + "mean duration: greedy %.1f[s], branch and bound %.1f[s]; mean total delay: greedy %.1f[s], branch and bound %.1f[s]; " //
+                + "generation: greedy %.1f[ms], branch and bound %.1f[ms], budget exceeded for %d taxis", //
+                trips.sum(), greedyFeasible.sum(), branchAndBoundFeasible.sum(), //
+                greedyDuration.sum() / both, branchAndBoundDuration.sum() / both, greedyDelay.sum() / both, branchAndBoundDelay.sum() / both, //
+                greedyNanos.sum() * 1e-6, branchAndBoundNanos.sum() * 1e-6, budgetExceeded.sum());
+    }
+}
@@ -1,53 +1,172 @@
 /* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
 package amodeus.amodeus.dispatcher.shared.highcap;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
 
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
 
-import amodeus.amodeus.util.math.LruCache;
+import amodeus.amodeus.routing.LinkPairCache;
+import amodeus.amodeus.util.math.GlobalAssert;
 
+/** Travel times between links with a cache of limited size. The class is thread-safe: the cache is
+ * concurrent and every thread routes with its own {@link LeastCostPathCalculator} obtained from the
+ * supplier.
+ *
+ * The travel times are stored in segments of {@link LinkPairCache}s with separate locks and are valid for one
+ * period of the day, e.g., the time bin of the link speeds. Computed travel times are rounded to float also if
+ * they are not stored, such that the result does not depend on the content of the cache. */
 public class TravelTimeComputation {
+    private static final int MAX_SEGMENTS = 64;
+    private static final int MIN_SEGMENT_SIZE = 1024;
 
-    private final LeastCostPathCalculator leastCostPathCalculator;
-    private final Map<Link, Map<Link, Double>> travelTimeDataMap;
+    private final ThreadLocal<LeastCostPathCalculator> leastCostPathCalculator;
+    /** null if travel times to many links are computed one by one */
+    private final ThreadLocal<OneToManyTravelTimes.Search> oneToManySearch;
+    private final LinkPairCache[] segments;
 
+    /** @param network
+     * @param factory creates one path calculator for every thread that computes travel times
+     * @param travelDisutility
+     * @param travelTime
+     * @param sizeLimit maximum number of link pairs in cache
+     * @param validityPeriod duration in seconds for which cached travel times are valid, the day is divided into
+     *            periods of this length, {@link Double#POSITIVE_INFINITY} if the travel times do not depend on the time */
+    public TravelTimeComputation(Network network, LeastCostPathCalculatorFactory factory, TravelDisutility travelDisutility, TravelTime travelTime, //
+            int sizeLimit, double validityPeriod) {
+        this(() -> factory.createPathCalculator(network, travelDisutility, travelTime), //
+                new OneToManyTravelTimes(network, travelDisutility, travelTime), sizeLimit, validityPeriod);
+    }
+
+    /** @param leastCostPathCalculatorSupplier is called once by every thread that computes travel times,
+     *            calls to the supplier are synchronized
+     * @param sizeLimit maximum number of link pairs in cache, the travel times are assumed not to depend on the time */
+    public TravelTimeComputation(Supplier<LeastCostPathCalculator> leastCostPathCalculatorSupplier, int sizeLimit) {
+        this(leastCostPathCalculatorSupplier, null, sizeLimit, Double.POSITIVE_INFINITY);
+    }
+
+    /** all threads share the given calculator, its queries are serialized */
     public TravelTimeComputation(LeastCostPathCalculator leastCostPathCalculator, int sizeLimit) {
-        this.leastCostPathCalculator = leastCostPathCalculator;
-        travelTimeDataMap = LruCache.create(sizeLimit);
+        this(() -> leastCostPathCalculator, sizeLimit);
     }
 
-    // map data structure
-    public double of(Link fromLink, Link toLink, double now, boolean storeInCache) {
-        travelTimeDataMap.computeIfAbsent(fromLink, l -> new HashMap<>());
+    private TravelTimeComputation(Supplier<LeastCostPathCalculator> leastCostPathCalculatorSupplier, OneToManyTravelTimes oneToManyTravelTimes, //
+            int sizeLimit, double validityPeriod) {
+        Objects.requireNonNull(leastCostPathCalculatorSupplier);
+        GlobalAssert.that(0 < validityPeriod);
+        leastCostPathCalculator = ThreadLocal.withInitial(() -> {
+            synchronized (leastCostPathCalculatorSupplier) {
+                return leastCostPathCalculatorSupplier.get();
+            }
+        });
+        oneToManySearch = Objects.isNull(oneToManyTravelTimes) //
+                ? null
+                : ThreadLocal.withInitial(oneToManyTravelTimes::newSearch);
+        GlobalAssert.that(0 < sizeLimit);
+        segments = new LinkPairCache[Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, sizeLimit / MIN_SEGMENT_SIZE)))];
+        for (int index = 0; index < segments.length; ++index)
+            segments[index] = LinkPairCache.validInPeriod(sizeLimit / segments.length, validityPeriod);
+    }
 
-        if (travelTimeDataMap.get(fromLink).containsKey(toLink))
-            return travelTimeDataMap.get(fromLink).get(toLink);
+    public double of(Link fromLink, Link toLink, double now, boolean storeInCache) {
+        double cached = get(fromLink, toLink, now);
+        if (!Double.isNaN(cached))
+            return cached;
 
         // if it reaches here, we need to calculate the travel time
-        Path shortest = leastCostPathCalculator.calcLeastCostPath(fromLink.getFromNode(), toLink.getToNode(), now, null, null);
+        LeastCostPathCalculator calculator = leastCostPathCalculator.get();
+        Path shortest;
+        /** uncontended unless the calculator is shared between threads */
+        synchronized (calculator) {
+            shortest = calculator.calcLeastCostPath(fromLink.getFromNode(), toLink.getToNode(), now, null, null);
+        }
+        float travelTime = (float) shortest.travelTime;
         if (storeInCache)
-            travelTimeDataMap.get(fromLink).put(toLink, shortest.travelTime);
+            storeInCache(fromLink, toLink, now, travelTime);
 
-        return shortest.travelTime;
+        return travelTime;
     }
 
-    void clearDataMap() {
-        travelTimeDataMap.clear();
+    /** travel times from one link to many links, the travel times which are not in cache are computed with a
+     * single search if this instance was created with a network
+     *
+     * @return array with travel time from fromLink to toLinks.get(i) at index i */
+    public double[] of(Link fromLink, List<Link> toLinks, double now, boolean storeInCache) {
+        double[] travelTimes = new double[toLinks.size()];
+        List<Integer> missing = new ArrayList<>();
+        for (int index = 0; index < travelTimes.length; ++index) {
+            travelTimes[index] = get(fromLink, toLinks.get(index), now);
+            if (Double.isNaN(travelTimes[index]))
+                missing.add(index);
+        }
+        if (missing.isEmpty())
+            return travelTimes;
+
+        if (Objects.isNull(oneToManySearch) || missing.size() == 1) {
+            for (int index : missing)
+                travelTimes[index] = of(fromLink, toLinks.get(index), now, storeInCache);
+            return travelTimes;
+        }
+        List<Link> missingLinks = new ArrayList<>(missing.size());
+        missing.forEach(index -> missingLinks.add(toLinks.get(index)));
+        double[] computed = oneToManySearch.get().of(fromLink, missingLinks, now);
+        for (int i = 0; i < computed.length; ++i) {
+            float travelTime = (float) computed[i];
+            travelTimes[missing.get(i)] = travelTime;
+            if (storeInCache)
+                storeInCache(fromLink, missingLinks.get(i), now, travelTime);
+        }
+        return travelTimes;
     }
 
-    void storeInCache(Link fromLink, Link toLink, double travelTime) {
-        travelTimeDataMap.get(fromLink).put(toLink, travelTime);
+    void clearDataMap() {
+        for (LinkPairCache segment : segments)
+            synchronized (segment) {
+                segment.clear();
+            }
     }
 
-    public void removeEntry(Link fromLink) {
-        travelTimeDataMap.remove(fromLink);
+    /** @param now time at which the travel time was computed */
+    void storeInCache(Link fromLink, Link toLink, double now, double travelTime) {
+        int fromIndex = fromLink.getId().index();
+        int toIndex = toLink.getId().index();
+        LinkPairCache segment = segmentOf(fromIndex, toIndex);
+        synchronized (segment) {
+            segment.put(fromIndex, toIndex, now, (float) travelTime, Double.NaN);
+        }
     }
 
     int getMapSize() {
-        return travelTimeDataMap.size();
+        return Arrays.stream(segments).mapToInt(segment -> {
+            synchronized (segment) {
+                return segment.size();
+            }
+        }).sum();
+    }
+
+    /** @return travel time computed in the period of now, or NaN if there is none in cache */
+    private double get(Link fromLink, Link toLink, double now) {
+        int fromIndex = fromLink.getId().index();
+        int toIndex = toLink.getId().index();
+        LinkPairCache segment = segmentOf(fromIndex, toIndex);
+        synchronized (segment) {
+            int slot = segment.find(fromIndex, toIndex, now);
+            return slot < 0 ? Double.NaN : segment.first(slot);
+        }
+    }
+
+    /** the high bits of the multiplicative hash of the pair determine the segment */
+    private LinkPairCache segmentOf(int fromIndex, int toIndex) {
+        int hash = (31 * fromIndex + toIndex) * 0x9E3779B9;
+        return segments[(hash >>> 26) & (segments.length - 1)];
     }
 }
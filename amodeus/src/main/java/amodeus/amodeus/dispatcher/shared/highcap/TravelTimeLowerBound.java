@@ -0,0 +1,50 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.highcap;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.utils.geometry.CoordUtils;
+
+import amodeus.amodeus.routing.EasyMinTimePathCalculator;
+
+/** lower bound of the travel time of {@link TravelTimeComputation} between two links computed from the Euclidean
+ * distance: every link is at least minRatio times as long as the distance between its nodes and is not traversed
+ * faster than the maximum speed of the network. The maximum speed is derived from the minimum disutility of the
+ * {@link TravelDisutility} with which the travel times are computed, e.g., the free speed for
+ * {@link EasyMinTimePathCalculator#TRAVEL_DISUTILITY} or a congested speed above the free speed for
+ * {@link CongestedTravelDisutility}. */
+/* package */ class TravelTimeLowerBound {
+    /** margin for rounding errors in the coordinates and link lengths and for the travel times stored as float */
+    private static final double MARGIN = 1e-6;
+    /** trivial bound 0 that keeps all pairs of requests */
+    public static final TravelTimeLowerBound NONE = new TravelTimeLowerBound(0);
+    // ---
+    /** seconds per meter of Euclidean distance, 0 if no bound is known */
+    private final double factor;
+
+    private TravelTimeLowerBound(double factor) {
+        this.factor = factor;
+    }
+
+    /** @param network
+     * @param travelDisutility travel time in seconds as disutility with which the {@link TravelTimeComputation} routes */
+    public TravelTimeLowerBound(Network network, TravelDisutility travelDisutility) {
+        double maxSpeed = 0;
+        double minRatio = 1;
+        for (Link link : network.getLinks().values()) {
+            maxSpeed = Math.max(maxSpeed, link.getLength() / travelDisutility.getLinkMinimumTravelDisutility(link));
+            double distance = CoordUtils.calcEuclideanDistance(link.getFromNode().getCoord(), link.getToNode().getCoord());
+            if (0 < distance)
+                minRatio = Math.min(minRatio, link.getLength() / distance);
+        }
+        factor = 0 < maxSpeed && Double.isFinite(maxSpeed) && 0 < minRatio //
+                ? minRatio / maxSpeed * (1 - MARGIN)
+                : 0;
+    }
+
+    /** @return lower bound of {@link TravelTimeComputation#of(Link, Link, double, boolean)} */
+    public double of(Link fromLink, Link toLink) {
+        return factor * CoordUtils.calcEuclideanDistance(fromLink.getFromNode().getCoord(), toLink.getToNode().getCoord());
+    }
+}
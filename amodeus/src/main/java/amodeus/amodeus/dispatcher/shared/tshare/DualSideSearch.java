@@ -4,53 +4,65 @@ package amodeus.amodeus.dispatcher.shared.tshare;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.contrib.dvrp.passenger.PassengerRequest;
 
 import amodeus.amodeus.dispatcher.core.RoboTaxi;
 import amodeus.amodeus.virtualnetwork.core.VirtualNetwork;
 import amodeus.amodeus.virtualnetwork.core.VirtualNode;
-import ch.ethz.idsc.tensor.Scalar;
 
 /** Implementation of "Algorithm 1: Dual Side Taxi Searching" */
 /* package */ class DualSideSearch {
 
-    private final Map<VirtualNode<Link>, GridCell> gridCells;
+    private final GridCellMatrix gridCellMatrix;
     private final VirtualNetwork<Link> virtualNetwork;
 
-    public DualSideSearch(Map<VirtualNode<Link>, GridCell> gridCells, VirtualNetwork<Link> virtualNetwork) {
-        this.gridCells = gridCells;
+    public DualSideSearch(GridCellMatrix gridCellMatrix, VirtualNetwork<Link> virtualNetwork) {
+        this.gridCellMatrix = gridCellMatrix;
         this.virtualNetwork = virtualNetwork;
     }
 
+    /** @param timeLeftForPickup in seconds
+     * @param timeLeftUntilArrival in seconds */
     public Collection<RoboTaxi> apply(PassengerRequest request, Map<VirtualNode<Link>, Set<RoboTaxi>> plannedLocations, //
-            Scalar timeLeftForPickup, Scalar timeLeftUntilArrival) {
+            double timeLeftForPickup, double timeLeftUntilArrival) {
 
         /** origin cell = {@link GridCell} of {@link VirtualNode} containing the request origin link */
-        GridCell oCell = gridCells.get(virtualNetwork.getVirtualNode(request.getFromLink()));
+        GridCell oCell = gridCellMatrix.getGridCell(virtualNetwork.getVirtualNode(request.getFromLink()).getIndex());
         /** destination cell = {@link GridCell} of {@link VirtualNode} containing the request destination link */
-        GridCell dCell = gridCells.get(virtualNetwork.getVirtualNode(request.getToLink()));
+        GridCell dCell = gridCellMatrix.getGridCell(virtualNetwork.getVirtualNode(request.getToLink()).getIndex());
 
         /** oCloseCells = cells reachable before latest pickup */
-        Collection<VirtualNode<Link>> oCloseCells = oCell.nodesReachableWithin(timeLeftForPickup);
+        int oCloseCount = oCell.numberReachableWithin(timeLeftForPickup);
+        boolean[] oCloseCells = closeCells(oCell, oCloseCount);
         /** dCloseCells = cells reachable before latest arrival */
-        Collection<VirtualNode<Link>> dCloseCells = dCell.nodesReachableWithin(timeLeftUntilArrival);
+        int dCloseCount = dCell.numberReachableWithin(timeLeftUntilArrival);
+        boolean[] dCloseCells = closeCells(dCell, dCloseCount);
 
         /** compute set of potential taxis for ride sharing with dual side search */
-        return dualSideSearch(oCell, dCell, oCloseCells, dCloseCells, plannedLocations);
+        return dualSideSearch(oCell, dCell, oCloseCells, oCloseCount, dCloseCells, dCloseCount, plannedLocations);
+    }
+
+    /** @return flags by index of {@link VirtualNode} that are true for the closeCount closest cells in travel time */
+    private boolean[] closeCells(GridCell gridCell, int closeCount) {
+        boolean[] closeCells = new boolean[gridCellMatrix.size()];
+        for (int position = 0; position < closeCount; ++position)
+            closeCells[gridCell.getReachableVNodeIndexAt(position)] = true;
+        return closeCells;
     }
 
     private Collection<RoboTaxi> dualSideSearch(GridCell oCell, GridCell dCell, //
-            Collection<VirtualNode<Link>> oCloseCells, Collection<VirtualNode<Link>> dCloseCells, //
+            boolean[] oCloseCells, int oCloseCount, boolean[] dCloseCells, int dCloseCount, //
             Map<VirtualNode<Link>, Set<RoboTaxi>> plannedLocations) {
 
-        HashSet<RoboTaxi> oTaxis = new HashSet<>();
-        HashSet<RoboTaxi> dTaxis = new HashSet<>();
-        Collection<RoboTaxi> potentialTaxis = new ArrayList<>();
+        Set<RoboTaxi> oTaxis = new HashSet<>();
+        Set<RoboTaxi> dTaxis = new HashSet<>();
+        /** intersection of oTaxis and dTaxis, updated whenever a taxi is added to one of them */
+        List<RoboTaxi> potentialTaxis = new ArrayList<>();
 
         /** Loop finds potential taxis for which trip insertion is evaluated */
         int index = 0;
@@ -60,26 +72,30 @@ import ch.ethz.idsc.tensor.Scalar;
 
             /** iterate neighbors according to closedness, get taxis if
              * within reachable time for pickup */
-            if (0 < oCloseCells.size()) {
-                VirtualNode<Link> vNode = oCell.getVNodeAt(index);
-                if (oCloseCells.contains(vNode)) {
-                    oTaxis.addAll(plannedLocations.get(vNode));
-                    oCloseCells.remove(vNode);
+            if (0 < oCloseCount) {
+                int vNode = oCell.getVNodeIndexAt(index);
+                if (oCloseCells[vNode]) {
+                    for (RoboTaxi roboTaxi : plannedLocations.get(virtualNetwork.getVirtualNode(vNode)))
+                        if (oTaxis.add(roboTaxi) && dTaxis.contains(roboTaxi))
+                            potentialTaxis.add(roboTaxi);
+                    oCloseCells[vNode] = false;
+                    --oCloseCount;
                 }
             } else
                 stop0 = true;
             /** iterate neighbors according to closedness, get taxis if
              * within reachable time for pickup */
-            if (0 < dCloseCells.size()) {
-                VirtualNode<Link> vNode = dCell.getVNodeAt(index);
-                if (dCloseCells.contains(vNode)) {
-                    dTaxis.addAll(plannedLocations.get(vNode));
-                    dCloseCells.remove(vNode);
+            if (0 < dCloseCount) {
+                int vNode = dCell.getVNodeIndexAt(index);
+                if (dCloseCells[vNode]) {
+                    for (RoboTaxi roboTaxi : plannedLocations.get(virtualNetwork.getVirtualNode(vNode)))
+                        if (dTaxis.add(roboTaxi) && oTaxis.contains(roboTaxi))
+                            potentialTaxis.add(roboTaxi);
+                    dCloseCells[vNode] = false;
+                    --dCloseCount;
                 }
             } else
                 stopD = true;
-            /** compute intersection */
-            potentialTaxis = CollectionUtils.intersection(oTaxis, dTaxis);
             /** increase index */
             ++index;
         }
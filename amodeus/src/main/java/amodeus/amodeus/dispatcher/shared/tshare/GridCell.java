@@ -1,100 +1,83 @@
 /* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
 package amodeus.amodeus.dispatcher.shared.tshare;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map.Entry;
-import java.util.NavigableMap;
-import java.util.TreeMap;
+import java.util.stream.IntStream;
 
 import org.matsim.api.core.v01.network.Link;
-import org.matsim.core.utils.collections.QuadTree;
 
-import amodeus.amodeus.routing.CachedNetworkTimeDistance;
-import amodeus.amodeus.routing.NetworkTimeDistInterface;
 import amodeus.amodeus.util.math.GlobalAssert;
-import amodeus.amodeus.util.math.SI;
 import amodeus.amodeus.virtualnetwork.core.VirtualNetwork;
 import amodeus.amodeus.virtualnetwork.core.VirtualNode;
-import ch.ethz.idsc.tensor.Scalar;
-import ch.ethz.idsc.tensor.qty.Quantity;
-import ch.ethz.idsc.tensor.sca.Sign;
 
 /** In AMoDeus a {@link GridCell} is implemented as an augmented version of the {@link VirtualNode}
  * that is already used in other places to subdivide a road network into separate areas. Each
- * {@link GridCell} has a number of data structures to determine travel time and distance to
- * other {@link GridCell}s. */
+ * {@link GridCell} knows the indices of all {@link GridCell}s sorted according to the free flow
+ * travel time and according to the travel distance from its center, computed in {@link GridCellMatrix}.
+ * {@link GridCell}s with equal travel time or distance are sorted by index. */
 /* package */ class GridCell {
 
     /** every {@link GridCell} corresponds do exactly one {@link VirtualNode} */
     private final VirtualNode<Link> virtualNode;
 
-    /** {@link NavigableMap} of other {@link GridCell}s ({@link VirtualNode}s) according to freeflow travel time */
-    private final NavigableMap<Scalar, VirtualNode<Link>> temporalSortedMap = new TreeMap<>();
+    /** indices of all {@link GridCell}s ({@link VirtualNode}s) according to freeflow travel time */
+    private final int[] temporalSorted;
+    /** temporalSortedTimes[i] is the travel time to temporalSorted[i] */
+    private final float[] temporalSortedTimes;
 
-    /** {@link NavigableMap} of other {@link GridCell}s ({@link VirtualNode}s) according to travel distance */
-    private final NavigableMap<Scalar, VirtualNode<Link>> distanceSortedMap = new TreeMap<>();
+    /** indices of all {@link GridCell}s ({@link VirtualNode}s) according to travel distance */
+    private final int[] distanceSorted;
 
-    /** {@link NavigableMap} used to rapidly access the set of {@link GridCell}s ({@link VirtualNode}s) reachable
-     * within a travel time of less than some {@link Scalar} value */
-    private final NavigableMap<Scalar, List<VirtualNode<Link>>> nodesWithinLessThan = new TreeMap<>();
-
-    /** Construction of a {@link GridCell} requires: a {@link VirtualNode} @param virtualNode in a
-     * {@link VirtualNetwork} @param virtualNetwork that uniquely defines the {@link GridCell},
-     * functions to compute the minimum travel time and distance to other {@link VirtualNode}s,
-     * which are @param minDist and @param minTime, respectively. A {@link QuadTree} @param linkTree to compute
-     * the nearest {@link Link}s */
-    public GridCell(VirtualNode<Link> virtualNode, VirtualNetwork<Link> virtualNetwork, //
-            CachedNetworkTimeDistance minDist, NetworkTimeDistInterface minTime, QuadTree<Link> linkTree) {
+    /** @param virtualNode in a {@link VirtualNetwork} that uniquely defines the {@link GridCell}
+     * @param travelTimes to the other {@link GridCell}s by index of their {@link VirtualNode}
+     * @param distances to the other {@link GridCell}s by index of their {@link VirtualNode} */
+    public GridCell(VirtualNode<Link> virtualNode, float[] travelTimes, float[] distances) {
+        GlobalAssert.that(travelTimes.length == distances.length);
         this.virtualNode = virtualNode;
-        computeMaps(virtualNetwork, linkTree, minDist, minTime);
+        temporalSorted = sorted(travelTimes);
+        temporalSortedTimes = new float[travelTimes.length];
+        for (int position = 0; position < temporalSorted.length; ++position)
+            temporalSortedTimes[position] = travelTimes[temporalSorted[position]];
+        distanceSorted = sorted(distances);
     }
 
-    private void computeMaps(VirtualNetwork<Link> virtualNetwork, QuadTree<Link> links, //
-            CachedNetworkTimeDistance minDist, NetworkTimeDistInterface minTime) {
-        /** the from link is the link closes to the center of the {@link VirtualNode} */
-        Link gridCellCenterLink = links.getClosest(//
-                virtualNode.getCoord().Get(0).number().doubleValue(), //
-                virtualNode.getCoord().Get(1).number().doubleValue());
-        /** calculate distances and travel times to other nodes */
-        for (VirtualNode<Link> otherGridCell : virtualNetwork.getVirtualNodes()) {
-            Link otherCenterLink = links.getClosest(//
-                    otherGridCell.getCoord().Get(0).number().doubleValue(), //
-                    otherGridCell.getCoord().Get(1).number().doubleValue());
-            Scalar time = minTime.travelTime(gridCellCenterLink, otherCenterLink, 0.0);
-            Scalar distance = minDist.distance(gridCellCenterLink, otherCenterLink, 0.0);
-            temporalSortedMap.put(time, otherGridCell);
-            distanceSortedMap.put(distance, otherGridCell);
-        }
-
-        /** fill map with n nodes less than time */
-        nodesWithinLessThan.put(Quantity.of(-0.0000001, SI.SECOND), new ArrayList<>());
-        for (Entry<Scalar, VirtualNode<Link>> entry : temporalSortedMap.entrySet()) {
-            List<VirtualNode<Link>> updatedList = new ArrayList<>();
-            nodesWithinLessThan.lastEntry().getValue().forEach(vn -> updatedList.add(vn));
-            updatedList.add(entry.getValue());
-            nodesWithinLessThan.put(entry.getKey(), updatedList);
-        }
+    private static int[] sorted(float[] values) {
+        return IntStream.range(0, values.length).boxed() //
+                .sorted((i, j) -> values[i] == values[j] ? Integer.compare(i, j) : Float.compare(values[i], values[j])) //
+                .mapToInt(Integer::intValue).toArray();
+    }
 
+    public VirtualNode<Link> getVirtualNode() {
+        return virtualNode;
     }
 
-    /** @return the {@link VirtualNode} at the @param position from the
-     *         list of other {@link VirtualNode}s sorted according to the distance. */
-    public VirtualNode<Link> getVNodeAt(int position) {
+    /** @return index of the {@link VirtualNode} at the @param position from the
+     *         list of all {@link VirtualNode}s sorted according to the distance, the last one
+     *         if position exceeds the number of {@link VirtualNode}s. */
+    public int getVNodeIndexAt(int position) {
         GlobalAssert.that(position >= 0);
-        int i = 0;
-        for (Entry<Scalar, VirtualNode<Link>> entry : distanceSortedMap.entrySet()) {
-            if (i == position)
-                return entry.getValue();
-            ++i;
-        }
-        return distanceSortedMap.lastEntry().getValue();
+        return distanceSorted[Math.min(position, distanceSorted.length - 1)];
     }
 
-    /** @return {@link List} of all {@link VirtualNode}s reachable within
-     *         the {@link Scalar} @param time */
-    public List<VirtualNode<Link>> nodesReachableWithin(Scalar time) {
-        return nodesWithinLessThan.lowerEntry(Sign.requirePositiveOrZero(time)).getValue();
+    /** @return number of {@link VirtualNode}s reachable within less than @param time in seconds, these are
+     *         the first ones in {@link #getReachableVNodeIndexAt(int)} */
+    public int numberReachableWithin(double time) {
+        GlobalAssert.that(0 <= time);
+        /** binary search of the first position with travel time not less than time */
+        int low = 0;
+        int high = temporalSortedTimes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (temporalSortedTimes[mid] < time)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
     }
 
+    /** @return index of the {@link VirtualNode} at the @param position from the
+     *         list of all {@link VirtualNode}s sorted according to the travel time */
+    public int getReachableVNodeIndexAt(int position) {
+        return temporalSorted[position];
+    }
 }
@@ -0,0 +1,116 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.tshare;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.utils.collections.QuadTree;
+
+import amodeus.amodeus.routing.EasyMinDistPathCalculator;
+import amodeus.amodeus.routing.EasyMinTimePathCalculator;
+import amodeus.amodeus.util.math.GlobalAssert;
+import amodeus.amodeus.virtualnetwork.core.VirtualNetwork;
+import amodeus.amodeus.virtualnetwork.core.VirtualNode;
+
+/** Free flow travel times and travel distances between the centers of all pairs of {@link GridCell}s, stored as float
+ * in two arrays of size n x n, where n is the number of {@link VirtualNode}s. The center of a {@link GridCell} is the
+ * {@link Link} closest to the coordinate of its {@link VirtualNode}. The rows of the matrix and the {@link GridCell}s
+ * are computed in parallel, every thread routes with its own minimum time and minimum distance path calculators. */
+/* package */ class GridCellMatrix {
+    private final int size;
+    private final Link[] centerLinks;
+    /** entry from * size + to */
+    private final float[] travelTimes;
+    private final float[] distances;
+    /** by {@link VirtualNode} index */
+    private final GridCell[] gridCells;
+
+    /** @param network
+     * @param virtualNetwork
+     * @param linkTree to find the center {@link Link}s
+     * @param factory to create the path calculators of every thread
+     * @param parallelism number of threads that compute the rows of the matrix */
+    public GridCellMatrix(Network network, VirtualNetwork<Link> virtualNetwork, QuadTree<Link> linkTree, //
+            LeastCostPathCalculatorFactory factory, int parallelism) {
+        GlobalAssert.that(0 < parallelism);
+        size = virtualNetwork.getvNodesCount();
+        centerLinks = new Link[size];
+        for (VirtualNode<Link> virtualNode : virtualNetwork.getVirtualNodes())
+            centerLinks[virtualNode.getIndex()] = linkTree.getClosest( //
+                    virtualNode.getCoord().Get(0).number().doubleValue(), //
+                    virtualNode.getCoord().Get(1).number().doubleValue());
+        travelTimes = new float[size * size];
+        distances = new float[size * size];
+        gridCells = new GridCell[size];
+
+        ThreadLocal<LeastCostPathCalculator> minTime = ThreadLocal.withInitial(synchronizedSupplier(factory, //
+                () -> EasyMinTimePathCalculator.prepPathCalculator(network, factory)));
+        ThreadLocal<LeastCostPathCalculator> minDist = ThreadLocal.withInitial(synchronizedSupplier(factory, //
+                () -> EasyMinDistPathCalculator.prepPathCalculator(network, factory)));
+        IntConsumer computeRow = from -> {
+            computeRow(from, minTime.get(), minDist.get());
+            gridCells[from] = new GridCell(virtualNetwork.getVirtualNode(from), row(travelTimes, from), row(distances, from));
+        };
+        if (parallelism == 1)
+            IntStream.range(0, size).forEach(computeRow);
+        else {
+            ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+            try {
+                forkJoinPool.submit(() -> IntStream.range(0, size).parallel().forEach(computeRow)).join();
+            } finally {
+                forkJoinPool.shutdown();
+            }
+        }
+    }
+
+    /** the creation of path calculators by one factory is serialized */
+    private static Supplier<LeastCostPathCalculator> synchronizedSupplier(Object lock, Supplier<LeastCostPathCalculator> supplier) {
+        return () -> {
+            synchronized (lock) {
+                return supplier.get();
+            }
+        };
+    }
+
+    private void computeRow(int from, LeastCostPathCalculator minTime, LeastCostPathCalculator minDist) {
+        for (int to = 0; to < size; ++to) {
+            /** the time is the one of the fastest path, the distance the one of the shortest path */
+            Path fastest = minTime.calcLeastCostPath(centerLinks[from].getFromNode(), centerLinks[to].getToNode(), 0.0, null, null);
+            Path shortest = minDist.calcLeastCostPath(centerLinks[from].getFromNode(), centerLinks[to].getToNode(), 0.0, null, null);
+            travelTimes[from * size + to] = (float) fastest.travelTime;
+            distances[from * size + to] = (float) shortest.links.stream().mapToDouble(Link::getLength).sum();
+        }
+    }
+
+    private float[] row(float[] matrix, int from) {
+        float[] row = new float[size];
+        System.arraycopy(matrix, from * size, row, 0, size);
+        return row;
+    }
+
+    /** @return {@link GridCell} of {@link VirtualNode} with index */
+    public GridCell getGridCell(int index) {
+        return gridCells[index];
+    }
+
+    /** @return free flow travel time in seconds from center of cell from to center of cell to */
+    public double travelTime(int from, int to) {
+        return travelTimes[from * size + to];
+    }
+
+    /** @return distance in meters from center of cell from to center of cell to */
+    public double distance(int from, int to) {
+        return distances[from * size + to];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -3,9 +3,7 @@ package amodeus.amodeus.dispatcher.shared.tshare;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.NavigableMap;
 import java.util.Objects;
-import java.util.TreeMap;
 import java.util.function.BiConsumer;
 
 import org.matsim.contrib.dvrp.passenger.PassengerRequest;
@@ -17,12 +15,12 @@ import amodeus.amodeus.dispatcher.shared.SharedCourse;
 import amodeus.amodeus.routing.CachedNetworkTimeDistance;
 import amodeus.amodeus.routing.NetworkTimeDistInterface;
 import amodeus.amodeus.util.math.GlobalAssert;
-import ch.ethz.idsc.tensor.Scalar;
 
 /** This class is a generalized implementation of the "Algorithm 2: Insertion feasibility check" supplied in
  * the T-Share publication. The original reference is only for menus with 1 passenger in the taxi and the
  * addition of 1 other passenger. Here, all insertion permutations are explored, then, of all feasible
- * permutations, the permutation with the least additional distance is returned, null if none is found. The following
+ * permutations, the permutation with the least additional distance is returned, null if none is found. Of permutations
+ * with equal length, the last one in checking order is returned. The following
  * symbols represent the sequence of iterations which are checked:
  * 
  * o: existing schedule
@@ -44,11 +42,13 @@ import ch.ethz.idsc.tensor.Scalar;
     private final RoboTaxi roboTaxi;
     private final PassengerRequest request;
     private List<SharedCourse> optimalMenu = null;
-    private Scalar optimalLength;
-    private Scalar originalLength;
+    private double optimalLength = Double.POSITIVE_INFINITY;
+    private final double originalLength;
 
+    /** @param pickupDelayMax in seconds
+     * @param drpoffDelayMax in seconds */
     public InsertionChecker(CachedNetworkTimeDistance distance, NetworkTimeDistInterface travelTimeCached, //
-            RoboTaxi roboTaxi, PassengerRequest request, Scalar pickupDelayMax, Scalar drpoffDelayMax, double timeNow) {
+            RoboTaxi roboTaxi, PassengerRequest request, double pickupDelayMax, double drpoffDelayMax, double timeNow) {
         this.roboTaxi = roboTaxi;
         this.request = request;
 
@@ -73,7 +73,6 @@ import ch.ethz.idsc.tensor.Scalar;
 
         /** calculate length of each modification, two indices show how many
          * times the Course was moved forward from the end of the menu */
-        NavigableMap<Scalar, List<SharedCourse>> menuOptions = new TreeMap<>();
         for (int i = 0; i <= length; ++i) {
             for (int j = length; j >= i; j--) {
                 /** creation of new menu */
@@ -100,14 +99,16 @@ import ch.ethz.idsc.tensor.Scalar;
 
                 /** the line below is computationally expensive and calculates the
                  * path length of the option. */
-                menuOptions.put(Length.of(roboTaxi.getDivertableLocation(), newMenu, distance, timeNow), newMenu);
+                double newLength = Length.of(roboTaxi.getDivertableLocation(), newMenu, distance, timeNow);
+                if (newLength <= optimalLength) {
+                    optimalLength = newLength;
+                    optimalMenu = newMenu;
+                }
             }
         }
 
-        /** save the optimal menu */
-        if (Objects.nonNull(menuOptions.firstEntry())) {
-            optimalMenu = menuOptions.firstEntry().getValue();
-            optimalLength = menuOptions.firstEntry().getKey();
+        /** check the optimal menu */
+        if (Objects.nonNull(optimalMenu)) {
             /** if the routine ran correctly, the number of {@link SharedCourse}s should
              * be increased by exactly 2 */
             GlobalAssert.that(optimalMenu.size() == originalMenu.size() + 2);
@@ -115,12 +116,18 @@ import ch.ethz.idsc.tensor.Scalar;
         }
     }
 
-    /** @return {@link Scalar} additional distance when additional request is inserted in
-     *         the optimal configuration, null if no feasible insertion exists */
-    public Scalar getAddDistance() {
-        if (Objects.nonNull(optimalMenu))
-            return optimalLength.subtract(originalLength);
-        return null;
+    /** @return additional distance in meters when additional request is inserted in
+     *         the optimal configuration, {@link Double#POSITIVE_INFINITY} if no feasible insertion exists */
+    public double getAddDistance() {
+        return optimalLength - originalLength;
+    }
+
+    public RoboTaxi getRoboTaxi() {
+        return roboTaxi;
+    }
+
+    public PassengerRequest getRequest() {
+        return request;
     }
 
     /** Function add the request to the optimal menu with the {@link BiConsumer} @param addSharedPickup
@@ -0,0 +1,84 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.tshare;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+
+import amodeus.amodeus.dispatcher.core.RoboTaxi;
+import amodeus.amodeus.routing.CachedNetworkTimeDistance;
+
+/** Inserts the requests one after another, every request into the menu of the potential {@link RoboTaxi} with the
+ * feasible insertion of smallest additional distance. If a {@link ParallelInsertionEvaluator} is given, the
+ * {@link InsertionChecker}s are evaluated in advance on the menus at the time of the call and only the checkers of
+ * {@link RoboTaxi}s with a menu changed by an earlier insertion are recomputed, such that the committed insertions are
+ * identical to the sequential evaluation. */
+/* package */ class InsertionSelection {
+    private final CachedNetworkTimeDistance distance;
+    private final CachedNetworkTimeDistance travelTime;
+    private final double pickupDelayMax;
+    private final double drpoffDelayMax;
+    /** null if the insertions are evaluated sequentially */
+    private final ParallelInsertionEvaluator parallelInsertionEvaluator;
+
+    /** @param pickupDelayMax in seconds
+     * @param drpoffDelayMax in seconds
+     * @param parallelInsertionEvaluator null to evaluate the insertions sequentially */
+    public InsertionSelection(CachedNetworkTimeDistance distance, CachedNetworkTimeDistance travelTime, //
+            double pickupDelayMax, double drpoffDelayMax, ParallelInsertionEvaluator parallelInsertionEvaluator) {
+        this.distance = distance;
+        this.travelTime = travelTime;
+        this.pickupDelayMax = pickupDelayMax;
+        this.drpoffDelayMax = drpoffDelayMax;
+        this.parallelInsertionEvaluator = parallelInsertionEvaluator;
+    }
+
+    /** @param potentialTaxis of every request in the order in which the requests are inserted
+     * @param addSharedPickup assigns the request to the {@link RoboTaxi} before its menu is updated
+     * @return committed insertions in the order of the requests */
+    public List<InsertionChecker> insert(Map<PassengerRequest, Collection<RoboTaxi>> potentialTaxis, double now, //
+            BiConsumer<RoboTaxi, PassengerRequest> addSharedPickup) {
+        /** insertion feasibility check of all requests and potential taxis on the current menus, computed in parallel */
+        Map<PassengerRequest, List<InsertionChecker>> evaluated = Objects.isNull(parallelInsertionEvaluator) //
+                ? Collections.emptyMap()
+                : parallelInsertionEvaluator.evaluate(potentialTaxis, pickupDelayMax, drpoffDelayMax, now);
+
+        /** {@link RoboTaxi}s with a menu changed by an insertion in this period, their checkers are recomputed */
+        Set<RoboTaxi> modified = new HashSet<>();
+        List<InsertionChecker> committed = new ArrayList<>();
+        for (Map.Entry<PassengerRequest, Collection<RoboTaxi>> entry : potentialTaxis.entrySet()) {
+            PassengerRequest avr = entry.getKey();
+            List<InsertionChecker> checkers = evaluated.getOrDefault(avr, Collections.emptyList());
+
+            /** insertion feasibility check, compute possible insertions into schedules
+             * of all {@link RoboTaxi}s, find the insertion with smallest additional distance */
+            InsertionChecker bestInsertion = null;
+            int index = 0;
+            for (RoboTaxi taxi : entry.getValue()) {
+                InsertionChecker checker = index < checkers.size() && !modified.contains(taxi) //
+                        ? checkers.get(index)
+                        : new InsertionChecker(distance, travelTime, taxi, avr, pickupDelayMax, drpoffDelayMax, now);
+                ++index;
+                if (Double.isFinite(checker.getAddDistance()) && //
+                        (Objects.isNull(bestInsertion) || checker.getAddDistance() <= bestInsertion.getAddDistance()))
+                    bestInsertion = checker;
+            }
+
+            /** plan update: insert the request into the plan of the {@link RoboTaxi} */
+            if (Objects.nonNull(bestInsertion)) {
+                bestInsertion.executeBest(addSharedPickup);
+                modified.add(bestInsertion.getRoboTaxi());
+                committed.add(bestInsertion);
+            }
+        }
+        return committed;
+    }
+}
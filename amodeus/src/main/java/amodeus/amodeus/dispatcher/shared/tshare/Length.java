@@ -7,25 +7,20 @@ import org.matsim.api.core.v01.network.Link;
 
 import amodeus.amodeus.dispatcher.shared.SharedCourse;
 import amodeus.amodeus.routing.NetworkTimeDistInterface;
-import amodeus.amodeus.util.math.SI;
-import ch.ethz.idsc.tensor.Scalar;
-import ch.ethz.idsc.tensor.qty.Quantity;
 
 /* package */ enum Length {
     ;
 
-    /** @return {@link Scalar} drive distance to cover all {@link SharedCourse}s in the
+    /** @return drive distance in meters to cover all {@link SharedCourse}s in the
      *         {@link List} @param menu from the {@link Link} start @param startLocation. For the
      *         computation the {@link NetworkTimeDistInterface} @param networkTimeDistInterface at
      *         time {@link Double} @param now is used. */
-    public static Scalar of(Link startLocation, List<SharedCourse> menu, //
+    public static double of(Link startLocation, List<SharedCourse> menu, //
             NetworkTimeDistInterface networkTimeDistInterface, double now) {
-        if (menu.isEmpty())
-            return Quantity.of(0.0, SI.METER);
         Link link = startLocation;
-        Scalar length = Quantity.of(0.0, SI.METER);
+        double length = 0.0;
         for (SharedCourse course : menu) {
-            length = length.add(networkTimeDistInterface.distance(link, course.getLink(), now));
+            length += networkTimeDistInterface.distanceMeters(link, course.getLink(), now);
             link = course.getLink();
         }
         return length;
@@ -0,0 +1,77 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.tshare;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+
+import amodeus.amodeus.dispatcher.core.RoboTaxi;
+import amodeus.amodeus.routing.CachedNetworkTimeDistance;
+import amodeus.amodeus.routing.EasyMinDistPathCalculator;
+import amodeus.amodeus.routing.EasyMinTimePathCalculator;
+import amodeus.amodeus.util.math.GlobalAssert;
+import amodeus.amodeus.util.matsim.SafeConfig;
+
+/** Evaluates the {@link InsertionChecker}s of all pairs of requests and candidate {@link RoboTaxi}s concurrently on the
+ * menus the {@link RoboTaxi}s have at the time of the call. Every thread computes distances and travel times with its
+ * own {@link CachedNetworkTimeDistance}s, the free flow values do not depend on the thread such that the result is
+ * identical to the evaluation in the calling thread. */
+/* package */ class ParallelInsertionEvaluator {
+    private final ForkJoinPool forkJoinPool;
+    private final ThreadLocal<CachedNetworkTimeDistance> distance;
+    private final ThreadLocal<CachedNetworkTimeDistance> travelTime;
+
+    /** @param parallelism number of threads that evaluate the insertions */
+    public ParallelInsertionEvaluator(Network network, SafeConfig safeConfig, int parallelism) {
+        GlobalAssert.that(0 < parallelism);
+        forkJoinPool = new ForkJoinPool(parallelism);
+        LeastCostPathCalculatorFactory factory = new FastAStarLandmarksFactory(parallelism);
+        distance = ThreadLocal.withInitial(() -> CachedNetworkTimeDistance.of( //
+                synchronizedCreate(factory, () -> EasyMinDistPathCalculator.prepPathCalculator(network, factory)), 180000.0, safeConfig));
+        travelTime = ThreadLocal.withInitial(() -> CachedNetworkTimeDistance.of( //
+                synchronizedCreate(factory, () -> EasyMinTimePathCalculator.prepPathCalculator(network, factory)), 180000.0, safeConfig));
+    }
+
+    /** the creation of path calculators by one factory is serialized */
+    private static LeastCostPathCalculator synchronizedCreate(Object lock, Supplier<LeastCostPathCalculator> supplier) {
+        synchronized (lock) {
+            return supplier.get();
+        }
+    }
+
+    /** @param candidates of every request in the order in which they are evaluated in the calling thread
+     * @param pickupDelayMax in seconds
+     * @param drpoffDelayMax in seconds
+     * @return {@link InsertionChecker}s of every request in the order of the candidates */
+    public Map<PassengerRequest, List<InsertionChecker>> evaluate(Map<PassengerRequest, Collection<RoboTaxi>> candidates, //
+            double pickupDelayMax, double drpoffDelayMax, double now) {
+        List<PassengerRequest> requests = new ArrayList<>();
+        List<RoboTaxi> roboTaxis = new ArrayList<>();
+        for (Entry<PassengerRequest, Collection<RoboTaxi>> entry : candidates.entrySet())
+            for (RoboTaxi roboTaxi : entry.getValue()) {
+                requests.add(entry.getKey());
+                roboTaxis.add(roboTaxi);
+            }
+        List<InsertionChecker> checkers = forkJoinPool.submit(() -> IntStream.range(0, requests.size()).parallel() //
+                .mapToObj(index -> new InsertionChecker(distance.get(), travelTime.get(), roboTaxis.get(index), requests.get(index), //
+                        pickupDelayMax, drpoffDelayMax, now)) //
+                .collect(Collectors.toList())).join();
+        Map<PassengerRequest, List<InsertionChecker>> checkersOfRequests = new LinkedHashMap<>();
+        for (int index = 0; index < checkers.size(); ++index)
+            checkersOfRequests.computeIfAbsent(requests.get(index), request -> new ArrayList<>()).add(checkers.get(index));
+        return checkersOfRequests;
+    }
+}
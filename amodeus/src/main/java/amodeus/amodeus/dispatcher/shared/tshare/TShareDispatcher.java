@@ -2,13 +2,10 @@
 package amodeus.amodeus.dispatcher.shared.tshare;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.NavigableMap;
-import java.util.Objects;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import org.matsim.amodeus.components.AmodeusDispatcher;
@@ -36,17 +33,12 @@ import amodeus.amodeus.net.MatsimAmodeusDatabase;
 import amodeus.amodeus.routing.CachedNetworkTimeDistance;
 import amodeus.amodeus.routing.EasyMinDistPathCalculator;
 import amodeus.amodeus.routing.EasyMinTimePathCalculator;
-import amodeus.amodeus.routing.TimeDistanceProperty;
 import amodeus.amodeus.util.geo.FastQuadTree;
-import amodeus.amodeus.util.math.SI;
 import amodeus.amodeus.util.matsim.SafeConfig;
 import amodeus.amodeus.virtualnetwork.core.VirtualNetwork;
 import amodeus.amodeus.virtualnetwork.core.VirtualNode;
-import ch.ethz.idsc.tensor.Scalar;
-import ch.ethz.idsc.tensor.Scalars;
 import ch.ethz.idsc.tensor.Tensor;
 import ch.ethz.idsc.tensor.Tensors;
-import ch.ethz.idsc.tensor.qty.Quantity;
 
 /** Ma, Shuo, Yu Zheng, and Ouri Wolfson. "T-share: A large-scale dynamic taxi ridesharing service."
  * Data Engineering (ICDE), 2013 IEEE 29th International Conference on. IEEE, 2013.
@@ -64,13 +56,13 @@ public class TShareDispatcher extends SharedPartitionedDispatcher {
     private final TShareBipartiteMatchingUtils bipartiteMatchingUtils;
     private Tensor printInfo = Tensors.empty();
 
-    /** T-Share specific */
-    private final Map<VirtualNode<Link>, GridCell> gridCells = new HashMap<>();
-    private final Scalar pickupDelayMax;
-    private final Scalar drpoffDelayMax;
+    /** T-Share specific, delays in seconds */
+    private final double pickupDelayMax;
+    private final double drpoffDelayMax;
     private final DualSideSearch dualSideSearch;
     private final CachedNetworkTimeDistance distanceCashed;
     private final CachedNetworkTimeDistance travelTimeCalculator;
+    private final InsertionSelection insertionSelection;
 
     protected TShareDispatcher(Network network, Config config, AmodeusModeConfig operatorConfig, //
             TravelTime travelTime, AmodeusRouter router, EventsManager eventsManager, //
@@ -80,26 +72,34 @@ public class TShareDispatcher extends SharedPartitionedDispatcher {
         dispatchPeriod = dispatcherConfig.getDispatchPeriod(30);
         DistanceHeuristics distanceHeuristics = dispatcherConfig.getDistanceHeuristics(DistanceHeuristics.EUCLIDEAN);
         System.out.println("Using DistanceHeuristics: " + distanceHeuristics.name());
-        distanceCashed = new CachedNetworkTimeDistance(
+        SafeConfig safeConfig = SafeConfig.wrap(operatorConfig.getDispatcherConfig());
+        distanceCashed = CachedNetworkTimeDistance.of(
                 EasyMinDistPathCalculator.prepPathCalculator(network, new FastAStarLandmarksFactory(Runtime.getRuntime().availableProcessors())), //
-                180000.0, TimeDistanceProperty.INSTANCE);
-        travelTimeCalculator = new CachedNetworkTimeDistance(
+                180000.0, safeConfig);
+        travelTimeCalculator = CachedNetworkTimeDistance.of(
                 EasyMinTimePathCalculator.prepPathCalculator(network, new FastAStarLandmarksFactory(Runtime.getRuntime().availableProcessors())), //
-                180000.0, TimeDistanceProperty.INSTANCE);
+                180000.0, safeConfig);
         bipartiteMatchingUtils = new TShareBipartiteMatchingUtils();
 
         /** T-Share specific */
-        SafeConfig safeConfig = SafeConfig.wrap(operatorConfig.getDispatcherConfig());
-        pickupDelayMax = Quantity.of(safeConfig.getInteger("pickupDelayMax", 10 * 60), SI.SECOND);
-        drpoffDelayMax = Quantity.of(safeConfig.getInteger("drpoffDelayMax", 30 * 60), SI.SECOND);
+        pickupDelayMax = safeConfig.getInteger("pickupDelayMax", 10 * 60);
+        drpoffDelayMax = safeConfig.getInteger("drpoffDelayMax", 30 * 60);
 
-        /** initialize grid with T-cells */
+        /** initialize grid with T-cells, the travel times and distances between all cells are computed in parallel */
         QuadTree<Link> linkTree = FastQuadTree.of(network);
-        for (VirtualNode<Link> virtualNode : virtualNetwork.getVirtualNodes()) {
-            System.out.println("preparing grid cell: " + virtualNode.getIndex());
-            gridCells.put(virtualNode, new GridCell(virtualNode, virtualNetwork, distanceCashed, travelTimeCalculator, linkTree));
-        }
-        dualSideSearch = new DualSideSearch(gridCells, virtualNetwork);
+        int numberOfThreads = safeConfig.getInteger("numberOfThreads", Runtime.getRuntime().availableProcessors());
+        long tic = System.nanoTime();
+        GridCellMatrix gridCellMatrix = new GridCellMatrix(network, virtualNetwork, linkTree, //
+                new FastAStarLandmarksFactory(numberOfThreads), numberOfThreads);
+        System.out.println(String.format("prepared %d grid cells with %d threads in %.1f[s]", //
+                gridCellMatrix.size(), numberOfThreads, (System.nanoTime() - tic) * 1e-9));
+        dualSideSearch = new DualSideSearch(gridCellMatrix, virtualNetwork);
+
+        /** evaluation of the insertions of all requests in parallel, enabled in the av.xml file with
+         * <param name="parallelInsertion" value="true" /> */
+        boolean parallelInsertion = Boolean.parseBoolean(safeConfig.getString("parallelInsertion", "false"));
+        insertionSelection = new InsertionSelection(distanceCashed, travelTimeCalculator, pickupDelayMax, drpoffDelayMax, //
+                parallelInsertion && 1 < numberOfThreads ? new ParallelInsertionEvaluator(network, safeConfig, numberOfThreads) : null);
         System.out.println("According to the reference, a rectangular {@link VirtualNetwork} should be used.");
         System.out.println("Ensure that VirtualNetworkCreators.RECTANGULAR is used.");
     }
@@ -140,35 +140,29 @@ public class TShareDispatcher extends SharedPartitionedDispatcher {
                 .sorted(RequestWaitTimeComparator.INSTANCE) // sort such that earliest submission is first
                 .collect(Collectors.toList());
 
+        long tic = System.nanoTime();
+        /** dual side search for all requests with time left, the planned locations are not updated
+         * during the insertions such that the potential taxis of all requests are known in advance */
+        Map<PassengerRequest, Collection<RoboTaxi>> potentialTaxis = new LinkedHashMap<>();
         for (PassengerRequest avr : sortedRequests) {
-
             // compute times left until pickup or dropoff window closed
-            Scalar timeLeftForPickup = LatestPickup.timeTo(avr, pickupDelayMax, now);
-            Scalar timeLeftUntilArrival = LatestArrival.timeTo(avr, drpoffDelayMax, travelTimeCalculator, now);
-
-            /** if still available time, find ridesharing opportunity */
-            if (Scalars.lessThan(Quantity.of(0, SI.SECOND), timeLeftForPickup) && //
-                    Scalars.lessThan(Quantity.of(0, SI.SECOND), timeLeftForPickup)) {
-
-                /** dual side search */
-                Collection<RoboTaxi> potentialTaxis = dualSideSearch.apply(avr, plannedLocs, timeLeftForPickup, timeLeftUntilArrival);
-
-                /** insertion feasibility check, compute possible insertions into schedules
-                 * of all {@link RoboTaxi}s, find the insertion with smallest additional distance */
-                NavigableMap<Scalar, InsertionChecker> insertions = new TreeMap<>();
-                for (RoboTaxi taxi : potentialTaxis) {
-                    InsertionChecker checker = //
-                            new InsertionChecker(distanceCashed, travelTimeCalculator, taxi, avr, //
-                                    pickupDelayMax, drpoffDelayMax, now);
-                    if (Objects.nonNull(checker.getAddDistance()))
-                        insertions.put(checker.getAddDistance(), checker);
-                }
-
-                /** plan update: insert the request into the plan of the {@link RoboTaxi} */
-                if (Objects.nonNull(insertions.firstEntry()))
-                    insertions.firstEntry().getValue().executeBest(this::addSharedRoboTaxiPickup);
-            }
+            double timeLeftForPickup = LatestPickup.timeTo(avr, pickupDelayMax, now);
+            double timeLeftUntilArrival = LatestArrival.timeTo(avr, drpoffDelayMax, travelTimeCalculator, now);
+
+            /** if still available time, find ridesharing opportunity, without time left until the arrival no
+             * destination cell is reachable and the dual side search finds no taxi */
+            if (0 < timeLeftForPickup && 0 < timeLeftUntilArrival)
+                potentialTaxis.put(avr, dualSideSearch.apply(avr, plannedLocs, timeLeftForPickup, timeLeftUntilArrival));
         }
+
+        /** insertion of the requests one after another, the insertions are evaluated in parallel if enabled */
+        int evaluations = potentialTaxis.values().stream().mapToInt(Collection::size).sum();
+        int insertions = insertionSelection.insert(potentialTaxis, now, this::addSharedRoboTaxiPickup).size();
+        long searchNanos = System.nanoTime() - tic;
+        if (!sortedRequests.isEmpty())
+            System.out.println(String.format("T-Share search and insertion: %d requests, %.3f[ms] per request, " //
+                    + "%d insertions evaluated, %d committed", //
+                    sortedRequests.size(), searchNanos * 1e-6 / sortedRequests.size(), evaluations, insertions));
     }
 
     @Override
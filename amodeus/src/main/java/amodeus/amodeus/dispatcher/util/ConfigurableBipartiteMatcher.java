@@ -28,6 +28,12 @@ public class ConfigurableBipartiteMatcher extends BipartiteMatcherInternal {
      * <param name="matchingAlgorithm" value="ILP" />
      * <param name="matchingWeight" value="[1.0,1.0,1.0]" />
      * 
+     * -3: like the Hungarian method, but only the closest candidates of every robotaxi and request are considered,
+     * for large fleets the cost matrix is not built, for this option the av.xml file should look as follows
+     * <dispatcher strategy="GlobalBipartiteMatchingDispatcher">
+     * <param name="matchingAlgorithm" value="SPARSE" />
+     * <param name="matchingCandidates" value="10" />
+     * 
      * The values are retrieved via @param safeConfig, other parameters necessary for instantiation are
      * the network @param network, and the distance function @param distanceFunction */
     public ConfigurableBipartiteMatcher(Network network, GlobalBipartiteCost cost, SafeConfig safeConfig) {
@@ -38,6 +44,11 @@ public class ConfigurableBipartiteMatcher extends BipartiteMatcherInternal {
             hungarian = true;
             globalBipartiteMatcher = new GlobalBipartiteMatching(cost);
             break;
+        case "SPARSE":
+            hungarian = true;
+            globalBipartiteMatcher = new SparseBipartiteMatching(cost, //
+                    safeConfig.getInteger("matchingCandidates", SparseBipartiteMatching.DEFAULT_CANDIDATES));
+            break;
         case "ILP":
             hungarian = false;
             globalBipartiteMatcher = new GlobalBipartiteMatchingILP(cost, safeConfig);
@@ -13,6 +13,7 @@ import org.matsim.api.core.v01.network.Link;
 
 import amodeus.amodeus.dispatcher.core.RoboTaxi;
 import amodeus.amodeus.util.hungarian.HungarianAlgorithmWrap;
+import amodeus.amodeus.util.hungarian.Warmstarter;
 import amodeus.amodeus.util.math.GlobalAssert;
 
 /* package */ enum GlobalBipartiteHelper {
@@ -20,6 +21,24 @@ import amodeus.amodeus.util.math.GlobalAssert;
 
     public static <T> Map<RoboTaxi, T> genericMatch(Collection<RoboTaxi> roboTaxis, Collection<T> linkObjects, //
             Function<T, Link> linkOfT, GlobalBipartiteCost globalBipartiteCost) {
+        return genericMatch(roboTaxis, linkObjects, linkOfT, globalBipartiteCost, //
+                (costMatrix, orderedRoboTaxis, ordered_linkObjects) -> HungarianAlgorithmWrap.matching(costMatrix));
+    }
+
+    /** same as {@link #genericMatch(Collection, Collection, Function, GlobalBipartiteCost)}, the Hungarian algorithm
+     * is started from the solution of the previous call of the {@link Warmstarter}
+     * 
+     * @param keyOfT identifies a link object between calls, e.g., the request id */
+    public static <T> Map<RoboTaxi, T> genericMatch(Collection<RoboTaxi> roboTaxis, Collection<T> linkObjects, //
+            Function<T, Link> linkOfT, GlobalBipartiteCost globalBipartiteCost, Warmstarter warmstarter, Function<T, ?> keyOfT) {
+        return genericMatch(roboTaxis, linkObjects, linkOfT, globalBipartiteCost, //
+                (costMatrix, orderedRoboTaxis, ordered_linkObjects) -> warmstarter.matching(costMatrix, //
+                        orderedRoboTaxis.stream().map(RoboTaxi::getId).collect(Collectors.toList()), //
+                        ordered_linkObjects.stream().map(keyOfT).collect(Collectors.toList())));
+    }
+
+    private static <T> Map<RoboTaxi, T> genericMatch(Collection<RoboTaxi> roboTaxis, Collection<T> linkObjects, //
+            Function<T, Link> linkOfT, GlobalBipartiteCost globalBipartiteCost, Solver<T> solver) {
         /** storage in {@link List} as {@link Collection} does not guarantee order */
         final List<RoboTaxi> orderedRoboTaxis = new ArrayList<>(roboTaxis);
         final List<T> ordered_linkObjects = new ArrayList<>(linkObjects);
@@ -40,7 +59,7 @@ import amodeus.amodeus.util.math.GlobalAssert;
 
         /** vehicle at position i is assigned to destination matchinghungarianAlgorithm[j],
          * int[] matchinghungarianAlgorithm = new HungarianAlgorithm(distancematrix).execute(); O(n^3) */
-        int[] matchinghungarianAlgorithm = HungarianAlgorithmWrap.matching(costMatrix);
+        int[] matchinghungarianAlgorithm = solver.matching(costMatrix, orderedRoboTaxis, ordered_linkObjects);
 
         /** do the assignment according to the Hungarian algorithm (only for the matched elements) */
         AtomicInteger ai = new AtomicInteger();
@@ -50,4 +69,8 @@ import amodeus.amodeus.util.math.GlobalAssert;
         return map;
     }
 
+    @FunctionalInterface
+    private interface Solver<T> {
+        int[] matching(double[][] costMatrix, List<RoboTaxi> orderedRoboTaxis, List<T> ordered_linkObjects);
+    }
 }
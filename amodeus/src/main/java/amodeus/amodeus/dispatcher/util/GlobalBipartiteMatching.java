@@ -9,13 +9,17 @@ import org.matsim.api.core.v01.network.Link;
 import org.matsim.contrib.dvrp.passenger.PassengerRequest;
 
 import amodeus.amodeus.dispatcher.core.RoboTaxi;
+import amodeus.amodeus.util.hungarian.Warmstarter;
 
 /** Use to solve a {@link RoboTaxi} to {@link PassengerRequest} assignment problem via
  * global (all to all) bipartite matching. Solved using
- * the Hungarian algorithm */
+ * the Hungarian algorithm, which is warm started from the solution of the previous
+ * call by a {@link Warmstarter} owned by this instance. */
 public class GlobalBipartiteMatching extends AbstractRoboTaxiDestMatcher {
 
     protected final GlobalBipartiteCost globalBipartiteCost;
+    private final Warmstarter requestWarmstarter = new Warmstarter();
+    private final Warmstarter linkWarmstarter = new Warmstarter();
 
     /** Set the matching cost.
      * 
@@ -31,7 +35,8 @@ public class GlobalBipartiteMatching extends AbstractRoboTaxiDestMatcher {
      * @return */
     @Override
     protected Map<RoboTaxi, PassengerRequest> protected_match(Collection<RoboTaxi> roboTaxis, Collection<PassengerRequest> requests) {
-        return GlobalBipartiteHelper.genericMatch(roboTaxis, requests, PassengerRequest::getFromLink, globalBipartiteCost);
+        return GlobalBipartiteHelper.genericMatch(roboTaxis, requests, PassengerRequest::getFromLink, globalBipartiteCost, //
+                requestWarmstarter, PassengerRequest::getId);
     }
 
     /** Match Robotaxis to links.
@@ -41,7 +46,18 @@ public class GlobalBipartiteMatching extends AbstractRoboTaxiDestMatcher {
      * @return */
     @Override
     protected Map<RoboTaxi, Link> protected_matchLink(Collection<RoboTaxi> roboTaxis, Collection<Link> links) {
-        return GlobalBipartiteHelper.genericMatch(roboTaxis, links, link -> link, globalBipartiteCost);
+        return GlobalBipartiteHelper.genericMatch(roboTaxis, links, link -> link, globalBipartiteCost, //
+                linkWarmstarter, Link::getId);
+    }
+
+    /** @return warm start and its statistics of the matching of requests */
+    public Warmstarter getRequestWarmstarter() {
+        return requestWarmstarter;
+    }
+
+    /** @return warm start and its statistics of the matching of links */
+    public Warmstarter getLinkWarmstarter() {
+        return linkWarmstarter;
     }
 
 }
@@ -0,0 +1,316 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.util;
+
+import java.util.Arrays;
+
+import amodeus.amodeus.util.math.GlobalAssert;
+
+/** minimum cost assignment of rows to columns on a sparse bipartite graph by successive shortest paths:
+ * every row is matched along a shortest augmenting path, which is found by Dijkstra's algorithm on the
+ * reduced costs c(i, j) - u(i) - v(j) >= 0. The search stops at the first free column, such that in a
+ * sparse graph typically only a small part of the graph is visited. Every row has to be matched, i.e.,
+ * rows <= columns.
+ *
+ * Rows for which no free column is reachable over the sparse edges are connected to all columns with
+ * the costs given by {@link RowColumnCost}, such that every row is matched. The result is optimal with
+ * respect to the sparse graph including these additional edges.
+ *
+ * The column potentials v are given by the caller and updated in place, they can be reused as start
+ * values of a similar problem, e.g., in the next dispatch period. Since rows <= columns, the assignment
+ * is only optimal if all free columns have the maximum potential 0. Free columns with negative start
+ * potential are raised to 0 after the assignment if this keeps all reduced costs non-negative, otherwise
+ * the problem is solved again from potentials 0. */
+/* package */ class SparseAssignmentSolver {
+    @FunctionalInterface
+    public interface RowColumnCost {
+        double between(int row, int column);
+    }
+
+    private static final double EPS = 1e-9;
+
+    private final int rows;
+    private final int columns;
+    private final int[][] edgeColumns;
+    private final double[][] edgeCosts;
+    private final boolean[] dense;
+    private final RowColumnCost rowColumnCost;
+    // ---
+    private final double[] u;
+    private final double[] v;
+    private final int[] rowMatch;
+    private final int[] columnMatch;
+    // --- search state, reset after every augmentation
+    private final double[] distance;
+    private final double[] rowDistance;
+    private final int[] previousRow;
+    private final boolean[] finalized;
+    private final int[] touchedColumns;
+    private int numTouchedColumns = 0;
+    private final int[] reachedRows;
+    private int numReachedRows = 0;
+    private final ColumnHeap heap;
+    private boolean warmStarted = false;
+
+    /** @param edgeColumns [row][k] column of k-th edge of row, no duplicates per row
+     * @param edgeCosts [row][k] cost of k-th edge of row
+     * @param columnPotentials of length columns, start values of the column potentials, updated in place
+     * @param rowColumnCost cost between any row and column */
+    public SparseAssignmentSolver(int[][] edgeColumns, double[][] edgeCosts, double[] columnPotentials, RowColumnCost rowColumnCost) {
+        this.rows = edgeColumns.length;
+        this.columns = columnPotentials.length;
+        GlobalAssert.that(rows <= columns && edgeCosts.length == rows);
+        this.edgeColumns = edgeColumns.clone();
+        this.edgeCosts = edgeCosts.clone();
+        this.dense = new boolean[rows];
+        this.rowColumnCost = rowColumnCost;
+        u = new double[rows];
+        v = columnPotentials;
+        rowMatch = new int[rows];
+        Arrays.fill(rowMatch, -1);
+        columnMatch = new int[columns];
+        Arrays.fill(columnMatch, -1);
+        distance = new double[columns];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        rowDistance = new double[rows];
+        previousRow = new int[columns];
+        finalized = new boolean[columns];
+        touchedColumns = new int[columns];
+        reachedRows = new int[rows];
+        heap = new ColumnHeap(columns);
+    }
+
+    /** @return column matched to row, for every row */
+    public int[] execute() {
+        boolean warmStart = Arrays.stream(v).anyMatch(potential -> potential != 0);
+        GlobalAssert.that(Arrays.stream(v).allMatch(potential -> potential <= 0));
+        assignAll();
+        warmStarted = warmStart && releaseFreeColumns();
+        if (warmStart && !warmStarted) {
+            Arrays.fill(v, 0);
+            Arrays.fill(rowMatch, -1);
+            Arrays.fill(columnMatch, -1);
+            assignAll();
+        }
+        return rowMatch.clone();
+    }
+
+    /** @return true if the last execution used the given potentials, false if it was solved from potentials 0 */
+    public boolean isWarmStarted() {
+        return warmStarted;
+    }
+
+    private void assignAll() {
+        for (int row = 0; row < rows; ++row) {
+            initRowPotential(row);
+            int column = search(row);
+            if (column < 0) {
+                /** no free column is reachable over the sparse edges */
+                densify(row);
+                column = search(row);
+            }
+            GlobalAssert.that(0 <= column);
+            augment(row, column);
+        }
+    }
+
+    /** @return true if all free columns with negative potential were raised to potential 0 */
+    private boolean releaseFreeColumns() {
+        for (int row = 0; row < rows; ++row)
+            for (int k = 0; k < edgeColumns[row].length; ++k) {
+                int column = edgeColumns[row][k];
+                if (columnMatch[column] < 0 && v[column] < 0 && edgeCosts[row][k] - u[row] < -EPS)
+                    return false;
+            }
+        for (int column = 0; column < columns; ++column)
+            if (columnMatch[column] < 0)
+                v[column] = 0;
+        return true;
+    }
+
+    /** @return sum of the costs of the assignment */
+    public double cost() {
+        double cost = 0;
+        for (int row = 0; row < rows; ++row)
+            for (int k = 0; k < edgeColumns[row].length; ++k)
+                if (edgeColumns[row][k] == rowMatch[row])
+                    cost += edgeCosts[row][k];
+        return cost;
+    }
+
+    /** the row is free, its potential is the largest value such that all reduced costs of its edges are non-negative */
+    private void initRowPotential(int row) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < edgeColumns[row].length; ++k)
+            min = Math.min(min, edgeCosts[row][k] - v[edgeColumns[row][k]]);
+        u[row] = Double.isInfinite(min) ? 0 : min;
+    }
+
+    private void densify(int row) {
+        GlobalAssert.that(!dense[row]);
+        int[] allColumns = new int[columns];
+        double[] costs = new double[columns];
+        for (int column = 0; column < columns; ++column) {
+            allColumns[column] = column;
+            costs[column] = rowColumnCost.between(row, column);
+        }
+        edgeColumns[row] = allColumns;
+        edgeCosts[row] = costs;
+        dense[row] = true;
+        initRowPotential(row);
+    }
+
+    /** @return free column at the end of a shortest augmenting path from row, or -1 if none is reachable */
+    private int search(int row) {
+        int found = -1;
+        rowDistance[row] = 0;
+        reachedRows[numReachedRows++] = row;
+        relax(row, 0);
+        while (!heap.isEmpty()) {
+            int column = heap.poll();
+            finalized[column] = true;
+            if (columnMatch[column] < 0) {
+                found = column;
+                break;
+            }
+            int matchedRow = columnMatch[column];
+            rowDistance[matchedRow] = distance[column];
+            reachedRows[numReachedRows++] = matchedRow;
+            relax(matchedRow, distance[column]);
+        }
+        if (0 <= found) {
+            /** update of the potentials keeps all reduced costs non-negative and those on the path zero */
+            double delta = distance[found];
+            for (int i = 0; i < numTouchedColumns; ++i) {
+                int column = touchedColumns[i];
+                if (finalized[column])
+                    v[column] -= delta - distance[column];
+            }
+            for (int i = 0; i < numReachedRows; ++i)
+                u[reachedRows[i]] += delta - rowDistance[reachedRows[i]];
+        }
+        reset();
+        return found;
+    }
+
+    private void relax(int row, double rowDist) {
+        int[] rowColumns = edgeColumns[row];
+        double[] rowCosts = edgeCosts[row];
+        for (int k = 0; k < rowColumns.length; ++k) {
+            int column = rowColumns[k];
+            if (finalized[column])
+                continue;
+            /** reduced cost is non-negative up to rounding */
+            double next = rowDist + Math.max(0, rowCosts[k] - u[row] - v[column]);
+            if (next < distance[column]) {
+                if (Double.isInfinite(distance[column]))
+                    touchedColumns[numTouchedColumns++] = column;
+                distance[column] = next;
+                previousRow[column] = row;
+                heap.put(column, next);
+            }
+        }
+    }
+
+    private void augment(int row, int column) {
+        while (true) {
+            int pathRow = previousRow[column];
+            int nextColumn = rowMatch[pathRow];
+            rowMatch[pathRow] = column;
+            columnMatch[column] = pathRow;
+            if (pathRow == row)
+                break;
+            column = nextColumn;
+        }
+    }
+
+    /** previousRow is kept for the augmentation */
+    private void reset() {
+        for (int i = 0; i < numTouchedColumns; ++i) {
+            distance[touchedColumns[i]] = Double.POSITIVE_INFINITY;
+            finalized[touchedColumns[i]] = false;
+        }
+        numTouchedColumns = 0;
+        numReachedRows = 0;
+        heap.clear();
+    }
+
+    /** binary min-heap of columns with decrease key */
+    private static class ColumnHeap {
+        private final int[] heap;
+        private final double[] keys;
+        /** position of column in heap, -1 if not contained */
+        private final int[] position;
+        private int size = 0;
+
+        ColumnHeap(int capacity) {
+            heap = new int[capacity];
+            keys = new double[capacity];
+            position = new int[capacity];
+            Arrays.fill(position, -1);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /** inserts column or decreases its key */
+        void put(int column, double key) {
+            keys[column] = key;
+            if (position[column] < 0) {
+                heap[size] = column;
+                position[column] = size;
+                siftUp(size++);
+            } else
+                siftUp(position[column]);
+        }
+
+        int poll() {
+            int column = heap[0];
+            position[column] = -1;
+            if (0 < --size) {
+                heap[0] = heap[size];
+                position[heap[0]] = 0;
+                siftDown(0);
+            }
+            return column;
+        }
+
+        void clear() {
+            for (int i = 0; i < size; ++i)
+                position[heap[i]] = -1;
+            size = 0;
+        }
+
+        private void siftUp(int index) {
+            while (0 < index) {
+                int parent = (index - 1) / 2;
+                if (keys[heap[parent]] <= keys[heap[index]])
+                    break;
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int child = 2 * index + 1;
+                if (size <= child)
+                    break;
+                if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]])
+                    ++child;
+                if (keys[heap[index]] <= keys[heap[child]])
+                    break;
+                swap(index, child);
+                index = child;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int column = heap[i];
+            heap[i] = heap[j];
+            heap[j] = column;
+            position[heap[i]] = i;
+            position[heap[j]] = j;
+        }
+    }
+}
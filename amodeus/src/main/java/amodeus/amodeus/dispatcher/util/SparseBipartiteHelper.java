@@ -0,0 +1,136 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Link;
+
+import amodeus.amodeus.dispatcher.core.RoboTaxi;
+import amodeus.amodeus.util.math.GlobalAssert;
+import amodeus.amodeus.util.nd.KdTree2D;
+
+/** Same matching as {@link GlobalBipartiteHelper} on a sparse candidate graph: every {@link RoboTaxi} is connected
+ * to its closest link objects and every link object to its closest {@link RoboTaxi}s by Euclidean distance, the
+ * cost is only evaluated for these candidate pairs. The smaller side is matched completely by the
+ * {@link SparseAssignmentSolver}, for n taxis and m requests the memory is O((n + m) * candidates) instead of O(n * m).
+ *
+ * The potentials of the larger side are kept and reused as start values in the next call. */
+/* package */ class SparseBipartiteHelper<T> {
+    private final int candidates;
+    /** potential by object of the larger side of the last matching */
+    private Map<Object, Double> potentials = new HashMap<>();
+    private int matchings = 0;
+    private int warmStarts = 0;
+
+    /** @param candidates number of closest objects of the other side connected to every object */
+    public SparseBipartiteHelper(int candidates) {
+        GlobalAssert.that(0 < candidates);
+        this.candidates = candidates;
+    }
+
+    public Map<RoboTaxi, T> genericMatch(Collection<RoboTaxi> roboTaxis, Collection<T> linkObjects, //
+            Function<T, Link> linkOfT, GlobalBipartiteCost globalBipartiteCost) {
+        /** storage in {@link List} as {@link Collection} does not guarantee order */
+        final List<RoboTaxi> orderedRoboTaxis = new ArrayList<>(roboTaxis);
+        final List<T> ordered_linkObjects = new ArrayList<>(linkObjects);
+        final int n = orderedRoboTaxis.size(); // workers
+        final int m = ordered_linkObjects.size(); // jobs
+
+        /** the smaller side are the rows, which are all matched */
+        final boolean taxisAreRows = n <= m;
+        final List<?> rowObjects = taxisAreRows ? orderedRoboTaxis : ordered_linkObjects;
+        final List<?> columnObjects = taxisAreRows ? ordered_linkObjects : orderedRoboTaxis;
+        double[][] taxiLocations = orderedRoboTaxis.stream().map(roboTaxi -> location(roboTaxi.getDivertableLocation())).toArray(double[][]::new);
+        double[][] objectLocations = ordered_linkObjects.stream().map(t -> location(linkOfT.apply(t))).toArray(double[][]::new);
+        double[][] rowLocations = taxisAreRows ? taxiLocations : objectLocations;
+        double[][] columnLocations = taxisAreRows ? objectLocations : taxiLocations;
+        SparseAssignmentSolver.RowColumnCost rowColumnCost = taxisAreRows //
+                ? (row, column) -> globalBipartiteCost.between(orderedRoboTaxis.get(row), linkOfT.apply(ordered_linkObjects.get(column)))
+                : (row, column) -> globalBipartiteCost.between(orderedRoboTaxis.get(column), linkOfT.apply(ordered_linkObjects.get(row)));
+
+        int[][] edgeColumns = candidateEdges(rowLocations, columnLocations, candidates);
+
+        /** cost only for the candidate edges */
+        double[][] edgeCosts = new double[rowObjects.size()][];
+        for (int row = 0; row < rowObjects.size(); ++row) {
+            edgeCosts[row] = new double[edgeColumns[row].length];
+            for (int k = 0; k < edgeColumns[row].length; ++k)
+                edgeCosts[row][k] = rowColumnCost.between(row, edgeColumns[row][k]);
+        }
+
+        /** potentials of the last matching, objects of the larger side which are new start with 0 */
+        double[] columnPotentials = columnObjects.stream().mapToDouble(object -> potentials.getOrDefault(object, 0.0)).toArray();
+        SparseAssignmentSolver solver = new SparseAssignmentSolver(edgeColumns, edgeCosts, columnPotentials, rowColumnCost);
+        int[] matching = solver.execute();
+        ++matchings;
+        if (solver.isWarmStarted())
+            ++warmStarts;
+        potentials = new HashMap<>();
+        for (int column = 0; column < columnObjects.size(); ++column)
+            if (columnPotentials[column] != 0)
+                potentials.put(columnObjects.get(column), columnPotentials[column]);
+
+        final Map<RoboTaxi, T> map = new HashMap<>();
+        for (int row = 0; row < matching.length; ++row)
+            if (taxisAreRows)
+                map.put(orderedRoboTaxis.get(row), ordered_linkObjects.get(matching[row]));
+            else
+                map.put(orderedRoboTaxis.get(matching[row]), ordered_linkObjects.get(row));
+        GlobalAssert.that(map.size() == Math.min(n, m));
+        return map;
+    }
+
+    /** @return number of matchings that were started from the potentials of the previous matching */
+    public int getWarmStarts() {
+        return warmStarts;
+    }
+
+    public int getMatchings() {
+        return matchings;
+    }
+
+    /** @param rowLocations [row] = {x, y}
+     * @param columnLocations [column] = {x, y}
+     * @return [row][k] columns connected to row, the closest columns of every row and the closest rows of every column */
+    /* package */ static int[][] candidateEdges(double[][] rowLocations, double[][] columnLocations, int candidates) {
+        List<Set<Integer>> edges = new ArrayList<>(rowLocations.length);
+        for (int row = 0; row < rowLocations.length; ++row)
+            edges.add(new LinkedHashSet<>());
+        /** buffers of the queries, reused for all rows and columns */
+        int[] neighbors = new int[candidates];
+        double[] distances = new double[candidates];
+        KdTree2D columnTree = kdTree(columnLocations);
+        for (int row = 0; row < rowLocations.length; ++row) {
+            int count = columnTree.nearest(rowLocations[row][0], rowLocations[row][1], candidates, neighbors, distances);
+            for (int k = 0; k < count; ++k)
+                edges.get(row).add(neighbors[k]);
+        }
+        KdTree2D rowTree = kdTree(rowLocations);
+        for (int column = 0; column < columnLocations.length; ++column) {
+            int count = rowTree.nearest(columnLocations[column][0], columnLocations[column][1], candidates, neighbors, distances);
+            for (int k = 0; k < count; ++k)
+                edges.get(neighbors[k]).add(column);
+        }
+        return edges.stream().map(rowEdges -> rowEdges.stream().mapToInt(Integer::intValue).toArray()).toArray(int[][]::new);
+    }
+
+    private static KdTree2D kdTree(double[][] locations) {
+        return KdTree2D.of( //
+                Arrays.stream(locations).mapToDouble(location -> location[0]).toArray(), //
+                Arrays.stream(locations).mapToDouble(location -> location[1]).toArray());
+    }
+
+    private static double[] location(Link link) {
+        Coord coord = link.getCoord();
+        return new double[] { coord.getX(), coord.getY() };
+    }
+}
@@ -0,0 +1,52 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.util;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+
+import amodeus.amodeus.dispatcher.core.RoboTaxi;
+
+/** Use to solve a {@link RoboTaxi} to {@link PassengerRequest} assignment problem like
+ * {@link GlobalBipartiteMatching}, but only the closest candidates of every {@link RoboTaxi} and
+ * every destination are considered. Solved using successive shortest paths on the sparse
+ * candidate graph, see {@link SparseBipartiteHelper}. */
+public class SparseBipartiteMatching extends AbstractRoboTaxiDestMatcher {
+    public static final int DEFAULT_CANDIDATES = 10;
+
+    protected final GlobalBipartiteCost globalBipartiteCost;
+    private final SparseBipartiteHelper<PassengerRequest> requestHelper;
+    private final SparseBipartiteHelper<Link> linkHelper;
+
+    /** Set the matching cost.
+     * 
+     * @param globalBipartiteCost - implementation of the GlobalBipartiteCost functional interface
+     * @param candidates - number of closest candidates of every {@link RoboTaxi} and destination */
+    public SparseBipartiteMatching(GlobalBipartiteCost globalBipartiteCost, int candidates) {
+        this.globalBipartiteCost = Objects.requireNonNull(globalBipartiteCost);
+        requestHelper = new SparseBipartiteHelper<>(candidates);
+        linkHelper = new SparseBipartiteHelper<>(candidates);
+    }
+
+    public SparseBipartiteMatching(GlobalBipartiteCost globalBipartiteCost) {
+        this(globalBipartiteCost, DEFAULT_CANDIDATES);
+    }
+
+    @Override
+    protected Map<RoboTaxi, PassengerRequest> protected_match(Collection<RoboTaxi> roboTaxis, Collection<PassengerRequest> requests) {
+        return requestHelper.genericMatch(roboTaxis, requests, PassengerRequest::getFromLink, globalBipartiteCost);
+    }
+
+    @Override
+    protected Map<RoboTaxi, Link> protected_matchLink(Collection<RoboTaxi> roboTaxis, Collection<Link> links) {
+        return linkHelper.genericMatch(roboTaxis, links, link -> link, globalBipartiteCost);
+    }
+
+    /** @return number of request matchings that reused the potentials of the previous matching */
+    public int getWarmStarts() {
+        return requestHelper.getWarmStarts();
+    }
+}
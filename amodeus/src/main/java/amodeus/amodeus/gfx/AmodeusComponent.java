@@ -7,6 +7,7 @@ import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -46,6 +47,15 @@ public class AmodeusComponent extends JMapViewer {
     @SuppressWarnings("unused")
     private int repaint_count = 0;
     private SimulationObject simulationObject = null;
+    private final LinkProjection linkProjection;
+    /** reused as long as the size of the component does not change */
+    private BufferedImage backBuffer = null;
+    private long fpsTic = System.nanoTime();
+    private int fpsFrames = 0;
+    private double fps = 0;
+    private double frameMillis = 0;
+    /** cache of decoded frames of the viewer, for statistics in the hud */
+    private volatile FrameCache frameCache = null;
 
     public VirtualNetworkLayer virtualNetworkLayer;
 
@@ -65,6 +75,7 @@ public class AmodeusComponent extends JMapViewer {
      * @param db */
     public AmodeusComponent(MatsimAmodeusDatabase db) {
         this.db = db;
+        linkProjection = new LinkProjection(db);
         viewerConfig = ViewerConfig.fromDefaults(db);
         infoFontSize = viewerConfig.settings.infoFontSize;
         // ---
@@ -104,17 +115,63 @@ public class AmodeusComponent extends JMapViewer {
         return db;
     }
 
+    /** @return geometry of all links projected with the current tile source and zoom level */
+    final LinkProjection.Zoom getLinkProjection() {
+        return linkProjection.of(getTileSource(), getZoom());
+    }
+
+    /** @return x of the top left corner of the component in pixels of the world map */
+    final int getOriginX() {
+        return center.x - getWidth() / 2;
+    }
+
+    /** @return y of the top left corner of the component in pixels of the world map */
+    final int getOriginY() {
+        return center.y - getHeight() / 2;
+    }
+
+    /** @return true if screen coordinates (x, y) are within view, consistent with {@link #getMapPosition(Coord)} */
+    final boolean isVisible(int x, int y) {
+        return 0 <= x && 0 <= y && x <= getWidth() && y <= getHeight();
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
+        long tic = System.nanoTime();
+        int width = Math.max(1, getWidth());
+        int height = Math.max(1, getHeight());
+        if (Objects.isNull(backBuffer) || backBuffer.getWidth() != width || backBuffer.getHeight() != height)
+            backBuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = backBuffer.createGraphics();
+        try {
+            /** keeps the rendering hints of the caller, e.g., of the video recording */
+            graphics.setRenderingHints(((Graphics2D) g).getRenderingHints());
+            graphics.setColor(Objects.isNull(getBackground()) ? Color.WHITE : getBackground());
+            graphics.fillRect(0, 0, width, height);
+            render(graphics);
+        } finally {
+            graphics.dispose();
+        }
+        g.drawImage(backBuffer, 0, 0, null);
+
+        long toc = System.nanoTime();
+        frameMillis = (toc - tic) * 1e-6;
+        ++fpsFrames;
+        if (1_000_000_000L <= toc - fpsTic) {
+            fps = fpsFrames * 1e9 / (toc - fpsTic);
+            fpsFrames = 0;
+            fpsTic = toc;
+        }
+    }
+
+    private void render(Graphics2D graphics) {
         ++repaint_count;
         final SimulationObject ref = simulationObject; // <- use ref for thread safety
 
         if (Objects.nonNull(ref))
             viewerLayers.forEach(viewerLayer -> viewerLayer.prepareHeatmaps(ref));
 
-        super.paintComponent(g);
-
-        final Graphics2D graphics = (Graphics2D) g;
+        super.paintComponent(graphics);
 
         infoStrings.clear();
 
@@ -140,6 +197,13 @@ public class AmodeusComponent extends JMapViewer {
 
         append("%5d zoom", getZoom());
         append("%5d m/pixel", (int) Math.ceil(getMeterPerPixel()));
+        append("%5.1f fps", fps);
+        append("%5.1f ms/frame", frameMillis);
+        FrameCache frameCache = this.frameCache;
+        if (Objects.nonNull(frameCache)) {
+            append("%5.1f %% hits", 100 * frameCache.getHitRate());
+            append("%5.1f ms/decode", frameCache.getDecodeMillis());
+        }
         appendSeparator();
 
         if (Objects.nonNull(ref))
@@ -190,6 +254,10 @@ public class AmodeusComponent extends JMapViewer {
         repaint();
     }
 
+    /* package */ void setFrameCache(FrameCache frameCache) {
+        this.frameCache = frameCache;
+    }
+
     public void setMapAlphaCover(int alpha) {
         mapAlphaCover = alpha;
         repaint();
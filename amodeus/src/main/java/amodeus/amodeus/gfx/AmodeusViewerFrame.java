@@ -26,12 +26,14 @@ import javax.swing.JSlider;
 import javax.swing.JToggleButton;
 import javax.swing.JToolBar;
 
+import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.network.Network;
 
 import amodeus.amodeus.net.DummyStorageSupplier;
 import amodeus.amodeus.net.IterationFolder;
 import amodeus.amodeus.net.SimulationFolderUtils;
+import amodeus.amodeus.net.SimulationObject;
 import amodeus.amodeus.net.StorageSupplier;
 import amodeus.amodeus.net.StorageUtils;
 import amodeus.amodeus.options.ScenarioOptions;
@@ -45,9 +47,12 @@ import ch.ethz.idsc.tensor.RealScalar;
 
 /** Demonstrates the usage of {@link JMapViewer} */
 public class AmodeusViewerFrame implements Runnable {
+    private static final Logger LOGGER = Logger.getLogger(AmodeusViewerFrame.class);
     private static final String TITLE = "Amodeus Viewer";
     private static final int MAXDIRECTORYDEPTH = 10;
     private static final String SIMOBJ = "simobj";
+    private static final int FRAMES_READ_AHEAD = 32;
+    private static final int FRAMES_KEPT_BEHIND = 16;
     // ---
     private int currentMaxDepth;
     private final AmodeusComponent amodeusComponent;
@@ -60,6 +65,9 @@ public class AmodeusViewerFrame implements Runnable {
 
     public final JFrame jFrame = new JFrame();
     private StorageSupplier storageSupplier = new DummyStorageSupplier();
+    private volatile FrameCache frameCache = createFrameCache(storageSupplier);
+    /** index of the frame shown by the amodeus component, or -1 */
+    private int displayedIndex = -1;
 
     private final SpinnerLabel<IterationFolder> spinnerLabelIter = new SpinnerLabel<>();
     private final List<SpinnerLabel<String>> spinnerLabelFolderList = new ArrayList<>();
@@ -84,6 +92,7 @@ public class AmodeusViewerFrame implements Runnable {
         this.network = network;
         this.scenarioOptions = scenarioOptions;
         this.amodeusComponent = amodeusComponent;
+        amodeusComponent.setFrameCache(frameCache);
         // ---
         jFrame.setTitle(TITLE);
         jFrame.setLayout(new BorderLayout());
@@ -93,6 +102,7 @@ public class AmodeusViewerFrame implements Runnable {
             public void windowClosing(WindowEvent e) {
                 isLaunched = false;
                 thread.interrupt();
+                frameCache.close();
             }
         });
         JPanel panelNorth = new JPanel(new BorderLayout());
@@ -156,7 +166,7 @@ public class AmodeusViewerFrame implements Runnable {
         panelControls.addSeparator();
         {
             spinnerLabelIter.addSpinnerListener(i -> {
-                storageSupplier = i.storageSupplier();
+                setStorageSupplier(i.storageSupplier());
                 jSlider.setMaximum(storageSupplier.size() - 1);
                 updateFromStorage(jSlider.getValue());
             });
@@ -227,7 +237,7 @@ public class AmodeusViewerFrame implements Runnable {
         if (nonEmpty) {
             spinnerLabelIter.setList(list);
             IterationFolder last = list.get(list.size() - 1);
-            storageSupplier = last.storageSupplier();
+            setStorageSupplier(last.storageSupplier());
             spinnerLabelIter.setValueSafe(last);
             jSlider.setMaximum(storageSupplier.size() - 1);
         }
@@ -298,12 +308,45 @@ public class AmodeusViewerFrame implements Runnable {
         spinnerLabelFolder.updateLabel();
     }
 
-    void updateFromStorage(int index) {
+    private static FrameCache createFrameCache(StorageSupplier storageSupplier) {
+        return new FrameCache(storageSupplier, FRAMES_READ_AHEAD, FRAMES_KEPT_BEHIND, //
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /** the previous {@link StorageSupplier} is closed after the decoding of its frames has stopped */
+    private synchronized void setStorageSupplier(StorageSupplier storageSupplier) {
+        frameCache.close();
         try {
-            amodeusComponent.setSimulationObject(storageSupplier.getSimulationObject(index));
-        } catch (Exception exception) {
-            exception.printStackTrace();
-            System.out.println("cannot load: " + index);
+            this.storageSupplier.close();
+        } catch (IOException ioException) {
+            LOGGER.warn("cannot close storage supplier", ioException);
+        }
+        this.storageSupplier = storageSupplier;
+        frameCache = createFrameCache(storageSupplier);
+        displayedIndex = -1;
+        amodeusComponent.setFrameCache(frameCache);
+    }
+
+    /** does not block: a cached frame is shown immediately, otherwise the frame is shown once decoded
+     * unless a frame closer to the slider has been shown in the meantime */
+    void updateFromStorage(int index) {
+        FrameCache frameCache = this.frameCache;
+        frameCache.seek(index).whenComplete((simulationObject, throwable) -> {
+            if (Objects.nonNull(throwable))
+                LOGGER.error("cannot load: " + index, throwable);
+            else
+                show(frameCache, index, simulationObject);
+        });
+    }
+
+    private synchronized void show(FrameCache frameCache, int index, SimulationObject simulationObject) {
+        /** frames evicted before decoding complete with null */
+        if (frameCache != this.frameCache || Objects.isNull(simulationObject))
+            return;
+        int cursor = frameCache.getCursor();
+        if (displayedIndex < 0 || Math.abs(cursor - index) <= Math.abs(cursor - displayedIndex)) {
+            displayedIndex = index;
+            amodeusComponent.setSimulationObject(simulationObject);
         }
     }
 
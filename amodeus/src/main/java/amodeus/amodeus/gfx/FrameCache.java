@@ -0,0 +1,142 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.gfx;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import amodeus.amodeus.net.SimulationObject;
+import amodeus.amodeus.net.StorageSupplier;
+import amodeus.amodeus.util.math.GlobalAssert;
+
+/** bounded cache of decoded {@link SimulationObject}s of a {@link StorageSupplier} for playback in the viewer.
+ * The frames are decoded on background threads. After every {@link #seek(int)} the next frames in the
+ * direction of playback are read ahead and the frames too far from the cursor are evicted. Frames that
+ * are evicted before their decoding has started are not decoded. */
+/* package */ class FrameCache implements AutoCloseable {
+    private final StorageSupplier storageSupplier;
+    private final int readAhead;
+    private final int keepBehind;
+    private final ExecutorService executorService;
+    /** frames in the window around the cursor, a frame completes with null if it was evicted before decoding */
+    private final Map<Integer, CompletableFuture<SimulationObject>> frames = new ConcurrentHashMap<>();
+    private volatile int cursor = 0;
+    /** +1 for forward, -1 for backward playback */
+    private volatile int direction = 1;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder decodes = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+
+    /** @param readAhead number of frames decoded ahead of the cursor in the direction of playback
+     * @param keepBehind number of frames kept behind the cursor
+     * @param threads number of threads that decode the frames */
+    public FrameCache(StorageSupplier storageSupplier, int readAhead, int keepBehind, int threads) {
+        GlobalAssert.that(0 <= readAhead);
+        GlobalAssert.that(0 <= keepBehind);
+        GlobalAssert.that(0 < threads);
+        this.storageSupplier = storageSupplier;
+        this.readAhead = readAhead;
+        this.keepBehind = keepBehind;
+        executorService = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "FrameCache");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** moves the cursor to the given index, the direction of playback is derived from the previous cursor
+     *
+     * @param index of frame
+     * @return frame at index, already completed if the frame was cached, otherwise completed by a decoding thread */
+    public synchronized CompletableFuture<SimulationObject> seek(int index) {
+        if (index != cursor)
+            direction = index < cursor ? -1 : 1;
+        cursor = index;
+        frames.keySet().removeIf(key -> !isWanted(key));
+        CompletableFuture<SimulationObject> completableFuture = frames.get(index);
+        if (Objects.nonNull(completableFuture) && isDecoded(completableFuture))
+            hits.increment();
+        else
+            misses.increment();
+        completableFuture = request(index);
+        for (int step = 1; step <= readAhead; ++step) {
+            int next = index + step * direction;
+            if (0 <= next && next < storageSupplier.size())
+                request(next);
+        }
+        return completableFuture;
+    }
+
+    /** @return index of the frame requested last */
+    public int getCursor() {
+        return cursor;
+    }
+
+    /** @return fraction of {@link #seek(int)} calls for which the frame was already decoded */
+    public double getHitRate() {
+        long total = hits.sum() + misses.sum();
+        return 0 < total ? hits.sum() / (double) total : 0;
+    }
+
+    /** @return mean time to decode a frame in milliseconds */
+    public double getDecodeMillis() {
+        long count = decodes.sum();
+        return 0 < count ? decodeNanos.sum() * 1e-6 / count : 0;
+    }
+
+    /** stops the decoding and waits for the frames that are being decoded, such that the {@link StorageSupplier}
+     * can be closed afterwards */
+    @Override // from AutoCloseable
+    public void close() {
+        executorService.shutdownNow();
+        try {
+            executorService.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        frames.clear();
+    }
+
+    private CompletableFuture<SimulationObject> request(int index) {
+        return frames.compute(index, (key, completableFuture) -> //
+        Objects.nonNull(completableFuture) && !isEvicted(completableFuture) //
+                ? completableFuture
+                : CompletableFuture.supplyAsync(() -> decode(key), executorService));
+    }
+
+    private SimulationObject decode(int index) {
+        if (!isWanted(index))
+            return null;
+        long tic = System.nanoTime();
+        try {
+            return storageSupplier.getSimulationObject(index);
+        } catch (Exception exception) {
+            throw new CompletionException(exception);
+        } finally {
+            decodeNanos.add(System.nanoTime() - tic);
+            decodes.increment();
+        }
+    }
+
+    /** @return true if index is within the window of frames around the cursor */
+    private boolean isWanted(int index) {
+        int offset = (index - cursor) * direction;
+        return -keepBehind <= offset && offset <= readAhead;
+    }
+
+    private static boolean isDecoded(CompletableFuture<SimulationObject> completableFuture) {
+        return completableFuture.isDone() && !completableFuture.isCompletedExceptionally() && Objects.nonNull(completableFuture.join());
+    }
+
+    /** @return true if the frame was evicted before decoding or decoding failed */
+    private static boolean isEvicted(CompletableFuture<SimulationObject> completableFuture) {
+        return completableFuture.isDone() && (completableFuture.isCompletedExceptionally() || Objects.isNull(completableFuture.join()));
+    }
+}
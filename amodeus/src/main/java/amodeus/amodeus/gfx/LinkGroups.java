@@ -0,0 +1,58 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.gfx;
+
+import java.util.Arrays;
+
+import amodeus.amodeus.util.math.GlobalAssert;
+
+/** groups the elements of a list, e.g., the vehicles of a simulation object, by link index in primitive arrays.
+ * The elements of group g are elements[offsets[g]], ..., elements[offsets[g + 1] - 1] in the order of the list.
+ * The groups are sorted by link index. */
+/* package */ class LinkGroups {
+    /** @param linkIndices of the elements of the list, non-negative
+     * @return groups of the indices of the elements */
+    public static LinkGroups of(int[] linkIndices) {
+        long[] keys = new long[linkIndices.length];
+        for (int index = 0; index < linkIndices.length; ++index) {
+            GlobalAssert.that(0 <= linkIndices[index]);
+            keys[index] = ((long) linkIndices[index] << 32) | index;
+        }
+        Arrays.sort(keys);
+        int[] elements = new int[keys.length];
+        int[] links = new int[keys.length];
+        int[] offsets = new int[keys.length + 1];
+        int groups = 0;
+        for (int index = 0; index < keys.length; ++index) {
+            int link = (int) (keys[index] >>> 32);
+            elements[index] = (int) keys[index];
+            if (groups == 0 || links[groups - 1] != link) {
+                links[groups] = link;
+                offsets[groups] = index;
+                ++groups;
+            }
+        }
+        offsets[groups] = keys.length;
+        return new LinkGroups(Arrays.copyOf(links, groups), Arrays.copyOf(offsets, groups + 1), elements);
+    }
+
+    // ---
+    final int[] links;
+    final int[] offsets;
+    final int[] elements;
+
+    private LinkGroups(int[] links, int[] offsets, int[] elements) {
+        this.links = links;
+        this.offsets = offsets;
+        this.elements = elements;
+    }
+
+    /** @return number of groups */
+    public int size() {
+        return links.length;
+    }
+
+    /** @return number of elements in group */
+    public int size(int group) {
+        return offsets[group + 1] - offsets[group];
+    }
+}
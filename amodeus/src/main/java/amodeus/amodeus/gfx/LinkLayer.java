@@ -2,61 +2,26 @@
 package amodeus.amodeus.gfx;
 
 import java.awt.Color;
-import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.event.MouseEvent;
 import java.awt.geom.AffineTransform;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Objects;
 
 import javax.swing.JCheckBox;
 import javax.swing.JTextArea;
 
-import amodeus.amodeus.net.OsmLink;
 import amodeus.amodeus.net.SimulationObject;
 import amodeus.amodeus.util.gui.GraphicsUtil;
 import amodeus.amodeus.util.gui.LazyMouse;
 import amodeus.amodeus.util.gui.LazyMouseListener;
 import amodeus.amodeus.util.gui.RowPanel;
-import amodeus.amodeus.util.nd.NdCenterInterface;
-import amodeus.amodeus.util.nd.NdCluster;
-import amodeus.amodeus.util.nd.NdEntry;
-import amodeus.amodeus.util.nd.NdMap;
-import amodeus.amodeus.util.nd.NdTreeMap;
 import amodeus.amodeus.view.jmapviewer.interfaces.ICoordinate;
-import ch.ethz.idsc.tensor.Tensor;
-import ch.ethz.idsc.tensor.Tensors;
-import ch.ethz.idsc.tensor.alg.Array;
-import ch.ethz.idsc.tensor.sca.ArcTan;
-
-/* package */ class Street {
-    final OsmLink osmLink;
-    Point p1;
-    Point p2;
-
-    public Street(OsmLink osmLink) {
-        this.osmLink = osmLink;
-    }
-
-    Point midpoint() {
-        return new Point((p1.x + p2.x) / 2, (p1.y + p2.y) / 2);
-    }
-
-    Tensor getLocation() {
-        Point mid = midpoint();
-        return Tensors.vector(mid.x, mid.y);
-    }
-
-    double angle() {
-        return ArcTan.of(p2.x - p1.x, p2.y - p1.y).number().doubleValue();
-    }
-}
 
 public class LinkLayer extends ViewerLayer {
     private static final Color LINKCOLOR = new Color(153, 153, 102, 64);
+    private static final Font LABEL_FONT = new Font(Font.DIALOG, Font.PLAIN, 12);
     // ---
     public int linkLimit = 8192;
     private boolean drawLinks;
@@ -64,6 +29,8 @@ public class LinkLayer extends ViewerLayer {
     private boolean drawCoordinates;
     private final JTextArea jTextArea = new JTextArea(2, 10);
     private int count = 0;
+    /** indices of the links drawn in the last frame, reused */
+    private int[] visible = new int[0];
     private ICoordinate lastCoord;
 
     public LinkLayer(AmodeusComponent amodeusComponent) {
@@ -73,13 +40,14 @@ public class LinkLayer extends ViewerLayer {
     @Override
     protected void paint(Graphics2D graphics, SimulationObject ref) {
         if (drawLinks) {
-            Dimension dimension = amodeusComponent.getSize();
-            NdMap<Street> map = new NdTreeMap<>(Array.zeros(2), Tensors.vector(dimension.width, dimension.height), 12, 8);
+            LinkProjection.Zoom links = amodeusComponent.getLinkProjection();
+            int originX = amodeusComponent.getOriginX();
+            int originY = amodeusComponent.getOriginY();
             // draw links
-            drawLinks(map, graphics);
+            drawLinks(links, originX, originY, graphics);
             // draw labels
             if (drawLabel && Objects.nonNull(lastCoord))
-                drawLabel(map, graphics);
+                drawLabel(links, originX, originY, graphics);
             else
                 jTextArea.setText("");
         }
@@ -100,71 +68,86 @@ public class LinkLayer extends ViewerLayer {
         }
     }
 
-    /** Draw links onto graphics object
+    /** Draw links onto graphics object, links with the from node out of view are culled
      *
-     * @param map to find closest streets
+     * @param links projected to the current zoom level
      * @param graphics Graphics2D object on which the links are drawn */
-    private void drawLinks(NdMap<Street> map, Graphics2D graphics) {
-        List<Street> list = new LinkedList<>();
-        for (OsmLink osmLink : amodeusComponent.db.getOsmLinks()) {
-            Point p1 = amodeusComponent.getMapPosition(osmLink.getCoordFrom());
-            if (Objects.nonNull(p1)) {
-                Point p2 = amodeusComponent.getMapPositionAlways(osmLink.getCoordTo());
-                Street street = new Street(osmLink);
-                street.p1 = p1;
-                street.p2 = p2;
-                list.add(street);
-                if (linkLimit < list.size()) {
-                    list.clear();
+    private void drawLinks(LinkProjection.Zoom links, int originX, int originY, Graphics2D graphics) {
+        if (visible.length < links.order.length)
+            visible = new int[links.order.length];
+        count = 0;
+        for (int index : links.order)
+            if (amodeusComponent.isVisible(links.fromX[index] - originX, links.fromY[index] - originY)) {
+                if (linkLimit <= count) {
+                    count = 0;
                     break;
                 }
+                visible[count++] = index;
             }
-        }
         graphics.setColor(LINKCOLOR);
-        for (Street street : list) {
-            Point p1 = street.p1;
-            Point p2 = street.p2;
-            if (p1.equals(p2))
-                graphics.drawOval(p1.x - 1, p1.y - 1, 3, 3);
+        for (int i = 0; i < count; ++i) {
+            int index = visible[i];
+            int x1 = links.fromX[index] - originX;
+            int y1 = links.fromY[index] - originY;
+            int x2 = links.toX[index] - originX;
+            int y2 = links.toY[index] - originY;
+            if (x1 == x2 && y1 == y2)
+                graphics.drawOval(x1 - 1, y1 - 1, 3, 3);
             else
-                graphics.drawLine(p1.x, p1.y, p2.x, p2.y);
-            map.add(street.getLocation(), street);
+                graphics.drawLine(x1, y1, x2, y2);
         }
-        count = list.size();
     }
 
-    /** Draw labels onto graphics object
+    /** Draw labels of the two drawn streets closest to the last click onto graphics object
      *
-     * @param map to find closest streets
+     * @param links projected to the current zoom level
      * @param graphics Graphics2D object on which the labels are to be drawn */
-    private void drawLabel(NdMap<Street> map, Graphics2D graphics) {
+    private void drawLabel(LinkProjection.Zoom links, int originX, int originY, Graphics2D graphics) {
         final Point point = amodeusComponent.getMapPosition(lastCoord.getLat(), lastCoord.getLon());
         if (Objects.nonNull(point)) {
-            Tensor center = Tensors.vector(point.x, point.y);
-            NdCluster<Street> cluster = map.buildCluster(NdCenterInterface.euclidean(center), 2);
-            graphics.setFont(new Font(Font.DIALOG, Font.PLAIN, 12));
-            GraphicsUtil.setQualityHigh(graphics);
-            for (NdEntry<Street> entry : cluster.collection()) {
-                Street street = entry.value();
-                double theta = street.angle();
-                Point p1 = street.p1;
-                Point p2 = street.p2;
-                graphics.setColor(Color.RED);
-                graphics.drawLine(p1.x, p1.y, p2.x, p2.y);
-                graphics.setColor(Color.WHITE);
-                graphics.fillRect(p1.x - 1, p1.y - 1, 3, 3);
-                graphics.fillRect(p2.x - 1, p2.y - 1, 3, 3);
-                AffineTransform saveAT = graphics.getTransform();
-                graphics.rotate(theta, p1.x, p1.y);
-                graphics.drawString( //
-                        "\u2192 " + street.osmLink.link.getId().toString() + " \u2192", //
-                        p1.x + 10, p1.y + 10);
-                graphics.setTransform(saveAT);
-                jTextArea.setText(street.osmLink.link.getId().toString());
+            /** distances are measured to the midpoints of the streets */
+            int closest = -1;
+            int second = -1;
+            double closestDistance = Double.POSITIVE_INFINITY;
+            double secondDistance = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < count; ++i) {
+                int index = visible[i];
+                int midX = (links.fromX[index] + links.toX[index]) / 2 - originX;
+                int midY = (links.fromY[index] + links.toY[index]) / 2 - originY;
+                double distance = Math.hypot(midX - point.x, midY - point.y);
+                if (distance < closestDistance) {
+                    second = closest;
+                    secondDistance = closestDistance;
+                    closest = index;
+                    closestDistance = distance;
+                } else if (distance < secondDistance) {
+                    second = index;
+                    secondDistance = distance;
+                }
             }
+            graphics.setFont(LABEL_FONT);
+            GraphicsUtil.setQualityHigh(graphics);
+            for (int index : new int[] { closest, second })
+                if (0 <= index) {
+                    int x1 = links.fromX[index] - originX;
+                    int y1 = links.fromY[index] - originY;
+                    int x2 = links.toX[index] - originX;
+                    int y2 = links.toY[index] - originY;
+                    double theta = Math.atan2(y2 - y1, x2 - x1);
+                    graphics.setColor(Color.RED);
+                    graphics.drawLine(x1, y1, x2, y2);
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(x1 - 1, y1 - 1, 3, 3);
+                    graphics.fillRect(x2 - 1, y2 - 1, 3, 3);
+                    AffineTransform saveAT = graphics.getTransform();
+                    graphics.rotate(theta, x1, y1);
+                    String id = links.osmLinks[index].link.getId().toString();
+                    graphics.drawString("\u2192 " + id + " \u2192", x1 + 10, y1 + 10);
+                    graphics.setTransform(saveAT);
+                    jTextArea.setText(id);
+                }
             GraphicsUtil.setQualityDefault(graphics);
         }
-
     }
 
     @Override
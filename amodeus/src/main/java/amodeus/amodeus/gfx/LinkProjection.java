@@ -0,0 +1,104 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.gfx;
+
+import java.awt.Point;
+import java.util.Collection;
+
+import org.matsim.api.core.v01.Coord;
+
+import amodeus.amodeus.net.MatsimAmodeusDatabase;
+import amodeus.amodeus.net.OsmLink;
+import amodeus.amodeus.view.jmapviewer.JMapViewer;
+import amodeus.amodeus.view.jmapviewer.interfaces.TileSource;
+
+/** geometry of all {@link OsmLink}s projected to pixels of the world map, computed once per zoom level and kept
+ * while the map is at that level or one next to it.
+ * The arrays are indexed by the link index of {@link MatsimAmodeusDatabase#getOsmLink(int)}.
+ * Screen coordinates are obtained by subtracting {@link AmodeusComponent#getOriginX()} and
+ * {@link AmodeusComponent#getOriginY()}. */
+/* package */ class LinkProjection {
+    private final MatsimAmodeusDatabase db;
+    private final Zoom[] zooms = new Zoom[JMapViewer.MAX_ZOOM + 1];
+    private TileSource tileSource = null;
+
+    public LinkProjection(MatsimAmodeusDatabase db) {
+        this.db = db;
+    }
+
+    /** @return projection of the links for the zoom level of the tile source, only the projections of the zoom
+     *         level and of its neighbors are kept, all are discarded when the tile source changes */
+    public Zoom of(TileSource tileSource, int zoom) {
+        boolean changed = this.tileSource != tileSource;
+        this.tileSource = tileSource;
+        /** the arrays of one zoom level take several megabytes on large networks */
+        for (int index = 0; index < zooms.length; ++index)
+            if (changed || 1 < Math.abs(index - zoom))
+                zooms[index] = null;
+        if (zooms[zoom] == null)
+            zooms[zoom] = new Zoom(db.getOsmLinks(), tileSource, zoom);
+        return zooms[zoom];
+    }
+
+    /* package */ static class Zoom {
+        /** link indices in the order of {@link MatsimAmodeusDatabase#getOsmLinks()} */
+        final int[] order;
+        final OsmLink[] osmLinks;
+        /** {@link OsmLink#getCoordFrom()} and {@link OsmLink#getCoordTo()} */
+        final int[] fromX;
+        final int[] fromY;
+        final int[] toX;
+        final int[] toY;
+        /** {@link OsmLink#getAt(double)} at lambda == 0, and the difference to lambda == 1 */
+        final double[] atX;
+        final double[] atY;
+        final double[] atDx;
+        final double[] atDy;
+
+        private Zoom(Collection<OsmLink> collection, TileSource tileSource, int zoom) {
+            int length = collection.stream().mapToInt(osmLink -> osmLink.link.getId().index()).max().orElse(-1) + 1;
+            order = new int[collection.size()];
+            osmLinks = new OsmLink[length];
+            fromX = new int[length];
+            fromY = new int[length];
+            toX = new int[length];
+            toY = new int[length];
+            atX = new double[length];
+            atY = new double[length];
+            atDx = new double[length];
+            atDy = new double[length];
+            int count = 0;
+            for (OsmLink osmLink : collection) {
+                int index = osmLink.link.getId().index();
+                order[count++] = index;
+                osmLinks[index] = osmLink;
+                Point from = project(tileSource, osmLink.getCoordFrom(), zoom);
+                Point to = project(tileSource, osmLink.getCoordTo(), zoom);
+                fromX[index] = from.x;
+                fromY[index] = from.y;
+                toX[index] = to.x;
+                toY[index] = to.y;
+                /** the projection is linear to good approximation along a single link */
+                Point at0 = project(tileSource, osmLink.getAt(0), zoom);
+                Point at1 = project(tileSource, osmLink.getAt(1), zoom);
+                atX[index] = at0.x;
+                atY[index] = at0.y;
+                atDx[index] = at1.x - at0.x;
+                atDy[index] = at1.y - at0.y;
+            }
+        }
+
+        private static Point project(TileSource tileSource, Coord coord, int zoom) {
+            return tileSource.latLonToXY(coord.getY(), coord.getX(), zoom);
+        }
+
+        /** @return x in world pixels of {@link OsmLink#getAt(double)} */
+        int atX(int index, double lambda) {
+            return (int) (atX[index] + lambda * atDx[index]);
+        }
+
+        /** @return y in world pixels of {@link OsmLink#getAt(double)} */
+        int atY(int index, double lambda) {
+            return (int) (atY[index] + lambda * atDy[index]);
+        }
+    }
+}
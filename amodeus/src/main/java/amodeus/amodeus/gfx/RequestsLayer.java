@@ -4,31 +4,25 @@ package amodeus.amodeus.gfx;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
-import java.awt.Point;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import javax.swing.JCheckBox;
 
-import org.matsim.api.core.v01.Coord;
-
 import amodeus.amodeus.dispatcher.core.RequestStatus;
 import amodeus.amodeus.net.OsmLink;
 import amodeus.amodeus.net.RequestContainer;
 import amodeus.amodeus.net.SimulationObject;
 import amodeus.amodeus.util.gui.RowPanel;
-import amodeus.amodeus.util.math.GlobalAssert;
 import amodeus.amodeus.view.gheat.gui.ColorSchemes;
 import amodeus.amodeus.view.jmapviewer.AmodeusHeatMap;
 
 public class RequestsLayer extends ViewerLayer {
 
     private static final Font REQUESTS_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 10);
+    private static final Color DESTINATION_COLOR = new Color(128, 128, 128, 64);
     // ---
     public final AmodeusHeatMap requestHeatMap = new AmodeusHeatMapImpl(ColorSchemes.OrangeContour);
     public final AmodeusHeatMap requestDestMap = new AmodeusHeatMapImpl(ColorSchemes.GreenContour);
@@ -38,6 +32,15 @@ public class RequestsLayer extends ViewerLayer {
     public volatile boolean drawRequestDestinations;
 
     private double maxWaitTime;
+    /** requests of the last painted {@link SimulationObject} in primitive arrays */
+    private SimulationObject groupedObject = null;
+    private SimulationObject heatmapObject = null;
+    private LinkGroups fromGroups;
+    private LinkGroups toGroups;
+    private int[] toLinks;
+    private boolean[] waiting;
+    private double[] submissionTimes;
+    private int openRequests;
 
     public RequestsLayer(AmodeusComponent amodeusComponent) {
         super(amodeusComponent);
@@ -46,95 +49,102 @@ public class RequestsLayer extends ViewerLayer {
 
     @Override
     public void prepareHeatmaps(SimulationObject ref) {
+        group(ref);
+        /** the heat maps only change with the simulation object */
+        if (ref == heatmapObject)
+            return;
         {
             requestHeatMap.clear();
-            Map<Integer, List<RequestContainer>> map = ref.requests.stream() //
-                    .collect(Collectors.groupingBy(requestContainer -> requestContainer.fromLinkIndex));
-            for (Entry<Integer, List<RequestContainer>> entry : map.entrySet()) {
-                // all streets have positive indexes
-                GlobalAssert.that(entry.getKey() >= 0);
-                OsmLink osmLink = amodeusComponent.db.getOsmLink(entry.getKey());
-                // final int size = entry.getValue().size();
-                long size = entry.getValue().stream() //
-                        .filter(StaticHelper::isWaiting) //
-                        .count();
+            for (int group = 0; group < fromGroups.size(); ++group) {
+                OsmLink osmLink = amodeusComponent.db.getOsmLink(fromGroups.links[group]);
+                int size = 0;
+                for (int index = fromGroups.offsets[group]; index < fromGroups.offsets[group + 1]; ++index)
+                    if (waiting[fromGroups.elements[index]])
+                        ++size;
                 for (int count = 0; count < size; ++count) {
-                    Coord coord = osmLink.getAt(count / (double) size);
-                    requestHeatMap.addPoint(coord.getX(), coord.getY());
-
+                    double lambda = count / (double) size;
+                    requestHeatMap.addPoint(osmLink.getAtX(lambda), osmLink.getAtY(lambda));
                 }
             }
         }
         // ---
         {
             requestDestMap.clear();
-            Map<Integer, List<RequestContainer>> map = ref.requests.stream() //
-                    .collect(Collectors.groupingBy(requestContainer -> requestContainer.toLinkIndex));
-            for (Entry<Integer, List<RequestContainer>> entry : map.entrySet()) {
-                // all streets have positive indexes
-                GlobalAssert.that(entry.getKey() >= 0);
-                OsmLink osmLink = amodeusComponent.db.getOsmLink(entry.getKey());
-                final int size = entry.getValue().size();
+            for (int group = 0; group < toGroups.size(); ++group) {
+                OsmLink osmLink = amodeusComponent.db.getOsmLink(toGroups.links[group]);
+                final int size = toGroups.size(group);
                 for (int count = 0; count < size; ++count) {
-                    Coord coord = osmLink.getAt(count / (double) size);
-                    requestDestMap.addPoint(coord.getX(), coord.getY());
+                    double lambda = count / (double) size;
+                    requestDestMap.addPoint(osmLink.getAtX(lambda), osmLink.getAtY(lambda));
                 }
             }
         }
+        heatmapObject = ref;
+    }
+
+    /** groups the requests by link once per {@link SimulationObject} */
+    private void group(SimulationObject ref) {
+        if (ref == groupedObject)
+            return;
+        int size = ref.requests.size();
+        int[] fromLinkIndices = new int[size];
+        int[] toLinkIndices = new int[size];
+        waiting = new boolean[size];
+        submissionTimes = new double[size];
+        openRequests = 0;
+        int index = 0;
+        for (RequestContainer rc : ref.requests) {
+            // all streets have positive indexes
+            fromLinkIndices[index] = rc.fromLinkIndex;
+            toLinkIndices[index] = rc.toLinkIndex;
+            waiting[index] = StaticHelper.isWaiting(rc);
+            submissionTimes[index] = rc.submissionTime;
+            if (isUnserved(rc.requestStatus))
+                ++openRequests;
+            ++index;
+        }
+        fromGroups = LinkGroups.of(fromLinkIndices);
+        toGroups = LinkGroups.of(toLinkIndices);
+        toLinks = toLinkIndices;
+        groupedObject = ref;
     }
 
     @Override
     protected void paint(Graphics2D graphics, SimulationObject ref) {
         if (Objects.isNull(ref))
             return;
+        group(ref);
 
         maxWaitTime = 0;
         // draw requests
         graphics.setFont(REQUESTS_FONT);
         final boolean showNumbers = drawNumber && 13 < amodeusComponent.getZoom();
-        Map<Integer, List<RequestContainer>> map = ref.requests.stream() //
-                .collect(Collectors.groupingBy(requestContainer -> requestContainer.fromLinkIndex));
-        for (Entry<Integer, List<RequestContainer>> entry : map.entrySet()) {
-            Point p1;
-            {
-                int linkId = entry.getKey();
-                OsmLink osmLink = amodeusComponent.db.getOsmLink(linkId);
-                p1 = amodeusComponent.getMapPosition(osmLink.getAt(0.5));
-            }
-            if (Objects.nonNull(p1)) {
-                final int numRequests = entry.getValue().size();
-
-                final int x = p1.x;
-                final int y = p1.y;
-
-                {
-                    graphics.setColor(new Color(32, 128, 32, 128));
-                    @SuppressWarnings("unused")
-                    int index = numRequests;
-                    for (RequestContainer rc : entry.getValue()) {
-                        if (StaticHelper.isWaiting(rc)) {
-                            double waitTime = ref.now - rc.submissionTime;
-                            maxWaitTime = Math.max(waitTime, maxWaitTime);
-                            --index;
-                        }
+        LinkProjection.Zoom links = amodeusComponent.getLinkProjection();
+        int originX = amodeusComponent.getOriginX();
+        int originY = amodeusComponent.getOriginY();
+        for (int group = 0; group < fromGroups.size(); ++group) {
+            int link = fromGroups.links[group];
+            final int x = links.atX(link, 0.5) - originX;
+            final int y = links.atY(link, 0.5) - originY;
+            if (amodeusComponent.isVisible(x, y)) {
+                int numNotPickedUp = 0;
+                for (int index = fromGroups.offsets[group]; index < fromGroups.offsets[group + 1]; ++index) {
+                    int request = fromGroups.elements[index];
+                    if (waiting[request]) {
+                        maxWaitTime = Math.max(ref.now - submissionTimes[request], maxWaitTime);
+                        ++numNotPickedUp;
                     }
                 }
                 if (drawRequestDestinations) {
-                    graphics.setColor(new Color(128, 128, 128, 64));
-                    for (RequestContainer rc : entry.getValue()) {
-                        int linkId = rc.toLinkIndex;
-                        OsmLink osmLink = amodeusComponent.db.getOsmLink(linkId);
-                        Point p2 = amodeusComponent.getMapPositionAlways(osmLink.getAt(0.5));
-                        graphics.drawLine(x, y, p2.x, p2.y);
+                    graphics.setColor(DESTINATION_COLOR);
+                    for (int index = fromGroups.offsets[group]; index < fromGroups.offsets[group + 1]; ++index) {
+                        int toLink = toLinks[fromGroups.elements[index]];
+                        graphics.drawLine(x, y, links.atX(toLink, 0.5) - originX, links.atY(toLink, 0.5) - originY);
                     }
                 }
-                if (showNumbers) {
+                if (showNumbers && 0 < numNotPickedUp) {
                     graphics.setColor(Color.GRAY);
-                    long numNotPickedUp = entry.getValue().stream() //
-                            .filter(StaticHelper::isWaiting) //
-                            .count();
-                    String printValue = (numNotPickedUp > 0) ? "" + numNotPickedUp : "";
-                    graphics.drawString(printValue, x, y); // - numRequests
+                    graphics.drawString(Integer.toString(numNotPickedUp), x, y); // - numRequests
                 }
             }
         }
@@ -143,9 +153,9 @@ public class RequestsLayer extends ViewerLayer {
     @Override
     protected void hud(Graphics2D graphics, SimulationObject ref) {
         if (Objects.nonNull(ref)) {
+            group(ref);
             // InfoString infoString = new InfoString(String.format("%5d %s", ref.requests.size(), "open requests"));
-            InfoString infoString = new InfoString(String.format("%5d %s", //
-                    ref.requests.stream().filter(rc -> isUnserved(rc.requestStatus)).count(), "open requests"));
+            InfoString infoString = new InfoString(String.format("%5d %s", openRequests, "open requests"));
             infoString.color = Color.BLACK; // new Color(204, 122, 0);
             amodeusComponent.append(infoString);
         }
@@ -4,18 +4,12 @@ package amodeus.amodeus.gfx;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
-import java.awt.Point;
 import java.util.BitSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import javax.swing.JCheckBox;
 
 import amodeus.amodeus.dispatcher.core.RoboTaxiStatus;
-import amodeus.amodeus.net.OsmLink;
 import amodeus.amodeus.net.SimulationObject;
 import amodeus.amodeus.net.VehicleContainer;
 import amodeus.amodeus.net.VehicleContainerUtils;
@@ -24,7 +18,15 @@ import amodeus.amodeus.util.gui.SpinnerLabel;
 
 public class VehiclesLayer extends ViewerLayer {
 
+    private static final RoboTaxiStatus[] STATUSES = RoboTaxiStatus.values();
+    // ---
     private final BitSet bits = new BitSet();
+    /** vehicles of the last painted {@link SimulationObject} in primitive arrays */
+    private SimulationObject groupedObject = null;
+    private LinkGroups linkGroups;
+    private byte[] statuses;
+    private int[] destinations;
+    private int[] statusCount;
 
     // during development standard colors are a better default
     public RoboTaxiStatusColors statusColors;
@@ -39,50 +41,69 @@ public class VehiclesLayer extends ViewerLayer {
     protected void paint(Graphics2D graphics, SimulationObject ref) {
         if (Objects.isNull(ref) || !showLocation)
             return;
+        group(ref);
 
         int zoom = amodeusComponent.getZoom();
         int carwidth = (int) Math.max(zoom <= 12 ? 2 : 3, Math.round(5 / amodeusComponent.getMeterPerPixel()));
         int car_half = carwidth / 2;
-        Map<Integer, List<VehicleContainer>> map = //
-                ref.vehicles.stream().collect(Collectors.groupingBy(this::indexFrom));
-        for (Entry<Integer, List<VehicleContainer>> entry : map.entrySet()) {
-            int size = entry.getValue().size();
-            OsmLink osmLink = amodeusComponent.db.getOsmLink(entry.getKey());
-            Point p1test = amodeusComponent.getMapPosition(osmLink.getAt(0.5));
-            if (Objects.nonNull(p1test)) {
-                double ofs = 0.5 / size;
-                double delta = 2 * ofs;
-                for (VehicleContainer vc : entry.getValue()) {
-                    Point p1 = amodeusComponent.getMapPosition(osmLink.getAt(ofs));
-                    if (Objects.nonNull(p1)) {
-                        RoboTaxiStatus roboTaxiStatus = VehicleContainerUtils.finalStatus(vc);
-                        if (showLocation) {
-                            Color color = statusColors.of(roboTaxiStatus);
-                            graphics.setColor(color);
-                            graphics.fillRect(p1.x - car_half, p1.y - car_half, carwidth, carwidth);
-                        }
-                        if (bits.get(roboTaxiStatus.ordinal())) {
-                            OsmLink toOsmLink = amodeusComponent.db.getOsmLink(vc.destinationLinkIndex);
-                            Point p2 = amodeusComponent.getMapPositionAlways(toOsmLink.getAt(0.5));
-                            Color col = statusColors.ofDest(roboTaxiStatus);
-                            graphics.setColor(col);
-                            graphics.drawLine(p1.x, p1.y, p2.x, p2.y);
-                        }
+        LinkProjection.Zoom links = amodeusComponent.getLinkProjection();
+        int originX = amodeusComponent.getOriginX();
+        int originY = amodeusComponent.getOriginY();
+        for (int group = 0; group < linkGroups.size(); ++group) {
+            int link = linkGroups.links[group];
+            /** vehicles on links with the midpoint out of view are not drawn */
+            if (!amodeusComponent.isVisible(links.atX(link, 0.5) - originX, links.atY(link, 0.5) - originY))
+                continue;
+            int size = linkGroups.size(group);
+            double ofs = 0.5 / size;
+            double delta = 2 * ofs;
+            for (int index = linkGroups.offsets[group]; index < linkGroups.offsets[group + 1]; ++index) {
+                int x1 = links.atX(link, ofs) - originX;
+                int y1 = links.atY(link, ofs) - originY;
+                if (amodeusComponent.isVisible(x1, y1)) {
+                    int vehicle = linkGroups.elements[index];
+                    RoboTaxiStatus roboTaxiStatus = STATUSES[statuses[vehicle]];
+                    graphics.setColor(statusColors.of(roboTaxiStatus));
+                    graphics.fillRect(x1 - car_half, y1 - car_half, carwidth, carwidth);
+                    if (bits.get(roboTaxiStatus.ordinal())) {
+                        int destination = destinations[vehicle];
+                        graphics.setColor(statusColors.ofDest(roboTaxiStatus));
+                        graphics.drawLine(x1, y1, links.atX(destination, 0.5) - originX, links.atY(destination, 0.5) - originY);
                     }
-                    ofs += delta;
                 }
+                ofs += delta;
             }
         }
     }
 
+    /** groups the vehicles by link once per {@link SimulationObject} */
+    private void group(SimulationObject ref) {
+        if (ref == groupedObject)
+            return;
+        int size = ref.vehicles.size();
+        int[] linkIndices = new int[size];
+        statuses = new byte[size];
+        destinations = new int[size];
+        statusCount = new int[STATUSES.length];
+        int index = 0;
+        for (VehicleContainer vc : ref.vehicles) {
+            linkIndices[index] = indexFrom(vc);
+            RoboTaxiStatus roboTaxiStatus = VehicleContainerUtils.finalStatus(vc);
+            statuses[index] = (byte) roboTaxiStatus.ordinal();
+            ++statusCount[roboTaxiStatus.ordinal()];
+            destinations[index] = vc.destinationLinkIndex;
+            ++index;
+        }
+        linkGroups = LinkGroups.of(linkIndices);
+        groupedObject = ref;
+    }
+
     @Override
     protected void hud(Graphics2D graphics, SimulationObject ref) {
-        int[] count = new int[RoboTaxiStatus.values().length];
         if (Objects.nonNull(ref)) {
-            ref.vehicles.forEach(v -> ++count[VehicleContainerUtils.finalStatus(v).ordinal()]);
-
-            for (RoboTaxiStatus avStatus : RoboTaxiStatus.values()) {
-                InfoString infoString = new InfoString(String.format("%5d %s", count[avStatus.ordinal()], avStatus.description()));
+            group(ref);
+            for (RoboTaxiStatus avStatus : STATUSES) {
+                InfoString infoString = new InfoString(String.format("%5d %s", statusCount[avStatus.ordinal()], avStatus.description()));
                 infoString.color = statusColors.of(avStatus);
                 amodeusComponent.append(infoString);
             }
@@ -47,7 +47,7 @@ public class DynamicTravelTimeFastAStarLandmarkRouter implements AmodeusRouter {
             AmodeusConfigGroup config = inject.get(AmodeusConfigGroup.class);
             Network network = inject.getModal(Network.class);
             LinkSpeedDataContainer lsData = inject.get(LinkSpeedDataContainer.class);
-            TravelTime travelTime = new LSDataTravelTime(lsData);
+            TravelTime travelTime = new LSArrayTravelTime(lsData);
 
             return new DynamicTravelTimeFastAStarLandmarkRouter(DefaultParallelLeastCostPathCalculator.create((int) config.getNumberOfParallelRouters(), //
                     new FastAStarLandmarksFactory(inject.get(GlobalConfigGroup.class)), network, new OnlyTimeDependentTravelDisutility(travelTime), travelTime));
@@ -47,7 +47,7 @@ public class DynamicTravelTimeShortestFastAStarLandmarkRouter implements Amodeus
             AmodeusConfigGroup config = inject.get(AmodeusConfigGroup.class);
             Network network = inject.getModal(Network.class);
             LinkSpeedDataContainer lsData = inject.get(LinkSpeedDataContainer.class);
-            TravelTime travelTime = new LSDataTravelTime(lsData);
+            TravelTime travelTime = new LSArrayTravelTime(lsData);
 
             return new DynamicTravelTimeShortestFastAStarLandmarkRouter(DefaultParallelLeastCostPathCalculator.create((int) config.getNumberOfParallelRouters(), //
                     new FastAStarLandmarksFactory(inject.get(GlobalConfigGroup.class)), network, new TravelDisutility() {
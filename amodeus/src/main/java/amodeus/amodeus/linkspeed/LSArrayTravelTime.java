@@ -0,0 +1,29 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.linkspeed;
+
+import java.util.Objects;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+/** {@link TravelTime} on a {@link LinkSpeedDataArray} snapshot, use instead of
+ * {@link LSDataTravelTime} when the {@link LinkSpeedDataContainer} is not modified
+ * while routing, for instance during the simulation */
+public class LSArrayTravelTime implements TravelTime {
+    private final LinkSpeedDataArray linkSpeedDataArray;
+
+    public LSArrayTravelTime(LinkSpeedDataArray linkSpeedDataArray) {
+        this.linkSpeedDataArray = Objects.requireNonNull(linkSpeedDataArray);
+    }
+
+    public LSArrayTravelTime(LinkSpeedDataContainer lsData) {
+        this(LinkSpeedDataArray.of(lsData));
+    }
+
+    @Override
+    public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+        return link.getLength() / linkSpeedDataArray.getLinkSpeedForTime(link, time);
+    }
+}
@@ -0,0 +1,182 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.linkspeed;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.matsim.api.core.v01.network.Link;
+
+/** read-optimized snapshot of a {@link LinkSpeedDataContainer}
+ *
+ * the recordings of all links are stored in flat primitive arrays in a compressed
+ * sparse row layout: the time axis is divided into bins of width dt starting at multiples
+ * of dt. for every bin the speed and the time of the most recent recording at the start of
+ * the bin are stored. a lookup thus is an array access instead of two boxed tree lookups and
+ * gives the same speed as {@link LinkSpeedUtils#getLinkSpeedForTime} up to float precision.
+ *
+ * recordings at times that are not multiples of dt do not change the size of the arrays,
+ * the bins that contain such recordings are marked and looked up in a copy of the recordings
+ * of the link instead.
+ *
+ * the snapshot does not reflect later modifications of the container, the container remains
+ * the serialized representation, see {@link LinkSpeedUtils#writeLinkSpeedData} */
+public class LinkSpeedDataArray {
+    private static final int NO_DATA = -1;
+    private static final double MIN_SPEED = 10 / 3.6;
+
+    /** @param lsData
+     * @return snapshot of given lsData */
+    public static LinkSpeedDataArray of(LinkSpeedDataContainer lsData) {
+        return new LinkSpeedDataArray(lsData);
+    }
+
+    // ---
+    private final int dt;
+    private final int binWidth;
+    /** indexed by link index: offset in the flat arrays, first recorded time, first bin, number of bins */
+    private final int[] offset;
+    private final int[] first;
+    private final int[] firstBin;
+    private final int[] bins;
+    /** indexed by offset + bin */
+    private final float[] speed;
+    private final int[] recorded;
+    /** bins with recordings that are not at the start of the bin, indexed by offset + bin */
+    private final BitSet unaligned = new BitSet();
+    /** recordings of the links with unaligned bins, by link index */
+    private final Map<Integer, NavigableMap<Integer, Double>> overflow = new HashMap<>();
+
+    private LinkSpeedDataArray(LinkSpeedDataContainer lsData) {
+        dt = Objects.isNull(lsData.getDt()) ? 0 : lsData.getDt();
+        SortedMap<Integer, LinkSpeedTimeSeries> linkMap = lsData.getLinkMap();
+        binWidth = 0 < dt ? dt : gcdOfRecordedTimes(linkMap);
+        int length = linkMap.isEmpty() ? 0 : linkMap.lastKey() + 1;
+        offset = new int[length];
+        first = new int[length];
+        firstBin = new int[length];
+        bins = new int[length];
+        Arrays.fill(offset, NO_DATA);
+        long total = 0;
+        for (Map.Entry<Integer, LinkSpeedTimeSeries> entry : linkMap.entrySet()) {
+            NavigableMap<Integer, Double> data = entry.getValue().getData();
+            if (data.isEmpty())
+                continue;
+            int index = entry.getKey();
+            offset[index] = Math.toIntExact(total);
+            first[index] = data.firstKey();
+            firstBin[index] = Math.floorDiv(data.firstKey(), binWidth);
+            bins[index] = Math.floorDiv(data.lastKey(), binWidth) - firstBin[index] + 1;
+            total += bins[index];
+        }
+        speed = new float[Math.toIntExact(total)];
+        recorded = new int[speed.length];
+        Arrays.fill(recorded, NO_DATA);
+        for (Map.Entry<Integer, LinkSpeedTimeSeries> entry : linkMap.entrySet()) {
+            int index = entry.getKey();
+            if (offset[index] == NO_DATA)
+                continue;
+            NavigableMap<Integer, Double> data = entry.getValue().getData();
+            for (int time : data.keySet())
+                if (Math.floorMod(time, binWidth) != 0) {
+                    unaligned.set(offset[index] + Math.floorDiv(time, binWidth) - firstBin[index]);
+                    overflow.computeIfAbsent(index, key -> new TreeMap<>(data));
+                }
+            for (int bin = 0; bin < bins[index]; ++bin) {
+                Map.Entry<Integer, Double> floor = data.floorEntry((firstBin[index] + bin) * binWidth);
+                if (Objects.nonNull(floor)) {
+                    speed[offset[index] + bin] = floor.getValue().floatValue();
+                    recorded[offset[index] + bin] = floor.getKey();
+                }
+            }
+        }
+    }
+
+    /** @param link
+     * @param time
+     * @return speed on link at time, free speed if no recording within dt before time,
+     *         at least 10[km/h], consistent with {@link LinkSpeedUtils#getLinkSpeedForTime} */
+    public double getLinkSpeedForTime(Link link, double time) {
+        double linkSpeed = getRecordedSpeed(link.getId().index(), (int) time);
+        if (Double.isNaN(linkSpeed))
+            linkSpeed = link.getFreespeed();
+        return Math.max(MIN_SPEED, linkSpeed);
+    }
+
+    /** @param linkIndex
+     * @param time
+     * @return recorded speed of link with linkIndex at time, or NaN if there is no
+     *         recording within dt before time */
+    public double getRecordedSpeed(int linkIndex, int time) {
+        if (linkIndex < 0 || offset.length <= linkIndex || offset[linkIndex] == NO_DATA || time < first[linkIndex])
+            return Double.NaN;
+        int bin = Math.min(Math.floorDiv(time, binWidth) - firstBin[linkIndex], bins[linkIndex] - 1);
+        int index = offset[linkIndex] + bin;
+        if (unaligned.get(index)) {
+            Map.Entry<Integer, Double> floor = overflow.get(linkIndex).floorEntry(time);
+            return floor.getKey() + (long) dt < time //
+                    ? Double.NaN
+                    : floor.getValue();
+        }
+        return recorded[index] + (long) dt < time //
+                ? Double.NaN
+                : speed[index];
+    }
+
+    /** @return sampling interval of the underlying container */
+    public int getDt() {
+        return dt;
+    }
+
+    /** @return width of the time bins, dt if the container has a sampling interval */
+    public int getBinWidth() {
+        return binWidth;
+    }
+
+    /** @return number of stored bins over all links */
+    public int size() {
+        return speed.length;
+    }
+
+    /** @return container with the recordings of this snapshot, for instance to write it with
+     *         {@link LinkSpeedUtils#writeLinkSpeedData} */
+    public LinkSpeedDataContainer toContainer() {
+        LinkSpeedDataContainer lsData = new LinkSpeedDataContainer(dt);
+        for (int linkIndex = 0; linkIndex < offset.length; ++linkIndex)
+            if (overflow.containsKey(linkIndex))
+                for (Map.Entry<Integer, Double> entry : overflow.get(linkIndex).entrySet())
+                    lsData.addData(linkIndex, entry.getKey(), entry.getValue());
+            else if (offset[linkIndex] != NO_DATA)
+                for (int bin = 0; bin < bins[linkIndex]; ++bin) {
+                    int index = offset[linkIndex] + bin;
+                    if (recorded[index] == (firstBin[linkIndex] + bin) * binWidth) // bin starts with a recording
+                        lsData.addData(linkIndex, recorded[index], speed[index]);
+                }
+        return lsData;
+    }
+
+    /** @return greatest common divisor of all recorded times, at least 1, bin width for containers without dt */
+    private static int gcdOfRecordedTimes(SortedMap<Integer, LinkSpeedTimeSeries> linkMap) {
+        int gcd = 0;
+        for (LinkSpeedTimeSeries linkSpeedTimeSeries : linkMap.values())
+            for (int time : linkSpeedTimeSeries.getRecordedTimes())
+                gcd = gcd(gcd, time);
+        return Math.max(1, gcd);
+    }
+
+    private static int gcd(int a, int b) {
+        a = Math.abs(a);
+        b = Math.abs(b);
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -35,7 +35,7 @@ public class LinkSpeedDataContainer implements Serializable {
      * @param linkIndex at
      * @param time with a speed value
      * @param speed [m/s] */
-    private void addData(Integer linkIndex, int time, double speed) {
+    /* package */ void addData(Integer linkIndex, int time, double speed) {
         linkMap.computeIfAbsent(linkIndex, idx -> new LinkSpeedTimeSeries()). //
         /* linkMap.get(linkIndex) */ setSpeed(time, speed);
     }
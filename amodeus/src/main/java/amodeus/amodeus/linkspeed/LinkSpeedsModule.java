@@ -36,6 +36,6 @@ public class LinkSpeedsModule extends AbstractModule {
     @Provides
     @com.google.inject.name.Named("car")
     public TravelTime provideTravelTime(Config config) {
-        return new LSDataTravelTime(lsData);
+        return new LSArrayTravelTime(lsData);
     }
 }
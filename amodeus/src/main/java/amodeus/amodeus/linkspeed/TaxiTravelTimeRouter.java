@@ -59,7 +59,7 @@ public class TaxiTravelTimeRouter implements AmodeusRouter {
             Network network = inject.getModal(Network.class);
             LinkSpeedDataContainer lsData = inject.get(LinkSpeedDataContainer.class);
 
-            TravelTime travelTime = new LSDataTravelTime(lsData);
+            TravelTime travelTime = new LSArrayTravelTime(lsData);
 
             return new TaxiTravelTimeRouter(DefaultParallelLeastCostPathCalculator.create((int) config.getNumberOfParallelRouters(), //
                     new DijkstraFactory(), network, new OnlyTimeDependentTravelDisutility(travelTime), travelTime));
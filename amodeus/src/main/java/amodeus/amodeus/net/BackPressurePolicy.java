@@ -0,0 +1,12 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.net;
+
+/** behavior of {@link SimulationDistributionPipeline} when a queue is full */
+public enum BackPressurePolicy {
+    /** the simulation thread waits until the consumer has caught up,
+     * no {@link SimulationObject} is lost. the storage always uses this policy */
+    BLOCK,
+    /** the oldest queued {@link SimulationObject} is discarded,
+     * suitable for viewers which only need to show the latest state */
+    DROP_OLDEST,;
+}
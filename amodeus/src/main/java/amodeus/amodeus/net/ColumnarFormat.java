@@ -0,0 +1,44 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.net;
+
+import java.io.File;
+
+/** constants shared by {@link ColumnarSimulationWriter} and {@link ColumnarSimulationReader}
+ * 
+ * layout of a single frame in the data file (big endian):
+ * <pre>
+ * long now, int iteration, int total_matchedRequests, int length + utf8 infoLine
+ * int V, int[V] vehicleIndex, int[V] destinationLinkIndex,
+ * int[V] traceLength, int[sum] linkTrace, int[V] statiiLength, byte[sum] statii
+ * int R, int[R] requestIndex, int[R] fromLinkIndex, int[R] toLinkIndex,
+ * int[R] associatedVehicle, int[R] passengerId, int[R] requestStatus, double[R] submissionTime
+ * int length + java serialized field serializable, length -1 for null
+ * </pre>
+ * the index file holds a header followed by one entry (long now, long offset, int length)
+ * per frame. the index entry is written after the frame so that a truncated recording
+ * remains readable up to the last complete frame. */
+/* package */ enum ColumnarFormat {
+    ;
+    static final String DATA_FILE = "simobj.col";
+    static final String INDEX_FILE = "simobj.idx";
+    static final int MAGIC = 0x414D4F43; // "AMOC"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 2 * Integer.BYTES;
+    static final int ENTRY_BYTES = 2 * Long.BYTES + Integer.BYTES;
+    /** marker for null statii, request status sets or serializable */
+    static final int NULL = -1;
+
+    static File dataFile(File itDir) {
+        return new File(itDir, DATA_FILE);
+    }
+
+    static File indexFile(File itDir) {
+        return new File(itDir, INDEX_FILE);
+    }
+
+    /** @param itDir iteration folder, for instance simobj/it.00
+     * @return true if itDir holds a columnar recording */
+    static boolean isPresent(File itDir) {
+        return dataFile(itDir).isFile() && indexFile(itDir).isFile();
+    }
+}
@@ -0,0 +1,208 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import amodeus.amodeus.dispatcher.core.RequestStatus;
+import amodeus.amodeus.dispatcher.core.RoboTaxiStatus;
+
+/** reads a recording written by {@link ColumnarSimulationWriter} through a
+ * {@link MappedByteBuffer}. frames are ordered by time, if a time is recorded
+ * multiple times, the frame appended last is used. */
+public class ColumnarSimulationReader implements AutoCloseable {
+    private static final RoboTaxiStatus[] ROBO_TAXI_STATUS = RoboTaxiStatus.values();
+    private static final RequestStatus[] REQUEST_STATUS = RequestStatus.values();
+
+    /** @param itDir iteration folder
+     * @return true if itDir contains a columnar recording */
+    public static boolean isPresent(File itDir) {
+        return ColumnarFormat.isPresent(itDir);
+    }
+
+    // ---
+    private final File dataFile;
+    private final FileChannel fileChannel;
+    /** null if the data file exceeds the size of a single mapping */
+    private final MappedByteBuffer mappedByteBuffer;
+    private final long[] nows;
+    private final long[] offsets;
+    private final int[] lengths;
+
+    public ColumnarSimulationReader(File itDir) throws IOException {
+        dataFile = ColumnarFormat.dataFile(itDir);
+        NavigableMap<Long, long[]> entries = new TreeMap<>();
+        try (FileChannel indexChannel = FileChannel.open(ColumnarFormat.indexFile(itDir).toPath(), StandardOpenOption.READ)) {
+            ByteBuffer index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+            if (index.remaining() < ColumnarFormat.HEADER_BYTES || index.getInt() != ColumnarFormat.MAGIC)
+                throw new IOException("not a columnar index: " + ColumnarFormat.indexFile(itDir));
+            int version = index.getInt();
+            if (version != ColumnarFormat.VERSION)
+                throw new IOException("unsupported columnar version " + version);
+            while (ColumnarFormat.ENTRY_BYTES <= index.remaining()) // trailing incomplete entry is ignored
+                entries.put(index.getLong(), new long[] { index.getLong(), index.getInt() });
+        }
+        fileChannel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ);
+        long size = fileChannel.size();
+        mappedByteBuffer = size <= Integer.MAX_VALUE //
+                ? fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+                : null;
+        int count = 0;
+        long[] nows = new long[entries.size()];
+        long[] offsets = new long[entries.size()];
+        int[] lengths = new int[entries.size()];
+        for (Map.Entry<Long, long[]> entry : entries.entrySet())
+            if (entry.getValue()[0] + entry.getValue()[1] <= size) { // frame is complete
+                nows[count] = entry.getKey();
+                offsets[count] = entry.getValue()[0];
+                lengths[count] = (int) entry.getValue()[1];
+                ++count;
+            }
+        if (count < entries.size())
+            System.err.println("incomplete frames in " + dataFile.getAbsolutePath());
+        this.nows = Arrays.copyOf(nows, count);
+        this.offsets = Arrays.copyOf(offsets, count);
+        this.lengths = Arrays.copyOf(lengths, count);
+    }
+
+    /** @return number of frames */
+    public int size() {
+        return nows.length;
+    }
+
+    /** @return {@link NavigableMap} from time to data file as used by {@link StorageSupplier} */
+    public NavigableMap<Integer, File> navigableMap() {
+        NavigableMap<Integer, File> navigableMap = new TreeMap<>();
+        for (long now : nows)
+            navigableMap.put((int) now, dataFile);
+        return navigableMap;
+    }
+
+    /** @param index of frame ordered by time
+     * @return decoded {@link SimulationObject}
+     * @throws Exception if the frame cannot be decoded */
+    public SimulationObject getSimulationObject(int index) throws Exception {
+        return decode(frame(index));
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+
+    private ByteBuffer frame(int index) throws IOException {
+        if (mappedByteBuffer == null)
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY, offsets[index], lengths[index]);
+        ByteBuffer byteBuffer = mappedByteBuffer.duplicate(); // independent position for concurrent readers
+        byteBuffer.position((int) offsets[index]);
+        byteBuffer.limit((int) offsets[index] + lengths[index]);
+        return byteBuffer.slice();
+    }
+
+    private static SimulationObject decode(ByteBuffer byteBuffer) throws IOException, ClassNotFoundException {
+        SimulationObject simulationObject = new SimulationObject();
+        simulationObject.now = byteBuffer.getLong();
+        simulationObject.iteration = byteBuffer.getInt();
+        simulationObject.total_matchedRequests = byteBuffer.getInt();
+        byte[] infoLine = new byte[byteBuffer.getInt()];
+        byteBuffer.get(infoLine);
+        simulationObject.infoLine = new String(infoLine, StandardCharsets.UTF_8);
+        simulationObject.vehicles = decodeVehicles(byteBuffer);
+        simulationObject.requests = decodeRequests(byteBuffer);
+        simulationObject.serializable = decodeSerializable(byteBuffer);
+        return simulationObject;
+    }
+
+    private static List<VehicleContainer> decodeVehicles(ByteBuffer byteBuffer) {
+        int size = byteBuffer.getInt();
+        List<VehicleContainer> vehicles = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i)
+            vehicles.add(new VehicleContainer());
+        for (VehicleContainer vehicleContainer : vehicles)
+            vehicleContainer.vehicleIndex = byteBuffer.getInt();
+        for (VehicleContainer vehicleContainer : vehicles)
+            vehicleContainer.destinationLinkIndex = byteBuffer.getInt();
+        int[] traceLengths = getInts(byteBuffer, size);
+        for (int i = 0; i < size; ++i)
+            vehicles.get(i).linkTrace = traceLengths[i] == ColumnarFormat.NULL ? null : getInts(byteBuffer, traceLengths[i]);
+        int[] statiiLengths = getInts(byteBuffer, size);
+        for (int i = 0; i < size; ++i)
+            if (statiiLengths[i] == ColumnarFormat.NULL)
+                vehicles.get(i).statii = null;
+            else {
+                RoboTaxiStatus[] statii = new RoboTaxiStatus[statiiLengths[i]];
+                for (int j = 0; j < statii.length; ++j) {
+                    byte ordinal = byteBuffer.get();
+                    statii[j] = ordinal == ColumnarFormat.NULL ? null : ROBO_TAXI_STATUS[ordinal];
+                }
+                vehicles.get(i).statii = statii;
+            }
+        return vehicles;
+    }
+
+    private static List<RequestContainer> decodeRequests(ByteBuffer byteBuffer) {
+        int size = byteBuffer.getInt();
+        List<RequestContainer> requests = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i)
+            requests.add(new RequestContainer());
+        for (RequestContainer requestContainer : requests)
+            requestContainer.requestIndex = byteBuffer.getInt();
+        for (RequestContainer requestContainer : requests)
+            requestContainer.fromLinkIndex = byteBuffer.getInt();
+        for (RequestContainer requestContainer : requests)
+            requestContainer.toLinkIndex = byteBuffer.getInt();
+        for (RequestContainer requestContainer : requests)
+            requestContainer.associatedVehicle = byteBuffer.getInt();
+        for (RequestContainer requestContainer : requests)
+            requestContainer.passengerId = byteBuffer.getInt();
+        for (RequestContainer requestContainer : requests)
+            requestContainer.requestStatus = requestStatus(byteBuffer.getInt());
+        for (RequestContainer requestContainer : requests)
+            requestContainer.submissionTime = byteBuffer.getDouble();
+        return requests;
+    }
+
+    private static Set<RequestStatus> requestStatus(int mask) {
+        if (mask == ColumnarFormat.NULL)
+            return null;
+        Set<RequestStatus> set = EnumSet.noneOf(RequestStatus.class);
+        for (RequestStatus requestStatus : REQUEST_STATUS)
+            if ((mask & (1 << requestStatus.ordinal())) != 0)
+                set.add(requestStatus);
+        return set;
+    }
+
+    private static Serializable decodeSerializable(ByteBuffer byteBuffer) throws IOException, ClassNotFoundException {
+        int length = byteBuffer.getInt();
+        if (length == ColumnarFormat.NULL)
+            return null;
+        byte[] bytes = new byte[length];
+        byteBuffer.get(bytes);
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Serializable) objectInputStream.readObject();
+        }
+    }
+
+    private static int[] getInts(ByteBuffer byteBuffer, int length) {
+        int[] values = new int[length];
+        byteBuffer.asIntBuffer().get(values);
+        byteBuffer.position(byteBuffer.position() + length * Integer.BYTES);
+        return values;
+    }
+}
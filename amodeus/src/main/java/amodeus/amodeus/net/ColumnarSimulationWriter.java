@@ -0,0 +1,183 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import amodeus.amodeus.dispatcher.core.RequestStatus;
+import amodeus.amodeus.dispatcher.core.RoboTaxiStatus;
+
+/** append-only writer of {@link SimulationObject}s of one iteration into a single
+ * columnar data file and an offset index, see {@link ColumnarFormat} for the layout.
+ * a new writer starts a new recording, i.e. the frames of a previous run in the
+ * same iteration folder are discarded.
+ *
+ * in contrast to the java serialization of each {@link SimulationObject} into a
+ * separate file, the vehicle and request fields are written as primitive arrays
+ * which are read back via memory mapping by {@link ColumnarSimulationReader}. */
+public class ColumnarSimulationWriter implements AutoCloseable {
+    private final FileChannel data;
+    private final FileChannel index;
+    private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+    /** @param itDir iteration folder, for instance simobj/it.00, an existing recording
+     *            in the folder is truncated
+     * @throws IOException */
+    public ColumnarSimulationWriter(File itDir) throws IOException {
+        itDir.mkdirs();
+        data = FileChannel.open(ColumnarFormat.dataFile(itDir).toPath(), //
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        index = FileChannel.open(ColumnarFormat.indexFile(itDir).toPath(), //
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(ColumnarFormat.HEADER_BYTES);
+        header.putInt(ColumnarFormat.MAGIC).putInt(ColumnarFormat.VERSION).flip();
+        writeFully(index, header);
+    }
+
+    /** appends simulationObject as a new frame
+     *
+     * @param simulationObject
+     * @throws IOException */
+    public void append(SimulationObject simulationObject) throws IOException {
+        appendAll(Collections.singletonList(simulationObject));
+    }
+
+    /** appends the given objects as consecutive frames with a single write
+     * to the data file and a single write to the index file
+     *
+     * @param simulationObjects
+     * @throws IOException */
+    public synchronized void appendAll(List<SimulationObject> simulationObjects) throws IOException {
+        buffer.clear();
+        int[] ends = new int[simulationObjects.size()];
+        for (int i = 0; i < ends.length; ++i) {
+            encode(simulationObjects.get(i));
+            ends[i] = buffer.position();
+        }
+        buffer.flip();
+        long offset = data.size();
+        writeFully(data, buffer);
+        ByteBuffer entries = ByteBuffer.allocate(ColumnarFormat.ENTRY_BYTES * ends.length);
+        int begin = 0;
+        for (int i = 0; i < ends.length; ++i) {
+            entries.putLong(simulationObjects.get(i).now).putLong(offset + begin).putInt(ends[i] - begin);
+            begin = ends[i];
+        }
+        entries.flip();
+        writeFully(index, entries);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    private void encode(SimulationObject simulationObject) throws IOException {
+        byte[] infoLine = Objects.toString(simulationObject.infoLine, "").getBytes(StandardCharsets.UTF_8);
+        ensure(Long.BYTES + 3 * Integer.BYTES + infoLine.length);
+        buffer.putLong(simulationObject.now);
+        buffer.putInt(simulationObject.iteration);
+        buffer.putInt(simulationObject.total_matchedRequests);
+        buffer.putInt(infoLine.length).put(infoLine);
+        encodeVehicles(simulationObject.vehicles);
+        encodeRequests(simulationObject.requests);
+        encodeSerializable(simulationObject.serializable);
+    }
+
+    private void encodeVehicles(List<VehicleContainer> vehicles) {
+        int size = Objects.isNull(vehicles) ? 0 : vehicles.size();
+        ensure(Integer.BYTES * (1 + 4 * size));
+        buffer.putInt(size);
+        if (size == 0)
+            return;
+        vehicles.forEach(vc -> buffer.putInt(vc.vehicleIndex));
+        vehicles.forEach(vc -> buffer.putInt(vc.destinationLinkIndex));
+        int traceTotal = 0;
+        int statiiTotal = 0;
+        for (VehicleContainer vehicleContainer : vehicles) {
+            int length = Objects.isNull(vehicleContainer.linkTrace) ? ColumnarFormat.NULL : vehicleContainer.linkTrace.length;
+            buffer.putInt(length);
+            traceTotal += Math.max(0, length);
+            statiiTotal += Objects.isNull(vehicleContainer.statii) ? 0 : vehicleContainer.statii.length;
+        }
+        ensure(Integer.BYTES * traceTotal);
+        for (VehicleContainer vehicleContainer : vehicles)
+            if (Objects.nonNull(vehicleContainer.linkTrace))
+                for (int linkIndex : vehicleContainer.linkTrace)
+                    buffer.putInt(linkIndex);
+        for (VehicleContainer vehicleContainer : vehicles)
+            buffer.putInt(Objects.isNull(vehicleContainer.statii) ? ColumnarFormat.NULL : vehicleContainer.statii.length);
+        ensure(statiiTotal);
+        for (VehicleContainer vehicleContainer : vehicles)
+            if (Objects.nonNull(vehicleContainer.statii))
+                for (RoboTaxiStatus roboTaxiStatus : vehicleContainer.statii)
+                    buffer.put((byte) (Objects.isNull(roboTaxiStatus) ? ColumnarFormat.NULL : roboTaxiStatus.ordinal()));
+    }
+
+    private void encodeRequests(List<RequestContainer> requests) {
+        int size = Objects.isNull(requests) ? 0 : requests.size();
+        ensure(Integer.BYTES * (1 + 6 * size) + Double.BYTES * size);
+        buffer.putInt(size);
+        if (size == 0)
+            return;
+        requests.forEach(rc -> buffer.putInt(rc.requestIndex));
+        requests.forEach(rc -> buffer.putInt(rc.fromLinkIndex));
+        requests.forEach(rc -> buffer.putInt(rc.toLinkIndex));
+        requests.forEach(rc -> buffer.putInt(rc.associatedVehicle));
+        requests.forEach(rc -> buffer.putInt(rc.passengerId));
+        for (RequestContainer requestContainer : requests) {
+            int mask = ColumnarFormat.NULL;
+            if (Objects.nonNull(requestContainer.requestStatus)) {
+                mask = 0;
+                for (RequestStatus requestStatus : requestContainer.requestStatus)
+                    mask |= 1 << requestStatus.ordinal();
+            }
+            buffer.putInt(mask);
+        }
+        requests.forEach(rc -> buffer.putDouble(rc.submissionTime));
+    }
+
+    private void encodeSerializable(Serializable serializable) throws IOException {
+        if (Objects.isNull(serializable)) {
+            ensure(Integer.BYTES);
+            buffer.putInt(ColumnarFormat.NULL);
+            return;
+        }
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(serializable);
+        }
+        byte[] bytes = byteArrayOutputStream.toByteArray();
+        ensure(Integer.BYTES + bytes.length);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    /** grows the reusable buffer such that at least given number of bytes can be put */
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + bytes));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+
+    private static void writeFully(FileChannel fileChannel, ByteBuffer byteBuffer) throws IOException {
+        while (byteBuffer.hasRemaining())
+            fileChannel.write(byteBuffer);
+    }
+}
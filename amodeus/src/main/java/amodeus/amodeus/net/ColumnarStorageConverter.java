@@ -0,0 +1,55 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.net;
+
+import java.io.File;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+
+import ch.ethz.idsc.tensor.io.Import;
+
+/** converts existing recordings in the {@link StorageFormat#SIMOBJ} format into the
+ * {@link StorageFormat#COLUMNAR} format. the java-serialized files are not deleted.
+ *
+ * usage: ColumnarStorageConverter [output directory] */
+public enum ColumnarStorageConverter {
+    ;
+
+    public static void main(String[] args) throws Exception {
+        File outputDirectory = new File(args.length == 0 ? "output" : args[0]);
+        File simobj = new File(outputDirectory, "simobj");
+        File[] itDirs = simobj.listFiles(File::isDirectory);
+        if (Objects.isNull(itDirs)) {
+            System.err.println("no simobj folder in " + outputDirectory.getAbsolutePath());
+            return;
+        }
+        for (File itDir : itDirs)
+            convert(itDir);
+    }
+
+    /** @param itDir iteration folder with java-serialized {@link SimulationObject}s
+     * @return number of converted objects, 0 if itDir already holds a columnar recording
+     * @throws Exception */
+    public static int convert(File itDir) throws Exception {
+        if (ColumnarSimulationReader.isPresent(itDir)) {
+            System.out.println("skip, columnar recording present: " + itDir.getAbsolutePath());
+            return 0;
+        }
+        NavigableMap<Integer, File> navigableMap = StorageUtils.getSimobjFrom(itDir);
+        long tic = System.currentTimeMillis();
+        try (ColumnarSimulationWriter columnarSimulationWriter = new ColumnarSimulationWriter(itDir)) {
+            for (Map.Entry<Integer, File> entry : navigableMap.entrySet()) {
+                SimulationObject simulationObject = Import.object(entry.getValue());
+                columnarSimulationWriter.append(simulationObject);
+            }
+        } catch (Exception exception) {
+            // remove partial recording such that the java-serialized files are used
+            ColumnarFormat.dataFile(itDir).delete();
+            ColumnarFormat.indexFile(itDir).delete();
+            throw exception;
+        }
+        System.out.println(String.format("converted %d objects in %s in %.1f[s]", //
+                navigableMap.size(), itDir.getAbsolutePath(), (System.currentTimeMillis() - tic) * 1e-3));
+        return navigableMap.size();
+    }
+}
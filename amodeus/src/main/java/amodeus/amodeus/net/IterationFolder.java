@@ -5,17 +5,18 @@ import java.io.File;
 
 public class IterationFolder {
     private final File itDir;
-    private final StorageSupplier storageSupplier;
+    private final StorageUtils storageUtils;
 
     /** for instance, itDir can be
      * /media/datahaki/data/ethz/2017_03_09_Sioux_HU/output/simobj/it.02 */
     public IterationFolder(File itDir, StorageUtils storageUtils) {
         this.itDir = itDir;
-        storageSupplier = new StorageSupplier(storageUtils.getFrom(itDir));
+        this.storageUtils = storageUtils;
     }
 
+    /** @return new {@link StorageSupplier} of the iteration that is closed by the caller */
     public StorageSupplier storageSupplier() {
-        return storageSupplier;
+        return new StorageSupplier(storageUtils.getFrom(itDir));
     }
 
     @Override
@@ -43,6 +43,16 @@ public class OsmLink {
                 ny + lambda * dy);
     }
 
+    /** @return x coordinate of {@link #getAt(double)} */
+    public double getAtX(double lambda) {
+        return nx + lambda * dx;
+    }
+
+    /** @return y coordinate of {@link #getAt(double)} */
+    public double getAtY(double lambda) {
+        return ny + lambda * dy;
+    }
+
     public Coord getCoordFrom() {
         return coords[0];
     }
@@ -7,11 +7,23 @@ public enum SimulationDistribution {
     ;
     // ---
 
+    /** sorts the vehicles, stores the simulationObject, passes it to the {@link SimulationSubscribers}
+     * and publishes it on the calling thread,
+     * see {@link SimulationDistributionPipeline} for the asynchronous alternative */
     public static void of(SimulationObject simulationObject, StorageUtils storageUtils) {
         SimulationObjects.sortVehiclesAccordingToIndex(simulationObject);
 
         new StorageSubscriber(storageUtils).handle(simulationObject);
+        SimulationSubscribers.INSTANCE.handle(simulationObject);
 
+        waitForClients();
+
+        publish(simulationObject);
+    }
+
+    /** blocks if the server is running and wait for clients is set
+     * until at least one client has connected */
+    /* package */ static void waitForClients() {
         if (SimulationServer.INSTANCE.getWaitForClients()) { // <- server is
                                                              // running &&
                                                              // wait for
@@ -27,7 +39,10 @@ public enum SimulationDistribution {
                     e.printStackTrace();
                 }
         }
+    }
 
+    /** sends simulationObject to all connected clients */
+    /* package */ static void publish(SimulationObject simulationObject) {
         for (ObjectHandler objectHandler : SimulationClientSet.INSTANCE)
             objectHandler.handle(simulationObject);
     }
@@ -0,0 +1,22 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.net;
+
+import org.matsim.core.controler.events.AfterMobsimEvent;
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.controler.listener.AfterMobsimListener;
+import org.matsim.core.controler.listener.ShutdownListener;
+
+/** closes all {@link SimulationDistributionPipeline}s when the mobsim has finished, i.e. before the
+ * {@link SimulationObject}s of the iteration are analyzed. The columnar writers are closed by the
+ * owners of their {@link StorageUtils}. */
+public class SimulationDistributionListener implements AfterMobsimListener, ShutdownListener {
+    @Override
+    public void notifyAfterMobsim(AfterMobsimEvent event) {
+        SimulationDistributionPipeline.closeAll();
+    }
+
+    @Override
+    public void notifyShutdown(ShutdownEvent event) {
+        SimulationDistributionPipeline.closeAll();
+    }
+}
@@ -0,0 +1,226 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.net;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import amodeus.amodeus.util.math.GlobalAssert;
+
+/** asynchronous alternative to {@link SimulationDistribution#of(SimulationObject, StorageUtils)}
+ *
+ * the simulation thread only sorts the vehicles and enqueues the {@link SimulationObject}.
+ * a dedicated storage thread writes groups of up to batchSize objects, a dedicated viewer
+ * thread sends the objects to the clients in {@link SimulationClientSet}. after storage, the storage
+ * thread passes the objects to the {@link SimulationSubscribers} in order. the storage queue
+ * never drops objects, i.e. the simulation thread blocks if the storage falls behind.
+ * the behavior of the viewer queue is given by a {@link BackPressurePolicy}.
+ *
+ * pipelines are closed at the end of the mobsim by their dispatcher, or after the mobsim by
+ * {@link SimulationDistributionListener} at the latest, such that
+ * all objects of an iteration are stored before the analysis reads them. */
+public class SimulationDistributionPipeline implements AutoCloseable {
+    private static final Set<SimulationDistributionPipeline> OPEN = new CopyOnWriteArraySet<>();
+    private static final long POLL_MILLIS = 100;
+
+    /** closes all pipelines that are open, blocks until all queued objects are stored */
+    public static void closeAll() {
+        OPEN.forEach(SimulationDistributionPipeline::close);
+    }
+
+    // ---
+    private final StorageUtils storageUtils;
+    private final StorageSubscriber storageSubscriber;
+    private final int batchSize;
+    private final BackPressurePolicy viewerPolicy;
+    private final BlockingQueue<SimulationObject> storageQueue;
+    private final BlockingQueue<SimulationObject> viewerQueue;
+    private final Thread storageThread;
+    private final Thread viewerThread;
+    private volatile boolean closed = false;
+    private volatile RuntimeException failure = null;
+    // ---
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong maxWriteNanos = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+    private final AtomicLong viewerDropped = new AtomicLong();
+    private volatile int maxStorageQueueDepth = 0;
+
+    /** @param storageUtils
+     * @param capacity of each queue, positive
+     * @param batchSize maximum number of objects stored with a single write, positive
+     * @param viewerPolicy behavior if the viewer queue is full */
+    public SimulationDistributionPipeline(StorageUtils storageUtils, int capacity, int batchSize, BackPressurePolicy viewerPolicy) {
+        GlobalAssert.that(0 < capacity);
+        GlobalAssert.that(0 < batchSize);
+        this.storageUtils = Objects.requireNonNull(storageUtils);
+        storageSubscriber = new StorageSubscriber(storageUtils);
+        this.batchSize = batchSize;
+        this.viewerPolicy = Objects.requireNonNull(viewerPolicy);
+        storageQueue = new ArrayBlockingQueue<>(capacity);
+        viewerQueue = new ArrayBlockingQueue<>(capacity);
+        storageThread = new Thread(this::runStorage, "simobj-storage");
+        viewerThread = new Thread(this::runViewer, "simobj-viewer");
+        storageThread.setDaemon(true);
+        viewerThread.setDaemon(true);
+        storageThread.start();
+        viewerThread.start();
+        OPEN.add(this);
+    }
+
+    /** called from the simulation thread
+     *
+     * @param simulationObject must not be modified after submission */
+    public void submit(SimulationObject simulationObject) {
+        rethrowFailure();
+        GlobalAssert.that(!closed);
+        SimulationObjects.sortVehiclesAccordingToIndex(simulationObject);
+        long tic = System.nanoTime();
+        try {
+            storageQueue.put(simulationObject);
+            maxStorageQueueDepth = Math.max(maxStorageQueueDepth, storageQueue.size());
+            SimulationDistribution.waitForClients();
+            offerViewer(simulationObject);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(interruptedException);
+        }
+        blockedNanos.addAndGet(System.nanoTime() - tic);
+        submitted.incrementAndGet();
+    }
+
+    private void offerViewer(SimulationObject simulationObject) throws InterruptedException {
+        if (SimulationClientSet.INSTANCE.isEmpty())
+            return;
+        switch (viewerPolicy) {
+        case BLOCK:
+            viewerQueue.put(simulationObject);
+            break;
+        case DROP_OLDEST:
+            while (!viewerQueue.offer(simulationObject))
+                if (Objects.nonNull(viewerQueue.poll()))
+                    viewerDropped.incrementAndGet();
+            break;
+        }
+    }
+
+    private void runStorage() {
+        List<SimulationObject> batch = new ArrayList<>(batchSize);
+        try {
+            while (!closed || !storageQueue.isEmpty()) {
+                SimulationObject first = storageQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (Objects.isNull(first))
+                    continue;
+                batch.add(first);
+                storageQueue.drainTo(batch, batchSize - 1);
+                long tic = System.nanoTime();
+                storageSubscriber.handleAll(batch);
+                long nanos = System.nanoTime() - tic;
+                writeNanos.addAndGet(nanos);
+                maxWriteNanos.accumulateAndGet(nanos, Math::max);
+                writes.incrementAndGet();
+                stored.addAndGet(batch.size());
+                batch.forEach(SimulationSubscribers.INSTANCE::handle);
+                batch.clear();
+            }
+        } catch (RuntimeException runtimeException) {
+            failure = runtimeException;
+            storageQueue.clear(); // release blocked simulation thread, the failure is reported at the next submit
+        } catch (InterruptedException interruptedException) {
+            failure = new RuntimeException(interruptedException);
+        }
+    }
+
+    private void runViewer() {
+        try {
+            while (!closed || !viewerQueue.isEmpty()) {
+                SimulationObject simulationObject = viewerQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (Objects.nonNull(simulationObject))
+                    SimulationDistribution.publish(simulationObject);
+            }
+        } catch (InterruptedException interruptedException) {
+            System.err.println("viewer distribution interrupted");
+        }
+    }
+
+    private void rethrowFailure() {
+        if (Objects.nonNull(failure))
+            throw failure;
+    }
+
+    /** blocks until all queued objects are stored and sent, and closes the columnar writer */
+    @Override
+    public void close() {
+        if (!OPEN.remove(this))
+            return;
+        closed = true;
+        try {
+            storageThread.join();
+            viewerThread.join();
+            storageUtils.closeColumnarWriter();
+        } catch (Exception exception) {
+            exception.printStackTrace();
+        }
+        System.out.println(getMetricsLine());
+        rethrowFailure();
+    }
+
+    /** @return number of objects waiting to be stored */
+    public int getStorageQueueDepth() {
+        return storageQueue.size();
+    }
+
+    /** @return maximum number of objects that were waiting to be stored */
+    public int getMaxStorageQueueDepth() {
+        return maxStorageQueueDepth;
+    }
+
+    /** @return number of objects waiting to be sent to viewers */
+    public int getViewerQueueDepth() {
+        return viewerQueue.size();
+    }
+
+    /** @return number of objects discarded for viewers due to {@link BackPressurePolicy#DROP_OLDEST} */
+    public long getViewerDropped() {
+        return viewerDropped.get();
+    }
+
+    /** @return number of stored objects */
+    public long getStored() {
+        return stored.get();
+    }
+
+    /** @return mean duration of a write of a batch in milliseconds */
+    public double getMeanWriteLatencyMillis() {
+        long count = writes.get();
+        return count == 0 ? 0 : writeNanos.get() * 1e-6 / count;
+    }
+
+    /** @return maximum duration of a write of a batch in milliseconds */
+    public double getMaxWriteLatencyMillis() {
+        return maxWriteNanos.get() * 1e-6;
+    }
+
+    /** @return mean duration the simulation thread spent in {@link #submit(SimulationObject)} in milliseconds */
+    public double getMeanSubmitMillis() {
+        long count = submitted.get();
+        return count == 0 ? 0 : blockedNanos.get() * 1e-6 / count;
+    }
+
+    public String getMetricsLine() {
+        return String.format("simobj pipeline: submitted=%d stored=%d writes=%d queue=%d(max %d) " + //
+                "write=%.2f[ms](max %.2f[ms]) submit=%.3f[ms] viewer queue=%d dropped=%d", //
+                submitted.get(), stored.get(), writes.get(), getStorageQueueDepth(), getMaxStorageQueueDepth(), //
+                getMeanWriteLatencyMillis(), getMaxWriteLatencyMillis(), getMeanSubmitMillis(), //
+                getViewerQueueDepth(), getViewerDropped());
+    }
+}
@@ -0,0 +1,24 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.net;
+
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import amodeus.amodeus.util.net.ObjectHandler;
+
+/** handlers that receive every recorded {@link SimulationObject} during the simulation in the order of time,
+ * after it was stored. In contrast to the clients of the viewer, no object is ever dropped. With the
+ * {@link SimulationDistributionPipeline} the objects are passed on the storage thread, otherwise on the
+ * simulation thread. The handlers must not modify the objects. */
+public class SimulationSubscribers extends CopyOnWriteArraySet<ObjectHandler> implements ObjectHandler {
+    public static final SimulationSubscribers INSTANCE = new SimulationSubscribers();
+
+    private SimulationSubscribers() {
+        // ---
+    }
+
+    @Override
+    public void handle(Object object) {
+        for (ObjectHandler objectHandler : this)
+            objectHandler.handle(object);
+    }
+}
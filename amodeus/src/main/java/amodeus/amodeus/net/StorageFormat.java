@@ -0,0 +1,16 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.net;
+
+/** recording format of {@link SimulationObject}s in the simobj folder
+ * 
+ * the format is selected via the dispatcher parameter "storageFormat",
+ * when reading, the format is detected from the content of the iteration folder */
+public enum StorageFormat {
+    /** one java-serialized file per {@link SimulationObject} */
+    SIMOBJ,
+    /** one append-only columnar file per iteration, see {@link ColumnarSimulationWriter} */
+    COLUMNAR,
+    /** nothing is recorded, the objects are only passed to the {@link SimulationSubscribers}, e.g.,
+     * for an analysis during the simulation */
+    NONE;
+}
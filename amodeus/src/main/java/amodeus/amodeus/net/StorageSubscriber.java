@@ -2,6 +2,7 @@
 package amodeus.amodeus.net;
 
 import java.io.File;
+import java.util.List;
 import java.util.Objects;
 
 import amodeus.amodeus.util.net.ObjectHandler;
@@ -20,11 +21,37 @@ public class StorageSubscriber implements ObjectHandler {
         File file = null;
         try {
             SimulationObject simulationObject = (SimulationObject) object;
-            file = storageUtils.getFileForStorageOf(simulationObject);
-            Export.object(file, simulationObject);
+            switch (storageUtils.getStorageFormat()) {
+            case COLUMNAR:
+                storageUtils.getColumnarWriterFor(simulationObject).append(simulationObject);
+                break;
+            case NONE:
+                break;
+            default:
+                file = storageUtils.getFileForStorageOf(simulationObject);
+                Export.object(file, simulationObject);
+            }
         } catch (Exception exception) {
             exception.printStackTrace();
-            throw new RuntimeException(file.getAbsolutePath());
+            throw new RuntimeException(Objects.isNull(file) ? storageUtils.getStorageFormat().name() : file.getAbsolutePath());
         }
     }
+
+    /** stores a group of {@link SimulationObject}s of the same iteration, in the
+     * {@link StorageFormat#COLUMNAR} format the group is appended with a single write
+     * 
+     * @param simulationObjects */
+    public void handleAll(List<SimulationObject> simulationObjects) {
+        if (simulationObjects.isEmpty() || storageUtils.getStorageFormat().equals(StorageFormat.NONE))
+            return;
+        if (storageUtils.getStorageFormat().equals(StorageFormat.COLUMNAR))
+            try {
+                storageUtils.getColumnarWriterFor(simulationObjects.get(0)).appendAll(simulationObjects);
+            } catch (Exception exception) {
+                exception.printStackTrace();
+                throw new RuntimeException(storageUtils.getStorageFormat().name());
+            }
+        else
+            simulationObjects.forEach(this::handle);
+    }
 }
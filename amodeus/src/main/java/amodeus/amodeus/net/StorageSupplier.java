@@ -2,19 +2,28 @@
 package amodeus.amodeus.net;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import ch.ethz.idsc.tensor.io.Import;
 
-public class StorageSupplier {
+/** provides the {@link SimulationObject}s of an iteration in the order of time.
+ * the {@link StorageFormat} of the recording is detected from the given files:
+ * if all files are the data file of a columnar recording, the objects are decoded
+ * by a {@link ColumnarSimulationReader}, otherwise each file is deserialized.
+ * the owner of a supplier closes it when no more objects are read. */
+public class StorageSupplier implements AutoCloseable {
 
     @SuppressWarnings("unused")
     private final NavigableMap<Integer, File> navigableMap;
     private final List<File> ordered;
     private final int intervalEstimate;
+    /** null for recordings in the {@link StorageFormat#SIMOBJ} format */
+    private final ColumnarSimulationReader columnarSimulationReader;
 
     public StorageSupplier(NavigableMap<Integer, File> navigableMap) {
         this.navigableMap = navigableMap;
@@ -22,6 +31,7 @@ public class StorageSupplier {
         List<Integer> list = navigableMap.keySet().stream().limit(2).collect(Collectors.toList());
         // typically the list == [10, 20] and therefore the 20 - 10 == 10
         intervalEstimate = 2 <= list.size() ? list.get(1) - list.get(0) : 10;
+        columnarSimulationReader = columnarReader(ordered);
     }
 
     /** @param index
@@ -29,6 +39,8 @@ public class StorageSupplier {
      * @throws Exception if anything goes wrong, for instance file not found,
      *             or object cannot be cast to SimulationObject */
     public SimulationObject getSimulationObject(int index) throws Exception {
+        if (Objects.nonNull(columnarSimulationReader))
+            return columnarSimulationReader.getSimulationObject(index);
         return Import.object(ordered.get(index));
     }
 
@@ -39,4 +51,27 @@ public class StorageSupplier {
     public final int getIntervalEstimate() {
         return intervalEstimate;
     }
+
+    /** releases the file of a columnar recording */
+    @Override
+    public void close() throws IOException {
+        if (Objects.nonNull(columnarSimulationReader))
+            columnarSimulationReader.close();
+    }
+
+    private static ColumnarSimulationReader columnarReader(List<File> ordered) {
+        if (ordered.isEmpty() || !ordered.get(0).getName().equals(ColumnarFormat.DATA_FILE))
+            return null;
+        File itDir = ordered.get(0).getParentFile();
+        try {
+            ColumnarSimulationReader columnarSimulationReader = new ColumnarSimulationReader(itDir);
+            if (columnarSimulationReader.size() == ordered.size())
+                return columnarSimulationReader;
+            System.err.println("columnar recording changed since listing: " + itDir.getAbsolutePath());
+            columnarSimulationReader.close();
+        } catch (IOException ioException) {
+            ioException.printStackTrace();
+        }
+        throw new IllegalStateException("cannot read columnar recording " + itDir.getAbsolutePath());
+    }
 }
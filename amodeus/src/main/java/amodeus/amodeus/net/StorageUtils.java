@@ -2,25 +2,41 @@
 package amodeus.amodeus.net;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.TreeMap;
 import java.util.stream.Stream;
 
 import amodeus.amodeus.util.math.GlobalAssert;
 
-public class StorageUtils {
+/** the owner of an instance that records in the {@link StorageFormat#COLUMNAR} format closes it
+ * when the recording is complete, for instance the dispatcher at the end of the mobsim */
+public class StorageUtils implements AutoCloseable {
 
     /** the output folder is created by MATSim */
     private static final File DEFAULT_OUTPUT_DIRECTORY = new File("output");
     private static final String SIMOBJ = "simobj";
-    // ---
+
     private final File output;
     private final File directory;
+    private final StorageFormat storageFormat;
+    private ColumnarSimulationWriter columnarSimulationWriter = null;
+    private int columnarIteration = -1;
 
     public StorageUtils(File outputdirectory) {
+        this(outputdirectory, StorageFormat.SIMOBJ);
+    }
+
+    /** @param outputdirectory
+     * @param storageFormat used when {@link SimulationObject}s are recorded, the format
+     *            of existing recordings is detected when reading */
+    public StorageUtils(File outputdirectory, StorageFormat storageFormat) {
+        this.storageFormat = storageFormat;
         System.out.println("StorageUtils output directory location: " + outputdirectory.getAbsolutePath());
         if (outputdirectory.isDirectory()) {
             output = outputdirectory;
@@ -75,6 +91,50 @@ public class StorageUtils {
         return getFrom(lastIter);
     }
 
+    /** @return format used when {@link SimulationObject}s are recorded */
+    public StorageFormat getStorageFormat() {
+        return storageFormat;
+    }
+
+    /** function only called from {@link StorageSubscriber} when data is recorded
+     * in the {@link StorageFormat#COLUMNAR} format, the writer of the previous iteration
+     * is closed when the first object of the next iteration is recorded
+     * 
+     * @param simulationObject
+     * 
+     * @return writer to append given simulationObject */
+    /* package */ synchronized ColumnarSimulationWriter getColumnarWriterFor(SimulationObject simulationObject) {
+        if (Objects.isNull(columnarSimulationWriter) || columnarIteration != simulationObject.iteration) {
+            GlobalAssert.that(output.exists());
+            try {
+                closeColumnarWriter();
+                columnarSimulationWriter = new ColumnarSimulationWriter(getIterationFolder(simulationObject.iteration));
+                columnarIteration = simulationObject.iteration;
+            } catch (IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+        }
+        return columnarSimulationWriter;
+    }
+
+    /** closes the columnar writer if one is open
+     * 
+     * @throws IOException */
+    public synchronized void closeColumnarWriter() throws IOException {
+        if (Objects.nonNull(columnarSimulationWriter))
+            try {
+                columnarSimulationWriter.close();
+            } finally {
+                columnarSimulationWriter = null;
+            }
+    }
+
+    /** closes the columnar writer if one is open */
+    @Override
+    public void close() throws IOException {
+        closeColumnarWriter();
+    }
+
     /** function only called from {@link StorageSubscriber} when data is recorded
      * during simulation
      * 
@@ -84,9 +144,8 @@ public class StorageUtils {
     /* package */ File getFileForStorageOf(SimulationObject simulationObject) {
         GlobalAssert.that(output.exists());
 
-        directory.mkdir();
-        File iter = new File(directory, String.format("it.%02d", simulationObject.iteration));
-        iter.mkdir();
+        File iter = getIterationFolder(simulationObject.iteration);
+        iter.mkdirs();
         long floor = (simulationObject.now / 1000) * 1000;
         File folder = new File(iter, String.format("%07d", floor));
         folder.mkdir();
@@ -94,11 +153,30 @@ public class StorageUtils {
         return new File(folder, String.format("%07d.bin", simulationObject.now));
     }
 
+    /* package */ File getIterationFolder(int iteration) {
+        return new File(directory, String.format("it.%02d", iteration));
+    }
+
     /** @param itDir
      *            {@link File} with iteration folder
      * @return {@link NavigableMap} with time as {@link Integer} and
-     *         {@link File} with iteration result. */
+     *         {@link File} with iteration result. for a columnar recording,
+     *         all values are the columnar data file, see {@link StorageSupplier} */
     /* package */ NavigableMap<Integer, File> getFrom(File itDir) {
+        if (ColumnarSimulationReader.isPresent(itDir))
+            try (ColumnarSimulationReader columnarSimulationReader = new ColumnarSimulationReader(itDir)) {
+                return columnarSimulationReader.navigableMap();
+            } catch (IOException ioException) {
+                System.err.println("columnar recording cannot be read: " + itDir.getAbsolutePath());
+                ioException.printStackTrace();
+            }
+        return getSimobjFrom(itDir);
+    }
+
+    /** @param itDir
+     *            {@link File} with iteration folder
+     * @return {@link NavigableMap} of the java-serialized files in itDir */
+    /* package */ static NavigableMap<Integer, File> getSimobjFrom(File itDir) {
         NavigableMap<Integer, File> navigableMap = new TreeMap<>();
         for (File dir : itDir.listFiles())
             if (dir.isDirectory())
@@ -10,12 +10,10 @@ import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Population;
 
-import amodeus.amodeus.dispatcher.util.NetworkBounds;
 import amodeus.amodeus.dispatcher.util.TensorLocation;
 import amodeus.amodeus.util.network.NodeAdjacencyMap;
 import amodeus.amodeus.virtualnetwork.KMeansVirtualNetworkCreator;
 import amodeus.amodeus.virtualnetwork.core.VirtualNetwork;
-import ch.ethz.idsc.tensor.Tensor;
 
 public enum MatsimKMeansVirtualNetworkCreator {
     ;
@@ -24,16 +22,12 @@ public enum MatsimKMeansVirtualNetworkCreator {
         double data[][] = NetworkCreatorUtils.fromPopulation(population, network);
         @SuppressWarnings("unchecked")
         Collection<Link> elements = (Collection<Link>) network.getLinks().values();
-        Tensor bounds = NetworkBounds.of(network);
-        Tensor lbounds = bounds.get(0);
-        Tensor ubounds = bounds.get(1);
-
         Map<Node, Set<Link>> uElements = NodeAdjacencyMap.of(network);
 
         int tryIterations = 100;
         KMeansVirtualNetworkCreator<Link, Node> vnc = new KMeansVirtualNetworkCreator<>( //
                 data, elements, uElements, TensorLocation::of, //
-                NetworkCreatorUtils::linkToID, lbounds, ubounds, numVNodes, completeGraph, tryIterations);
+                NetworkCreatorUtils::linkToID, numVNodes, completeGraph, tryIterations);
 
         return vnc.getVirtualNetwork();
 
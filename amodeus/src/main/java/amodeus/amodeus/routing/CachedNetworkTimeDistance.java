@@ -1,15 +1,41 @@
 /* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
 package amodeus.amodeus.routing;
 
+import java.util.Objects;
+
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
 
+import amodeus.amodeus.util.math.SI;
+import amodeus.amodeus.util.matsim.SafeConfig;
 import ch.ethz.idsc.tensor.Scalar;
 import ch.ethz.idsc.tensor.Tensor;
+import ch.ethz.idsc.tensor.qty.Quantity;
 
 public class CachedNetworkTimeDistance implements NetworkTimeDistInterface {
+    /** dispatcher parameter for the maximum number of cached pairs of links,
+     * 0 (default) for the unbounded cache */
+    public static final String CACHE_SIZE = "travelTimeCacheSize";
+    /** resolution of the expiry in the bounded cache */
+    private static final double BUCKET_WIDTH = 60.0;
+
+    /** @return {@link CachedNetworkTimeDistance} with the bounded cache if the parameter
+     *         {@link #CACHE_SIZE} is positive in @param safeConfig, else with the unbounded cache */
+    public static CachedNetworkTimeDistance of(LeastCostPathCalculator calculator, double maxLag, SafeConfig safeConfig) {
+        int cacheSize = safeConfig.getInteger(CACHE_SIZE, 0);
+        return 0 < cacheSize //
+                ? new CachedNetworkTimeDistance(calculator, maxLag, cacheSize)
+                : new CachedNetworkTimeDistance(calculator, maxLag, TimeDistanceProperty.INSTANCE);
+    }
 
+    // ---
+    /** null if the bounded cache is used */
     private final CachedNetworkPropertyComputation<Tensor> cachedNetworkPropertyComputation;
+    /** null if the unbounded cache is used */
+    private final LinkPairCache linkPairCache;
+    private final LeastCostPathCalculator calculator;
+    private double now = 0.0;
 
     /** A {@link CachedNetworkTimeDistance} stores all the calculated travel times
      * which were calculated no longer ago than @param maxLag. The underlying logic is that in this manner
@@ -19,22 +45,72 @@ public class CachedNetworkTimeDistance implements NetworkTimeDistInterface {
      * true, then the computed Pathes are stored as well (memory intensive!) */
     public CachedNetworkTimeDistance(LeastCostPathCalculator calculator, double maxLag, NetworkPropertyInterface<Tensor> pathInterface) {
         this.cachedNetworkPropertyComputation = new CachedNetworkPropertyComputation<>(calculator, maxLag, pathInterface);
+        this.linkPairCache = null;
+        this.calculator = calculator;
+    }
+
+    /** A {@link CachedNetworkTimeDistance} that stores at most @param maxEntries travel times and
+     * distances as primitives in a {@link LinkPairCache}, the least recently used pairs are evicted.
+     * Values calculated longer ago than @param maxLag are recomputed. */
+    public CachedNetworkTimeDistance(LeastCostPathCalculator calculator, double maxLag, int maxEntries) {
+        this.cachedNetworkPropertyComputation = null;
+        this.linkPairCache = new LinkPairCache(maxEntries, maxLag, BUCKET_WIDTH);
+        this.calculator = calculator;
     }
 
     public boolean checkTime(double now) {
-        return cachedNetworkPropertyComputation.checkTime(now);
+        if (Objects.isNull(linkPairCache))
+            return cachedNetworkPropertyComputation.checkTime(now);
+        return this.now == now;
     }
 
     @Override // from NetworkTimeDistInterface
     public Scalar travelTime(Link from, Link to, double now) {
-        Tensor timeDist = cachedNetworkPropertyComputation.fromTo(from, to, now);
-        return timeDist.Get(0);
+        if (Objects.isNull(linkPairCache)) {
+            Tensor timeDist = cachedNetworkPropertyComputation.fromTo(from, to, now);
+            return timeDist.Get(0);
+        }
+        return Quantity.of(linkPairCache.first(slot(from, to, now)), SI.SECOND);
     }
 
     @Override // from NetworkTimeDistInterface
     public Scalar distance(Link from, Link to, double now) {
-        Tensor timeDist = cachedNetworkPropertyComputation.fromTo(from, to, now);
-        return timeDist.Get(1);
+        if (Objects.isNull(linkPairCache)) {
+            Tensor timeDist = cachedNetworkPropertyComputation.fromTo(from, to, now);
+            return timeDist.Get(1);
+        }
+        return Quantity.of(linkPairCache.second(slot(from, to, now)), SI.METER);
+    }
+
+    @Override // from NetworkTimeDistInterface
+    public double travelTimeSeconds(Link from, Link to, double now) {
+        if (Objects.isNull(linkPairCache))
+            return travelTime(from, to, now).number().doubleValue();
+        return linkPairCache.first(slot(from, to, now));
+    }
+
+    @Override // from NetworkTimeDistInterface
+    public double distanceMeters(Link from, Link to, double now) {
+        if (Objects.isNull(linkPairCache))
+            return distance(from, to, now).number().doubleValue();
+        return linkPairCache.second(slot(from, to, now));
     }
 
+    /** @return {@link LinkPairCache} with hit, miss and eviction counters, null if the
+     *         unbounded cache is used */
+    public LinkPairCache getLinkPairCache() {
+        return linkPairCache;
+    }
+
+    private int slot(Link from, Link to, double now) {
+        this.now = now;
+        int fromIndex = from.getId().index();
+        int toIndex = to.getId().index();
+        int slot = linkPairCache.find(fromIndex, toIndex, now);
+        if (slot < 0) {
+            Path path = PathProperty.INSTANCE.fromTo(from, to, calculator, now);
+            slot = linkPairCache.put(fromIndex, toIndex, now, path.travelTime, PathProperty.length(path));
+        }
+        return slot;
+    }
 }
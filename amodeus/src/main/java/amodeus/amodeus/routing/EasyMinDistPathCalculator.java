@@ -13,6 +13,26 @@ import org.matsim.vehicles.Vehicle;
 public enum EasyMinDistPathCalculator {
     ;
 
+    /** network distance as disutility, stateless and shared by all calculators such that a factory which caches
+     * its preprocessing per travel disutility, e.g., the landmarks, prepares it only once for several calculators */
+    public static final TravelDisutility TRAVEL_DISUTILITY = new TravelDisutility() {
+        @Override
+        public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+            return getLinkMinimumTravelDisutility(link);
+        }
+
+        @Override
+        public double getLinkMinimumTravelDisutility(Link link) {
+            return link.getLength();
+        }
+    };
+    public static final TravelTime TRAVEL_TIME = new TravelTime() {
+        @Override
+        public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+            return link.getLength() / link.getFreespeed();
+        }
+    };
+
     /** Method can be used to rapidly create a {@link LeastCostPathCalculator}
      * in the @param network based on the @param calcFactory such that the path minimizes
      * the network distance, @return a {@link LeastCostPathCalculator} to be used in
@@ -21,23 +41,6 @@ public enum EasyMinDistPathCalculator {
      * EasyMinDistPathCalculator.prepPathCalculator(network, new FastAStarLandmarksFactory()) */
     public static LeastCostPathCalculator prepPathCalculator(Network network, //
             LeastCostPathCalculatorFactory calcFactory) {
-        TravelDisutility travelMinCost = new TravelDisutility() {
-            @Override
-            public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
-                return getLinkMinimumTravelDisutility(link);
-            }
-
-            @Override
-            public double getLinkMinimumTravelDisutility(Link link) {
-                return link.getLength();
-            }
-        };
-        TravelTime travelTime = new TravelTime() {
-            @Override
-            public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
-                return link.getLength() / link.getFreespeed();
-            }
-        };
-        return calcFactory.createPathCalculator(network, travelMinCost, travelTime);
+        return calcFactory.createPathCalculator(network, TRAVEL_DISUTILITY, TRAVEL_TIME);
     }
 }
@@ -13,24 +13,27 @@ import org.matsim.vehicles.Vehicle;
 public enum EasyMinTimePathCalculator {
     ;
 
-    public static LeastCostPathCalculator prepPathCalculator(Network network, LeastCostPathCalculatorFactory calcFactory) {
-        TravelDisutility travelDisutility = new TravelDisutility() {
-            @Override
-            public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
-                return getLinkMinimumTravelDisutility(link);
-            }
+    /** free flow travel time as disutility, stateless and shared by all calculators such that a factory which caches
+     * its preprocessing per travel disutility, e.g., the landmarks, prepares it only once for several calculators */
+    public static final TravelDisutility TRAVEL_DISUTILITY = new TravelDisutility() {
+        @Override
+        public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+            return getLinkMinimumTravelDisutility(link);
+        }
+
+        @Override
+        public double getLinkMinimumTravelDisutility(Link link) {
+            return link.getLength() / link.getFreespeed();
+        }
+    };
+    public static final TravelTime TRAVEL_TIME = new TravelTime() {
+        @Override
+        public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+            return link.getLength() / link.getFreespeed();
+        }
+    };
 
-            @Override
-            public double getLinkMinimumTravelDisutility(Link link) {
-                return link.getLength() / link.getFreespeed();
-            }
-        };
-        TravelTime travelTime = new TravelTime() {
-            @Override
-            public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
-                return link.getLength() / link.getFreespeed();
-            }
-        };
-        return calcFactory.createPathCalculator(network, travelDisutility, travelTime);
+    public static LeastCostPathCalculator prepPathCalculator(Network network, LeastCostPathCalculatorFactory calcFactory) {
+        return calcFactory.createPathCalculator(network, TRAVEL_DISUTILITY, TRAVEL_TIME);
     }
 }
@@ -0,0 +1,235 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.routing;
+
+import java.util.Arrays;
+
+import amodeus.amodeus.util.math.GlobalAssert;
+
+/** bounded cache of two double values, e.g., travel time and distance, for pairs of
+ * link indices. the pairs are packed into a long and stored in an open-addressing
+ * table with linear probing, there are no objects allocated per entry.
+ *
+ * entries are computed at a time, the time is stored in buckets of given width. an entry
+ * expires when its bucket is older than maxLag. alternatively, the buckets are validity
+ * periods, see {@link #validInPeriod(int, double)}. when the cache is full, an entry is
+ * evicted with the CLOCK policy, expired entries are evicted first.
+ *
+ * the class is not thread safe. a slot returned by {@link #find(int, int, double)} is
+ * valid until the next call to {@link #put(int, int, double, double, double)}. */
+public class LinkPairCache {
+    private static final long EMPTY = -1L;
+
+    // ---
+    private final int maxEntries;
+    private final double maxLag;
+    private final double bucketWidth;
+    /** true if entries are only found in the bucket in which they were computed */
+    private final boolean validInBucket;
+    private final int mask;
+    private final long[] keys;
+    private final double[] first;
+    private final double[] second;
+    private final int[] buckets;
+    private final boolean[] referenced;
+    private int size = 0;
+    private int hand = 0;
+    // ---
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long expirations = 0;
+
+    /** @param maxEntries maximum number of stored pairs, positive
+     * @param validityPeriod positive duration, the day is divided into periods of this length, e.g., the time bins of the
+     *            link speeds, {@link Double#POSITIVE_INFINITY} if the values do not depend on the time
+     * @return cache in which an entry is only found in the period in which it was computed, entries of earlier periods
+     *         expire and entries of later periods are kept */
+    public static LinkPairCache validInPeriod(int maxEntries, double validityPeriod) {
+        return new LinkPairCache(maxEntries, 0, validityPeriod, true);
+    }
+
+    /** @param maxEntries maximum number of stored pairs, positive
+     * @param maxLag entries computed longer ago than maxLag are recomputed
+     * @param bucketWidth resolution of the computation time, positive */
+    public LinkPairCache(int maxEntries, double maxLag, double bucketWidth) {
+        this(maxEntries, maxLag, bucketWidth, false);
+    }
+
+    private LinkPairCache(int maxEntries, double maxLag, double bucketWidth, boolean validInBucket) {
+        GlobalAssert.that(0 < maxEntries);
+        GlobalAssert.that(0 < bucketWidth);
+        this.maxEntries = maxEntries;
+        this.maxLag = maxLag;
+        this.bucketWidth = bucketWidth;
+        this.validInBucket = validInBucket;
+        int capacity = Integer.highestOneBit(Math.max(2, maxEntries) * 2 - 1) << 1; // load factor at most 0.5
+        mask = capacity - 1;
+        keys = new long[capacity];
+        first = new double[capacity];
+        second = new double[capacity];
+        buckets = new int[capacity];
+        referenced = new boolean[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /** @param fromIndex non-negative
+     * @param toIndex non-negative
+     * @param now
+     * @return slot of the pair if stored and not expired, else -1 */
+    public int find(int fromIndex, int toIndex, double now) {
+        long key = key(fromIndex, toIndex);
+        for (int slot = home(key); keys[slot] != EMPTY; slot = (slot + 1) & mask)
+            if (keys[slot] == key) {
+                if (isExpired(slot, now)) {
+                    remove(slot);
+                    ++expirations;
+                    break;
+                }
+                if (validInBucket && buckets[slot] != bucket(now))
+                    break;
+                referenced[slot] = true;
+                ++hits;
+                return slot;
+            }
+        ++misses;
+        return -1;
+    }
+
+    /** @param slot returned by {@link #find(int, int, double)}
+     * @return first value of the pair */
+    public double first(int slot) {
+        return first[slot];
+    }
+
+    /** @param slot returned by {@link #find(int, int, double)}
+     * @return second value of the pair */
+    public double second(int slot) {
+        return second[slot];
+    }
+
+    /** stores the values of the pair computed at time now, evicts an entry if the cache is full
+     *
+     * @return slot of the pair */
+    public int put(int fromIndex, int toIndex, double now, double firstValue, double secondValue) {
+        long key = key(fromIndex, toIndex);
+        int slot = home(key);
+        while (keys[slot] != EMPTY && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        if (keys[slot] == EMPTY) {
+            if (maxEntries <= size) {
+                evict(now);
+                return put(fromIndex, toIndex, now, firstValue, secondValue); // eviction may shift entries
+            }
+            keys[slot] = key;
+            ++size;
+        }
+        first[slot] = firstValue;
+        second[slot] = secondValue;
+        buckets[slot] = bucket(now);
+        referenced[slot] = false;
+        return slot;
+    }
+
+    /** removes all entries, the counters are not reset */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    /** @return memory of the table in bytes */
+    public long getTableBytes() {
+        return (long) keys.length * (Long.BYTES + 2 * Double.BYTES + Integer.BYTES + 1);
+    }
+
+    @Override
+    public String toString() {
+        long lookups = hits + misses;
+        return String.format("LinkPairCache size=%d/%d hits=%d misses=%d (%.1f%% hit) evictions=%d expirations=%d", //
+                size, maxEntries, hits, misses, lookups == 0 ? 0 : 100.0 * hits / lookups, evictions, expirations);
+    }
+
+    /** CLOCK: sweeps the hand over the table, an expired entry or an entry that has not
+     * been referenced since the last sweep is removed, the reference of others is cleared */
+    private void evict(double now) {
+        while (true) {
+            hand = (hand + 1) & mask;
+            if (keys[hand] == EMPTY)
+                continue;
+            if (isExpired(hand, now)) {
+                remove(hand);
+                ++expirations;
+                return;
+            }
+            if (referenced[hand])
+                referenced[hand] = false;
+            else {
+                remove(hand);
+                ++evictions;
+                return;
+            }
+        }
+    }
+
+    /** backward shift deletion keeps probe sequences intact without tombstones */
+    private void remove(int slot) {
+        int gap = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (keys[next] == EMPTY)
+                break;
+            int home = home(keys[next]);
+            // entry at next may move into the gap if its home is not cyclically in (gap, next]
+            boolean movable = gap <= next //
+                    ? home <= gap || next < home
+                    : home <= gap && next < home;
+            if (movable) {
+                keys[gap] = keys[next];
+                first[gap] = first[next];
+                second[gap] = second[next];
+                buckets[gap] = buckets[next];
+                referenced[gap] = referenced[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        --size;
+    }
+
+    private boolean isExpired(int slot, double now) {
+        return buckets[slot] < bucket(now - maxLag);
+    }
+
+    private int bucket(double time) {
+        return (int) Math.floor(time / bucketWidth);
+    }
+
+    private int home(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static long key(int fromIndex, int toIndex) {
+        return ((long) fromIndex << 32) | (toIndex & 0xFFFFFFFFL);
+    }
+}
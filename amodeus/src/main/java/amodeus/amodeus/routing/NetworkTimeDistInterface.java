@@ -20,4 +20,14 @@ public interface NetworkTimeDistInterface {
      * @return */
     Scalar distance(Link from, Link to, double now);
 
+    /** @return travel time in seconds as primitive, implementations that store primitives avoid the allocation of a {@link Scalar} */
+    default double travelTimeSeconds(Link from, Link to, double now) {
+        return travelTime(from, to, now).number().doubleValue();
+    }
+
+    /** @return distance in meters as primitive, implementations that store primitives avoid the allocation of a {@link Scalar} */
+    default double distanceMeters(Link from, Link to, double now) {
+        return distance(from, to, now).number().doubleValue();
+    }
+
 }
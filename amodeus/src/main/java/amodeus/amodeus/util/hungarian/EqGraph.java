@@ -15,28 +15,19 @@ public final class EqGraph extends Graph {
         initializeFreeNodes();
     }
 
-    public EqGraph(double[][] cm, double eps, Warmstarter w) {
+    /** warm start with feasible labels and a matching on tight edges of the padded square problem,
+     * all arrays of length max(rows, columns) and in the orientation of this graph, i.e., x are the
+     * columns of cm if cm has more rows than columns, otherwise the rows */
+    /* package */ EqGraph(double[][] cm, double eps, double[] xLabel, double[] yLabel, int[] xMatch, int[] yMatch) {
         super(cm);
-        if (colDim >= rowDim) {
-            xLabel = w.getXLabels();
-            yLabel = w.getYLabels();
-            xMatch = w.getXMatch();
-            yMatch = w.getYMatch();
-        } else {
-            xLabel = w.getYLabels();
-            yLabel = w.getXLabels();
-            xMatch = w.getYMatch();
-            yMatch = w.getXMatch();
-        }
-
+        this.xLabel = xLabel;
+        this.yLabel = yLabel;
+        this.xMatch = xMatch;
+        this.yMatch = yMatch;
         at = new AlternatingTree(dim, xLabel, yLabel, yMatch, costMatrix, eps);
-
         initializeFreeNodes();
-        // System.out.println("Found "+(xMatch.length-freeX.size())+"/"+xMatch.length+" (Nr of free X: "+freeX.size()+" )");
-        if (freeX.size() != freeY.size()) {
-            System.out.println("BUG");
+        if (freeX.size() != freeY.size())
             throw new RuntimeException("size mismatch");
-        }
     }
 
     public int addS(int xi) {
@@ -87,4 +78,8 @@ public final class EqGraph extends Graph {
                 ? yMatch //
                 : xMatch;
     }
+
+    /* package */ double[] getXLabels() {
+        return xLabel;
+    }
 }
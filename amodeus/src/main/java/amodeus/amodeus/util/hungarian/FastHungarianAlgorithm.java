@@ -13,6 +13,7 @@ package amodeus.amodeus.util.hungarian;
  * @author Samuel J. Stauber */
 public class FastHungarianAlgorithm {
     private final EqGraph eq;
+    private int augmentations = 0;
 
     public FastHungarianAlgorithm(double[][] costMatrix, double eps) {
         eq = new EqGraph(costMatrix, eps);
@@ -22,11 +23,18 @@ public class FastHungarianAlgorithm {
         this(costMatrix, StaticHelper.EPS_DEFAULT);
     }
 
+    /** warm start, see {@link Warmstarter} */
+    /* package */ FastHungarianAlgorithm(double[][] costMatrix, double eps, //
+            double[] xLabel, double[] yLabel, int[] xMatch, int[] yMatch) {
+        eq = new EqGraph(costMatrix, eps, xLabel, yLabel, xMatch, yMatch);
+    }
+
     public final int[] execute() {
         while (!eq.isSolved()) {
             int x = eq.pickFreeX();
             int y = eq.addS(x);
             eq.augmentMatching(x, y);
+            ++augmentations;
         }
         return eq.getResult();
     }
@@ -39,4 +47,16 @@ public class FastHungarianAlgorithm {
         return eq.getOptimalValue();
     }
 
+    /** @return number of augmenting paths of the last {@link #execute()} */
+    public final int getAugmentations() {
+        return augmentations;
+    }
+
+    /** call only after {@link #execute()}
+     * 
+     * @return dual labels of the x nodes of {@link EqGraph} */
+    /* package */ final double[] getXLabels() {
+        return eq.getXLabels();
+    }
+
 }
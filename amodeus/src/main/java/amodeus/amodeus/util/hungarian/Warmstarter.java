@@ -1,234 +1,318 @@
 /* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
 package amodeus.amodeus.util.hungarian;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
-import org.matsim.api.core.v01.Id;
-import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
-import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import amodeus.amodeus.util.math.GlobalAssert;
 
 /** This class provides a means to warm start the Hungarian algorithm with
- * the objective of improving the convergence
- * time of the algorithm. */
+ * the objective of improving the convergence time of the algorithm.
+ *
+ * The problem is solved in the orientation of {@link Graph}: x is the smaller side padded
+ * with dummy nodes of cost 0, y is the larger side. An instance keeps the dual labels of the
+ * x nodes and the matching of the last problem it has solved, identified by the keys of the
+ * rows and columns, e.g., the ids of vehicles and requests. In the next problem, the labels of
+ * known x nodes are reused and the labels of the y nodes are set to the largest feasible values.
+ * Pairs of the last matching which are still tight are matched again, such that the Hungarian
+ * algorithm only needs to augment the remaining x nodes. The start is a feasible labeling with
+ * a matching on tight edges, hence the result is optimal.
+ *
+ * The labels are shifted such that the dummy nodes have label 0. A y node with label 0 is
+ * tight to all dummy nodes, which is the case for all y nodes without warm start. Free y nodes
+ * are raised to label 0, otherwise the augmenting paths to them would require many label
+ * updates.
+ *
+ * Every matcher should own its instance, an instance must not be shared between threads. */
 public class Warmstarter {
     private static final int UNASSIGNED = -1;
-    private static final double EPS = 1e-8;
-    public static List<Id<DvrpVehicle>> lastTaxis = null;
-    public static List<PassengerRequest> lastRequests = null;
-    public static List<Id<DvrpVehicle>> thisTaxis = null;
-    public static List<PassengerRequest> thisRequests = null;
-    private static int[] lastMatching = null;
-
-    private static int[] lastInitMatching;
-    private final int[] newMatching;
-    private static int[] yMatch;
-    private static int[] xMatch;
-    public boolean hasResult = false;
-    public static boolean hasFailed = false;
-
-    private double[] xLabel;
-    private double[] yLabel;
-
-    private final double[][] costMatrix;
-    private final int dim, colDim, rowDim;
-
-    public Warmstarter(double[][] costMatrix, int[] newMatching) { // For testing
-        this.costMatrix = costMatrix;
-        rowDim = costMatrix.length;
-        colDim = costMatrix[0].length;
-        dim = Math.max(rowDim, colDim);
-        xLabel = new double[dim];
-        yLabel = new double[dim];
-        yMatch = new int[dim];
-        xMatch = new int[dim];
-        this.newMatching = newMatching;
-        Arrays.fill(yMatch, UNASSIGNED);
-        Arrays.fill(xMatch, UNASSIGNED);
-
-        matchAndLabel();
-        setLabelsForFreeJobs();
-        hasResult = true;
-    }
+    // ---
+    private final double eps;
+    /** labels of the x nodes of the last problem by key */
+    private Map<Object, Double> lastLabels = new HashMap<>();
+    /** true if the x nodes of the last problem were the columns */
+    private boolean lastTransposed = false;
+    /** key of y node by key of x node of the last matching */
+    private Map<Object, Object> lastMatching = new HashMap<>();
+    // --- statistics
+    private int matchings = 0;
+    private int warmStarts = 0;
+    private long augmentations = 0;
+    private long warmStartAugmentations = 0;
+    private long coldAugmentations = 0;
 
-    public Warmstarter(double[][] costMatrix, List<Id<DvrpVehicle>> taxis, List<PassengerRequest> requests) {
-        this.costMatrix = costMatrix;
-        rowDim = costMatrix.length;
-        colDim = costMatrix[0].length;
-        dim = Math.max(rowDim, colDim);
-        xLabel = new double[dim];
-        yLabel = new double[dim];
-        yMatch = new int[dim];
-        xMatch = new int[dim];
-        newMatching = new int[dim];
-        Arrays.fill(newMatching, UNASSIGNED);
-        Arrays.fill(yMatch, UNASSIGNED);
-        Arrays.fill(xMatch, UNASSIGNED);
-
-        if (readyForWarmstart()) {
-            setNewMatching(taxis, requests);
-            matchAndLabel();
-            setLabelsForFreeJobs();
-            hasResult = true;
-        }
-        lastTaxis = taxis;
-        lastRequests = requests;
+    public Warmstarter(double eps) {
+        this.eps = eps;
     }
 
-    public double[] getXLabels() {
-        return xLabel;
+    public Warmstarter() {
+        this(StaticHelper.EPS_DEFAULT);
     }
 
-    public double[] getYLabels() {
-        return yLabel;
-    }
+    /** @param costMatrix of dimension [rowKeys.size()][columnKeys.size()]
+     * @param rowKeys unique key of every row
+     * @param columnKeys key of every column
+     * @return same as {@link HungarianAlgorithmWrap#matching(double[][])} */
+    public int[] matching(double[][] costMatrix, List<?> rowKeys, List<?> columnKeys) {
+        GlobalAssert.that(rowKeys.size() == costMatrix.length && columnKeys.size() == costMatrix[0].length);
+        final Problem problem = new Problem(costMatrix, rowKeys, columnKeys);
+        ++matchings;
 
-    public int[] getXMatch() {
-        return xMatch;
-    }
+        final int cold = lastLabels.isEmpty() ? 0 : coldAugmentations(problem);
+        Start start = start(problem, cold);
+        /** the start is a feasible labeling with a matching on tight edges by construction,
+         * a failure of the warm started algorithm is a bug and is not hidden by a cold start */
+        FastHungarianAlgorithm fastHungarianAlgorithm = Objects.isNull(start) //
+                ? new FastHungarianAlgorithm(costMatrix, eps)
+                : new FastHungarianAlgorithm(costMatrix, eps, start.xLabel, start.yLabel, start.xMatch, start.yMatch);
+        int[] result = fastHungarianAlgorithm.execute();
+        augmentations += fastHungarianAlgorithm.getAugmentations();
+        if (Objects.nonNull(start)) {
+            ++warmStarts;
+            warmStartAugmentations += fastHungarianAlgorithm.getAugmentations();
+            coldAugmentations += cold;
+        }
 
-    public int[] getYMatch() {
-        return yMatch;
+        /** keep labels and matching for the next problem, shifted such that the dummy nodes have label 0 */
+        double[] xLabel = fastHungarianAlgorithm.getXLabels();
+        double shift = problem.small < problem.dim ? Double.NEGATIVE_INFINITY : 0;
+        for (int x = problem.small; x < problem.dim; ++x)
+            shift = Math.max(shift, xLabel[x]);
+        lastLabels = new HashMap<>();
+        for (int x = 0; x < problem.small; ++x)
+            lastLabels.put(problem.xKeys.get(x), xLabel[x] - shift);
+        lastTransposed = problem.transposed;
+        lastMatching = new HashMap<>();
+        for (int row = 0; row < result.length; ++row)
+            if (0 <= result[row])
+                if (problem.transposed)
+                    lastMatching.put(columnKeys.get(result[row]), rowKeys.get(row));
+                else
+                    lastMatching.put(rowKeys.get(row), columnKeys.get(result[row]));
+        return result;
     }
 
-    private void matchAndLabel() {
-        double[] oldX;
-        double[] oldY;
-        for (int x = 0; x < rowDim; x++)
-            if (newMatching[x] > UNASSIGNED) {
-                oldX = Arrays.copyOf(xLabel, xLabel.length);
-                oldY = Arrays.copyOf(yLabel, yLabel.length);
-                yMatch[newMatching[x]] = x;
-                if (isMatchPossible(x, newMatching[x])) {
-                    xMatch[x] = newMatching[x];
-                    yMatch[xMatch[x]] = x;
-                } else {
-                    xLabel = oldX;
-                    yLabel = oldY;
-                    yMatch[newMatching[x]] = UNASSIGNED;
+    /** In rectangular problems, the initial matching without warm start matches most x nodes to the
+     * dummy nodes, the warm start is only used if it leaves at most as many free x nodes.
+     * 
+     * @return start labels and matching of the padded square problem, or null if no x node is known
+     *         or if the warm start leaves more free x nodes than the initial matching without warm start */
+    private Start start(Problem problem, int coldAugmentations) {
+        if (problem.transposed != lastTransposed)
+            return null;
+        final int small = problem.small;
+        final int dim = problem.dim;
+        Start start = new Start(dim);
+
+        /** labels of known x nodes are reused, the dummy nodes have label 0 */
+        boolean[] known = new boolean[small];
+        boolean anyKnown = false;
+        for (int x = 0; x < small; ++x) {
+            Double label = lastLabels.get(problem.xKeys.get(x));
+            if (label != null) {
+                start.xLabel[x] = label;
+                known[x] = true;
+                anyKnown = true;
+            }
+        }
+        if (!anyKnown)
+            return null;
+
+        /** largest feasible labels of the y nodes with respect to the known x nodes */
+        for (int y = 0; y < dim; ++y) {
+            double min = small < dim ? 0 : Double.POSITIVE_INFINITY;
+            for (int x = 0; x < small; ++x)
+                if (known[x])
+                    min = Math.min(min, problem.cost(x, y) - start.xLabel[x]);
+            start.yLabel[y] = min;
+        }
+        /** largest feasible labels of the new x nodes */
+        for (int x = 0; x < small; ++x)
+            if (!known[x]) {
+                double min = Double.POSITIVE_INFINITY;
+                for (int y = 0; y < dim; ++y)
+                    min = Math.min(min, problem.cost(x, y) - start.yLabel[y]);
+                start.xLabel[x] = min;
+            }
+
+        /** pairs of the last matching are kept if they are still tight */
+        Map<Object, List<Integer>> yByKey = new HashMap<>();
+        for (int y = 0; y < dim; ++y)
+            yByKey.computeIfAbsent(problem.yKeys.get(y), key -> new ArrayList<>()).add(y);
+        for (int x = 0; x < small; ++x) {
+            Object yKey = lastMatching.get(problem.xKeys.get(x));
+            if (yKey != null)
+                for (int y : yByKey.getOrDefault(yKey, Collections.emptyList()))
+                    if (start.yMatch[y] == UNASSIGNED && isTight(problem, start, x, y)) {
+                        start.match(x, y);
+                        break;
+                    }
+        }
+        matchGreedily(problem, start, 0, small);
+        if (small == dim)
+            return start;
+        if (coldAugmentations < start.free(small))
+            return null;
+
+        /** free y nodes are raised to label 0, x nodes are lowered to stay feasible
+         * and lose their match if it is no longer tight */
+        Deque<Integer> free = new ArrayDeque<>();
+        for (int y = 0; y < dim; ++y)
+            if (start.yMatch[y] == UNASSIGNED && start.yLabel[y] < 0)
+                free.add(y);
+        while (!free.isEmpty()) {
+            int y = free.poll();
+            start.yLabel[y] = 0;
+            for (int x = 0; x < small; ++x) {
+                double cost = problem.cost(x, y);
+                if (cost < start.xLabel[x]) {
+                    start.xLabel[x] = cost;
+                    int matched = start.xMatch[x];
+                    if (matched != UNASSIGNED && !isTight(problem, start, x, matched)) {
+                        start.xMatch[x] = UNASSIGNED;
+                        start.yMatch[matched] = UNASSIGNED;
+                        if (start.yLabel[matched] < 0)
+                            free.add(matched);
+                    }
                 }
             }
+        }
+        matchGreedily(problem, start, 0, small);
+        /** dummy nodes are tight to all y nodes with label 0 */
+        int x = small;
+        for (int y = 0; y < dim && x < dim; ++y)
+            if (start.yMatch[y] == UNASSIGNED && isTight(problem, start, x, y))
+                start.match(x++, y);
+        return coldAugmentations < start.free(dim) //
+                ? null
+                : start;
     }
 
-    private boolean isMatchPossible(int x, int y) {
-        double cost = getCost(x, y);
-        xLabel[x] = cost - yLabel[y];
-        return updateInY(x);
+    /** matches the free x nodes in [from, to) to the first free y node on a tight edge */
+    private void matchGreedily(Problem problem, Start start, int from, int to) {
+        for (int x = from; x < to; ++x)
+            if (start.xMatch[x] == UNASSIGNED)
+                for (int y = 0; y < problem.dim; ++y)
+                    if (start.yMatch[y] == UNASSIGNED && isTight(problem, start, x, y)) {
+                        start.match(x, y);
+                        break;
+                    }
     }
 
-    private boolean updateInY(int x) {
-        double xL = xLabel[x];
-        for (int y = 0; y < colDim; y++)
-            if (xL + yLabel[y] - getCost(x, y) > 1e-8) {
-                yLabel[y] = getCost(x, y) - xL;
-                if (yMatch[y] == UNASSIGNED)
-                    continue;
-                return false;
-            }
-        return true;
+    private boolean isTight(Problem problem, Start start, int x, int y) {
+        return problem.cost(x, y) - start.xLabel[x] - start.yLabel[y] <= eps;
     }
 
-    private double getCost(int x, int y) {
-        if (x >= rowDim || y >= colDim)
-            return 0;
-        return costMatrix[x][y];
+    /** @return number of augmentations of the Hungarian algorithm without warm start, i.e.,
+     * the number of x nodes which are not matched by the initial matching of {@link Graph} */
+    private static int coldAugmentations(Problem problem) {
+        boolean[] matched = new boolean[problem.dim];
+        int augmentations = 0;
+        for (int x = 0; x < problem.small; ++x) {
+            double min = Double.POSITIVE_INFINITY;
+            for (int y = 0; y < problem.dim; ++y)
+                min = Math.min(min, problem.cost(x, y));
+            int match = UNASSIGNED;
+            for (int y = 0; y < problem.dim && match == UNASSIGNED; ++y)
+                if (!matched[y] && problem.cost(x, y) == min)
+                    match = y;
+            if (match == UNASSIGNED)
+                ++augmentations;
+            else
+                matched[match] = true;
+        }
+        /** dummy nodes are tight to all y nodes and matched to the remaining ones */
+        return augmentations;
     }
 
-    private void setNewMatching(List<Id<DvrpVehicle>> actTaxi, List<PassengerRequest> actRequest) {
-        Id<DvrpVehicle> tmpTaxi = null;
-        PassengerRequest tmpReq = null;
-        int tmpTaxiId = UNASSIGNED;
-        int last = UNASSIGNED;
-        // List<Integer> taxiIDmatched = new ArrayList<>();
-        // List<Integer> reqIDmatched = new ArrayList<>();
-
-        for (int i = 0; i < lastTaxis.size(); i++) {
-            tmpTaxi = lastTaxis.get(i);
-            last = lastMatching[i];
-            if (last >= lastRequests.size()) {
-                continue;
-            }
-            tmpReq = lastRequests.get(last);
-            if (!actTaxi.contains(tmpTaxi) || !actRequest.contains(tmpReq))
-                continue; // Request is gone or taxi is gone or was matched to dummy job
-            for (int j = 0; j < actTaxi.size(); j++) { // Find position of taxi in vector
-                if (actTaxi.get(j).equals(tmpTaxi)) {
-                    tmpTaxiId = j;
-                    break;
-                }
-            }
-            for (int j = 0; j < actRequest.size(); j++) {
-                if (actRequest.get(j).equals(tmpReq)) {
-                    // taxiIDmatched.add(tmpTaxiId);
-                    // reqIDmatched.add(j);
-                    newMatching[tmpTaxiId] = j; // Find position of corresp request in vector
-                    break;
-                }
-            }
-        }
-        lastRequests = actRequest; // For next warmstart
-        lastTaxis = actTaxi;
+    /** @return number of solved problems */
+    public int getMatchings() {
+        return matchings;
     }
 
-    private void setLabelsForFreeJobs() {
-        double min;
-        boolean foundDummy;
-        int dummy = UNASSIGNED;
-        for (int i = 0; i < newMatching.length; i++)
-            if (xMatch[i] == UNASSIGNED) {
-                min = Double.POSITIVE_INFINITY;
-                foundDummy = false;
-                for (int y = 0; y < dim; y++) {
-                    if (y >= colDim && yMatch[y] < 0 && yLabel[y] >= xLabel[i] && !foundDummy) {
-                        foundDummy = true;
-                        dummy = y;
-                    }
-                    if (min + yLabel[y] > getCost(i, y))
-                        min = getCost(i, y) - yLabel[y];
-                }
-                xLabel[i] = min;
-                if (foundDummy) {
-                    yLabel[dummy] = -min;
-                    xMatch[i] = dummy;
-                    yMatch[dummy] = i;
-                }
-            }
+    /** @return number of problems which were solved from the labels of the previous problem */
+    public int getWarmStarts() {
+        return warmStarts;
     }
 
-    public boolean isValidLabeling() {
-        boolean valid = true;
-        for (int x = 0; x < dim; x++)
-            if (xMatch[x] != UNASSIGNED) {
-                if (Math.abs(xLabel[x] + yLabel[xMatch[x]] - getCost(x, xMatch[x])) > EPS) {
-                    valid = false;
-                    System.out.println("Bad matching label (" + x + "," + xMatch[x] + ")");
-                }
-                for (int y = 0; y < dim; y++)
-                    if (xLabel[x] + yLabel[y] - getCost(x, y) > EPS && yMatch[y] == UNASSIGNED) {
-                        valid = false;
-                        System.out.println("Bad label (" + x + "," + y + ")");
-                    }
-            }
-        if (valid)
-            System.out.println("Labels are ok");
-        return valid;
+    /** @return total number of augmentations of the Hungarian algorithm */
+    public long getAugmentations() {
+        return augmentations;
     }
 
-    public static void setLastData(List<Id<DvrpVehicle>> lastTaxi, List<PassengerRequest> lastRequest) {
-        lastTaxis = lastTaxi;
-        lastRequests = lastRequest;
+    /** @return total number of augmentations of the problems which were solved with warm start */
+    public long getWarmStartAugmentations() {
+        return warmStartAugmentations;
     }
 
-    public static void setLastMatching(int[] xMatch) {
-        lastMatching = xMatch;
+    /** in square problems, the warm start is used even if it leaves more free x nodes than the initial
+     * matching without warm start, i.e., the warm start may need more augmentations than a cold start
+     * 
+     * @return total number of augmentations the problems which were solved with warm start would have
+     *         needed without warm start */
+    public long getColdAugmentations() {
+        return coldAugmentations;
     }
 
-    public boolean readyForWarmstart() {
-        return Objects.nonNull(lastRequests);
+    /** cost matrix and keys in the orientation of {@link Graph} */
+    private static class Problem {
+        final double[][] costMatrix;
+        final boolean transposed;
+        /** number of x nodes which are not dummy nodes */
+        final int small;
+        final int dim;
+        final List<?> xKeys;
+        final List<?> yKeys;
+
+        Problem(double[][] costMatrix, List<?> rowKeys, List<?> columnKeys) {
+            this.costMatrix = costMatrix;
+            transposed = costMatrix.length > costMatrix[0].length;
+            small = Math.min(costMatrix.length, costMatrix[0].length);
+            dim = Math.max(costMatrix.length, costMatrix[0].length);
+            xKeys = transposed ? columnKeys : rowKeys;
+            yKeys = transposed ? rowKeys : columnKeys;
+        }
+
+        double cost(int x, int y) {
+            if (small <= x)
+                return 0;
+            return transposed //
+                    ? costMatrix[y][x]
+                    : costMatrix[x][y];
+        }
     }
 
-    public int[] getXMatchBefore() {
-        return lastInitMatching;
+    /** labels and matching of the padded square problem */
+    private static class Start {
+        final double[] xLabel;
+        final double[] yLabel;
+        final int[] xMatch;
+        final int[] yMatch;
+
+        Start(int dim) {
+            xLabel = new double[dim];
+            yLabel = new double[dim];
+            xMatch = new int[dim];
+            yMatch = new int[dim];
+            Arrays.fill(xMatch, UNASSIGNED);
+            Arrays.fill(yMatch, UNASSIGNED);
+        }
+
+        void match(int x, int y) {
+            xMatch[x] = y;
+            yMatch[y] = x;
+        }
+
+        /** @return number of free x nodes in [0, to) */
+        int free(int to) {
+            return (int) Arrays.stream(xMatch, 0, to).filter(y -> y == UNASSIGNED).count();
+        }
     }
 }
@@ -0,0 +1,228 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.util.nd;
+
+import java.util.function.IntConsumer;
+
+import amodeus.amodeus.util.math.GlobalAssert;
+
+/** k-d tree for points in the plane with double coordinates as replacement of {@link NdTreeMap}
+ * for 2-dimensional locations. The tree is bulk loaded and balanced, the points are stored in primitive
+ * arrays that are permuted such that every node is a contiguous range: the point at mid = (lo + hi) / 2
+ * splits the range [lo, hi) into [lo, mid) and [mid + 1, hi) by x at even and by y at odd depth.
+ * Ranges of at most {@link #LEAF_SIZE} points are scanned linearly.
+ *
+ * The points are identified by their index in the arrays given to {@link #of(double[], double[])}.
+ * The tree is immutable, the queries do not allocate memory and can be used in parallel. */
+public class KdTree2D {
+    /** maximum number of points in a leaf */
+    public static final int LEAF_SIZE = 8;
+
+    /** @param xs x coordinates of the points, finite
+     * @param ys y coordinates of the points, finite, with same length as xs
+     * @return tree of the points, the index of a point is its index in the arrays */
+    public static KdTree2D of(double[] xs, double[] ys) {
+        GlobalAssert.that(xs.length == ys.length);
+        for (int index = 0; index < xs.length; ++index)
+            GlobalAssert.that(Double.isFinite(xs[index]) && Double.isFinite(ys[index]));
+        KdTree2D kdTree2D = new KdTree2D(xs.clone(), ys.clone());
+        kdTree2D.build(0, xs.length, 0);
+        return kdTree2D;
+    }
+
+    // ---
+    private final double[] xs;
+    private final double[] ys;
+    private final int[] indices;
+
+    private KdTree2D(double[] xs, double[] ys) {
+        this.xs = xs;
+        this.ys = ys;
+        indices = new int[xs.length];
+        for (int index = 0; index < indices.length; ++index)
+            indices[index] = index;
+    }
+
+    /** @return number of points in the tree */
+    public int size() {
+        return indices.length;
+    }
+
+    /** the points are ordered by increasing distance, points with equal distance in no particular order
+     *
+     * @param x
+     * @param y
+     * @param limit strictly positive
+     * @param neighbors of length at least limit, receives the indices of the points
+     * @param distances of length at least limit, receives the Euclidean distances of the points
+     * @return number of points written to neighbors, i.e. min(limit, size()) */
+    public int nearest(double x, double y, int limit, int[] neighbors, double[] distances) {
+        GlobalAssert.that(0 < limit && limit <= neighbors.length && limit <= distances.length);
+        /** distances hold the squared distances as max-heap during the search */
+        int count = nearest(0, indices.length, 0, x, y, limit, neighbors, distances, 0);
+        for (int end = count - 1; 0 < end; --end) {
+            swap(neighbors, distances, 0, end);
+            siftDown(neighbors, distances, 0, end);
+        }
+        for (int k = 0; k < count; ++k)
+            distances[k] = Math.sqrt(distances[k]);
+        return count;
+    }
+
+    /** @param x
+     * @param y
+     * @param radius non-negative
+     * @param consumer receives the indices of all points with Euclidean distance at most radius, in no particular order */
+    public void withinRadius(double x, double y, double radius, IntConsumer consumer) {
+        GlobalAssert.that(0 <= radius);
+        withinRadius(0, indices.length, 0, x, y, radius * radius, consumer);
+    }
+
+    private int nearest(int lo, int hi, int depth, double x, double y, int limit, int[] heap, double[] heapDistances, int count) {
+        if (hi - lo <= LEAF_SIZE) {
+            for (int index = lo; index < hi; ++index) {
+                double dx = xs[index] - x;
+                double dy = ys[index] - y;
+                count = offer(heap, heapDistances, count, limit, indices[index], dx * dx + dy * dy);
+            }
+            return count;
+        }
+        int mid = (lo + hi) >>> 1;
+        double dx = x - xs[mid];
+        double dy = y - ys[mid];
+        count = offer(heap, heapDistances, count, limit, indices[mid], dx * dx + dy * dy);
+        double delta = (depth & 1) == 0 ? dx : dy;
+        /** the far side is visited only if it may contain a point closer than the farthest point found so far */
+        if (delta < 0) {
+            count = nearest(lo, mid, depth + 1, x, y, limit, heap, heapDistances, count);
+            if (count < limit || delta * delta < heapDistances[0])
+                count = nearest(mid + 1, hi, depth + 1, x, y, limit, heap, heapDistances, count);
+        } else {
+            count = nearest(mid + 1, hi, depth + 1, x, y, limit, heap, heapDistances, count);
+            if (count < limit || delta * delta < heapDistances[0])
+                count = nearest(lo, mid, depth + 1, x, y, limit, heap, heapDistances, count);
+        }
+        return count;
+    }
+
+    private void withinRadius(int lo, int hi, int depth, double x, double y, double radius2, IntConsumer consumer) {
+        if (hi - lo <= LEAF_SIZE) {
+            for (int index = lo; index < hi; ++index) {
+                double dx = xs[index] - x;
+                double dy = ys[index] - y;
+                if (dx * dx + dy * dy <= radius2)
+                    consumer.accept(indices[index]);
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double dx = x - xs[mid];
+        double dy = y - ys[mid];
+        if (dx * dx + dy * dy <= radius2)
+            consumer.accept(indices[mid]);
+        double delta = (depth & 1) == 0 ? dx : dy;
+        if (delta <= 0 || delta * delta <= radius2)
+            withinRadius(lo, mid, depth + 1, x, y, radius2, consumer);
+        if (0 <= delta || delta * delta <= radius2)
+            withinRadius(mid + 1, hi, depth + 1, x, y, radius2, consumer);
+    }
+
+    /** @return number of points in the max-heap after the point was offered */
+    private static int offer(int[] heap, double[] heapDistances, int count, int limit, int index, double distance) {
+        if (count < limit) {
+            /** sift up */
+            int child = count;
+            while (0 < child) {
+                int parent = (child - 1) >>> 1;
+                if (heapDistances[parent] >= distance)
+                    break;
+                heap[child] = heap[parent];
+                heapDistances[child] = heapDistances[parent];
+                child = parent;
+            }
+            heap[child] = index;
+            heapDistances[child] = distance;
+            return count + 1;
+        }
+        if (distance < heapDistances[0]) {
+            heap[0] = index;
+            heapDistances[0] = distance;
+            siftDown(heap, heapDistances, 0, count);
+        }
+        return count;
+    }
+
+    private static void siftDown(int[] heap, double[] heapDistances, int parent, int count) {
+        while (true) {
+            int child = 2 * parent + 1;
+            if (count <= child)
+                return;
+            if (child + 1 < count && heapDistances[child] < heapDistances[child + 1])
+                ++child;
+            if (heapDistances[child] <= heapDistances[parent])
+                return;
+            swap(heap, heapDistances, parent, child);
+            parent = child;
+        }
+    }
+
+    private static void swap(int[] heap, double[] heapDistances, int i, int j) {
+        int index = heap[i];
+        heap[i] = heap[j];
+        heap[j] = index;
+        double distance = heapDistances[i];
+        heapDistances[i] = heapDistances[j];
+        heapDistances[j] = distance;
+    }
+
+    /***************************************************/
+    // bulk loading
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= LEAF_SIZE)
+            return;
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, depth & 1);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    /** partial sort of the range [left, right] by the coordinate of the dimension such that
+     * the points before k are not greater and the points after k are not smaller than the point at k */
+    private void select(int left, int right, int k, int dimension) {
+        while (left < right) {
+            double pivot = coordinate(dimension, (left + right) >>> 1);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinate(dimension, i) < pivot)
+                    ++i;
+                while (pivot < coordinate(dimension, j))
+                    --j;
+                if (i <= j)
+                    swap(i++, j--);
+            }
+            if (k <= j)
+                right = j;
+            else //
+            if (i <= k)
+                left = i;
+            else
+                return;
+        }
+    }
+
+    private double coordinate(int dimension, int index) {
+        return dimension == 0 ? xs[index] : ys[index];
+    }
+
+    private void swap(int i, int j) {
+        double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        double y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+        int index = indices[i];
+        indices[i] = indices[j];
+        indices[j] = index;
+    }
+}
@@ -1,23 +1,40 @@
 /* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
 package amodeus.amodeus.util.net;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 
+/** socket for lines of text and for binary frames over the same connection.
+ * A frame consists of the length of the payload as 4 byte big-endian integer followed by the payload.
+ * Lines and frames read from the same buffered input stream, so that switching between both is
+ * possible at any point agreed on by both sides of the connection. */
 public class StringSocket implements AutoCloseable {
+    /** largest payload of a frame in bytes, a larger or negative length indicates a corrupt stream */
+    public static final int MAX_FRAME_LENGTH = 1 << 28;
+    // ---
     private final Socket socket;
     private final PrintWriter writer;
-    private final BufferedReader reader; //
+    private final DataOutputStream output;
+    private final DataInputStream input;
     private volatile boolean launched = true;
+    /** true if the last line ended with '\r', a '\n' that follows belongs to the same line terminator */
+    private boolean skipLF = false;
 
     public StringSocket(final Socket socket) throws Exception {
         this.socket = socket;
         // flush the stream immediately to ensure that constructors for receiving ObjectInputStreams will not block when reading the header
         writer = new PrintWriter(socket.getOutputStream(), true);
         writer.flush();
-        reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
     }
 
     public synchronized void writeln(Object object) throws Exception {
@@ -25,6 +42,21 @@ public class StringSocket implements AutoCloseable {
         writer.flush();
     }
 
+    /** writes the remaining bytes of the buffer as one frame, the stream is flushed once per frame
+     *
+     * @param byteBuffer payload, position and limit of the buffer are not changed */
+    public synchronized void writeFrame(ByteBuffer byteBuffer) throws Exception {
+        output.writeInt(byteBuffer.remaining());
+        if (byteBuffer.hasArray())
+            output.write(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
+        else {
+            byte[] bytes = new byte[byteBuffer.remaining()];
+            byteBuffer.duplicate().get(bytes);
+            output.write(bytes);
+        }
+        output.flush();
+    }
+
     public boolean isConnected() {
         return launched;
     }
@@ -39,8 +71,47 @@ public class StringSocket implements AutoCloseable {
         }
     }
 
+    /** a line is terminated by '\n', '\r' or "\r\n"
+     *
+     * @return line without line terminator, or null if the end of the stream is reached */
     public String readLine() throws Exception {
-        return reader.readLine();
+        skipLineFeed();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int value;
+        while ((value = input.read()) != '\n') {
+            if (value < 0)
+                return line.size() == 0 ? null : line.toString(Charset.defaultCharset().name());
+            if (value == '\r') {
+                /** the next byte is not read here, since the sender may wait for a reply to the line */
+                skipLF = true;
+                break;
+            }
+            line.write(value);
+        }
+        return line.toString(Charset.defaultCharset().name());
+    }
+
+    /** @return payload of the next frame, empty for a frame of length 0
+     * @throws java.io.EOFException if the end of the stream is reached
+     * @throws IOException if the length of the frame is negative or exceeds {@link #MAX_FRAME_LENGTH} */
+    public ByteBuffer readFrame() throws Exception {
+        skipLineFeed();
+        int length = input.readInt();
+        if (length < 0 || MAX_FRAME_LENGTH < length)
+            throw new IOException("invalid frame length " + length);
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    /** consumes the '\n' of a "\r\n" line terminator of the previous line */
+    private void skipLineFeed() throws IOException {
+        if (skipLF) {
+            skipLF = false;
+            input.mark(1);
+            if (input.read() != '\n')
+                input.reset();
+        }
     }
 
 }
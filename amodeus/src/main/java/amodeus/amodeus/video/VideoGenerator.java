@@ -130,12 +130,12 @@ public class VideoGenerator implements Runnable {
 
         StorageUtils storageUtils = new StorageUtils(outputSubDirectory);
         IterationFolder iterationFolder = storageUtils.getAvailableIterations().get(0);
-        // storageSupplier typically has size = 10800
-        StorageSupplier storageSupplier = iterationFolder.storageSupplier();
 
         int count = 0;
         int base = 1;
-        try (SimulationObjectsVideo simulationObjectsVideo = new SimulationObjectsVideo( //
+        // storageSupplier typically has size = 10800
+        try (StorageSupplier storageSupplier = iterationFolder.storageSupplier(); //
+                SimulationObjectsVideo simulationObjectsVideo = new SimulationObjectsVideo( //
                 String.format("%s_%s.mp4", java.time.LocalDate.now(), network.getName()), //
                 resolution, viewerConfig.settings.fps, amodeusComponent //
         )) {
@@ -19,7 +19,6 @@ import amodeus.amodeus.virtualnetwork.core.VirtualNode;
 import amodeus.amodeus.virtualnetwork.core.VirtualNodes;
 import ch.ethz.idsc.tensor.Scalar;
 import ch.ethz.idsc.tensor.Tensor;
-import ch.ethz.idsc.tensor.Tensors;
 
 public class CentroidVirtualNetworkCreator<T, U> extends AbstractVirtualNetworkCreator<T, U> {
 
@@ -50,7 +49,7 @@ public class CentroidVirtualNetworkCreator<T, U> extends AbstractVirtualNetworkC
         }
 
         /** assign every element T to the closest centroid */
-        VNodeAdd.byProximity(vNodeTMap, Tensors.of(xVals.first(), yVals.first()), Tensors.of(xVals.last(), yVals.last()), elements, locationOf);
+        VNodeAdd.byProximity(vNodeTMap, elements, locationOf);
         System.out.println("vNodeTmap size: " + vNodeTMap.size());
 
         /** create */
@@ -39,21 +39,17 @@ public class KMeansVirtualNetworkCreator<T, U> extends AbstractVirtualNetworkCre
      * @param uElements set of elements U and a list of all T they are associated to
      * @param locationOf
      * @param nameOf
-     * @param lbounds
-     * @param ubounds
      * @param numVNodes
      * @param completeGraph */
     public KMeansVirtualNetworkCreator( //
             double data[][], Collection<T> elements, Map<U, Set<T>> uElements, Function<T, Tensor> locationOf, //
-            Function<T, String> nameOf, Tensor lbounds, Tensor ubounds, int numVNodes, boolean completeGraph, //
-            int tryIterations) {
-        virtualNetwork = createVirtualNetwork(data, elements, uElements, locationOf, nameOf, lbounds, ubounds, numVNodes, completeGraph, tryIterations);
+            Function<T, String> nameOf, int numVNodes, boolean completeGraph, int tryIterations) {
+        virtualNetwork = createVirtualNetwork(data, elements, uElements, locationOf, nameOf, numVNodes, completeGraph, tryIterations);
     }
 
     private VirtualNetwork<T> createVirtualNetwork( //
             double data[][], Collection<T> elements, Map<U, Set<T>> uElements, Function<T, Tensor> locationOf, //
-            Function<T, String> nameOf, Tensor lbounds, Tensor ubounds, int numVNodes, boolean completeGraph, //
-            int tryIterations) {
+            Function<T, String> nameOf, int numVNodes, boolean completeGraph, int tryIterations) {
 
         long initSeed = 1;
         int iterations = 0;
@@ -61,7 +57,7 @@ public class KMeansVirtualNetworkCreator<T, U> extends AbstractVirtualNetworkCre
             System.out.println("trying to create K-means virtual network, attempt: " + iterations);
 
             Map<VirtualNode<T>, Set<T>> vNodeTMap = createAssignmentMap(data, elements, uElements, locationOf, nameOf, //
-                    lbounds, ubounds, numVNodes, completeGraph, initSeed);
+                    numVNodes, completeGraph, initSeed);
 
             /** create */
             virtualNetwork = createVirtualNetwork(vNodeTMap, elements, uElements, nameOf, completeGraph);
@@ -78,7 +74,7 @@ public class KMeansVirtualNetworkCreator<T, U> extends AbstractVirtualNetworkCre
 
     private Map<VirtualNode<T>, Set<T>> createAssignmentMap( //
             double data[][], Collection<T> elements, Map<U, Set<T>> uElements, Function<T, Tensor> locationOf, //
-            Function<T, String> nameOf, Tensor lbounds, Tensor ubounds, int numVNodes, boolean completeGraph, long initSeed) {
+            Function<T, String> nameOf, int numVNodes, boolean completeGraph, long initSeed) {
 
         RandomlyGeneratedInitialMeans init = new RandomlyGeneratedInitialMeans(RandomFactory.get(initSeed));
 
@@ -119,7 +115,7 @@ public class KMeansVirtualNetworkCreator<T, U> extends AbstractVirtualNetworkCre
         }
 
         // 2) ASSIGN network links to closest nodes with a quadtree structure
-        VNodeAdd.byProximity(vNMap, lbounds, ubounds, elements, locationOf);
+        VNodeAdd.byProximity(vNMap, elements, locationOf);
         return vNMap;
     }
 
@@ -1,15 +1,14 @@
 /* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
 package amodeus.amodeus.virtualnetwork;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 
-import amodeus.amodeus.util.nd.NdCenterInterface;
-import amodeus.amodeus.util.nd.NdCluster;
-import amodeus.amodeus.util.nd.NdMap;
-import amodeus.amodeus.util.nd.NdTreeMap;
+import amodeus.amodeus.util.nd.KdTree2D;
 import amodeus.amodeus.virtualnetwork.core.VirtualNode;
 import ch.ethz.idsc.tensor.Tensor;
 
@@ -18,20 +17,20 @@ public enum VNodeAdd {
 
     /** Takes @param vNMap and associates all the T in @param elements to the closest key in the map.
      * 
-     * @param lbounds
-     * @param ubounds
-     * @param locationOf */
-    public static <T> void byProximity(Map<VirtualNode<T>, Set<T>> vNMap, //
-            Tensor lbounds, Tensor ubounds, Collection<T> elements, Function<T, Tensor> locationOf) {
-        NdMap<VirtualNode<T>> ndMap = new NdTreeMap<>(lbounds, ubounds, 10, 24);
-        /** add virtual nodes to a NdTree */
-        for (VirtualNode<T> virtualNode : vNMap.keySet())
-            ndMap.add(virtualNode.getCoord(), virtualNode);
+     * @param locationOf 2-dimensional location of the elements */
+    public static <T> void byProximity(Map<VirtualNode<T>, Set<T>> vNMap, Collection<T> elements, Function<T, Tensor> locationOf) {
+        /** add virtual nodes to a k-d tree */
+        List<VirtualNode<T>> virtualNodes = new ArrayList<>(vNMap.keySet());
+        KdTree2D kdTree2D = KdTree2D.of( //
+                virtualNodes.stream().mapToDouble(virtualNode -> virtualNode.getCoord().Get(0).number().doubleValue()).toArray(), //
+                virtualNodes.stream().mapToDouble(virtualNode -> virtualNode.getCoord().Get(1).number().doubleValue()).toArray());
         /** associate link to virtual node based on proximity to voronoi center */
+        int[] closest = new int[1];
+        double[] distance = new double[1];
         for (T t : elements) {
-            NdCluster<VirtualNode<T>> closestNodeC = ndMap.buildCluster(NdCenterInterface.euclidean(locationOf.apply(t)), 1);
-            VirtualNode<T> closestNode = closestNodeC.stream().findAny().get().value();
-            vNMap.get(closestNode).add(t);
+            Tensor location = locationOf.apply(t);
+            kdTree2D.nearest(location.Get(0).number().doubleValue(), location.Get(1).number().doubleValue(), 1, closest, distance);
+            vNMap.get(virtualNodes.get(closest[0])).add(t);
         }
     }
 }
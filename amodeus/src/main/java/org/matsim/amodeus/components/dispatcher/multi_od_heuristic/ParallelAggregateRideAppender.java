@@ -1,12 +1,16 @@
 package org.matsim.amodeus.components.dispatcher.multi_od_heuristic;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
 
+import org.apache.log4j.Logger;
 import org.matsim.amodeus.components.dispatcher.multi_od_heuristic.aggregation.AggregatedRequest;
 import org.matsim.amodeus.config.modal.TimingConfig;
 import org.matsim.amodeus.dvrp.schedule.AmodeusDriveTask;
@@ -15,6 +19,7 @@ import org.matsim.amodeus.dvrp.schedule.AmodeusPickupTask;
 import org.matsim.amodeus.dvrp.schedule.AmodeusStayTask;
 import org.matsim.amodeus.plpc.ParallelLeastCostPathCalculator;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
 import org.matsim.contrib.dvrp.passenger.PassengerRequest;
 import org.matsim.contrib.dvrp.path.VrpPathWithTravelData;
@@ -25,12 +30,28 @@ import org.matsim.contrib.dvrp.schedule.Task;
 import org.matsim.core.router.util.LeastCostPathCalculator.Path;
 import org.matsim.core.router.util.TravelTime;
 
+/** Orders the pickups and dropoffs of an {@link AggregatedRequest} greedily and routes the legs in parallel. All legs
+ * scheduled between two calls of {@link #update()} form one batch in which identical legs, i.e., legs with the same
+ * origin, destination and departure time, are routed only once. In {@link #update()} the schedule of a vehicle is
+ * updated as soon as all of its legs are routed, independently of the legs of the other vehicles. */
 public class ParallelAggregateRideAppender implements AggregateRideAppender {
+    private final static Logger logger = Logger.getLogger(ParallelAggregateRideAppender.class);
+
     final private ParallelLeastCostPathCalculator router;
     final private TravelTime travelTime;
     final private TimingConfig timing;
     final private TravelTimeEstimator travelTimeEstimator;
-    private List<AppendTask> tasks = new LinkedList<>();
+    private List<AppendTask> tasks = new ArrayList<>();
+
+    /** routing of the legs of the current batch by origin, destination and departure time */
+    private final Map<Leg, Future<Path>> batch = new HashMap<>();
+    private int requestedLegs = 0;
+    private long batchStartNanos = 0;
+
+    /** throughput counters over all batches */
+    private long totalRequestedLegs = 0;
+    private long totalRoutedLegs = 0;
+    private long totalRoutingNanos = 0;
 
     public ParallelAggregateRideAppender(TimingConfig timing, ParallelLeastCostPathCalculator router, TravelTime travelTime, TravelTimeEstimator travelTimeEstimator) {
         this.router = router;
@@ -42,130 +63,173 @@ public class ParallelAggregateRideAppender implements AggregateRideAppender {
     private class AppendTask {
         public DvrpVehicle vehicle;
 
-        public List<PassengerRequest> pickupOrder = new LinkedList<>();
-        public List<PassengerRequest> dropoffOrder = new LinkedList<>();
+        public PassengerRequest[] pickupOrder;
+        public PassengerRequest[] dropoffOrder;
 
-        public List<Future<Path>> pickupPaths = new LinkedList<>();
-        public List<Future<Path>> dropoffPaths = new LinkedList<>();
+        /** null entries for legs without driving */
+        public Future<Path>[] pickupPaths;
+        public Future<Path>[] dropoffPaths;
 
         public double time;
+
+        /** @return true if all legs are routed */
+        public boolean isRouted() {
+            return isDone(pickupPaths) && isDone(dropoffPaths);
+        }
+    }
+
+    private static boolean isDone(Future<Path>[] futures) {
+        for (Future<Path> future : futures)
+            if (Objects.nonNull(future) && !future.isDone())
+                return false;
+        return true;
     }
 
-    private class OrderedRequest {
+    private static class Leg {
+        final public Node fromNode;
+        final public Node toNode;
         final public double startTime;
-        final public PassengerRequest request;
 
-        public OrderedRequest(PassengerRequest request, double startTime) {
+        public Leg(Node fromNode, Node toNode, double startTime) {
+            this.fromNode = fromNode;
+            this.toNode = toNode;
             this.startTime = startTime;
-            this.request = request;
         }
-    }
-
-    public void schedule(AggregatedRequest request, DvrpVehicle vehicle, double now) {
-        LinkedList<PassengerRequest> requests = new LinkedList<>();
-        LinkedList<PassengerRequest> pickups = new LinkedList<>();
-        LinkedList<PassengerRequest> dropoffs = new LinkedList<>();
 
-        requests.addAll(request.getSlaveRequests());
-        requests.add(request.getMasterRequest());
-        pickups.addAll(request.getSlaveRequests());
-        pickups.add(request.getMasterRequest());
-        dropoffs.addAll(request.getSlaveRequests());
-        dropoffs.add(request.getMasterRequest());
+        @Override
+        public boolean equals(Object object) {
+            if (object instanceof Leg) {
+                Leg other = (Leg) object;
+                return fromNode.equals(other.fromNode) && toNode.equals(other.toNode) && startTime == other.startTime;
+            }
+            return false;
+        }
 
-        LinkedList<OrderedRequest> pickupOrder = new LinkedList<>();
-        LinkedList<OrderedRequest> dropoffOrder = new LinkedList<>();
+        @Override
+        public int hashCode() {
+            return Objects.hash(fromNode, toNode, startTime);
+        }
+    }
 
-        Schedule schedule = vehicle.getSchedule();
-        AmodeusStayTask stayTask = (AmodeusStayTask) Schedules.getLastTask(schedule);
+    /** @return routing of the leg, shared with identical legs of the current batch */
+    private Future<Path> route(Link fromLink, Link toLink, double startTime) {
+        if (batch.isEmpty())
+            batchStartNanos = System.nanoTime();
+        ++requestedLegs;
+        Node fromNode = fromLink.getToNode();
+        Node toNode = toLink.getFromNode();
+        return batch.computeIfAbsent(new Leg(fromNode, toNode, startTime), //
+                leg -> router.calcLeastCostPath(fromNode, toNode, startTime, null, null));
+    }
 
-        Link currentLink = stayTask.getLink();
-        double currentTime = now;
+    /** Greedy order of the requests, every next request is the one with the shortest estimated travel time from the
+     * previous stop, of requests with equal travel time the first one in the given order.
+     * 
+     * @param stopLinks of the requests
+     * @param startTimes of length stopLinks.length + 1 are filled with the departure time towards each request in the
+     *            returned order and the time after the last stop
+     * @return indices of the requests in the order of visit */
+    private int[] order(Link[] stopLinks, double[] startTimes, Link startLink, double startTime) {
+        int size = stopLinks.length;
+        int[] order = new int[size];
+        boolean[] visited = new boolean[size];
+
+        Link currentLink = startLink;
+        double currentTime = startTime;
 
-        while (pickups.size() > 0) {
-            PassengerRequest closestRequest = null;
+        for (int position = 0; position < size; ++position) {
+            int closest = -1;
             double shortestTravelTime = Double.POSITIVE_INFINITY;
 
-            for (PassengerRequest pickup : pickups) {
-                double travelTime = travelTimeEstimator.estimateTravelTime(currentLink, pickup.getFromLink(), currentTime);
+            for (int index = 0; index < size; ++index)
+                if (!visited[index]) {
+                    double travelTime = travelTimeEstimator.estimateTravelTime(currentLink, stopLinks[index], currentTime);
 
-                if (travelTime < shortestTravelTime) {
-                    closestRequest = pickup;
-                    shortestTravelTime = travelTime;
+                    if (closest < 0 || travelTime < shortestTravelTime) {
+                        closest = index;
+                        shortestTravelTime = travelTime;
+                    }
                 }
-            }
 
-            pickupOrder.add(new OrderedRequest(closestRequest, currentTime));
-            pickups.remove(closestRequest);
+            order[position] = closest;
+            visited[closest] = true;
+            startTimes[position] = currentTime;
 
             currentTime += shortestTravelTime + timing.getDropoffDurationPerPassenger();
 
-            if (!currentLink.equals(closestRequest.getFromLink())) {
+            if (!currentLink.equals(stopLinks[closest])) {
                 currentTime += timing.getMinimumDropoffDurationPerStop();
             }
 
-            currentLink = closestRequest.getFromLink();
+            currentLink = stopLinks[closest];
         }
 
-        while (dropoffs.size() > 0) {
-            PassengerRequest closestRequest = null;
-            double shortestTravelTime = Double.POSITIVE_INFINITY;
-
-            for (PassengerRequest dropoff : dropoffs) {
-                double travelTime = travelTimeEstimator.estimateTravelTime(currentLink, dropoff.getToLink(), currentTime);
-
-                if (travelTime < shortestTravelTime) {
-                    closestRequest = dropoff;
-                    shortestTravelTime = travelTime;
-                }
-            }
+        startTimes[size] = currentTime;
+        return order;
+    }
 
-            dropoffOrder.add(new OrderedRequest(closestRequest, currentTime));
-            dropoffs.remove(closestRequest);
+    @SuppressWarnings("unchecked")
+    public void schedule(AggregatedRequest request, DvrpVehicle vehicle, double now) {
+        int size = request.getSlaveRequests().size() + 1;
+        PassengerRequest[] requests = new PassengerRequest[size];
+        int count = 0;
+        for (PassengerRequest slave : request.getSlaveRequests())
+            requests[count++] = slave;
+        requests[count] = request.getMasterRequest();
+
+        Link[] fromLinks = new Link[size];
+        Link[] toLinks = new Link[size];
+        for (int index = 0; index < size; ++index) {
+            fromLinks[index] = requests[index].getFromLink();
+            toLinks[index] = requests[index].getToLink();
+        }
 
-            currentTime += shortestTravelTime + timing.getDropoffDurationPerPassenger();
+        Schedule schedule = vehicle.getSchedule();
+        AmodeusStayTask stayTask = (AmodeusStayTask) Schedules.getLastTask(schedule);
 
-            if (!currentLink.equals(closestRequest.getToLink())) {
-                currentTime += timing.getMinimumDropoffDurationPerStop();
-            }
+        double[] pickupStartTimes = new double[size + 1];
+        double[] dropoffStartTimes = new double[size + 1];
 
-            currentLink = closestRequest.getToLink();
-        }
+        int[] pickupOrder = order(fromLinks, pickupStartTimes, stayTask.getLink(), now);
+        int[] dropoffOrder = order(toLinks, dropoffStartTimes, fromLinks[pickupOrder[size - 1]], pickupStartTimes[size]);
 
         AppendTask appendTask = new AppendTask();
         appendTask.vehicle = vehicle;
         appendTask.time = now;
 
-        appendTask.pickupOrder = pickupOrder.stream().map(o -> o.request).collect(Collectors.toList());
-        appendTask.dropoffOrder = dropoffOrder.stream().map(o -> o.request).collect(Collectors.toList());
+        appendTask.pickupOrder = new PassengerRequest[size];
+        appendTask.dropoffOrder = new PassengerRequest[size];
+        appendTask.pickupPaths = new Future[size];
+        appendTask.dropoffPaths = new Future[size];
 
         // All elements are ordered... now schedule the routing
 
-        currentTime = now;
-        currentLink = stayTask.getLink();
+        Link currentLink = stayTask.getLink();
 
-        for (OrderedRequest pickup : pickupOrder) {
-            if (!pickup.request.getFromLink().equals(currentLink)) {
-                appendTask.pickupPaths.add(router.calcLeastCostPath(currentLink.getToNode(), pickup.request.getFromLink().getFromNode(), pickup.startTime, null, null));
-                currentLink = pickup.request.getFromLink();
-            } else {
-                appendTask.pickupPaths.add(null);
+        for (int position = 0; position < size; ++position) {
+            PassengerRequest pickup = requests[pickupOrder[position]];
+            appendTask.pickupOrder[position] = pickup;
+
+            if (!pickup.getFromLink().equals(currentLink)) {
+                appendTask.pickupPaths[position] = route(currentLink, pickup.getFromLink(), pickupStartTimes[position]);
+                currentLink = pickup.getFromLink();
             }
         }
 
-        for (OrderedRequest dropoff : dropoffOrder) {
-            if (!dropoff.request.getToLink().equals(currentLink)) {
-                appendTask.dropoffPaths.add(router.calcLeastCostPath(currentLink.getToNode(), dropoff.request.getToLink().getFromNode(), dropoff.startTime, null, null));
-                currentLink = dropoff.request.getToLink();
-            } else {
-                appendTask.dropoffPaths.add(null);
+        for (int position = 0; position < size; ++position) {
+            PassengerRequest dropoff = requests[dropoffOrder[position]];
+            appendTask.dropoffOrder[position] = dropoff;
+
+            if (!dropoff.getToLink().equals(currentLink)) {
+                appendTask.dropoffPaths[position] = route(currentLink, dropoff.getToLink(), dropoffStartTimes[position]);
+                currentLink = dropoff.getToLink();
             }
         }
 
         tasks.add(appendTask);
     }
 
-    public void schedule(AppendTask appendTask, List<Path> plainPickupPaths, List<Path> plainDropoffPaths) {
+    private void schedule(AppendTask appendTask) throws InterruptedException, ExecutionException {
         Schedule schedule = appendTask.vehicle.getSchedule();
         AmodeusStayTask stayTask = (AmodeusStayTask) Schedules.getLastTask(schedule);
 
@@ -189,11 +253,9 @@ public class ParallelAggregateRideAppender implements AggregateRideAppender {
         LinkedList<VrpPathWithTravelData> paths = new LinkedList<>();
         LinkedList<AmodeusDriveTask> driveTasks = new LinkedList<>();
 
-        Iterator<Path> pickupPathIterator = plainPickupPaths.iterator();
-        Iterator<Path> dropoffPathIterator = plainDropoffPaths.iterator();
-
-        for (PassengerRequest pickup : appendTask.pickupOrder) {
-            Path plainPickupPath = pickupPathIterator.next();
+        for (int position = 0; position < appendTask.pickupOrder.length; ++position) {
+            PassengerRequest pickup = appendTask.pickupOrder[position];
+            Path plainPickupPath = appendTask.pickupPaths[position] == null ? null : appendTask.pickupPaths[position].get();
 
             if (plainPickupPath != null) {
                 VrpPathWithTravelData path = VrpPaths.createPath(currentLink, pickup.getFromLink(), currentTime, plainPickupPath, travelTime);
@@ -223,8 +285,9 @@ public class ParallelAggregateRideAppender implements AggregateRideAppender {
             }
         }
 
-        for (PassengerRequest dropoff : appendTask.dropoffOrder) {
-            Path plainDropoffPath = dropoffPathIterator.next();
+        for (int position = 0; position < appendTask.dropoffOrder.length; ++position) {
+            PassengerRequest dropoff = appendTask.dropoffOrder[position];
+            Path plainDropoffPath = appendTask.dropoffPaths[position] == null ? null : appendTask.dropoffPaths[position].get();
 
             if (plainDropoffPath != null) {
                 VrpPathWithTravelData path = VrpPaths.createPath(currentLink, dropoff.getToLink(), currentTime, plainDropoffPath, travelTime);
@@ -260,24 +323,52 @@ public class ParallelAggregateRideAppender implements AggregateRideAppender {
 
     public void update() {
         try {
-            for (AppendTask task : tasks) {
-                List<Path> plainPickupTasks = new LinkedList<>();
-                List<Path> plainDropoffTasks = new LinkedList<>();
-
-                for (Future<Path> future : task.pickupPaths) {
-                    plainPickupTasks.add(future == null ? null : future.get());
+            /** the schedule of a vehicle is updated as soon as all its legs are routed, if none is ready, wait for the
+             * routing of the first pending vehicle */
+            List<AppendTask> pending = new LinkedList<>(tasks);
+            while (!pending.isEmpty()) {
+                boolean scheduled = false;
+                Iterator<AppendTask> iterator = pending.iterator();
+                while (iterator.hasNext()) {
+                    AppendTask task = iterator.next();
+                    if (task.isRouted()) {
+                        schedule(task);
+                        iterator.remove();
+                        scheduled = true;
+                    }
                 }
-
-                for (Future<Path> future : task.dropoffPaths) {
-                    plainDropoffTasks.add(future == null ? null : future.get());
+                if (!scheduled) {
+                    AppendTask task = pending.remove(0);
+                    schedule(task);
                 }
-
-                schedule(task, plainPickupTasks, plainDropoffTasks);
             }
 
             tasks.clear();
         } catch (ExecutionException | InterruptedException e) {
             throw new RuntimeException(e);
         }
+
+        if (!batch.isEmpty()) {
+            long routingNanos = System.nanoTime() - batchStartNanos;
+            totalRequestedLegs += requestedLegs;
+            totalRoutedLegs += batch.size();
+            totalRoutingNanos += routingNanos;
+            logger.info(String.format("Routed %d of %d legs (dedup ratio %.3f) in %.1f ms, %.1f legs/s, total %.1f legs/s", //
+                    batch.size(), requestedLegs, batch.size() / (double) requestedLegs, routingNanos * 1e-6, //
+                    batch.size() / (routingNanos * 1e-9), getRoutedLegsPerSecond()));
+            batch.clear();
+            requestedLegs = 0;
+        }
+    }
+
+    /** @return number of legs routed over all batches per second from the first submission until all paths of a batch
+     *         were collected */
+    public double getRoutedLegsPerSecond() {
+        return totalRoutedLegs / (totalRoutingNanos * 1e-9);
+    }
+
+    /** @return ratio of the number of legs routed and the number of legs requested over all batches */
+    public double getDedupRatio() {
+        return totalRoutedLegs / (double) totalRequestedLegs;
     }
 }
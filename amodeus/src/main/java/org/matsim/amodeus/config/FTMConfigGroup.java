@@ -13,6 +13,11 @@ public class FTMConfigGroup extends ReflectiveConfigGroup {
         NTNR
     }
 
+    public enum RebalancingSolverType {
+        GUROBI,
+        GLPK
+    }
+
     static public final String GROUP_NAME = "ftm_simulation";
 
     static public final String REBALANCING_PERIOD_SECONDS = "rebalancingPeriodSeconds";
@@ -35,6 +40,8 @@ public class FTMConfigGroup extends ReflectiveConfigGroup {
     static public final String AIRPORT_PICKUPS = "airportPickups";
     static public final String ALPHA = "alpha";
     static public final String LAMBDA = "lambda";
+    static public final String REBALANCING_RADIUS_SECONDS = "rebalancingRadiusSeconds";
+    static public final String REBALANCING_SOLVER = "rebalancingSolver";
 
     private int rebalancingPeriodSeconds = 20 * 60;
     private int dispatchingPeriodSeconds = 10;
@@ -57,6 +64,8 @@ public class FTMConfigGroup extends ReflectiveConfigGroup {
 
     private double alpha = 0.1855;
     private double lambda= 12.26;
+    private int rebalancingRadiusSeconds = 0; // 0: rebalancing variables for all pairs of cells
+    private RebalancingSolverType rebalancingSolver = RebalancingSolverType.GUROBI;
 
 
     private final FTMRevenueConfig ftmRevenueConfig = new FTMRevenueConfig();
@@ -336,6 +345,45 @@ public class FTMConfigGroup extends ReflectiveConfigGroup {
         this.lambda = lambda;
     }
 
+    /**
+     * @return free speed travel time in s, the rebalancing LP only contains variables for rebalancing between cells
+     * within this radius, 0 if the LP contains variables for all pairs of cells
+     */
+    @StringGetter(REBALANCING_RADIUS_SECONDS)
+    public int getRebalancingRadiusSeconds() {
+        return rebalancingRadiusSeconds;
+    }
+
+    @StringSetter(REBALANCING_RADIUS_SECONDS)
+    public void setRebalancingRadiusSeconds(int rebalancingRadiusSeconds) {
+        this.rebalancingRadiusSeconds = rebalancingRadiusSeconds;
+    }
+
+    @StringGetter(REBALANCING_SOLVER)
+    public String getRebalancingSolverAsString() {
+        return rebalancingSolver.toString();
+    }
+
+    /** @return solver of the rebalancing LP, GLPK does not require a license */
+    public RebalancingSolverType getRebalancingSolver() {
+        return rebalancingSolver;
+    }
+
+    @StringSetter(REBALANCING_SOLVER)
+    public void setRebalancingSolver(String rebalancingSolver) {
+        switch (rebalancingSolver) {
+            case "GUROBI":
+                this.rebalancingSolver = RebalancingSolverType.GUROBI;
+                break;
+            case "GLPK":
+                this.rebalancingSolver = RebalancingSolverType.GLPK;
+                break;
+            default:
+                System.err.println("Invalid rebalancing solver in FTMConfigGroup. Will use GUROBI.");
+                this.rebalancingSolver = RebalancingSolverType.GUROBI;
+        }
+    }
+
 
 
 }
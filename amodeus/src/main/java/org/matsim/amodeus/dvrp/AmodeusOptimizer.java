@@ -13,13 +13,15 @@ import org.matsim.contrib.dvrp.schedule.Schedules;
 import org.matsim.contrib.dvrp.schedule.Task;
 import org.matsim.contrib.dvrp.tracker.OnlineTrackerListener;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.mobsim.framework.events.MobsimBeforeCleanupEvent;
 import org.matsim.core.mobsim.framework.events.MobsimBeforeSimStepEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimBeforeCleanupListener;
 import org.matsim.core.mobsim.framework.listeners.MobsimBeforeSimStepListener;
 
 import com.google.inject.Singleton;
 
 @Singleton
-public class AmodeusOptimizer implements VrpOptimizer, OnlineTrackerListener, MobsimBeforeSimStepListener {
+public class AmodeusOptimizer implements VrpOptimizer, OnlineTrackerListener, MobsimBeforeSimStepListener, MobsimBeforeCleanupListener {
     private double now;
 
     private EventsManager eventsManager;
@@ -119,6 +121,19 @@ public class AmodeusOptimizer implements VrpOptimizer, OnlineTrackerListener, Mo
         dispatcher.onNextTimestep(now);
     }
 
+    /** dispatchers that hold resources, e.g., the writer of the recording, release them at the end of the mobsim */
+    @Override
+    public void notifyMobsimBeforeCleanup(@SuppressWarnings("rawtypes") MobsimBeforeCleanupEvent e) {
+        if (dispatcher instanceof AutoCloseable)
+            synchronized (dispatcher) {
+                try {
+                    ((AutoCloseable) dispatcher).close();
+                } catch (Exception exception) {
+                    throw new RuntimeException(exception);
+                }
+            }
+    }
+
     @Override
     public void vehicleEnteredNextLink(DvrpVehicle vehicle, Link nextLink) {
 
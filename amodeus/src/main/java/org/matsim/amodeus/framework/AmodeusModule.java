@@ -40,6 +40,7 @@ import amodeus.amodeus.matsim.DispatcherModule;
 import amodeus.amodeus.matsim.GeneratorModule;
 import amodeus.amodeus.matsim.RouterModule;
 import amodeus.amodeus.net.MatsimAmodeusDatabase;
+import amodeus.amodeus.net.SimulationDistributionListener;
 import amodeus.amodeus.options.ScenarioOptions;
 import amodeus.amodeus.options.ScenarioOptionsBase;
 
@@ -80,6 +81,7 @@ public class AmodeusModule extends AbstractModule {
 
         install(new CompatibilityModule());
         addControlerListenerBinding().to(MatsimAmodeusDatabase.class);
+        addControlerListenerBinding().to(SimulationDistributionListener.class);
     }
 
     @Provides
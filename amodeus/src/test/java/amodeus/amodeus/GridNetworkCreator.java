@@ -0,0 +1,59 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus;
+
+import java.util.function.ToDoubleBiFunction;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+
+/** square grid with links in both directions between neighboring nodes, every link is as long as the spacing of the
+ * nodes. The node at column i and row j has id "i_j" and coordinate (i * spacing, j * spacing), the link from node
+ * "i_j" to node "k_l" has id "i_j_k_l". */
+public enum GridNetworkCreator {
+    ;
+    private static final double CAPACITY = 1000;
+    private static final double LANES = 1;
+
+    /** @param size number of nodes per row and column
+     * @param spacing distance between neighboring nodes
+     * @param freespeed of all links */
+    public static Network create(int size, double spacing, double freespeed) {
+        return create(size, spacing, (i, j) -> freespeed);
+    }
+
+    /** @param size number of nodes per row and column
+     * @param spacing distance between neighboring nodes
+     * @param freespeed of the links in both directions from the node at column i and row j to its neighbors at column i + 1
+     *            and at row j + 1 */
+    public static Network create(int size, double spacing, ToDoubleBiFunction<Integer, Integer> freespeed) {
+        Network network = NetworkUtils.createNetwork();
+        Node[][] nodes = new Node[size][size];
+        for (int i = 0; i < size; ++i)
+            for (int j = 0; j < size; ++j) {
+                nodes[i][j] = NetworkUtils.createNode(Id.createNodeId(i + "_" + j), new Coord(i * spacing, j * spacing));
+                network.addNode(nodes[i][j]);
+            }
+        for (int i = 0; i < size; ++i)
+            for (int j = 0; j < size; ++j) {
+                double speed = freespeed.applyAsDouble(i, j);
+                if (i + 1 < size) {
+                    addLink(network, nodes[i][j], nodes[i + 1][j], spacing, speed);
+                    addLink(network, nodes[i + 1][j], nodes[i][j], spacing, speed);
+                }
+                if (j + 1 < size) {
+                    addLink(network, nodes[i][j], nodes[i][j + 1], spacing, speed);
+                    addLink(network, nodes[i][j + 1], nodes[i][j], spacing, speed);
+                }
+            }
+        return network;
+    }
+
+    private static void addLink(Network network, Node fromNode, Node toNode, double length, double freespeed) {
+        Id<Link> id = Id.createLinkId(fromNode.getId() + "_" + toNode.getId());
+        network.addLink(NetworkUtils.createLink(id, fromNode, toNode, network, length, freespeed, CAPACITY, LANES));
+    }
+}
@@ -0,0 +1,161 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import amodeus.amodeus.analysis.element.AnalysisElement;
+import amodeus.amodeus.net.SimulationObject;
+import amodeus.amodeus.net.StorageSupplier;
+import amodeus.amodeus.net.StubStorageSupplier;
+import junit.framework.TestCase;
+
+public class AnalysisEngineTest extends TestCase {
+    private static final int SIZE = 300;
+
+    /** records the times of the registered objects, and the objects that the given elements had not seen before */
+    private static class RecordingElement implements AnalysisElement {
+        private final boolean independent;
+        private final List<RecordingElement> before;
+        private final Set<SimulationObject> seen = ConcurrentHashMap.newKeySet();
+        private final List<Long> times = new ArrayList<>();
+        private final List<Long> unseenBefore = new ArrayList<>();
+
+        private RecordingElement(boolean independent, List<RecordingElement> before) {
+            this.independent = independent;
+            this.before = before;
+        }
+
+        @Override
+        public void register(SimulationObject simulationObject) {
+            for (RecordingElement recordingElement : before)
+                if (!recordingElement.seen.contains(simulationObject))
+                    unseenBefore.add(simulationObject.now);
+            times.add(simulationObject.now);
+            seen.add(simulationObject);
+        }
+
+        @Override
+        public boolean isIndependent() {
+            return independent;
+        }
+    }
+
+    /** decoding is slower for some objects such that the objects are decoded out of order */
+    private static StorageSupplier storageSupplier() {
+        return new StubStorageSupplier(SIZE, index -> {
+            try {
+                Thread.sleep(index % 3);
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return StubStorageSupplier.simulationObject(index);
+        });
+    }
+
+    private static void run(StorageSupplier storageSupplier, List<AnalysisElement> analysisElements) throws Exception {
+        /** a failure has to be propagated by run instead of blocking the analysis */
+        CompletableFuture<Void> completableFuture = CompletableFuture.runAsync(() -> {
+            try {
+                new AnalysisEngine(storageSupplier, analysisElements, 4, 8).run();
+            } catch (Exception exception) {
+                throw new RuntimeException(exception);
+            }
+        });
+        try {
+            completableFuture.get(60, TimeUnit.SECONDS);
+        } catch (ExecutionException executionException) {
+            throw (Exception) executionException.getCause().getCause();
+        }
+    }
+
+    public void testOrder() throws Exception {
+        RecordingElement dependent0 = new RecordingElement(false, List.of());
+        RecordingElement dependent1 = new RecordingElement(false, List.of(dependent0));
+        List<RecordingElement> dependents = List.of(dependent0, dependent1);
+        List<RecordingElement> independents = new ArrayList<>();
+        for (int index = 0; index < 3; ++index)
+            independents.add(new RecordingElement(true, dependents));
+        List<AnalysisElement> analysisElements = new ArrayList<>();
+        analysisElements.add(independents.get(0));
+        analysisElements.add(dependent0);
+        analysisElements.add(independents.get(1));
+        analysisElements.add(dependent1);
+        analysisElements.add(independents.get(2));
+        run(storageSupplier(), analysisElements);
+
+        /** every element receives every object in time order, the dependent elements in the order in which they were
+         * added and before every independent element */
+        List<Long> expected = new ArrayList<>();
+        for (int index = 0; index < SIZE; ++index)
+            expected.add(StubStorageSupplier.simulationObject(index).now);
+        for (AnalysisElement analysisElement : analysisElements) {
+            RecordingElement recordingElement = (RecordingElement) analysisElement;
+            assertEquals(expected, recordingElement.times);
+            assertTrue(recordingElement.unseenBefore.isEmpty());
+        }
+    }
+
+    public void testIndependentFailure() {
+        AnalysisElement failing = new RecordingElement(true, List.of()) {
+            @Override
+            public void register(SimulationObject simulationObject) {
+                if (simulationObject.now == 1000)
+                    throw new IllegalStateException("independent");
+                super.register(simulationObject);
+            }
+        };
+        List<AnalysisElement> analysisElements = List.of(new RecordingElement(false, List.of()), failing, new RecordingElement(true, List.of()));
+        try {
+            run(storageSupplier(), analysisElements);
+            fail();
+        } catch (Exception exception) {
+            assertTrue(exception instanceof IllegalStateException);
+            assertEquals("independent", exception.getMessage());
+        }
+    }
+
+    public void testDependentFailure() {
+        Map<Long, Long> registered = new ConcurrentHashMap<>();
+        AnalysisElement failing = simulationObject -> {
+            if (simulationObject.now == 1000)
+                throw new IllegalStateException("dependent");
+        };
+        AnalysisElement independent = new RecordingElement(true, List.of()) {
+            @Override
+            public void register(SimulationObject simulationObject) {
+                registered.put(simulationObject.now, simulationObject.now);
+            }
+        };
+        try {
+            run(storageSupplier(), List.of(failing, independent));
+            fail();
+        } catch (Exception exception) {
+            assertTrue(exception instanceof IllegalStateException);
+            assertEquals("dependent", exception.getMessage());
+        }
+        /** the independent elements do not receive the object on which a dependent element failed */
+        assertFalse(registered.containsKey(1000L));
+    }
+
+    public void testDecodeFailure() {
+        StorageSupplier storageSupplier = new StubStorageSupplier(SIZE, index -> {
+            if (index == 100)
+                throw new IllegalArgumentException("decode");
+            return StubStorageSupplier.simulationObject(index);
+        });
+        try {
+            run(storageSupplier, List.of(new RecordingElement(false, List.of()), new RecordingElement(true, List.of())));
+            fail();
+        } catch (Exception exception) {
+            assertTrue(exception instanceof IllegalArgumentException);
+            assertEquals("decode", exception.getMessage());
+        }
+    }
+}
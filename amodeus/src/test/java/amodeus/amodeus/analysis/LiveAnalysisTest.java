@@ -0,0 +1,71 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.analysis;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+
+import amodeus.amodeus.analysis.element.AnalysisElement;
+import amodeus.amodeus.net.BackPressurePolicy;
+import amodeus.amodeus.net.SimulationDistributionPipeline;
+import amodeus.amodeus.net.SimulationObject;
+import amodeus.amodeus.net.StorageFormat;
+import amodeus.amodeus.net.StorageUtils;
+import junit.framework.TestCase;
+
+public class LiveAnalysisTest extends TestCase {
+    private static class CountingElement implements AnalysisElement {
+        final List<Long> registered = new ArrayList<>();
+        int consolidated = 0;
+
+        @Override
+        public void register(SimulationObject simulationObject) {
+            registered.add(simulationObject.now);
+        }
+
+        @Override
+        public void consolidate() {
+            ++consolidated;
+        }
+    }
+
+    public void testWithoutStorage() throws Exception {
+        File output = Files.createTempDirectory("live").toFile();
+        CountingElement countingElement = new CountingElement();
+        LiveAnalysis liveAnalysis = LiveAnalysis.subscribe(countingElement);
+        try {
+            StorageUtils storageUtils = new StorageUtils(output, StorageFormat.NONE);
+            SimulationDistributionPipeline simulationDistributionPipeline = //
+                    new SimulationDistributionPipeline(storageUtils, 4, 3, BackPressurePolicy.DROP_OLDEST);
+            for (int now = 10; now <= 100; now += 10) {
+                SimulationObject simulationObject = new SimulationObject();
+                simulationObject.now = now;
+                simulationObject.vehicles = new ArrayList<>();
+                simulationDistributionPipeline.submit(simulationObject);
+            }
+            SimulationDistributionPipeline.closeAll();
+            liveAnalysis.close();
+            liveAnalysis.close();
+            assertEquals(10, liveAnalysis.getRegistered());
+            assertEquals(10, countingElement.registered.size());
+            assertEquals(100, countingElement.registered.get(9).longValue());
+            assertEquals(1, countingElement.consolidated);
+            assertTrue(storageUtils.getFirstAvailableIteration().isEmpty());
+        } finally {
+            liveAnalysis.close();
+            FileUtils.deleteDirectory(output);
+        }
+    }
+
+    /** elements are not consolidated if no simulation object was registered */
+    public void testNothingRegistered() {
+        CountingElement countingElement = new CountingElement();
+        LiveAnalysis liveAnalysis = LiveAnalysis.subscribe(countingElement);
+        liveAnalysis.close();
+        assertEquals(0, liveAnalysis.getRegistered());
+        assertEquals(0, countingElement.consolidated);
+    }
+}
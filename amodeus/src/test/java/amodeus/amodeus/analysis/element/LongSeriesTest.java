@@ -0,0 +1,62 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.analysis.element;
+
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import ch.ethz.idsc.tensor.RealScalar;
+import ch.ethz.idsc.tensor.Tensor;
+import ch.ethz.idsc.tensor.Tensors;
+import junit.framework.TestCase;
+
+public class LongSeriesTest extends TestCase {
+    public void testEmpty() {
+        LongSeries longSeries = new LongSeries();
+        assertEquals(0, longSeries.size());
+        assertEquals(0, longSeries.stream().count());
+        assertEquals(Tensors.empty(), longSeries.toTensor());
+        try {
+            longSeries.get(0);
+            fail();
+        } catch (IndexOutOfBoundsException indexOutOfBoundsException) {
+            // ---
+        }
+    }
+
+    /** the capacity grows beyond the initial capacity without losing values */
+    public void testGrowth() {
+        LongSeries longSeries = new LongSeries(0);
+        for (long value = 0; value < 1000; ++value)
+            longSeries.append(3 * value - 7);
+        assertEquals(1000, longSeries.size());
+        for (int index = 0; index < 1000; ++index)
+            assertEquals(3L * index - 7, longSeries.get(index));
+        assertEquals(LongStream.range(0, 1000).map(value -> 3 * value - 7).boxed().collect(Collectors.toList()), //
+                longSeries.stream().boxed().collect(Collectors.toList()));
+        try {
+            longSeries.get(1000);
+            fail();
+        } catch (IndexOutOfBoundsException indexOutOfBoundsException) {
+            // ---
+        }
+    }
+
+    /** the tensor equals the one of appending exact scalars, also for values beyond the range of int */
+    public void testToTensor() {
+        LongSeries longSeries = new LongSeries(2);
+        Tensor expected = Tensors.empty();
+        for (long value : new long[] { 10, 20, -5, 0, Long.MAX_VALUE, Long.MIN_VALUE }) {
+            longSeries.append(value);
+            expected.append(RealScalar.of(value));
+        }
+        Tensor tensor = longSeries.toTensor();
+        assertEquals(expected, tensor);
+        assertEquals(Tensors.vector(10, 20, -5, 0), tensor.extract(0, 4));
+        assertEquals(Long.MAX_VALUE, tensor.Get(4).number().longValue());
+        assertEquals(Long.MIN_VALUE, tensor.Get(5).number().longValue());
+        /** the series is not changed by the tensor */
+        longSeries.append(30);
+        assertEquals(6, tensor.length());
+        assertEquals(7, longSeries.size());
+    }
+}
@@ -0,0 +1,74 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.core;
+
+import junit.framework.TestCase;
+
+public class RequestRoboTaxiRegisterTest extends TestCase {
+    public void testBidirectional() {
+        ArtificialSharedScenarioCreator s = new ArtificialSharedScenarioCreator();
+        RequestRoboTaxiRegister register = new RequestRoboTaxiRegister();
+        assertNull(register.put(s.avRequest1, s.roboTaxi1));
+        assertEquals(s.roboTaxi1, register.get(s.avRequest1));
+        assertEquals(s.avRequest1, register.get(s.roboTaxi1));
+        assertTrue(register.contains(s.roboTaxi1));
+        assertFalse(register.contains(s.roboTaxi2));
+
+        /** roboTaxi1 is reassigned after the pair of avRequest1 is removed */
+        assertEquals(s.avRequest1, register.remove(s.roboTaxi1));
+        assertNull(register.put(s.avRequest2, s.roboTaxi1));
+        assertFalse(register.contains(s.avRequest1));
+        assertEquals(s.avRequest2, register.get(s.roboTaxi1));
+        assertEquals(1, register.size());
+
+        /** reassignment of avRequest2 removes the pair of roboTaxi1 */
+        assertEquals(s.roboTaxi1, register.put(s.avRequest2, s.roboTaxi2));
+        assertFalse(register.contains(s.roboTaxi1));
+        assertEquals(s.avRequest2, register.get(s.roboTaxi2));
+        assertEquals(1, register.size());
+        assertTrue(register.isConsistent());
+    }
+
+    public void testRemove() {
+        ArtificialSharedScenarioCreator s = new ArtificialSharedScenarioCreator();
+        RequestRoboTaxiRegister register = new RequestRoboTaxiRegister();
+        register.put(s.avRequest1, s.roboTaxi1);
+        register.put(s.avRequest2, s.roboTaxi2);
+        assertEquals(s.roboTaxi1, register.remove(s.avRequest1));
+        assertFalse(register.contains(s.roboTaxi1));
+        assertNull(register.remove(s.avRequest1));
+        assertEquals(s.avRequest2, register.remove(s.roboTaxi2));
+        assertFalse(register.contains(s.avRequest2));
+        assertEquals(0, register.size());
+        assertTrue(register.getInverseMap().isEmpty());
+        assertTrue(register.isConsistent());
+    }
+
+    public void testUnmodifiable() {
+        ArtificialSharedScenarioCreator s = new ArtificialSharedScenarioCreator();
+        RequestRoboTaxiRegister register = new RequestRoboTaxiRegister();
+        register.put(s.avRequest1, s.roboTaxi1);
+        try {
+            register.getMap().remove(s.avRequest1);
+            fail();
+        } catch (Exception exception) {
+            // ---
+        }
+        assertTrue(register.isConsistent());
+    }
+
+    /** a {@link RoboTaxi} that is associated to a request is not silently reassigned */
+    public void testRoboTaxiAssociated() {
+        ArtificialSharedScenarioCreator s = new ArtificialSharedScenarioCreator();
+        RequestRoboTaxiRegister register = new RequestRoboTaxiRegister();
+        register.put(s.avRequest1, s.roboTaxi1);
+        try {
+            register.put(s.avRequest2, s.roboTaxi1);
+            fail();
+        } catch (IllegalStateException illegalStateException) {
+            // ---
+        }
+        assertEquals(s.avRequest1, register.get(s.roboTaxi1));
+        assertFalse(register.contains(s.avRequest2));
+        assertTrue(register.isConsistent());
+    }
+}
@@ -25,7 +25,7 @@ import amodeus.amodeus.dispatcher.shared.SharedCourse;
 import amodeus.amodeus.dispatcher.shared.SharedCourseAccess;
 import amodeus.amodeus.util.math.GlobalAssert;
 
-/* package */ enum StaticRoboTaxiCreator {
+public enum StaticRoboTaxiCreator {
     ;
 
     private static final int seats = 100; // just a large number as we are not testing capacity with that
@@ -36,13 +36,19 @@ import amodeus.amodeus.util.math.GlobalAssert;
     /** @param divertableLink
      * @param vehicleLinkin if null the link from Divertable link is taken
      * @return */
-    /* package */ static RoboTaxi createStayingRoboTaxi(Link divertableLink, Link vehicleLinkin) {
+    public static RoboTaxi createStayingRoboTaxi(Link divertableLink, Link vehicleLinkin) {
         Link vehicleLink = vehicleLinkin == null ? divertableLink : vehicleLinkin;
         RoboTaxi roboTaxi = createRoboTaxi(divertableLink, vehicleLink);
         setFirstTaskStay(roboTaxi, vehicleLink);
         return roboTaxi;
     }
 
+    /** appends the pickup and dropoff of @param avRequest to the menu of @param roboTaxi as
+     * the dispatchers do when a request is assigned */
+    public static void addPassengerRequestToMenu(RoboTaxi roboTaxi, PassengerRequest avRequest) {
+        roboTaxi.addPassengerRequestToMenu(avRequest);
+    }
+
     private static void setFirstTaskStay(RoboTaxi roboTaxi, Link link) {
         Schedule schedule = roboTaxi.getSchedule();
         schedule.addTask(new AmodeusStayTask(0.0, Double.POSITIVE_INFINITY, link));
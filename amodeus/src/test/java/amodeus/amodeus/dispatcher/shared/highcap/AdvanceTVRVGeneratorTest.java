@@ -0,0 +1,207 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.highcap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.matsim.amodeus.config.AmodeusModeConfig;
+import org.matsim.amodeus.dvrp.request.AmodeusRequest;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.contrib.dvrp.optimizer.Request;
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+import amodeus.amodeus.GridNetworkCreator;
+import amodeus.amodeus.dispatcher.core.RoboTaxi;
+import amodeus.amodeus.dispatcher.core.StaticRoboTaxiCreator;
+import amodeus.amodeus.routing.EasyMinTimePathCalculator;
+import junit.framework.TestCase;
+
+public class AdvanceTVRVGeneratorTest extends TestCase {
+    private static final int GRID = 21;
+    private static final double SPACING = 200;
+    private static final double PICKUP_DURATION = 15;
+    private static final double DROPOFF_DURATION = 10;
+    /** short enough that the pickup locations of many pairs of requests are too far apart */
+    private static final double MAX_WAIT_TIME = 150;
+    private static final double MAX_DELAY = 300;
+    private static final int REQUESTS_PER_PERIOD = 60;
+    private static final int FLEET_SIZE = 30;
+    private static final int CAPACITY = 3;
+    private static final double VALIDITY_PERIOD = 900;
+    /** constant within every validity period, in the first period the fast links are traversed at twice their free speed */
+    private static final TravelTime CONGESTED_TRAVEL_TIME = new TravelTime() {
+        @Override
+        public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+            double speed = link.getFreespeed() * (time < VALIDITY_PERIOD && 10 < link.getFreespeed() ? 2 : 0.8);
+            return link.getLength() / speed;
+        }
+    };
+
+    /** the RV and RTV graphs generated with several threads are identical to the graphs generated in the calling thread */
+    public void testParallelism() {
+        Network network = GridNetworkCreator.create(GRID, SPACING, (i, j) -> i % 5 == 0 || j % 5 == 0 ? 16.67 : 8.33);
+        List<Link> links = new ArrayList<>(network.getLinks().values());
+        List<Set<PassengerRequest>> periods = periods(links, new Random(1));
+        Random random = new Random(2);
+        List<RoboTaxi> roboTaxis = new ArrayList<>();
+        for (int index = 0; index < FLEET_SIZE; ++index)
+            roboTaxis.add(StaticRoboTaxiCreator.createStayingRoboTaxi(links.get(random.nextInt(links.size())), null));
+
+        Run serial = new Run(travelTimeComputation(network), new TravelTimeLowerBound(network, EasyMinTimePathCalculator.TRAVEL_DISUTILITY), 1);
+        Run parallel = new Run(travelTimeComputation(network), new TravelTimeLowerBound(network, EasyMinTimePathCalculator.TRAVEL_DISUTILITY), 4);
+        for (int period = 0; period < periods.size(); ++period) {
+            Set<PassengerRequest> remained = remained(periods, period);
+            double now = 30 * period + 1;
+            serial.period(periods.get(period), remained, now);
+            parallel.period(periods.get(period), remained, now);
+            assertFalse(serial.rvEdges.isEmpty());
+            assertEquals(serial.rvEdges, parallel.rvEdges);
+
+            List<TripWithVehicle> serialRTV = serial.rtvGenerator.generateRTV(roboTaxis, periods.get(period), Collections.emptySet(), now, //
+                    serial.requestKeyInfoMap, serial.rvEdges, serial.ttc, Collections.emptyList(), 0);
+            List<TripWithVehicle> parallelRTV = parallel.rtvGenerator.generateRTV(roboTaxis, periods.get(period), Collections.emptySet(), now, //
+                    parallel.requestKeyInfoMap, parallel.rvEdges, parallel.ttc, Collections.emptyList(), 0);
+            assertFalse(serialRTV.isEmpty());
+            assertEquals(serialRTV.size(), parallelRTV.size());
+            for (int index = 0; index < serialRTV.size(); ++index) {
+                assertSame(serialRTV.get(index).getRoboTaxi(), parallelRTV.get(index).getRoboTaxi());
+                assertEquals(serialRTV.get(index).getTrip(), parallelRTV.get(index).getTrip());
+                assertEquals(serialRTV.get(index).getTotalDelay(), parallelRTV.get(index).getTotalDelay(), 0.0);
+            }
+        }
+    }
+
+    /** the pre-filter with {@link TravelTimeLowerBound} drops no RV edge that is found by checking all pairs of requests */
+    public void testLowerBoundKeepsFeasibleEdges() {
+        Network network = GridNetworkCreator.create(GRID, SPACING, (i, j) -> i % 5 == 0 || j % 5 == 0 ? 16.67 : 8.33);
+        List<Link> links = new ArrayList<>(network.getLinks().values());
+        List<Set<PassengerRequest>> periods = periods(links, new Random(3));
+
+        Run filtered = new Run(travelTimeComputation(network), new TravelTimeLowerBound(network, EasyMinTimePathCalculator.TRAVEL_DISUTILITY), 1);
+        Run unfiltered = new Run(travelTimeComputation(network), TravelTimeLowerBound.NONE, 1);
+        for (int period = 0; period < periods.size(); ++period) {
+            Set<PassengerRequest> remained = remained(periods, period);
+            double now = 30 * period + 1;
+            filtered.period(periods.get(period), remained, now);
+            unfiltered.period(periods.get(period), remained, now);
+            assertFalse(unfiltered.rvEdges.isEmpty());
+            assertEquals(unfiltered.rvEdges, filtered.rvEdges);
+            /** the parameters are chosen such that not all pairs are feasible, otherwise the filter is not exercised */
+            int requests = remained.size() + periods.get(period).size();
+            assertTrue(unfiltered.rvEdges.size() < requests * (requests - 1) / 2);
+        }
+    }
+
+    /** the bound never exceeds the travel time computed by {@link TravelTimeComputation} */
+    public void testLowerBound() {
+        Network network = GridNetworkCreator.create(GRID, SPACING, (i, j) -> i % 5 == 0 || j % 5 == 0 ? 16.67 : 8.33);
+        List<Link> links = new ArrayList<>(network.getLinks().values());
+        TravelTimeLowerBound travelTimeLowerBound = new TravelTimeLowerBound(network, EasyMinTimePathCalculator.TRAVEL_DISUTILITY);
+        TravelTimeComputation ttc = travelTimeComputation(network);
+        Random random = new Random(4);
+        for (int count = 0; count < 500; ++count) {
+            Link fromLink = links.get(random.nextInt(links.size()));
+            Link toLink = links.get(random.nextInt(links.size()));
+            assertTrue(travelTimeLowerBound.of(fromLink, toLink) <= ttc.of(fromLink, toLink, 0, false));
+        }
+        assertEquals(0.0, TravelTimeLowerBound.NONE.of(links.get(0), links.get(links.size() - 1)), 0.0);
+    }
+
+    /** with link speeds above the free speed the bound derived from the congested travel times keeps all RV edges,
+     * whereas the bound derived from the free speed exceeds some of the congested travel times */
+    public void testCongestedLowerBound() {
+        Network network = GridNetworkCreator.create(GRID, SPACING, (i, j) -> i % 5 == 0 || j % 5 == 0 ? 16.67 : 8.33);
+        List<Link> links = new ArrayList<>(network.getLinks().values());
+        CongestedTravelDisutility congestedTravelDisutility = new CongestedTravelDisutility(network, CONGESTED_TRAVEL_TIME, VALIDITY_PERIOD, 3600);
+        TravelTimeLowerBound travelTimeLowerBound = new TravelTimeLowerBound(network, congestedTravelDisutility);
+        TravelTimeLowerBound freeflowLowerBound = new TravelTimeLowerBound(network, EasyMinTimePathCalculator.TRAVEL_DISUTILITY);
+        TravelTimeComputation ttc = congestedTravelTimeComputation(network, congestedTravelDisutility);
+        Random random = new Random(5);
+        int exceeded = 0;
+        for (int count = 0; count < 500; ++count) {
+            Link fromLink = links.get(random.nextInt(links.size()));
+            Link toLink = links.get(random.nextInt(links.size()));
+            double now = random.nextInt((int) VALIDITY_PERIOD);
+            double travelTime = ttc.of(fromLink, toLink, now, false);
+            assertTrue(travelTimeLowerBound.of(fromLink, toLink) <= travelTime);
+            if (travelTime < freeflowLowerBound.of(fromLink, toLink))
+                ++exceeded;
+        }
+        assertTrue(0 < exceeded);
+
+        List<Set<PassengerRequest>> periods = periods(links, new Random(6));
+        Run filtered = new Run(congestedTravelTimeComputation(network, congestedTravelDisutility), travelTimeLowerBound, 1);
+        Run unfiltered = new Run(congestedTravelTimeComputation(network, congestedTravelDisutility), TravelTimeLowerBound.NONE, 1);
+        for (int period = 0; period < periods.size(); ++period) {
+            Set<PassengerRequest> remained = remained(periods, period);
+            double now = 30 * period + 1;
+            filtered.period(periods.get(period), remained, now);
+            unfiltered.period(periods.get(period), remained, now);
+            assertFalse(unfiltered.rvEdges.isEmpty());
+            assertEquals(unfiltered.rvEdges, filtered.rvEdges);
+        }
+    }
+
+    /** state of the dispatcher between the periods */
+    private static class Run {
+        final TravelTimeComputation ttc;
+        final AdvanceTVRVGenerator rvGenerator;
+        final AdvancedRTVGenerator rtvGenerator;
+        final Map<PassengerRequest, RequestKeyInfo> requestKeyInfoMap = new HashMap<>();
+        Set<Set<PassengerRequest>> rvEdges;
+
+        Run(TravelTimeComputation ttc, TravelTimeLowerBound travelTimeLowerBound, int threads) {
+            this.ttc = ttc;
+            rvGenerator = new AdvanceTVRVGenerator(PICKUP_DURATION, DROPOFF_DURATION, travelTimeLowerBound, threads);
+            rtvGenerator = new AdvancedRTVGenerator(CAPACITY, PICKUP_DURATION, DROPOFF_DURATION, threads);
+        }
+
+        void period(Set<PassengerRequest> newAdded, Set<PassengerRequest> remained, double now) {
+            for (PassengerRequest avRequest : newAdded)
+                requestKeyInfoMap.computeIfAbsent(avRequest, avr -> new RequestKeyInfo(avr, MAX_WAIT_TIME, MAX_DELAY, ttc));
+            rvEdges = new HashSet<>(rvGenerator.generateRVGraph(newAdded, new HashSet<>(), remained, now, ttc, requestKeyInfoMap));
+        }
+    }
+
+    private static TravelTimeComputation travelTimeComputation(Network network) {
+        return new TravelTimeComputation(network, new FastAStarLandmarksFactory(1), //
+                EasyMinTimePathCalculator.TRAVEL_DISUTILITY, EasyMinTimePathCalculator.TRAVEL_TIME, 100000, Double.POSITIVE_INFINITY);
+    }
+
+    private static TravelTimeComputation congestedTravelTimeComputation(Network network, CongestedTravelDisutility congestedTravelDisutility) {
+        return new TravelTimeComputation(network, new FastAStarLandmarksFactory(1), //
+                congestedTravelDisutility, CONGESTED_TRAVEL_TIME, 100000, VALIDITY_PERIOD);
+    }
+
+    private static List<Set<PassengerRequest>> periods(List<Link> links, Random random) {
+        List<Set<PassengerRequest>> periods = new ArrayList<>();
+        for (int period = 0; period < 2; ++period) {
+            Set<PassengerRequest> requests = new LinkedHashSet<>();
+            for (int index = 0; index < REQUESTS_PER_PERIOD; ++index)
+                requests.add(new AmodeusRequest(Id.create(period + "_" + index, Request.class), null, //
+                        links.get(random.nextInt(links.size())), links.get(random.nextInt(links.size())), //
+                        30 * period, AmodeusModeConfig.DEFAULT_MODE, null));
+            periods.add(requests);
+        }
+        return periods;
+    }
+
+    private static Set<PassengerRequest> remained(List<Set<PassengerRequest>> periods, int period) {
+        Set<PassengerRequest> remained = new HashSet<>();
+        periods.subList(0, period).forEach(remained::addAll);
+        return remained;
+    }
+}
@@ -0,0 +1,309 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.highcap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+
+import org.matsim.amodeus.config.AmodeusModeConfig;
+import org.matsim.amodeus.dvrp.request.AmodeusRequest;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.dvrp.optimizer.Request;
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+
+import amodeus.amodeus.GridNetworkCreator;
+import amodeus.amodeus.dispatcher.core.RoboTaxi;
+import amodeus.amodeus.dispatcher.core.StaticRoboTaxiCreator;
+import amodeus.amodeus.dispatcher.shared.SharedMealType;
+import amodeus.amodeus.routing.EasyMinTimePathCalculator;
+import junit.framework.TestCase;
+
+public class BranchAndBoundRouteGeneratorTest extends TestCase {
+    private static final int GRID = 6;
+    private static final double SPACING = 200;
+    /** 20 seconds per link */
+    private static final double FREESPEED = 10;
+    private static final double PICKUP_DURATION = 15;
+    private static final double DROPOFF_DURATION = 10;
+    /** short enough that some trips are infeasible */
+    private static final double MAX_WAIT_TIME = 150;
+    private static final double MAX_DELAY = 200;
+    private static final int CASES = 150;
+
+    private final Network network = GridNetworkCreator.create(GRID, SPACING, FREESPEED);
+    private final List<Link> links = new ArrayList<>(network.getLinks().values());
+    /** without one to many searches such that all travel times are computed in the same way */
+    private final TravelTimeComputation ttc = new TravelTimeComputation( //
+            () -> EasyMinTimePathCalculator.prepPathCalculator(network, new FastAStarLandmarksFactory(1)), 100000);
+    private final Map<PassengerRequest, RequestKeyInfo> requestKeyInfoMap = new HashMap<>();
+
+    /** the route has the minimal total delay of all feasible orderings of the stops, and there is no route iff no
+     * ordering is feasible; the subtrips are queried first such that their routes are the initial solutions */
+    public void testBruteForce() {
+        Random random = new Random(1);
+        int feasible = 0;
+        int infeasible = 0;
+        for (int count = 0; count < CASES; ++count) {
+            int capacity = 1 + random.nextInt(3);
+            RoboTaxi roboTaxi = StaticRoboTaxiCreator.createStayingRoboTaxi(randomLink(random), null);
+            List<PassengerRequest> requests = requests(random, 3, "b" + count);
+            BranchAndBoundRouteGenerator.VehicleRoutes vehicleRoutes = //
+                    new BranchAndBoundRouteGenerator(capacity, PICKUP_DURATION, DROPOFF_DURATION, Double.POSITIVE_INFINITY) //
+                            .forVehicle(roboTaxi, 0, requestKeyInfoMap, ttc);
+            for (Set<PassengerRequest> trip : subsetsBySize(requests)) {
+                List<StopInRoute> route = vehicleRoutes.of(trip);
+                double bruteForce = new BruteForce(roboTaxi.getDivertableLocation(), new ArrayList<>(trip), capacity).minCost();
+                if (Double.isInfinite(bruteForce)) {
+                    assertNull(route);
+                    ++infeasible;
+                } else {
+                    assertNotNull(route);
+                    assertFeasible(route, roboTaxi, trip, capacity);
+                    assertEquals(bruteForce, costOf(route), 1e-6);
+                    ++feasible;
+                }
+            }
+            assertFalse(vehicleRoutes.isBudgetExceeded());
+        }
+        /** the parameters are chosen such that both cases occur */
+        assertTrue(0 < feasible);
+        assertTrue(0 < infeasible);
+    }
+
+    /** every trip with a feasible greedy route has a route with at most the total delay of the greedy route */
+    public void testNotWorseThanGreedy() {
+        Random random = new Random(2);
+        int better = 0;
+        for (int count = 0; count < CASES; ++count) {
+            int capacity = 2 + random.nextInt(2);
+            RoboTaxi roboTaxi = StaticRoboTaxiCreator.createStayingRoboTaxi(randomLink(random), null);
+            List<PassengerRequest> requests = requests(random, 3, "g" + count);
+            BranchAndBoundRouteGenerator.VehicleRoutes vehicleRoutes = //
+                    new BranchAndBoundRouteGenerator(capacity, PICKUP_DURATION, DROPOFF_DURATION, Double.POSITIVE_INFINITY) //
+                            .forVehicle(roboTaxi, 0, requestKeyInfoMap, ttc);
+            for (Set<PassengerRequest> trip : subsetsBySize(requests)) {
+                List<StopInRoute> greedy = RouteGenerator.of(roboTaxi, trip, 0, requestKeyInfoMap, capacity, ttc, PICKUP_DURATION, DROPOFF_DURATION);
+                List<StopInRoute> route = vehicleRoutes.of(trip);
+                if (Objects.nonNull(greedy)) {
+                    assertNotNull(route);
+                    double greedyDelay = TotalDelayCalculator.of(greedy, requestKeyInfoMap, ttc);
+                    double delay = TotalDelayCalculator.of(route, requestKeyInfoMap, ttc);
+                    assertTrue(delay <= greedyDelay + 1e-6);
+                    if (delay < greedyDelay - 1e-6)
+                        ++better;
+                }
+            }
+        }
+        assertTrue(0 < better);
+    }
+
+    /** two requests with the same origin and destination are served one after the other with capacity 1 and together
+     * with capacity 2 */
+    public void testCapacity() {
+        Link fromLink = link("1_1_2_1");
+        Link toLink = link("4_4_4_5");
+        PassengerRequest request1 = request("c1", fromLink, toLink, 0);
+        PassengerRequest request2 = request("c2", fromLink, toLink, 0);
+        /** loose deadlines such that the capacity is the only constraint */
+        requestKeyInfoMap.put(request1, new RequestKeyInfo(request1, 3600, 3600, ttc));
+        requestKeyInfoMap.put(request2, new RequestKeyInfo(request2, 3600, 3600, ttc));
+        RoboTaxi roboTaxi = StaticRoboTaxiCreator.createStayingRoboTaxi(link("0_0_1_0"), null);
+        Set<PassengerRequest> trip = new HashSet<>(Arrays.asList(request1, request2));
+
+        List<StopInRoute> single = new BranchAndBoundRouteGenerator(1, PICKUP_DURATION, DROPOFF_DURATION, Double.POSITIVE_INFINITY) //
+                .forVehicle(roboTaxi, 0, requestKeyInfoMap, ttc).of(trip);
+        assertEquals(Arrays.asList(SharedMealType.PICKUP, SharedMealType.DROPOFF, SharedMealType.PICKUP, SharedMealType.DROPOFF), stopTypes(single));
+        assertSame(single.get(0).getavRequest(), single.get(1).getavRequest());
+
+        List<StopInRoute> shared = new BranchAndBoundRouteGenerator(2, PICKUP_DURATION, DROPOFF_DURATION, Double.POSITIVE_INFINITY) //
+                .forVehicle(roboTaxi, 0, requestKeyInfoMap, ttc).of(trip);
+        assertEquals(Arrays.asList(SharedMealType.PICKUP, SharedMealType.PICKUP, SharedMealType.DROPOFF, SharedMealType.DROPOFF), stopTypes(shared));
+        assertTrue(costOf(shared) < costOf(single));
+    }
+
+    /** a request whose origin cannot be reached before its pickup deadline has no route, neither alone nor in a trip */
+    public void testDeadline() {
+        RoboTaxi roboTaxi = StaticRoboTaxiCreator.createStayingRoboTaxi(link("0_0_1_0"), null);
+        /** 9 links away from the taxi, i.e., 180 seconds */
+        PassengerRequest late = request("d1", link("4_4_4_5"), link("0_1_0_2"), 0);
+        PassengerRequest close = request("d2", link("1_0_2_0"), link("2_0_3_0"), 0);
+        requestKeyInfoMap.put(late, new RequestKeyInfo(late, 100, 3600, ttc));
+        requestKeyInfoMap.put(close, new RequestKeyInfo(close, 100, 3600, ttc));
+        BranchAndBoundRouteGenerator.VehicleRoutes vehicleRoutes = //
+                new BranchAndBoundRouteGenerator(2, PICKUP_DURATION, DROPOFF_DURATION, Double.POSITIVE_INFINITY) //
+                        .forVehicle(roboTaxi, 0, requestKeyInfoMap, ttc);
+        assertNull(vehicleRoutes.of(Set.of(late)));
+        assertNull(vehicleRoutes.of(Set.of(late, close)));
+        assertNotNull(vehicleRoutes.of(Set.of(close)));
+
+        /** the drop off deadline is checked as well: the direct drop off at 215 seconds meets the deadline of 160 + 60
+         * seconds, every route that also serves the other request is too late */
+        PassengerRequest detour = request("d3", link("1_0_2_0"), link("5_5_5_4"), 0);
+        requestKeyInfoMap.put(detour, new RequestKeyInfo(detour, 3600, 60, ttc));
+        assertNotNull(vehicleRoutes.of(Set.of(detour)));
+        assertNull(vehicleRoutes.of(Set.of(detour, close)));
+    }
+
+    /** once the time budget is exhausted, the best route found so far is returned and afterwards the greedy route */
+    public void testBudgetFallback() {
+        Random random = new Random(3);
+        RoboTaxi roboTaxi = StaticRoboTaxiCreator.createStayingRoboTaxi(randomLink(random), null);
+        List<PassengerRequest> requests = new ArrayList<>();
+        for (int index = 0; index < 5; ++index) {
+            PassengerRequest avRequest = request("f" + index, randomLink(random), randomLink(random), 0);
+            /** loose deadlines such that many orderings are feasible and the search is large */
+            requestKeyInfoMap.put(avRequest, new RequestKeyInfo(avRequest, 36000, 36000, ttc));
+            requests.add(avRequest);
+        }
+        BranchAndBoundRouteGenerator.VehicleRoutes vehicleRoutes = //
+                new BranchAndBoundRouteGenerator(5, PICKUP_DURATION, DROPOFF_DURATION, 1e-9) //
+                        .forVehicle(roboTaxi, 0, requestKeyInfoMap, ttc);
+        Set<PassengerRequest> trip = new HashSet<>(requests);
+        List<StopInRoute> route = vehicleRoutes.of(trip);
+        assertTrue(vehicleRoutes.isBudgetExceeded());
+        assertNotNull(route);
+        assertFeasible(route, roboTaxi, trip, 5);
+
+        Set<PassengerRequest> subtrip = new HashSet<>(requests.subList(0, 3));
+        List<StopInRoute> fallback = vehicleRoutes.of(subtrip);
+        List<StopInRoute> greedy = RouteGenerator.of(roboTaxi, subtrip, 0, requestKeyInfoMap, 5, ttc, PICKUP_DURATION, DROPOFF_DURATION);
+        assertNotNull(greedy);
+        assertEquals(greedy.size(), fallback.size());
+        for (int index = 0; index < greedy.size(); ++index) {
+            assertSame(greedy.get(index).getavRequest(), fallback.get(index).getavRequest());
+            assertEquals(greedy.get(index).getStopType(), fallback.get(index).getStopType());
+            assertEquals(greedy.get(index).getTime(), fallback.get(index).getTime(), 0.0);
+        }
+    }
+
+    /** minimal sum of the drop off times over all orderings of the stops of requests that are not on board */
+    private class BruteForce {
+        private final Link start;
+        private final List<PassengerRequest> trip;
+        private final int capacity;
+        private final boolean[] pickedUp;
+        private final boolean[] droppedOff;
+        private double minCost = Double.POSITIVE_INFINITY;
+
+        BruteForce(Link start, List<PassengerRequest> trip, int capacity) {
+            this.start = start;
+            this.trip = trip;
+            this.capacity = capacity;
+            pickedUp = new boolean[trip.size()];
+            droppedOff = new boolean[trip.size()];
+        }
+
+        double minCost() {
+            enumerate(0, start, 0, 0, 0);
+            return minCost;
+        }
+
+        private void enumerate(int stops, Link currentLink, double time, int onBoard, double cost) {
+            if (stops == 2 * trip.size()) {
+                minCost = Math.min(minCost, cost);
+                return;
+            }
+            for (int index = 0; index < trip.size(); ++index) {
+                PassengerRequest avRequest = trip.get(index);
+                RequestKeyInfo requestKeyInfo = requestKeyInfoMap.get(avRequest);
+                if (!pickedUp[index] && onBoard < capacity) {
+                    double arrival = time + ttc.of(currentLink, avRequest.getFromLink(), time, true);
+                    if (arrival <= requestKeyInfo.getDeadlinePickUp()) {
+                        pickedUp[index] = true;
+                        enumerate(stops + 1, avRequest.getFromLink(), arrival + PICKUP_DURATION, onBoard + 1, cost);
+                        pickedUp[index] = false;
+                    }
+                } else if (pickedUp[index] && !droppedOff[index]) {
+                    double arrival = time + ttc.of(currentLink, avRequest.getToLink(), time, true);
+                    if (arrival <= requestKeyInfo.getDeadlineDropOff()) {
+                        droppedOff[index] = true;
+                        enumerate(stops + 1, avRequest.getToLink(), arrival + DROPOFF_DURATION, onBoard - 1, cost + arrival);
+                        droppedOff[index] = false;
+                    }
+                }
+            }
+        }
+    }
+
+    /** checks the precedence, capacity, deadlines and arrival times of the route */
+    private void assertFeasible(List<StopInRoute> route, RoboTaxi roboTaxi, Set<PassengerRequest> trip, int capacity) {
+        assertEquals(2 * trip.size(), route.size());
+        Set<PassengerRequest> onBoard = new HashSet<>();
+        Link currentLink = roboTaxi.getDivertableLocation();
+        double time = 0;
+        for (StopInRoute stopInRoute : route) {
+            PassengerRequest avRequest = stopInRoute.getavRequest();
+            assertTrue(trip.contains(avRequest));
+            assertEquals(time + ttc.of(currentLink, stopInRoute.getStopLink(), time, true), stopInRoute.getTime(), 1e-9);
+            if (stopInRoute.getStopType() == SharedMealType.PICKUP) {
+                assertTrue(onBoard.add(avRequest));
+                assertTrue(onBoard.size() <= capacity);
+                assertTrue(stopInRoute.getTime() <= requestKeyInfoMap.get(avRequest).getDeadlinePickUp());
+                time = stopInRoute.getTime() + PICKUP_DURATION;
+            } else {
+                assertTrue(onBoard.remove(avRequest));
+                assertTrue(stopInRoute.getTime() <= requestKeyInfoMap.get(avRequest).getDeadlineDropOff());
+                time = stopInRoute.getTime() + DROPOFF_DURATION;
+            }
+            currentLink = stopInRoute.getStopLink();
+        }
+        assertTrue(onBoard.isEmpty());
+    }
+
+    /** @return sum of the drop off times, the objective of {@link BranchAndBoundRouteGenerator} */
+    private static double costOf(List<StopInRoute> route) {
+        return route.stream().filter(stopInRoute -> stopInRoute.getStopType() == SharedMealType.DROPOFF).mapToDouble(StopInRoute::getTime).sum();
+    }
+
+    private static List<SharedMealType> stopTypes(List<StopInRoute> route) {
+        List<SharedMealType> stopTypes = new ArrayList<>();
+        route.forEach(stopInRoute -> stopTypes.add(stopInRoute.getStopType()));
+        return stopTypes;
+    }
+
+    /** @return all non-empty subsets, the smaller subsets first as in the generation of the RTV graph */
+    private static List<Set<PassengerRequest>> subsetsBySize(List<PassengerRequest> requests) {
+        List<Set<PassengerRequest>> subsets = new ArrayList<>();
+        for (int size = 1; size <= requests.size(); ++size)
+            for (int mask = 1; mask < 1 << requests.size(); ++mask)
+                if (Integer.bitCount(mask) == size) {
+                    Set<PassengerRequest> subset = new HashSet<>();
+                    for (int index = 0; index < requests.size(); ++index)
+                        if ((mask & 1 << index) != 0)
+                            subset.add(requests.get(index));
+                    subsets.add(subset);
+                }
+        return subsets;
+    }
+
+    private List<PassengerRequest> requests(Random random, int number, String prefix) {
+        List<PassengerRequest> requests = new ArrayList<>();
+        for (int index = 0; index < number; ++index) {
+            PassengerRequest avRequest = request(prefix + "_" + index, randomLink(random), randomLink(random), 0);
+            requestKeyInfoMap.put(avRequest, new RequestKeyInfo(avRequest, MAX_WAIT_TIME, MAX_DELAY, ttc));
+            requests.add(avRequest);
+        }
+        return requests;
+    }
+
+    private static PassengerRequest request(String id, Link fromLink, Link toLink, double submissionTime) {
+        return new AmodeusRequest(Id.create(id, Request.class), null, fromLink, toLink, submissionTime, AmodeusModeConfig.DEFAULT_MODE, null);
+    }
+
+    private Link randomLink(Random random) {
+        return links.get(random.nextInt(links.size()));
+    }
+
+    private Link link(String id) {
+        return network.getLinks().get(Id.createLinkId(id));
+    }
+}
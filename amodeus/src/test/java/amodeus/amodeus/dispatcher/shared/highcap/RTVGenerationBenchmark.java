@@ -0,0 +1,140 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.highcap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.matsim.amodeus.config.AmodeusModeConfig;
+import org.matsim.amodeus.dvrp.request.AmodeusRequest;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.dvrp.optimizer.Request;
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+
+import amodeus.amodeus.GridNetworkCreator;
+import amodeus.amodeus.dispatcher.core.RoboTaxi;
+import amodeus.amodeus.dispatcher.core.StaticRoboTaxiCreator;
+import amodeus.amodeus.routing.EasyMinTimePathCalculator;
+import amodeus.amodeus.util.math.GlobalAssert;
+
+/** compares the generation of the RV and RTV graphs of {@link HighCapacityDispatcher} in the calling thread with the
+ * parallel generation for several fleet sizes and capacities on a grid network of 8 km x 8 km. In every configuration,
+ * two dispatch periods are generated, in the second period the requests of the first period remain open and every
+ * {@link RoboTaxi} keeps one trip of the first period as last assignment. The results of both generations are checked
+ * to be identical. Finally, the greedy routes are compared to the routes of {@link BranchAndBoundRouteGenerator} with
+ * {@link RouteGenerationMetrics}. Argument: [threads] */
+/* package */ enum RTVGenerationBenchmark {
+    ;
+    private static final int[] FLEET_SIZES = { 250, 500, 1000 };
+    private static final int[] CAPACITIES = { 2, 4 };
+    private static final int REQUESTS_PER_PERIOD = 150;
+    private static final int GRID = 41;
+    private static final double SPACING = 200;
+    private static final double FREESPEED = 13.89;
+    private static final double PICKUP_DURATION = 15;
+    private static final double DROPOFF_DURATION = 10;
+    private static final double MAX_WAIT_TIME = 300;
+    private static final double MAX_DELAY = 600;
+    private static final double TRAFFIC_ALLOWANCE = 60;
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        Network network = GridNetworkCreator.create(GRID, SPACING, FREESPEED);
+        List<Link> links = new ArrayList<>(network.getLinks().values());
+        FastAStarLandmarksFactory factory = new FastAStarLandmarksFactory(threads);
+        for (int fleetSize : FLEET_SIZES)
+            for (int capacity : CAPACITIES) {
+                Random random = new Random(fleetSize + capacity);
+                List<RoboTaxi> roboTaxis = new ArrayList<>();
+                for (int index = 0; index < fleetSize; ++index)
+                    roboTaxis.add(StaticRoboTaxiCreator.createStayingRoboTaxi(links.get(random.nextInt(links.size())), null));
+                List<Set<PassengerRequest>> periods = new ArrayList<>();
+                for (int period = 0; period < 2; ++period) {
+                    Set<PassengerRequest> requests = new LinkedHashSet<>();
+                    for (int index = 0; index < REQUESTS_PER_PERIOD; ++index)
+                        requests.add(new AmodeusRequest(Id.create(period + "_" + index, Request.class), null, //
+                                links.get(random.nextInt(links.size())), links.get(random.nextInt(links.size())), //
+                                30 * period, AmodeusModeConfig.DEFAULT_MODE, null));
+                    periods.add(requests);
+                }
+
+                Run serial = new Run(network, factory, capacity, 1, RouteGeneration.GREEDY, null);
+                Run parallel = new Run(network, factory, capacity, threads, RouteGeneration.GREEDY, null);
+                RouteGenerationMetrics routeGenerationMetrics = new RouteGenerationMetrics();
+                Run branchAndBound = new Run(network, factory, capacity, threads, RouteGeneration.BRANCH_AND_BOUND, routeGenerationMetrics);
+                for (int period = 0; period < periods.size(); ++period) {
+                    double now = 30 * period + 1;
+                    Set<PassengerRequest> remained = new HashSet<>();
+                    periods.subList(0, period).forEach(remained::addAll);
+                    long serialNanos = serial.period(roboTaxis, periods.get(period), remained, now);
+                    long parallelNanos = parallel.period(roboTaxis, periods.get(period), remained, now);
+                    GlobalAssert.that(serial.rvEdges.equals(parallel.rvEdges));
+                    GlobalAssert.that(serial.rtvEdges.size() == parallel.rtvEdges.size());
+                    for (int index = 0; index < serial.rtvEdges.size(); ++index) {
+                        TripWithVehicle expected = serial.rtvEdges.get(index);
+                        TripWithVehicle actual = parallel.rtvEdges.get(index);
+                        GlobalAssert.that(expected.getRoboTaxi() == actual.getRoboTaxi());
+                        GlobalAssert.that(expected.getTrip().equals(actual.getTrip()));
+                        GlobalAssert.that(expected.getTotalDelay() == actual.getTotalDelay());
+                    }
+                    System.out.println(String.format("fleet %4d capacity %d period %d: rv edges %5d, rtv edges %6d, serial %8.1f[ms], %2d threads %8.1f[ms], speedup %4.1f", //
+                            fleetSize, capacity, period, serial.rvEdges.size(), serial.rtvEdges.size(), //
+                            serialNanos * 1e-6, threads, parallelNanos * 1e-6, serialNanos / (double) parallelNanos));
+                    long branchAndBoundNanos = branchAndBound.period(roboTaxis, periods.get(period), remained, now);
+                    System.out.println(String.format("    branch and bound: rtv edges %6d, %8.1f[ms], %s", //
+                            branchAndBound.rtvEdges.size(), branchAndBoundNanos * 1e-6, routeGenerationMetrics));
+                    routeGenerationMetrics.reset();
+                }
+            }
+    }
+
+    /** state of the dispatcher between the periods */
+    private static class Run {
+        final TravelTimeComputation ttc;
+        final AdvanceTVRVGenerator rvGenerator;
+        final AdvancedRTVGenerator rtvGenerator;
+        final Map<PassengerRequest, RequestKeyInfo> requestKeyInfoMap = new HashMap<>();
+        List<TripWithVehicle> lastAssignment = new ArrayList<>();
+        Set<Set<PassengerRequest>> rvEdges;
+        List<TripWithVehicle> rtvEdges;
+
+        Run(Network network, FastAStarLandmarksFactory factory, int capacity, int threads, //
+                RouteGeneration routeGeneration, RouteGenerationMetrics routeGenerationMetrics) {
+            ttc = new TravelTimeComputation(network, factory, EasyMinTimePathCalculator.TRAVEL_DISUTILITY, EasyMinTimePathCalculator.TRAVEL_TIME, //
+                    2000000, Double.POSITIVE_INFINITY);
+            rvGenerator = new AdvanceTVRVGenerator(PICKUP_DURATION, DROPOFF_DURATION, network, EasyMinTimePathCalculator.TRAVEL_DISUTILITY, threads);
+            rtvGenerator = new AdvancedRTVGenerator(capacity, PICKUP_DURATION, DROPOFF_DURATION, threads, //
+                    routeGeneration, Double.POSITIVE_INFINITY, routeGenerationMetrics);
+        }
+
+        /** @return duration of the generation of the RV and RTV graphs in nanoseconds */
+        long period(List<RoboTaxi> roboTaxis, Set<PassengerRequest> newAdded, Set<PassengerRequest> remained, double now) {
+            for (PassengerRequest avRequest : newAdded)
+                requestKeyInfoMap.computeIfAbsent(avRequest, avr -> new RequestKeyInfo(avr, MAX_WAIT_TIME, MAX_DELAY, ttc));
+            long tic = System.nanoTime();
+            rvEdges = new HashSet<>(rvGenerator.generateRVGraph(newAdded, new HashSet<>(), remained, now, ttc, requestKeyInfoMap));
+            rtvEdges = rtvGenerator.generateRTV(roboTaxis, newAdded, new HashSet<>(), now, requestKeyInfoMap, //
+                    rvEdges, ttc, lastAssignment, TRAFFIC_ALLOWANCE);
+            long nanos = System.nanoTime() - tic;
+            /** every roboTaxi keeps its first trip that does not contain an assigned request */
+            Set<PassengerRequest> assigned = new HashSet<>();
+            Set<RoboTaxi> busy = new HashSet<>();
+            lastAssignment = new ArrayList<>();
+            for (TripWithVehicle tripWithVehicle : rtvEdges)
+                if (!busy.contains(tripWithVehicle.getRoboTaxi()) && tripWithVehicle.getTrip().stream().noneMatch(assigned::contains)) {
+                    busy.add(tripWithVehicle.getRoboTaxi());
+                    assigned.addAll(tripWithVehicle.getTrip());
+                    lastAssignment.add(tripWithVehicle);
+                }
+            return nanos;
+        }
+    }
+}
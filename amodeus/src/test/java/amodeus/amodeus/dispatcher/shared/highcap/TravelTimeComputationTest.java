@@ -0,0 +1,66 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.highcap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+
+import amodeus.amodeus.GridNetworkCreator;
+import amodeus.amodeus.routing.EasyMinTimePathCalculator;
+import junit.framework.TestCase;
+
+public class TravelTimeComputationTest extends TestCase {
+    private static final int GRID = 8;
+    private static final double SPACING = 200;
+
+    private final Network network = GridNetworkCreator.create(GRID, SPACING, (i, j) -> 5 + (7 * i + 3 * j) % 11);
+    private final List<Link> links = new ArrayList<>(network.getLinks().values());
+
+    private TravelTimeComputation travelTimeComputation(int sizeLimit, double validityPeriod) {
+        return new TravelTimeComputation(network, new FastAStarLandmarksFactory(1), //
+                EasyMinTimePathCalculator.TRAVEL_DISUTILITY, EasyMinTimePathCalculator.TRAVEL_TIME, sizeLimit, validityPeriod);
+    }
+
+    /** a stored travel time is only returned in the period in which it was computed */
+    public void testValidityPeriod() {
+        TravelTimeComputation ttc = travelTimeComputation(100, 100);
+        Link fromLink = links.get(0);
+        Link toLink = links.get(links.size() - 1);
+        double travelTime = ttc.of(fromLink, toLink, 50, false);
+        assertEquals(0, ttc.getMapSize());
+        ttc.storeInCache(fromLink, toLink, 50, 999);
+        assertEquals(1, ttc.getMapSize());
+        assertEquals(999.0, ttc.of(fromLink, toLink, 99, true));
+        assertEquals(999.0, ttc.of(fromLink, List.of(toLink), 0, true)[0]);
+        assertEquals(travelTime, ttc.of(fromLink, toLink, 100, true));
+        assertEquals(travelTime, ttc.of(fromLink, toLink, 150, true));
+        assertEquals(1, ttc.getMapSize());
+        ttc.clearDataMap();
+        assertEquals(0, ttc.getMapSize());
+    }
+
+    /** concurrent queries give the travel times of a computation without cache, the cache does not exceed its size */
+    public void testConcurrent() {
+        TravelTimeComputation reference = travelTimeComputation(1, Double.POSITIVE_INFINITY);
+        TravelTimeComputation ttc = travelTimeComputation(2048, Double.POSITIVE_INFINITY);
+        IntStream.range(0, 8).parallel().forEach(thread -> {
+            Random random = new Random(thread);
+            for (int index = 0; index < 2000; ++index) {
+                Link fromLink = links.get(random.nextInt(links.size()));
+                Link toLink = links.get(random.nextInt(links.size()));
+                double expected;
+                synchronized (reference) {
+                    expected = reference.of(fromLink, toLink, index, false);
+                }
+                assertEquals(expected, ttc.of(fromLink, toLink, index, true));
+                assertTrue(ttc.getMapSize() <= 2048);
+            }
+        });
+        assertTrue(0 < ttc.getMapSize());
+    }
+}
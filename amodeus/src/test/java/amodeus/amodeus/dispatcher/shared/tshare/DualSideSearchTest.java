@@ -0,0 +1,107 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.tshare;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.matsim.amodeus.config.AmodeusModeConfig;
+import org.matsim.amodeus.dvrp.request.AmodeusRequest;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.dvrp.optimizer.Request;
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+
+import amodeus.amodeus.GridNetworkCreator;
+import amodeus.amodeus.dispatcher.core.RoboTaxi;
+import amodeus.amodeus.dispatcher.core.StaticRoboTaxiCreator;
+import amodeus.amodeus.util.geo.FastQuadTree;
+import amodeus.amodeus.virtualnetwork.core.VirtualNetwork;
+import amodeus.amodeus.virtualnetwork.core.VirtualNode;
+import junit.framework.TestCase;
+
+public class DualSideSearchTest extends TestCase {
+    private static final int GRID = 13;
+    private static final double SPACING = 200;
+    private static final int DIVISIONS = 4;
+    private static final int FLEET_SIZE = 40;
+    private static final int REQUESTS = 300;
+
+    private Network network;
+    private List<Link> links;
+    private VirtualNetwork<Link> virtualNetwork;
+    private GridCellMatrix gridCellMatrix;
+    private Map<VirtualNode<Link>, Set<RoboTaxi>> plannedLocations;
+
+    @Override
+    protected void setUp() {
+        network = GridNetworkCreator.create(GRID, SPACING, 10);
+        links = new ArrayList<>(network.getLinks().values());
+        virtualNetwork = TShareGrid.virtualNetwork(network, GRID, SPACING, DIVISIONS);
+        gridCellMatrix = new GridCellMatrix(network, virtualNetwork, FastQuadTree.of(network), new FastAStarLandmarksFactory(1), 1);
+
+        /** every taxi is planned in one to three random cells */
+        Random random = new Random(1);
+        plannedLocations = new HashMap<>();
+        for (VirtualNode<Link> virtualNode : virtualNetwork.getVirtualNodes())
+            plannedLocations.put(virtualNode, new HashSet<>());
+        for (int index = 0; index < FLEET_SIZE; ++index) {
+            RoboTaxi roboTaxi = StaticRoboTaxiCreator.createStayingRoboTaxi(links.get(random.nextInt(links.size())), null);
+            int cells = 1 + random.nextInt(3);
+            for (int cell = 0; cell < cells; ++cell)
+                plannedLocations.get(virtualNetwork.getVirtualNode(random.nextInt(virtualNetwork.getvNodesCount()))).add(roboTaxi);
+        }
+    }
+
+    /** the potential taxis are the ones of the former search that removed the close cells from collections and computed the
+     * intersection of the origin and destination taxis in every iteration, repeated searches give the same taxis */
+    public void testReference() {
+        DualSideSearch dualSideSearch = new DualSideSearch(gridCellMatrix, virtualNetwork);
+        Random random = new Random(2);
+        int found = 0;
+        int none = 0;
+        for (int index = 0; index < REQUESTS; ++index) {
+            PassengerRequest request = request(index, random);
+            double timeLeftForPickup = random.nextInt(4) == 0 ? 0 : random.nextDouble() * 600;
+            double timeLeftUntilArrival = random.nextInt(4) == 0 ? 0 : random.nextDouble() * 1200;
+            Set<RoboTaxi> expected = TShareReference.dualSideSearch(gridCellMatrix, virtualNetwork, request, plannedLocations, //
+                    timeLeftForPickup, timeLeftUntilArrival);
+            Collection<RoboTaxi> potentialTaxis = dualSideSearch.apply(request, plannedLocations, timeLeftForPickup, timeLeftUntilArrival);
+            assertEquals(expected, new HashSet<>(potentialTaxis));
+            assertEquals(expected.size(), potentialTaxis.size());
+            assertEquals(expected, new HashSet<>(dualSideSearch.apply(request, plannedLocations, timeLeftForPickup, timeLeftUntilArrival)));
+            if (expected.isEmpty())
+                ++none;
+            else
+                ++found;
+        }
+        assertTrue(0 < found);
+        assertTrue(0 < none);
+    }
+
+    /** without time left until the arrival no destination cell is reachable, therefore no taxi is found although cells
+     * are reachable for the pickup. The dispatcher skips the search in this case. */
+    public void testNoTimeLeftUntilArrival() {
+        DualSideSearch dualSideSearch = new DualSideSearch(gridCellMatrix, virtualNetwork);
+        Random random = new Random(3);
+        for (int index = 0; index < REQUESTS; ++index) {
+            PassengerRequest request = request(index, random);
+            assertFalse(dualSideSearch.apply(request, plannedLocations, 1e6, 1e6).isEmpty());
+            assertTrue(dualSideSearch.apply(request, plannedLocations, 1e6, 0).isEmpty());
+            assertTrue(dualSideSearch.apply(request, plannedLocations, 0, 1e6).isEmpty());
+        }
+    }
+
+    private PassengerRequest request(int index, Random random) {
+        return new AmodeusRequest(Id.create(index, Request.class), null, //
+                links.get(random.nextInt(links.size())), links.get(random.nextInt(links.size())), //
+                0.0, AmodeusModeConfig.DEFAULT_MODE, null);
+    }
+}
@@ -0,0 +1,82 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.tshare;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.matsim.amodeus.config.AmodeusModeConfig;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+import org.matsim.core.utils.collections.QuadTree;
+
+import amodeus.amodeus.GridNetworkCreator;
+import amodeus.amodeus.routing.CachedNetworkTimeDistance;
+import amodeus.amodeus.routing.EasyMinDistPathCalculator;
+import amodeus.amodeus.routing.EasyMinTimePathCalculator;
+import amodeus.amodeus.util.geo.FastQuadTree;
+import amodeus.amodeus.util.matsim.SafeConfig;
+import amodeus.amodeus.virtualnetwork.core.VirtualNetwork;
+import junit.framework.TestCase;
+
+public class GridCellMatrixTest extends TestCase {
+    private static final int GRID = 13;
+    private static final double SPACING = 200;
+    private static final int DIVISIONS = 4;
+
+    /** the travel times and distances are the ones of the cached minimum time and minimum distance path calculators that
+     * the former {@link GridCell}s used, the parallel computation gives the same matrix */
+    public void testCachedNetworkTimeDistance() {
+        /** the fastest paths differ from the shortest paths */
+        Network network = GridNetworkCreator.create(GRID, SPACING, (i, j) -> 5 + (7 * i + 3 * j) % 11);
+        VirtualNetwork<Link> virtualNetwork = TShareGrid.virtualNetwork(network, GRID, SPACING, DIVISIONS);
+        QuadTree<Link> linkTree = FastQuadTree.of(network);
+        GridCellMatrix serial = new GridCellMatrix(network, virtualNetwork, linkTree, new FastAStarLandmarksFactory(1), 1);
+        GridCellMatrix parallel = new GridCellMatrix(network, virtualNetwork, linkTree, new FastAStarLandmarksFactory(4), 4);
+
+        FastAStarLandmarksFactory factory = new FastAStarLandmarksFactory(1);
+        SafeConfig safeConfig = SafeConfig.wrap(new AmodeusModeConfig(AmodeusModeConfig.DEFAULT_MODE).getDispatcherConfig());
+        CachedNetworkTimeDistance minDist = //
+                CachedNetworkTimeDistance.of(EasyMinDistPathCalculator.prepPathCalculator(network, factory), 180000.0, safeConfig);
+        CachedNetworkTimeDistance minTime = //
+                CachedNetworkTimeDistance.of(EasyMinTimePathCalculator.prepPathCalculator(network, factory), 180000.0, safeConfig);
+
+        int size = virtualNetwork.getvNodesCount();
+        assertEquals(DIVISIONS * DIVISIONS, size);
+        assertEquals(size, serial.size());
+        assertEquals(size, parallel.size());
+        boolean detour = false;
+        for (int from = 0; from < size; ++from) {
+            Link fromLink = TShareReference.centerLink(virtualNetwork.getVirtualNode(from), linkTree);
+            for (int to = 0; to < size; ++to) {
+                Link toLink = TShareReference.centerLink(virtualNetwork.getVirtualNode(to), linkTree);
+                assertEquals((float) minTime.travelTimeSeconds(fromLink, toLink, 0.0), serial.travelTime(from, to), 0.0);
+                assertEquals((float) minDist.distanceMeters(fromLink, toLink, 0.0), serial.distance(from, to), 0.0);
+                assertEquals(serial.travelTime(from, to), parallel.travelTime(from, to), 0.0);
+                assertEquals(serial.distance(from, to), parallel.distance(from, to), 0.0);
+                detour |= serial.distance(from, to) < minTime.distanceMeters(fromLink, toLink, 0.0);
+            }
+
+            /** every cell is in the order of each {@link GridCell}, which is sorted by travel time and by distance */
+            GridCell gridCell = serial.getGridCell(from);
+            assertSame(virtualNetwork.getVirtualNode(from), gridCell.getVirtualNode());
+            Set<Integer> temporalSorted = new HashSet<>();
+            Set<Integer> distanceSorted = new HashSet<>();
+            for (int position = 0; position < size; ++position) {
+                temporalSorted.add(gridCell.getReachableVNodeIndexAt(position));
+                distanceSorted.add(gridCell.getVNodeIndexAt(position));
+                assertEquals(gridCell.getReachableVNodeIndexAt(position), parallel.getGridCell(from).getReachableVNodeIndexAt(position));
+                assertEquals(gridCell.getVNodeIndexAt(position), parallel.getGridCell(from).getVNodeIndexAt(position));
+                if (0 < position) {
+                    assertTrue(serial.travelTime(from, gridCell.getReachableVNodeIndexAt(position - 1)) //
+                            <= serial.travelTime(from, gridCell.getReachableVNodeIndexAt(position)));
+                    assertTrue(serial.distance(from, gridCell.getVNodeIndexAt(position - 1)) //
+                            <= serial.distance(from, gridCell.getVNodeIndexAt(position)));
+                }
+            }
+            assertEquals(size, temporalSorted.size());
+            assertEquals(size, distanceSorted.size());
+        }
+        assertTrue(detour);
+    }
+}
@@ -0,0 +1,115 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.tshare;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.matsim.api.core.v01.network.Link;
+
+import amodeus.amodeus.dispatcher.shared.tshare.TShareReference.QuantityGridCell;
+import amodeus.amodeus.util.math.SI;
+import amodeus.amodeus.virtualnetwork.core.VirtualNode;
+import ch.ethz.idsc.tensor.Tensors;
+import ch.ethz.idsc.tensor.qty.Quantity;
+import junit.framework.TestCase;
+
+public class GridCellTest extends TestCase {
+    private static final int SIZE = 30;
+
+    /** without equal travel times and distances, the orders and the reachable cells are the ones of the maps of
+     * the former {@link GridCell} */
+    public void testQuantityGridCell() {
+        Random random = new Random(1);
+        List<VirtualNode<Link>> virtualNodes = virtualNodes();
+        for (int cell = 0; cell < SIZE; ++cell) {
+            float[] travelTimes = distinct(random, cell, 10);
+            float[] distances = distinct(random, cell, 100);
+            GridCell gridCell = new GridCell(virtualNodes.get(cell), travelTimes, distances);
+            QuantityGridCell quantityGridCell = new QuantityGridCell(virtualNodes, travelTimes, distances);
+
+            List<VirtualNode<Link>> distanceSorted = quantityGridCell.distanceSorted();
+            assertEquals(SIZE, distanceSorted.size());
+            for (int position = 0; position < SIZE + 3; ++position)
+                assertSame(quantityGridCell.getVNodeAt(position), virtualNodes.get(gridCell.getVNodeIndexAt(position)));
+            List<VirtualNode<Link>> temporalSorted = quantityGridCell.temporalSorted();
+            assertEquals(SIZE, temporalSorted.size());
+            for (int position = 0; position < SIZE; ++position)
+                assertSame(temporalSorted.get(position), virtualNodes.get(gridCell.getReachableVNodeIndexAt(position)));
+
+            /** the times of the cells, in between, slightly below and above them, zero and beyond the largest time */
+            List<Double> times = new ArrayList<>();
+            times.add(0.0);
+            times.add(1e9);
+            for (float travelTime : travelTimes) {
+                times.add((double) travelTime);
+                if (0 < travelTime)
+                    times.add(Math.nextDown((double) travelTime));
+                times.add(Math.nextUp((double) travelTime));
+                times.add(travelTime + 0.5);
+            }
+            for (double time : times) {
+                List<VirtualNode<Link>> reachable = quantityGridCell.nodesReachableWithin(Quantity.of(time, SI.SECOND));
+                int numberReachable = gridCell.numberReachableWithin(time);
+                assertEquals(reachable.size(), numberReachable);
+                for (int position = 0; position < numberReachable; ++position)
+                    assertSame(reachable.get(position), virtualNodes.get(gridCell.getReachableVNodeIndexAt(position)));
+            }
+        }
+    }
+
+    /** cells with equal travel time or distance are sorted by index, the former {@link GridCell} kept only the last one
+     * of them in its maps */
+    public void testTies() {
+        float[] travelTimes = { 0, 60, 30, 60, 30, 90, 60 };
+        float[] distances = { 0, 400, 400, 200, 200, 600, 400 };
+        GridCell gridCell = new GridCell(null, travelTimes, distances);
+        assertEquals(0, gridCell.getReachableVNodeIndexAt(0));
+        assertEquals(2, gridCell.getReachableVNodeIndexAt(1));
+        assertEquals(4, gridCell.getReachableVNodeIndexAt(2));
+        assertEquals(1, gridCell.getReachableVNodeIndexAt(3));
+        assertEquals(3, gridCell.getReachableVNodeIndexAt(4));
+        assertEquals(6, gridCell.getReachableVNodeIndexAt(5));
+        assertEquals(5, gridCell.getReachableVNodeIndexAt(6));
+        int[] distanceSorted = IntStream.range(0, 9).map(gridCell::getVNodeIndexAt).toArray();
+        assertTrue(Arrays.equals(new int[] { 0, 3, 4, 1, 2, 6, 5, 5, 5 }, distanceSorted));
+        assertEquals(0, gridCell.numberReachableWithin(0));
+        assertEquals(1, gridCell.numberReachableWithin(30));
+        assertEquals(3, gridCell.numberReachableWithin(31));
+        assertEquals(3, gridCell.numberReachableWithin(60));
+        assertEquals(6, gridCell.numberReachableWithin(90));
+        assertEquals(7, gridCell.numberReachableWithin(91));
+
+        QuantityGridCell quantityGridCell = new QuantityGridCell(virtualNodes().subList(0, travelTimes.length), travelTimes, distances);
+        assertEquals(4, quantityGridCell.temporalSorted().size());
+        assertEquals(4, quantityGridCell.distanceSorted().size());
+        assertEquals(2, quantityGridCell.nodesReachableWithin(Quantity.of(31, SI.SECOND)).size());
+    }
+
+    private static List<VirtualNode<Link>> virtualNodes() {
+        return IntStream.range(0, SIZE) //
+                .mapToObj(index -> new VirtualNode<Link>(index, "vNode_" + index, new HashMap<>(), Tensors.vector(0, 0))) //
+                .collect(Collectors.toList());
+    }
+
+    /** @return distinct random values, zero at index cell */
+    private static float[] distinct(Random random, int cell, int scale) {
+        float[] values = new float[SIZE];
+        List<Float> used = new ArrayList<>();
+        used.add(0f);
+        for (int index = 0; index < SIZE; ++index)
+            if (index != cell) {
+                float value;
+                do
+                    value = (float) (random.nextDouble() * scale * SIZE);
+                while (used.contains(value));
+                used.add(value);
+                values[index] = value;
+            }
+        return values;
+    }
+}
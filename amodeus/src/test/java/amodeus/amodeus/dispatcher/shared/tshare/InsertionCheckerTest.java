@@ -0,0 +1,91 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.tshare;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import org.matsim.amodeus.config.AmodeusModeConfig;
+import org.matsim.amodeus.dvrp.request.AmodeusRequest;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.dvrp.optimizer.Request;
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+
+import amodeus.amodeus.GridNetworkCreator;
+import amodeus.amodeus.dispatcher.core.RoboTaxi;
+import amodeus.amodeus.dispatcher.core.StaticRoboTaxiCreator;
+import amodeus.amodeus.dispatcher.shared.SharedCourse;
+import amodeus.amodeus.dispatcher.shared.tshare.TShareReference.QuantityInsertionChecker;
+import amodeus.amodeus.routing.CachedNetworkTimeDistance;
+import amodeus.amodeus.routing.EasyMinDistPathCalculator;
+import amodeus.amodeus.routing.EasyMinTimePathCalculator;
+import amodeus.amodeus.util.math.SI;
+import amodeus.amodeus.util.matsim.SafeConfig;
+import ch.ethz.idsc.tensor.qty.Quantity;
+import junit.framework.TestCase;
+
+public class InsertionCheckerTest extends TestCase {
+    private static final int GRID = 11;
+    private static final double SPACING = 200;
+    private static final int CHECKS = 200;
+    private static final double PICKUP_DELAY_MAX = 300;
+    private static final double DRPOFF_DELAY_MAX = 600;
+
+    /** the additional distance and the menu of the optimal insertion are the ones of the former checker with
+     * {@link Quantity} values and a tree map of the feasible menus by their length, no insertion is found if
+     * the former checker found none */
+    public void testReference() {
+        Network network = GridNetworkCreator.create(GRID, SPACING, (i, j) -> 5 + (7 * i + 3 * j) % 11);
+        List<Link> links = new ArrayList<>(network.getLinks().values());
+        FastAStarLandmarksFactory factory = new FastAStarLandmarksFactory(1);
+        SafeConfig safeConfig = SafeConfig.wrap(new AmodeusModeConfig(AmodeusModeConfig.DEFAULT_MODE).getDispatcherConfig());
+        CachedNetworkTimeDistance distance = //
+                CachedNetworkTimeDistance.of(EasyMinDistPathCalculator.prepPathCalculator(network, factory), 180000.0, safeConfig);
+        CachedNetworkTimeDistance travelTime = //
+                CachedNetworkTimeDistance.of(EasyMinTimePathCalculator.prepPathCalculator(network, factory), 180000.0, safeConfig);
+
+        Random random = new Random(1);
+        int feasible = 0;
+        int infeasible = 0;
+        for (int index = 0; index < CHECKS; ++index) {
+            /** the taxi has one or two requests in its menu, submitted up to two minutes ago */
+            double now = 120;
+            RoboTaxi roboTaxi = StaticRoboTaxiCreator.createStayingRoboTaxi(links.get(random.nextInt(links.size())), null);
+            int menuRequests = 1 + random.nextInt(2);
+            for (int request = 0; request < menuRequests; ++request)
+                StaticRoboTaxiCreator.addPassengerRequestToMenu(roboTaxi, request(index + "_" + request, links, random, random.nextDouble() * now));
+            PassengerRequest request = request(Integer.toString(index), links, random, now);
+
+            QuantityInsertionChecker expected = new QuantityInsertionChecker(distance, travelTime, roboTaxi, request, //
+                    Quantity.of(PICKUP_DELAY_MAX, SI.SECOND), Quantity.of(DRPOFF_DELAY_MAX, SI.SECOND), now);
+            InsertionChecker insertionChecker = new InsertionChecker(distance, travelTime, roboTaxi, request, //
+                    PICKUP_DELAY_MAX, DRPOFF_DELAY_MAX, now);
+            assertSame(roboTaxi, insertionChecker.getRoboTaxi());
+            assertSame(request, insertionChecker.getRequest());
+            if (Objects.isNull(expected.getOptimalMenu())) {
+                assertEquals(Double.POSITIVE_INFINITY, insertionChecker.getAddDistance());
+                List<SharedCourse> menu = new ArrayList<>(roboTaxi.getUnmodifiableViewOfCourses());
+                insertionChecker.executeBest((rt, avr) -> fail());
+                assertEquals(menu, roboTaxi.getUnmodifiableViewOfCourses());
+                ++infeasible;
+            } else {
+                assertEquals(expected.getAddDistance().number().doubleValue(), insertionChecker.getAddDistance(), 0.0);
+                insertionChecker.executeBest(StaticRoboTaxiCreator::addPassengerRequestToMenu);
+                assertEquals(expected.getOptimalMenu(), roboTaxi.getUnmodifiableViewOfCourses());
+                ++feasible;
+            }
+        }
+        assertTrue(0 < feasible);
+        assertTrue(0 < infeasible);
+    }
+
+    private static PassengerRequest request(String id, List<Link> links, Random random, double submissionTime) {
+        return new AmodeusRequest(Id.create(id, Request.class), null, //
+                links.get(random.nextInt(links.size())), links.get(random.nextInt(links.size())), //
+                submissionTime, AmodeusModeConfig.DEFAULT_MODE, null);
+    }
+}
@@ -0,0 +1,108 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.tshare;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.matsim.amodeus.config.AmodeusModeConfig;
+import org.matsim.amodeus.dvrp.request.AmodeusRequest;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.dvrp.optimizer.Request;
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+
+import amodeus.amodeus.GridNetworkCreator;
+import amodeus.amodeus.dispatcher.core.RoboTaxi;
+import amodeus.amodeus.dispatcher.core.StaticRoboTaxiCreator;
+import amodeus.amodeus.routing.CachedNetworkTimeDistance;
+import amodeus.amodeus.routing.EasyMinDistPathCalculator;
+import amodeus.amodeus.routing.EasyMinTimePathCalculator;
+import amodeus.amodeus.util.matsim.SafeConfig;
+import junit.framework.TestCase;
+
+public class InsertionSelectionTest extends TestCase {
+    private static final int GRID = 11;
+    private static final double SPACING = 200;
+    private static final int FLEET_SIZE = 8;
+    private static final int REQUESTS = 40;
+    private static final int POTENTIAL_TAXIS = 4;
+    private static final double PICKUP_DELAY_MAX = 600;
+    private static final double DRPOFF_DELAY_MAX = 1800;
+
+    /** the insertions committed with the parallel evaluation on the menus at the start of the period are identical to
+     * the insertions committed with the sequential evaluation, although the menus change during the period */
+    public void testSequentialParallel() {
+        Network network = GridNetworkCreator.create(GRID, SPACING, 10);
+        List<Link> links = new ArrayList<>(network.getLinks().values());
+        SafeConfig safeConfig = SafeConfig.wrap(new AmodeusModeConfig(AmodeusModeConfig.DEFAULT_MODE).getDispatcherConfig());
+
+        Random random = new Random(1);
+        List<PassengerRequest> requests = new ArrayList<>();
+        for (int index = 0; index < FLEET_SIZE + REQUESTS; ++index)
+            requests.add(new AmodeusRequest(Id.create(index, Request.class), null, //
+                    links.get(random.nextInt(links.size())), links.get(random.nextInt(links.size())), //
+                    0.0, AmodeusModeConfig.DEFAULT_MODE, null));
+        List<Link> taxiLinks = new ArrayList<>();
+        for (int index = 0; index < FLEET_SIZE; ++index)
+            taxiLinks.add(links.get(random.nextInt(links.size())));
+        List<int[]> potentialIndices = new ArrayList<>();
+        for (int index = 0; index < REQUESTS; ++index)
+            potentialIndices.add(random.ints(0, FLEET_SIZE).distinct().limit(POTENTIAL_TAXIS).toArray());
+
+        /** both fleets start with the same menus, one request each */
+        List<RoboTaxi> sequentialFleet = fleet(taxiLinks, requests);
+        List<RoboTaxi> parallelFleet = fleet(taxiLinks, requests);
+        List<InsertionChecker> sequential = insertionSelection(network, safeConfig, null) //
+                .insert(potentialTaxis(requests, potentialIndices, sequentialFleet), 0.0, StaticRoboTaxiCreator::addPassengerRequestToMenu);
+        List<InsertionChecker> parallel = insertionSelection(network, safeConfig, new ParallelInsertionEvaluator(network, safeConfig, 4)) //
+                .insert(potentialTaxis(requests, potentialIndices, parallelFleet), 0.0, StaticRoboTaxiCreator::addPassengerRequestToMenu);
+
+        /** several requests are inserted into the same taxi such that checkers are recomputed */
+        assertTrue(FLEET_SIZE < sequential.size());
+        assertEquals(sequential.size(), parallel.size());
+        for (int index = 0; index < sequential.size(); ++index) {
+            assertSame(sequential.get(index).getRequest(), parallel.get(index).getRequest());
+            assertEquals(sequentialFleet.indexOf(sequential.get(index).getRoboTaxi()), parallelFleet.indexOf(parallel.get(index).getRoboTaxi()));
+            assertEquals(sequential.get(index).getAddDistance(), parallel.get(index).getAddDistance(), 0.0);
+        }
+        for (int index = 0; index < FLEET_SIZE; ++index)
+            assertEquals(sequentialFleet.get(index).getUnmodifiableViewOfCourses(), parallelFleet.get(index).getUnmodifiableViewOfCourses());
+    }
+
+    private static InsertionSelection insertionSelection(Network network, SafeConfig safeConfig, ParallelInsertionEvaluator parallelInsertionEvaluator) {
+        FastAStarLandmarksFactory factory = new FastAStarLandmarksFactory(1);
+        return new InsertionSelection( //
+                CachedNetworkTimeDistance.of(EasyMinDistPathCalculator.prepPathCalculator(network, factory), 180000.0, safeConfig), //
+                CachedNetworkTimeDistance.of(EasyMinTimePathCalculator.prepPathCalculator(network, factory), 180000.0, safeConfig), //
+                PICKUP_DELAY_MAX, DRPOFF_DELAY_MAX, parallelInsertionEvaluator);
+    }
+
+    /** @return taxis on taxiLinks, the taxi at index has the request at index in its menu */
+    private static List<RoboTaxi> fleet(List<Link> taxiLinks, List<PassengerRequest> requests) {
+        List<RoboTaxi> roboTaxis = new ArrayList<>();
+        for (int index = 0; index < taxiLinks.size(); ++index) {
+            RoboTaxi roboTaxi = StaticRoboTaxiCreator.createStayingRoboTaxi(taxiLinks.get(index), null);
+            StaticRoboTaxiCreator.addPassengerRequestToMenu(roboTaxi, requests.get(index));
+            roboTaxis.add(roboTaxi);
+        }
+        return roboTaxis;
+    }
+
+    private static Map<PassengerRequest, Collection<RoboTaxi>> potentialTaxis(List<PassengerRequest> requests, List<int[]> potentialIndices, //
+            List<RoboTaxi> fleet) {
+        Map<PassengerRequest, Collection<RoboTaxi>> potentialTaxis = new LinkedHashMap<>();
+        for (int index = 0; index < potentialIndices.size(); ++index) {
+            List<RoboTaxi> roboTaxis = new ArrayList<>();
+            for (int taxi : potentialIndices.get(index))
+                roboTaxis.add(fleet.get(taxi));
+            potentialTaxis.put(requests.get(FLEET_SIZE + index), roboTaxis);
+        }
+        return potentialTaxis;
+    }
+}
@@ -0,0 +1,157 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.tshare;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.matsim.amodeus.config.AmodeusModeConfig;
+import org.matsim.amodeus.dvrp.request.AmodeusRequest;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.dvrp.optimizer.Request;
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+import org.matsim.core.utils.collections.QuadTree;
+
+import amodeus.amodeus.GridNetworkCreator;
+import amodeus.amodeus.dispatcher.core.RoboTaxi;
+import amodeus.amodeus.dispatcher.core.StaticRoboTaxiCreator;
+import amodeus.amodeus.dispatcher.shared.tshare.TShareReference.QuantityGridCell;
+import amodeus.amodeus.dispatcher.shared.tshare.TShareReference.QuantityInsertionChecker;
+import amodeus.amodeus.routing.CachedNetworkTimeDistance;
+import amodeus.amodeus.routing.EasyMinDistPathCalculator;
+import amodeus.amodeus.routing.EasyMinTimePathCalculator;
+import amodeus.amodeus.util.geo.FastQuadTree;
+import amodeus.amodeus.util.math.SI;
+import amodeus.amodeus.util.matsim.SafeConfig;
+import amodeus.amodeus.virtualnetwork.core.VirtualNetwork;
+import amodeus.amodeus.virtualnetwork.core.VirtualNode;
+import ch.ethz.idsc.tensor.Scalar;
+import ch.ethz.idsc.tensor.qty.Quantity;
+
+/** compares the startup and the per request latency of {@link TShareDispatcher} with the {@link TShareReference} on a grid
+ * network of 8 km x 8 km for several numbers of {@link GridCell}s. The startup is the computation of the travel times and
+ * distances between all {@link GridCell}s, serially with the cached path calculators for the reference and with
+ * {@link GridCellMatrix} in one and in all threads. The latency per request is the one of the dual side search and of the
+ * insertion feasibility checks of the potential taxis, all taxis carry one request. Argument: [threads] */
+/* package */ enum TShareBenchmark {
+    ;
+    private static final int[] DIVISIONS = { 10, 20, 30 };
+    private static final int FLEET_SIZE = 1000;
+    private static final int REQUESTS = 1000;
+    private static final int GRID = 41;
+    private static final double SPACING = 200;
+    private static final double FREESPEED = 13.89;
+    private static final double PICKUP_DELAY_MAX = 600;
+    private static final double DRPOFF_DELAY_MAX = 1800;
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        Network network = GridNetworkCreator.create(GRID, SPACING, FREESPEED);
+        List<Link> links = new ArrayList<>(network.getLinks().values());
+        QuadTree<Link> linkTree = FastQuadTree.of(network);
+        SafeConfig safeConfig = SafeConfig.wrap(new AmodeusModeConfig(AmodeusModeConfig.DEFAULT_MODE).getDispatcherConfig());
+        for (int divisions : DIVISIONS) {
+            VirtualNetwork<Link> virtualNetwork = TShareGrid.virtualNetwork(network, GRID, SPACING, divisions);
+
+            /** startup */
+            FastAStarLandmarksFactory factory = new FastAStarLandmarksFactory(threads);
+            long tic = System.nanoTime();
+            CachedNetworkTimeDistance minDist = //
+                    CachedNetworkTimeDistance.of(EasyMinDistPathCalculator.prepPathCalculator(network, factory), 180000.0, safeConfig);
+            CachedNetworkTimeDistance minTime = //
+                    CachedNetworkTimeDistance.of(EasyMinTimePathCalculator.prepPathCalculator(network, factory), 180000.0, safeConfig);
+            Map<VirtualNode<Link>, QuantityGridCell> gridCells = new HashMap<>();
+            for (VirtualNode<Link> virtualNode : virtualNetwork.getVirtualNodes())
+                gridCells.put(virtualNode, new QuantityGridCell(virtualNode, virtualNetwork, minDist, minTime, linkTree));
+            long referenceNanos = System.nanoTime() - tic;
+            tic = System.nanoTime();
+            new GridCellMatrix(network, virtualNetwork, linkTree, new FastAStarLandmarksFactory(threads), 1);
+            long serialNanos = System.nanoTime() - tic;
+            tic = System.nanoTime();
+            GridCellMatrix gridCellMatrix = new GridCellMatrix(network, virtualNetwork, linkTree, new FastAStarLandmarksFactory(threads), threads);
+            long parallelNanos = System.nanoTime() - tic;
+            System.out.println(String.format("%4d grid cells startup: reference %8.1f[ms], matrix 1 thread %8.1f[ms], %2d threads %8.1f[ms]", //
+                    virtualNetwork.getvNodesCount(), referenceNanos * 1e-6, serialNanos * 1e-6, threads, parallelNanos * 1e-6));
+
+            /** latency per request, the caches of the travel times and distances are filled in a first round */
+            Random random = new Random(divisions);
+            double now = 300;
+            List<RoboTaxi> roboTaxis = new ArrayList<>();
+            for (int index = 0; index < FLEET_SIZE; ++index) {
+                RoboTaxi roboTaxi = StaticRoboTaxiCreator.createStayingRoboTaxi(links.get(random.nextInt(links.size())), null);
+                StaticRoboTaxiCreator.addPassengerRequestToMenu(roboTaxi, request("taxi_" + index, links, random, random.nextDouble() * now));
+                roboTaxis.add(roboTaxi);
+            }
+            Map<VirtualNode<Link>, Set<RoboTaxi>> plannedLocations = RoboTaxiPlannedLocations.of(roboTaxis, virtualNetwork);
+            List<PassengerRequest> requests = new ArrayList<>();
+            for (int index = 0; index < REQUESTS; ++index)
+                requests.add(request(Integer.toString(index), links, random, now - random.nextDouble() * 60));
+            DualSideSearch dualSideSearch = new DualSideSearch(gridCellMatrix, virtualNetwork);
+            for (int round = 0; round < 2; ++round) {
+                int referenceInsertions = 0;
+                tic = System.nanoTime();
+                for (PassengerRequest request : requests)
+                    if (Objects.nonNull(reference(gridCells, virtualNetwork, plannedLocations, minDist, minTime, request, now)))
+                        ++referenceInsertions;
+                referenceNanos = System.nanoTime() - tic;
+                int insertions = 0;
+                tic = System.nanoTime();
+                for (PassengerRequest request : requests)
+                    if (Objects.nonNull(primitive(dualSideSearch, plannedLocations, minDist, minTime, request, now)))
+                        ++insertions;
+                long primitiveNanos = System.nanoTime() - tic;
+                System.out.println(String.format("    round %d per request: reference %7.3f[ms] %4d insertions, primitive %7.3f[ms] %4d insertions", //
+                        round, referenceNanos * 1e-6 / REQUESTS, referenceInsertions, primitiveNanos * 1e-6 / REQUESTS, insertions));
+            }
+        }
+    }
+
+    /** @return best insertion of the reference, null if none */
+    private static QuantityInsertionChecker reference(Map<VirtualNode<Link>, QuantityGridCell> gridCells, VirtualNetwork<Link> virtualNetwork, //
+            Map<VirtualNode<Link>, Set<RoboTaxi>> plannedLocations, CachedNetworkTimeDistance minDist, CachedNetworkTimeDistance minTime, //
+            PassengerRequest request, double now) {
+        Scalar timeLeftForPickup = Quantity.of(LatestPickup.timeTo(request, PICKUP_DELAY_MAX, now), SI.SECOND);
+        Scalar timeLeftUntilArrival = Quantity.of(LatestArrival.timeTo(request, DRPOFF_DELAY_MAX, minTime, now), SI.SECOND);
+        Collection<RoboTaxi> potentialTaxis = TShareReference.dualSideSearch(gridCells, virtualNetwork, request, plannedLocations, //
+                timeLeftForPickup, timeLeftUntilArrival);
+        NavigableMap<Scalar, QuantityInsertionChecker> insertions = new TreeMap<>();
+        for (RoboTaxi roboTaxi : potentialTaxis) {
+            QuantityInsertionChecker checker = new QuantityInsertionChecker(minDist, minTime, roboTaxi, request, //
+                    Quantity.of(PICKUP_DELAY_MAX, SI.SECOND), Quantity.of(DRPOFF_DELAY_MAX, SI.SECOND), now);
+            if (Objects.nonNull(checker.getAddDistance()))
+                insertions.put(checker.getAddDistance(), checker);
+        }
+        return insertions.isEmpty() ? null : insertions.firstEntry().getValue();
+    }
+
+    /** @return best insertion of {@link DualSideSearch} and {@link InsertionChecker}, null if none */
+    private static InsertionChecker primitive(DualSideSearch dualSideSearch, Map<VirtualNode<Link>, Set<RoboTaxi>> plannedLocations, //
+            CachedNetworkTimeDistance minDist, CachedNetworkTimeDistance minTime, PassengerRequest request, double now) {
+        double timeLeftForPickup = LatestPickup.timeTo(request, PICKUP_DELAY_MAX, now);
+        double timeLeftUntilArrival = LatestArrival.timeTo(request, DRPOFF_DELAY_MAX, minTime, now);
+        InsertionChecker bestInsertion = null;
+        for (RoboTaxi roboTaxi : dualSideSearch.apply(request, plannedLocations, timeLeftForPickup, timeLeftUntilArrival)) {
+            InsertionChecker checker = new InsertionChecker(minDist, minTime, roboTaxi, request, PICKUP_DELAY_MAX, DRPOFF_DELAY_MAX, now);
+            if (Double.isFinite(checker.getAddDistance()) && //
+                    (Objects.isNull(bestInsertion) || checker.getAddDistance() <= bestInsertion.getAddDistance()))
+                bestInsertion = checker;
+        }
+        return bestInsertion;
+    }
+
+    private static PassengerRequest request(String id, List<Link> links, Random random, double submissionTime) {
+        return new AmodeusRequest(Id.create(id, Request.class), null, //
+                links.get(random.nextInt(links.size())), links.get(random.nextInt(links.size())), //
+                submissionTime, AmodeusModeConfig.DEFAULT_MODE, null);
+    }
+}
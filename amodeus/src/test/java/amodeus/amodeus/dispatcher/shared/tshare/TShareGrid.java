@@ -0,0 +1,38 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.tshare;
+
+import java.util.Collection;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+import amodeus.amodeus.GridNetworkCreator;
+import amodeus.amodeus.dispatcher.util.TensorLocation;
+import amodeus.amodeus.prep.NetworkCreatorUtils;
+import amodeus.amodeus.util.network.NodeAdjacencyMap;
+import amodeus.amodeus.virtualnetwork.RectangleGridVirtualNetworkCreator;
+import amodeus.amodeus.virtualnetwork.core.VirtualNetwork;
+import ch.ethz.idsc.tensor.Tensors;
+
+/** rectangular {@link VirtualNetwork} as recommended for T-Share on a network of {@link GridNetworkCreator} */
+/* package */ enum TShareGrid {
+    ;
+
+    /** @param network of {@link GridNetworkCreator} with size nodes per row and column
+     * @param size
+     * @param spacing of the nodes
+     * @param divisions number of cells per row and column
+     * @return {@link VirtualNetwork} with divisions x divisions cells that contain every {@link Link}, adjacent cells are
+     *         neighbors */
+    public static VirtualNetwork<Link> virtualNetwork(Network network, int size, double spacing, int divisions) {
+        /** the bounds extend half a spacing beyond the nodes such that the links on the upper bounds are contained */
+        double lower = -spacing / 2;
+        double upper = (size - 1) * spacing + spacing / 2;
+        @SuppressWarnings("unchecked")
+        Collection<Link> elements = (Collection<Link>) network.getLinks().values();
+        return new RectangleGridVirtualNetworkCreator<Link, Node>( //
+                elements, TensorLocation::of, NetworkCreatorUtils::linkToID, divisions, divisions, //
+                Tensors.vector(lower, upper), Tensors.vector(lower, upper), NodeAdjacencyMap.of(network), false).getVirtualNetwork();
+    }
+}
@@ -0,0 +1,257 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.shared.tshare;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import org.matsim.core.utils.collections.QuadTree;
+
+import amodeus.amodeus.dispatcher.core.RoboTaxi;
+import amodeus.amodeus.dispatcher.shared.Compatibility;
+import amodeus.amodeus.dispatcher.shared.SharedCourse;
+import amodeus.amodeus.dispatcher.shared.SharedMealType;
+import amodeus.amodeus.routing.NetworkTimeDistInterface;
+import amodeus.amodeus.util.math.GlobalAssert;
+import amodeus.amodeus.util.math.SI;
+import amodeus.amodeus.virtualnetwork.core.VirtualNetwork;
+import amodeus.amodeus.virtualnetwork.core.VirtualNode;
+import ch.ethz.idsc.tensor.Scalar;
+import ch.ethz.idsc.tensor.Scalars;
+import ch.ethz.idsc.tensor.qty.Quantity;
+import ch.ethz.idsc.tensor.sca.Sign;
+
+/** the implementation of T-Share with {@link Quantity} values and {@link TreeMap}s that preceded {@link GridCellMatrix},
+ * the primitive {@link GridCell}, the flag based {@link DualSideSearch} and the double based {@link InsertionChecker}.
+ * The results and the computation times of both implementations are compared in the tests and in {@link TShareBenchmark}. */
+/* package */ enum TShareReference {
+    ;
+
+    /** the former {@link GridCell}, {@link GridCell}s with equal travel time or distance overwrite each other in the maps */
+    static class QuantityGridCell {
+        private final NavigableMap<Scalar, VirtualNode<Link>> temporalSortedMap = new TreeMap<>();
+        private final NavigableMap<Scalar, VirtualNode<Link>> distanceSortedMap = new TreeMap<>();
+        private final NavigableMap<Scalar, List<VirtualNode<Link>>> nodesWithinLessThan = new TreeMap<>();
+
+        /** the maps are computed from the travel times and distances between the centers of the {@link GridCell}s */
+        QuantityGridCell(VirtualNode<Link> virtualNode, VirtualNetwork<Link> virtualNetwork, //
+                NetworkTimeDistInterface minDist, NetworkTimeDistInterface minTime, QuadTree<Link> linkTree) {
+            Link gridCellCenterLink = centerLink(virtualNode, linkTree);
+            for (VirtualNode<Link> otherGridCell : virtualNetwork.getVirtualNodes()) {
+                Link otherCenterLink = centerLink(otherGridCell, linkTree);
+                temporalSortedMap.put(minTime.travelTime(gridCellCenterLink, otherCenterLink, 0.0), otherGridCell);
+                distanceSortedMap.put(minDist.distance(gridCellCenterLink, otherCenterLink, 0.0), otherGridCell);
+            }
+            fillNodesWithinLessThan();
+        }
+
+        /** the maps are filled with the @param travelTimes and the @param distances to the @param virtualNodes by their index */
+        QuantityGridCell(Collection<VirtualNode<Link>> virtualNodes, float[] travelTimes, float[] distances) {
+            for (VirtualNode<Link> otherGridCell : virtualNodes) {
+                temporalSortedMap.put(Quantity.of((double) travelTimes[otherGridCell.getIndex()], SI.SECOND), otherGridCell);
+                distanceSortedMap.put(Quantity.of((double) distances[otherGridCell.getIndex()], SI.METER), otherGridCell);
+            }
+            fillNodesWithinLessThan();
+        }
+
+        private void fillNodesWithinLessThan() {
+            nodesWithinLessThan.put(Quantity.of(-0.0000001, SI.SECOND), new ArrayList<>());
+            for (Entry<Scalar, VirtualNode<Link>> entry : temporalSortedMap.entrySet()) {
+                List<VirtualNode<Link>> updatedList = new ArrayList<>(nodesWithinLessThan.lastEntry().getValue());
+                updatedList.add(entry.getValue());
+                nodesWithinLessThan.put(entry.getKey(), updatedList);
+            }
+        }
+
+        VirtualNode<Link> getVNodeAt(int position) {
+            GlobalAssert.that(position >= 0);
+            int i = 0;
+            for (Entry<Scalar, VirtualNode<Link>> entry : distanceSortedMap.entrySet()) {
+                if (i == position)
+                    return entry.getValue();
+                ++i;
+            }
+            return distanceSortedMap.lastEntry().getValue();
+        }
+
+        /** @return {@link VirtualNode}s in the order of the travel time */
+        List<VirtualNode<Link>> temporalSorted() {
+            return new ArrayList<>(temporalSortedMap.values());
+        }
+
+        /** @return {@link VirtualNode}s in the order of the distance */
+        List<VirtualNode<Link>> distanceSorted() {
+            return new ArrayList<>(distanceSortedMap.values());
+        }
+
+        List<VirtualNode<Link>> nodesReachableWithin(Scalar time) {
+            return nodesWithinLessThan.lowerEntry(Sign.requirePositiveOrZero(time)).getValue();
+        }
+    }
+
+    static Link centerLink(VirtualNode<Link> virtualNode, QuadTree<Link> linkTree) {
+        return linkTree.getClosest( //
+                virtualNode.getCoord().Get(0).number().doubleValue(), //
+                virtualNode.getCoord().Get(1).number().doubleValue());
+    }
+
+    /** the former dual side search with {@link Collection}s of {@link VirtualNode}s and the intersection of the origin and
+     * destination taxis computed in every iteration. The close cells are copied, the former implementation removed them
+     * from the lists of the {@link QuantityGridCell}s. The order of the {@link GridCell}s is the one of the
+     * {@link QuantityGridCell}s. */
+    static Set<RoboTaxi> dualSideSearch(Map<VirtualNode<Link>, QuantityGridCell> gridCells, VirtualNetwork<Link> virtualNetwork, //
+            PassengerRequest request, Map<VirtualNode<Link>, Set<RoboTaxi>> plannedLocations, //
+            Scalar timeLeftForPickup, Scalar timeLeftUntilArrival) {
+        QuantityGridCell oCell = gridCells.get(virtualNetwork.getVirtualNode(request.getFromLink()));
+        QuantityGridCell dCell = gridCells.get(virtualNetwork.getVirtualNode(request.getToLink()));
+        return dualSideSearch(oCell::getVNodeAt, dCell::getVNodeAt, //
+                new ArrayList<>(oCell.nodesReachableWithin(timeLeftForPickup)), //
+                new ArrayList<>(dCell.nodesReachableWithin(timeLeftUntilArrival)), plannedLocations);
+    }
+
+    /** the former dual side search on the order and the reachable cells of the primitive {@link GridCell}s */
+    static Set<RoboTaxi> dualSideSearch(GridCellMatrix gridCellMatrix, VirtualNetwork<Link> virtualNetwork, //
+            PassengerRequest request, Map<VirtualNode<Link>, Set<RoboTaxi>> plannedLocations, //
+            double timeLeftForPickup, double timeLeftUntilArrival) {
+        GridCell oCell = gridCellMatrix.getGridCell(virtualNetwork.getVirtualNode(request.getFromLink()).getIndex());
+        GridCell dCell = gridCellMatrix.getGridCell(virtualNetwork.getVirtualNode(request.getToLink()).getIndex());
+        return dualSideSearch( //
+                position -> virtualNetwork.getVirtualNode(oCell.getVNodeIndexAt(position)), //
+                position -> virtualNetwork.getVirtualNode(dCell.getVNodeIndexAt(position)), //
+                reachable(oCell, timeLeftForPickup, virtualNetwork), //
+                reachable(dCell, timeLeftUntilArrival, virtualNetwork), plannedLocations);
+    }
+
+    private static Collection<VirtualNode<Link>> reachable(GridCell gridCell, double time, VirtualNetwork<Link> virtualNetwork) {
+        Collection<VirtualNode<Link>> reachable = new ArrayList<>();
+        for (int position = 0; position < gridCell.numberReachableWithin(time); ++position)
+            reachable.add(virtualNetwork.getVirtualNode(gridCell.getReachableVNodeIndexAt(position)));
+        return reachable;
+    }
+
+    private interface VNodeAt {
+        VirtualNode<Link> at(int position);
+    }
+
+    private static Set<RoboTaxi> dualSideSearch(VNodeAt oCell, VNodeAt dCell, //
+            Collection<VirtualNode<Link>> oCloseCells, Collection<VirtualNode<Link>> dCloseCells, //
+            Map<VirtualNode<Link>, Set<RoboTaxi>> plannedLocations) {
+        Set<RoboTaxi> oTaxis = new HashSet<>();
+        Set<RoboTaxi> dTaxis = new HashSet<>();
+        Set<RoboTaxi> potentialTaxis = new HashSet<>();
+        int index = 0;
+        boolean stop0 = false;
+        boolean stopD = false;
+        while (potentialTaxis.isEmpty() && (!stop0 || !stopD)) {
+            if (0 < oCloseCells.size()) {
+                VirtualNode<Link> vNode = oCell.at(index);
+                if (oCloseCells.contains(vNode)) {
+                    oTaxis.addAll(plannedLocations.get(vNode));
+                    oCloseCells.remove(vNode);
+                }
+            } else
+                stop0 = true;
+            if (0 < dCloseCells.size()) {
+                VirtualNode<Link> vNode = dCell.at(index);
+                if (dCloseCells.contains(vNode)) {
+                    dTaxis.addAll(plannedLocations.get(vNode));
+                    dCloseCells.remove(vNode);
+                }
+            } else
+                stopD = true;
+            potentialTaxis = oTaxis.stream().filter(dTaxis::contains).collect(Collectors.toSet());
+            ++index;
+        }
+        return potentialTaxis;
+    }
+
+    /** the former insertion feasibility check with the feasible menus in a {@link TreeMap} by their length */
+    static class QuantityInsertionChecker {
+        private List<SharedCourse> optimalMenu = null;
+        private Scalar addDistance = null;
+
+        QuantityInsertionChecker(NetworkTimeDistInterface distance, NetworkTimeDistInterface travelTimeCached, //
+                RoboTaxi roboTaxi, PassengerRequest request, Scalar pickupDelayMax, Scalar drpoffDelayMax, double timeNow) {
+            List<SharedCourse> originalMenu = roboTaxi.getUnmodifiableViewOfCourses();
+            int length = originalMenu.size();
+            GlobalAssert.that(0 < length);
+            Scalar originalLength = length(roboTaxi.getDivertableLocation(), originalMenu, distance, timeNow);
+            SharedCourse pickupCourse = SharedCourse.pickupCourse(request);
+            SharedCourse drpoffCourse = SharedCourse.dropoffCourse(request);
+            NavigableMap<Scalar, List<SharedCourse>> menuOptions = new TreeMap<>();
+            for (int i = 0; i <= length; ++i)
+                for (int j = length; j >= i; j--) {
+                    List<SharedCourse> newMenu = new ArrayList<>();
+                    for (int k = 0; k <= length; ++k) {
+                        if (i == k)
+                            newMenu.add(pickupCourse);
+                        if (j == k)
+                            newMenu.add(drpoffCourse);
+                        if (k < length)
+                            newMenu.add(originalMenu.get(k));
+                    }
+                    if (!Compatibility.of(newMenu).forCapacity(roboTaxi.getCapacity()))
+                        continue;
+                    if (!timeWindowCheck(timeNow, newMenu, travelTimeCached, roboTaxi.getLastKnownLocation(), pickupDelayMax, drpoffDelayMax))
+                        continue;
+                    menuOptions.put(length(roboTaxi.getDivertableLocation(), newMenu, distance, timeNow), newMenu);
+                }
+            if (!menuOptions.isEmpty()) {
+                optimalMenu = menuOptions.firstEntry().getValue();
+                addDistance = menuOptions.firstEntry().getKey().subtract(originalLength);
+            }
+        }
+
+        /** @return null if no feasible insertion exists */
+        List<SharedCourse> getOptimalMenu() {
+            return optimalMenu;
+        }
+
+        /** @return null if no feasible insertion exists */
+        Scalar getAddDistance() {
+            return addDistance;
+        }
+    }
+
+    private static Scalar length(Link startLocation, List<SharedCourse> menu, NetworkTimeDistInterface networkTimeDistInterface, double now) {
+        Link link = startLocation;
+        Scalar length = Quantity.of(0.0, SI.METER);
+        for (SharedCourse course : menu) {
+            length = length.add(networkTimeDistInterface.distance(link, course.getLink(), now));
+            link = course.getLink();
+        }
+        return length;
+    }
+
+    private static boolean timeWindowCheck(double timeNow, List<SharedCourse> newMenu, NetworkTimeDistInterface travelTimeCashed, //
+            Link startLocation, Scalar pickupDelayMax, Scalar drpoffDelayMax) {
+        Scalar timePrev = Quantity.of(timeNow, SI.SECOND);
+        for (SharedCourse course : newMenu) {
+            Scalar timeofCourse = timePrev.add(travelTimeCashed.travelTime(startLocation, course.getLink(), timeNow));
+            PassengerRequest request = course.getAvRequest();
+            if (course.getMealType().equals(SharedMealType.PICKUP) && //
+                    Scalars.lessThan(Quantity.of(request.getSubmissionTime(), SI.SECOND).add(pickupDelayMax), timeofCourse))
+                return false;
+            if (course.getMealType().equals(SharedMealType.DROPOFF) && //
+                    Scalars.lessThan(latestArrival(request, drpoffDelayMax, travelTimeCashed, timeNow), timeofCourse))
+                return false;
+            timePrev = timeofCourse;
+        }
+        return true;
+    }
+
+    private static Scalar latestArrival(PassengerRequest request, Scalar maxDropoffDelay, NetworkTimeDistInterface travelTimeCashed, double timeNow) {
+        return Quantity.of(request.getSubmissionTime(), SI.SECOND) //
+                .add(travelTimeCashed.travelTime(request.getFromLink(), request.getToLink(), timeNow)) //
+                .add(maxDropoffDelay);
+    }
+}
@@ -0,0 +1,78 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.util;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import amodeus.amodeus.util.hungarian.HungarianAlgorithmWrap;
+import junit.framework.TestCase;
+
+public class SparseAssignmentSolverTest extends TestCase {
+    private static double[][] randomCosts(Random random, int rows, int columns) {
+        double[][] costs = new double[rows][columns];
+        for (double[] row : costs)
+            for (int column = 0; column < columns; ++column)
+                row[column] = random.nextInt(100);
+        return costs;
+    }
+
+    private static double hungarianCost(double[][] costs) {
+        int[] matching = HungarianAlgorithmWrap.matching(costs);
+        return IntStream.range(0, costs.length).mapToDouble(row -> costs[row][matching[row]]).sum();
+    }
+
+    private static double cost(double[][] costs, int[] matching) {
+        assertEquals(matching.length, Arrays.stream(matching).distinct().count());
+        return IntStream.range(0, costs.length).mapToDouble(row -> costs[row][matching[row]]).sum();
+    }
+
+    private static int[][] allColumns(int rows, int columns) {
+        return IntStream.range(0, rows).mapToObj(row -> IntStream.range(0, columns).toArray()).toArray(int[][]::new);
+    }
+
+    public void testDenseEqualsHungarian() {
+        Random random = new Random(1);
+        for (int index = 0; index < 50; ++index) {
+            int rows = 1 + random.nextInt(20);
+            int columns = rows + random.nextInt(10);
+            double[][] costs = randomCosts(random, rows, columns);
+            SparseAssignmentSolver solver = new SparseAssignmentSolver(allColumns(rows, columns), costs, new double[columns], //
+                    (row, column) -> costs[row][column]);
+            int[] matching = solver.execute();
+            assertEquals(hungarianCost(costs), cost(costs, matching), 1e-9);
+            assertEquals(cost(costs, matching), solver.cost(), 1e-9);
+            assertFalse(solver.isWarmStarted());
+        }
+    }
+
+    public void testSparseRowsAreConnected() {
+        double[][] costs = { { 1, 2, 3 }, { 1, 2, 3 } };
+        /** both rows only know column 0 */
+        int[][] edgeColumns = { { 0 }, { 0 } };
+        double[][] edgeCosts = { { 1 }, { 1 } };
+        SparseAssignmentSolver solver = new SparseAssignmentSolver(edgeColumns, edgeCosts, new double[3], //
+                (row, column) -> costs[row][column]);
+        int[] matching = solver.execute();
+        assertEquals(3.0, cost(costs, matching), 1e-9);
+    }
+
+    public void testWarmStartIsOptimal() {
+        Random random = new Random(2);
+        for (int index = 0; index < 50; ++index) {
+            int rows = 1 + random.nextInt(20);
+            int columns = rows + random.nextInt(10);
+            double[][] costs = randomCosts(random, rows, columns);
+            double[] potentials = new double[columns];
+            SparseAssignmentSolver first = new SparseAssignmentSolver(allColumns(rows, columns), costs, potentials, //
+                    (row, column) -> costs[row][column]);
+            first.execute();
+            /** potentials of the first problem for a perturbed second problem */
+            double[][] next = Arrays.stream(costs).map(row -> Arrays.stream(row).map(cost -> cost + random.nextInt(5)).toArray()).toArray(double[][]::new);
+            SparseAssignmentSolver second = new SparseAssignmentSolver(allColumns(rows, columns), next, potentials, //
+                    (row, column) -> next[row][column]);
+            assertEquals(hungarianCost(next), cost(next, second.execute()), 1e-9);
+            assertTrue(Arrays.stream(potentials).allMatch(potential -> potential <= 0));
+        }
+    }
+}
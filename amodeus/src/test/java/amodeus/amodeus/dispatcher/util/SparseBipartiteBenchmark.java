@@ -0,0 +1,69 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.dispatcher.util;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import amodeus.amodeus.util.hungarian.HungarianAlgorithmWrap;
+
+/** compares the dense Hungarian matching of {@link GlobalBipartiteHelper} with the sparse matching of
+ * {@link SparseBipartiteHelper} for a peak hour of the Munich scenario, i.e., 3000 taxis and 1000 requests
+ * in an area of 20 km x 20 km with Euclidean distance as cost. The taxis move between dispatch periods and
+ * the sparse matching reuses the potentials of the previous period.
+ * Every period is timed separately, the first periods serve as warm up of the JVM. Argument: [candidates] */
+/* package */ enum SparseBipartiteBenchmark {
+    ;
+    private static final int TAXIS = 3000;
+    private static final int REQUESTS = 1000;
+    private static final double SIZE = 20_000;
+    private static final double MOVE = 500;
+    private static final int PERIODS = 10;
+
+    public static void main(String[] args) {
+        int candidates = args.length > 0 ? Integer.parseInt(args[0]) : SparseBipartiteMatching.DEFAULT_CANDIDATES;
+        Random random = new Random(1);
+        double[][] taxis = new double[TAXIS][];
+        for (int taxi = 0; taxi < TAXIS; ++taxi)
+            taxis[taxi] = new double[] { SIZE * random.nextDouble(), SIZE * random.nextDouble() };
+        /** requests are the rows, taxis the columns, the potentials of the taxis are kept */
+        double[] potentials = new double[TAXIS];
+        for (int period = 0; period < PERIODS; ++period) {
+            double[][] requests = new double[REQUESTS][];
+            for (int request = 0; request < REQUESTS; ++request)
+                requests[request] = new double[] { SIZE * random.nextDouble(), SIZE * random.nextDouble() };
+            for (double[] taxi : taxis) {
+                taxi[0] = Math.min(SIZE, Math.max(0, taxi[0] + MOVE * random.nextGaussian()));
+                taxi[1] = Math.min(SIZE, Math.max(0, taxi[1] + MOVE * random.nextGaussian()));
+            }
+
+            long tic = System.nanoTime();
+            double[][] costMatrix = new double[REQUESTS][TAXIS];
+            for (int request = 0; request < REQUESTS; ++request)
+                for (int taxi = 0; taxi < TAXIS; ++taxi)
+                    costMatrix[request][taxi] = distance(requests[request], taxis[taxi]);
+            int[] hungarian = HungarianAlgorithmWrap.matching(costMatrix);
+            double hungarianMillis = (System.nanoTime() - tic) * 1e-6;
+            double hungarianCost = IntStream.range(0, REQUESTS).mapToDouble(request -> costMatrix[request][hungarian[request]]).sum();
+
+            tic = System.nanoTime();
+            int[][] edgeColumns = SparseBipartiteHelper.candidateEdges(requests, taxis, candidates);
+            double[][] edgeCosts = new double[REQUESTS][];
+            for (int request = 0; request < REQUESTS; ++request) {
+                final int row = request;
+                edgeCosts[request] = IntStream.of(edgeColumns[request]).mapToDouble(taxi -> distance(requests[row], taxis[taxi])).toArray();
+            }
+            SparseAssignmentSolver solver = new SparseAssignmentSolver(edgeColumns, edgeCosts, potentials, //
+                    (request, taxi) -> distance(requests[request], taxis[taxi]));
+            int[] sparse = solver.execute();
+            double sparseMillis = (System.nanoTime() - tic) * 1e-6;
+            double sparseCost = IntStream.range(0, REQUESTS).mapToDouble(request -> distance(requests[request], taxis[sparse[request]])).sum();
+
+            System.out.println(String.format("period %d: hungarian %8.1f[ms] cost %10.0f, sparse %6.1f[ms] cost %10.0f (%+.3f%%), warm start %b", //
+                    period, hungarianMillis, hungarianCost, sparseMillis, sparseCost, 100 * (sparseCost / hungarianCost - 1), solver.isWarmStarted()));
+        }
+    }
+
+    private static double distance(double[] a, double[] b) {
+        return Math.hypot(a[0] - b[0], a[1] - b[1]);
+    }
+}
@@ -0,0 +1,108 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.gfx;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import amodeus.amodeus.net.SimulationObject;
+import amodeus.amodeus.net.StubStorageSupplier;
+import junit.framework.TestCase;
+
+public class FrameCacheTest extends TestCase {
+    private static final int SIZE = 100;
+
+    /** records the decoded indices, decoding blocks until the gate is opened */
+    private final List<Integer> decoded = new CopyOnWriteArrayList<>();
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final StubStorageSupplier storageSupplier = new StubStorageSupplier(SIZE, index -> {
+        decoded.add(index);
+        try {
+            gate.await();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        if (index == 77)
+            throw new IllegalArgumentException("corrupt");
+        return StubStorageSupplier.simulationObject(index);
+    });
+
+    /** blocks until the decoding of the frame at index has started */
+    private void awaitDecoding(int index) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!decoded.contains(index)) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void assertFrame(int index, CompletableFuture<SimulationObject> completableFuture) throws Exception {
+        assertEquals(StubStorageSupplier.simulationObject(index).now, completableFuture.get(10, TimeUnit.SECONDS).now);
+    }
+
+    /** frames that are evicted before their decoding has started complete with null and are not decoded */
+    public void testEviction() throws Exception {
+        try (FrameCache frameCache = new FrameCache(storageSupplier, 3, 1, 1)) {
+            CompletableFuture<SimulationObject> frame0 = frameCache.seek(0);
+            awaitDecoding(0);
+            CompletableFuture<SimulationObject> frame1 = frameCache.seek(1);
+            CompletableFuture<SimulationObject> frame50 = frameCache.seek(50);
+            gate.countDown();
+            assertFrame(50, frame50);
+            /** the decoding of frame 0 had started before the eviction */
+            assertFrame(0, frame0);
+            assertNull(frame1.get(10, TimeUnit.SECONDS));
+            awaitDecoding(53);
+            for (int index = 1; index <= 4; ++index)
+                assertFalse(decoded.contains(index));
+            assertEquals(50, frameCache.getCursor());
+        }
+    }
+
+    /** after a change of direction the frames are read ahead in the new direction and the frames ahead in the
+     * former direction are evicted */
+    public void testDirection() throws Exception {
+        try (FrameCache frameCache = new FrameCache(storageSupplier, 3, 1, 1)) {
+            CompletableFuture<SimulationObject> frame10 = frameCache.seek(10);
+            awaitDecoding(10);
+            CompletableFuture<SimulationObject> frame9 = frameCache.seek(9);
+            gate.countDown();
+            assertFrame(10, frame10);
+            assertFrame(9, frame9);
+            awaitDecoding(6);
+            for (int index = 11; index <= 13; ++index)
+                assertFalse(decoded.contains(index));
+            assertFrame(8, frameCache.seek(8));
+            assertFrame(10, frameCache.seek(10));
+        }
+    }
+
+    /** a seek is a hit if the frame was decoded ahead, frames that failed to decode are decoded again */
+    public void testHitRate() throws Exception {
+        gate.countDown();
+        try (FrameCache frameCache = new FrameCache(storageSupplier, 3, 1, 1)) {
+            assertEquals(0.0, frameCache.getHitRate());
+            assertFrame(20, frameCache.seek(20));
+            /** the decoding of frame 23 starts after frame 22 has been completed */
+            awaitDecoding(23);
+            assertFrame(21, frameCache.seek(21));
+            assertFrame(22, frameCache.seek(22));
+            assertEquals(2.0 / 3, frameCache.getHitRate(), 1e-12);
+            assertEquals(1, decoded.stream().filter(index -> index == 21).count());
+
+            for (int attempt = 1; attempt <= 2; ++attempt) {
+                try {
+                    frameCache.seek(77).join();
+                    fail();
+                } catch (CompletionException completionException) {
+                    assertTrue(completionException.getCause() instanceof IllegalArgumentException);
+                }
+                assertEquals(attempt, decoded.stream().filter(index -> index == 77).count());
+            }
+            assertTrue(0 <= frameCache.getDecodeMillis());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.gfx;
+
+import junit.framework.TestCase;
+
+public class LinkGroupsTest extends TestCase {
+    public void testSimple() {
+        LinkGroups linkGroups = LinkGroups.of(new int[] { 7, 3, 7, 0, 3, 7 });
+        assertEquals(3, linkGroups.size());
+        assertEquals(0, linkGroups.links[0]);
+        assertEquals(3, linkGroups.links[1]);
+        assertEquals(7, linkGroups.links[2]);
+        assertEquals(1, linkGroups.size(0));
+        assertEquals(2, linkGroups.size(1));
+        assertEquals(3, linkGroups.size(2));
+        // elements keep the order of the list within a group
+        int[] elements = { 3, 1, 4, 0, 2, 5 };
+        for (int index = 0; index < elements.length; ++index)
+            assertEquals(elements[index], linkGroups.elements[index]);
+        assertEquals(6, linkGroups.offsets[3]);
+    }
+
+    public void testEmpty() {
+        LinkGroups linkGroups = LinkGroups.of(new int[] {});
+        assertEquals(0, linkGroups.size());
+        assertEquals(0, linkGroups.offsets[0]);
+    }
+}
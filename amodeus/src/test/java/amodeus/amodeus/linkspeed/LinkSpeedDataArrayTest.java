@@ -0,0 +1,76 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.linkspeed;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class LinkSpeedDataArrayTest extends TestCase {
+    private static void assertConsistent(LinkSpeedDataContainer lsData, int links, int maxTime) {
+        LinkSpeedDataArray linkSpeedDataArray = LinkSpeedDataArray.of(lsData);
+        for (int linkIndex = 0; linkIndex < links + 2; ++linkIndex)
+            for (int time = -10; time < maxTime; time += 7) {
+                LinkSpeedTimeSeries linkSpeedTimeSeries = lsData.getLinkMap().get(linkIndex);
+                Double expected = linkSpeedTimeSeries == null ? null : linkSpeedTimeSeries.getSpeedsInInterval(time, lsData.getDt());
+                double actual = linkSpeedDataArray.getRecordedSpeed(linkIndex, time);
+                if (expected == null)
+                    assertTrue(Double.isNaN(actual));
+                else
+                    assertEquals(expected, actual, 1e-5);
+            }
+    }
+
+    public void testAligned() {
+        Random random = new Random(3);
+        LinkSpeedDataContainer lsData = new LinkSpeedDataContainer(900);
+        for (int linkIndex = 0; linkIndex < 20; linkIndex += 2)
+            for (int time = 0; time < 86400; time += 900)
+                if (random.nextDouble() < 0.3)
+                    lsData.addData(linkIndex, time, 1 + 10 * random.nextDouble());
+        LinkSpeedDataArray linkSpeedDataArray = LinkSpeedDataArray.of(lsData);
+        assertEquals(900, linkSpeedDataArray.getBinWidth());
+        assertConsistent(lsData, 20, 90000);
+    }
+
+    public void testUnaligned() {
+        Random random = new Random(5);
+        LinkSpeedDataContainer lsData = new LinkSpeedDataContainer(600);
+        for (int linkIndex = 1; linkIndex < 10; ++linkIndex)
+            for (int time = 150; time < 20000; time += 150)
+                if (random.nextDouble() < 0.2)
+                    lsData.addData(linkIndex, time, 2 + random.nextDouble());
+        assertEquals(600, LinkSpeedDataArray.of(lsData).getBinWidth());
+        assertConsistent(lsData, 10, 22000);
+    }
+
+    public void testSingleUnalignedTime() {
+        LinkSpeedDataContainer lsData = new LinkSpeedDataContainer(900);
+        for (int time = 0; time < 86400; time += 900)
+            lsData.addData(2, time, 5 + time / 86400.0);
+        LinkSpeedDataArray aligned = LinkSpeedDataArray.of(lsData);
+        assertEquals(96, aligned.size());
+        lsData.addData(2, 4501, 1.5);
+        lsData.addData(4, 30007, 2.5);
+        LinkSpeedDataArray linkSpeedDataArray = LinkSpeedDataArray.of(lsData);
+        assertEquals(900, linkSpeedDataArray.getBinWidth());
+        assertEquals(96 + 1, linkSpeedDataArray.size());
+        assertEquals(1.5, linkSpeedDataArray.getRecordedSpeed(2, 4600), 1e-5);
+        assertEquals(aligned.getRecordedSpeed(2, 4500), linkSpeedDataArray.getRecordedSpeed(2, 4500), 1e-5);
+        assertConsistent(lsData, 5, 90000);
+        LinkSpeedDataContainer copy = linkSpeedDataArray.toContainer();
+        assertEquals(lsData.getLinkMap().get(2).getData(), copy.getLinkMap().get(2).getData());
+        assertEquals(lsData.getLinkMap().get(4).getData(), copy.getLinkMap().get(4).getData());
+    }
+
+    public void testToContainer() {
+        LinkSpeedDataContainer lsData = new LinkSpeedDataContainer(300);
+        lsData.addData(3, 600, 4.5);
+        lsData.addData(3, 1500, 5.5);
+        lsData.addData(7, 0, 8.0);
+        LinkSpeedDataContainer copy = LinkSpeedDataArray.of(lsData).toContainer();
+        assertEquals(lsData.getDt(), copy.getDt());
+        assertEquals(lsData.getLinkMap().keySet(), copy.getLinkMap().keySet());
+        assertEquals(lsData.getLinkMap().get(3).getData(), copy.getLinkMap().get(3).getData());
+        assertEquals(lsData.getLinkMap().get(7).getData(), copy.getLinkMap().get(7).getData());
+    }
+}
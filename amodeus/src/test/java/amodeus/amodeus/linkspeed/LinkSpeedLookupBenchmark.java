@@ -0,0 +1,73 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.linkspeed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.util.TravelTime;
+
+/** compares {@link LSDataTravelTime} with {@link LSArrayTravelTime} for a network and
+ * link speed recordings in the order of magnitude of the Munich scenario.
+ * the repository does not use JMH, the benchmark warms up and measures in a plain loop. */
+/* package */ enum LinkSpeedLookupBenchmark {
+    ;
+    private static final int LINKS = 60_000;
+    private static final int DT = 900;
+    private static final int LOOKUPS = 20_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        Network network = NetworkUtils.createNetwork();
+        Node node = NetworkUtils.createAndAddNode(network, Id.createNodeId(0), new Coord(0, 0));
+        List<Link> links = new ArrayList<>();
+        LinkSpeedDataContainer lsData = new LinkSpeedDataContainer(DT);
+        for (int i = 0; i < LINKS; ++i) {
+            Node next = NetworkUtils.createAndAddNode(network, Id.createNodeId(i + 1), new Coord(i + 1, 0));
+            Link link = NetworkUtils.createAndAddLink(network, Id.createLinkId(i), node, next, 100, 13.9, 1000, 1);
+            links.add(link);
+            node = next;
+            if (random.nextDouble() < 0.5) // half of the links have recordings
+                for (int time = 0; time < 86400; time += DT)
+                    lsData.addData(link, time, 2 + 10 * random.nextDouble());
+        }
+        long tic = System.nanoTime();
+        LinkSpeedDataArray linkSpeedDataArray = LinkSpeedDataArray.of(lsData);
+        System.out.println(String.format("snapshot of %d bins built in %.1f[ms]", linkSpeedDataArray.size(), (System.nanoTime() - tic) * 1e-6));
+
+        int[] linkSample = random.ints(LOOKUPS, 0, LINKS).toArray();
+        double[] timeSample = random.doubles(LOOKUPS, 0, 90000).toArray();
+        TravelTime current = new LSDataTravelTime(lsData);
+        TravelTime array = new LSArrayTravelTime(linkSpeedDataArray);
+        double deviation = 0;
+        for (int i = 0; i < 100_000; ++i) {
+            Link link = links.get(linkSample[i]);
+            deviation = Math.max(deviation, Math.abs( //
+                    current.getLinkTravelTime(link, timeSample[i], null, null) - array.getLinkTravelTime(link, timeSample[i], null, null)));
+        }
+        System.out.println("max deviation of travel time [s] " + deviation);
+
+        for (int round = 0; round < ROUNDS; ++round) {
+            System.out.println(String.format("round %d: LSDataTravelTime %6.1f[ns/lookup], LSArrayTravelTime %6.1f[ns/lookup]", round, //
+                    measure(current, links, linkSample, timeSample), measure(array, links, linkSample, timeSample)));
+        }
+    }
+
+    private static double measure(TravelTime travelTime, List<Link> links, int[] linkSample, double[] timeSample) {
+        double sum = 0;
+        long tic = System.nanoTime();
+        for (int i = 0; i < linkSample.length; ++i)
+            sum += travelTime.getLinkTravelTime(links.get(linkSample[i]), timeSample[i], null, null);
+        long nanos = System.nanoTime() - tic;
+        if (sum < 0) // prevent dead code elimination
+            System.out.println(sum);
+        return nanos / (double) linkSample.length;
+    }
+}
@@ -0,0 +1,129 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.net;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.apache.commons.io.FileUtils;
+
+import amodeus.amodeus.dispatcher.core.RequestStatus;
+import amodeus.amodeus.dispatcher.core.RoboTaxiStatus;
+import junit.framework.TestCase;
+
+public class ColumnarSimulationStorageTest extends TestCase {
+    private static SimulationObject create(long now) {
+        SimulationObject simulationObject = new SimulationObject();
+        simulationObject.iteration = 3;
+        simulationObject.now = now;
+        simulationObject.infoLine = "info@" + now;
+        simulationObject.total_matchedRequests = 7;
+        VehicleContainer vc0 = new VehicleContainer();
+        vc0.vehicleIndex = 0;
+        vc0.linkTrace = new int[] { 4, 5, 6 };
+        vc0.statii = new RoboTaxiStatus[] { RoboTaxiStatus.STAY, RoboTaxiStatus.DRIVETOCUSTOMER };
+        vc0.destinationLinkIndex = 6;
+        VehicleContainer vc1 = new VehicleContainer();
+        vc1.vehicleIndex = 1;
+        simulationObject.vehicles = Arrays.asList(vc0, vc1);
+        RequestContainer rc = new RequestContainer();
+        rc.requestIndex = 12;
+        rc.fromLinkIndex = 4;
+        rc.toLinkIndex = 9;
+        rc.submissionTime = 1.5 * now;
+        rc.requestStatus = EnumSet.of(RequestStatus.ASSIGNED, RequestStatus.PICKUPDRIVE);
+        rc.associatedVehicle = 0;
+        rc.passengerId = 99;
+        simulationObject.requests.add(rc);
+        simulationObject.serializable = "dispatcher specific";
+        return simulationObject;
+    }
+
+    public void testRoundTrip() throws Exception {
+        File output = Files.createTempDirectory("columnar").toFile();
+        try {
+            StorageUtils storageUtils = new StorageUtils(output, StorageFormat.COLUMNAR);
+            StorageSubscriber storageSubscriber = new StorageSubscriber(storageUtils);
+            storageSubscriber.handle(create(20));
+            storageSubscriber.handle(create(10));
+            storageUtils.closeColumnarWriter();
+
+            File itDir = storageUtils.getIterationFolder(3);
+            assertTrue(ColumnarSimulationReader.isPresent(itDir));
+            try (StorageSupplier storageSupplier = new StorageSupplier(storageUtils.getFirstAvailableIteration())) {
+                assertEquals(2, storageSupplier.size());
+                assertEquals(10, storageSupplier.getIntervalEstimate());
+
+                SimulationObject simulationObject = storageSupplier.getSimulationObject(0);
+                assertEquals(10, simulationObject.now);
+                assertEquals(3, simulationObject.iteration);
+                assertEquals("info@10", simulationObject.infoLine);
+                assertEquals(7, simulationObject.total_matchedRequests);
+                assertEquals(2, simulationObject.vehicles.size());
+                VehicleContainer vc0 = simulationObject.vehicles.get(0);
+                assertTrue(Arrays.equals(vc0.linkTrace, new int[] { 4, 5, 6 }));
+                assertTrue(Arrays.equals(vc0.statii, new RoboTaxiStatus[] { RoboTaxiStatus.STAY, RoboTaxiStatus.DRIVETOCUSTOMER }));
+                assertEquals(6, vc0.destinationLinkIndex);
+                VehicleContainer vc1 = simulationObject.vehicles.get(1);
+                assertTrue(Arrays.equals(vc1.linkTrace, new int[] { VehicleContainer.LINK_UNSPECIFIED }));
+                assertEquals(0, vc1.statii.length);
+                RequestContainer rc = simulationObject.requests.get(0);
+                assertEquals(12, rc.requestIndex);
+                assertEquals(4, rc.fromLinkIndex);
+                assertEquals(9, rc.toLinkIndex);
+                assertEquals(15.0, rc.submissionTime);
+                assertEquals(EnumSet.of(RequestStatus.ASSIGNED, RequestStatus.PICKUPDRIVE), rc.requestStatus);
+                assertEquals(0, rc.associatedVehicle);
+                assertEquals(99, rc.passengerId);
+                assertEquals("dispatcher specific", simulationObject.serializable);
+                assertEquals(20, storageSupplier.getSimulationObject(1).now);
+            }
+        } finally {
+            FileUtils.deleteDirectory(output);
+        }
+    }
+
+    public void testRerunTruncates() throws Exception {
+        File output = Files.createTempDirectory("columnar").toFile();
+        try {
+            try (StorageUtils storageUtils = new StorageUtils(output, StorageFormat.COLUMNAR)) {
+                StorageSubscriber storageSubscriber = new StorageSubscriber(storageUtils);
+                storageSubscriber.handle(create(10));
+                storageSubscriber.handle(create(20));
+            }
+
+            StorageUtils rerun = new StorageUtils(output, StorageFormat.COLUMNAR);
+            try (rerun) {
+                new StorageSubscriber(rerun).handle(create(30));
+            }
+
+            try (StorageSupplier storageSupplier = new StorageSupplier(rerun.getFirstAvailableIteration())) {
+                assertEquals(1, storageSupplier.size());
+                assertEquals(30, storageSupplier.getSimulationObject(0).now);
+            }
+        } finally {
+            FileUtils.deleteDirectory(output);
+        }
+    }
+
+    public void testConvert() throws Exception {
+        File output = Files.createTempDirectory("simobj").toFile();
+        try {
+            StorageUtils storageUtils = new StorageUtils(output);
+            StorageSubscriber storageSubscriber = new StorageSubscriber(storageUtils);
+            for (long now = 10; now <= 50; now += 10)
+                storageSubscriber.handle(create(now));
+            File itDir = storageUtils.getIterationFolder(3);
+            assertFalse(ColumnarSimulationReader.isPresent(itDir));
+            assertEquals(5, ColumnarStorageConverter.convert(itDir));
+            assertTrue(ColumnarSimulationReader.isPresent(itDir));
+            try (StorageSupplier storageSupplier = new StorageSupplier(storageUtils.getFirstAvailableIteration())) {
+                assertEquals(5, storageSupplier.size());
+                assertEquals("info@50", storageSupplier.getSimulationObject(4).infoLine);
+            }
+        } finally {
+            FileUtils.deleteDirectory(output);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/* amodeus - Copyright (c) 2018, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.net;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import amodeus.amodeus.util.net.ObjectHandler;
+
+import org.apache.commons.io.FileUtils;
+
+import junit.framework.TestCase;
+
+public class SimulationDistributionPipelineTest extends TestCase {
+    public void testColumnarBatches() throws Exception {
+        File output = Files.createTempDirectory("pipeline").toFile();
+        try {
+            StorageUtils storageUtils = new StorageUtils(output, StorageFormat.COLUMNAR);
+            SimulationDistributionPipeline simulationDistributionPipeline = //
+                    new SimulationDistributionPipeline(storageUtils, 4, 3, BackPressurePolicy.DROP_OLDEST);
+            for (int now = 10; now <= 200; now += 10) {
+                SimulationObject simulationObject = new SimulationObject();
+                simulationObject.now = now;
+                simulationObject.vehicles = new ArrayList<>();
+                simulationDistributionPipeline.submit(simulationObject);
+            }
+            SimulationDistributionPipeline.closeAll();
+            assertEquals(20, simulationDistributionPipeline.getStored());
+            assertEquals(0, simulationDistributionPipeline.getStorageQueueDepth());
+            assertTrue(simulationDistributionPipeline.getMaxStorageQueueDepth() <= 4);
+
+            try (StorageSupplier storageSupplier = new StorageSupplier(storageUtils.getFirstAvailableIteration())) {
+                assertEquals(20, storageSupplier.size());
+                assertEquals(200, storageSupplier.getSimulationObject(19).now);
+            }
+        } finally {
+            FileUtils.deleteDirectory(output);
+        }
+    }
+
+    public void testLiveSubscribersWithoutStorage() throws Exception {
+        File output = Files.createTempDirectory("pipeline").toFile();
+        List<Long> received = new ArrayList<>();
+        ObjectHandler objectHandler = object -> received.add(((SimulationObject) object).now);
+        SimulationSubscribers.INSTANCE.add(objectHandler);
+        try {
+            StorageUtils storageUtils = new StorageUtils(output, StorageFormat.NONE);
+            SimulationDistributionPipeline simulationDistributionPipeline = //
+                    new SimulationDistributionPipeline(storageUtils, 4, 3, BackPressurePolicy.DROP_OLDEST);
+            for (int now = 10; now <= 200; now += 10) {
+                SimulationObject simulationObject = new SimulationObject();
+                simulationObject.now = now;
+                simulationObject.vehicles = new ArrayList<>();
+                simulationDistributionPipeline.submit(simulationObject);
+            }
+            SimulationDistributionPipeline.closeAll();
+            assertEquals(20, received.size());
+            for (int index = 0; index < 20; ++index)
+                assertEquals(10 * (index + 1), received.get(index).longValue());
+            assertTrue(storageUtils.getFirstAvailableIteration().isEmpty());
+        } finally {
+            SimulationSubscribers.INSTANCE.remove(objectHandler);
+            FileUtils.deleteDirectory(output);
+        }
+    }
+}
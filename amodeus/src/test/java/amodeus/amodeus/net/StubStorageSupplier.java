@@ -0,0 +1,44 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.net;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/** {@link StorageSupplier} of size objects that are created by a function instead of read from files */
+public class StubStorageSupplier extends StorageSupplier {
+    private final IntFunction<SimulationObject> function;
+
+    /** @return supplier of size objects at the times 10, 20, ... without vehicles and requests */
+    public static StubStorageSupplier of(int size) {
+        return new StubStorageSupplier(size, StubStorageSupplier::simulationObject);
+    }
+
+    /** @return object at time 10 * (index + 1) without vehicles and requests */
+    public static SimulationObject simulationObject(int index) {
+        SimulationObject simulationObject = new SimulationObject();
+        simulationObject.now = 10 * (index + 1);
+        simulationObject.vehicles = new ArrayList<>();
+        return simulationObject;
+    }
+
+    /** @param function creates the object of an index, may block or throw */
+    public StubStorageSupplier(int size, IntFunction<SimulationObject> function) {
+        super(navigableMap(size));
+        this.function = function;
+    }
+
+    @Override
+    public SimulationObject getSimulationObject(int index) {
+        return function.apply(index);
+    }
+
+    private static NavigableMap<Integer, File> navigableMap(int size) {
+        NavigableMap<Integer, File> navigableMap = new TreeMap<>();
+        for (int index = 0; index < size; ++index)
+            navigableMap.put(10 * (index + 1), new File("stub" + index));
+        return navigableMap;
+    }
+}
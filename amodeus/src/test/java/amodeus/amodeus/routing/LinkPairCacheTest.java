@@ -0,0 +1,96 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.routing;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class LinkPairCacheTest extends TestCase {
+    public void testConsistentWithMap() {
+        Random random = new Random(7);
+        LinkPairCache linkPairCache = new LinkPairCache(10_000, Double.POSITIVE_INFINITY, 1);
+        Map<Long, Double> map = new HashMap<>();
+        for (int i = 0; i < 50_000; ++i) {
+            int from = random.nextInt(100);
+            int to = random.nextInt(100);
+            int slot = linkPairCache.find(from, to, i);
+            Double value = map.get(from * 1000L + to);
+            if (value == null) {
+                assertEquals(slot, -1);
+                double computed = random.nextDouble();
+                map.put(from * 1000L + to, computed);
+                slot = linkPairCache.put(from, to, i, computed, -computed);
+            }
+            assertEquals(linkPairCache.first(slot), map.get(from * 1000L + to));
+            assertEquals(linkPairCache.second(slot), -map.get(from * 1000L + to));
+        }
+        assertEquals(linkPairCache.size(), map.size());
+        assertEquals(linkPairCache.getMisses(), map.size());
+        assertEquals(linkPairCache.getEvictions(), 0);
+    }
+
+    public void testEviction() {
+        Random random = new Random(11);
+        LinkPairCache linkPairCache = new LinkPairCache(100, Double.POSITIVE_INFINITY, 1);
+        Map<Long, Double> map = new HashMap<>();
+        for (int i = 0; i < 20_000; ++i) {
+            int from = random.nextInt(50);
+            int to = random.nextInt(50);
+            double value = map.computeIfAbsent(from * 1000L + to, k -> random.nextDouble());
+            int slot = linkPairCache.find(from, to, i);
+            if (slot < 0)
+                slot = linkPairCache.put(from, to, i, value, 0);
+            assertEquals(linkPairCache.first(slot), value);
+            assertTrue(linkPairCache.size() <= 100);
+        }
+        assertEquals(linkPairCache.size(), 100);
+        assertEquals(linkPairCache.getEvictions(), linkPairCache.getMisses() - 100);
+    }
+
+    public void testExpiry() {
+        LinkPairCache linkPairCache = new LinkPairCache(10, 100, 10);
+        linkPairCache.put(1, 2, 0, 3.0, 4.0);
+        assertTrue(0 <= linkPairCache.find(1, 2, 100));
+        assertTrue(0 <= linkPairCache.find(1, 2, 109));
+        assertEquals(linkPairCache.find(1, 2, 110), -1);
+        assertEquals(linkPairCache.getExpirations(), 1);
+        assertEquals(linkPairCache.size(), 0);
+    }
+
+    /** an entry is only found in the period in which it was computed, entries of earlier periods expire */
+    public void testValidInPeriod() {
+        LinkPairCache linkPairCache = LinkPairCache.validInPeriod(10, 100);
+        linkPairCache.put(1, 2, 450, 3.0, 4.0);
+        assertTrue(0 <= linkPairCache.find(1, 2, 400));
+        assertTrue(0 <= linkPairCache.find(1, 2, 499));
+        assertEquals(linkPairCache.find(1, 2, 399), -1);
+        assertEquals(linkPairCache.size(), 1);
+        assertEquals(linkPairCache.find(1, 2, 500), -1);
+        assertEquals(linkPairCache.getExpirations(), 1);
+        assertEquals(linkPairCache.size(), 0);
+        int slot = linkPairCache.put(1, 2, 520, 5.0, 6.0);
+        assertEquals(linkPairCache.first(slot), 5.0);
+        assertEquals(linkPairCache.find(1, 2, 599), slot);
+    }
+
+    public void testValidInInfinitePeriod() {
+        LinkPairCache linkPairCache = LinkPairCache.validInPeriod(10, Double.POSITIVE_INFINITY);
+        linkPairCache.put(1, 2, 0, 3.0, 4.0);
+        assertTrue(0 <= linkPairCache.find(1, 2, 1e9));
+        assertEquals(linkPairCache.getExpirations(), 0);
+    }
+
+    /** entries that are read frequently survive the eviction */
+    public void testClock() {
+        LinkPairCache linkPairCache = new LinkPairCache(64, Double.POSITIVE_INFINITY, 1);
+        linkPairCache.put(0, 0, 0, 1.0, 0);
+        for (int i = 1; i < 10_000; ++i) {
+            linkPairCache.put(i, i, 0, i, 0);
+            int slot = linkPairCache.find(0, 0, 0);
+            assertTrue(0 <= slot);
+            assertEquals(linkPairCache.first(slot), 1.0);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.util.hungarian;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import junit.framework.TestCase;
+
+public class WarmstarterTest extends TestCase {
+    private static double cost(double[][] costMatrix, int[] matching) {
+        double cost = 0;
+        for (int row = 0; row < matching.length; ++row)
+            if (0 <= matching[row])
+                cost += costMatrix[row][matching[row]];
+        return cost;
+    }
+
+    private static double[][] costMatrix(double[][] rows, double[][] columns) {
+        double[][] costMatrix = new double[rows.length][columns.length];
+        for (int row = 0; row < rows.length; ++row)
+            for (int column = 0; column < columns.length; ++column)
+                costMatrix[row][column] = Math.hypot(rows[row][0] - columns[column][0], rows[row][1] - columns[column][1]);
+        return costMatrix;
+    }
+
+    private static double[][] points(Random random, int size) {
+        double[][] points = new double[size][];
+        for (int i = 0; i < size; ++i)
+            points[i] = new double[] { 100 * random.nextDouble(), 100 * random.nextDouble() };
+        return points;
+    }
+
+    private static List<Integer> keys(int from, int size) {
+        return IntStream.range(from, from + size).boxed().collect(Collectors.toList());
+    }
+
+    /** rows and columns move between the problems, some columns are replaced by new ones */
+    private static void checkSequence(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        Warmstarter warmstarter = new Warmstarter();
+        double[][] taxis = points(random, rows);
+        double[][] requests = points(random, columns);
+        int firstRequest = 0;
+        for (int period = 0; period < 20; ++period) {
+            double[][] costMatrix = costMatrix(taxis, requests);
+            int[] warm = warmstarter.matching(costMatrix, keys(0, rows), keys(firstRequest, columns));
+            int[] cold = HungarianAlgorithmWrap.matching(costMatrix);
+            assertEquals(cost(costMatrix, cold), cost(costMatrix, warm), 1e-6);
+            assertEquals(Math.min(rows, columns), IntStream.of(warm).filter(column -> 0 <= column).distinct().count());
+            for (double[] taxi : taxis) {
+                taxi[0] += random.nextGaussian();
+                taxi[1] += random.nextGaussian();
+            }
+            /** the first request is served and a new one arrives */
+            for (int column = 0; column < columns - 1; ++column)
+                requests[column] = requests[column + 1];
+            requests[columns - 1] = points(random, 1)[0];
+            ++firstRequest;
+        }
+        assertEquals(20, warmstarter.getMatchings());
+        /** in rectangular problems, the warm start is skipped if it is worse than the initial matching */
+        if (rows == columns)
+            assertEquals(19, warmstarter.getWarmStarts());
+        assertTrue(warmstarter.getWarmStartAugmentations() <= warmstarter.getAugmentations());
+    }
+
+    public void testSquare() {
+        checkSequence(30, 30, 1);
+    }
+
+    public void testMoreColumns() {
+        checkSequence(20, 45, 2);
+    }
+
+    public void testMoreRows() {
+        checkSequence(45, 20, 3);
+    }
+
+    /** the solution of an unchanged problem is known, the warm start saves all augmentations */
+    private static void checkUnchanged(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        Warmstarter warmstarter = new Warmstarter();
+        double[][] costMatrix = costMatrix(points(random, rows), points(random, columns));
+        int[] cold = warmstarter.matching(costMatrix, keys(0, rows), keys(0, columns));
+        long augmentations = warmstarter.getAugmentations();
+        assertTrue(0 < augmentations);
+        int[] warm = warmstarter.matching(costMatrix, keys(0, rows), keys(0, columns));
+        assertEquals(cost(costMatrix, cold), cost(costMatrix, warm), 1e-6);
+        assertEquals(1, warmstarter.getWarmStarts());
+        assertEquals(augmentations, warmstarter.getAugmentations());
+        assertEquals(0, warmstarter.getWarmStartAugmentations());
+        assertEquals(augmentations, warmstarter.getColdAugmentations());
+    }
+
+    public void testUnchanged() {
+        checkUnchanged(25, 25, 7);
+        checkUnchanged(15, 40, 8);
+        checkUnchanged(40, 15, 9);
+    }
+
+    public void testNoKnownKeys() {
+        Random random = new Random(4);
+        Warmstarter warmstarter = new Warmstarter();
+        double[][] costMatrix = costMatrix(points(random, 10), points(random, 12));
+        warmstarter.matching(costMatrix, keys(0, 10), keys(0, 12));
+        int[] matching = warmstarter.matching(costMatrix, keys(100, 10), keys(100, 12));
+        assertEquals(cost(costMatrix, HungarianAlgorithmWrap.matching(costMatrix)), cost(costMatrix, matching), 1e-6);
+        assertEquals(0, warmstarter.getWarmStarts());
+    }
+
+    public void testDuplicateColumnKeys() {
+        Random random = new Random(5);
+        Warmstarter warmstarter = new Warmstarter();
+        double[][] columns = points(random, 4);
+        double[][] duplicates = new double[8][];
+        List<Integer> columnKeys = new ArrayList<>();
+        for (int column = 0; column < 8; ++column) {
+            duplicates[column] = columns[column % 4];
+            columnKeys.add(column % 4);
+        }
+        for (int period = 0; period < 3; ++period) {
+            double[][] costMatrix = costMatrix(points(random, 6), duplicates);
+            int[] matching = warmstarter.matching(costMatrix, keys(0, 6), columnKeys);
+            assertEquals(cost(costMatrix, HungarianAlgorithmWrap.matching(costMatrix)), cost(costMatrix, matching), 1e-6);
+        }
+    }
+
+    /** two instances in the same JVM do not share state */
+    public void testIndependentInstances() {
+        Random random = new Random(6);
+        Warmstarter first = new Warmstarter();
+        Warmstarter second = new Warmstarter();
+        double[][] costMatrix = costMatrix(points(random, 8), points(random, 8));
+        first.matching(costMatrix, keys(0, 8), keys(0, 8));
+        second.matching(costMatrix, keys(0, 8), keys(0, 8));
+        assertEquals(0, first.getWarmStarts());
+        assertEquals(0, second.getWarmStarts());
+        first.matching(costMatrix, keys(0, 8), keys(0, 8));
+        assertEquals(1, first.getWarmStarts());
+        assertEquals(0, second.getWarmStarts());
+    }
+}
@@ -0,0 +1,72 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.util.nd;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import ch.ethz.idsc.tensor.Tensor;
+import ch.ethz.idsc.tensor.Tensors;
+
+/** compares {@link NdTreeMap} with {@link KdTree2D} for the link and request counts of the Munich scenario,
+ * i.e., 60000 link locations and 100000 request locations in an area of 20 km x 20 km. The k nearest links
+ * of every request are queried. The repository does not use JMH, the benchmark warms up and measures in a
+ * plain loop. Argument: [k] */
+/* package */ enum KdTree2DBenchmark {
+    ;
+    private static final int LINKS = 60_000;
+    private static final int REQUESTS = 100_000;
+    private static final double SIZE = 20_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int limit = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        Random random = new Random(1);
+        double[] linkXs = random.doubles(LINKS, 0, SIZE).toArray();
+        double[] linkYs = random.doubles(LINKS, 0, SIZE).toArray();
+        double[] requestXs = random.doubles(REQUESTS, 0, SIZE).toArray();
+        double[] requestYs = random.doubles(REQUESTS, 0, SIZE).toArray();
+        Tensor[] requests = IntStream.range(0, REQUESTS).mapToObj(index -> Tensors.vector(requestXs[index], requestYs[index])).toArray(Tensor[]::new);
+
+        for (int round = 0; round < ROUNDS; ++round) {
+            long tic = System.nanoTime();
+            NdMap<Integer> ndMap = new NdTreeMap<>(Tensors.vector(0, 0), Tensors.vector(SIZE, SIZE), 10, 24);
+            for (int index = 0; index < LINKS; ++index)
+                ndMap.add(Tensors.vector(linkXs[index], linkYs[index]), index);
+            double ndBuildMillis = (System.nanoTime() - tic) * 1e-6;
+            tic = System.nanoTime();
+            double ndSum = 0;
+            for (Tensor request : requests)
+                ndSum += ndMap.buildCluster(NdCenterInterface.euclidean(request), limit).stream() //
+                        .mapToDouble(ndEntry -> ndEntry.distance().number().doubleValue()).sum();
+            double ndQueryNanos = (System.nanoTime() - tic) / (double) REQUESTS;
+
+            tic = System.nanoTime();
+            KdTree2D kdTree2D = KdTree2D.of(linkXs, linkYs);
+            double kdBuildMillis = (System.nanoTime() - tic) * 1e-6;
+            tic = System.nanoTime();
+            int[] neighbors = new int[limit];
+            double[] distances = new double[limit];
+            double kdSum = 0;
+            for (int index = 0; index < REQUESTS; ++index) {
+                int count = kdTree2D.nearest(requestXs[index], requestYs[index], limit, neighbors, distances);
+                for (int k = 0; k < count; ++k)
+                    kdSum += distances[k];
+            }
+            double kdQueryNanos = (System.nanoTime() - tic) / (double) REQUESTS;
+
+            /** the tree is immutable and queried in parallel with one pair of buffers per thread */
+            tic = System.nanoTime();
+            double parallelSum = IntStream.range(0, REQUESTS).parallel().mapToDouble(index -> {
+                double[] buffer = new double[limit];
+                int count = kdTree2D.nearest(requestXs[index], requestYs[index], limit, new int[limit], buffer);
+                return IntStream.range(0, count).mapToDouble(k -> buffer[k]).sum();
+            }).sum();
+            double parallelQueryNanos = (System.nanoTime() - tic) / (double) REQUESTS;
+
+            System.out.println(String.format( //
+                    "round %d: NdTreeMap build %6.1f[ms] query %7.1f[ns], KdTree2D build %5.1f[ms] query %6.1f[ns] parallel %6.1f[ns], deviation %.2e", //
+                    round, ndBuildMillis, ndQueryNanos, kdBuildMillis, kdQueryNanos, parallelQueryNanos, //
+                    Math.max(Math.abs(ndSum - kdSum), Math.abs(parallelSum - kdSum)) / kdSum));
+        }
+    }
+}
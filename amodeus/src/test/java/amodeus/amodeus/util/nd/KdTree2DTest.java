@@ -0,0 +1,81 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodeus.util.nd;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import junit.framework.TestCase;
+
+public class KdTree2DTest extends TestCase {
+    public void testSome() {
+        KdTree2D kdTree2D = KdTree2D.of( //
+                new double[] { 1, 1, 0, 1, 0.1, 6 }, //
+                new double[] { 1, 0, 1, 1, 0.1, 7 });
+        assertEquals(6, kdTree2D.size());
+        int[] neighbors = new int[2];
+        double[] distances = new double[2];
+        assertEquals(1, kdTree2D.nearest(0, 0, 1, neighbors, distances));
+        assertEquals(4, neighbors[0]);
+        assertEquals(Math.hypot(0.1, 0.1), distances[0], 1e-12);
+        assertEquals(1, kdTree2D.nearest(5, 5, 1, neighbors, distances));
+        assertEquals(5, neighbors[0]);
+        assertEquals(2, kdTree2D.nearest(1.1, 0.9, 2, neighbors, distances));
+        Arrays.sort(neighbors);
+        assertTrue(Arrays.equals(new int[] { 0, 3 }, neighbors));
+    }
+
+    public void testEmpty() {
+        KdTree2D kdTree2D = KdTree2D.of(new double[] {}, new double[] {});
+        assertEquals(0, kdTree2D.size());
+        assertEquals(0, kdTree2D.nearest(0, 0, 3, new int[3], new double[3]));
+        kdTree2D.withinRadius(0, 0, 10, index -> fail());
+    }
+
+    public void testCornerCase() {
+        /** many points at the same location */
+        KdTree2D kdTree2D = KdTree2D.of(new double[400], new double[400]);
+        int[] neighbors = new int[10];
+        double[] distances = new double[10];
+        assertEquals(10, kdTree2D.nearest(1, 0, 10, neighbors, distances));
+        assertEquals(10, IntStream.of(neighbors).distinct().count());
+        for (double distance : distances)
+            assertEquals(1.0, distance, 0.0);
+        int[] count = new int[1];
+        kdTree2D.withinRadius(1, 0, 1, index -> ++count[0]);
+        assertEquals(400, count[0]);
+    }
+
+    public void testRandom() {
+        Random random = new Random(3);
+        int n = 2000;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int index = 0; index < n; ++index) {
+            /** coarse coordinates to have equal coordinates and ties */
+            xs[index] = random.nextInt(100);
+            ys[index] = random.nextInt(100);
+        }
+        KdTree2D kdTree2D = KdTree2D.of(xs, ys);
+        int limit = 7;
+        int[] neighbors = new int[limit];
+        double[] distances = new double[limit];
+        for (int query = 0; query < 200; ++query) {
+            double x = 120 * random.nextDouble() - 10;
+            double y = 120 * random.nextDouble() - 10;
+            double[] sorted = IntStream.range(0, n).mapToDouble(index -> Math.hypot(xs[index] - x, ys[index] - y)).sorted().toArray();
+            assertEquals(limit, kdTree2D.nearest(x, y, limit, neighbors, distances));
+            for (int k = 0; k < limit; ++k) {
+                assertEquals(sorted[k], distances[k], 1e-9);
+                assertEquals(Math.hypot(xs[neighbors[k]] - x, ys[neighbors[k]] - y), distances[k], 1e-9);
+            }
+            double radius = 10 * random.nextDouble();
+            int[] count = new int[1];
+            kdTree2D.withinRadius(x, y, radius, index -> {
+                assertTrue(Math.hypot(xs[index] - x, ys[index] - y) <= radius);
+                ++count[0];
+            });
+            assertEquals(Arrays.stream(sorted).filter(distance -> distance <= radius).count(), count[0]);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package org.matsim.amodeus.components.dispatcher.multi_od_heuristic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.amodeus.components.dispatcher.multi_od_heuristic.aggregation.AggregatedRequest;
+import org.matsim.amodeus.config.AmodeusModeConfig;
+import org.matsim.amodeus.config.modal.TimingConfig;
+import org.matsim.amodeus.dvrp.request.AmodeusRequest;
+import org.matsim.amodeus.dvrp.schedule.AmodeusDriveTask;
+import org.matsim.amodeus.dvrp.schedule.AmodeusDropoffTask;
+import org.matsim.amodeus.dvrp.schedule.AmodeusPickupTask;
+import org.matsim.amodeus.dvrp.schedule.AmodeusStayTask;
+import org.matsim.amodeus.plpc.ParallelLeastCostPathCalculator;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicleImpl;
+import org.matsim.contrib.dvrp.fleet.ImmutableDvrpVehicleSpecification;
+import org.matsim.contrib.dvrp.optimizer.Request;
+import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import org.matsim.contrib.dvrp.schedule.Schedule;
+import org.matsim.contrib.dvrp.schedule.Task;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.vehicles.Vehicle;
+
+import amodeus.amodeus.GridNetworkCreator;
+import amodeus.amodeus.routing.EasyMinTimePathCalculator;
+
+/** The travel times and the estimates do not depend on the time, such that the schedules of the parallel appender,
+ * which routes the legs at the estimated departure times, are the ones of the serial appender. */
+public class ParallelAggregateRideAppenderTest {
+    private static final int GRID = 9;
+    private static final double SPACING = 200;
+    private static final double FREESPEED = 10;
+
+    private final Network network = GridNetworkCreator.create(GRID, SPACING, FREESPEED);
+    private final List<Link> links = new ArrayList<>(network.getLinks().values());
+    private final LeastCostPathCalculator calculator = EasyMinTimePathCalculator.prepPathCalculator(network, new FastAStarLandmarksFactory(1));
+    private final TravelTimeEstimator estimator = new FactorTravelTimeEstimator(Double.POSITIVE_INFINITY);
+    private final TimingConfig timing = new TimingConfig();
+    private int vehicles = 0;
+
+    /** routes every leg on submission, the paths are returned once the leg is released */
+    private class GatedRouter implements ParallelLeastCostPathCalculator {
+        private final List<CompletableFuture<Path>> futures = new ArrayList<>();
+        private final List<Path> paths = new ArrayList<>();
+
+        @Override
+        public Future<Path> calcLeastCostPath(Node fromNode, Node toNode, double starttime, Person person, Vehicle vehicle) {
+            CompletableFuture<Path> completableFuture = new CompletableFuture<>();
+            futures.add(completableFuture);
+            paths.add(calculator.calcLeastCostPath(fromNode, toNode, starttime, person, vehicle));
+            return completableFuture;
+        }
+
+        /** releases the legs submitted at position from and later */
+        void release(int from) {
+            for (int index = from; index < futures.size(); ++index)
+                futures.get(index).complete(paths.get(index));
+        }
+
+        int size() {
+            return futures.size();
+        }
+
+        @Override
+        public void close() {
+            // ---
+        }
+    }
+
+    public ParallelAggregateRideAppenderTest() {
+        timing.setMinimumPickupDurationPerStop(15);
+        timing.setMinimumDropoffDurationPerStop(10);
+        timing.setDropoffDurationPerPassenger(5);
+    }
+
+    private SerialAggregateRideAppender serialAppender() {
+        return new SerialAggregateRideAppender(timing, calculator, EasyMinTimePathCalculator.TRAVEL_TIME, estimator);
+    }
+
+    private ParallelAggregateRideAppender parallelAppender(GatedRouter router) {
+        return new ParallelAggregateRideAppender(timing, router, EasyMinTimePathCalculator.TRAVEL_TIME, estimator);
+    }
+
+    /** @param started true if the stay task of the vehicle has started, false if it is planned */
+    private DvrpVehicle vehicle(Link link, boolean started) {
+        DvrpVehicle vehicle = new DvrpVehicleImpl(ImmutableDvrpVehicleSpecification.newBuilder() //
+                .id(Id.create("av" + vehicles++, DvrpVehicle.class)) //
+                .serviceBeginTime(0.0) //
+                .serviceEndTime(Double.POSITIVE_INFINITY) //
+                .capacity(4) //
+                .startLinkId(link.getId()) //
+                .build(), link);
+        vehicle.getSchedule().addTask(new AmodeusStayTask(0.0, Double.POSITIVE_INFINITY, link));
+        if (started)
+            vehicle.getSchedule().nextTask();
+        return vehicle;
+    }
+
+    private AggregatedRequest aggregatedRequest(List<PassengerRequest> requests) {
+        AggregatedRequest aggregatedRequest = new AggregatedRequest(requests.get(0), estimator, requests.size());
+        requests.subList(1, requests.size()).forEach(aggregatedRequest::addSlaveRequest);
+        return aggregatedRequest;
+    }
+
+    private List<PassengerRequest> requests(String prefix, Random random, List<Link> candidates, int size) {
+        List<PassengerRequest> requests = new ArrayList<>();
+        for (int index = 0; index < size; ++index)
+            requests.add(new AmodeusRequest(Id.create(prefix + index, Request.class), null, //
+                    candidates.get(random.nextInt(candidates.size())), candidates.get(random.nextInt(candidates.size())), //
+                    0.0, AmodeusModeConfig.DEFAULT_MODE, null));
+        return requests;
+    }
+
+    /** @return type, times, links and requests of every task */
+    private static List<String> describe(Schedule schedule) {
+        List<String> list = new ArrayList<>();
+        for (Task task : schedule.getTasks()) {
+            String string = String.format("%s %.6f %.6f ", task.getClass().getSimpleName(), task.getBeginTime(), task.getEndTime());
+            if (task instanceof AmodeusDriveTask) {
+                AmodeusDriveTask driveTask = (AmodeusDriveTask) task;
+                string += driveTask.getPath().getFromLink().getId() + "->" + driveTask.getPath().getToLink().getId() + " " + ids(driveTask.getRequests());
+            } else if (task instanceof AmodeusPickupTask)
+                string += ((AmodeusPickupTask) task).getLink().getId() + " " + ids(((AmodeusPickupTask) task).getRequests().values());
+            else if (task instanceof AmodeusDropoffTask)
+                string += ((AmodeusDropoffTask) task).getLink().getId() + " " + ids(((AmodeusDropoffTask) task).getRequests().values());
+            else
+                string += ((AmodeusStayTask) task).getLink().getId();
+            list.add(string);
+        }
+        return list;
+    }
+
+    private static TreeSet<String> ids(Iterable<PassengerRequest> requests) {
+        TreeSet<String> ids = new TreeSet<>();
+        requests.forEach(request -> ids.add(request.getId().toString()));
+        return ids;
+    }
+
+    @Test
+    public void testSerial() {
+        Random random = new Random(1);
+        GatedRouter router = new GatedRouter();
+        ParallelAggregateRideAppender parallelAppender = parallelAppender(router);
+        SerialAggregateRideAppender serialAppender = serialAppender();
+        List<DvrpVehicle> parallelVehicles = new ArrayList<>();
+        List<DvrpVehicle> serialVehicles = new ArrayList<>();
+        for (int index = 0; index < 50; ++index) {
+            Link link = links.get(random.nextInt(links.size()));
+            boolean started = random.nextBoolean();
+            DvrpVehicle parallelVehicle = vehicle(link, started);
+            DvrpVehicle serialVehicle = vehicle(link, started);
+            AggregatedRequest aggregatedRequest = aggregatedRequest(requests("r" + index + "_", random, links, 1 + random.nextInt(3)));
+            parallelAppender.schedule(aggregatedRequest, parallelVehicle, 0.0);
+            serialAppender.schedule(aggregatedRequest, serialVehicle, 0.0);
+            parallelVehicles.add(parallelVehicle);
+            serialVehicles.add(serialVehicle);
+        }
+        router.release(0);
+        parallelAppender.update();
+        serialAppender.update();
+        for (int index = 0; index < parallelVehicles.size(); ++index)
+            Assert.assertEquals(describe(serialVehicles.get(index).getSchedule()), describe(parallelVehicles.get(index).getSchedule()));
+    }
+
+    /** identical legs of a batch are routed once and the path is shared by the vehicles */
+    @Test
+    public void testDuplicateLegs() {
+        GatedRouter router = new GatedRouter();
+        ParallelAggregateRideAppender parallelAppender = parallelAppender(router);
+        SerialAggregateRideAppender serialAppender = serialAppender();
+        Link link = links.get(0);
+        List<PassengerRequest> requests = requests("d", new Random(2), links, 3);
+        DvrpVehicle vehicle0 = vehicle(link, true);
+        DvrpVehicle vehicle1 = vehicle(link, true);
+        DvrpVehicle serialVehicle = vehicle(link, true);
+        parallelAppender.schedule(aggregatedRequest(requests), vehicle0, 0.0);
+        int legs = router.size();
+        Assert.assertTrue(0 < legs);
+        parallelAppender.schedule(aggregatedRequest(requests), vehicle1, 0.0);
+        Assert.assertEquals(legs, router.size());
+        serialAppender.schedule(aggregatedRequest(requests), serialVehicle, 0.0);
+        router.release(0);
+        parallelAppender.update();
+        Assert.assertEquals(0.5, parallelAppender.getDedupRatio(), 0.0);
+        Assert.assertEquals(describe(serialVehicle.getSchedule()), describe(vehicle0.getSchedule()));
+        Assert.assertEquals(describe(serialVehicle.getSchedule()), describe(vehicle1.getSchedule()));
+
+        /** the legs of the next batch are routed again */
+        DvrpVehicle vehicle2 = vehicle(link, true);
+        parallelAppender.schedule(aggregatedRequest(requests), vehicle2, 0.0);
+        Assert.assertEquals(2 * legs, router.size());
+        router.release(legs);
+        parallelAppender.update();
+        Assert.assertEquals(describe(serialVehicle.getSchedule()), describe(vehicle2.getSchedule()));
+    }
+
+    /** the schedule of a vehicle whose legs are routed is updated while the legs of a vehicle submitted before are
+     * still being routed */
+    @Test
+    public void testReadyOutOfOrder() throws Exception {
+        /** the vehicles and requests are on separate rows of the grid, such that the vehicles share no leg */
+        List<Link> lower = new ArrayList<>();
+        List<Link> upper = new ArrayList<>();
+        for (Link link : links)
+            if (link.getFromNode().getCoord().getY() < SPACING && link.getToNode().getCoord().getY() < SPACING)
+                lower.add(link);
+            else if ((GRID - 2) * SPACING < link.getFromNode().getCoord().getY() && (GRID - 2) * SPACING < link.getToNode().getCoord().getY())
+                upper.add(link);
+        Random random = new Random(3);
+        List<PassengerRequest> lowerRequests = requests("l", random, lower, 2);
+        List<PassengerRequest> upperRequests = requests("u", random, upper, 2);
+
+        GatedRouter router = new GatedRouter();
+        ParallelAggregateRideAppender parallelAppender = parallelAppender(router);
+        DvrpVehicle vehicle0 = vehicle(lower.get(0), true);
+        DvrpVehicle vehicle1 = vehicle(upper.get(0), true);
+        parallelAppender.schedule(aggregatedRequest(lowerRequests), vehicle0, 0.0);
+        int legs0 = router.size();
+        Assert.assertTrue(0 < legs0);
+        parallelAppender.schedule(aggregatedRequest(upperRequests), vehicle1, 0.0);
+        Assert.assertTrue(legs0 < router.size());
+        router.release(legs0);
+
+        CompletableFuture<Void> update = CompletableFuture.runAsync(parallelAppender::update);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (vehicle1.getSchedule().getTaskCount() == 1) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(1, vehicle0.getSchedule().getTaskCount());
+        Assert.assertFalse(update.isDone());
+        router.release(0);
+        update.get(10, TimeUnit.SECONDS);
+
+        SerialAggregateRideAppender serialAppender = serialAppender();
+        DvrpVehicle serialVehicle0 = vehicle(lower.get(0), true);
+        DvrpVehicle serialVehicle1 = vehicle(upper.get(0), true);
+        serialAppender.schedule(aggregatedRequest(lowerRequests), serialVehicle0, 0.0);
+        serialAppender.schedule(aggregatedRequest(upperRequests), serialVehicle1, 0.0);
+        Assert.assertEquals(describe(serialVehicle0.getSchedule()), describe(vehicle0.getSchedule()));
+        Assert.assertEquals(describe(serialVehicle1.getSchedule()), describe(vehicle1.getSchedule()));
+    }
+}
@@ -77,6 +77,15 @@ import ch.ethz.idsc.tensor.Scalar;
 
     }
 
+    /**
+     * same as {@link #to(LinkSpeedDataContainer, TaxiTrip, Path, Scalar, boolean)}, applied atomically to store,
+     * may be called concurrently for different trips
+     */
+    public static void to(AtomicLinkSpeedStore store, TaxiTrip trip, Path path, double rescalefactor, boolean allowIncrease) {
+        for (Link link : path.links)
+            store.rescale(link, trip.getSimPickupTime(), trip.getSimDropoffTime(), rescalefactor, allowIncrease);
+    }
+
     private static Set<Integer> getRelevantTimes(int tripStart, int tripEnd, Integer dt) {
         /** if dt is Null, set to one second as minimal interval*/
         if (dt == null) dt = 1;
@@ -0,0 +1,165 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodtaxi.linkspeed.iterative;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import amodeus.amodeus.linkspeed.LinkSpeedDataContainer;
+import amodeus.amodeus.linkspeed.LinkSpeedTimeSeries;
+import amodeus.amodeus.util.math.GlobalAssert;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.router.util.TravelTime;
+
+/**
+ * Link speeds per link and time bin of width dt, stored as raw double bits that are read and rescaled
+ * atomically. Link speed updates of concurrently evaluated trips are applied without locks, a rescaling
+ * is a compare-and-set loop on the single time bin, such that no update is lost. Since the rescaling is
+ * a multiplication, concurrent updates of the same time bin commute.
+ * <p>
+ * The time bins of a link are allocated in chunks on first write, the memory consumption is proportional
+ * to the number of links and time intervals that were recorded or rescaled.
+ * <p>
+ * Unlike {@link LinkSpeedDataContainer} the store is safe for concurrent reads and writes, it is filled
+ * from and written back to a {@link LinkSpeedDataContainer} before and after the concurrent phase. The
+ * initial recordings have to be at multiples of dt, since a recording within a time bin cannot be
+ * represented and would shadow the rescaled bin when written back.
+ */
+/* package */ class AtomicLinkSpeedStore {
+    private static final int CHUNK_BINS = 64;
+    /** bits of +0.0, a speed of zero is never stored and denotes the absence of a recording */
+    private static final long NO_DATA = 0L;
+    private static final double MIN_SPEED = 10 / 3.6;
+
+    private final int dt;
+    private final int numBins;
+    private final int numChunks;
+    private final Link[] links;
+    private final AtomicReferenceArray<AtomicLongArray> chunks;
+
+    /**
+     * @param network  containing all links of which the speed is maintained
+     * @param lsData   initial recordings
+     * @param maxTime  latest time in seconds for which speeds are maintained, the store is extended to
+     *                 cover all recordings of lsData, later times are evaluated at free speed
+     * @throws IllegalArgumentException if a recording of lsData is not at a multiple of dt
+     */
+    public AtomicLinkSpeedStore(Network network, LinkSpeedDataContainer lsData, int maxTime) {
+        this.dt = Objects.isNull(lsData.getDt()) ? 1 : lsData.getDt();
+        int lastRecorded = lsData.getLinkMap().values().stream().filter(timeSeries -> !timeSeries.getData().isEmpty()) //
+                .mapToInt(timeSeries -> timeSeries.getData().lastKey()).max().orElse(0);
+        GlobalAssert.that(0 < dt && 0 <= maxTime);
+        this.numBins = Math.max(maxTime, lastRecorded) / dt + 1;
+        this.numChunks = (numBins + CHUNK_BINS - 1) / CHUNK_BINS;
+        int numLinks = network.getLinks().values().stream().mapToInt(link -> link.getId().index()).max().orElse(-1) + 1;
+        this.links = new Link[numLinks];
+        network.getLinks().values().forEach(link -> links[link.getId().index()] = link);
+        this.chunks = new AtomicReferenceArray<>(numLinks * numChunks);
+
+        for (Map.Entry<Integer, LinkSpeedTimeSeries> entry : lsData.getLinkMap().entrySet())
+            if (entry.getKey() < numLinks && Objects.nonNull(links[entry.getKey()]))
+                for (Map.Entry<Integer, Double> recording : entry.getValue().getData().entrySet()) {
+                    int time = recording.getKey();
+                    if (time < 0 || time % dt != 0)
+                        throw new IllegalArgumentException(String.format( //
+                                "recording of link %d at time %d is not at a multiple of dt=%d", entry.getKey(), time, dt));
+                    chunk(entry.getKey(), time / dt).set(time / dt % CHUNK_BINS, toBits(recording.getValue()));
+                }
+    }
+
+    public int getDt() {
+        return dt;
+    }
+
+    /**
+     * same semantics as {@link amodeus.amodeus.linkspeed.LinkSpeedUtils#getLinkSpeedForTime}, i.e., the
+     * recording of the interval containing time, free speed if none is present, and at least 10 km/h
+     *
+     * @return speed in [m/s] on link at time
+     */
+    public double getSpeed(Link link, double time) {
+        int bin = (int) time / dt;
+        double speed = getRecorded(link.getId().index(), bin);
+        /** a recording of the previous interval ends exactly at time */
+        if (Double.isNaN(speed) && (int) time % dt == 0)
+            speed = getRecorded(link.getId().index(), bin - 1);
+        if (Double.isNaN(speed))
+            speed = link.getFreespeed();
+        return Math.max(speed, MIN_SPEED);
+    }
+
+    /** @return view of the store as {@link TravelTime}, which reflects all updates applied in the meantime */
+    public TravelTime asTravelTime() {
+        return (link, time, person, vehicle) -> link.getLength() / getSpeed(link, time);
+    }
+
+    /**
+     * Multiplies the speed of all intervals of link that overlap [fromTime, toTime] by factor. Intervals
+     * without recording are initialized with the free speed of the link, an increase above free speed is
+     * only applied if allowIncrease is set.
+     */
+    public void rescale(Link link, int fromTime, int toTime, double factor, boolean allowIncrease) {
+        int index = link.getId().index();
+        double freeSpeed = link.getFreespeed();
+        int lastBin = Math.min(toTime / dt, numBins - 1);
+        for (int bin = Math.max(fromTime / dt, 0); bin <= lastBin; ++bin) {
+            AtomicLongArray chunk = chunk(index, bin);
+            int offset = bin % CHUNK_BINS;
+            while (true) {
+                long bits = chunk.get(offset);
+                double speedNow = bits == NO_DATA ? freeSpeed : Double.longBitsToDouble(bits);
+                double newSpeed = speedNow * factor;
+                double speed = newSpeed <= freeSpeed || allowIncrease ? newSpeed : speedNow;
+                if (chunk.compareAndSet(offset, bits, toBits(speed)))
+                    break;
+            }
+        }
+    }
+
+    /**
+     * writes all recordings to lsData, must not run concurrently to {@link #rescale}
+     *
+     * @param lsData with same dt as this store
+     */
+    public void writeTo(LinkSpeedDataContainer lsData) {
+        for (int index = 0; index < links.length; ++index)
+            for (int chunkIndex = 0; chunkIndex < numChunks; ++chunkIndex) {
+                AtomicLongArray chunk = chunks.get(index * numChunks + chunkIndex);
+                if (Objects.nonNull(chunk))
+                    for (int offset = 0; offset < CHUNK_BINS; ++offset) {
+                        long bits = chunk.get(offset);
+                        if (bits != NO_DATA)
+                            lsData.addData(links[index], (chunkIndex * CHUNK_BINS + offset) * dt, Double.longBitsToDouble(bits));
+                    }
+            }
+    }
+
+    /** @return recorded speed or NaN */
+    private double getRecorded(int index, int bin) {
+        if (bin < 0 || numBins <= bin || links.length <= index)
+            return Double.NaN;
+        AtomicLongArray chunk = chunks.get(index * numChunks + bin / CHUNK_BINS);
+        if (Objects.isNull(chunk))
+            return Double.NaN;
+        long bits = chunk.get(bin % CHUNK_BINS);
+        return bits == NO_DATA ? Double.NaN : Double.longBitsToDouble(bits);
+    }
+
+    private AtomicLongArray chunk(int index, int bin) {
+        int position = index * numChunks + bin / CHUNK_BINS;
+        AtomicLongArray chunk = chunks.get(position);
+        if (Objects.isNull(chunk)) {
+            chunks.compareAndSet(position, null, new AtomicLongArray(CHUNK_BINS));
+            chunk = chunks.get(position);
+        }
+        return chunk;
+    }
+
+    private static long toBits(double speed) {
+        GlobalAssert.that(speed >= 0);
+        /** a recorded speed of zero is kept as the smallest positive speed */
+        return Double.doubleToRawLongBits(Math.max(speed, Double.MIN_VALUE));
+    }
+}
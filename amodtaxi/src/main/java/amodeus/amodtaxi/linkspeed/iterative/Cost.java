@@ -15,7 +15,10 @@ import ch.ethz.idsc.tensor.red.Mean;
  * Cost must be positive
  */
 /* package */ public enum Cost {
-    ;
+    /** maximum of |ratio - 1| */
+    MAX,
+    /** |mean of ratios - 1| */
+    MEAN;
 
     // calculates mean of error ratios(real vs simulation) of all taxitrips in ratioMap
     public static Scalar mean(Map<TaxiTrip, Scalar> ratioMap) {
@@ -15,7 +15,6 @@ import java.io.File;
 import java.util.List;
 import java.util.Objects;
 import java.util.Random;
-import java.util.function.Function;
 
 /* package */ class FindCongestionIterative {
     private final TripComparisonMaintainer tripMaintainer;
@@ -46,16 +45,16 @@ import java.util.function.Function;
     public FindCongestionIterative(Network network, MatsimAmodeusDatabase db, File processingDir, //
                                    LinkSpeedDataContainer lsData, List<TaxiTrip> allTrips, //
                                    int maxIter, Scalar tol, Scalar epsilon1target, Scalar epsilon2, Random random, //
-                                   Function<List<Scalar>, Scalar> costFunction, int checkHorizon) {
+                                   Cost cost, int checkHorizon) {
         this(network, db, processingDir, lsData, allTrips, maxIter, tol,
-                epsilon1target, epsilon1target, epsilon2, random, costFunction, checkHorizon);
+                epsilon1target, epsilon1target, epsilon2, random, cost, checkHorizon);
 
     }
 
     public FindCongestionIterative(Network network, MatsimAmodeusDatabase db, File processingDir, //
                                    LinkSpeedDataContainer lsData, List<TaxiTrip> allTrips, //
                                    int epochs, Scalar tol, Scalar epsilon1target, Scalar epsilon1start, Scalar epsilon2, Random random, //
-                                   Function<List<Scalar>, Scalar> costFunction, int checkHorizon) {
+                                   Cost cost, int checkHorizon) {
         this.processingDir = processingDir;
         this.network = network;
         this.tolerance = Objects.requireNonNull(tol);
@@ -69,7 +68,7 @@ import java.util.function.Function;
         this.fastLinkLookup = new FastLinkLookup(network, db);
         this.epsilon1start = epsilon1start;
         /** export the initial distribution of ratios */
-        this.randomTrips = new RandomTripMaintainer(allTrips, checkHorizon, costFunction, random);
+        this.randomTrips = new RandomTripMaintainer(allTrips, checkHorizon, cost, random);
         this.tripMaintainer = new TripComparisonMaintainer(randomTrips, network, lsData, fastLinkLookup);
 
         /** export initial distribution */
@@ -77,7 +76,7 @@ import java.util.function.Function;
         File plot = new File(processingDir, "plot");
         diff.mkdir();
         plot.mkdir();
-        StaticHelper.exportRatioMap(diff, tripMaintainer.getLookupMap(), "Initial");
+        StaticHelper.exportRatios(diff, tripMaintainer.getRatios(), "Initial");
         StaticHelper.plotRatioMap(plot, randomTrips.getRatios(), "Initial");
 
         /** show initial score */
@@ -86,7 +85,7 @@ import java.util.function.Function;
 
     public void runTripIterations() {
         int iterationCount = 0;
-        Scalar lastCost = randomTrips.getRatioCost();
+        double lastCost = randomTrips.getRatioCost();
         System.out.println("Last cost before start: " + lastCost);
         System.out.println("Tolerance:              " + tolerance);
 
@@ -112,7 +111,7 @@ import java.util.function.Function;
 
                 /** if it is a random trip, record the ratio */
                 if (isRandomTrip)
-                    randomTrips.addRecordedRatio(ratioBefore);
+                    randomTrips.addRecordedRatio(ratioBefore.number().doubleValue());
 
                 /** update cost based on random trips */
                 lastCost = randomTrips.getRatioCost();
@@ -123,7 +122,7 @@ import java.util.function.Function;
 
                 /** rescale links to approach desired link speed */
                 ApplyScaling.to(lsData, trip, compareBefore.path, rescaleFactor, true);
-                tripMaintainer.update(trip, nwPathDurationRatio);
+                tripMaintainer.update(trip, nwPathDurationRatio.number().doubleValue());
 
                 /** assess every 20 trips if ok */
                 if (iterationCount % 100 == 0) {
@@ -136,7 +135,7 @@ import java.util.function.Function;
                 // DEBUGGING
                 /** DEBUGGING every interval trips, export cost map */
                 if (iterationCount % 10000 == 0) {
-                    StaticHelper.exportRatioMap(new File(processingDir, "diff"), tripMaintainer.getLookupMap(), Integer.toString(iterationCount));
+                    StaticHelper.exportRatios(new File(processingDir, "diff"), tripMaintainer.getRatios(), Integer.toString(iterationCount));
                     StaticHelper.plotRatioMap(new File(processingDir, "plot"), randomTrips.getRatios(), Integer.toString(iterationCount));
                 }
                 // DEBUGGING END
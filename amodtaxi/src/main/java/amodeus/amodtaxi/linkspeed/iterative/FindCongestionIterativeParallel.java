@@ -1,32 +1,41 @@
 package amodeus.amodtaxi.linkspeed.iterative;
 
-import amodeus.amodeus.linkspeed.LSDataTravelTime;
 import amodeus.amodeus.linkspeed.LinkSpeedDataContainer;
 import amodeus.amodeus.net.FastLinkLookup;
 import amodeus.amodeus.net.MatsimAmodeusDatabase;
 import amodeus.amodeus.net.TensorCoords;
-import amodeus.amodeus.taxitrip.ShortestDurationCalculator;
 import amodeus.amodeus.taxitrip.TaxiTrip;
+import amodeus.amodeus.util.math.GlobalAssert;
 import amodeus.amodeus.util.math.SI;
-import ch.ethz.idsc.tensor.RealScalar;
 import ch.ethz.idsc.tensor.Scalar;
-import ch.ethz.idsc.tensor.Scalars;
 import ch.ethz.idsc.tensor.qty.Quantity;
-import org.matsim.amodeus.plpc.DefaultParallelLeastCostPathCalculator;
-import org.matsim.amodeus.plpc.ParallelLeastCostPathCalculator;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.core.router.DijkstraFactory;
 import org.matsim.core.router.costcalculators.OnlyTimeDependentTravelDisutility;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.TravelTime;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.function.Function;
 
+/**
+ * Iterative link speed estimation, in which every iteration evaluates a batch of the currently worst and of
+ * random trips concurrently. Each worker thread keeps its own {@link LeastCostPathCalculator} for all iterations,
+ * the calculators route on an {@link AtomicLinkSpeedStore}, to which the workers apply the rescaling of the
+ * links of their trips as soon as the trip is evaluated. The ratios are maintained concurrently by
+ * {@link TripComparisonMaintainer}, the ratios of the random trips are recorded in batch order after each
+ * iteration.
+ * <p>
+ * With more than one thread the runs are not reproducible: a worker routes on the speeds as rescaled by the
+ * trips that other workers finished so far, i.e., the paths and ratios depend on the scheduling of the threads.
+ * With numberOfThreads == 1 the trips of a batch are evaluated one after another in batch order, and the
+ * result only depends on the given {@link Random}.
+ */
 /* package */ public class FindCongestionIterativeParallel {
     private final TripComparisonMaintainer tripMaintainer;
     private final RandomTripMaintainer randomTrips;
@@ -51,11 +60,30 @@ import java.util.function.Function;
      */
     private final int maxIter;
     private final int dt;
+    private final int numberOfThreads;
+    private final AtomicLinkSpeedStore speedStore;
+    /** origin and destination node of the trips, resolved once */
+    private final Map<TaxiTrip, Node[]> tripNodes = new HashMap<>();
 
     public FindCongestionIterativeParallel(Network network, MatsimAmodeusDatabase db, File processingDir, //
                                            LinkSpeedDataContainer lsData, List<TaxiTrip> allTrips, //
                                            int maxIter, Scalar tol, Scalar startEpsilon1, Scalar targetEpsilon1, Random random, int dt, //
-                                           Function<List<Scalar>, Scalar> costFunction, int checkHorizon) {
+                                           Cost cost, int checkHorizon) {
+        this(network, db, processingDir, lsData, allTrips, maxIter, tol, startEpsilon1, targetEpsilon1, random, dt, //
+                cost, checkHorizon, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param numberOfThreads concurrently evaluated trips, the batch of every iteration consists of the
+     *                        2 * numberOfThreads worst and 4 * numberOfThreads random trips, 1 for a
+     *                        deterministic run
+     */
+    public FindCongestionIterativeParallel(Network network, MatsimAmodeusDatabase db, File processingDir, //
+                                           LinkSpeedDataContainer lsData, List<TaxiTrip> allTrips, //
+                                           int maxIter, Scalar tol, Scalar startEpsilon1, Scalar targetEpsilon1, Random random, int dt, //
+                                           Cost cost, int checkHorizon, int numberOfThreads) {
+        GlobalAssert.that(0 < numberOfThreads);
+        this.numberOfThreads = numberOfThreads;
         this.processingDir = processingDir;
         this.network = network;
         this.tolerance = Objects.requireNonNull(tol);
@@ -67,7 +95,7 @@ import java.util.function.Function;
         this.targetEpsilon1 = targetEpsilon1.number().doubleValue();
 
         /** export the initial distribution of ratios */
-        this.randomTrips = new RandomTripMaintainer(allTrips, checkHorizon, costFunction, random);
+        this.randomTrips = new RandomTripMaintainer(allTrips, checkHorizon, cost, random);
         this.tripMaintainer = new TripComparisonMaintainer(randomTrips, network, db);
 
         /** export initial distribution */
@@ -75,67 +103,71 @@ import java.util.function.Function;
         File plot = new File(processingDir, "plot");
         diff.mkdir();
         plot.mkdir();
-        StaticHelper.exportRatioMap(diff, tripMaintainer.getLookupMap(), "Initial");
+        StaticHelper.exportRatios(diff, tripMaintainer.getRatios(), "Initial");
         StaticHelper.plotRatioMap(plot, randomTrips.getRatios(), "Initial");
 
         /** show initial score */
         System.out.println("Cost initial: " + randomTrips.getRatioCost());
 
+        int maxTime = allTrips.stream().mapToInt(TaxiTrip::getSimDropoffTime).max().orElse(0);
+        this.speedStore = new AtomicLinkSpeedStore(network, lsData, maxTime);
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
         try {
-            runTripIterations();
+            runTripIterations(executorService);
         } catch (ExecutionException | InterruptedException e) {
             e.printStackTrace();
             System.err.println(getClass().getSimpleName() + " stopped unexpected. The linkspeeds are not final.");
+        } finally {
+            executorService.shutdownNow();
         }
+        speedStore.writeTo(lsData);
 
         System.out.println("Cost End: " + randomTrips.getRatioCost());
         /** final export */
         StaticHelper.export(this.processingDir, this.lsData, "");
     }
 
-    private void runTripIterations() throws ExecutionException, InterruptedException {
+    private void runTripIterations(ExecutorService executorService) throws ExecutionException, InterruptedException {
         int iterationCount = 0;
-        Scalar lastCost = randomTrips.getRatioCost();
+        double lastCost = randomTrips.getRatioCost();
         System.out.println("Last cost before start: " + lastCost);
         System.out.println("Tolerance:              " + tolerance);
+        System.out.println("Threads:                " + numberOfThreads);
+
+        /** one calculator per worker thread, reused in all iterations */
+        TravelTime travelTime = speedStore.asTravelTime();
+        ThreadLocal<LeastCostPathCalculator> calculators = ThreadLocal.withInitial(() -> new DijkstraFactory() //
+                .createPathCalculator(network, new OnlyTimeDependentTravelDisutility(travelTime), travelTime));
 
         List<TaxiTrip> tripBatch = new ArrayList<>();
-        List<Map.Entry<TaxiTrip, Future<LeastCostPathCalculator.Path>>> tripFuturePathPairs;
-        int tripCounter;
-        Scalar epsilon1;
+        List<Future<Double>> futureRatios = new ArrayList<>();
 
         while (iterationCount < maxIter) {
             ++iterationCount;
-            epsilon1 = RealScalar.of(startEpsilon1 - ((startEpsilon1 - targetEpsilon1) * iterationCount / maxIter));
+            long start = System.nanoTime();
+            double epsilon1 = startEpsilon1 - ((startEpsilon1 - targetEpsilon1) * iterationCount / maxIter);
 
-            int numberOfThreads = 6;
             tripBatch.addAll(tripMaintainer.getNWorst(2 * numberOfThreads));
+            int numberOfWorst = tripBatch.size();
 
             int batchSize = 5 * numberOfThreads;
             for (int i = numberOfThreads; i < batchSize; i++) {
                 tripBatch.add(randomTrips.nextRandom());
             }
 
-            TravelTime travelTime = new LSDataTravelTime(lsData);
-            ParallelLeastCostPathCalculator plcpc = DefaultParallelLeastCostPathCalculator.create(numberOfThreads,
-                    new DijkstraFactory(), network, new OnlyTimeDependentTravelDisutility(travelTime), travelTime);
-
-            tripFuturePathPairs = getFuturePaths(tripBatch, plcpc);
-
-            tripCounter = 0;
-            for (Map.Entry<TaxiTrip, Future<LeastCostPathCalculator.Path>> entry : tripFuturePathPairs) {
-                LeastCostPathCalculator.Path path = entry.getValue().get();
-                Scalar pathTime = Quantity.of(path.travelTime, SI.SECOND);
-                Scalar pathDurationRatio = pathTime.divide(entry.getKey().driveTime);
-                Scalar rescaleFactor = RealScalar.ONE.subtract((RealScalar.ONE.subtract(pathDurationRatio)).multiply(epsilon1));
-                ApplyScaling.to(lsData, entry.getKey(), path, rescaleFactor, true);
+            for (TaxiTrip trip : tripBatch) {
+                Node[] nodes = tripNodes.computeIfAbsent(trip, this::getNodes);
+                futureRatios.add(executorService.submit(() -> evaluate(calculators.get(), trip, nodes, epsilon1)));
+            }
 
-                if (tripCounter >= numberOfThreads)
+            for (int i = 0; i < futureRatios.size(); i++) {
+                Double pathDurationRatio = futureRatios.get(i).get();
+                if (i >= numberOfWorst && Objects.nonNull(pathDurationRatio))
                     randomTrips.addRecordedRatio(pathDurationRatio);
-
-                tripMaintainer.update(entry.getKey(), pathDurationRatio);
-                tripCounter++;
             }
+            double tripsPerSecond = tripBatch.size() * 1.0e9 / Math.max(System.nanoTime() - start, 1);
+            System.out.println(String.format("iteration %d: %d trips, %.1f trips/s", //
+                    iterationCount, tripBatch.size(), tripsPerSecond));
 
             /** update cost based on random trips */
             lastCost = randomTrips.getRatioCost();
@@ -152,38 +184,41 @@ import java.util.function.Function;
             // DEBUGGING
             /** DEBUGGING every interval trips, export cost map */
             if (iterationCount % 500 == 0) {
-                StaticHelper.exportRatioMap(new File(processingDir, "diff"), tripMaintainer.getLookupMap(), Integer.toString(iterationCount));
+                StaticHelper.exportRatios(new File(processingDir, "diff"), tripMaintainer.getRatios(), Integer.toString(iterationCount));
                 StaticHelper.plotRatioMap(new File(processingDir, "plot"), randomTrips.getRatios(), Integer.toString(iterationCount));
             }
             // DEBUGGING END
 
             /** intermediate export */
-            if (iterationCount % 30000 == 0)
+            if (iterationCount % 30000 == 0) {
+                speedStore.writeTo(lsData);
                 StaticHelper.export(processingDir, lsData, "_" + Integer.toString(iterationCount));
-
-            try {
-                plcpc.close();
-            } catch (IOException e) {
-                System.err.println("ParallelLeastCostPathCalculator could not be released!");
-                e.printStackTrace();
             }
+
             tripBatch.clear();
-            tripFuturePathPairs.clear();
+            futureRatios.clear();
         }
     }
 
-    private List<Map.Entry<TaxiTrip, Future<LeastCostPathCalculator.Path>>> getFuturePaths(List<TaxiTrip> taxiTrips,
-                                                                                           ParallelLeastCostPathCalculator plcpc) {
-        List<Map.Entry<TaxiTrip, Future<LeastCostPathCalculator.Path>>> futurePaths = new ArrayList<>();
-
-        for (TaxiTrip taxiTrip : taxiTrips) {
-            futurePaths.add(new AbstractMap.SimpleEntry<>(taxiTrip, plcpc.calcLeastCostPath(
-                    fastLinkLookup.linkFromWGS84(TensorCoords.toCoord(taxiTrip.pickupLoc)).getFromNode(),
-                    fastLinkLookup.linkFromWGS84(TensorCoords.toCoord(taxiTrip.dropoffLoc)).getToNode(),
-                    taxiTrip.getSimPickupTime(), null, null))
-            );
-        }
+    /**
+     * routes trip on the current link speeds and rescales the links of the path, runs on a worker thread
+     *
+     * @return ratio of network path duration and recorded duration, null if there is no path
+     */
+    private Double evaluate(LeastCostPathCalculator calculator, TaxiTrip trip, Node[] nodes, double epsilon1) {
+        LeastCostPathCalculator.Path path = calculator.calcLeastCostPath(nodes[0], nodes[1], trip.getSimPickupTime(), null, null);
+        if (Objects.isNull(path))
+            return null;
+        double pathDurationRatio = Quantity.of(path.travelTime, SI.SECOND).divide(trip.driveTime).number().doubleValue();
+        double rescaleFactor = 1 - (1 - pathDurationRatio) * epsilon1;
+        ApplyScaling.to(speedStore, trip, path, rescaleFactor, true);
+        tripMaintainer.update(trip, pathDurationRatio);
+        return pathDurationRatio;
+    }
 
-        return futurePaths;
+    private Node[] getNodes(TaxiTrip taxiTrip) {
+        return new Node[] { //
+                fastLinkLookup.linkFromWGS84(TensorCoords.toCoord(taxiTrip.pickupLoc)).getFromNode(), //
+                fastLinkLookup.linkFromWGS84(TensorCoords.toCoord(taxiTrip.dropoffLoc)).getToNode() };
     }
 }
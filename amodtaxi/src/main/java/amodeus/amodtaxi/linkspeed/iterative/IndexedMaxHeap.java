@@ -0,0 +1,163 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodtaxi.linkspeed.iterative;
+
+import java.util.Arrays;
+
+import amodeus.amodeus.util.math.GlobalAssert;
+
+/**
+ * binary max-heap of the ordinals 0, 1, ..., capacity - 1 with a double key each. The position of every ordinal
+ * in the heap is maintained, such that the key of a contained ordinal is changed in logarithmic time. Ordinals
+ * of equal key are ordered by ordinal, the smaller ordinal first.
+ */
+/* package */ class IndexedMaxHeap {
+    private final double[] keys;
+    /** ordinals in heap order */
+    private final int[] heap;
+    /** position of ordinal in heap, -1 if not contained */
+    private final int[] position;
+    private int size = 0;
+
+    public IndexedMaxHeap(int capacity) {
+        keys = new double[capacity];
+        heap = new int[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /** inserts ordinal with key, or changes the key if ordinal is contained already */
+    public void put(int ordinal, double key) {
+        GlobalAssert.that(!Double.isNaN(key));
+        if (position[ordinal] < 0) {
+            keys[ordinal] = key;
+            heap[size] = ordinal;
+            position[ordinal] = size;
+            siftUp(size++);
+        } else {
+            double before = keys[ordinal];
+            keys[ordinal] = key;
+            if (before < key)
+                siftUp(position[ordinal]);
+            else
+                siftDown(position[ordinal]);
+        }
+    }
+
+    public boolean contains(int ordinal) {
+        return 0 <= position[ordinal];
+    }
+
+    public double getKey(int ordinal) {
+        GlobalAssert.that(contains(ordinal));
+        return keys[ordinal];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** @return ordinal with maximum key */
+    public int peek() {
+        GlobalAssert.that(0 < size);
+        return heap[0];
+    }
+
+    /**
+     * the heap is not modified, only the at most 2 * n candidates at the border of the visited part of the
+     * heap are considered, i.e., O(n log n) independent of the size of the heap
+     *
+     * @return at most n ordinals with the largest keys in descending order
+     */
+    public int[] peek(int n) {
+        int count = Math.min(n, size);
+        int[] result = new int[count];
+        if (count == 0)
+            return result;
+        /** heap positions of candidates, ordered as a max-heap by their keys */
+        int[] candidates = new int[2 * count + 1];
+        int numCandidates = 0;
+        candidates[numCandidates++] = 0;
+        for (int i = 0; i < count; ++i) {
+            int best = candidates[0];
+            candidates[0] = candidates[--numCandidates];
+            siftDownCandidates(candidates, numCandidates, 0);
+            result[i] = heap[best];
+            for (int child = 2 * best + 1; child <= 2 * best + 2 && child < size; ++child) {
+                candidates[numCandidates] = child;
+                siftUpCandidates(candidates, numCandidates++);
+            }
+        }
+        return result;
+    }
+
+    /** @return true if the ordinal at heap position i precedes the one at j */
+    private boolean precedes(int i, int j) {
+        double keyI = keys[heap[i]];
+        double keyJ = keys[heap[j]];
+        return keyI > keyJ || keyI == keyJ && heap[i] < heap[j];
+    }
+
+    private void siftUp(int index) {
+        while (0 < index) {
+            int parent = (index - 1) / 2;
+            if (!precedes(index, parent))
+                break;
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (size <= child)
+                break;
+            if (child + 1 < size && precedes(child + 1, child))
+                ++child;
+            if (!precedes(child, index))
+                break;
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int ordinal = heap[i];
+        heap[i] = heap[j];
+        heap[j] = ordinal;
+        position[heap[i]] = i;
+        position[heap[j]] = j;
+    }
+
+    private void siftUpCandidates(int[] candidates, int index) {
+        while (0 < index) {
+            int parent = (index - 1) / 2;
+            if (!precedes(candidates[index], candidates[parent]))
+                break;
+            int swap = candidates[index];
+            candidates[index] = candidates[parent];
+            candidates[parent] = swap;
+            index = parent;
+        }
+    }
+
+    private void siftDownCandidates(int[] candidates, int numCandidates, int index) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (numCandidates <= child)
+                break;
+            if (child + 1 < numCandidates && precedes(candidates[child + 1], candidates[child]))
+                ++child;
+            if (!precedes(candidates[child], candidates[index]))
+                break;
+            int swap = candidates[index];
+            candidates[index] = candidates[child];
+            candidates[child] = swap;
+            index = child;
+        }
+    }
+}
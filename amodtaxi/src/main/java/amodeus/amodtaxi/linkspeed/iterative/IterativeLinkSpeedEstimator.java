@@ -96,7 +96,7 @@ public class IterativeLinkSpeedEstimator implements TaxiLinkSpeedEstimator {
         System.out.println("Number of trips: " + trips.size());
         FindCongestionIterative findCongestionIterative = new FindCongestionIterative(network, db, processingDir,
                 lsData, trips, epochs, tolerance, epsilon1Start,
-                epsilon1Target, epsilon2, random, Cost::max, trips.size());
+                epsilon1Target, epsilon2, random, Cost.MAX, trips.size());
         findCongestionIterative.runTripIterations();
 
         /** final export */
@@ -1,96 +1,99 @@
 /* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
 package amodeus.amodtaxi.linkspeed.iterative;
 
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.NavigableMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
-import java.util.Set;
-import java.util.TreeMap;
-import java.util.function.Function;
 
-import amodeus.amodeus.dispatcher.util.FIFOFixedQueue;
 import amodeus.amodeus.taxitrip.TaxiTrip;
 import amodeus.amodeus.util.math.GlobalAssert;
-import ch.ethz.idsc.tensor.Scalar;
 import ch.ethz.idsc.tensor.Tensor;
 
+/**
+ * assigns an ordinal 0, 1, ..., numTrips - 1 to every trip, queries the trips in random order and maintains
+ * the cost of the most recently recorded ratios
+ */
 public class RandomTripMaintainer {
     /**
      * random generator
      */
     private final Random random;
     /**
-     * maintaining a list of last recorded ratios
+     * trips by ordinal and ordinals by trip
      */
-    private final FIFOFixedQueue<Scalar> lastRatios;
+    private final TaxiTrip[] trips;
+    private final Map<TaxiTrip, Integer> ordinals = new IdentityHashMap<>();
     /**
-     * number of trips used for convergence assessment
+     * maintaining the last recorded ratios used for convergence assessment
      */
-    private final int checkHorizon;
+    private final RecentRatios lastRatios;
     /**
      * cost function for convergence check
      */
-    private final Function<List<Scalar>, Scalar> costFunction;
+    private final Cost cost;
     /**
-     * map tracking number of queries; Integer denotes times the trips was queried, so all trips start with key 0
+     * ordinals in the order of queries of the current round, every trip is queried once per round,
+     * i.e., the next trip is always one of the trips with the least amount of queries
      */
-    private final NavigableMap<Integer, Set<TaxiTrip>> queryMap = new TreeMap<>();
-    private final int numTrips;
+    private final int[] round;
+    private int roundIndex;
 
-    public RandomTripMaintainer(List<TaxiTrip> allTrips, int checkHorizon, //
-                                Function<List<Scalar>, Scalar> costFunction, Random random) {
-        lastRatios = new FIFOFixedQueue<>(allTrips.size());
-        this.checkHorizon = Math.min(checkHorizon, allTrips.size());
-        this.costFunction = costFunction;
+    public RandomTripMaintainer(List<TaxiTrip> allTrips, int checkHorizon, Cost cost, Random random) {
+        GlobalAssert.that(!allTrips.isEmpty());
+        this.lastRatios = new RecentRatios(Math.max(1, Math.min(checkHorizon, allTrips.size())));
+        this.cost = Objects.requireNonNull(cost);
         this.random = random;
-        numTrips = allTrips.size();
-
-        /** fill query map */
-        Collections.shuffle(allTrips, random);
-        queryMap.put(0, new HashSet<TaxiTrip>(allTrips));
-        GlobalAssert.that(allTrips.size() == queryMap.firstEntry().getValue().size());
+        this.trips = allTrips.toArray(new TaxiTrip[allTrips.size()]);
+        for (int ordinal = 0; ordinal < trips.length; ++ordinal)
+            GlobalAssert.that(Objects.isNull(ordinals.put(trips[ordinal], ordinal)));
+        this.round = new int[trips.length];
+        for (int ordinal = 0; ordinal < round.length; ++ordinal)
+            round[ordinal] = ordinal;
+        this.roundIndex = round.length;
     }
 
     /**
-     * queries next trip, trip is removed from list with lowest key in querymap(least amount of queries) and put in list with key+1
+     * queries next trip, among the trips with the least amount of queries the trip is chosen uniformly at random
      *
      * @return queried {@link TaxiTrip}
      */
     public TaxiTrip nextRandom() {
-        // find set of trips with least checks
-        int numChecks = 0;
-        while (!(queryMap.ceilingEntry(numChecks).getValue().size() > 0))
-            ++numChecks;
-
-        Set<TaxiTrip> leastChecked = queryMap.ceilingEntry(numChecks).getValue();
+        if (roundIndex == round.length)
+            roundIndex = 0;
+        /** lazy Fisher-Yates shuffle of the remaining ordinals of the round */
+        int swap = roundIndex + random.nextInt(round.length - roundIndex);
+        int ordinal = round[swap];
+        round[swap] = round[roundIndex];
+        round[roundIndex++] = ordinal;
+        return trips[ordinal];
+    }
 
-        // select random trip from it
-        TaxiTrip selected = leastChecked.stream().skip(random.nextInt(leastChecked.size())).findFirst().get();
-        // move to set with +1 checks
-        GlobalAssert.that(leastChecked.remove(selected));
-        if (queryMap.lastKey() == numChecks)
-            queryMap.put(numChecks + 1, new HashSet<>());
-        queryMap.ceilingEntry(numChecks + 1).getValue().add(selected);
+    public void addRecordedRatio(double ratio) {
+        lastRatios.add(ratio);
+    }
 
-        // return
-        return selected;
+    /** @return cost of the recorded ratios in the check horizon, constant time */
+    public double getRatioCost() {
+        return lastRatios.cost(cost);
     }
 
-    public void addRecordedRatio(Scalar ratio) {
-        lastRatios.manage(ratio);
+    public int numTrips() {
+        return trips.length;
     }
 
-    public Scalar getRatioCost() {
-        return costFunction.apply(lastRatios.getNewest(checkHorizon));
+    /** @return ordinal of trip in 0, 1, ..., numTrips - 1 */
+    public int ordinal(TaxiTrip trip) {
+        return ordinals.get(trip);
     }
 
-    public int numTrips() {
-        return numTrips;
+    public TaxiTrip trip(int ordinal) {
+        return trips[ordinal];
     }
 
+    /** @return recorded ratios in the check horizon, newest first */
     public Tensor getRatios() {
-        return Tensor.of(lastRatios.getNewest(checkHorizon).stream());
+        return lastRatios.toTensor();
     }
 }
@@ -0,0 +1,91 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodtaxi.linkspeed.iterative;
+
+import amodeus.amodeus.util.math.GlobalAssert;
+import ch.ethz.idsc.tensor.Tensor;
+import ch.ethz.idsc.tensor.Tensors;
+
+/**
+ * the most recent ratios in a ring buffer of fixed length, of which the {@link Cost} is maintained incrementally
+ * in amortized constant time per added ratio: the mean by a running sum, the maximum of |ratio - 1| by a
+ * monotonic queue of the ratios that may still become the maximum of the window.
+ */
+/* package */ class RecentRatios {
+    private final double[] ratios;
+    private int count = 0;
+    /** index at which the next ratio is stored */
+    private int next = 0;
+    private double sum = 0;
+
+    /** ring buffer of sequence numbers, the costs |ratio - 1| are decreasing from head to tail */
+    private final long[] maxQueue;
+    private final double[] maxQueueCost;
+    private int maxHead = 0;
+    private int maxSize = 0;
+    private long sequence = 0;
+
+    public RecentRatios(int capacity) {
+        GlobalAssert.that(0 < capacity);
+        ratios = new double[capacity];
+        maxQueue = new long[capacity];
+        maxQueueCost = new double[capacity];
+    }
+
+    public void add(double ratio) {
+        int capacity = ratios.length;
+        if (count == capacity)
+            sum -= ratios[next];
+        else
+            ++count;
+        ratios[next] = ratio;
+        next = (next + 1) % capacity;
+        sum += ratio;
+        /** recomputation once per round avoids the accumulation of rounding errors */
+        if (next == 0) {
+            sum = 0;
+            for (double value : ratios)
+                sum += value;
+        }
+
+        /** drop the oldest ratio from the queue if it left the window */
+        if (0 < maxSize && maxQueue[maxHead] <= sequence - capacity) {
+            maxHead = (maxHead + 1) % capacity;
+            --maxSize;
+        }
+        /** ratios of lower cost than the new one never become the maximum again */
+        double cost = Math.abs(ratio - 1);
+        while (0 < maxSize && maxQueueCost[(maxHead + maxSize - 1) % capacity] <= cost)
+            --maxSize;
+        int tail = (maxHead + maxSize) % capacity;
+        maxQueue[tail] = sequence;
+        maxQueueCost[tail] = cost;
+        ++maxSize;
+        ++sequence;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** @return cost of the ratios in the window, 0 if there are none */
+    public double cost(Cost cost) {
+        if (count == 0)
+            return 0;
+        switch (cost) {
+        case MAX:
+            return maxQueueCost[maxHead];
+        case MEAN:
+            return Math.abs(sum / count - 1);
+        default:
+            throw new IllegalArgumentException("unknown cost " + cost);
+        }
+    }
+
+    /** @return ratios in the window, newest first */
+    public Tensor toTensor() {
+        double[] newest = new double[count];
+        for (int i = 0; i < count; ++i)
+            newest[i] = ratios[Math.floorMod(next - 1 - i, ratios.length)];
+        return Tensors.vectorDouble(newest);
+    }
+}
@@ -4,13 +4,11 @@ package amodeus.amodtaxi.linkspeed.iterative;
 import java.io.File;
 import java.io.IOException;
 import java.time.Duration;
-import java.util.Map;
 
 import amodeus.amodeus.analysis.plot.AmodeusChartUtils;
 import amodeus.amodeus.analysis.plot.ColorDataAmodeus;
 import amodeus.amodeus.linkspeed.LinkSpeedDataContainer;
 import amodeus.amodeus.linkspeed.LinkSpeedUtils;
-import amodeus.amodeus.taxitrip.TaxiTrip;
 import amodeus.amodeus.util.io.SaveFormats;
 import amodeus.amodeus.util.math.GlobalAssert;
 import amodeus.tensor.fig.Histogram;
@@ -25,7 +23,6 @@ import ch.ethz.idsc.tensor.RealScalar;
 import ch.ethz.idsc.tensor.Scalar;
 import ch.ethz.idsc.tensor.Scalars;
 import ch.ethz.idsc.tensor.Tensor;
-import ch.ethz.idsc.tensor.Tensors;
 import ch.ethz.idsc.tensor.alg.Range;
 import ch.ethz.idsc.tensor.pdf.BinCounts;
 import org.matsim.amodeus.config.FTMConfigGroup;
@@ -57,9 +54,7 @@ import org.matsim.core.config.ConfigUtils;
         }
     }
 
-    public static void exportRatioMap(File relativeDirectory, Map<TaxiTrip, Scalar> ratioLookupMap, String append) {
-        Tensor all = Tensors.empty();
-        ratioLookupMap.values().forEach(all::append);
+    public static void exportRatios(File relativeDirectory, Tensor all, String append) {
         try {
             SaveFormats.MATHEMATICA.save(all, relativeDirectory, "diff" + append);
         } catch (IOException e) {
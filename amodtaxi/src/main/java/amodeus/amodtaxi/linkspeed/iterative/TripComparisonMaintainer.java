@@ -6,92 +6,88 @@ import amodeus.amodeus.net.FastLinkLookup;
 import amodeus.amodeus.net.MatsimAmodeusDatabase;
 import amodeus.amodeus.taxitrip.ShortestDurationCalculator;
 import amodeus.amodeus.taxitrip.TaxiTrip;
-import amodeus.amodeus.util.math.GlobalAssert;
-import ch.ethz.idsc.tensor.RealScalar;
-import ch.ethz.idsc.tensor.Scalar;
+import ch.ethz.idsc.tensor.Tensor;
+import ch.ethz.idsc.tensor.Tensors;
 import org.matsim.api.core.v01.network.Network;
-import org.matsim.core.router.util.LeastCostPathCalculator;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+/**
+ * maintains the ratio of network path duration and recorded duration of all trips, indexed by the ordinals of
+ * {@link RandomTripMaintainer}, and the trips sorted by cost |ratio - 1| in an {@link IndexedMaxHeap}. All
+ * methods are synchronized, such that {@link #update} may be called concurrently.
+ */
 /* package */ class TripComparisonMaintainer {
-    // TODO can maintain same size more pretty?
-    private final Map<TaxiTrip, Scalar> ratioLookupMap = new HashMap<>();
-    private final NavigableMap<Scalar, TaxiTrip> ratioSortedMap = new TreeMap<>();
+    private final RandomTripMaintainer randomTrips;
+    /** ratio by ordinal, NaN if the trip has no path */
+    private final double[] ratios;
+    private final IndexedMaxHeap costHeap;
 
     public TripComparisonMaintainer(RandomTripMaintainer randomTrips, Network network, MatsimAmodeusDatabase db) {
-        // initial fill
-        ShortestDurationCalculator calc = new ShortestDurationCalculator(network, db);
-        for (int i = 0; i < randomTrips.numTrips(); ++i) {
-            if (i % 100 == 0)
-                System.out.println("Freespeed length calculation: " + i);
-            TaxiTrip trip = randomTrips.nextRandom();
-            DurationCompare compare = DurationCompare.getInstance(trip, calc);
-            if (compare == null) {
-                continue;
-            }
-            Scalar pathDurationratio = compare.nwPathDurationRatio;
-            randomTrips.addRecordedRatio(pathDurationratio);
-            ratioLookupMap.put(trip, pathDurationratio);
-            Scalar cost = pathDurationratio.subtract(RealScalar.ONE).abs();
-            ratioSortedMap.put(cost, trip);
-        }
-        GlobalAssert.that(ratioSortedMap.size() <= ratioLookupMap.size());
+        this(randomTrips, new ShortestDurationCalculator(network, db), "Freespeed length calculation: ");
     }
 
     public TripComparisonMaintainer(RandomTripMaintainer randomTrips, Network network, LinkSpeedDataContainer lsData,
                                     FastLinkLookup fastLinkLookup) {
+        this(randomTrips, new ShortestDurationCalculator(LinkSpeedLeastPathCalculator.from(network, lsData), fastLinkLookup), //
+                "Initial length calculation: ");
+    }
+
+    private TripComparisonMaintainer(RandomTripMaintainer randomTrips, ShortestDurationCalculator calc, String progress) {
+        this(randomTrips);
         // initial fill
-        LeastCostPathCalculator lcpc = LinkSpeedLeastPathCalculator.from(network, lsData);
-        ShortestDurationCalculator calc = new ShortestDurationCalculator(lcpc, fastLinkLookup);
         for (int i = 0; i < randomTrips.numTrips(); ++i) {
             if (i % 100 == 0)
-                System.out.println("Initial length calculation: " + i);
+                System.out.println(progress + i);
             TaxiTrip trip = randomTrips.nextRandom();
             DurationCompare compare = DurationCompare.getInstance(trip, calc);
             if (compare == null) {
                 continue;
             }
-            Scalar pathDurationratio = compare.nwPathDurationRatio;
+            double pathDurationratio = compare.nwPathDurationRatio.number().doubleValue();
             randomTrips.addRecordedRatio(pathDurationratio);
-            ratioLookupMap.put(trip, pathDurationratio);
-            Scalar cost = pathDurationratio.subtract(RealScalar.ONE).abs();
-            ratioSortedMap.put(cost, trip);
+            update(trip, pathDurationratio);
         }
-        GlobalAssert.that(ratioSortedMap.size() <= ratioLookupMap.size());
     }
 
-    public void update(TaxiTrip trip, Scalar pathDurationratio) {
-        // remove using old value
-        Scalar ratioBefore = ratioLookupMap.get(trip);
-        Scalar costBefore = ratioBefore.subtract(RealScalar.ONE).abs();
-        // update worst trip
-        if (!ratioSortedMap.remove(costBefore, trip)) {
-            // GlobalAssert.that(false); // TODO To check why should this happen?
-            System.out.println("Cleansing sorted map...");
-            // if not removed successfully, remove all values associated to this trip.
-            ratioSortedMap.entrySet().removeIf(e -> e.getValue().equals(trip));
-        }
-        ratioSortedMap.put(pathDurationratio.subtract(RealScalar.ONE).abs(), trip);
-        // update lookupMap
-        ratioLookupMap.put(trip, pathDurationratio);
-        GlobalAssert.that(ratioSortedMap.size() <= ratioLookupMap.size());
+    /** empty maintainer */
+    /* package */ TripComparisonMaintainer(RandomTripMaintainer randomTrips) {
+        this.randomTrips = randomTrips;
+        this.ratios = new double[randomTrips.numTrips()];
+        Arrays.fill(ratios, Double.NaN);
+        this.costHeap = new IndexedMaxHeap(randomTrips.numTrips());
+    }
+
+    public synchronized void update(TaxiTrip trip, double pathDurationratio) {
+        int ordinal = randomTrips.ordinal(trip);
+        ratios[ordinal] = pathDurationratio;
+        costHeap.put(ordinal, Math.abs(pathDurationratio - 1));
+    }
+
+    public synchronized TaxiTrip getWorst() {
+        return randomTrips.trip(costHeap.peek());
     }
 
-    public TaxiTrip getWorst() {
-        return ratioSortedMap.lastEntry().getValue();
+    public synchronized List<TaxiTrip> getNWorst(int n) {
+        List<TaxiTrip> worst = new ArrayList<>(n);
+        for (int ordinal : costHeap.peek(n))
+            worst.add(randomTrips.trip(ordinal));
+        return worst;
     }
 
-    public List<TaxiTrip> getNWorst(int n) {
-        return ratioSortedMap.descendingMap().entrySet().stream().limit(n).map(Map.Entry::getValue).collect(Collectors.toList());
+    public synchronized double getWorstCost() {
+        return costHeap.getKey(costHeap.peek());
     }
 
-    public Scalar getWorstCost() {
-        return ratioSortedMap.lastEntry().getKey();
+    /** @return ratio of trip, NaN if the trip has no path */
+    public synchronized double getRatio(TaxiTrip trip) {
+        return ratios[randomTrips.ordinal(trip)];
     }
 
-    public Map<TaxiTrip, Scalar> getLookupMap() {
-        return Collections.unmodifiableMap(ratioLookupMap);
+    /** @return ratios of all trips with a path, in the order of the ordinals */
+    public synchronized Tensor getRatios() {
+        return Tensors.vectorDouble(Arrays.stream(ratios).filter(ratio -> !Double.isNaN(ratio)).toArray());
     }
 }
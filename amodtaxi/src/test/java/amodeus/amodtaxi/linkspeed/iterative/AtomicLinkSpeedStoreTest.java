@@ -0,0 +1,109 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodtaxi.linkspeed.iterative;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+
+import amodeus.amodeus.linkspeed.LinkSpeedDataContainer;
+import junit.framework.TestCase;
+
+public class AtomicLinkSpeedStoreTest extends TestCase {
+    private static final int DT = 60;
+    private static final int MAX_TIME = 3600;
+
+    private static Network createNetwork() {
+        Network network = NetworkUtils.createNetwork();
+        Node node0 = NetworkUtils.createAndAddNode(network, Id.createNodeId(0), new Coord(0, 0));
+        Node node1 = NetworkUtils.createAndAddNode(network, Id.createNodeId(1), new Coord(1000, 0));
+        Node node2 = NetworkUtils.createAndAddNode(network, Id.createNodeId(2), new Coord(1000, 1000));
+        NetworkUtils.createAndAddLink(network, Id.createLinkId("a"), node0, node1, 1000, 15, 1000, 1);
+        NetworkUtils.createAndAddLink(network, Id.createLinkId("b"), node1, node2, 1000, 10, 1000, 1);
+        return network;
+    }
+
+    /** rescales by several threads at once give the same speeds as the sequential rescales, since the
+     * compare-and-set loop loses no update and the multiplications commute */
+    public void testConcurrentRescale() throws Exception {
+        Network network = createNetwork();
+        Link linkA = network.getLinks().get(Id.createLinkId("a"));
+        Link linkB = network.getLinks().get(Id.createLinkId("b"));
+        LinkSpeedDataContainer lsData = new LinkSpeedDataContainer(DT);
+        lsData.addData(linkA, 600, 5.0);
+        AtomicLinkSpeedStore concurrent = new AtomicLinkSpeedStore(network, lsData, MAX_TIME);
+        AtomicLinkSpeedStore sequential = new AtomicLinkSpeedStore(network, lsData, MAX_TIME);
+
+        int threads = 8;
+        int rescales = 2000;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; ++thread) {
+                Random random = new Random(thread);
+                futures.add(executorService.submit(() -> apply(concurrent, random, linkA, linkB, rescales)));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executorService.shutdownNow();
+        }
+        for (int thread = 0; thread < threads; ++thread)
+            apply(sequential, new Random(thread), linkA, linkB, rescales);
+
+        for (Link link : new Link[] { linkA, linkB })
+            for (int time = 0; time <= MAX_TIME; time += DT / 2) {
+                double expected = sequential.getSpeed(link, time);
+                assertEquals(expected, concurrent.getSpeed(link, time), 1e-9 * expected);
+            }
+        assertFalse(sequential.getSpeed(linkA, 600) == 5.0);
+    }
+
+    private static void apply(AtomicLinkSpeedStore store, Random random, Link linkA, Link linkB, int rescales) {
+        for (int count = 0; count < rescales; ++count) {
+            int fromTime = random.nextInt(MAX_TIME);
+            int toTime = fromTime + random.nextInt(600);
+            double factor = 0.99 + 0.02 * random.nextDouble();
+            store.rescale(random.nextBoolean() ? linkA : linkB, fromTime, toTime, factor, true);
+        }
+    }
+
+    public void testWriteTo() {
+        Network network = createNetwork();
+        Link linkA = network.getLinks().get(Id.createLinkId("a"));
+        LinkSpeedDataContainer lsData = new LinkSpeedDataContainer(DT);
+        lsData.addData(linkA, 120, 4.0);
+        AtomicLinkSpeedStore store = new AtomicLinkSpeedStore(network, lsData, MAX_TIME);
+        assertEquals(4.0, store.getSpeed(linkA, 150), 0.0);
+        assertEquals(4.0, store.getSpeed(linkA, 180), 0.0);
+        assertEquals(15.0, store.getSpeed(linkA, 181), 0.0);
+        store.rescale(linkA, 120, 240, 0.5, false);
+        LinkSpeedDataContainer result = new LinkSpeedDataContainer(DT);
+        store.writeTo(result);
+        assertEquals(2.0, result.get(linkA).getSpeedsAt(120), 0.0);
+        assertEquals(7.5, result.get(linkA).getSpeedsAt(180), 0.0);
+        assertEquals(7.5, result.get(linkA).getSpeedsAt(240), 0.0);
+        assertEquals(3, result.get(linkA).getRecordedTimes().size());
+    }
+
+    public void testUnalignedRecordingFails() {
+        Network network = createNetwork();
+        LinkSpeedDataContainer lsData = new LinkSpeedDataContainer(DT);
+        lsData.addData(network.getLinks().get(Id.createLinkId("b")), 130, 4.0);
+        try {
+            new AtomicLinkSpeedStore(network, lsData, MAX_TIME);
+            fail();
+        } catch (IllegalArgumentException illegalArgumentException) {
+            // ---
+        }
+    }
+}
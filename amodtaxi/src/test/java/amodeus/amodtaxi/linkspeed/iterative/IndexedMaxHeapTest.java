@@ -0,0 +1,47 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodtaxi.linkspeed.iterative;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import junit.framework.TestCase;
+
+public class IndexedMaxHeapTest extends TestCase {
+    public void testUpdate() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(4);
+        heap.put(0, 0.5);
+        heap.put(1, 0.2);
+        heap.put(2, 0.5);
+        assertEquals(3, heap.size());
+        assertEquals(0, heap.peek());
+        /** equal keys do not overwrite each other */
+        assertTrue(Arrays.equals(new int[] { 0, 2, 1 }, heap.peek(5)));
+        heap.put(1, 0.9);
+        assertEquals(1, heap.peek());
+        heap.put(1, 0.1);
+        assertEquals(0, heap.peek());
+        assertEquals(0.1, heap.getKey(1), 0.0);
+        assertFalse(heap.contains(3));
+        assertEquals(0, heap.peek(0).length);
+    }
+
+    public void testRandom() {
+        Random random = new Random(7);
+        int capacity = 200;
+        IndexedMaxHeap heap = new IndexedMaxHeap(capacity);
+        double[] keys = new double[capacity];
+        for (int i = 0; i < 5000; ++i) {
+            int ordinal = random.nextInt(capacity);
+            keys[ordinal] = random.nextInt(50) / 10.0;
+            heap.put(ordinal, keys[ordinal]);
+        }
+        assertEquals(capacity, heap.size());
+        int[] expected = IntStream.range(0, capacity).boxed() //
+                .sorted(Comparator.<Integer>comparingDouble(ordinal -> -keys[ordinal]).thenComparing(ordinal -> ordinal)) //
+                .mapToInt(Integer::intValue).limit(17).toArray();
+        assertTrue(Arrays.equals(expected, heap.peek(17)));
+        assertEquals(expected[0], heap.peek());
+    }
+}
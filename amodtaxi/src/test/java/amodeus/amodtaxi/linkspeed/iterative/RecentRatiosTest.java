@@ -0,0 +1,43 @@
+/* amodeus - Copyright (c) 2019, ETH Zurich, Institute for Dynamic Systems and Control */
+package amodeus.amodtaxi.linkspeed.iterative;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class RecentRatiosTest extends TestCase {
+    public void testSimple() {
+        RecentRatios recentRatios = new RecentRatios(3);
+        assertEquals(0.0, recentRatios.cost(Cost.MAX), 0.0);
+        recentRatios.add(0.5);
+        recentRatios.add(1.2);
+        assertEquals(0.5, recentRatios.cost(Cost.MAX), 1e-12);
+        assertEquals(0.15, recentRatios.cost(Cost.MEAN), 1e-12);
+        recentRatios.add(1.1);
+        recentRatios.add(1.0);
+        /** 0.5 left the window */
+        assertEquals(3, recentRatios.size());
+        assertEquals(0.2, recentRatios.cost(Cost.MAX), 1e-12);
+        assertEquals(0.1, recentRatios.cost(Cost.MEAN), 1e-12);
+    }
+
+    public void testRandom() {
+        Random random = new Random(3);
+        int capacity = 37;
+        RecentRatios recentRatios = new RecentRatios(capacity);
+        double[] all = new double[1000];
+        for (int i = 0; i < all.length; ++i) {
+            all[i] = 2 * random.nextDouble();
+            recentRatios.add(all[i]);
+            double max = 0;
+            double sum = 0;
+            int count = Math.min(i + 1, capacity);
+            for (int j = i + 1 - count; j <= i; ++j) {
+                max = Math.max(max, Math.abs(all[j] - 1));
+                sum += all[j];
+            }
+            assertEquals(max, recentRatios.cost(Cost.MAX), 0.0);
+            assertEquals(Math.abs(sum / count - 1), recentRatios.cost(Cost.MEAN), 1e-9);
+        }
+    }
+}